@@ -26,7 +26,9 @@ import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
 
+import static com.facebook.presto.SystemSessionProperties.OPERATOR_MEMORY_LIMIT_BEFORE_SPILL;
 import static com.facebook.presto.SystemSessionProperties.OPTIMIZE_HASH_GENERATION;
+import static com.facebook.presto.SystemSessionProperties.SPILL_ENABLED;
 import static java.util.Objects.requireNonNull;
 
 public class BenchmarkSuite
@@ -38,19 +40,27 @@ public class BenchmarkSuite
         Session optimizeHashSession = Session.builder(localQueryRunner.getDefaultSession())
                 .setSystemProperty(OPTIMIZE_HASH_GENERATION, "true")
                 .build();
+        Session spillSession = Session.builder(localQueryRunner.getDefaultSession())
+                .setSystemProperty(SPILL_ENABLED, "true")
+                .setSystemProperty(OPERATOR_MEMORY_LIMIT_BEFORE_SPILL, "1MB")
+                .build();
         return ImmutableList.<AbstractBenchmark>of(
                 // hand built benchmarks
                 new CountAggregationBenchmark(localQueryRunner),
                 new DoubleSumAggregationBenchmark(localQueryRunner),
                 new HashAggregationBenchmark(localQueryRunner),
+                new HashAggregationBenchmark(localQueryRunner, "hash_agg_bigint_bigint", ImmutableList.of("custkey", "orderkey")),
+                new HashAggregationBenchmark(localQueryRunner, "hash_agg_bigint_varchar", ImmutableList.of("custkey", "orderpriority")),
                 new PredicateFilterBenchmark(localQueryRunner),
                 new RawStreamingBenchmark(localQueryRunner),
                 new Top100Benchmark(localQueryRunner),
                 new OrderByBenchmark(localQueryRunner),
                 new HashBuildBenchmark(localQueryRunner),
                 new HashJoinBenchmark(localQueryRunner),
+                new HashJoinBenchmark(localQueryRunner, "hash_join_sf1", "sf1", 1, 5),
                 new HashBuildAndJoinBenchmark(localQueryRunner.getDefaultSession(), localQueryRunner),
                 new HashBuildAndJoinBenchmark(optimizeHashSession, localQueryRunner),
+                new HashBuildAndJoinBenchmark(spillSession, localQueryRunner),
                 new HandTpchQuery1(localQueryRunner),
                 new HandTpchQuery6(localQueryRunner),
 
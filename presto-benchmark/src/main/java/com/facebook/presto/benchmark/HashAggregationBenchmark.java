@@ -22,26 +22,38 @@ import com.facebook.presto.sql.planner.plan.AggregationNode.Step;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.facebook.presto.testing.LocalQueryRunner;
 import com.google.common.collect.ImmutableList;
-import com.google.common.primitives.Ints;
 import io.airlift.units.DataSize;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.IntStream;
 
 import static com.facebook.presto.benchmark.BenchmarkQueryRunner.createLocalQueryRunner;
 import static com.facebook.presto.metadata.FunctionKind.AGGREGATE;
 import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.util.ImmutableCollectors.toImmutableList;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.Objects.requireNonNull;
 
 public class HashAggregationBenchmark
         extends AbstractSimpleOperatorBenchmark
 {
     private final InternalAggregationFunction doubleSum;
+    private final List<String> groupByColumns;
 
     public HashAggregationBenchmark(LocalQueryRunner localQueryRunner)
     {
-        super(localQueryRunner, "hash_agg", 5, 25);
+        this(localQueryRunner, "hash_agg", ImmutableList.of("orderstatus"));
+    }
+
+    /**
+     * Sums the total price of the orders grouped by the given columns of the orders table.
+     */
+    public HashAggregationBenchmark(LocalQueryRunner localQueryRunner, String benchmarkName, List<String> groupByColumns)
+    {
+        super(localQueryRunner, benchmarkName, 5, 25);
 
+        this.groupByColumns = ImmutableList.copyOf(requireNonNull(groupByColumns, "groupByColumns is null"));
         doubleSum = localQueryRunner.getMetadata().getFunctionRegistry().getAggregateFunctionImplementation(
                 new Signature("sum", AGGREGATE, DOUBLE.getTypeSignature(), DOUBLE.getTypeSignature()));
     }
@@ -49,16 +61,22 @@ public class HashAggregationBenchmark
     @Override
     protected List<? extends OperatorFactory> createOperatorFactories()
     {
-        OperatorFactory tableScanOperator = createTableScanOperator(0, new PlanNodeId("test"), "orders", "orderstatus", "totalprice");
-        List<Type> types = ImmutableList.of(tableScanOperator.getTypes().get(0));
+        String[] columns = ImmutableList.<String>builder()
+                .addAll(groupByColumns)
+                .add("totalprice")
+                .build()
+                .toArray(new String[0]);
+        OperatorFactory tableScanOperator = createTableScanOperator(0, new PlanNodeId("test"), "orders", columns);
+        int groupByCount = groupByColumns.size();
+        List<Type> types = ImmutableList.copyOf(tableScanOperator.getTypes().subList(0, groupByCount));
         HashAggregationOperatorFactory aggregationOperator = new HashAggregationOperatorFactory(
                 1,
                 new PlanNodeId("test"),
                 types,
-                Ints.asList(0),
+                IntStream.range(0, groupByCount).boxed().collect(toImmutableList()),
                 ImmutableList.of(),
                 Step.SINGLE,
-                ImmutableList.of(doubleSum.bind(ImmutableList.of(1), Optional.empty())),
+                ImmutableList.of(doubleSum.bind(ImmutableList.of(groupByCount), Optional.empty())),
                 Optional.empty(),
                 Optional.empty(),
                 100_000,
@@ -68,6 +86,9 @@ public class HashAggregationBenchmark
 
     public static void main(String[] args)
     {
-        new HashAggregationBenchmark(createLocalQueryRunner()).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
+        LocalQueryRunner localQueryRunner = createLocalQueryRunner();
+        new HashAggregationBenchmark(localQueryRunner).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
+        new HashAggregationBenchmark(localQueryRunner, "hash_agg_bigint_bigint", ImmutableList.of("custkey", "orderkey")).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
+        new HashAggregationBenchmark(localQueryRunner, "hash_agg_bigint_varchar", ImmutableList.of("custkey", "orderpriority")).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
     }
 }
@@ -22,17 +22,21 @@ import com.facebook.presto.operator.LookupJoinOperators;
 import com.facebook.presto.operator.OperatorFactory;
 import com.facebook.presto.operator.TaskContext;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.SpillerFactory;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.facebook.presto.testing.LocalQueryRunner;
 import com.facebook.presto.testing.NullOutputOperator.NullOutputOperatorFactory;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.primitives.Ints;
+import io.airlift.units.DataSize;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.OptionalInt;
 
+import static com.facebook.presto.SystemSessionProperties.OPERATOR_MEMORY_LIMIT_BEFORE_SPILL;
+import static com.facebook.presto.SystemSessionProperties.SPILL_ENABLED;
 import static com.facebook.presto.benchmark.BenchmarkQueryRunner.createLocalQueryRunner;
 import static com.facebook.presto.benchmark.BenchmarkQueryRunner.createLocalQueryRunnerHashEnabled;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
@@ -43,13 +47,28 @@ public class HashBuildAndJoinBenchmark
         extends AbstractOperatorBenchmark
 {
     private final boolean hashEnabled;
+    private final boolean spillEnabled;
+    private final DataSize memoryLimitBeforeSpill;
+    private final SpillerFactory spillerFactory;
     private final OperatorFactory ordersTableScan = createTableScanOperator(0, new PlanNodeId("test"), "orders", "orderkey", "totalprice");
     private final OperatorFactory lineItemTableScan = createTableScanOperator(0, new PlanNodeId("test"), "lineitem", "orderkey", "quantity");
 
     public HashBuildAndJoinBenchmark(Session session, LocalQueryRunner localQueryRunner)
     {
-        super(session, localQueryRunner, "hash_build_and_join_hash_enabled_" + isHashEnabled(session), 4, 5);
+        super(session, localQueryRunner, benchmarkName(session), 4, 5);
         this.hashEnabled = isHashEnabled(session);
+        this.spillEnabled = SystemSessionProperties.isSpillEnabled(session);
+        this.memoryLimitBeforeSpill = SystemSessionProperties.getOperatorMemoryLimitBeforeSpill(session);
+        this.spillerFactory = localQueryRunner.getSpillerFactory();
+    }
+
+    private static String benchmarkName(Session session)
+    {
+        String name = "hash_build_and_join_hash_enabled_" + isHashEnabled(session);
+        if (SystemSessionProperties.isSpillEnabled(session)) {
+            name += "_spill";
+        }
+        return name;
     }
 
     private static boolean isHashEnabled(Session session)
@@ -75,7 +94,20 @@ public class HashBuildAndJoinBenchmark
         }
 
         // hash build
-        HashBuilderOperatorFactory hashBuilder = new HashBuilderOperatorFactory(2, new PlanNodeId("test"), source.getTypes(), ImmutableMap.of(), Ints.asList(0), hashChannel, false, Optional.empty(), 1_500_000, 1);
+        HashBuilderOperatorFactory hashBuilder = new HashBuilderOperatorFactory(
+                2,
+                new PlanNodeId("test"),
+                source.getTypes(),
+                ImmutableMap.of(),
+                Ints.asList(0),
+                hashChannel,
+                false,
+                Optional.empty(),
+                1_500_000,
+                1,
+                spillEnabled,
+                memoryLimitBeforeSpill,
+                spillerFactory);
         driversBuilder.add(hashBuilder);
         DriverFactory hashBuildDriverFactory = new DriverFactory(true, false, driversBuilder.build(), OptionalInt.empty());
         Driver hashBuildDriver = hashBuildDriverFactory.createDriver(taskContext.addPipelineContext(true, false).addDriverContext());
@@ -106,5 +138,12 @@ public class HashBuildAndJoinBenchmark
     {
         new HashBuildAndJoinBenchmark(testSessionBuilder().build(), createLocalQueryRunner()).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
         new HashBuildAndJoinBenchmark(testSessionBuilder().build(), createLocalQueryRunnerHashEnabled()).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
+
+        // build side does not fit into the memory limit, so most of it is spilled to disk
+        Session spillSession = testSessionBuilder()
+                .setSystemProperty(SPILL_ENABLED, "true")
+                .setSystemProperty(OPERATOR_MEMORY_LIMIT_BEFORE_SPILL, "1MB")
+                .build();
+        new HashBuildAndJoinBenchmark(spillSession, createLocalQueryRunner()).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
     }
 }
@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.benchmark;
 
+import com.facebook.presto.Session;
 import com.facebook.presto.operator.Driver;
 import com.facebook.presto.operator.DriverContext;
 import com.facebook.presto.operator.DriverFactory;
@@ -33,6 +34,7 @@ import java.util.Optional;
 import java.util.OptionalInt;
 
 import static com.facebook.presto.benchmark.BenchmarkQueryRunner.createLocalQueryRunner;
+import static com.facebook.presto.tpch.TpchMetadata.TINY_SCHEMA_NAME;
 
 public class HashJoinBenchmark
         extends AbstractOperatorBenchmark
@@ -41,7 +43,16 @@ public class HashJoinBenchmark
 
     public HashJoinBenchmark(LocalQueryRunner localQueryRunner)
     {
-        super(localQueryRunner, "hash_join", 4, 50);
+        this(localQueryRunner, "hash_join", TINY_SCHEMA_NAME, 4, 50);
+    }
+
+    /**
+     * Joins the tables of the given TPCH schema. Starting with sf1, the hash table built from the orders
+     * is much larger than the CPU caches, so the probe is dominated by random memory accesses.
+     */
+    public HashJoinBenchmark(LocalQueryRunner localQueryRunner, String benchmarkName, String schema, int warmupIterations, int measuredIterations)
+    {
+        super(Session.builder(localQueryRunner.getDefaultSession()).setSchema(schema).build(), localQueryRunner, benchmarkName, warmupIterations, measuredIterations);
     }
 
     /*
@@ -88,6 +99,8 @@ public class HashJoinBenchmark
 
     public static void main(String[] args)
     {
-        new HashJoinBenchmark(createLocalQueryRunner()).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
+        LocalQueryRunner localQueryRunner = createLocalQueryRunner();
+        new HashJoinBenchmark(localQueryRunner).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
+        new HashJoinBenchmark(localQueryRunner, "hash_join_sf1", "sf1", 1, 5).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
     }
 }
@@ -0,0 +1,112 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.client;
+
+import com.facebook.presto.spi.type.StandardTypes;
+import com.facebook.presto.spi.type.TypeSignature;
+
+/**
+ * Encoding of the values of a single column in the columnar result format.
+ * Fixed width encodings store a value for every row, including null rows,
+ * while variable width encodings store a length prefixed value for every row.
+ */
+public enum ColumnEncoding
+{
+    LONG(0, 8),
+    INT(1, 4),
+    SHORT(2, 2),
+    BYTE(3, 1),
+    DOUBLE(4, 8),
+    FLOAT(5, 4),
+    BOOLEAN(6, 1),
+    // UTF-8 text of the value
+    STRING(7, -1),
+    // raw bytes of the value
+    BINARY(8, -1),
+    // JSON representation of the value, as used by the JSON result format
+    JSON(9, -1);
+
+    private final int id;
+    private final int fixedWidth;
+
+    ColumnEncoding(int id, int fixedWidth)
+    {
+        this.id = id;
+        this.fixedWidth = fixedWidth;
+    }
+
+    public int getId()
+    {
+        return id;
+    }
+
+    public boolean isFixedWidth()
+    {
+        return fixedWidth > 0;
+    }
+
+    public int getFixedWidth()
+    {
+        return fixedWidth;
+    }
+
+    public static ColumnEncoding fromId(int id)
+    {
+        for (ColumnEncoding encoding : values()) {
+            if (encoding.id == id) {
+                return encoding;
+            }
+        }
+        throw new IllegalArgumentException("Unknown column encoding: " + id);
+    }
+
+    /**
+     * Returns the encoding of a column, which produces the same Java values as the JSON result format.
+     */
+    public static ColumnEncoding forType(TypeSignature signature)
+    {
+        switch (signature.getBase()) {
+            case StandardTypes.BIGINT:
+                return LONG;
+            case StandardTypes.INTEGER:
+                return INT;
+            case StandardTypes.SMALLINT:
+                return SHORT;
+            case StandardTypes.TINYINT:
+                return BYTE;
+            case StandardTypes.DOUBLE:
+                return DOUBLE;
+            case StandardTypes.REAL:
+                return FLOAT;
+            case StandardTypes.BOOLEAN:
+                return BOOLEAN;
+            case StandardTypes.VARCHAR:
+            case StandardTypes.JSON:
+            case StandardTypes.TIME:
+            case StandardTypes.TIME_WITH_TIME_ZONE:
+            case StandardTypes.TIMESTAMP:
+            case StandardTypes.TIMESTAMP_WITH_TIME_ZONE:
+            case StandardTypes.DATE:
+            case StandardTypes.INTERVAL_YEAR_TO_MONTH:
+            case StandardTypes.INTERVAL_DAY_TO_SECOND:
+            case StandardTypes.DECIMAL:
+            case StandardTypes.CHAR:
+                return STRING;
+            case StandardTypes.VARBINARY:
+                return BINARY;
+            default:
+                return JSON;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.client;
+
+import com.facebook.presto.spi.type.TypeSignature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.airlift.json.JsonCodec;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static com.facebook.presto.spi.type.TypeSignature.parseTypeSignature;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Binary alternative to the JSON encoding of {@link QueryResults}, negotiated with the
+ * {@code Accept} header. The response starts with the length prefixed JSON of the results
+ * without the data, followed by the row count, or -1 if there is no data. Every column is
+ * then written as its {@link ColumnEncoding} id, a bitmap of the null rows and the values.
+ * All numbers are big endian.
+ */
+public final class ColumnarResults
+{
+    public static final String MEDIA_TYPE = "application/x-presto-columnar";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private ColumnarResults() {}
+
+    public static QueryResults readQueryResults(JsonCodec<QueryResults> codec, InputStream inputStream)
+            throws IOException
+    {
+        requireNonNull(codec, "codec is null");
+        DataInputStream input = new DataInputStream(requireNonNull(inputStream, "inputStream is null"));
+
+        byte[] header = new byte[input.readInt()];
+        input.readFully(header);
+        QueryResults results = codec.fromJson(new String(header, UTF_8));
+
+        int rowCount = input.readInt();
+        if (rowCount < 0) {
+            return results;
+        }
+
+        List<Column> columns = requireNonNull(results.getColumns(), "columns is null");
+        Object[][] values = new Object[columns.size()][];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = readColumn(input, parseTypeSignature(columns.get(i).getType()), rowCount);
+        }
+
+        return new QueryResults(
+                results.getId(),
+                results.getInfoUri(),
+                results.getPartialCancelUri(),
+                results.getNextUri(),
+                columns,
+                new ColumnarData(values, rowCount),
+                results.getStats(),
+                results.getError(),
+                results.getUpdateType(),
+                results.getUpdateCount());
+    }
+
+    private static Object[] readColumn(DataInputStream input, TypeSignature signature, int rowCount)
+            throws IOException
+    {
+        ColumnEncoding encoding = ColumnEncoding.fromId(input.readUnsignedByte());
+
+        byte[] nulls = new byte[(rowCount + 7) / 8];
+        input.readFully(nulls);
+
+        Object[] values = new Object[rowCount];
+        for (int row = 0; row < rowCount; row++) {
+            boolean isNull = (nulls[row >>> 3] & (1 << (row & 7))) != 0;
+            Object value = readValue(input, encoding, signature, isNull);
+            if (!isNull) {
+                values[row] = value;
+            }
+        }
+        return values;
+    }
+
+    private static Object readValue(DataInputStream input, ColumnEncoding encoding, TypeSignature signature, boolean isNull)
+            throws IOException
+    {
+        switch (encoding) {
+            case LONG:
+                return input.readLong();
+            case INT:
+                return input.readInt();
+            case SHORT:
+                return input.readShort();
+            case BYTE:
+                return input.readByte();
+            case DOUBLE:
+                return input.readDouble();
+            case FLOAT:
+                return Float.intBitsToFloat(input.readInt());
+            case BOOLEAN:
+                return input.readBoolean();
+        }
+
+        // variable width values are written for null rows as well, with a length of zero
+        byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        if (isNull) {
+            return null;
+        }
+        switch (encoding) {
+            case STRING:
+                return new String(bytes, UTF_8);
+            case BINARY:
+                return bytes;
+            case JSON:
+                return QueryResults.fixValue(signature, OBJECT_MAPPER.readValue(bytes, Object.class));
+            default:
+                throw new IllegalArgumentException("Unsupported column encoding: " + encoding);
+        }
+    }
+
+    private static class ColumnarData
+            implements Iterable<List<Object>>
+    {
+        private final Object[][] columns;
+        private final int rowCount;
+
+        public ColumnarData(Object[][] columns, int rowCount)
+        {
+            this.columns = requireNonNull(columns, "columns is null");
+            this.rowCount = rowCount;
+        }
+
+        @Override
+        public Iterator<List<Object>> iterator()
+        {
+            return new Iterator<List<Object>>()
+            {
+                private int row;
+
+                @Override
+                public boolean hasNext()
+                {
+                    return row < rowCount;
+                }
+
+                @Override
+                public List<Object> next()
+                {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    Object[] values = new Object[columns.length];
+                    for (int column = 0; column < columns.length; column++) {
+                        values[column] = columns[column][row];
+                    }
+                    row++;
+                    return unmodifiableList(Arrays.asList(values)); // allow nulls in list
+                }
+            };
+        }
+    }
+}
@@ -228,7 +228,7 @@ public class QueryResults
     /**
      * Force values coming from Jackson to have the expected object type.
      */
-    private static Object fixValue(TypeSignature signature, Object value)
+    static Object fixValue(TypeSignature signature, Object value)
     {
         if (value == null) {
             return null;
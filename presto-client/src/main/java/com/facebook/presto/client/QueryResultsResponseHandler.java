@@ -0,0 +1,166 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.client;
+
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.io.ByteStreams;
+import com.google.common.net.MediaType;
+import io.airlift.http.client.HeaderName;
+import io.airlift.http.client.Request;
+import io.airlift.http.client.Response;
+import io.airlift.http.client.ResponseHandler;
+import io.airlift.json.JsonCodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Throwables.propagate;
+import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reads {@link QueryResults} in either the JSON or the columnar format, depending on
+ * the content type chosen by the server.
+ */
+class QueryResultsResponseHandler
+        implements ResponseHandler<QueryResultsResponseHandler.QueryResultsResponse, RuntimeException>
+{
+    private static final MediaType JSON_MEDIA_TYPE = MediaType.create("application", "json");
+    private static final MediaType COLUMNAR_MEDIA_TYPE = MediaType.parse(ColumnarResults.MEDIA_TYPE);
+
+    private final JsonCodec<QueryResults> codec;
+
+    public QueryResultsResponseHandler(JsonCodec<QueryResults> codec)
+    {
+        this.codec = requireNonNull(codec, "codec is null");
+    }
+
+    @Override
+    public QueryResultsResponse handleException(Request request, Exception exception)
+    {
+        throw propagate(exception);
+    }
+
+    @Override
+    public QueryResultsResponse handle(Request request, Response response)
+    {
+        byte[] bytes;
+        try {
+            bytes = ByteStreams.toByteArray(response.getInputStream());
+        }
+        catch (IOException e) {
+            throw new RuntimeException("Error reading response from server", e);
+        }
+
+        String contentType = response.getHeader(CONTENT_TYPE);
+        if (contentType == null) {
+            return new QueryResultsResponse(response, bytes, null, null);
+        }
+        MediaType mediaType = MediaType.parse(contentType);
+        try {
+            if (mediaType.is(COLUMNAR_MEDIA_TYPE)) {
+                return new QueryResultsResponse(response, bytes, ColumnarResults.readQueryResults(codec, new ByteArrayInputStream(bytes)), null);
+            }
+            if (mediaType.is(JSON_MEDIA_TYPE)) {
+                return new QueryResultsResponse(response, bytes, codec.fromJson(new String(bytes, UTF_8)), null);
+            }
+        }
+        catch (IOException | RuntimeException e) {
+            return new QueryResultsResponse(response, bytes, null, e);
+        }
+        return new QueryResultsResponse(response, bytes, null, null);
+    }
+
+    public static class QueryResultsResponse
+    {
+        private final int statusCode;
+        private final String statusMessage;
+        private final ListMultimap<HeaderName, String> headers;
+        private final byte[] responseBytes;
+        private final QueryResults value;
+        private final Exception exception;
+
+        private QueryResultsResponse(Response response, byte[] responseBytes, QueryResults value, Exception exception)
+        {
+            this.statusCode = response.getStatusCode();
+            this.statusMessage = response.getStatusMessage();
+            this.headers = ImmutableListMultimap.copyOf(response.getHeaders());
+            this.responseBytes = responseBytes;
+            this.value = value;
+            this.exception = exception;
+        }
+
+        public int getStatusCode()
+        {
+            return statusCode;
+        }
+
+        public String getStatusMessage()
+        {
+            return statusMessage;
+        }
+
+        public String getHeader(String name)
+        {
+            List<String> values = getHeaders(name);
+            if (values.isEmpty()) {
+                return null;
+            }
+            return values.get(0);
+        }
+
+        public List<String> getHeaders(String name)
+        {
+            return headers.get(HeaderName.of(name));
+        }
+
+        public boolean hasValue()
+        {
+            return value != null;
+        }
+
+        public QueryResults getValue()
+        {
+            if (value == null) {
+                throw new IllegalStateException("Response does not contain query results", exception);
+            }
+            return value;
+        }
+
+        public String getResponseBody()
+        {
+            return new String(responseBytes, UTF_8);
+        }
+
+        public Exception getException()
+        {
+            return exception;
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("statusCode", statusCode)
+                    .add("statusMessage", statusMessage)
+                    .add("headers", headers)
+                    .add("hasValue", hasValue())
+                    .toString();
+        }
+    }
+}
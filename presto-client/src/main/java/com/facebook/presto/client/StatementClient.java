@@ -18,7 +18,6 @@ import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
-import io.airlift.http.client.FullJsonResponseHandler;
 import io.airlift.http.client.HttpClient;
 import io.airlift.http.client.HttpClient.HttpResponseFuture;
 import io.airlift.http.client.HttpStatus;
@@ -49,11 +48,11 @@ import static com.facebook.presto.client.PrestoHeaders.PRESTO_CLEAR_TRANSACTION_
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_DEALLOCATED_PREPARE;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_SET_SESSION;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_STARTED_TRANSACTION_ID;
+import static com.facebook.presto.client.QueryResultsResponseHandler.QueryResultsResponse;
 import static com.google.common.base.MoreObjects.firstNonNull;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.net.HttpHeaders.ACCEPT;
 import static com.google.common.net.HttpHeaders.USER_AGENT;
-import static io.airlift.http.client.FullJsonResponseHandler.JsonResponse;
-import static io.airlift.http.client.FullJsonResponseHandler.createFullJsonResponseHandler;
 import static io.airlift.http.client.HttpStatus.Family;
 import static io.airlift.http.client.HttpStatus.familyForStatusCode;
 import static io.airlift.http.client.HttpUriBuilder.uriBuilderFrom;
@@ -77,9 +76,11 @@ public class StatementClient
     private static final String USER_AGENT_VALUE = StatementClient.class.getSimpleName() +
             "/" +
             firstNonNull(StatementClient.class.getPackage().getImplementationVersion(), "unknown");
+    // prefer the columnar format, which is much cheaper to produce and parse, but fall back to JSON for older servers
+    private static final String ACCEPT_VALUE = ColumnarResults.MEDIA_TYPE + ", application/json;q=0.5";
 
     private final HttpClient httpClient;
-    private final FullJsonResponseHandler<QueryResults> responseHandler;
+    private final QueryResultsResponseHandler responseHandler;
     private final boolean debug;
     private final String query;
     private final AtomicReference<QueryResults> currentResults = new AtomicReference<>();
@@ -104,7 +105,7 @@ public class StatementClient
         requireNonNull(query, "query is null");
 
         this.httpClient = httpClient;
-        this.responseHandler = createFullJsonResponseHandler(queryResultsCodec);
+        this.responseHandler = new QueryResultsResponseHandler(queryResultsCodec);
         this.debug = session.isDebug();
         this.timeZoneId = session.getTimeZoneId();
         this.query = query;
@@ -112,7 +113,7 @@ public class StatementClient
         this.user = session.getUser();
 
         Request request = buildQueryRequest(session, query);
-        JsonResponse<QueryResults> response = httpClient.execute(request, responseHandler);
+        QueryResultsResponse response = httpClient.execute(request, responseHandler);
 
         if (response.getStatusCode() != HttpStatus.OK.code() || !response.hasValue()) {
             throw requestFailedException("starting query", request, response);
@@ -241,6 +242,7 @@ public class StatementClient
     {
         builder.setHeader(PrestoHeaders.PRESTO_USER, user);
         builder.setHeader(USER_AGENT, USER_AGENT_VALUE)
+                .setHeader(ACCEPT, ACCEPT_VALUE)
                 .setUri(nextUri);
 
         return builder;
@@ -278,7 +280,7 @@ public class StatementClient
             }
             attempts++;
 
-            JsonResponse<QueryResults> response;
+            QueryResultsResponse response;
             try {
                 response = httpClient.execute(request, responseHandler);
             }
@@ -302,7 +304,7 @@ public class StatementClient
         throw new RuntimeException("Error fetching next", cause);
     }
 
-    private void processResponse(JsonResponse<QueryResults> response)
+    private void processResponse(QueryResultsResponse response)
     {
         for (String setSession : response.getHeaders(PRESTO_SET_SESSION)) {
             List<String> keyValue = SESSION_HEADER_SPLITTER.splitToList(setSession);
@@ -337,7 +339,7 @@ public class StatementClient
         currentResults.set(response.getValue());
     }
 
-    private RuntimeException requestFailedException(String task, Request request, JsonResponse<QueryResults> response)
+    private RuntimeException requestFailedException(String task, Request request, QueryResultsResponse response)
     {
         gone.set(true);
         if (!response.hasValue()) {
@@ -25,6 +25,8 @@ import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.StandardErrorCode;
 import com.facebook.presto.spi.predicate.TupleDomain;
 import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
 import com.google.common.io.CharStreams;
 import io.airlift.units.DataSize;
 import org.apache.hadoop.conf.Configuration;
@@ -73,6 +75,7 @@ import static com.facebook.presto.hive.metastore.MetastoreUtil.getHiveSchema;
 import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
 import static com.google.common.base.Preconditions.checkState;
 import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.apache.hadoop.hive.common.FileUtils.HIDDEN_FILES_PATH_FILTER;
 
 public class BackgroundHiveSplitLoader
@@ -82,6 +85,8 @@ public class BackgroundHiveSplitLoader
 
     public static final CompletableFuture<?> COMPLETED_FUTURE = CompletableFuture.completedFuture(null);
 
+    private static final HashFunction SOFT_AFFINITY_HASH = Hashing.murmur3_128();
+
     private final String connectorId;
     private final Table table;
     private final Optional<HiveBucketHandle> bucketHandle;
@@ -91,13 +96,18 @@ public class BackgroundHiveSplitLoader
     private final DirectoryLister directoryLister;
     private final DataSize maxSplitSize;
     private final int maxPartitionBatchSize;
+    private final int maxConcurrentDirectoryListings;
     private final DataSize maxInitialSplitSize;
     private final boolean recursiveDirWalkerEnabled;
+    private final List<HostAddress> softAffinityNodes;
+    private final long[] softAffinityNodeHashes;
     private final Executor executor;
     private final ConnectorSession session;
     private final ConcurrentLazyQueue<HivePartitionMetadata> partitions;
     private final Deque<HiveFileIterator> fileIterators = new ConcurrentLinkedDeque<>();
     private final AtomicInteger remainingInitialSplits;
+    // listings of nested directories started ahead of iteration, shared by all loader tasks
+    private final AtomicInteger outstandingListings = new AtomicInteger();
 
     // Purpose of this lock:
     // * When write lock is acquired, except the holder, no one can do any of the following:
@@ -128,7 +138,9 @@ public class BackgroundHiveSplitLoader
             Executor executor,
             int maxPartitionBatchSize,
             int maxInitialSplits,
-            boolean recursiveDirWalkerEnabled)
+            int maxConcurrentDirectoryListings,
+            boolean recursiveDirWalkerEnabled,
+            List<HostAddress> softAffinityNodes)
     {
         this.connectorId = connectorId;
         this.table = table;
@@ -142,7 +154,12 @@ public class BackgroundHiveSplitLoader
         this.directoryLister = directoryLister;
         this.maxInitialSplitSize = getMaxInitialSplitSize(session);
         this.remainingInitialSplits = new AtomicInteger(maxInitialSplits);
+        this.maxConcurrentDirectoryListings = maxConcurrentDirectoryListings;
         this.recursiveDirWalkerEnabled = recursiveDirWalkerEnabled;
+        this.softAffinityNodes = ImmutableList.copyOf(softAffinityNodes);
+        this.softAffinityNodeHashes = this.softAffinityNodes.stream()
+                .mapToLong(node -> SOFT_AFFINITY_HASH.hashString(node.toString(), UTF_8).asLong())
+                .toArray();
         this.executor = executor;
         this.partitions = new ConcurrentLazyQueue<>(partitions);
     }
@@ -224,12 +241,20 @@ public class BackgroundHiveSplitLoader
             return COMPLETED_FUTURE;
         }
 
+        CompletableFuture<?> listingFuture = files.getListingFuture();
+        if (!listingFuture.isDone()) {
+            fileIterators.addLast(files);
+            return listingFuture;
+        }
+
         while (files.hasNext() && !stopped) {
             LocatedFileStatus file = files.next();
             if (isDirectory(file)) {
                 if (recursiveDirWalkerEnabled) {
                     HiveFileIterator fileIterator = new HiveFileIterator(
                             file.getPath(),
+                            files.getTable(),
+                            files.getUser(),
                             files.getFileSystem(),
                             files.getDirectoryLister(),
                             files.getNamenodeStats(),
@@ -239,6 +264,15 @@ public class BackgroundHiveSplitLoader
                             files.getPartitionKeys(),
                             files.getEffectivePredicate(),
                             files.getColumnCoercions());
+                    // fan out: list the nested directory while this one is still being iterated, with at most
+                    // maxConcurrentDirectoryListings listings in flight for this loader; the rest are listed
+                    // when they are iterated
+                    if (outstandingListings.incrementAndGet() <= maxConcurrentDirectoryListings) {
+                        fileIterator.startListing(executor).whenComplete((result, throwable) -> outstandingListings.decrementAndGet());
+                    }
+                    else {
+                        outstandingListings.decrementAndGet();
+                    }
                     fileIterators.add(fileIterator);
                 }
             }
@@ -325,7 +359,7 @@ public class BackgroundHiveSplitLoader
         }
 
         // If only one bucket could match: load that one file
-        HiveFileIterator iterator = new HiveFileIterator(path, fs, directoryLister, namenodeStats, partitionName, inputFormat, schema, partitionKeys, effectivePredicate, partition.getColumnCoercions());
+        HiveFileIterator iterator = new HiveFileIterator(path, table, session.getUser(), fs, directoryLister, namenodeStats, partitionName, inputFormat, schema, partitionKeys, effectivePredicate, partition.getColumnCoercions());
         if (!buckets.isEmpty()) {
             int bucketCount = buckets.get(0).getBucketCount();
             List<LocatedFileStatus> list = listAndSortBucketFiles(iterator, bucketCount);
@@ -444,11 +478,17 @@ public class BackgroundHiveSplitLoader
         ImmutableList.Builder<HiveSplit> builder = ImmutableList.builder();
 
         boolean forceLocalScheduling = HiveSessionProperties.isForceLocalScheduling(session);
+        Optional<HostAddress> preferredNode = getSoftAffinityNode(path);
 
         if (splittable) {
             for (BlockLocation blockLocation : blockLocations) {
                 // get the addresses for the block
                 List<HostAddress> addresses = toHostAddress(blockLocation.getHosts());
+                boolean forceLocal = forceLocalScheduling && hasRealAddress(addresses);
+                boolean softAffinity = !forceLocal && preferredNode.isPresent();
+                if (softAffinity) {
+                    addresses = ImmutableList.of(preferredNode.get());
+                }
 
                 long maxBytes = maxSplitSize.toBytes();
                 boolean creatingInitialSplits = false;
@@ -487,7 +527,8 @@ public class BackgroundHiveSplitLoader
                             partitionKeys,
                             addresses,
                             bucketNumber,
-                            forceLocalScheduling && hasRealAddress(addresses),
+                            forceLocal,
+                            softAffinity,
                             effectivePredicate,
                             columnCoercions));
 
@@ -502,6 +543,11 @@ public class BackgroundHiveSplitLoader
             if (blockLocations.length > 0) {
                 addresses = toHostAddress(blockLocations[0].getHosts());
             }
+            boolean forceLocal = forceLocalScheduling && hasRealAddress(addresses);
+            boolean softAffinity = !forceLocal && preferredNode.isPresent();
+            if (softAffinity) {
+                addresses = ImmutableList.of(preferredNode.get());
+            }
 
             builder.add(new HiveSplit(connectorId,
                     table.getDatabaseName(),
@@ -514,13 +560,47 @@ public class BackgroundHiveSplitLoader
                     partitionKeys,
                     addresses,
                     bucketNumber,
-                    forceLocalScheduling && hasRealAddress(addresses),
+                    forceLocal,
+                    softAffinity,
                     effectivePredicate,
                     columnCoercions));
         }
         return builder.build();
     }
 
+    /**
+     * Chooses the preferred node of a file with rendezvous hashing, so all splits of the
+     * file go to the same node, and most files keep their node when the cluster changes.
+     */
+    private Optional<HostAddress> getSoftAffinityNode(String path)
+    {
+        if (softAffinityNodes.isEmpty()) {
+            return Optional.empty();
+        }
+        long pathHash = SOFT_AFFINITY_HASH.hashString(path, UTF_8).asLong();
+        int preferredNode = 0;
+        long maxWeight = Long.MIN_VALUE;
+        for (int i = 0; i < softAffinityNodeHashes.length; i++) {
+            long weight = mix(pathHash ^ softAffinityNodeHashes[i]);
+            if (weight > maxWeight) {
+                maxWeight = weight;
+                preferredNode = i;
+            }
+        }
+        return Optional.of(softAffinityNodes.get(preferredNode));
+    }
+
+    private static long mix(long value)
+    {
+        // finalization step of MurmurHash3
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
     private static boolean hasRealAddress(List<HostAddress> addresses)
     {
         // Hadoop FileSystem returns "localhost" as a default
@@ -0,0 +1,277 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.hive.metastore.Table;
+import com.facebook.presto.spi.SchemaTableName;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Ints;
+import io.airlift.stats.TimeStat;
+import io.airlift.units.Duration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.weakref.jmx.Managed;
+
+import javax.inject.Inject;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Locale.ENGLISH;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Caches the listings of the directories of the configured tables, separately for each user.
+ * When validation is enabled, a cached listing is only used while the modification time of
+ * the directory is unchanged, so files added to or removed from a directory which updates its
+ * modification time are seen immediately. File systems without directory modification times,
+ * such as S3, report zero; their listings are not validated and only expire after a fixed time.
+ */
+public class CachingDirectoryLister
+        implements DirectoryLister
+{
+    private final DirectoryLister delegate;
+    private final NamenodeStats namenodeStats;
+    private final List<TablePattern> tablePatterns;
+    private final boolean validationEnabled;
+    private final Cache<CacheKey, CachedListing> cache;
+
+    @Inject
+    public CachingDirectoryLister(HiveClientConfig hiveClientConfig, NamenodeStats namenodeStats)
+    {
+        this(
+                new HadoopDirectoryLister(),
+                namenodeStats,
+                hiveClientConfig.getFileStatusCacheTables(),
+                hiveClientConfig.getFileStatusCacheMaxSize(),
+                hiveClientConfig.getFileStatusCacheExpireTime(),
+                hiveClientConfig.isFileStatusCacheValidationEnabled(),
+                Ticker.systemTicker());
+    }
+
+    public CachingDirectoryLister(
+            DirectoryLister delegate,
+            NamenodeStats namenodeStats,
+            List<String> tables,
+            long maxSize,
+            Duration expireTime,
+            boolean validationEnabled,
+            Ticker ticker)
+    {
+        this.delegate = requireNonNull(delegate, "delegate is null");
+        this.namenodeStats = requireNonNull(namenodeStats, "namenodeStats is null");
+        this.tablePatterns = ImmutableList.copyOf(requireNonNull(tables, "tables is null").stream()
+                .map(TablePattern::parse)
+                .collect(toList()));
+        checkArgument(maxSize >= 0, "maxSize is negative");
+        requireNonNull(expireTime, "expireTime is null");
+        this.validationEnabled = validationEnabled;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxSize)
+                .weigher((CacheKey key, CachedListing listing) -> Ints.saturatedCast(listing.getFiles().size() + 1))
+                .expireAfterWrite(expireTime.toMillis(), MILLISECONDS)
+                .ticker(requireNonNull(ticker, "ticker is null"))
+                .build();
+    }
+
+    @Override
+    public RemoteIterator<LocatedFileStatus> list(String user, FileSystem fs, Table table, Path path)
+            throws IOException
+    {
+        if (!isCached(table)) {
+            return delegate.list(user, fs, table, path);
+        }
+
+        CacheKey key = new CacheKey(user, path);
+        CachedListing cachedListing = cache.getIfPresent(key);
+        if (cachedListing != null && isValid(fs, path, cachedListing)) {
+            namenodeStats.getDirectoryCacheHits().update(1);
+            return new ListingIterator(cachedListing.getFiles().iterator());
+        }
+        namenodeStats.getDirectoryCacheMisses().update(1);
+
+        // the modification time is read before the listing, so a directory changed while it
+        // is listed is listed again the next time
+        long modificationTime = validationEnabled ? fs.getFileStatus(path).getModificationTime() : 0;
+        List<LocatedFileStatus> files = listAll(user, fs, table, path);
+        cache.put(key, new CachedListing(modificationTime, files));
+        return new ListingIterator(files.iterator());
+    }
+
+    private boolean isValid(FileSystem fs, Path path, CachedListing cachedListing)
+            throws IOException
+    {
+        // without a modification time of the directory only the expiration applies
+        if (!validationEnabled || cachedListing.getModificationTime() == 0) {
+            return true;
+        }
+        return fs.getFileStatus(path).getModificationTime() == cachedListing.getModificationTime();
+    }
+
+    private List<LocatedFileStatus> listAll(String user, FileSystem fs, Table table, Path path)
+            throws IOException
+    {
+        try (TimeStat.BlockTimer ignored = namenodeStats.getListDirectory().time()) {
+            ImmutableList.Builder<LocatedFileStatus> files = ImmutableList.builder();
+            RemoteIterator<LocatedFileStatus> iterator = delegate.list(user, fs, table, path);
+            while (iterator.hasNext()) {
+                files.add(iterator.next());
+            }
+            return files.build();
+        }
+        catch (IOException | RuntimeException e) {
+            namenodeStats.getListDirectory().recordException(e);
+            throw e;
+        }
+    }
+
+    private boolean isCached(Table table)
+    {
+        if (tablePatterns.isEmpty()) {
+            return false;
+        }
+        SchemaTableName tableName = new SchemaTableName(table.getDatabaseName(), table.getTableName());
+        return tablePatterns.stream().anyMatch(pattern -> pattern.matches(tableName));
+    }
+
+    @Managed
+    public long getCachedDirectories()
+    {
+        return cache.size();
+    }
+
+    @Managed
+    public void flushCache()
+    {
+        cache.invalidateAll();
+    }
+
+    private static class CacheKey
+    {
+        private final String user;
+        private final Path path;
+
+        public CacheKey(String user, Path path)
+        {
+            this.user = requireNonNull(user, "user is null");
+            this.path = requireNonNull(path, "path is null");
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            CacheKey other = (CacheKey) o;
+            return user.equals(other.user) && path.equals(other.path);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(user, path);
+        }
+    }
+
+    private static class CachedListing
+    {
+        private final long modificationTime;
+        private final List<LocatedFileStatus> files;
+
+        public CachedListing(long modificationTime, List<LocatedFileStatus> files)
+        {
+            this.modificationTime = modificationTime;
+            this.files = requireNonNull(files, "files is null");
+        }
+
+        public long getModificationTime()
+        {
+            return modificationTime;
+        }
+
+        public List<LocatedFileStatus> getFiles()
+        {
+            return files;
+        }
+    }
+
+    private static class ListingIterator
+            implements RemoteIterator<LocatedFileStatus>
+    {
+        private final Iterator<LocatedFileStatus> iterator;
+
+        public ListingIterator(Iterator<LocatedFileStatus> iterator)
+        {
+            this.iterator = requireNonNull(iterator, "iterator is null");
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public LocatedFileStatus next()
+        {
+            return iterator.next();
+        }
+    }
+
+    private static class TablePattern
+    {
+        // empty matches any schema or table
+        private final Optional<String> schemaName;
+        private final Optional<String> tableName;
+
+        private TablePattern(Optional<String> schemaName, Optional<String> tableName)
+        {
+            this.schemaName = schemaName;
+            this.tableName = tableName;
+        }
+
+        public static TablePattern parse(String pattern)
+        {
+            if (pattern.equals("*")) {
+                return new TablePattern(Optional.empty(), Optional.empty());
+            }
+            List<String> parts = ImmutableList.copyOf(pattern.toLowerCase(ENGLISH).split("\\.", -1));
+            checkArgument(parts.size() == 2 && !parts.get(0).isEmpty() && !parts.get(1).isEmpty(), "Invalid table pattern: %s", pattern);
+            return new TablePattern(
+                    Optional.of(parts.get(0)),
+                    parts.get(1).equals("*") ? Optional.empty() : Optional.of(parts.get(1)));
+        }
+
+        public boolean matches(SchemaTableName table)
+        {
+            return schemaName.map(table.getSchemaName()::equals).orElse(true) &&
+                    tableName.map(table.getTableName()::equals).orElse(true);
+        }
+    }
+}
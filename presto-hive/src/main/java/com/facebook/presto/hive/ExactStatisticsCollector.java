@@ -0,0 +1,341 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.hive.metastore.Storage;
+import com.facebook.presto.hive.orc.HdfsOrcDataSource;
+import com.facebook.presto.orc.OrcDataSource;
+import com.facebook.presto.orc.OrcReader;
+import com.facebook.presto.orc.metadata.ColumnStatistics;
+import com.facebook.presto.orc.metadata.Footer;
+import com.facebook.presto.orc.metadata.OrcMetadataReader;
+import com.facebook.presto.orc.metadata.OrcType;
+import com.facebook.presto.orc.metadata.OrcType.OrcTypeKind;
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.predicate.NullableValue;
+import com.facebook.presto.spi.statistics.Estimate;
+import com.facebook.presto.spi.statistics.TableStatistics;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spi.type.TypeManager;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.common.StatsSetupConst;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+import static com.facebook.presto.hive.HiveSessionProperties.getOrcMaxBufferSize;
+import static com.facebook.presto.hive.HiveSessionProperties.getOrcMaxMergeDistance;
+import static com.facebook.presto.hive.HiveSessionProperties.getOrcStreamBufferSize;
+import static com.facebook.presto.orc.metadata.OrcType.OrcTypeKind.BYTE;
+import static com.facebook.presto.orc.metadata.OrcType.OrcTypeKind.INT;
+import static com.facebook.presto.orc.metadata.OrcType.OrcTypeKind.LONG;
+import static com.facebook.presto.orc.metadata.OrcType.OrcTypeKind.SHORT;
+import static com.facebook.presto.spi.predicate.Utils.nativeValueToBlock;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.Chars.isCharType;
+import static com.facebook.presto.spi.type.DateType.DATE;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.IntegerType.INTEGER;
+import static com.facebook.presto.spi.type.RealType.REAL;
+import static com.facebook.presto.spi.type.SmallintType.SMALLINT;
+import static com.facebook.presto.spi.type.TimestampType.TIMESTAMP;
+import static com.facebook.presto.spi.type.TinyintType.TINYINT;
+import static com.facebook.presto.spi.type.VarbinaryType.VARBINARY;
+import static com.facebook.presto.spi.type.Varchars.isVarcharType;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Collects exact statistics of whole partitions. The row count is taken from the metastore
+ * when only partition keys are requested, and otherwise the row count and the statistics of
+ * the data columns are taken from the footers of the ORC files of the partition.
+ */
+final class ExactStatisticsCollector
+{
+    private static final List<Type> INTEGRAL_TYPES = ImmutableList.of(TINYINT, SMALLINT, INTEGER, BIGINT);
+    private static final List<OrcTypeKind> INTEGRAL_KINDS = ImmutableList.of(BYTE, SHORT, INT, LONG);
+
+    private final HdfsEnvironment hdfsEnvironment;
+    private final ConnectorSession session;
+    private final List<HiveColumnHandle> columns;
+    private final List<Type> types;
+    private final ColumnAccumulator[] accumulators;
+
+    private long rowCount;
+
+    public ExactStatisticsCollector(HdfsEnvironment hdfsEnvironment, ConnectorSession session, TypeManager typeManager, List<HiveColumnHandle> columns)
+    {
+        this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
+        this.session = requireNonNull(session, "session is null");
+        this.columns = ImmutableList.copyOf(requireNonNull(columns, "columns is null"));
+        requireNonNull(typeManager, "typeManager is null");
+
+        ImmutableList.Builder<Type> types = ImmutableList.builder();
+        for (HiveColumnHandle column : columns) {
+            types.add(typeManager.getType(column.getTypeSignature()));
+        }
+        this.types = types.build();
+        this.accumulators = new ColumnAccumulator[columns.size()];
+        for (int i = 0; i < accumulators.length; i++) {
+            accumulators[i] = new ColumnAccumulator(this.types.get(i));
+        }
+    }
+
+    /**
+     * Adds the statistics of a partition, and returns false if they are not known exactly.
+     */
+    public boolean addPartition(HivePartition partition, Storage storage, Map<String, String> parameters)
+    {
+        boolean dataColumnsRequested = columns.stream().anyMatch(column -> !column.isPartitionKey());
+        OptionalLong metastoreRowCount = getMetastoreRowCount(parameters);
+
+        long partitionRowCount;
+        if (!dataColumnsRequested && metastoreRowCount.isPresent()) {
+            partitionRowCount = metastoreRowCount.getAsLong();
+        }
+        else {
+            OptionalLong fileRowCount = addOrcFiles(storage);
+            if (!fileRowCount.isPresent()) {
+                return false;
+            }
+            partitionRowCount = fileRowCount.getAsLong();
+        }
+        rowCount += partitionRowCount;
+
+        for (int i = 0; i < columns.size(); i++) {
+            HiveColumnHandle column = columns.get(i);
+            if (!column.isPartitionKey()) {
+                continue;
+            }
+            NullableValue value = partition.getKeys().get(column);
+            if (value == null || value.isNull()) {
+                accumulators[i].add(0, Optional.empty(), Optional.empty());
+            }
+            else {
+                accumulators[i].add(partitionRowCount, Optional.of(value.getValue()), Optional.of(value.getValue()));
+            }
+        }
+        return true;
+    }
+
+    public TableStatistics build()
+    {
+        ImmutableMap.Builder<ColumnHandle, com.facebook.presto.spi.statistics.ColumnStatistics> columnStatistics = ImmutableMap.builder();
+        for (int i = 0; i < columns.size(); i++) {
+            ColumnAccumulator accumulator = accumulators[i];
+            columnStatistics.put(columns.get(i), new com.facebook.presto.spi.statistics.ColumnStatistics(
+                    Estimate.of(rowCount - accumulator.nonNullCount),
+                    Estimate.unknownValue(),
+                    accumulator.getMin(),
+                    accumulator.getMax()));
+        }
+        return new TableStatistics(Estimate.of(rowCount), columnStatistics.build());
+    }
+
+    private OptionalLong addOrcFiles(Storage storage)
+    {
+        if (!storage.getStorageFormat().getInputFormat().equals(HiveStorageFormat.ORC.getInputFormat()) ||
+                !storage.getStorageFormat().getSerDe().equals(HiveStorageFormat.ORC.getSerDe())) {
+            return OptionalLong.empty();
+        }
+
+        try {
+            Path path = new Path(storage.getLocation());
+            FileSystem fileSystem = hdfsEnvironment.getFileSystem(session.getUser(), path);
+            long partitionRowCount = 0;
+            for (FileStatus file : fileSystem.listStatus(path)) {
+                String fileName = file.getPath().getName();
+                if (fileName.startsWith("_") || fileName.startsWith(".")) {
+                    continue;
+                }
+                // files in nested directories are only read by some configurations, so their statistics are not used
+                if (file.isDirectory()) {
+                    return OptionalLong.empty();
+                }
+                if (file.getLen() == 0) {
+                    continue;
+                }
+                OptionalLong fileRowCount = addOrcFile(fileSystem, file);
+                if (!fileRowCount.isPresent()) {
+                    return OptionalLong.empty();
+                }
+                partitionRowCount += fileRowCount.getAsLong();
+            }
+            return OptionalLong.of(partitionRowCount);
+        }
+        catch (IOException e) {
+            // the data will be read instead
+            return OptionalLong.empty();
+        }
+    }
+
+    private OptionalLong addOrcFile(FileSystem fileSystem, FileStatus file)
+            throws IOException
+    {
+        Footer footer;
+        try (OrcDataSource dataSource = new HdfsOrcDataSource(
+                file.getPath().toString(),
+                file.getLen(),
+                getOrcMaxMergeDistance(session),
+                getOrcMaxBufferSize(session),
+                getOrcStreamBufferSize(session),
+                fileSystem.open(file.getPath()))) {
+            footer = new OrcReader(dataSource, new OrcMetadataReader(), getOrcMaxMergeDistance(session), getOrcMaxBufferSize(session)).getFooter();
+        }
+
+        OrcType rootType = footer.getTypes().get(0);
+        List<ColumnStatistics> fileStatistics = footer.getFileStats();
+        for (int i = 0; i < columns.size(); i++) {
+            HiveColumnHandle column = columns.get(i);
+            if (column.isPartitionKey()) {
+                continue;
+            }
+            int field = column.getHiveColumnIndex();
+            if (field >= rootType.getFieldCount()) {
+                // the column was added after the file was written, so all values are null
+                accumulators[i].add(0, Optional.empty(), Optional.empty());
+                continue;
+            }
+
+            // the statistics are only used if the file columns match the table columns by both position and name
+            String fieldName = rootType.getFieldName(field);
+            if (!fieldName.equalsIgnoreCase(column.getName()) && !fieldName.equals("_col" + field)) {
+                return OptionalLong.empty();
+            }
+            int columnIndex = rootType.getFieldTypeIndex(field);
+            OrcTypeKind kind = footer.getTypes().get(columnIndex).getOrcTypeKind();
+            if (!isCompatible(kind, types.get(i)) || columnIndex >= fileStatistics.size()) {
+                return OptionalLong.empty();
+            }
+            ColumnStatistics statistics = fileStatistics.get(columnIndex);
+            if (statistics == null || !statistics.hasNumberOfValues()) {
+                return OptionalLong.empty();
+            }
+
+            Optional<Object> min = Optional.empty();
+            Optional<Object> max = Optional.empty();
+            if (statistics.getIntegerStatistics() != null && INTEGRAL_KINDS.contains(kind)) {
+                min = Optional.ofNullable(statistics.getIntegerStatistics().getMin());
+                max = Optional.ofNullable(statistics.getIntegerStatistics().getMax());
+            }
+            else if (statistics.getDateStatistics() != null && kind == OrcTypeKind.DATE) {
+                min = Optional.ofNullable(statistics.getDateStatistics().getMin()).map(Integer::longValue);
+                max = Optional.ofNullable(statistics.getDateStatistics().getMax()).map(Integer::longValue);
+            }
+            accumulators[i].add(statistics.getNumberOfValues(), min, max);
+        }
+        return OptionalLong.of(footer.getNumberOfRows());
+    }
+
+    private static OptionalLong getMetastoreRowCount(Map<String, String> parameters)
+    {
+        String value = parameters.get(StatsSetupConst.ROW_COUNT);
+        if (value == null) {
+            return OptionalLong.empty();
+        }
+        try {
+            long rowCount = Long.parseLong(value);
+            // Hive stores -1 when the statistics are not known
+            return rowCount < 0 ? OptionalLong.empty() : OptionalLong.of(rowCount);
+        }
+        catch (NumberFormatException e) {
+            return OptionalLong.empty();
+        }
+    }
+
+    private static boolean isCompatible(OrcTypeKind kind, Type type)
+    {
+        if (INTEGRAL_KINDS.contains(kind)) {
+            // integral values are widened to the type of the table
+            return INTEGRAL_TYPES.indexOf(type) >= INTEGRAL_KINDS.indexOf(kind);
+        }
+        switch (kind) {
+            case BOOLEAN:
+                return type.equals(BOOLEAN);
+            case FLOAT:
+                return type.equals(REAL);
+            case DOUBLE:
+                return type.equals(DOUBLE);
+            case STRING:
+            case VARCHAR:
+                return isVarcharType(type);
+            case CHAR:
+                return isCharType(type);
+            case BINARY:
+                return type.equals(VARBINARY);
+            case DATE:
+                return type.equals(DATE);
+            case TIMESTAMP:
+                return type.equals(TIMESTAMP);
+            default:
+                return false;
+        }
+    }
+
+    private static class ColumnAccumulator
+    {
+        private final Type type;
+
+        private long nonNullCount;
+        private boolean rangeKnown = true;
+        private Object min;
+        private Object max;
+
+        public ColumnAccumulator(Type type)
+        {
+            this.type = requireNonNull(type, "type is null");
+        }
+
+        public void add(long nonNullCount, Optional<Object> min, Optional<Object> max)
+        {
+            if (nonNullCount == 0) {
+                return;
+            }
+            this.nonNullCount += nonNullCount;
+            if (!rangeKnown || !min.isPresent() || !max.isPresent() || !type.isOrderable()) {
+                rangeKnown = false;
+                return;
+            }
+            if (this.min == null || compare(min.get(), this.min) < 0) {
+                this.min = min.get();
+            }
+            if (this.max == null || compare(max.get(), this.max) > 0) {
+                this.max = max.get();
+            }
+        }
+
+        public Optional<Object> getMin()
+        {
+            return rangeKnown ? Optional.ofNullable(min) : Optional.empty();
+        }
+
+        public Optional<Object> getMax()
+        {
+            return rangeKnown ? Optional.ofNullable(max) : Optional.empty();
+        }
+
+        private int compare(Object left, Object right)
+        {
+            return type.compareTo(nativeValueToBlock(type, left), 0, nativeValueToBlock(type, right), 0);
+        }
+    }
+}
@@ -0,0 +1,387 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.orc.OrcFileTail;
+import com.facebook.presto.orc.OrcMetadataCache;
+import com.facebook.presto.orc.metadata.ColumnStatistics;
+import com.facebook.presto.orc.metadata.Footer;
+import com.facebook.presto.orc.metadata.HiveBloomFilter;
+import com.facebook.presto.orc.metadata.OrcType;
+import com.facebook.presto.orc.metadata.StringStatistics;
+import com.facebook.presto.orc.metadata.StripeFooter;
+import com.facebook.presto.orc.metadata.StripeInformation;
+import com.facebook.presto.orc.metadata.StripeStatistics;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.airlift.slice.Slice;
+import io.airlift.units.DataSize;
+import org.apache.hadoop.fs.FileStatus;
+import org.weakref.jmx.Managed;
+import parquet.hadoop.metadata.BlockMetaData;
+import parquet.hadoop.metadata.ParquetMetadata;
+
+import javax.inject.Inject;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Throwables.propagateIfInstanceOf;
+import static com.google.common.base.Throwables.propagateIfPossible;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Node wide cache of the parsed metadata of ORC, DWRF and Parquet files. Entries are
+ * keyed by the path, length and modification time of the file, so a rewritten file is
+ * never served stale metadata. The cache is weighted by an estimate of the heap retained
+ * by the decoded metadata, which is several times larger than its encoded size in the file.
+ */
+public class FileMetadataCache
+{
+    // rough retained sizes of the decoded metadata objects, including the references to them
+    private static final int ORC_FILE_TAIL_SIZE = 256;
+    private static final int ORC_STRIPE_INFORMATION_SIZE = 48;
+    private static final int ORC_TYPE_SIZE = 96;
+    private static final int ORC_TYPE_FIELD_SIZE = 64;
+    private static final int ORC_STRIPE_STATISTICS_SIZE = 32;
+    private static final int ORC_COLUMN_STATISTICS_SIZE = 96;
+    private static final int ORC_BLOOM_FILTER_SIZE = 64;
+    private static final int ORC_STRIPE_FOOTER_SIZE = 64;
+    private static final int ORC_STREAM_SIZE = 32;
+    private static final int ORC_COLUMN_ENCODING_SIZE = 24;
+    private static final int PARQUET_METADATA_SIZE = 512;
+    private static final int PARQUET_BLOCK_SIZE = 64;
+    private static final int PARQUET_COLUMN_CHUNK_SIZE = 640;
+    private static final int MAP_ENTRY_SIZE = 64;
+
+    private final boolean enabled;
+    private final Cache<CacheKey, CacheEntry> cache;
+
+    @Inject
+    public FileMetadataCache(HiveClientConfig config)
+    {
+        this(requireNonNull(config, "config is null").getFileMetadataCacheMaxSize());
+    }
+
+    public FileMetadataCache(DataSize maxSize)
+    {
+        requireNonNull(maxSize, "maxSize is null");
+        this.enabled = maxSize.toBytes() > 0;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((CacheKey key, CacheEntry entry) -> entry.getWeight())
+                .recordStats()
+                .build();
+    }
+
+    public static FileMetadataCache noFileMetadataCache()
+    {
+        return new FileMetadataCache(new DataSize(0, DataSize.Unit.BYTE));
+    }
+
+    /**
+     * Returns the metadata cache of a single version of an ORC or DWRF file.
+     */
+    public OrcMetadataCache getOrcMetadataCache(FileStatus fileStatus)
+    {
+        if (!enabled) {
+            return OrcMetadataCache.NO_CACHE;
+        }
+
+        FileKey fileKey = new FileKey(fileStatus);
+        return new OrcMetadataCache()
+        {
+            @Override
+            public OrcFileTail getFileTail(MetadataLoader<OrcFileTail> loader)
+                    throws IOException
+            {
+                return get(new CacheKey(fileKey, MetadataKind.ORC_FILE_TAIL, 0), () -> {
+                    OrcFileTail fileTail = loader.load();
+                    return new CacheEntry(fileTail, getRetainedSize(fileTail));
+                });
+            }
+
+            @Override
+            public StripeFooter getStripeFooter(StripeInformation stripe, MetadataLoader<StripeFooter> loader)
+                    throws IOException
+            {
+                return get(new CacheKey(fileKey, MetadataKind.ORC_STRIPE_FOOTER, stripe.getOffset()), () -> {
+                    StripeFooter stripeFooter = loader.load();
+                    return new CacheEntry(stripeFooter, getRetainedSize(stripeFooter));
+                });
+            }
+        };
+    }
+
+    public ParquetMetadata getParquetMetadata(FileStatus fileStatus, MetadataLoader<ParquetMetadata> loader)
+            throws IOException
+    {
+        if (!enabled) {
+            return loader.load();
+        }
+
+        return get(new CacheKey(new FileKey(fileStatus), MetadataKind.PARQUET_FOOTER, 0), () -> {
+            ParquetMetadata metadata = loader.load();
+            return new CacheEntry(metadata, getRetainedSize(metadata));
+        });
+    }
+
+    @VisibleForTesting
+    static int getRetainedSize(OrcFileTail fileTail)
+    {
+        Footer footer = fileTail.getFooter();
+        long size = ORC_FILE_TAIL_SIZE;
+        size += (long) footer.getStripes().size() * ORC_STRIPE_INFORMATION_SIZE;
+        for (OrcType type : footer.getTypes()) {
+            size += ORC_TYPE_SIZE;
+            for (String fieldName : type.getFieldNames()) {
+                size += ORC_TYPE_FIELD_SIZE + 2L * fieldName.length();
+            }
+        }
+        size += getRetainedSize(footer.getFileStats());
+        for (Map.Entry<String, Slice> entry : footer.getUserMetadata().entrySet()) {
+            size += MAP_ENTRY_SIZE + 2L * entry.getKey().length() + entry.getValue().getRetainedSize();
+        }
+        for (StripeStatistics stripeStatistics : fileTail.getMetadata().getStripeStatsList()) {
+            size += ORC_STRIPE_STATISTICS_SIZE + getRetainedSize(stripeStatistics.getColumnStatistics());
+        }
+        return Ints.saturatedCast(size);
+    }
+
+    @VisibleForTesting
+    static int getRetainedSize(StripeFooter stripeFooter)
+    {
+        return ORC_STRIPE_FOOTER_SIZE +
+                stripeFooter.getStreams().size() * ORC_STREAM_SIZE +
+                stripeFooter.getColumnEncodings().size() * ORC_COLUMN_ENCODING_SIZE;
+    }
+
+    @VisibleForTesting
+    static int getRetainedSize(ParquetMetadata metadata)
+    {
+        long size = PARQUET_METADATA_SIZE;
+        for (BlockMetaData block : metadata.getBlocks()) {
+            size += PARQUET_BLOCK_SIZE + (long) block.getColumns().size() * PARQUET_COLUMN_CHUNK_SIZE;
+        }
+        for (Map.Entry<String, String> entry : metadata.getFileMetaData().getKeyValueMetaData().entrySet()) {
+            size += MAP_ENTRY_SIZE + 2L * (entry.getKey().length() + entry.getValue().length());
+        }
+        return Ints.saturatedCast(size);
+    }
+
+    private static long getRetainedSize(List<ColumnStatistics> columnStatistics)
+    {
+        long size = 0;
+        for (ColumnStatistics statistics : columnStatistics) {
+            size += ORC_COLUMN_STATISTICS_SIZE;
+            StringStatistics stringStatistics = statistics.getStringStatistics();
+            if (stringStatistics != null) {
+                size += getRetainedSize(stringStatistics.getMin()) + getRetainedSize(stringStatistics.getMax());
+            }
+            HiveBloomFilter bloomFilter = statistics.getBloomFilter();
+            if (bloomFilter != null) {
+                size += ORC_BLOOM_FILTER_SIZE + bloomFilter.getBitSize() / Byte.SIZE;
+            }
+        }
+        return size;
+    }
+
+    private static long getRetainedSize(Slice slice)
+    {
+        return slice == null ? 0 : slice.getRetainedSize();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T get(CacheKey key, MetadataLoader<CacheEntry> loader)
+            throws IOException
+    {
+        try {
+            return (T) cache.get(key, loader::load).getValue();
+        }
+        catch (ExecutionException | UncheckedExecutionException e) {
+            propagateIfInstanceOf(e.getCause(), IOException.class);
+            propagateIfPossible(e.getCause());
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    @Managed
+    public long getHitCount()
+    {
+        return cache.stats().hitCount();
+    }
+
+    @Managed
+    public long getMissCount()
+    {
+        return cache.stats().missCount();
+    }
+
+    @Managed
+    public double getHitRate()
+    {
+        return cache.stats().hitRate();
+    }
+
+    @Managed
+    public long getEvictionCount()
+    {
+        return cache.stats().evictionCount();
+    }
+
+    @Managed
+    public long getSize()
+    {
+        return cache.size();
+    }
+
+    @Managed
+    public void flushCache()
+    {
+        cache.invalidateAll();
+    }
+
+    public interface MetadataLoader<T>
+    {
+        T load()
+                throws IOException;
+    }
+
+    private enum MetadataKind
+    {
+        ORC_FILE_TAIL,
+        ORC_STRIPE_FOOTER,
+        PARQUET_FOOTER,
+    }
+
+    private static class FileKey
+    {
+        private final String path;
+        private final long length;
+        private final long modificationTime;
+
+        public FileKey(FileStatus fileStatus)
+        {
+            requireNonNull(fileStatus, "fileStatus is null");
+            this.path = fileStatus.getPath().toString();
+            this.length = fileStatus.getLen();
+            this.modificationTime = fileStatus.getModificationTime();
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            FileKey other = (FileKey) o;
+            return length == other.length &&
+                    modificationTime == other.modificationTime &&
+                    path.equals(other.path);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(path, length, modificationTime);
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("path", path)
+                    .add("length", length)
+                    .add("modificationTime", modificationTime)
+                    .toString();
+        }
+    }
+
+    private static class CacheKey
+    {
+        private final FileKey fileKey;
+        private final MetadataKind kind;
+        private final long offset;
+
+        public CacheKey(FileKey fileKey, MetadataKind kind, long offset)
+        {
+            this.fileKey = requireNonNull(fileKey, "fileKey is null");
+            this.kind = requireNonNull(kind, "kind is null");
+            this.offset = offset;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            CacheKey other = (CacheKey) o;
+            return offset == other.offset &&
+                    kind == other.kind &&
+                    fileKey.equals(other.fileKey);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(fileKey, kind, offset);
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("fileKey", fileKey)
+                    .add("kind", kind)
+                    .add("offset", offset)
+                    .toString();
+        }
+    }
+
+    private static class CacheEntry
+    {
+        private final Object value;
+        private final int weight;
+
+        public CacheEntry(Object value, int weight)
+        {
+            this.value = requireNonNull(value, "value is null");
+            this.weight = weight;
+        }
+
+        public Object getValue()
+        {
+            return value;
+        }
+
+        public int getWeight()
+        {
+            return weight;
+        }
+    }
+}
@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.hive;
 
+import com.facebook.presto.hive.metastore.Table;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.LocatedFileStatus;
 import org.apache.hadoop.fs.Path;
@@ -26,7 +27,7 @@ public class HadoopDirectoryLister
         implements DirectoryLister
 {
     @Override
-    public RemoteIterator<LocatedFileStatus> list(FileSystem fs, Path path)
+    public RemoteIterator<LocatedFileStatus> list(String user, FileSystem fs, Table table, Path path)
             throws IOException
     {
         return listLocatedStatus(fs, path);
@@ -23,6 +23,7 @@ import io.airlift.configuration.DefunctConfig;
 import io.airlift.configuration.LegacyConfig;
 import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
+import io.airlift.units.MaxDataSize;
 import io.airlift.units.MinDataSize;
 import io.airlift.units.MinDuration;
 import org.joda.time.DateTimeZone;
@@ -35,6 +36,7 @@ import java.util.List;
 import java.util.TimeZone;
 import java.util.concurrent.TimeUnit;
 
+import static io.airlift.units.DataSize.Unit.GIGABYTE;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 
 @DefunctConfig({
@@ -50,6 +52,7 @@ public class HiveClientConfig
 
     private DataSize maxSplitSize = new DataSize(64, MEGABYTE);
     private int maxPartitionsPerScan = 100_000;
+    private int maxPartitionsForEagerLoad = 10_000;
     private int maxOutstandingSplits = 1_000;
     private int maxSplitIteratorThreads = 1_000;
     private int minPartitionBatchSize = 10;
@@ -61,6 +64,7 @@ public class HiveClientConfig
     private boolean recursiveDirWalkerEnabled;
 
     private int maxConcurrentFileRenames = 20;
+    private int maxConcurrentDirectoryListings = 20;
 
     private boolean allowCorruptWritesForTesting;
 
@@ -113,11 +117,14 @@ public class HiveClientConfig
     private boolean parquetOptimizedReaderEnabled;
 
     private boolean parquetPredicatePushdownEnabled;
+    private boolean parquetOptimizedWriterEnabled;
 
     private boolean assumeCanonicalPartitionKeys;
 
     private boolean useOrcColumnNames;
     private boolean orcBloomFiltersEnabled;
+    private boolean orcStripePrefetchEnabled;
+    private boolean orcOptimizedWriterEnabled;
     private DataSize orcMaxMergeDistance = new DataSize(1, MEGABYTE);
     private DataSize orcMaxBufferSize = new DataSize(8, MEGABYTE);
     private DataSize orcStreamBufferSize = new DataSize(8, MEGABYTE);
@@ -139,6 +146,19 @@ public class HiveClientConfig
     private boolean bucketExecutionEnabled = true;
     private boolean bucketWritingEnabled = true;
 
+    private DataSize fileMetadataCacheMaxSize = new DataSize(64, MEGABYTE);
+
+    private boolean localDataCacheEnabled;
+    private File localDataCacheDirectory = new File(StandardSystemProperty.JAVA_IO_TMPDIR.value(), "presto-hive-data-cache");
+    private DataSize localDataCacheMaxSize = new DataSize(10, GIGABYTE);
+    private DataSize localDataCacheChunkSize = new DataSize(1, MEGABYTE);
+    private boolean softAffinitySchedulingEnabled;
+
+    private List<String> fileStatusCacheTables = ImmutableList.of();
+    private long fileStatusCacheMaxSize = 1_000_000;
+    private Duration fileStatusCacheExpireTime = new Duration(1, TimeUnit.MINUTES);
+    private boolean fileStatusCacheValidationEnabled = true;
+
     public int getMaxInitialSplits()
     {
         return maxInitialSplits;
@@ -205,6 +225,20 @@ public class HiveClientConfig
         return this;
     }
 
+    @Min(1)
+    public int getMaxConcurrentDirectoryListings()
+    {
+        return maxConcurrentDirectoryListings;
+    }
+
+    @Config("hive.max-concurrent-directory-listings")
+    @ConfigDescription("Maximum number of nested directory listings started ahead of iteration by a split loader")
+    public HiveClientConfig setMaxConcurrentDirectoryListings(int maxConcurrentDirectoryListings)
+    {
+        this.maxConcurrentDirectoryListings = maxConcurrentDirectoryListings;
+        return this;
+    }
+
     @Config("hive.recursive-directories")
     public HiveClientConfig setRecursiveDirWalkerEnabled(boolean recursiveDirWalkerEnabled)
     {
@@ -262,6 +296,20 @@ public class HiveClientConfig
         return this;
     }
 
+    @Min(0)
+    public int getMaxPartitionsForEagerLoad()
+    {
+        return maxPartitionsForEagerLoad;
+    }
+
+    @Config("hive.max-partitions-for-eager-load")
+    @ConfigDescription("Maximum number of partitions loaded during planning, partitions of larger scans are enumerated while splits are scheduled")
+    public HiveClientConfig setMaxPartitionsForEagerLoad(int maxPartitionsForEagerLoad)
+    {
+        this.maxPartitionsForEagerLoad = maxPartitionsForEagerLoad;
+        return this;
+    }
+
     @Min(1)
     public int getMaxOutstandingSplits()
     {
@@ -888,6 +936,19 @@ public class HiveClientConfig
         return this;
     }
 
+    public boolean isParquetOptimizedWriterEnabled()
+    {
+        return parquetOptimizedWriterEnabled;
+    }
+
+    @Config("hive.parquet.optimized-writer.enabled")
+    @ConfigDescription("Experimental: Write Parquet files with the native Presto writer")
+    public HiveClientConfig setParquetOptimizedWriterEnabled(boolean parquetOptimizedWriterEnabled)
+    {
+        this.parquetOptimizedWriterEnabled = parquetOptimizedWriterEnabled;
+        return this;
+    }
+
     public boolean isUseOrcColumnNames()
     {
         return useOrcColumnNames;
@@ -952,6 +1013,32 @@ public class HiveClientConfig
         return this;
     }
 
+    public boolean isOrcStripePrefetchEnabled()
+    {
+        return orcStripePrefetchEnabled;
+    }
+
+    @Config("hive.orc.stripe-prefetch.enabled")
+    @ConfigDescription("Read the next ORC stripe in the background while the current stripe is processed")
+    public HiveClientConfig setOrcStripePrefetchEnabled(boolean orcStripePrefetchEnabled)
+    {
+        this.orcStripePrefetchEnabled = orcStripePrefetchEnabled;
+        return this;
+    }
+
+    public boolean isOrcOptimizedWriterEnabled()
+    {
+        return orcOptimizedWriterEnabled;
+    }
+
+    @Config("hive.orc.optimized-writer.enabled")
+    @ConfigDescription("Experimental: Write ORC files with the native Presto writer")
+    public HiveClientConfig setOrcOptimizedWriterEnabled(boolean orcOptimizedWriterEnabled)
+    {
+        this.orcOptimizedWriterEnabled = orcOptimizedWriterEnabled;
+        return this;
+    }
+
     @Deprecated
     public boolean isRcfileOptimizedReaderEnabled()
     {
@@ -1145,4 +1232,143 @@ public class HiveClientConfig
         this.bucketWritingEnabled = bucketWritingEnabled;
         return this;
     }
+
+    @NotNull
+    public DataSize getFileMetadataCacheMaxSize()
+    {
+        return fileMetadataCacheMaxSize;
+    }
+
+    @Config("hive.file-metadata-cache.max-size")
+    @ConfigDescription("Maximum estimated heap size of the decoded ORC and Parquet file metadata cached on each node, or zero to disable the cache")
+    public HiveClientConfig setFileMetadataCacheMaxSize(DataSize fileMetadataCacheMaxSize)
+    {
+        this.fileMetadataCacheMaxSize = fileMetadataCacheMaxSize;
+        return this;
+    }
+
+    public boolean isLocalDataCacheEnabled()
+    {
+        return localDataCacheEnabled;
+    }
+
+    @Config("hive.local-data-cache.enabled")
+    @ConfigDescription("Cache the data of remote files on the local disk of each node")
+    public HiveClientConfig setLocalDataCacheEnabled(boolean localDataCacheEnabled)
+    {
+        this.localDataCacheEnabled = localDataCacheEnabled;
+        return this;
+    }
+
+    @NotNull
+    public File getLocalDataCacheDirectory()
+    {
+        return localDataCacheDirectory;
+    }
+
+    @Config("hive.local-data-cache.directory")
+    @ConfigDescription("Local directory for the cached file data, which is cleared when the node starts")
+    public HiveClientConfig setLocalDataCacheDirectory(File localDataCacheDirectory)
+    {
+        this.localDataCacheDirectory = localDataCacheDirectory;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getLocalDataCacheMaxSize()
+    {
+        return localDataCacheMaxSize;
+    }
+
+    @Config("hive.local-data-cache.max-size")
+    @ConfigDescription("Maximum size of the file data cached on the local disk of each node")
+    public HiveClientConfig setLocalDataCacheMaxSize(DataSize localDataCacheMaxSize)
+    {
+        this.localDataCacheMaxSize = localDataCacheMaxSize;
+        return this;
+    }
+
+    @NotNull
+    @MinDataSize("4kB")
+    @MaxDataSize("64MB")
+    public DataSize getLocalDataCacheChunkSize()
+    {
+        return localDataCacheChunkSize;
+    }
+
+    @Config("hive.local-data-cache.chunk-size")
+    @ConfigDescription("Size of the aligned chunks in which file data is cached")
+    public HiveClientConfig setLocalDataCacheChunkSize(DataSize localDataCacheChunkSize)
+    {
+        this.localDataCacheChunkSize = localDataCacheChunkSize;
+        return this;
+    }
+
+    public boolean isSoftAffinitySchedulingEnabled()
+    {
+        return softAffinitySchedulingEnabled;
+    }
+
+    @Config("hive.soft-affinity-scheduling.enabled")
+    @ConfigDescription("Prefer scheduling the splits of a file on the same worker, so its local data cache is reused")
+    public HiveClientConfig setSoftAffinitySchedulingEnabled(boolean softAffinitySchedulingEnabled)
+    {
+        this.softAffinitySchedulingEnabled = softAffinitySchedulingEnabled;
+        return this;
+    }
+
+    @NotNull
+    public List<String> getFileStatusCacheTables()
+    {
+        return fileStatusCacheTables;
+    }
+
+    @Config("hive.file-status-cache-tables")
+    @ConfigDescription("Comma separated list of tables whose directory listings are cached, as schema.table, schema.* or *")
+    public HiveClientConfig setFileStatusCacheTables(String fileStatusCacheTables)
+    {
+        this.fileStatusCacheTables = SPLITTER.splitToList(fileStatusCacheTables);
+        return this;
+    }
+
+    @Min(0)
+    public long getFileStatusCacheMaxSize()
+    {
+        return fileStatusCacheMaxSize;
+    }
+
+    @Config("hive.file-status-cache-size")
+    @ConfigDescription("Maximum number of file statuses kept in the directory listing cache")
+    public HiveClientConfig setFileStatusCacheMaxSize(long fileStatusCacheMaxSize)
+    {
+        this.fileStatusCacheMaxSize = fileStatusCacheMaxSize;
+        return this;
+    }
+
+    @NotNull
+    public Duration getFileStatusCacheExpireTime()
+    {
+        return fileStatusCacheExpireTime;
+    }
+
+    @Config("hive.file-status-cache-expire-time")
+    @ConfigDescription("Time after which a cached directory listing is discarded")
+    public HiveClientConfig setFileStatusCacheExpireTime(Duration fileStatusCacheExpireTime)
+    {
+        this.fileStatusCacheExpireTime = fileStatusCacheExpireTime;
+        return this;
+    }
+
+    public boolean isFileStatusCacheValidationEnabled()
+    {
+        return fileStatusCacheValidationEnabled;
+    }
+
+    @Config("hive.file-status-cache-validation-enabled")
+    @ConfigDescription("Compare the modification time of a directory before using its cached listing")
+    public HiveClientConfig setFileStatusCacheValidationEnabled(boolean fileStatusCacheValidationEnabled)
+    {
+        this.fileStatusCacheValidationEnabled = fileStatusCacheValidationEnabled;
+        return this;
+    }
 }
@@ -44,6 +44,9 @@ import com.facebook.presto.spi.predicate.Domain;
 import com.facebook.presto.spi.predicate.NullableValue;
 import com.facebook.presto.spi.predicate.TupleDomain;
 import com.facebook.presto.spi.security.Privilege;
+import com.facebook.presto.spi.statistics.ColumnStatistics;
+import com.facebook.presto.spi.statistics.Estimate;
+import com.facebook.presto.spi.statistics.TableStatistics;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.spi.type.TypeManager;
 import com.google.common.annotations.VisibleForTesting;
@@ -52,11 +55,13 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import io.airlift.json.JsonCodec;
 import io.airlift.slice.Slice;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.common.StatsSetupConst;
 import org.apache.hadoop.hive.metastore.TableType;
 import org.apache.hadoop.hive.metastore.api.Database;
 import org.apache.hadoop.hive.metastore.api.PrincipalPrivilegeSet;
@@ -69,6 +74,7 @@ import org.joda.time.DateTimeZone;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -271,7 +277,8 @@ public class HiveMetadata
     public Optional<Object> getInfo(ConnectorTableLayoutHandle layoutHandle)
     {
         HiveTableLayoutHandle tableLayoutHandle = checkType(layoutHandle, HiveTableLayoutHandle.class, "layoutHandle");
-        if (!tableLayoutHandle.getPartitions().isPresent()) {
+        // lazily enumerated layouts are not listed to avoid a second pass over the metastore
+        if (tableLayoutHandle.getPartitions().isPresent()) {
             return Optional.of(new HiveInputInfo(tableLayoutHandle.getPartitions().get().stream()
                     .map(HivePartition::getPartitionId)
                     .collect(Collectors.toList())));
@@ -1023,7 +1030,8 @@ public class HiveMetadata
             TupleDomain<ColumnHandle> promisedPredicate = layoutHandle.getPromisedPredicate();
             Predicate<Map<ColumnHandle, NullableValue>> predicate = convertToPredicate(promisedPredicate);
             List<ConnectorTableLayoutResult> tableLayoutResults = getTableLayouts(session, tableHandle, new Constraint<>(promisedPredicate, predicate), Optional.empty());
-            return checkType(Iterables.getOnlyElement(tableLayoutResults).getTableLayout().getHandle(), HiveTableLayoutHandle.class, "tableLayoutHandle").getPartitions().get();
+            HiveTableLayoutHandle computedLayoutHandle = checkType(Iterables.getOnlyElement(tableLayoutResults).getTableLayout().getHandle(), HiveTableLayoutHandle.class, "tableLayoutHandle");
+            return ImmutableList.copyOf(computedLayoutHandle.getPartitionIterable().get());
         }
     }
 
@@ -1046,15 +1054,26 @@ public class HiveMetadata
 
         HivePartitionResult hivePartitionResult = partitionManager.getPartitions(metastore, tableHandle, constraint);
 
+        HiveTableLayoutHandle layoutHandle;
+        if (hivePartitionResult.isPartitionsLoaded()) {
+            layoutHandle = new HiveTableLayoutHandle(
+                    handle.getClientId(),
+                    ImmutableList.copyOf(hivePartitionResult.getPartitionColumns()),
+                    ImmutableList.copyOf(hivePartitionResult.getPartitions()),
+                    hivePartitionResult.getEnforcedConstraint(),
+                    hivePartitionResult.getBucketHandle());
+        }
+        else {
+            layoutHandle = new HiveTableLayoutHandle(
+                    handle.getClientId(),
+                    ImmutableList.copyOf(hivePartitionResult.getPartitionColumns()),
+                    hivePartitionResult.getPartitions(),
+                    hivePartitionResult.getEnforcedConstraint(),
+                    hivePartitionResult.getBucketHandle());
+        }
+
         return ImmutableList.of(new ConnectorTableLayoutResult(
-                getTableLayout(
-                        session,
-                        new HiveTableLayoutHandle(
-                                handle.getClientId(),
-                                ImmutableList.copyOf(hivePartitionResult.getPartitionColumns()),
-                                hivePartitionResult.getPartitions(),
-                                hivePartitionResult.getEnforcedConstraint(),
-                                hivePartitionResult.getBucketHandle())),
+                getTableLayout(session, layoutHandle),
                 hivePartitionResult.getUnenforcedConstraint()));
     }
 
@@ -1063,9 +1082,12 @@ public class HiveMetadata
     {
         HiveTableLayoutHandle hiveLayoutHandle = checkType(layoutHandle, HiveTableLayoutHandle.class, "layoutHandle");
         List<ColumnHandle> partitionColumns = hiveLayoutHandle.getPartitionColumns();
-        List<HivePartition> partitions = hiveLayoutHandle.getPartitions().get();
+        Iterable<HivePartition> partitions = hiveLayoutHandle.getPartitionIterable().get();
 
-        TupleDomain<ColumnHandle> predicate = createPredicate(partitionColumns, partitions);
+        // the values of lazily enumerated partitions are not collected, as that would enumerate all of them
+        TupleDomain<ColumnHandle> predicate = hiveLayoutHandle.getPartitions()
+                .map(loadedPartitions -> createPredicate(partitionColumns, loadedPartitions))
+                .orElse(hiveLayoutHandle.getPromisedPredicate());
 
         Optional<DiscretePredicates> discretePredicates = Optional.empty();
         if (!partitionColumns.isEmpty()) {
@@ -1124,6 +1146,147 @@ public class HiveMetadata
         return withColumnDomains(domains);
     }
 
+    @Override
+    public TableStatistics getTableStatistics(ConnectorSession session, ConnectorTableHandle tableHandle, ConnectorTableLayoutHandle tableLayoutHandle)
+    {
+        HiveTableHandle handle = checkType(tableHandle, HiveTableHandle.class, "tableHandle");
+        HiveTableLayoutHandle layoutHandle = checkType(tableLayoutHandle, HiveTableLayoutHandle.class, "tableLayoutHandle");
+        if (!layoutHandle.getPartitions().isPresent()) {
+            return TableStatistics.empty();
+        }
+        List<HivePartition> partitions = layoutHandle.getPartitions().get();
+
+        // the metastore only provides the row count, and the statistics of the partition keys are derived from the partitions
+        ImmutableMap.Builder<ColumnHandle, ColumnStatistics> columnStatistics = ImmutableMap.builder();
+        for (ColumnHandle column : layoutHandle.getPartitionColumns()) {
+            columnStatistics.put(column, getPartitionKeyStatistics(column, partitions));
+        }
+        return new TableStatistics(getRowCount(handle.getSchemaTableName(), partitions), columnStatistics.build());
+    }
+
+    @Override
+    public Optional<TableStatistics> getExactTableStatistics(ConnectorSession session, ConnectorTableHandle tableHandle, ConnectorTableLayoutHandle tableLayoutHandle, Set<ColumnHandle> columns)
+    {
+        HiveTableHandle handle = checkType(tableHandle, HiveTableHandle.class, "tableHandle");
+        HiveTableLayoutHandle layoutHandle = checkType(tableLayoutHandle, HiveTableLayoutHandle.class, "tableLayoutHandle");
+        List<HiveColumnHandle> hiveColumns = columns.stream()
+                .map(column -> checkType(column, HiveColumnHandle.class, "column"))
+                .collect(toList());
+        if (!layoutHandle.getPartitions().isPresent() || hiveColumns.stream().anyMatch(HiveColumnHandle::isHidden)) {
+            return Optional.empty();
+        }
+        List<HivePartition> partitions = layoutHandle.getPartitions().get();
+        SchemaTableName tableName = handle.getSchemaTableName();
+
+        ExactStatisticsCollector collector = new ExactStatisticsCollector(hdfsEnvironment, session, typeManager, hiveColumns);
+        if (partitions.size() == 1 && partitions.get(0).getPartitionId().equals(HivePartition.UNPARTITIONED_ID)) {
+            Optional<Table> table = metastore.getTable(tableName.getSchemaName(), tableName.getTableName());
+            if (!table.isPresent() || !collector.addPartition(partitions.get(0), table.get().getStorage(), table.get().getParameters())) {
+                return Optional.empty();
+            }
+            return Optional.of(collector.build());
+        }
+
+        for (List<HivePartition> batch : Lists.partition(partitions, 100)) {
+            List<String> partitionNames = batch.stream()
+                    .map(HivePartition::getPartitionId)
+                    .collect(toList());
+            Map<String, Optional<Partition>> metastorePartitions = metastore.getPartitionsByNames(tableName.getSchemaName(), tableName.getTableName(), partitionNames);
+            for (HivePartition partition : batch) {
+                Optional<Partition> metastorePartition = metastorePartitions.getOrDefault(partition.getPartitionId(), Optional.empty());
+                if (!metastorePartition.isPresent() || !collector.addPartition(partition, metastorePartition.get().getStorage(), metastorePartition.get().getParameters())) {
+                    return Optional.empty();
+                }
+            }
+        }
+        return Optional.of(collector.build());
+    }
+
+    private Estimate getRowCount(SchemaTableName tableName, List<HivePartition> partitions)
+    {
+        if (partitions.isEmpty()) {
+            return Estimate.of(0);
+        }
+
+        List<Map<String, String>> parameters;
+        if (partitions.size() == 1 && partitions.get(0).getPartitionId().equals(HivePartition.UNPARTITIONED_ID)) {
+            Optional<Table> table = metastore.getTable(tableName.getSchemaName(), tableName.getTableName());
+            if (!table.isPresent()) {
+                return Estimate.unknownValue();
+            }
+            parameters = ImmutableList.of(table.get().getParameters());
+        }
+        else {
+            List<String> partitionNames = partitions.stream()
+                    .map(HivePartition::getPartitionId)
+                    .collect(toList());
+            Collection<Optional<Partition>> metastorePartitions = metastore.getPartitionsByNames(tableName.getSchemaName(), tableName.getTableName(), partitionNames).values();
+            if (metastorePartitions.size() != partitionNames.size() || !metastorePartitions.stream().allMatch(Optional::isPresent)) {
+                return Estimate.unknownValue();
+            }
+            parameters = metastorePartitions.stream()
+                    .map(partition -> partition.get().getParameters())
+                    .collect(toList());
+        }
+
+        long rowCount = 0;
+        for (Map<String, String> partitionParameters : parameters) {
+            String value = partitionParameters.get(StatsSetupConst.ROW_COUNT);
+            if (value == null) {
+                return Estimate.unknownValue();
+            }
+            try {
+                long partitionRowCount = Long.parseLong(value);
+                // Hive stores -1 when the statistics are not known
+                if (partitionRowCount < 0) {
+                    return Estimate.unknownValue();
+                }
+                rowCount += partitionRowCount;
+            }
+            catch (NumberFormatException e) {
+                return Estimate.unknownValue();
+            }
+        }
+        return Estimate.of(rowCount);
+    }
+
+    private static ColumnStatistics getPartitionKeyStatistics(ColumnHandle column, List<HivePartition> partitions)
+    {
+        Set<Object> distinctValues = new HashSet<>();
+        boolean hasNulls = false;
+        Comparable<Object> min = null;
+        Comparable<Object> max = null;
+        for (HivePartition partition : partitions) {
+            NullableValue value = partition.getKeys().get(column);
+            if (value == null || value.isNull()) {
+                hasNulls = true;
+                continue;
+            }
+            distinctValues.add(value.getValue());
+            if (value.getType().isOrderable() && value.getValue() instanceof Comparable) {
+                @SuppressWarnings("unchecked")
+                Comparable<Object> comparable = (Comparable<Object>) value.getValue();
+                if (min == null || comparable.compareTo(min) < 0) {
+                    min = comparable;
+                }
+                if (max == null || comparable.compareTo(max) > 0) {
+                    max = comparable;
+                }
+            }
+        }
+
+        ColumnStatistics.Builder statistics = ColumnStatistics.builder()
+                .setDistinctValuesCount(Estimate.of(distinctValues.size()));
+        if (!hasNulls) {
+            statistics.setNullsCount(Estimate.of(0));
+        }
+        if (min != null) {
+            statistics.setMin(min);
+            statistics.setMax(max);
+        }
+        return statistics.build();
+    }
+
     @Override
     public Optional<ConnectorNewTableLayout> getInsertLayout(ConnectorSession session, ConnectorTableHandle tableHandle)
     {
@@ -28,6 +28,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.primitives.Ints;
 import io.airlift.json.JsonCodec;
 import io.airlift.slice.Slice;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.objects.Object2IntMap;
 import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 
@@ -187,11 +188,23 @@ public class HivePageSink
     {
         int[] writerIndexes = getWriterIndexes(page);
 
-        Block[] dataBlocks = getDataBlocks(page);
+        // group the positions of the page by writer
+        IntArrayList[] writerPositions = new IntArrayList[writers.size()];
         for (int position = 0; position < page.getPositionCount(); position++) {
             int writerIndex = writerIndexes[position];
-            HiveWriter writer = writers.get(writerIndex);
-            writer.addRow(dataBlocks, position);
+            if (writerPositions[writerIndex] == null) {
+                writerPositions[writerIndex] = new IntArrayList();
+            }
+            writerPositions[writerIndex].add(position);
+        }
+
+        Page dataPage = extractColumns(page, dataColumnInputIndex);
+        for (int writerIndex = 0; writerIndex < writerPositions.length; writerIndex++) {
+            IntArrayList positions = writerPositions[writerIndex];
+            if (positions == null) {
+                continue;
+            }
+            writers.get(writerIndex).append(copyPositions(dataPage, positions));
         }
 
         return NOT_BLOCKED;
@@ -233,16 +246,6 @@ public class HivePageSink
         return writerIndexes;
     }
 
-    private Block[] getDataBlocks(Page page)
-    {
-        Block[] blocks = new Block[dataColumnInputIndex.length];
-        for (int i = 0; i < dataColumnInputIndex.length; i++) {
-            int dataColumn = dataColumnInputIndex[i];
-            blocks[i] = page.getBlock(dataColumn);
-        }
-        return blocks;
-    }
-
     private Block buildBucketBlock(Page page)
     {
         if (bucketFunction == null) {
@@ -268,6 +271,18 @@ public class HivePageSink
         return new Page(page.getPositionCount(), blocks);
     }
 
+    private static Page copyPositions(Page page, IntArrayList positions)
+    {
+        if (positions.size() == page.getPositionCount()) {
+            return page;
+        }
+        Block[] blocks = new Block[page.getChannelCount()];
+        for (int channel = 0; channel < blocks.length; channel++) {
+            blocks[channel] = page.getBlock(channel).copyPositions(positions);
+        }
+        return new Page(positions.size(), blocks);
+    }
+
     private static class HiveWriterPagePartitioner
     {
         private final PageIndexer pageIndexer;
@@ -24,6 +24,7 @@ import com.facebook.presto.spi.connector.ConnectorPageSinkProvider;
 import com.facebook.presto.spi.connector.ConnectorTransactionHandle;
 import com.facebook.presto.spi.type.TypeManager;
 import io.airlift.json.JsonCodec;
+import org.joda.time.DateTimeZone;
 
 import javax.inject.Inject;
 
@@ -43,6 +44,7 @@ public class HivePageSinkProvider
     private final boolean immutablePartitions;
     private final LocationService locationService;
     private final JsonCodec<PartitionUpdate> partitionUpdateCodec;
+    private final DateTimeZone hiveStorageTimeZone;
 
     @Inject
     public HivePageSinkProvider(
@@ -64,6 +66,7 @@ public class HivePageSinkProvider
         this.immutablePartitions = config.isImmutablePartitions();
         this.locationService = requireNonNull(locationService, "locationService is null");
         this.partitionUpdateCodec = requireNonNull(partitionUpdateCodec, "partitionUpdateCodec is null");
+        this.hiveStorageTimeZone = config.getDateTimeZone();
     }
 
     @Override
@@ -99,7 +102,8 @@ public class HivePageSinkProvider
                 typeManager,
                 hdfsEnvironment,
                 immutablePartitions,
-                session);
+                session,
+                hiveStorageTimeZone);
 
         return new HivePageSink(
                 writerFactory,
@@ -21,6 +21,7 @@ import com.facebook.presto.spi.RecordCursor;
 import com.facebook.presto.spi.RecordPageSource;
 import com.facebook.presto.spi.connector.ConnectorPageSourceProvider;
 import com.facebook.presto.spi.connector.ConnectorTransactionHandle;
+import com.facebook.presto.spi.predicate.Domain;
 import com.facebook.presto.spi.predicate.TupleDomain;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.spi.type.TypeManager;
@@ -32,6 +33,7 @@ import org.joda.time.DateTimeZone;
 
 import javax.inject.Inject;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -77,6 +79,12 @@ public class HivePageSourceProvider
 
     @Override
     public ConnectorPageSource createPageSource(ConnectorTransactionHandle transaction, ConnectorSession session, ConnectorSplit split, List<ColumnHandle> columns)
+    {
+        return createPageSource(transaction, session, split, columns, TupleDomain.all());
+    }
+
+    @Override
+    public ConnectorPageSource createPageSource(ConnectorTransactionHandle transaction, ConnectorSession session, ConnectorSplit split, List<ColumnHandle> columns, TupleDomain<ColumnHandle> dynamicFilter)
     {
         List<HiveColumnHandle> hiveColumns = columns.stream()
                 .map(HiveColumnHandle::toHiveColumnHandle)
@@ -96,7 +104,7 @@ public class HivePageSourceProvider
                 hiveSplit.getStart(),
                 hiveSplit.getLength(),
                 hiveSplit.getSchema(),
-                hiveSplit.getEffectivePredicate(),
+                hiveSplit.getEffectivePredicate().intersect(getFileColumnsDomain(dynamicFilter, hiveSplit)),
                 hiveColumns,
                 hiveSplit.getPartitionKeys(),
                 hiveStorageTimeZone,
@@ -108,6 +116,25 @@ public class HivePageSourceProvider
         throw new RuntimeException("Could not find a file reader for split " + hiveSplit);
     }
 
+    /**
+     * Returns the part of the dynamic filter which applies to the columns stored in the file.
+     * Columns read with a coercion are left out, as the domain is in terms of the table type.
+     */
+    private static TupleDomain<HiveColumnHandle> getFileColumnsDomain(TupleDomain<ColumnHandle> dynamicFilter, HiveSplit hiveSplit)
+    {
+        if (dynamicFilter.isNone()) {
+            return TupleDomain.none();
+        }
+        Map<HiveColumnHandle, Domain> domains = new HashMap<>();
+        for (Map.Entry<ColumnHandle, Domain> entry : dynamicFilter.getDomains().get().entrySet()) {
+            HiveColumnHandle column = HiveColumnHandle.toHiveColumnHandle(entry.getKey());
+            if (column.getColumnType() == REGULAR && !hiveSplit.getColumnCoercions().containsKey(column.getHiveColumnIndex())) {
+                domains.put(column, entry.getValue());
+            }
+        }
+        return TupleDomain.withColumnDomains(domains);
+    }
+
     public static Optional<ConnectorPageSource> createHivePageSource(
             Set<HiveRecordCursorProvider> cursorProviders,
             Set<HivePageSourceFactory> pageSourceFactories,
@@ -28,9 +28,11 @@ import com.facebook.presto.spi.predicate.ValueSet;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.spi.type.TypeManager;
 import com.google.common.base.Predicates;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Ordering;
 import io.airlift.slice.Slice;
 import org.apache.hadoop.hive.common.FileUtils;
 import org.apache.hadoop.hive.metastore.ProtectMode;
@@ -39,6 +41,7 @@ import org.joda.time.DateTimeZone;
 import javax.inject.Inject;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -68,6 +71,7 @@ public class HivePartitionManager
     private final DateTimeZone timeZone;
     private final boolean assumeCanonicalPartitionKeys;
     private final int maxPartitions;
+    private final int maxPartitionsForEagerLoad;
     private final int domainCompactionThreshold;
     private final TypeManager typeManager;
 
@@ -82,6 +86,7 @@ public class HivePartitionManager
                 hiveClientConfig.getDateTimeZone(),
                 hiveClientConfig.isAssumeCanonicalPartitionKeys(),
                 hiveClientConfig.getMaxPartitionsPerScan(),
+                hiveClientConfig.getMaxPartitionsForEagerLoad(),
                 hiveClientConfig.getDomainCompactionThreshold());
     }
 
@@ -91,6 +96,7 @@ public class HivePartitionManager
             DateTimeZone timeZone,
             boolean assumeCanonicalPartitionKeys,
             int maxPartitions,
+            int maxPartitionsForEagerLoad,
             int domainCompactionThreshold)
     {
         this.connectorId = requireNonNull(connectorId, "connectorId is null").toString();
@@ -98,6 +104,8 @@ public class HivePartitionManager
         this.assumeCanonicalPartitionKeys = assumeCanonicalPartitionKeys;
         checkArgument(maxPartitions >= 1, "maxPartitions must be at least 1");
         this.maxPartitions = maxPartitions;
+        checkArgument(maxPartitionsForEagerLoad >= 0, "maxPartitionsForEagerLoad is negative");
+        this.maxPartitionsForEagerLoad = maxPartitionsForEagerLoad;
         checkArgument(domainCompactionThreshold >= 1, "domainCompactionThreshold must be at least 1");
         this.domainCompactionThreshold = domainCompactionThreshold;
         this.typeManager = requireNonNull(typeManager, "typeManager is null");
@@ -117,13 +125,14 @@ public class HivePartitionManager
         TupleDomain<HiveColumnHandle> compactEffectivePredicate = toCompactTupleDomain(effectivePredicate, domainCompactionThreshold);
 
         if (effectivePredicate.isNone()) {
-            return new HivePartitionResult(partitionColumns, ImmutableList.of(), TupleDomain.none(), TupleDomain.none(), hiveBucketHandle);
+            return new HivePartitionResult(partitionColumns, ImmutableList.of(), true, TupleDomain.none(), TupleDomain.none(), hiveBucketHandle);
         }
 
         if (partitionColumns.isEmpty()) {
             return new HivePartitionResult(
                     partitionColumns,
                     ImmutableList.of(new HivePartition(tableName, compactEffectivePredicate, buckets)),
+                    true,
                     effectivePredicate,
                     TupleDomain.none(),
                     hiveBucketHandle);
@@ -134,29 +143,68 @@ public class HivePartitionManager
                 .collect(toList());
 
         List<String> partitionNames = getFilteredPartitionNames(metastore, tableName, partitionColumns, effectivePredicate);
-
-        // do a final pass to filter based on fields that could not be used to filter the partitions
-        int partitionCount = 0;
-        ImmutableList.Builder<HivePartition> partitions = ImmutableList.builder();
-        for (String partitionName : partitionNames) {
-            Optional<Map<ColumnHandle, NullableValue>> values = parseValuesAndFilterPartition(partitionName, partitionColumns, partitionTypes, constraint);
-
-            if (values.isPresent()) {
-                if (partitionCount == maxPartitions) {
-                    throw new PrestoException(HIVE_EXCEEDED_PARTITION_LIMIT, format(
-                            "Query over table '%s' can potentially read more than %s partitions",
-                            hiveTableHandle.getSchemaTableName(),
-                            maxPartitions));
+        boolean loadPartitions = partitionNames.size() <= maxPartitionsForEagerLoad;
+
+        Iterable<HivePartition> partitions;
+        if (loadPartitions) {
+            // do a final pass to filter based on fields that could not be used to filter the partitions
+            int partitionCount = 0;
+            ImmutableList.Builder<HivePartition> loadedPartitions = ImmutableList.builder();
+            for (String partitionName : partitionNames) {
+                Optional<Map<ColumnHandle, NullableValue>> values = parseValuesAndFilterPartition(partitionName, partitionColumns, partitionTypes, constraint);
+
+                if (values.isPresent()) {
+                    if (partitionCount == maxPartitions) {
+                        throw exceededPartitionLimit(hiveTableHandle);
+                    }
+                    partitionCount++;
+                    loadedPartitions.add(new HivePartition(tableName, compactEffectivePredicate, partitionName, values.get(), buckets));
                 }
-                partitionCount++;
-                partitions.add(new HivePartition(tableName, compactEffectivePredicate, partitionName, values.get(), buckets));
             }
+            partitions = loadedPartitions.build();
+        }
+        else {
+            // the partitions are not parsed during planning, so the limit is checked against the partition names,
+            // which include the partitions the final pass would filter out
+            if (partitionNames.size() > maxPartitions) {
+                throw exceededPartitionLimit(hiveTableHandle);
+            }
+
+            // lazily enumerated partitions are not sorted by the split manager, so use the same order here
+            List<String> sortedPartitionNames = Ordering.natural().reverse().immutableSortedCopy(partitionNames);
+
+            // the final filtering pass is done as the partitions are iterated
+            partitions = () -> new AbstractIterator<HivePartition>()
+            {
+                private final Iterator<String> partitionNameIterator = sortedPartitionNames.iterator();
+
+                @Override
+                protected HivePartition computeNext()
+                {
+                    while (partitionNameIterator.hasNext()) {
+                        String partitionName = partitionNameIterator.next();
+                        Optional<Map<ColumnHandle, NullableValue>> values = parseValuesAndFilterPartition(partitionName, partitionColumns, partitionTypes, constraint);
+                        if (values.isPresent()) {
+                            return new HivePartition(tableName, compactEffectivePredicate, partitionName, values.get(), buckets);
+                        }
+                    }
+                    return endOfData();
+                }
+            };
         }
 
         // All partition key domains will be fully evaluated, so we don't need to include those
         TupleDomain<ColumnHandle> remainingTupleDomain = TupleDomain.withColumnDomains(Maps.filterKeys(effectivePredicate.getDomains().get(), not(Predicates.in(partitionColumns))));
         TupleDomain<ColumnHandle> enforcedTupleDomain = TupleDomain.withColumnDomains(Maps.filterKeys(effectivePredicate.getDomains().get(), Predicates.in(partitionColumns)));
-        return new HivePartitionResult(partitionColumns, partitions.build(), remainingTupleDomain, enforcedTupleDomain, hiveBucketHandle);
+        return new HivePartitionResult(partitionColumns, partitions, loadPartitions, remainingTupleDomain, enforcedTupleDomain, hiveBucketHandle);
+    }
+
+    private PrestoException exceededPartitionLimit(HiveTableHandle hiveTableHandle)
+    {
+        return new PrestoException(HIVE_EXCEEDED_PARTITION_LIMIT, format(
+                "Query over table '%s' can potentially read more than %s partitions",
+                hiveTableHandle.getSchemaTableName(),
+                maxPartitions));
     }
 
     private static TupleDomain<HiveColumnHandle> toCompactTupleDomain(TupleDomain<ColumnHandle> effectivePredicate, int threshold)
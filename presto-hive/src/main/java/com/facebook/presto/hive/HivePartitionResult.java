@@ -28,24 +28,30 @@ import static java.util.Objects.requireNonNull;
  * 1) The actual partitions
  * 2) The TupleDomain that represents the values that the connector was not able to pre-evaluate
  * when generating the partitions and will need to be double-checked by the final execution plan.
+ *
+ * The partitions of tables with many matching partitions are not loaded, and are instead
+ * enumerated from the partition names every time they are iterated.
  */
 public class HivePartitionResult
 {
     private final List<HiveColumnHandle> partitionColumns;
-    private final List<HivePartition> partitions;
+    private final Iterable<HivePartition> partitions;
+    private final boolean partitionsLoaded;
     private final TupleDomain<ColumnHandle> unenforcedConstraint;
     private final TupleDomain<ColumnHandle> enforcedConstraint;
     private final Optional<HiveBucketHandle> bucketHandle;
 
     public HivePartitionResult(
             List<HiveColumnHandle> partitionColumns,
-            List<HivePartition> partitions,
+            Iterable<HivePartition> partitions,
+            boolean partitionsLoaded,
             TupleDomain<ColumnHandle> unenforcedConstraint,
             TupleDomain<ColumnHandle> enforcedConstraint,
             Optional<HiveBucketHandle> bucketHandle)
     {
         this.partitionColumns = requireNonNull(partitionColumns, "partitionColumns is null");
         this.partitions = requireNonNull(partitions, "partitions is null");
+        this.partitionsLoaded = partitionsLoaded;
         this.unenforcedConstraint = requireNonNull(unenforcedConstraint, "unenforcedConstraint is null");
         this.enforcedConstraint = requireNonNull(enforcedConstraint, "enforcedConstraint is null");
         this.bucketHandle = requireNonNull(bucketHandle, "bucketHandle is null");
@@ -56,11 +62,19 @@ public class HivePartitionResult
         return partitionColumns;
     }
 
-    public List<HivePartition> getPartitions()
+    public Iterable<HivePartition> getPartitions()
     {
         return partitions;
     }
 
+    /**
+     * Returns true if the partitions are held in memory, and false if they are enumerated lazily.
+     */
+    public boolean isPartitionsLoaded()
+    {
+        return partitionsLoaded;
+    }
+
     public TupleDomain<ColumnHandle> getUnenforcedConstraint()
     {
         return unenforcedConstraint;
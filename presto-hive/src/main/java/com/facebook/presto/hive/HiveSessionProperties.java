@@ -32,8 +32,11 @@ public final class HiveSessionProperties
     private static final String ORC_MAX_MERGE_DISTANCE = "orc_max_merge_distance";
     private static final String ORC_MAX_BUFFER_SIZE = "orc_max_buffer_size";
     private static final String ORC_STREAM_BUFFER_SIZE = "orc_stream_buffer_size";
+    private static final String ORC_STRIPE_PREFETCH_ENABLED = "orc_stripe_prefetch_enabled";
+    private static final String ORC_OPTIMIZED_WRITER_ENABLED = "orc_optimized_writer_enabled";
     private static final String PARQUET_PREDICATE_PUSHDOWN_ENABLED = "parquet_predicate_pushdown_enabled";
     private static final String PARQUET_OPTIMIZED_READER_ENABLED = "parquet_optimized_reader_enabled";
+    private static final String PARQUET_OPTIMIZED_WRITER_ENABLED = "parquet_optimized_writer_enabled";
     private static final String MAX_SPLIT_SIZE = "max_split_size";
     private static final String MAX_INITIAL_SPLIT_SIZE = "max_initial_split_size";
     private static final String RCFILE_OPTIMIZED_READER_ENABLED = "rcfile_optimized_reader_enabled";
@@ -69,11 +72,26 @@ public final class HiveSessionProperties
                         "ORC: Size of buffer for streaming reads",
                         config.getOrcStreamBufferSize(),
                         false),
+                booleanSessionProperty(
+                        ORC_STRIPE_PREFETCH_ENABLED,
+                        "ORC: Read the next stripe in the background while the current stripe is processed",
+                        config.isOrcStripePrefetchEnabled(),
+                        false),
+                booleanSessionProperty(
+                        ORC_OPTIMIZED_WRITER_ENABLED,
+                        "Experimental: ORC: Enable optimized writer",
+                        config.isOrcOptimizedWriterEnabled(),
+                        false),
                 booleanSessionProperty(
                         PARQUET_OPTIMIZED_READER_ENABLED,
                         "Experimental: Parquet: Enable optimized reader",
                         config.isParquetOptimizedReaderEnabled(),
                         false),
+                booleanSessionProperty(
+                        PARQUET_OPTIMIZED_WRITER_ENABLED,
+                        "Experimental: Parquet: Enable optimized writer",
+                        config.isParquetOptimizedWriterEnabled(),
+                        false),
                 booleanSessionProperty(
                         PARQUET_PREDICATE_PUSHDOWN_ENABLED,
                         "Experimental: Parquet: Enable predicate pushdown for Parquet",
@@ -111,6 +129,11 @@ public final class HiveSessionProperties
         return session.getProperty(PARQUET_OPTIMIZED_READER_ENABLED, Boolean.class);
     }
 
+    public static boolean isParquetOptimizedWriterEnabled(ConnectorSession session)
+    {
+        return session.getProperty(PARQUET_OPTIMIZED_WRITER_ENABLED, Boolean.class);
+    }
+
     public static boolean isOrcBloomFiltersEnabled(ConnectorSession session)
     {
         return session.getProperty(ORC_BLOOM_FILTERS_ENABLED, Boolean.class);
@@ -131,6 +154,16 @@ public final class HiveSessionProperties
         return session.getProperty(ORC_STREAM_BUFFER_SIZE, DataSize.class);
     }
 
+    public static boolean isOrcStripePrefetchEnabled(ConnectorSession session)
+    {
+        return session.getProperty(ORC_STRIPE_PREFETCH_ENABLED, Boolean.class);
+    }
+
+    public static boolean isOrcOptimizedWriterEnabled(ConnectorSession session)
+    {
+        return session.getProperty(ORC_OPTIMIZED_WRITER_ENABLED, Boolean.class);
+    }
+
     public static boolean isParquetPredicatePushdownEnabled(ConnectorSession session)
     {
         return session.getProperty(PARQUET_PREDICATE_PUSHDOWN_ENABLED, Boolean.class);
@@ -46,6 +46,7 @@ public class HiveSplit
     private final TupleDomain<HiveColumnHandle> effectivePredicate;
     private final OptionalInt bucketNumber;
     private final boolean forceLocalScheduling;
+    private final boolean softAffinity;
     private final Map<Integer, HiveType> columnCoercions;
 
     @JsonCreator
@@ -62,6 +63,7 @@ public class HiveSplit
             @JsonProperty("addresses") List<HostAddress> addresses,
             @JsonProperty("bucketNumber") OptionalInt bucketNumber,
             @JsonProperty("forceLocalScheduling") boolean forceLocalScheduling,
+            @JsonProperty("softAffinity") boolean softAffinity,
             @JsonProperty("effectivePredicate") TupleDomain<HiveColumnHandle> effectivePredicate,
             @JsonProperty("columnCoercions") Map<Integer, HiveType> columnCoercions)
     {
@@ -78,6 +80,7 @@ public class HiveSplit
         requireNonNull(bucketNumber, "bucketNumber is null");
         requireNonNull(effectivePredicate, "tupleDomain is null");
         requireNonNull(columnCoercions, "columnCoercions is null");
+        checkArgument(!(forceLocalScheduling && softAffinity), "split can not have both forced local scheduling and soft affinity");
 
         this.clientId = clientId;
         this.database = database;
@@ -91,6 +94,7 @@ public class HiveSplit
         this.addresses = ImmutableList.copyOf(addresses);
         this.bucketNumber = bucketNumber;
         this.forceLocalScheduling = forceLocalScheduling;
+        this.softAffinity = softAffinity;
         this.effectivePredicate = effectivePredicate;
         this.columnCoercions = columnCoercions;
     }
@@ -174,6 +178,13 @@ public class HiveSplit
         return forceLocalScheduling;
     }
 
+    @JsonProperty
+    @Override
+    public boolean isSoftAffinity()
+    {
+        return softAffinity;
+    }
+
     @JsonProperty
     public Map<Integer, HiveType> getColumnCoercions()
     {
@@ -197,6 +208,7 @@ public class HiveSplit
                 .put("database", database)
                 .put("table", table)
                 .put("forceLocalScheduling", forceLocalScheduling)
+                .put("softAffinity", softAffinity)
                 .put("partitionName", partitionName)
                 .build();
     }
@@ -21,6 +21,9 @@ import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ConnectorSplitSource;
 import com.facebook.presto.spi.ConnectorTableLayoutHandle;
 import com.facebook.presto.spi.FixedSplitSource;
+import com.facebook.presto.spi.HostAddress;
+import com.facebook.presto.spi.Node;
+import com.facebook.presto.spi.NodeManager;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.TableNotFoundException;
@@ -30,9 +33,9 @@ import com.google.common.base.Verify;
 import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Ordering;
+import com.google.common.collect.PeekingIterator;
 import io.airlift.concurrent.BoundedExecutor;
 import org.apache.hadoop.hive.metastore.ProtectMode;
 
@@ -46,6 +49,7 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_INVALID_METADATA;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_METASTORE_ERROR;
@@ -59,8 +63,9 @@ import static com.facebook.presto.spi.StandardErrorCode.SERVER_SHUTTING_DOWN;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Strings.isNullOrEmpty;
 import static com.google.common.collect.Iterables.concat;
-import static com.google.common.collect.Iterables.getOnlyElement;
 import static com.google.common.collect.Iterables.transform;
+import static com.google.common.collect.Iterators.getOnlyElement;
+import static com.google.common.collect.Iterators.peekingIterator;
 import static java.lang.Math.min;
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
@@ -82,7 +87,9 @@ public class HiveSplitManager
     private final int minPartitionBatchSize;
     private final int maxPartitionBatchSize;
     private final int maxInitialSplits;
+    private final int maxConcurrentDirectoryListings;
     private final boolean recursiveDfsWalkerEnabled;
+    private final Optional<NodeManager> softAffinityNodeManager;
 
     @Inject
     public HiveSplitManager(
@@ -93,7 +100,8 @@ public class HiveSplitManager
             HdfsEnvironment hdfsEnvironment,
             DirectoryLister directoryLister,
             @ForHiveClient ExecutorService executorService,
-            CoercionPolicy coercionPolicy)
+            CoercionPolicy coercionPolicy,
+            NodeManager nodeManager)
     {
         this(connectorId,
                 metastoreProvider,
@@ -106,8 +114,9 @@ public class HiveSplitManager
                 hiveClientConfig.getMinPartitionBatchSize(),
                 hiveClientConfig.getMaxPartitionBatchSize(),
                 hiveClientConfig.getMaxInitialSplits(),
-                hiveClientConfig.getRecursiveDirWalkerEnabled()
-        );
+                hiveClientConfig.getMaxConcurrentDirectoryListings(),
+                hiveClientConfig.getRecursiveDirWalkerEnabled(),
+                hiveClientConfig.isSoftAffinitySchedulingEnabled() ? Optional.of(nodeManager) : Optional.empty());
     }
 
     public HiveSplitManager(
@@ -122,7 +131,9 @@ public class HiveSplitManager
             int minPartitionBatchSize,
             int maxPartitionBatchSize,
             int maxInitialSplits,
-            boolean recursiveDfsWalkerEnabled)
+            int maxConcurrentDirectoryListings,
+            boolean recursiveDfsWalkerEnabled,
+            Optional<NodeManager> softAffinityNodeManager)
     {
         this.connectorId = requireNonNull(connectorId, "connectorId is null").toString();
         this.metastoreProvider = requireNonNull(metastoreProvider, "metastore is null");
@@ -136,7 +147,10 @@ public class HiveSplitManager
         this.minPartitionBatchSize = minPartitionBatchSize;
         this.maxPartitionBatchSize = maxPartitionBatchSize;
         this.maxInitialSplits = maxInitialSplits;
+        checkArgument(maxConcurrentDirectoryListings >= 1, "maxConcurrentDirectoryListings must be at least 1");
+        this.maxConcurrentDirectoryListings = maxConcurrentDirectoryListings;
         this.recursiveDfsWalkerEnabled = recursiveDfsWalkerEnabled;
+        this.softAffinityNodeManager = requireNonNull(softAffinityNodeManager, "softAffinityNodeManager is null");
     }
 
     @Override
@@ -144,19 +158,25 @@ public class HiveSplitManager
     {
         HiveTableLayoutHandle layout = checkType(layoutHandle, HiveTableLayoutHandle.class, "layoutHandle");
 
-        List<HivePartition> partitions = Lists.transform(layout.getPartitions().get(), partition -> checkType(partition, HivePartition.class, "partition"));
+        // partitions of tables with many partitions are enumerated while the splits are loaded, so they are
+        // only iterated once here, and lazily enumerated partitions are already sorted
+        Iterator<HivePartition> partitionIterator;
+        if (layout.getPartitions().isPresent()) {
+            partitionIterator = Ordering.natural().onResultOf(HivePartition::getPartitionId).reverse().sortedCopy(layout.getPartitions().get()).iterator();
+        }
+        else {
+            partitionIterator = layout.getPartitionIterable().get().iterator();
+        }
+        PeekingIterator<HivePartition> partitions = peekingIterator(partitionIterator);
 
-        HivePartition partition = Iterables.getFirst(partitions, null);
-        if (partition == null) {
+        if (!partitions.hasNext()) {
             return new FixedSplitSource(ImmutableList.of());
         }
+        HivePartition partition = partitions.peek();
         SchemaTableName tableName = partition.getTableName();
         List<HiveBucketing.HiveBucket> buckets = partition.getBuckets();
         Optional<HiveBucketHandle> bucketHandle = layout.getBucketHandle();
 
-        // sort partitions
-        partitions = Ordering.natural().onResultOf(HivePartition::getPartitionId).reverse().sortedCopy(partitions);
-
         SemiTransactionalHiveMetastore metastore = metastoreProvider.apply(checkType(transaction, HiveTransactionHandle.class, "transaction"));
         Optional<Table> table = metastore.getTable(tableName.getSchemaName(), tableName.getTableName());
         if (!table.isPresent()) {
@@ -177,7 +197,9 @@ public class HiveSplitManager
                 executor,
                 maxPartitionBatchSize,
                 maxInitialSplits,
-                recursiveDfsWalkerEnabled);
+                maxConcurrentDirectoryListings,
+                recursiveDfsWalkerEnabled,
+                getSoftAffinityNodes());
 
         HiveSplitSource splitSource = new HiveSplitSource(maxOutstandingSplits, hiveSplitLoader, executor);
         hiveSplitLoader.start(splitSource);
@@ -185,17 +207,25 @@ public class HiveSplitManager
         return splitSource;
     }
 
-    private Iterable<HivePartitionMetadata> getPartitionMetadata(SemiTransactionalHiveMetastore metastore, Table table, SchemaTableName tableName, List<HivePartition> hivePartitions, Optional<HiveBucketProperty> bucketProperty)
+    private List<HostAddress> getSoftAffinityNodes()
+    {
+        if (!softAffinityNodeManager.isPresent()) {
+            return ImmutableList.of();
+        }
+        return softAffinityNodeManager.get().getWorkerNodes().stream()
+                .map(Node::getHostAndPort)
+                .collect(Collectors.toList());
+    }
+
+    private Iterable<HivePartitionMetadata> getPartitionMetadata(SemiTransactionalHiveMetastore metastore, Table table, SchemaTableName tableName, PeekingIterator<HivePartition> hivePartitions, Optional<HiveBucketProperty> bucketProperty)
     {
-        if (hivePartitions.isEmpty()) {
+        if (!hivePartitions.hasNext()) {
             return ImmutableList.of();
         }
 
-        if (hivePartitions.size() == 1) {
-            HivePartition firstPartition = getOnlyElement(hivePartitions);
-            if (firstPartition.getPartitionId().equals(UNPARTITIONED_ID)) {
-                return ImmutableList.of(new HivePartitionMetadata(firstPartition, Optional.empty(), ImmutableMap.of()));
-            }
+        // an unpartitioned table has a single partition
+        if (hivePartitions.peek().getPartitionId().equals(UNPARTITIONED_ID)) {
+            return ImmutableList.of(new HivePartitionMetadata(getOnlyElement(hivePartitions), Optional.empty(), ImmutableMap.of()));
         }
 
         Iterable<List<HivePartition>> partitionNameBatches = partitionExponentially(hivePartitions, minPartitionBatchSize, maxPartitionBatchSize);
@@ -286,14 +316,15 @@ public class HiveSplitManager
     }
 
     /**
-     * Partition the given list in exponentially (power of 2) increasing batch sizes starting at 1 up to maxBatchSize
+     * Partition the given values in exponentially (power of 2) increasing batch sizes starting at 1 up to maxBatchSize.
+     * The values are only consumed as the batches are consumed, so the returned iterable can only be iterated once.
      */
-    private static <T> Iterable<List<T>> partitionExponentially(List<T> values, int minBatchSize, int maxBatchSize)
+    private static <T> Iterable<List<T>> partitionExponentially(Iterator<T> values, int minBatchSize, int maxBatchSize)
     {
         return () -> new AbstractIterator<List<T>>()
         {
             private int currentSize = minBatchSize;
-            private final Iterator<T> iterator = values.iterator();
+            private final Iterator<T> iterator = values;
 
             @Override
             protected List<T> computeNext()
@@ -33,6 +33,7 @@ public final class HiveTableLayoutHandle
     private final String clientId;
     private final List<ColumnHandle> partitionColumns;
     private final List<HivePartition> partitions;
+    private final Iterable<HivePartition> lazyPartitions;
     private final TupleDomain<ColumnHandle> promisedPredicate;
     private final Optional<HiveBucketHandle> bucketHandle;
 
@@ -46,6 +47,7 @@ public final class HiveTableLayoutHandle
         this.clientId = requireNonNull(clientId, "clientId is null");
         this.partitionColumns = ImmutableList.copyOf(requireNonNull(partitionColumns, "partitionColumns is null"));
         this.partitions = null;
+        this.lazyPartitions = null;
         this.promisedPredicate = requireNonNull(promisedPredicate, "promisedPredicate is null");
         this.bucketHandle = requireNonNull(bucketHandle, "bucketHandle is null");
     }
@@ -60,6 +62,27 @@ public final class HiveTableLayoutHandle
         this.clientId = requireNonNull(clientId, "clientId is null");
         this.partitionColumns = ImmutableList.copyOf(requireNonNull(partitionColumns, "partitionColumns is null"));
         this.partitions = requireNonNull(partitions, "partitions is null");
+        this.lazyPartitions = null;
+        this.promisedPredicate = requireNonNull(promisedPredicate, "promisedPredicate is null");
+        this.bucketHandle = requireNonNull(bucketHandle, "bucketHandle is null");
+    }
+
+    /**
+     * Creates a layout of a table with too many partitions to hold in memory. The partitions
+     * are enumerated every time the iterable is iterated, and like dropped partitions they are
+     * not part of the equality of the handle.
+     */
+    public HiveTableLayoutHandle(
+            String clientId,
+            List<ColumnHandle> partitionColumns,
+            Iterable<HivePartition> lazyPartitions,
+            TupleDomain<ColumnHandle> promisedPredicate,
+            Optional<HiveBucketHandle> bucketHandle)
+    {
+        this.clientId = requireNonNull(clientId, "clientId is null");
+        this.partitionColumns = ImmutableList.copyOf(requireNonNull(partitionColumns, "partitionColumns is null"));
+        this.partitions = null;
+        this.lazyPartitions = requireNonNull(lazyPartitions, "lazyPartitions is null");
         this.promisedPredicate = requireNonNull(promisedPredicate, "promisedPredicate is null");
         this.bucketHandle = requireNonNull(bucketHandle, "bucketHandle is null");
     }
@@ -79,7 +102,7 @@ public final class HiveTableLayoutHandle
     /**
      * Partitions are dropped when HiveTableLayoutHandle is serialized.
      *
-     * @return list of partitions if avaiable, Optional.empty() if dropped
+     * @return list of partitions if avaiable, Optional.empty() if dropped or enumerated lazily
      */
     @JsonIgnore
     public Optional<List<HivePartition>> getPartitions()
@@ -87,6 +110,20 @@ public final class HiveTableLayoutHandle
         return Optional.ofNullable(partitions);
     }
 
+    /**
+     * Partitions of the layout, either loaded or enumerated lazily.
+     *
+     * @return partitions if available, Optional.empty() if dropped
+     */
+    @JsonIgnore
+    public Optional<Iterable<HivePartition>> getPartitionIterable()
+    {
+        if (partitions != null) {
+            return Optional.of(partitions);
+        }
+        return Optional.ofNullable(lazyPartitions);
+    }
+
     @JsonProperty
     public TupleDomain<ColumnHandle> getPromisedPredicate()
     {
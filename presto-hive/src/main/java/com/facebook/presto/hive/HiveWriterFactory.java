@@ -18,6 +18,9 @@ import com.facebook.presto.hive.metastore.HivePageSinkMetadataProvider;
 import com.facebook.presto.hive.metastore.Partition;
 import com.facebook.presto.hive.metastore.StorageFormat;
 import com.facebook.presto.hive.metastore.Table;
+import com.facebook.presto.hive.orc.OrcFileWriter;
+import com.facebook.presto.hive.parquet.ParquetFileWriter;
+import com.facebook.presto.orc.metadata.CompressionKind;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PrestoException;
@@ -27,15 +30,24 @@ import com.google.common.base.Splitter;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Sets;
+import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hive.common.FileUtils;
 import org.apache.hadoop.hive.conf.HiveConf;
 import org.apache.hadoop.hive.ql.io.HiveIgnoreKeyTextOutputFormat;
+import org.apache.hadoop.hive.ql.io.orc.OrcFile.OrcTableProperties;
+import org.apache.hadoop.hive.ql.io.orc.OrcOutputFormat;
+import org.apache.hadoop.hive.ql.io.parquet.MapredParquetOutputFormat;
 import org.apache.hadoop.io.compress.CompressionCodec;
 import org.apache.hadoop.io.compress.DefaultCodec;
 import org.apache.hadoop.mapred.JobConf;
 import org.apache.hive.common.util.ReflectionUtil;
+import org.joda.time.DateTimeZone;
+import parquet.hadoop.ParquetOutputFormat;
+import parquet.hadoop.metadata.CompressionCodecName;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -43,13 +55,17 @@ import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_INVALID_METADATA;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_PARTITION_READ_ONLY;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_PARTITION_SCHEMA_MISMATCH;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_PATH_ALREADY_EXISTS;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_UNSUPPORTED_FORMAT;
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_WRITER_OPEN_ERROR;
 import static com.facebook.presto.hive.HivePartitionKey.HIVE_DEFAULT_DYNAMIC_PARTITION;
+import static com.facebook.presto.hive.HiveSessionProperties.isOrcOptimizedWriterEnabled;
+import static com.facebook.presto.hive.HiveSessionProperties.isParquetOptimizedWriterEnabled;
 import static com.facebook.presto.hive.HiveType.toHiveTypes;
 import static com.facebook.presto.hive.HiveWriteUtils.getField;
 import static com.facebook.presto.hive.metastore.MetastoreUtil.getHiveSchema;
@@ -58,6 +74,7 @@ import static com.facebook.presto.spi.StandardErrorCode.NOT_FOUND;
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.lang.Math.min;
 import static java.lang.String.format;
+import static java.util.Locale.ENGLISH;
 import static java.util.Objects.requireNonNull;
 import static java.util.UUID.randomUUID;
 import static java.util.function.Function.identity;
@@ -67,6 +84,7 @@ import static java.util.stream.Collectors.toMap;
 import static org.apache.hadoop.hive.conf.HiveConf.ConfVars.COMPRESSRESULT;
 import static org.apache.hadoop.hive.metastore.api.hive_metastoreConstants.META_TABLE_COLUMNS;
 import static org.apache.hadoop.hive.metastore.api.hive_metastoreConstants.META_TABLE_COLUMN_TYPES;
+import static parquet.hadoop.metadata.CompressionCodecName.UNCOMPRESSED;
 
 public class HiveWriterFactory
 {
@@ -98,6 +116,8 @@ public class HiveWriterFactory
     private final ConnectorSession session;
     private final OptionalInt bucketCount;
 
+    private final DateTimeZone hiveStorageTimeZone;
+
     public HiveWriterFactory(
             String schemaName,
             String tableName,
@@ -113,7 +133,8 @@ public class HiveWriterFactory
             TypeManager typeManager,
             HdfsEnvironment hdfsEnvironment,
             boolean immutablePartitions,
-            ConnectorSession session)
+            ConnectorSession session,
+            DateTimeZone hiveStorageTimeZone)
     {
         this.schemaName = requireNonNull(schemaName, "schemaName is null");
         this.tableName = requireNonNull(tableName, "tableName is null");
@@ -172,6 +193,7 @@ public class HiveWriterFactory
         }
 
         this.session = requireNonNull(session, "session is null");
+        this.hiveStorageTimeZone = requireNonNull(hiveStorageTimeZone, "hiveStorageTimeZone is null");
     }
 
     public HiveWriter createWriter(Page partitionColumns, int position, OptionalInt bucketNumber)
@@ -314,16 +336,151 @@ public class HiveWriterFactory
         validateSchema(partitionName, schema);
 
         String fileNameWithExtension = fileName + getFileExtension(conf, outputStorageFormat);
-        HiveRecordWriter hiveRecordWriter = new HiveRecordWriter(
-                new Path(write, fileNameWithExtension),
-                dataColumns.stream()
-                        .map(DataColumn::getName)
-                        .collect(toList()),
-                outputStorageFormat,
-                schema,
-                typeManager,
-                conf);
-        return new HiveWriter(hiveRecordWriter, partitionName, isNew, fileNameWithExtension, write.toString(), target.toString());
+        Path path = new Path(write, fileNameWithExtension);
+
+        HiveFileWriter fileWriter;
+        Optional<CompressionKind> orcCompression = getOrcCompression(schema);
+        Optional<CompressionCodecName> parquetCompression = getParquetCompression(schema);
+        if (isOrcOptimizedWriterEnabled(session) && OrcOutputFormat.class.getName().equals(outputStorageFormat.getOutputFormat()) && orcCompression.isPresent()) {
+            fileWriter = createOrcFileWriter(path, schema, orcCompression.get());
+        }
+        else if (isParquetOptimizedWriterEnabled(session) && MapredParquetOutputFormat.class.getName().equals(outputStorageFormat.getOutputFormat()) && parquetCompression.isPresent()) {
+            fileWriter = createParquetFileWriter(path, schema, parquetCompression.get());
+        }
+        else {
+            fileWriter = new HiveRecordWriter(
+                    path,
+                    dataColumns.stream()
+                            .map(DataColumn::getName)
+                            .collect(toList()),
+                    outputStorageFormat,
+                    schema,
+                    typeManager,
+                    conf);
+        }
+        return new HiveWriter(fileWriter, partitionName, isNew, fileNameWithExtension, write.toString(), target.toString());
+    }
+
+    private HiveFileWriter createOrcFileWriter(Path path, Properties schema, CompressionKind compression)
+    {
+        // existing tables may have columns in a different order
+        List<String> fileColumnNames = getFileColumnNames(schema);
+        List<Type> fileColumnTypes = getFileColumnTypes(getFileColumnHiveTypes(schema));
+        int[] fileInputColumnIndexes = getFileInputColumnIndexes(fileColumnNames);
+
+        try {
+            FileSystem fileSystem = hdfsEnvironment.getFileSystem(session.getUser(), path, conf);
+            OutputStream outputStream = fileSystem.create(path);
+            Callable<Void> rollbackAction = () -> {
+                fileSystem.delete(path, false);
+                return null;
+            };
+            return new OrcFileWriter(
+                    outputStream,
+                    rollbackAction,
+                    fileColumnNames,
+                    fileColumnTypes,
+                    fileInputColumnIndexes,
+                    compression,
+                    hiveStorageTimeZone);
+        }
+        catch (IOException e) {
+            throw new PrestoException(HIVE_WRITER_OPEN_ERROR, "Error creating ORC file", e);
+        }
+    }
+
+    private HiveFileWriter createParquetFileWriter(Path path, Properties schema, CompressionCodecName compression)
+    {
+        // existing tables may have columns in a different order
+        List<String> fileColumnNames = getFileColumnNames(schema);
+        List<HiveType> fileColumnHiveTypes = getFileColumnHiveTypes(schema);
+        List<Type> fileColumnTypes = getFileColumnTypes(fileColumnHiveTypes);
+        int[] fileInputColumnIndexes = getFileInputColumnIndexes(fileColumnNames);
+
+        try {
+            FileSystem fileSystem = hdfsEnvironment.getFileSystem(session.getUser(), path, conf);
+            Callable<Void> rollbackAction = () -> {
+                fileSystem.delete(path, false);
+                return null;
+            };
+            return new ParquetFileWriter(
+                    conf,
+                    path,
+                    rollbackAction,
+                    fileColumnNames,
+                    fileColumnHiveTypes,
+                    fileColumnTypes,
+                    fileInputColumnIndexes,
+                    compression);
+        }
+        catch (IOException e) {
+            throw new PrestoException(HIVE_WRITER_OPEN_ERROR, "Error creating Parquet file", e);
+        }
+    }
+
+    private static List<String> getFileColumnNames(Properties schema)
+    {
+        return Splitter.on(',').trimResults().omitEmptyStrings().splitToList(schema.getProperty(META_TABLE_COLUMNS, ""));
+    }
+
+    private static List<HiveType> getFileColumnHiveTypes(Properties schema)
+    {
+        return toHiveTypes(schema.getProperty(META_TABLE_COLUMN_TYPES, ""));
+    }
+
+    private List<Type> getFileColumnTypes(List<HiveType> fileColumnHiveTypes)
+    {
+        return fileColumnHiveTypes.stream()
+                .map(hiveType -> hiveType.getType(typeManager))
+                .collect(toList());
+    }
+
+    private int[] getFileInputColumnIndexes(List<String> fileColumnNames)
+    {
+        List<String> inputColumnNames = dataColumns.stream()
+                .map(DataColumn::getName)
+                .collect(toList());
+        return fileColumnNames.stream()
+                .mapToInt(inputColumnNames::indexOf)
+                .toArray();
+    }
+
+    private Optional<CompressionKind> getOrcCompression(Properties schema)
+    {
+        String propertyName = OrcTableProperties.COMPRESSION.getPropName();
+        String compression = schema.getProperty(propertyName, conf.get(propertyName, "ZLIB"));
+        switch (compression.toUpperCase(ENGLISH)) {
+            case "NONE":
+                return Optional.of(CompressionKind.UNCOMPRESSED);
+            case "ZLIB":
+                return Optional.of(CompressionKind.ZLIB);
+            case "SNAPPY":
+                return Optional.of(CompressionKind.SNAPPY);
+            default:
+                // other codecs are only supported by the Hive writer
+                return Optional.empty();
+        }
+    }
+
+    private Optional<CompressionCodecName> getParquetCompression(Properties schema)
+    {
+        String compression = schema.getProperty(ParquetOutputFormat.COMPRESSION, conf.get(ParquetOutputFormat.COMPRESSION, UNCOMPRESSED.name()));
+        CompressionCodecName codec;
+        try {
+            codec = CompressionCodecName.valueOf(compression.toUpperCase(ENGLISH));
+        }
+        catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        switch (codec) {
+            case UNCOMPRESSED:
+            case SNAPPY:
+            case GZIP:
+                return Optional.of(codec);
+            default:
+                // other codecs are only supported by the Hive writer
+                return Optional.empty();
+        }
     }
 
     private void validateSchema(Optional<String> partitionName, Properties schema)
@@ -0,0 +1,513 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import io.airlift.log.Logger;
+import io.airlift.units.DataSize;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSInputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.weakref.jmx.Managed;
+
+import javax.inject.Inject;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Read-through cache of remote file data on the local disk of a node. Files are
+ * cached in fixed size chunks aligned to multiples of the chunk size, each stored
+ * in its own local file and read with positional reads. Chunks are keyed by the path,
+ * length and modification time of the remote file, so a rewritten file is never
+ * served stale data, and the least recently used chunks are removed once the total
+ * size of the cached chunks exceeds the maximum size.
+ * <p>
+ * Files with an unknown modification time are not cached, and a chunk which can
+ * not be written to or read from the local disk is read from the remote file.
+ */
+public class LocalDataCache
+{
+    private static final Logger log = Logger.get(LocalDataCache.class);
+
+    private final Optional<Path> directory;
+    private final int chunkSize;
+    private final Cache<ChunkKey, CachedChunk> cache;
+
+    private final AtomicLong cachedBytes = new AtomicLong();
+    private final AtomicLong localReadBytes = new AtomicLong();
+    private final AtomicLong remoteReadBytes = new AtomicLong();
+    private final AtomicLong writeFailures = new AtomicLong();
+
+    @Inject
+    public LocalDataCache(HiveConnectorId connectorId, HiveClientConfig config)
+    {
+        this(
+                requireNonNull(config, "config is null").isLocalDataCacheEnabled() ?
+                        Optional.of(new File(config.getLocalDataCacheDirectory(), requireNonNull(connectorId, "connectorId is null").toString()).toPath()) :
+                        Optional.empty(),
+                config.getLocalDataCacheMaxSize(),
+                config.getLocalDataCacheChunkSize());
+    }
+
+    public LocalDataCache(Optional<Path> directory, DataSize maxSize, DataSize chunkSize)
+    {
+        this.directory = requireNonNull(directory, "directory is null");
+        requireNonNull(maxSize, "maxSize is null");
+        requireNonNull(chunkSize, "chunkSize is null");
+        checkArgument(chunkSize.toBytes() > 0 && chunkSize.toBytes() <= Integer.MAX_VALUE, "invalid chunkSize: %s", chunkSize);
+        this.chunkSize = toIntExact(chunkSize.toBytes());
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((ChunkKey key, CachedChunk chunk) -> chunk.getLength())
+                .removalListener((RemovalNotification<ChunkKey, CachedChunk> notification) -> removeChunk(notification.getValue()))
+                .recordStats()
+                .build();
+
+        if (directory.isPresent()) {
+            initializeDirectory(directory.get());
+        }
+    }
+
+    public static LocalDataCache noLocalDataCache()
+    {
+        return new LocalDataCache(Optional.empty(), new DataSize(0, BYTE), new DataSize(1, BYTE));
+    }
+
+    /**
+     * Returns a stream whose positioned reads of the file are served from the local cache.
+     */
+    public FSDataInputStream wrap(FileStatus fileStatus, FSDataInputStream inputStream)
+    {
+        requireNonNull(fileStatus, "fileStatus is null");
+        requireNonNull(inputStream, "inputStream is null");
+        if (!directory.isPresent() || fileStatus.getModificationTime() == 0) {
+            return inputStream;
+        }
+        return new FSDataInputStream(new CachingInputStream(this, new FileKey(fileStatus), inputStream));
+    }
+
+    private void readFully(FileKey file, FSDataInputStream inputStream, long position, byte[] buffer, int offset, int length)
+            throws IOException
+    {
+        long end = position + length;
+        if (position < 0 || end > file.getLength()) {
+            throw new EOFException("Read of " + length + " bytes at position " + position + " is outside of " + file);
+        }
+
+        while (position < end) {
+            long chunkIndex = position / chunkSize;
+            long chunkStart = chunkIndex * chunkSize;
+            int chunkOffset = toIntExact(position - chunkStart);
+
+            ChunkKey key = new ChunkKey(file, chunkIndex);
+            CachedChunk chunk = cache.getIfPresent(key);
+            if (chunk != null) {
+                int readLength = toIntExact(min(end - position, chunk.getLength() - chunkOffset));
+                if (readCachedChunk(key, chunk, chunkOffset, buffer, offset, readLength)) {
+                    position += readLength;
+                    offset += readLength;
+                    continue;
+                }
+            }
+
+            // load this chunk and the missing chunks following it with a single remote read
+            long lastChunkIndex = chunkIndex;
+            long lastChunkIndexInRead = (end - 1) / chunkSize;
+            while (lastChunkIndex < lastChunkIndexInRead && !cache.asMap().containsKey(new ChunkKey(file, lastChunkIndex + 1))) {
+                lastChunkIndex++;
+            }
+            long loadEnd = min(file.getLength(), (lastChunkIndex + 1) * chunkSize);
+            byte[] data = new byte[toIntExact(loadEnd - chunkStart)];
+            inputStream.readFully(chunkStart, data, 0, data.length);
+            remoteReadBytes.addAndGet(data.length);
+
+            for (int dataOffset = 0; dataOffset < data.length; dataOffset += chunkSize) {
+                storeChunk(new ChunkKey(file, chunkIndex + dataOffset / chunkSize), data, dataOffset, min(chunkSize, data.length - dataOffset));
+            }
+
+            int readLength = toIntExact(min(end, loadEnd) - position);
+            System.arraycopy(data, chunkOffset, buffer, offset, readLength);
+            position += readLength;
+            offset += readLength;
+        }
+    }
+
+    private boolean readCachedChunk(ChunkKey key, CachedChunk chunk, int chunkOffset, byte[] buffer, int offset, int length)
+    {
+        try (FileChannel channel = FileChannel.open(chunk.getFile(), READ)) {
+            if (channel.size() != chunk.getLength()) {
+                log.warn("Removing corrupt chunk %s from the local data cache: expected %s bytes, but found %s bytes", chunk.getFile(), chunk.getLength(), channel.size());
+                cache.asMap().remove(key, chunk);
+                return false;
+            }
+            // read straight into the caller's buffer
+            ByteBuffer target = ByteBuffer.wrap(buffer, offset, length);
+            while (target.hasRemaining()) {
+                if (channel.read(target, chunkOffset + target.position() - offset) < 0) {
+                    throw new EOFException("Unexpected end of chunk " + chunk.getFile());
+                }
+            }
+            localReadBytes.addAndGet(length);
+            return true;
+        }
+        catch (IOException e) {
+            // the chunk was evicted by a concurrent read, or removed from the local disk
+            cache.asMap().remove(key, chunk);
+            return false;
+        }
+    }
+
+    private void storeChunk(ChunkKey key, byte[] data, int offset, int length)
+    {
+        Path file = directory.get().resolve(UUID.randomUUID().toString());
+        try {
+            try (OutputStream outputStream = Files.newOutputStream(file, CREATE_NEW, WRITE)) {
+                outputStream.write(data, offset, length);
+            }
+            cachedBytes.addAndGet(length);
+            cache.put(key, new CachedChunk(file, length));
+        }
+        catch (IOException e) {
+            writeFailures.incrementAndGet();
+            log.debug(e, "Failed to write chunk %s to the local data cache", key);
+            deleteQuietly(file);
+        }
+    }
+
+    private void removeChunk(CachedChunk chunk)
+    {
+        cachedBytes.addAndGet(-chunk.getLength());
+        deleteQuietly(chunk.getFile());
+    }
+
+    private static void initializeDirectory(Path directory)
+    {
+        // chunks left behind by a previous process are not indexed, so they can not be used
+        try {
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+                for (Path file : files) {
+                    Files.delete(file);
+                }
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Failed to initialize local data cache directory " + directory, e);
+        }
+    }
+
+    private static void deleteQuietly(Path file)
+    {
+        try {
+            Files.deleteIfExists(file);
+        }
+        catch (IOException e) {
+            log.warn(e, "Failed to delete %s from the local data cache", file);
+        }
+    }
+
+    @Managed
+    public long getHitCount()
+    {
+        return cache.stats().hitCount();
+    }
+
+    @Managed
+    public long getMissCount()
+    {
+        return cache.stats().missCount();
+    }
+
+    @Managed
+    public double getHitRate()
+    {
+        return cache.stats().hitRate();
+    }
+
+    @Managed
+    public long getEvictionCount()
+    {
+        return cache.stats().evictionCount();
+    }
+
+    @Managed
+    public long getChunkCount()
+    {
+        return cache.size();
+    }
+
+    @Managed
+    public long getCachedBytes()
+    {
+        return cachedBytes.get();
+    }
+
+    @Managed
+    public long getLocalReadBytes()
+    {
+        return localReadBytes.get();
+    }
+
+    @Managed
+    public long getRemoteReadBytes()
+    {
+        return remoteReadBytes.get();
+    }
+
+    @Managed
+    public long getWriteFailures()
+    {
+        return writeFailures.get();
+    }
+
+    @Managed
+    public void flushCache()
+    {
+        cache.invalidateAll();
+    }
+
+    private static class FileKey
+    {
+        private final String path;
+        private final long length;
+        private final long modificationTime;
+
+        public FileKey(FileStatus fileStatus)
+        {
+            this.path = fileStatus.getPath().toString();
+            this.length = fileStatus.getLen();
+            this.modificationTime = fileStatus.getModificationTime();
+        }
+
+        public long getLength()
+        {
+            return length;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            FileKey other = (FileKey) o;
+            return length == other.length &&
+                    modificationTime == other.modificationTime &&
+                    path.equals(other.path);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(path, length, modificationTime);
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("path", path)
+                    .add("length", length)
+                    .add("modificationTime", modificationTime)
+                    .toString();
+        }
+    }
+
+    private static class ChunkKey
+    {
+        private final FileKey fileKey;
+        private final long chunkIndex;
+
+        public ChunkKey(FileKey fileKey, long chunkIndex)
+        {
+            this.fileKey = requireNonNull(fileKey, "fileKey is null");
+            this.chunkIndex = chunkIndex;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            ChunkKey other = (ChunkKey) o;
+            return chunkIndex == other.chunkIndex &&
+                    fileKey.equals(other.fileKey);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(fileKey, chunkIndex);
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("fileKey", fileKey)
+                    .add("chunkIndex", chunkIndex)
+                    .toString();
+        }
+    }
+
+    private static class CachedChunk
+    {
+        private final Path file;
+        private final int length;
+
+        public CachedChunk(Path file, int length)
+        {
+            this.file = requireNonNull(file, "file is null");
+            this.length = length;
+        }
+
+        public Path getFile()
+        {
+            return file;
+        }
+
+        public int getLength()
+        {
+            return length;
+        }
+    }
+
+    private static class CachingInputStream
+            extends FSInputStream
+    {
+        private final LocalDataCache localDataCache;
+        private final FileKey file;
+        private final FSDataInputStream delegate;
+        private long position;
+
+        public CachingInputStream(LocalDataCache localDataCache, FileKey file, FSDataInputStream delegate)
+        {
+            this.localDataCache = requireNonNull(localDataCache, "localDataCache is null");
+            this.file = requireNonNull(file, "file is null");
+            this.delegate = requireNonNull(delegate, "delegate is null");
+        }
+
+        @Override
+        public void readFully(long position, byte[] buffer, int offset, int length)
+                throws IOException
+        {
+            checkPositionIndexes(offset, offset + length, buffer.length);
+            localDataCache.readFully(file, delegate, position, buffer, offset, length);
+        }
+
+        @Override
+        public void readFully(long position, byte[] buffer)
+                throws IOException
+        {
+            readFully(position, buffer, 0, buffer.length);
+        }
+
+        @Override
+        public int read(long position, byte[] buffer, int offset, int length)
+                throws IOException
+        {
+            checkPositionIndexes(offset, offset + length, buffer.length);
+            if (position >= file.getLength()) {
+                return -1;
+            }
+            int readLength = toIntExact(min(length, file.getLength() - position));
+            localDataCache.readFully(file, delegate, position, buffer, offset, readLength);
+            return readLength;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length)
+                throws IOException
+        {
+            int readLength = read(position, buffer, offset, length);
+            if (readLength > 0) {
+                position += readLength;
+            }
+            return readLength;
+        }
+
+        @Override
+        public int read()
+                throws IOException
+        {
+            byte[] buffer = new byte[1];
+            if (read(buffer, 0, 1) <= 0) {
+                return -1;
+            }
+            return buffer[0] & 0xFF;
+        }
+
+        @Override
+        public void seek(long position)
+                throws IOException
+        {
+            if (position < 0 || position > file.getLength()) {
+                throw new EOFException("Seek to position " + position + " is outside of " + file);
+            }
+            this.position = position;
+        }
+
+        @Override
+        public long getPos()
+        {
+            return position;
+        }
+
+        @Override
+        public boolean seekToNewSource(long targetPosition)
+        {
+            return false;
+        }
+
+        @Override
+        public void close()
+                throws IOException
+        {
+            delegate.close();
+        }
+    }
+}
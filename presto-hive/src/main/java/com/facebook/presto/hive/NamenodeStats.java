@@ -25,6 +25,9 @@ public class NamenodeStats
 {
     private final CallStats listLocatedStatus = new CallStats();
     private final CallStats remoteIteratorNext = new CallStats();
+    private final CallStats listDirectory = new CallStats();
+    private final CounterStat directoryCacheHits = new CounterStat();
+    private final CounterStat directoryCacheMisses = new CounterStat();
 
     @Managed
     @Nested
@@ -40,6 +43,38 @@ public class NamenodeStats
         return remoteIteratorNext;
     }
 
+    /**
+     * Time to list all entries of a directory which is loaded into the directory listing cache.
+     */
+    @Managed
+    @Nested
+    public CallStats getListDirectory()
+    {
+        return listDirectory;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getDirectoryCacheHits()
+    {
+        return directoryCacheHits;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getDirectoryCacheMisses()
+    {
+        return directoryCacheMisses;
+    }
+
+    @Managed
+    public double getDirectoryCacheHitRate()
+    {
+        long hits = directoryCacheHits.getTotalCount();
+        long requests = hits + directoryCacheMisses.getTotalCount();
+        return requests == 0 ? 1.0 : (double) hits / requests;
+    }
+
     public static class CallStats
     {
         private final TimeStat time = new TimeStat(TimeUnit.MILLISECONDS);
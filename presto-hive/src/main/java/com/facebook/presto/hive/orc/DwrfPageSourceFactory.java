@@ -14,9 +14,12 @@
 package com.facebook.presto.hive.orc;
 
 import com.facebook.hive.orc.OrcSerde;
+import com.facebook.presto.hive.FileMetadataCache;
+import com.facebook.presto.hive.ForHiveClient;
 import com.facebook.presto.hive.HdfsEnvironment;
 import com.facebook.presto.hive.HiveColumnHandle;
 import com.facebook.presto.hive.HivePageSourceFactory;
+import com.facebook.presto.hive.LocalDataCache;
 import com.facebook.presto.orc.metadata.DwrfMetadataReader;
 import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.ConnectorSession;
@@ -31,12 +34,18 @@ import javax.inject.Inject;
 import java.util.List;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 
+import static com.facebook.presto.hive.FileMetadataCache.noFileMetadataCache;
 import static com.facebook.presto.hive.HiveSessionProperties.getOrcMaxBufferSize;
 import static com.facebook.presto.hive.HiveSessionProperties.getOrcMaxMergeDistance;
 import static com.facebook.presto.hive.HiveSessionProperties.getOrcStreamBufferSize;
+import static com.facebook.presto.hive.HiveSessionProperties.isOrcStripePrefetchEnabled;
 import static com.facebook.presto.hive.HiveUtil.isDeserializerClass;
+import static com.facebook.presto.hive.LocalDataCache.noLocalDataCache;
 import static com.facebook.presto.hive.orc.OrcPageSourceFactory.createOrcPageSource;
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
 import static java.util.Objects.requireNonNull;
 
 public class DwrfPageSourceFactory
@@ -44,12 +53,28 @@ public class DwrfPageSourceFactory
 {
     private final TypeManager typeManager;
     private final HdfsEnvironment hdfsEnvironment;
+    private final FileMetadataCache fileMetadataCache;
+    private final LocalDataCache localDataCache;
+    private final Executor stripePrefetchExecutor;
 
-    @Inject
     public DwrfPageSourceFactory(TypeManager typeManager, HdfsEnvironment hdfsEnvironment)
+    {
+        this(typeManager, hdfsEnvironment, noFileMetadataCache(), noLocalDataCache(), newDirectExecutorService());
+    }
+
+    @Inject
+    public DwrfPageSourceFactory(
+            TypeManager typeManager,
+            HdfsEnvironment hdfsEnvironment,
+            FileMetadataCache fileMetadataCache,
+            LocalDataCache localDataCache,
+            @ForHiveClient ExecutorService stripePrefetchExecutor)
     {
         this.typeManager = requireNonNull(typeManager, "typeManager is null");
         this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
+        this.fileMetadataCache = requireNonNull(fileMetadataCache, "fileMetadataCache is null");
+        this.localDataCache = requireNonNull(localDataCache, "localDataCache is null");
+        this.stripePrefetchExecutor = requireNonNull(stripePrefetchExecutor, "stripePrefetchExecutor is null");
     }
 
     @Override
@@ -70,6 +95,8 @@ public class DwrfPageSourceFactory
         return Optional.of(createOrcPageSource(
                 new DwrfMetadataReader(),
                 hdfsEnvironment,
+                fileMetadataCache,
+                localDataCache,
                 session.getUser(),
                 configuration,
                 path,
@@ -83,6 +110,7 @@ public class DwrfPageSourceFactory
                 getOrcMaxMergeDistance(session),
                 getOrcMaxBufferSize(session),
                 getOrcStreamBufferSize(session),
-                false));
+                false,
+                isOrcStripePrefetchEnabled(session) ? Optional.of(stripePrefetchExecutor) : Optional.empty()));
     }
 }
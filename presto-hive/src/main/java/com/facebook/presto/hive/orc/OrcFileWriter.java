@@ -0,0 +1,158 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.orc;
+
+import com.facebook.presto.hive.HiveFileWriter;
+import com.facebook.presto.orc.OrcWriter;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.block.RunLengthEncodedBlock;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.joda.time.DateTimeZone;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_WRITER_CLOSE_ERROR;
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_WRITER_DATA_ERROR;
+import static com.facebook.presto.orc.OrcWriter.DEFAULT_DICTIONARY_MAX_MEMORY;
+import static com.facebook.presto.orc.OrcWriter.DEFAULT_ROW_GROUP_MAX_ROW_COUNT;
+import static com.facebook.presto.orc.OrcWriter.DEFAULT_STRIPE_MAX_ROW_COUNT;
+import static com.facebook.presto.orc.OrcWriter.DEFAULT_STRIPE_MAX_SIZE;
+import static com.facebook.presto.orc.metadata.OrcType.createOrcRowType;
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Writes Hive ORC files with the native {@link OrcWriter}. The file may contain columns
+ * which are not written by the query, and these columns are filled with nulls.
+ */
+public class OrcFileWriter
+        implements HiveFileWriter
+{
+    private final OrcWriter orcWriter;
+    private final Callable<Void> rollbackAction;
+    private final List<Type> fileColumnTypes;
+    private final int[] fileInputColumnIndexes;
+    private final Block[] nullBlocks;
+
+    public OrcFileWriter(
+            OutputStream outputStream,
+            Callable<Void> rollbackAction,
+            List<String> fileColumnNames,
+            List<Type> fileColumnTypes,
+            int[] fileInputColumnIndexes,
+            CompressionKind compression,
+            DateTimeZone hiveStorageTimeZone)
+    {
+        requireNonNull(outputStream, "outputStream is null");
+        this.rollbackAction = requireNonNull(rollbackAction, "rollbackAction is null");
+        requireNonNull(fileColumnNames, "fileColumnNames is null");
+        this.fileColumnTypes = ImmutableList.copyOf(requireNonNull(fileColumnTypes, "fileColumnTypes is null"));
+        this.fileInputColumnIndexes = requireNonNull(fileInputColumnIndexes, "fileInputColumnIndexes is null");
+        checkArgument(fileColumnNames.size() == fileColumnTypes.size(), "fileColumnNames and fileColumnTypes have different sizes");
+        checkArgument(fileInputColumnIndexes.length == fileColumnTypes.size(), "fileInputColumnIndexes and fileColumnTypes have different sizes");
+
+        this.orcWriter = new OrcWriter(
+                outputStream,
+                this.fileColumnTypes,
+                createOrcRowType(0, fileColumnNames, this.fileColumnTypes),
+                compression,
+                DEFAULT_STRIPE_MAX_SIZE,
+                DEFAULT_STRIPE_MAX_ROW_COUNT,
+                DEFAULT_ROW_GROUP_MAX_ROW_COUNT,
+                DEFAULT_DICTIONARY_MAX_MEMORY,
+                ImmutableMap.of(),
+                hiveStorageTimeZone);
+
+        this.nullBlocks = new Block[fileColumnTypes.size()];
+        for (int i = 0; i < nullBlocks.length; i++) {
+            if (fileInputColumnIndexes[i] < 0) {
+                nullBlocks[i] = fileColumnTypes.get(i).createBlockBuilder(new BlockBuilderStatus(), 1).appendNull().build();
+            }
+        }
+    }
+
+    @Override
+    public void appendRows(Page dataPage)
+    {
+        Block[] blocks = new Block[fileInputColumnIndexes.length];
+        for (int i = 0; i < fileInputColumnIndexes.length; i++) {
+            int inputColumnIndex = fileInputColumnIndexes[i];
+            if (inputColumnIndex < 0) {
+                blocks[i] = new RunLengthEncodedBlock(nullBlocks[i], dataPage.getPositionCount());
+            }
+            else {
+                blocks[i] = dataPage.getBlock(inputColumnIndex);
+            }
+        }
+
+        try {
+            orcWriter.write(new Page(dataPage.getPositionCount(), blocks));
+        }
+        catch (IOException | RuntimeException e) {
+            throw new PrestoException(HIVE_WRITER_DATA_ERROR, "Failed to write data", e);
+        }
+    }
+
+    @Override
+    public void commit()
+    {
+        try {
+            orcWriter.close();
+        }
+        catch (IOException | RuntimeException e) {
+            try {
+                rollbackAction.call();
+            }
+            catch (Exception ignored) {
+                // ignore
+            }
+            throw new PrestoException(HIVE_WRITER_CLOSE_ERROR, "Error committing write to Hive", e);
+        }
+    }
+
+    @Override
+    public void rollback()
+    {
+        try {
+            try {
+                orcWriter.close();
+            }
+            finally {
+                rollbackAction.call();
+            }
+        }
+        catch (Exception e) {
+            throw new PrestoException(HIVE_WRITER_CLOSE_ERROR, "Error rolling back write to Hive", e);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("writer", orcWriter)
+                .add("columnTypes", fileColumnTypes)
+                .toString();
+    }
+}
@@ -25,7 +25,7 @@ import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.block.BlockBuilderStatus;
 import com.facebook.presto.spi.block.LazyBlock;
-import com.facebook.presto.spi.block.LazyBlockLoader;
+import com.facebook.presto.spi.block.SelectiveLazyBlockLoader;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.spi.type.TypeManager;
 import com.google.common.base.Throwables;
@@ -33,6 +33,7 @@ import com.google.common.collect.ImmutableList;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.REGULAR;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_BAD_DATA;
@@ -192,6 +193,12 @@ public class OrcPageSource
         return systemMemoryContext.getBytes();
     }
 
+    @Override
+    public CompletableFuture<?> isBlocked()
+    {
+        return recordReader.isBlocked();
+    }
+
     protected void closeWithSuppression(Throwable throwable)
     {
         requireNonNull(throwable, "throwable is null");
@@ -207,7 +214,7 @@ public class OrcPageSource
     }
 
     private final class OrcBlockLoader
-            implements LazyBlockLoader<LazyBlock>
+            implements SelectiveLazyBlockLoader<LazyBlock>
     {
         private final int expectedBatchId = batchId;
         private final int columnIndex;
@@ -242,5 +249,26 @@ public class OrcPageSource
 
             loaded = true;
         }
+
+        @Override
+        public final Block load(LazyBlock lazyBlock, int[] positions, int positionCount)
+        {
+            checkState(!loaded, "Block is already loaded");
+            checkState(batchId == expectedBatchId);
+
+            Block block;
+            try {
+                block = recordReader.readBlock(type, columnIndex, positions, positionCount);
+            }
+            catch (IOException e) {
+                if (e instanceof OrcCorruptionException) {
+                    throw new PrestoException(HIVE_BAD_DATA, e);
+                }
+                throw new PrestoException(HIVE_CURSOR_ERROR, e);
+            }
+
+            loaded = true;
+            return block;
+        }
     }
 }
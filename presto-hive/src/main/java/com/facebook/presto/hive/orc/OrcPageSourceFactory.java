@@ -13,11 +13,15 @@
  */
 package com.facebook.presto.hive.orc;
 
+import com.facebook.presto.hive.FileMetadataCache;
+import com.facebook.presto.hive.ForHiveClient;
 import com.facebook.presto.hive.HdfsEnvironment;
 import com.facebook.presto.hive.HiveClientConfig;
 import com.facebook.presto.hive.HiveColumnHandle;
 import com.facebook.presto.hive.HivePageSourceFactory;
+import com.facebook.presto.hive.LocalDataCache;
 import com.facebook.presto.orc.OrcDataSource;
+import com.facebook.presto.orc.OrcMetadataCache;
 import com.facebook.presto.orc.OrcPredicate;
 import com.facebook.presto.orc.OrcReader;
 import com.facebook.presto.orc.OrcRecordReader;
@@ -37,6 +41,7 @@ import com.google.common.collect.ImmutableMap;
 import io.airlift.units.DataSize;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hive.ql.io.orc.OrcSerde;
@@ -50,8 +55,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.regex.Pattern;
 
+import static com.facebook.presto.hive.FileMetadataCache.noFileMetadataCache;
 import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.REGULAR;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_CANNOT_OPEN_SPLIT;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_FILE_MISSING_COLUMN_NAMES;
@@ -60,8 +68,11 @@ import static com.facebook.presto.hive.HiveSessionProperties.getOrcMaxBufferSize
 import static com.facebook.presto.hive.HiveSessionProperties.getOrcMaxMergeDistance;
 import static com.facebook.presto.hive.HiveSessionProperties.getOrcStreamBufferSize;
 import static com.facebook.presto.hive.HiveSessionProperties.isOrcBloomFiltersEnabled;
+import static com.facebook.presto.hive.HiveSessionProperties.isOrcStripePrefetchEnabled;
 import static com.facebook.presto.hive.HiveUtil.isDeserializerClass;
+import static com.facebook.presto.hive.LocalDataCache.noLocalDataCache;
 import static com.google.common.base.Strings.nullToEmpty;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
 
@@ -72,18 +83,41 @@ public class OrcPageSourceFactory
     private final TypeManager typeManager;
     private final boolean useOrcColumnNames;
     private final HdfsEnvironment hdfsEnvironment;
+    private final FileMetadataCache fileMetadataCache;
+    private final LocalDataCache localDataCache;
+    private final Executor stripePrefetchExecutor;
 
     @Inject
-    public OrcPageSourceFactory(TypeManager typeManager, HiveClientConfig config, HdfsEnvironment hdfsEnvironment)
+    public OrcPageSourceFactory(
+            TypeManager typeManager,
+            HiveClientConfig config,
+            HdfsEnvironment hdfsEnvironment,
+            FileMetadataCache fileMetadataCache,
+            LocalDataCache localDataCache,
+            @ForHiveClient ExecutorService stripePrefetchExecutor)
     {
-        this(typeManager, requireNonNull(config, "hiveClientConfig is null").isUseOrcColumnNames(), hdfsEnvironment);
+        this(typeManager, requireNonNull(config, "hiveClientConfig is null").isUseOrcColumnNames(), hdfsEnvironment, fileMetadataCache, localDataCache, stripePrefetchExecutor);
     }
 
     public OrcPageSourceFactory(TypeManager typeManager, boolean useOrcColumnNames, HdfsEnvironment hdfsEnvironment)
+    {
+        this(typeManager, useOrcColumnNames, hdfsEnvironment, noFileMetadataCache(), noLocalDataCache(), directExecutor());
+    }
+
+    public OrcPageSourceFactory(
+            TypeManager typeManager,
+            boolean useOrcColumnNames,
+            HdfsEnvironment hdfsEnvironment,
+            FileMetadataCache fileMetadataCache,
+            LocalDataCache localDataCache,
+            Executor stripePrefetchExecutor)
     {
         this.typeManager = requireNonNull(typeManager, "typeManager is null");
         this.useOrcColumnNames = useOrcColumnNames;
         this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
+        this.fileMetadataCache = requireNonNull(fileMetadataCache, "fileMetadataCache is null");
+        this.localDataCache = requireNonNull(localDataCache, "localDataCache is null");
+        this.stripePrefetchExecutor = requireNonNull(stripePrefetchExecutor, "stripePrefetchExecutor is null");
     }
 
     @Override
@@ -105,6 +139,8 @@ public class OrcPageSourceFactory
         return Optional.of(createOrcPageSource(
                 new OrcMetadataReader(),
                 hdfsEnvironment,
+                fileMetadataCache,
+                localDataCache,
                 session.getUser(),
                 configuration,
                 path,
@@ -118,12 +154,15 @@ public class OrcPageSourceFactory
                 getOrcMaxMergeDistance(session),
                 getOrcMaxBufferSize(session),
                 getOrcStreamBufferSize(session),
-                isOrcBloomFiltersEnabled(session)));
+                isOrcBloomFiltersEnabled(session),
+                isOrcStripePrefetchEnabled(session) ? Optional.of(stripePrefetchExecutor) : Optional.empty()));
     }
 
     public static OrcPageSource createOrcPageSource(
             MetadataReader metadataReader,
             HdfsEnvironment hdfsEnvironment,
+            FileMetadataCache fileMetadataCache,
+            LocalDataCache localDataCache,
             String sessionUser,
             Configuration configuration,
             Path path,
@@ -137,14 +176,17 @@ public class OrcPageSourceFactory
             DataSize maxMergeDistance,
             DataSize maxBufferSize,
             DataSize streamBufferSize,
-            boolean orcBloomFiltersEnabled)
+            boolean orcBloomFiltersEnabled,
+            Optional<Executor> stripePrefetchExecutor)
     {
         OrcDataSource orcDataSource;
+        OrcMetadataCache metadataCache;
         try {
             FileSystem fileSystem = hdfsEnvironment.getFileSystem(sessionUser, path, configuration);
-            long size = fileSystem.getFileStatus(path).getLen();
-            FSDataInputStream inputStream = fileSystem.open(path);
-            orcDataSource = new HdfsOrcDataSource(path.toString(), size, maxMergeDistance, maxBufferSize, streamBufferSize, inputStream);
+            FileStatus fileStatus = fileSystem.getFileStatus(path);
+            metadataCache = fileMetadataCache.getOrcMetadataCache(fileStatus);
+            FSDataInputStream inputStream = localDataCache.wrap(fileStatus, fileSystem.open(path));
+            orcDataSource = new HdfsOrcDataSource(path.toString(), fileStatus.getLen(), maxMergeDistance, maxBufferSize, streamBufferSize, inputStream);
         }
         catch (Exception e) {
             if (nullToEmpty(e.getMessage()).trim().equals("Filesystem closed") ||
@@ -156,7 +198,7 @@ public class OrcPageSourceFactory
 
         AggregatedMemoryContext systemMemoryUsage = new AggregatedMemoryContext();
         try {
-            OrcReader reader = new OrcReader(orcDataSource, metadataReader, maxMergeDistance, maxBufferSize);
+            OrcReader reader = new OrcReader(orcDataSource, metadataReader, maxMergeDistance, maxBufferSize, metadataCache);
 
             List<HiveColumnHandle> physicalColumns = getPhysicalHiveColumnHandles(columns, useOrcColumnNames, reader, path);
             ImmutableMap.Builder<Integer, Type> includedColumns = ImmutableMap.builder();
@@ -177,7 +219,8 @@ public class OrcPageSourceFactory
                     start,
                     length,
                     hiveStorageTimeZone,
-                    systemMemoryUsage);
+                    systemMemoryUsage,
+                    stripePrefetchExecutor);
 
             return new OrcPageSource(
                     recordReader,
@@ -15,14 +15,19 @@ package com.facebook.presto.hive.parquet;
 
 import io.airlift.compress.Decompressor;
 import io.airlift.compress.lzo.LzoDecompressor;
+import io.airlift.compress.snappy.SnappyCompressor;
 import io.airlift.compress.snappy.SnappyDecompressor;
 import io.airlift.slice.DynamicSliceOutput;
 import io.airlift.slice.Slice;
 import parquet.hadoop.metadata.CompressionCodecName;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
 import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static io.airlift.slice.SizeOf.SIZE_OF_INT;
@@ -61,6 +66,41 @@ public final class ParquetCompressionUtils
         }
     }
 
+    public static byte[] compress(CompressionCodecName codec, byte[] input)
+            throws IOException
+    {
+        requireNonNull(input, "input is null");
+
+        switch (codec) {
+            case GZIP:
+                return compressGzip(input);
+            case SNAPPY:
+                return compressSnappy(input);
+            case UNCOMPRESSED:
+                return input;
+            default:
+                throw new IllegalArgumentException("Codec not supported for writing Parquet: " + codec);
+        }
+    }
+
+    private static byte[] compressSnappy(byte[] input)
+    {
+        SnappyCompressor compressor = new SnappyCompressor();
+        byte[] buffer = new byte[compressor.maxCompressedLength(input.length)];
+        int size = compressor.compress(input, 0, input.length, buffer, 0, buffer.length);
+        return Arrays.copyOf(buffer, size);
+    }
+
+    private static byte[] compressGzip(byte[] input)
+            throws IOException
+    {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(input.length);
+        try (OutputStream gzipOutputStream = new GZIPOutputStream(output, GZIP_BUFFER_SIZE)) {
+            gzipOutputStream.write(input);
+        }
+        return output.toByteArray();
+    }
+
     private static Slice decompressSnappy(Slice input, int uncompressedSize)
     {
         byte[] buffer = new byte[uncompressedSize];
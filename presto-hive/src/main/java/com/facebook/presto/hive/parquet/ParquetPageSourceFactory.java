@@ -13,10 +13,12 @@
  */
 package com.facebook.presto.hive.parquet;
 
+import com.facebook.presto.hive.FileMetadataCache;
 import com.facebook.presto.hive.HdfsEnvironment;
 import com.facebook.presto.hive.HiveClientConfig;
 import com.facebook.presto.hive.HiveColumnHandle;
 import com.facebook.presto.hive.HivePageSourceFactory;
+import com.facebook.presto.hive.LocalDataCache;
 import com.facebook.presto.hive.parquet.predicate.ParquetPredicate;
 import com.facebook.presto.hive.parquet.reader.ParquetMetadataReader;
 import com.facebook.presto.hive.parquet.reader.ParquetReader;
@@ -28,11 +30,13 @@ import com.facebook.presto.spi.type.TypeManager;
 import com.facebook.presto.spi.type.TypeSignature;
 import com.facebook.presto.spi.type.TypeSignatureParameter;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.joda.time.DateTimeZone;
+import parquet.column.ColumnDescriptor;
 import parquet.hadoop.metadata.BlockMetaData;
 import parquet.hadoop.metadata.FileMetaData;
 import parquet.hadoop.metadata.ParquetMetadata;
@@ -48,15 +52,18 @@ import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
 
+import static com.facebook.presto.hive.FileMetadataCache.noFileMetadataCache;
 import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.REGULAR;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_CANNOT_OPEN_SPLIT;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_MISSING_DATA;
 import static com.facebook.presto.hive.HiveSessionProperties.isParquetOptimizedReaderEnabled;
 import static com.facebook.presto.hive.HiveSessionProperties.isParquetPredicatePushdownEnabled;
 import static com.facebook.presto.hive.HiveUtil.getDeserializerClassName;
+import static com.facebook.presto.hive.LocalDataCache.noLocalDataCache;
 import static com.facebook.presto.hive.parquet.HdfsParquetDataSource.buildHdfsParquetDataSource;
 import static com.facebook.presto.hive.parquet.ParquetTypeUtils.getParquetType;
 import static com.facebook.presto.hive.parquet.predicate.ParquetPredicateUtils.buildParquetPredicate;
+import static com.facebook.presto.hive.parquet.predicate.ParquetPredicateUtils.getPredicateColumns;
 import static com.facebook.presto.hive.parquet.predicate.ParquetPredicateUtils.predicateMatches;
 import static com.facebook.presto.spi.type.StandardTypes.ARRAY;
 import static com.facebook.presto.spi.type.StandardTypes.BIGINT;
@@ -92,18 +99,27 @@ public class ParquetPageSourceFactory
     private final TypeManager typeManager;
     private final boolean useParquetColumnNames;
     private final HdfsEnvironment hdfsEnvironment;
+    private final FileMetadataCache fileMetadataCache;
+    private final LocalDataCache localDataCache;
 
     @Inject
-    public ParquetPageSourceFactory(TypeManager typeManager, HiveClientConfig config, HdfsEnvironment hdfsEnvironment)
+    public ParquetPageSourceFactory(TypeManager typeManager, HiveClientConfig config, HdfsEnvironment hdfsEnvironment, FileMetadataCache fileMetadataCache, LocalDataCache localDataCache)
     {
-        this(typeManager, requireNonNull(config, "hiveClientConfig is null").isUseParquetColumnNames(), hdfsEnvironment);
+        this(typeManager, requireNonNull(config, "hiveClientConfig is null").isUseParquetColumnNames(), hdfsEnvironment, fileMetadataCache, localDataCache);
     }
 
     public ParquetPageSourceFactory(TypeManager typeManager, boolean useParquetColumnNames, HdfsEnvironment hdfsEnvironment)
+    {
+        this(typeManager, useParquetColumnNames, hdfsEnvironment, noFileMetadataCache(), noLocalDataCache());
+    }
+
+    public ParquetPageSourceFactory(TypeManager typeManager, boolean useParquetColumnNames, HdfsEnvironment hdfsEnvironment, FileMetadataCache fileMetadataCache, LocalDataCache localDataCache)
     {
         this.typeManager = requireNonNull(typeManager, "typeManager is null");
         this.useParquetColumnNames = useParquetColumnNames;
         this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
+        this.fileMetadataCache = requireNonNull(fileMetadataCache, "fileMetadataCache is null");
+        this.localDataCache = requireNonNull(localDataCache, "localDataCache is null");
     }
 
     @Override
@@ -132,6 +148,8 @@ public class ParquetPageSourceFactory
 
         return Optional.of(createParquetPageSource(
                 hdfsEnvironment,
+                fileMetadataCache,
+                localDataCache,
                 session.getUser(),
                 configuration,
                 path,
@@ -147,6 +165,8 @@ public class ParquetPageSourceFactory
 
     public static ParquetPageSource createParquetPageSource(
             HdfsEnvironment hdfsEnvironment,
+            FileMetadataCache fileMetadataCache,
+            LocalDataCache localDataCache,
             String user,
             Configuration configuration,
             Path path,
@@ -162,8 +182,8 @@ public class ParquetPageSourceFactory
         ParquetDataSource dataSource = null;
         try {
             FileSystem fileSystem = hdfsEnvironment.getFileSystem(user, path, configuration);
-            dataSource = buildHdfsParquetDataSource(fileSystem, path, start, length);
-            ParquetMetadata parquetMetadata = ParquetMetadataReader.readFooter(fileSystem, path);
+            dataSource = buildHdfsParquetDataSource(fileSystem, path, start, length, localDataCache);
+            ParquetMetadata parquetMetadata = fileMetadataCache.getParquetMetadata(fileSystem.getFileStatus(path), () -> ParquetMetadataReader.readFooter(fileSystem, path));
             FileMetaData fileMetaData = parquetMetadata.getFileMetaData();
             MessageType fileSchema = fileMetaData.getSchema();
 
@@ -183,20 +203,27 @@ public class ParquetPageSourceFactory
                 }
             }
 
+            ParquetPredicate parquetPredicate = ParquetPredicate.TRUE;
+            List<ColumnDescriptor> predicateColumns = ImmutableList.of();
             if (predicatePushdownEnabled) {
-                ParquetPredicate parquetPredicate = buildParquetPredicate(columns, effectivePredicate, fileMetaData.getSchema(), typeManager);
+                parquetPredicate = buildParquetPredicate(columns, effectivePredicate, fileMetaData.getSchema(), typeManager);
+                predicateColumns = getPredicateColumns(requestedSchema, effectivePredicate);
+                final ParquetPredicate finalParquetPredicate = parquetPredicate;
                 final ParquetDataSource finalDataSource = dataSource;
                 blocks = blocks.stream()
-                        .filter(block -> predicateMatches(parquetPredicate, block, finalDataSource, requestedSchema, effectivePredicate))
+                        .filter(block -> predicateMatches(finalParquetPredicate, block, finalDataSource, requestedSchema, effectivePredicate))
                         .collect(toList());
             }
 
+            // the data pages of the surviving row groups are pruned using the statistics in the page headers
             ParquetReader parquetReader = new ParquetReader(
                     fileSchema,
                     requestedSchema,
                     blocks,
                     dataSource,
-                    typeManager);
+                    typeManager,
+                    parquetPredicate,
+                    predicateColumns);
 
             return new ParquetPageSource(
                     parquetReader,
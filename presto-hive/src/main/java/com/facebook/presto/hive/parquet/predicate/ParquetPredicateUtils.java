@@ -51,6 +51,7 @@ import java.util.Set;
 import static com.facebook.presto.hive.parquet.ParquetCompressionUtils.decompress;
 import static com.facebook.presto.hive.parquet.ParquetTypeUtils.getParquetEncoding;
 import static io.airlift.slice.Slices.wrappedBuffer;
+import static java.util.stream.Collectors.toList;
 import static parquet.column.Encoding.BIT_PACKED;
 import static parquet.column.Encoding.PLAIN_DICTIONARY;
 import static parquet.column.Encoding.RLE;
@@ -95,6 +96,19 @@ public final class ParquetPredicateUtils
         return parquetFieldIndex;
     }
 
+    /**
+     * Returns the requested columns which are constrained by the predicate.
+     */
+    public static List<ColumnDescriptor> getPredicateColumns(MessageType requestedSchema, TupleDomain<HiveColumnHandle> effectivePredicate)
+    {
+        if (effectivePredicate.isNone()) {
+            return ImmutableList.of();
+        }
+        return requestedSchema.getColumns().stream()
+                .filter(columnDescriptor -> isColumnPredicate(columnDescriptor, effectivePredicate))
+                .collect(toList());
+    }
+
     public static boolean predicateMatches(ParquetPredicate parquetPredicate,
             BlockMetaData block,
             ParquetDataSource dataSource,
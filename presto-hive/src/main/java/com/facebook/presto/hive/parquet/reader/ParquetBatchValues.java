@@ -0,0 +1,293 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.parquet.reader;
+
+import com.facebook.presto.hive.parquet.dictionary.ParquetDictionary;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.IntArrayBlock;
+import com.facebook.presto.spi.block.LongArrayBlock;
+import com.facebook.presto.spi.block.SliceArrayBlock;
+import com.facebook.presto.spi.type.Type;
+import io.airlift.slice.Slice;
+import parquet.column.values.ValuesReader;
+import parquet.io.api.Binary;
+import parquet.schema.PrimitiveType.PrimitiveTypeName;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.DateType.DATE;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.IntegerType.INTEGER;
+import static com.facebook.presto.spi.type.RealType.REAL;
+import static com.facebook.presto.spi.type.VarbinaryType.VARBINARY;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.slice.Slices.EMPTY_SLICE;
+import static io.airlift.slice.Slices.wrappedBuffer;
+import static java.lang.Double.doubleToLongBits;
+import static java.lang.Double.longBitsToDouble;
+import static java.lang.Float.floatToRawIntBits;
+
+/**
+ * Values of a batch of a primitive column, decoded into a primitive array instead of
+ * being written to a block builder one at a time. The values of a page are decoded
+ * densely for the non-null positions, and are then moved to their positions.
+ */
+abstract class ParquetBatchValues
+{
+    public static boolean isSupported(PrimitiveTypeName physicalType, Type type)
+    {
+        switch (physicalType) {
+            case INT32:
+                return type.equals(INTEGER) || type.equals(DATE);
+            case FLOAT:
+                return type.equals(REAL);
+            case INT64:
+                return type.equals(BIGINT);
+            case DOUBLE:
+                return type.equals(DOUBLE);
+            case BINARY:
+                // bounded varchar and char values must be truncated
+                return type.equals(VARCHAR) || type.equals(VARBINARY);
+            default:
+                return false;
+        }
+    }
+
+    public static ParquetBatchValues create(PrimitiveTypeName physicalType, int size)
+    {
+        switch (physicalType) {
+            case INT32:
+            case FLOAT:
+                return new IntBatchValues(physicalType, size);
+            case INT64:
+            case DOUBLE:
+                return new LongBatchValues(physicalType, size);
+            case BINARY:
+                return new SliceBatchValues(size);
+            default:
+                throw new IllegalArgumentException("Unsupported physical type: " + physicalType);
+        }
+    }
+
+    public abstract void readPlain(ParquetPlainValuesDecoder decoder, int offset, int length);
+
+    public abstract void read(ValuesReader valuesReader, int offset, int length);
+
+    /**
+     * Decodes the first {@code length} entries of the dictionary to the first positions of this batch.
+     */
+    public abstract void readDictionary(ParquetDictionary dictionary, int length);
+
+    /**
+     * Copies the values of the dictionary batch at the ids to the positions starting at {@code offset}.
+     */
+    public abstract void copyFromDictionary(ParquetBatchValues dictionary, int[] ids, int offset, int length);
+
+    /**
+     * Moves the {@code nonNullCount} values decoded at {@code offset} to the non-null positions of the range.
+     */
+    public abstract void spread(boolean[] valueIsNull, int offset, int length, int nonNullCount);
+
+    public abstract Block build(int positionCount, boolean[] valueIsNull);
+
+    private static final class IntBatchValues
+            extends ParquetBatchValues
+    {
+        private final PrimitiveTypeName physicalType;
+        private final int[] values;
+
+        private IntBatchValues(PrimitiveTypeName physicalType, int size)
+        {
+            this.physicalType = physicalType;
+            this.values = new int[size];
+        }
+
+        @Override
+        public void readPlain(ParquetPlainValuesDecoder decoder, int offset, int length)
+        {
+            // float values are stored as their raw bits
+            decoder.readInts(values, offset, length);
+        }
+
+        @Override
+        public void read(ValuesReader valuesReader, int offset, int length)
+        {
+            for (int i = offset; i < offset + length; i++) {
+                values[i] = physicalType == PrimitiveTypeName.FLOAT ? floatToRawIntBits(valuesReader.readFloat()) : valuesReader.readInteger();
+            }
+        }
+
+        @Override
+        public void readDictionary(ParquetDictionary dictionary, int length)
+        {
+            for (int i = 0; i < length; i++) {
+                values[i] = physicalType == PrimitiveTypeName.FLOAT ? floatToRawIntBits(dictionary.decodeToFloat(i)) : dictionary.decodeToInt(i);
+            }
+        }
+
+        @Override
+        public void copyFromDictionary(ParquetBatchValues dictionary, int[] ids, int offset, int length)
+        {
+            int[] dictionaryValues = ((IntBatchValues) dictionary).values;
+            for (int i = 0; i < length; i++) {
+                values[offset + i] = dictionaryValues[ids[i]];
+            }
+        }
+
+        @Override
+        public void spread(boolean[] valueIsNull, int offset, int length, int nonNullCount)
+        {
+            int valueIndex = offset + nonNullCount - 1;
+            for (int position = offset + length - 1; position > valueIndex; position--) {
+                values[position] = valueIsNull[position] ? 0 : values[valueIndex--];
+            }
+        }
+
+        @Override
+        public Block build(int positionCount, boolean[] valueIsNull)
+        {
+            return new IntArrayBlock(positionCount, valueIsNull, values);
+        }
+    }
+
+    private static final class LongBatchValues
+            extends ParquetBatchValues
+    {
+        private final PrimitiveTypeName physicalType;
+        private final long[] values;
+
+        private LongBatchValues(PrimitiveTypeName physicalType, int size)
+        {
+            this.physicalType = physicalType;
+            this.values = new long[size];
+        }
+
+        @Override
+        public void readPlain(ParquetPlainValuesDecoder decoder, int offset, int length)
+        {
+            decoder.readLongs(values, offset, length);
+            if (physicalType == PrimitiveTypeName.DOUBLE) {
+                // use the canonical NaN, as the double type does
+                for (int i = offset; i < offset + length; i++) {
+                    values[i] = doubleToLongBits(longBitsToDouble(values[i]));
+                }
+            }
+        }
+
+        @Override
+        public void read(ValuesReader valuesReader, int offset, int length)
+        {
+            for (int i = offset; i < offset + length; i++) {
+                values[i] = physicalType == PrimitiveTypeName.DOUBLE ? doubleToLongBits(valuesReader.readDouble()) : valuesReader.readLong();
+            }
+        }
+
+        @Override
+        public void readDictionary(ParquetDictionary dictionary, int length)
+        {
+            for (int i = 0; i < length; i++) {
+                values[i] = physicalType == PrimitiveTypeName.DOUBLE ? doubleToLongBits(dictionary.decodeToDouble(i)) : dictionary.decodeToLong(i);
+            }
+        }
+
+        @Override
+        public void copyFromDictionary(ParquetBatchValues dictionary, int[] ids, int offset, int length)
+        {
+            long[] dictionaryValues = ((LongBatchValues) dictionary).values;
+            for (int i = 0; i < length; i++) {
+                values[offset + i] = dictionaryValues[ids[i]];
+            }
+        }
+
+        @Override
+        public void spread(boolean[] valueIsNull, int offset, int length, int nonNullCount)
+        {
+            int valueIndex = offset + nonNullCount - 1;
+            for (int position = offset + length - 1; position > valueIndex; position--) {
+                values[position] = valueIsNull[position] ? 0 : values[valueIndex--];
+            }
+        }
+
+        @Override
+        public Block build(int positionCount, boolean[] valueIsNull)
+        {
+            return new LongArrayBlock(positionCount, valueIsNull, values);
+        }
+    }
+
+    private static final class SliceBatchValues
+            extends ParquetBatchValues
+    {
+        private final Slice[] values;
+
+        private SliceBatchValues(int size)
+        {
+            this.values = new Slice[size];
+        }
+
+        @Override
+        public void readPlain(ParquetPlainValuesDecoder decoder, int offset, int length)
+        {
+            decoder.readSlices(values, offset, length);
+        }
+
+        @Override
+        public void read(ValuesReader valuesReader, int offset, int length)
+        {
+            for (int i = offset; i < offset + length; i++) {
+                values[i] = toSlice(valuesReader.readBytes());
+            }
+        }
+
+        @Override
+        public void readDictionary(ParquetDictionary dictionary, int length)
+        {
+            for (int i = 0; i < length; i++) {
+                values[i] = toSlice(dictionary.decodeToBinary(i));
+            }
+        }
+
+        @Override
+        public void copyFromDictionary(ParquetBatchValues dictionary, int[] ids, int offset, int length)
+        {
+            Slice[] dictionaryValues = ((SliceBatchValues) dictionary).values;
+            for (int i = 0; i < length; i++) {
+                values[offset + i] = dictionaryValues[ids[i]];
+            }
+        }
+
+        @Override
+        public void spread(boolean[] valueIsNull, int offset, int length, int nonNullCount)
+        {
+            int valueIndex = offset + nonNullCount - 1;
+            for (int position = offset + length - 1; position > valueIndex; position--) {
+                values[position] = valueIsNull[position] ? null : values[valueIndex--];
+            }
+        }
+
+        @Override
+        public Block build(int positionCount, boolean[] valueIsNull)
+        {
+            // null entries of the array are the null positions
+            return new SliceArrayBlock(positionCount, values);
+        }
+
+        private static Slice toSlice(Binary binary)
+        {
+            if (binary.length() == 0) {
+                return EMPTY_SLICE;
+            }
+            return wrappedBuffer(binary.getBytes());
+        }
+    }
+}
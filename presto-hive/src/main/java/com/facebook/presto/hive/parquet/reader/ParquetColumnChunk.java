@@ -18,6 +18,7 @@ import com.facebook.presto.hive.parquet.ParquetDataPage;
 import com.facebook.presto.hive.parquet.ParquetDataPageV1;
 import com.facebook.presto.hive.parquet.ParquetDataPageV2;
 import com.facebook.presto.hive.parquet.ParquetDictionaryPage;
+import com.google.common.primitives.Longs;
 import io.airlift.slice.Slice;
 import parquet.column.Encoding;
 import parquet.format.DataPageHeader;
@@ -25,14 +26,17 @@ import parquet.format.DataPageHeaderV2;
 import parquet.format.DictionaryPageHeader;
 import parquet.format.PageHeader;
 import parquet.format.Util;
+import parquet.hadoop.metadata.CompressionCodecName;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 import static com.facebook.presto.hive.parquet.ParquetTypeUtils.getParquetEncoding;
 import static io.airlift.slice.Slices.wrappedBuffer;
+import static parquet.format.PageType.DATA_PAGE;
 
 public class ParquetColumnChunk
         extends ByteArrayInputStream
@@ -62,8 +66,25 @@ public class ParquetColumnChunk
 
     public ParquetPageReader readAllPages()
             throws IOException
+    {
+        return readPages(Optional.empty());
+    }
+
+    /**
+     * Reads the dictionary page and the data pages accepted by the filter. The other data pages
+     * are left out without being decompressed, so the rows in between are not present.
+     */
+    public ParquetPageReader readSelectedPages(PageFilter filter)
+            throws IOException
+    {
+        return readPages(Optional.of(filter));
+    }
+
+    private ParquetPageReader readPages(Optional<PageFilter> filter)
+            throws IOException
     {
         List<ParquetDataPage> pages = new ArrayList<>();
+        List<Long> firstRowIndexes = new ArrayList<>();
         ParquetDictionaryPage dictionaryPage = null;
         long valueCount = 0;
         while (valueCount < descriptor.getColumnChunkMetaData().getValueCount()) {
@@ -78,17 +99,26 @@ public class ParquetColumnChunk
                     dictionaryPage = readDictionaryPage(pageHeader, uncompressedPageSize, compressedPageSize);
                     break;
                 case DATA_PAGE:
-                    valueCount += readDataPageV1(pageHeader, uncompressedPageSize, compressedPageSize, pages);
-                    break;
                 case DATA_PAGE_V2:
-                    valueCount += readDataPageV2(pageHeader, uncompressedPageSize, compressedPageSize, pages);
+                    ParquetDataPage page = pageHeader.type == DATA_PAGE ?
+                            readDataPageV1(pageHeader, uncompressedPageSize, compressedPageSize) :
+                            readDataPageV2(pageHeader, uncompressedPageSize, compressedPageSize);
+                    if (!filter.isPresent() || filter.get().isSelected(valueCount, page.getValueCount())) {
+                        pages.add(page);
+                        firstRowIndexes.add(valueCount);
+                    }
+                    valueCount += page.getValueCount();
                     break;
                 default:
                     skip(compressedPageSize);
                     break;
             }
         }
-        return new ParquetPageReader(descriptor.getColumnChunkMetaData().getCodec(), pages, dictionaryPage);
+        CompressionCodecName codec = descriptor.getColumnChunkMetaData().getCodec();
+        if (filter.isPresent()) {
+            return new ParquetPageReader(codec, pages, Longs.toArray(firstRowIndexes), dictionaryPage);
+        }
+        return new ParquetPageReader(codec, pages, dictionaryPage);
     }
 
     public int getPosition()
@@ -114,14 +144,13 @@ public class ParquetColumnChunk
                 getParquetEncoding(Encoding.valueOf(dicHeader.getEncoding().name())));
     }
 
-    private long readDataPageV1(PageHeader pageHeader,
+    private ParquetDataPage readDataPageV1(PageHeader pageHeader,
             int uncompressedPageSize,
-            int compressedPageSize,
-            List<ParquetDataPage> pages)
+            int compressedPageSize)
             throws IOException
     {
         DataPageHeader dataHeaderV1 = pageHeader.getData_page_header();
-        pages.add(new ParquetDataPageV1(
+        return new ParquetDataPageV1(
                 getSlice(compressedPageSize),
                 dataHeaderV1.getNum_values(),
                 uncompressedPageSize,
@@ -130,19 +159,17 @@ public class ParquetColumnChunk
                         descriptor.getColumnDescriptor().getType()),
                 getParquetEncoding(Encoding.valueOf(dataHeaderV1.getRepetition_level_encoding().name())),
                 getParquetEncoding(Encoding.valueOf(dataHeaderV1.getDefinition_level_encoding().name())),
-                getParquetEncoding(Encoding.valueOf(dataHeaderV1.getEncoding().name()))));
-        return dataHeaderV1.getNum_values();
+                getParquetEncoding(Encoding.valueOf(dataHeaderV1.getEncoding().name())));
     }
 
-    private long readDataPageV2(PageHeader pageHeader,
+    private ParquetDataPage readDataPageV2(PageHeader pageHeader,
             int uncompressedPageSize,
-            int compressedPageSize,
-            List<ParquetDataPage> pages)
+            int compressedPageSize)
             throws IOException
     {
         DataPageHeaderV2 dataHeaderV2 = pageHeader.getData_page_header_v2();
         int dataSize = compressedPageSize - dataHeaderV2.getRepetition_levels_byte_length() - dataHeaderV2.getDefinition_levels_byte_length();
-        pages.add(new ParquetDataPageV2(
+        return new ParquetDataPageV2(
                 dataHeaderV2.getNum_rows(),
                 dataHeaderV2.getNum_nulls(),
                 dataHeaderV2.getNum_values(),
@@ -154,7 +181,11 @@ public class ParquetColumnChunk
                 ParquetMetadataReader.readStats(
                         dataHeaderV2.getStatistics(),
                         descriptor.getColumnDescriptor().getType()),
-                dataHeaderV2.isIs_compressed()));
-        return dataHeaderV2.getNum_values();
+                dataHeaderV2.isIs_compressed());
+    }
+
+    public interface PageFilter
+    {
+        boolean isSelected(long firstRow, int valueCount);
     }
 }
@@ -23,26 +23,33 @@ import com.facebook.presto.hive.parquet.dictionary.ParquetDictionary;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.DictionaryBlock;
+import com.facebook.presto.spi.block.DictionaryId;
 import com.facebook.presto.spi.type.Type;
 import io.airlift.slice.Slice;
-import parquet.bytes.BytesUtils;
 import parquet.column.ColumnDescriptor;
 import parquet.column.values.ValuesReader;
-import parquet.column.values.rle.RunLengthBitPackingHybridDecoder;
 import parquet.io.ParquetDecodingException;
 import parquet.schema.DecimalMetadata;
 import parquet.schema.OriginalType;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 
+import static com.facebook.presto.hive.parquet.ParquetEncoding.PLAIN;
+import static com.facebook.presto.hive.parquet.ParquetEncoding.RLE;
 import static com.facebook.presto.hive.parquet.ParquetValidationUtils.validateParquet;
 import static com.facebook.presto.hive.parquet.ParquetValuesType.DEFINITION_LEVEL;
 import static com.facebook.presto.hive.parquet.ParquetValuesType.REPETITION_LEVEL;
 import static com.facebook.presto.hive.parquet.ParquetValuesType.VALUES;
 import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
+import static com.facebook.presto.spi.block.DictionaryId.randomDictionaryId;
 import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.slice.SizeOf.SIZE_OF_INT;
+import static io.airlift.slice.Slices.wrappedIntArray;
+import static java.lang.Math.toIntExact;
 import static java.util.Objects.requireNonNull;
+import static parquet.bytes.BytesUtils.getWidthFromMaxInt;
+import static parquet.bytes.BytesUtils.readIntLittleEndian;
 
 public abstract class ParquetColumnReader
 {
@@ -56,6 +63,7 @@ public abstract class ParquetColumnReader
     private long totalValueCount;
     private ParquetPageReader pageReader;
     private ParquetDictionary dictionary;
+    private int dictionarySize;
     private int repetitionLevel;
     private int definitionLevel;
     private int currentValueCount;
@@ -63,6 +71,16 @@ public abstract class ParquetColumnReader
     private int remainingValueCountInPage;
     private int readOffset;
 
+    // batch decoding of the common encodings, used instead of the values reader for the supported types
+    private boolean batchDecoding;
+    private ParquetPlainValuesDecoder plainValuesDecoder;
+    private ParquetRleBitPackingHybridDecoder dictionaryIdDecoder;
+    private ParquetBatchValues dictionaryValues;
+    private Block dictionaryBlock;
+    private DictionaryId dictionaryId;
+    private int[] definitionLevels = new int[0];
+    private int[] dictionaryIds = new int[0];
+
     public abstract BlockBuilder createBlockBuilder(Type type);
 
     public abstract void readValues(BlockBuilder blockBuilder, int valueNumber, Type type);
@@ -118,6 +136,7 @@ public abstract class ParquetColumnReader
         if (dictionaryPage != null) {
             try {
                 dictionary = dictionaryPage.getEncoding().initDictionary(columnDescriptor, dictionaryPage);
+                dictionarySize = dictionaryPage.getDictionarySize();
             }
             catch (IOException e) {
                 throw new ParquetDecodingException("could not decode the dictionary for " + columnDescriptor, e);
@@ -126,13 +145,19 @@ public abstract class ParquetColumnReader
         else {
             dictionary = null;
         }
+        dictionaryValues = null;
+        dictionaryBlock = null;
+        dictionaryId = null;
         checkArgument(pageReader.getTotalValueCount() > 0, "page is empty");
         totalValueCount = pageReader.getTotalValueCount();
     }
 
-    public void prepareNextRead(int batchSize)
+    /**
+     * Prepares reading the next batch, which starts after the given number of rows following the previous batch.
+     */
+    public void prepareNextRead(int skippedRows, int batchSize)
     {
-        readOffset = readOffset + nextBatchSize;
+        readOffset = readOffset + nextBatchSize + skippedRows;
         nextBatchSize = batchSize;
     }
 
@@ -160,22 +185,40 @@ public abstract class ParquetColumnReader
             throws IOException
     {
         checkArgument(currentValueCount <= totalValueCount, "Already read all values in column chunk");
-        // Parquet does not have api to skip in datastream, have to skip values
-        // TODO skip in datastream
+        // the type is the same for all batches of the column, so a page is never shared by both ways of decoding
+        batchDecoding = ParquetBatchValues.isSupported(columnDescriptor.getType(), type);
+
+        // whole pages are skipped without decoding them, within a page the values have to be skipped one by one
         if (readOffset != 0) {
             int valuePosition = 0;
             while (valuePosition < readOffset) {
                 if (page == null) {
+                    valuePosition += skipPages(readOffset - valuePosition);
+                    if (valuePosition == readOffset) {
+                        break;
+                    }
                     readNextPage();
                 }
                 int offsetNumber = Math.min(remainingValueCountInPage, readOffset - valuePosition);
-                skipValues(offsetNumber);
+                if (batchDecoding) {
+                    skipBatch(offsetNumber);
+                }
+                else {
+                    skipValues(offsetNumber);
+                }
                 valuePosition = valuePosition + offsetNumber;
                 updatePosition(offsetNumber);
             }
             checkArgument(valuePosition == readOffset, "valuePosition " + valuePosition + " not equals to readOffset " + readOffset);
         }
 
+        if (batchDecoding) {
+            Block block = readBatch(type);
+            readOffset = 0;
+            nextBatchSize = 0;
+            return block;
+        }
+
         BlockBuilder blockBuilder = createBlockBuilder(type);
         int valueCount = 0;
         while (valueCount < nextBatchSize) {
@@ -194,9 +237,151 @@ public abstract class ParquetColumnReader
         return blockBuilder.build();
     }
 
+    private Block readBatch(Type type)
+            throws IOException
+    {
+        int batchSize = nextBatchSize;
+        boolean[] valueIsNull = new boolean[batchSize];
+        int[] batchDictionaryIds = null;
+        ParquetBatchValues values = null;
+
+        int valueCount = 0;
+        while (valueCount < batchSize) {
+            if (page == null) {
+                readNextPage();
+            }
+            int valueNumber = Math.min(remainingValueCountInPage, batchSize - valueCount);
+            int nonNullCount = readDefinitionLevels(valueNumber);
+            int maxDefinitionLevel = columnDescriptor.getMaxDefinitionLevel();
+            for (int i = 0; i < valueNumber; i++) {
+                valueIsNull[valueCount + i] = definitionLevels[i] != maxDefinitionLevel;
+            }
+
+            if (dictionaryIdDecoder != null && values == null) {
+                // keep the ids while all values of the batch are dictionary encoded, with nulls at the end of the dictionary
+                if (batchDictionaryIds == null) {
+                    batchDictionaryIds = new int[batchSize];
+                }
+                dictionaryIdDecoder.readInts(batchDictionaryIds, valueCount, nonNullCount);
+                int nullId = dictionarySize;
+                int idIndex = valueCount + nonNullCount - 1;
+                for (int position = valueCount + valueNumber - 1; position > idIndex; position--) {
+                    batchDictionaryIds[position] = valueIsNull[position] ? nullId : batchDictionaryIds[idIndex--];
+                }
+            }
+            else {
+                if (values == null) {
+                    values = ParquetBatchValues.create(columnDescriptor.getType(), batchSize);
+                    if (batchDictionaryIds != null) {
+                        values.copyFromDictionary(getDictionaryValues(), batchDictionaryIds, 0, valueCount);
+                    }
+                }
+                if (dictionaryIdDecoder != null) {
+                    if (dictionaryIds.length < nonNullCount) {
+                        dictionaryIds = new int[nonNullCount];
+                    }
+                    dictionaryIdDecoder.readInts(dictionaryIds, 0, nonNullCount);
+                    values.copyFromDictionary(getDictionaryValues(), dictionaryIds, valueCount, nonNullCount);
+                }
+                else if (plainValuesDecoder != null) {
+                    values.readPlain(plainValuesDecoder, valueCount, nonNullCount);
+                }
+                else {
+                    values.read(valuesReader, valueCount, nonNullCount);
+                }
+                values.spread(valueIsNull, valueCount, valueNumber, nonNullCount);
+            }
+            valueCount = valueCount + valueNumber;
+            updatePosition(valueNumber);
+        }
+
+        if (values == null) {
+            Block dictionaryBlock = getDictionaryBlock();
+            return new DictionaryBlock(batchSize, dictionaryBlock, wrappedIntArray(batchDictionaryIds), dictionaryId);
+        }
+        return values.build(batchSize, valueIsNull);
+    }
+
+    private void skipBatch(int valueNumber)
+    {
+        int nonNullCount = readDefinitionLevels(valueNumber);
+        if (dictionaryIdDecoder != null) {
+            dictionaryIdDecoder.skip(nonNullCount);
+        }
+        else if (plainValuesDecoder != null) {
+            plainValuesDecoder.skip(nonNullCount);
+        }
+        else {
+            for (int i = 0; i < nonNullCount; i++) {
+                valuesReader.skip();
+            }
+        }
+    }
+
+    /**
+     * Skips the pages which only contain values before the end of the skipped values, and returns the number of values skipped.
+     */
+    private int skipPages(int valueNumber)
+    {
+        // without repetition every value is a row, and the pages of the column chunk are indexed by row
+        if (columnDescriptor.getMaxRepetitionLevel() != 0) {
+            return 0;
+        }
+        long targetRow = currentValueCount + valueNumber;
+        pageReader.skipPagesBefore(targetRow);
+        int skippedValues = toIntExact(Math.min(pageReader.getNextPageFirstRow(), targetRow) - currentValueCount);
+        currentValueCount += skippedValues;
+        return skippedValues;
+    }
+
+    /**
+     * Returns the decoded values of the dictionary, followed by a null entry.
+     */
+    private ParquetBatchValues getDictionaryValues()
+    {
+        if (dictionaryValues == null) {
+            dictionaryValues = ParquetBatchValues.create(columnDescriptor.getType(), dictionarySize + 1);
+            dictionaryValues.readDictionary(dictionary, dictionarySize);
+        }
+        return dictionaryValues;
+    }
+
+    private Block getDictionaryBlock()
+    {
+        if (dictionaryBlock == null) {
+            boolean[] valueIsNull = new boolean[dictionarySize + 1];
+            valueIsNull[dictionarySize] = true;
+            dictionaryBlock = getDictionaryValues().build(dictionarySize + 1, valueIsNull);
+            dictionaryId = randomDictionaryId();
+        }
+        return dictionaryBlock;
+    }
+
+    /**
+     * Reads the definition levels of the next values of the page, and returns the number of non-null values.
+     */
+    private int readDefinitionLevels(int valueNumber)
+    {
+        if (definitionLevels.length < valueNumber) {
+            definitionLevels = new int[valueNumber];
+        }
+        definitionReader.readLevels(definitionLevels, 0, valueNumber);
+        int maxDefinitionLevel = columnDescriptor.getMaxDefinitionLevel();
+        int nonNullCount = 0;
+        for (int i = 0; i < valueNumber; i++) {
+            if (definitionLevels[i] == maxDefinitionLevel) {
+                nonNullCount++;
+            }
+        }
+        return nonNullCount;
+    }
+
     private void readNextPage()
             throws IOException
     {
+        if (columnDescriptor.getMaxRepetitionLevel() == 0) {
+            validateParquet(pageReader.getNextPageFirstRow() == currentValueCount, "Page of row %s is missing in column chunk", currentValueCount);
+        }
         page = pageReader.readPage();
         validateParquet(page != null, "Not enough values to read in column chunk");
         remainingValueCountInPage = page.getValueCount();
@@ -221,16 +406,37 @@ public abstract class ParquetColumnReader
 
     private ValuesReader readPageV1(ParquetDataPageV1 page)
     {
-        ValuesReader rlReader = page.getRepetitionLevelEncoding().getValuesReader(columnDescriptor, REPETITION_LEVEL);
-        ValuesReader dlReader = page.getDefinitionLevelEncoding().getValuesReader(columnDescriptor, DEFINITION_LEVEL);
-        repetitionReader = new ParquetLevelValuesReader(rlReader);
-        definitionReader = new ParquetLevelValuesReader(dlReader);
         try {
             byte[] bytes = page.getSlice().getBytes();
-            rlReader.initFromPage(page.getValueCount(), bytes, 0);
-            int offset = rlReader.getNextOffset();
-            dlReader.initFromPage(page.getValueCount(), bytes, offset);
-            offset = dlReader.getNextOffset();
+            int offset = 0;
+
+            // RLE encoded levels are prefixed with their length, and are decoded in batches
+            int maxRepetitionLevel = columnDescriptor.getMaxRepetitionLevel();
+            if (page.getRepetitionLevelEncoding() == RLE && maxRepetitionLevel > 0) {
+                int length = readIntLittleEndian(bytes, offset);
+                repetitionReader = new ParquetLevelRLEReader(new ParquetRleBitPackingHybridDecoder(getWidthFromMaxInt(maxRepetitionLevel), bytes, offset + SIZE_OF_INT, length));
+                offset += SIZE_OF_INT + length;
+            }
+            else {
+                ValuesReader rlReader = page.getRepetitionLevelEncoding().getValuesReader(columnDescriptor, REPETITION_LEVEL);
+                repetitionReader = new ParquetLevelValuesReader(rlReader);
+                rlReader.initFromPage(page.getValueCount(), bytes, offset);
+                offset = rlReader.getNextOffset();
+            }
+
+            int maxDefinitionLevel = columnDescriptor.getMaxDefinitionLevel();
+            if (page.getDefinitionLevelEncoding() == RLE && maxDefinitionLevel > 0) {
+                int length = readIntLittleEndian(bytes, offset);
+                definitionReader = new ParquetLevelRLEReader(new ParquetRleBitPackingHybridDecoder(getWidthFromMaxInt(maxDefinitionLevel), bytes, offset + SIZE_OF_INT, length));
+                offset += SIZE_OF_INT + length;
+            }
+            else {
+                ValuesReader dlReader = page.getDefinitionLevelEncoding().getValuesReader(columnDescriptor, DEFINITION_LEVEL);
+                definitionReader = new ParquetLevelValuesReader(dlReader);
+                dlReader.initFromPage(page.getValueCount(), bytes, offset);
+                offset = dlReader.getNextOffset();
+            }
+
             return initDataReader(page.getValueEncoding(), bytes, offset, page.getValueCount());
         }
         catch (IOException e) {
@@ -250,11 +456,29 @@ public abstract class ParquetColumnReader
         if (maxLevel == 0) {
             return new ParquetLevelNullReader();
         }
-        return new ParquetLevelRLEReader(new RunLengthBitPackingHybridDecoder(BytesUtils.getWidthFromMaxInt(maxLevel), new ByteArrayInputStream(slice.getBytes())));
+        byte[] bytes = slice.getBytes();
+        return new ParquetLevelRLEReader(new ParquetRleBitPackingHybridDecoder(getWidthFromMaxInt(maxLevel), bytes, 0, bytes.length));
     }
 
     private ValuesReader initDataReader(ParquetEncoding dataEncoding, byte[] bytes, int offset, int valueCount)
     {
+        plainValuesDecoder = null;
+        dictionaryIdDecoder = null;
+        if (batchDecoding && dataEncoding == PLAIN) {
+            plainValuesDecoder = new ParquetPlainValuesDecoder(columnDescriptor.getType(), bytes, offset);
+            return null;
+        }
+        if (batchDecoding && dataEncoding.usesDictionary()) {
+            if (dictionary == null) {
+                throw new ParquetDecodingException("Dictionary is missing for Page");
+            }
+            // the ids are prefixed with their bit width, which is missing when the page has no values
+            int bitWidth = offset < bytes.length ? bytes[offset] : 0;
+            int idsOffset = Math.min(offset + 1, bytes.length);
+            dictionaryIdDecoder = new ParquetRleBitPackingHybridDecoder(bitWidth, bytes, idsOffset, bytes.length - idsOffset);
+            return null;
+        }
+
         ValuesReader valuesReader;
         if (dataEncoding.usesDictionary()) {
             if (dictionary == null) {
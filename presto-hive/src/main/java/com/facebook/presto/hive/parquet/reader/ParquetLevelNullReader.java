@@ -13,6 +13,8 @@
  */
 package com.facebook.presto.hive.parquet.reader;
 
+import java.util.Arrays;
+
 public class ParquetLevelNullReader
         implements ParquetLevelReader
 {
@@ -21,4 +23,10 @@ public class ParquetLevelNullReader
     {
         return 0;
     }
+
+    @Override
+    public void readLevels(int[] levels, int offset, int length)
+    {
+        Arrays.fill(levels, offset, offset + length, 0);
+    }
 }
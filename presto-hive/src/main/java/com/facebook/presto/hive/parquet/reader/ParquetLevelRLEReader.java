@@ -13,29 +13,27 @@
  */
 package com.facebook.presto.hive.parquet.reader;
 
-import parquet.column.values.rle.RunLengthBitPackingHybridDecoder;
-import parquet.io.ParquetDecodingException;
-
-import java.io.IOException;
+import static java.util.Objects.requireNonNull;
 
 public class ParquetLevelRLEReader
         implements ParquetLevelReader
 {
-    private final RunLengthBitPackingHybridDecoder delegate;
+    private final ParquetRleBitPackingHybridDecoder delegate;
 
-    public ParquetLevelRLEReader(RunLengthBitPackingHybridDecoder delegate)
+    public ParquetLevelRLEReader(ParquetRleBitPackingHybridDecoder delegate)
     {
-        this.delegate = delegate;
+        this.delegate = requireNonNull(delegate, "delegate is null");
     }
 
     @Override
     public int readLevel()
     {
-        try {
-            return delegate.readInt();
-        }
-        catch (IOException e) {
-            throw new ParquetDecodingException(e);
-        }
+        return delegate.readInt();
+    }
+
+    @Override
+    public void readLevels(int[] levels, int offset, int length)
+    {
+        delegate.readInts(levels, offset, length);
     }
 }
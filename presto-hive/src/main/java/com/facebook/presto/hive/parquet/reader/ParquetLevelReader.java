@@ -16,4 +16,11 @@ package com.facebook.presto.hive.parquet.reader;
 public interface ParquetLevelReader
 {
     int readLevel();
+
+    default void readLevels(int[] levels, int offset, int length)
+    {
+        for (int i = offset; i < offset + length; i++) {
+            levels[i] = readLevel();
+        }
+    }
 }
@@ -21,30 +21,45 @@ import parquet.Ints;
 import parquet.hadoop.metadata.CompressionCodecName;
 
 import java.io.IOException;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import static com.facebook.presto.hive.parquet.ParquetCompressionUtils.decompress;
+import static com.google.common.base.Preconditions.checkArgument;
 
 class ParquetPageReader
 {
     private final CompressionCodecName codec;
     private final long valueCount;
     private final List<ParquetDataPage> compressedPages;
+    private final long[] firstRowIndexes;
     private final ParquetDictionaryPage compressedDictionaryPage;
+    private int nextPage;
 
     public ParquetPageReader(CompressionCodecName codec,
             List<ParquetDataPage> compressedPages,
             ParquetDictionaryPage compressedDictionaryPage)
     {
+        this(codec, compressedPages, getFirstValueIndexes(compressedPages), compressedDictionaryPage);
+    }
+
+    /**
+     * Creates a reader of a subset of the pages of a flat column chunk, where the first row
+     * of every page is known and the rows between the pages are not present.
+     */
+    public ParquetPageReader(CompressionCodecName codec,
+            List<ParquetDataPage> compressedPages,
+            long[] firstRowIndexes,
+            ParquetDictionaryPage compressedDictionaryPage)
+    {
+        checkArgument(compressedPages.size() == firstRowIndexes.length, "compressedPages and firstRowIndexes do not match");
         this.codec = codec;
-        this.compressedPages = new LinkedList<>(compressedPages);
+        this.compressedPages = new ArrayList<>(compressedPages);
+        this.firstRowIndexes = firstRowIndexes;
         this.compressedDictionaryPage = compressedDictionaryPage;
-        int count = 0;
-        for (ParquetDataPage page : compressedPages) {
-            count += page.getValueCount();
-        }
-        this.valueCount = count;
+        int lastPage = compressedPages.size() - 1;
+        this.valueCount = lastPage < 0 ? 0 : firstRowIndexes[lastPage] + compressedPages.get(lastPage).getValueCount();
     }
 
     public long getTotalValueCount()
@@ -52,12 +67,46 @@ class ParquetPageReader
         return valueCount;
     }
 
+    /**
+     * Data pages of the column chunk in their compressed form. Pages which were already read are null.
+     */
+    public List<ParquetDataPage> getCompressedPages()
+    {
+        return Collections.unmodifiableList(compressedPages);
+    }
+
+    /**
+     * Index of the first row of the next page, or the total value count if all pages were read.
+     * Rows are only tracked for columns without repetition, where every value is a row.
+     */
+    public long getNextPageFirstRow()
+    {
+        if (nextPage == compressedPages.size()) {
+            return valueCount;
+        }
+        return firstRowIndexes[nextPage];
+    }
+
+    /**
+     * Drops the pages which end at or before the given row, without decompressing them.
+     */
+    public void skipPagesBefore(long row)
+    {
+        while (nextPage < compressedPages.size() && firstRowIndexes[nextPage] + compressedPages.get(nextPage).getValueCount() <= row) {
+            compressedPages.set(nextPage, null);
+            nextPage++;
+        }
+    }
+
     public ParquetDataPage readPage()
     {
-        if (compressedPages.isEmpty()) {
+        if (nextPage == compressedPages.size()) {
             return null;
         }
-        ParquetDataPage compressedPage = compressedPages.remove(0);
+        ParquetDataPage compressedPage = compressedPages.get(nextPage);
+        // release the compressed data as soon as the page is read
+        compressedPages.set(nextPage, null);
+        nextPage++;
         try {
             if (compressedPage instanceof ParquetDataPageV1) {
                 ParquetDataPageV1 dataPageV1 = (ParquetDataPageV1) compressedPage;
@@ -112,4 +161,15 @@ class ParquetPageReader
             throw new RuntimeException("Error reading dictionary page", e);
         }
     }
+
+    private static long[] getFirstValueIndexes(List<ParquetDataPage> pages)
+    {
+        long[] firstValueIndexes = new long[pages.size()];
+        long valueCount = 0;
+        for (int i = 0; i < pages.size(); i++) {
+            firstValueIndexes[i] = valueCount;
+            valueCount += pages.get(i).getValueCount();
+        }
+        return firstValueIndexes;
+    }
 }
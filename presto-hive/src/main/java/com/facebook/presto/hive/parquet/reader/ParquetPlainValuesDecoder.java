@@ -0,0 +1,91 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.parquet.reader;
+
+import io.airlift.slice.Slice;
+import parquet.schema.PrimitiveType.PrimitiveTypeName;
+
+import static io.airlift.slice.SizeOf.SIZE_OF_INT;
+import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
+import static io.airlift.slice.Slices.EMPTY_SLICE;
+import static io.airlift.slice.Slices.wrappedBuffer;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Decoder for the values of a PLAIN encoded data page, which reads batches of
+ * values directly from the page buffer into an array.
+ */
+class ParquetPlainValuesDecoder
+{
+    private final PrimitiveTypeName physicalType;
+    private final Slice data;
+    private int position;
+
+    public ParquetPlainValuesDecoder(PrimitiveTypeName physicalType, byte[] page, int offset)
+    {
+        this.physicalType = requireNonNull(physicalType, "physicalType is null");
+        this.data = wrappedBuffer(page);
+        this.position = offset;
+    }
+
+    public void readInts(int[] values, int offset, int length)
+    {
+        for (int i = offset; i < offset + length; i++) {
+            values[i] = data.getInt(position);
+            position += SIZE_OF_INT;
+        }
+    }
+
+    public void readLongs(long[] values, int offset, int length)
+    {
+        for (int i = offset; i < offset + length; i++) {
+            values[i] = data.getLong(position);
+            position += SIZE_OF_LONG;
+        }
+    }
+
+    /**
+     * Reads length prefixed binary values. The values are views of the page buffer.
+     */
+    public void readSlices(Slice[] values, int offset, int length)
+    {
+        for (int i = offset; i < offset + length; i++) {
+            int valueLength = data.getInt(position);
+            position += SIZE_OF_INT;
+            values[i] = valueLength == 0 ? EMPTY_SLICE : data.slice(position, valueLength);
+            position += valueLength;
+        }
+    }
+
+    public void skip(int length)
+    {
+        switch (physicalType) {
+            case INT32:
+            case FLOAT:
+                position += length * SIZE_OF_INT;
+                break;
+            case INT64:
+            case DOUBLE:
+                position += length * SIZE_OF_LONG;
+                break;
+            case BINARY:
+                for (int i = 0; i < length; i++) {
+                    position += SIZE_OF_INT + data.getInt(position);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported physical type: " + physicalType);
+        }
+    }
+}
@@ -14,8 +14,10 @@
 package com.facebook.presto.hive.parquet.reader;
 
 import com.facebook.presto.hive.parquet.ParquetCorruptionException;
+import com.facebook.presto.hive.parquet.ParquetDataPage;
 import com.facebook.presto.hive.parquet.ParquetDataSource;
 import com.facebook.presto.hive.parquet.RichColumnDescriptor;
+import com.facebook.presto.hive.parquet.predicate.ParquetPredicate;
 import com.facebook.presto.spi.block.ArrayBlock;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.InterleavedBlock;
@@ -24,7 +26,10 @@ import com.facebook.presto.spi.type.NamedTypeSignature;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.spi.type.TypeManager;
 import com.facebook.presto.spi.type.TypeSignatureParameter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import parquet.column.ColumnDescriptor;
+import parquet.column.statistics.Statistics;
 import parquet.hadoop.metadata.BlockMetaData;
 import parquet.hadoop.metadata.ColumnChunkMetaData;
 import parquet.hadoop.metadata.ColumnPath;
@@ -33,6 +38,7 @@ import parquet.schema.MessageType;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -44,11 +50,14 @@ import static com.facebook.presto.hive.parquet.ParquetValidationUtils.validatePa
 import static com.facebook.presto.spi.type.StandardTypes.ROW;
 import static com.google.common.primitives.Ints.checkedCast;
 import static java.lang.Math.min;
+import static java.util.Objects.requireNonNull;
 
 public class ParquetReader
         implements Closeable
 {
     private static final int MAX_VECTOR_LENGTH = 1024;
+    // fraction of the rows of a row group which must be pruned before pages are dropped when reading a column chunk
+    private static final double MIN_PRUNED_FRACTION = 0.5;
 
     private final MessageType fileSchema;
     private final MessageType requestedSchema;
@@ -64,17 +73,44 @@ public class ParquetReader
     private int batchSize;
     private final Map<ColumnDescriptor, ParquetColumnReader> columnReadersMap = new HashMap<>();
 
+    private final ParquetPredicate predicate;
+    private final List<ColumnDescriptor> predicateColumns;
+    private final boolean pageSkippingSupported;
+    // rows of the current row group in pages eliminated by the predicate, or null if all rows are read
+    private BitSet prunedRows;
+    private final Map<ColumnDescriptor, ParquetPageReader> predicatePageReaders = new HashMap<>();
+
     public ParquetReader(MessageType fileSchema,
             MessageType requestedSchema,
             List<BlockMetaData> blocks,
             ParquetDataSource dataSource,
             TypeManager typeManager)
+    {
+        this(fileSchema, requestedSchema, blocks, dataSource, typeManager, ParquetPredicate.TRUE, ImmutableList.of());
+    }
+
+    /**
+     * Creates a reader which skips the data pages of the predicate columns whose statistics
+     * do not match the predicate, together with the same rows of all other columns.
+     */
+    public ParquetReader(MessageType fileSchema,
+            MessageType requestedSchema,
+            List<BlockMetaData> blocks,
+            ParquetDataSource dataSource,
+            TypeManager typeManager,
+            ParquetPredicate predicate,
+            List<ColumnDescriptor> predicateColumns)
     {
         this.fileSchema = fileSchema;
         this.requestedSchema = requestedSchema;
         this.blocks = blocks;
         this.dataSource = dataSource;
         this.typeManager = typeManager;
+        this.predicate = requireNonNull(predicate, "predicate is null");
+        this.predicateColumns = ImmutableList.copyOf(requireNonNull(predicateColumns, "predicateColumns is null"));
+        // pages are aligned by row, which is only known for columns without repetition
+        this.pageSkippingSupported = !this.predicateColumns.isEmpty() && getColumns(fileSchema, requestedSchema).stream()
+                .allMatch(columnIO -> columnIO.getColumnDescriptor().getMaxRepetitionLevel() == 0);
         initializeColumnReaders();
     }
 
@@ -91,12 +127,23 @@ public class ParquetReader
     }
 
     public int nextBatch()
+            throws IOException
     {
-        if (nextRowInGroup >= currentGroupRowCount && !advanceToNextRowGroup()) {
-            return -1;
+        long skippedRows = 0;
+        do {
+            if (nextRowInGroup >= currentGroupRowCount) {
+                if (!advanceToNextRowGroup()) {
+                    return -1;
+                }
+                skippedRows = 0;
+            }
+            long nextSelectedRow = getNextSelectedRow(nextRowInGroup);
+            skippedRows += nextSelectedRow - nextRowInGroup;
+            nextRowInGroup = nextSelectedRow;
         }
+        while (nextRowInGroup >= currentGroupRowCount);
 
-        batchSize = checkedCast(min(MAX_VECTOR_LENGTH, currentGroupRowCount - nextRowInGroup));
+        batchSize = checkedCast(min(MAX_VECTOR_LENGTH, getSelectedRangeEnd(nextRowInGroup) - nextRowInGroup));
 
         nextRowInGroup += batchSize;
         currentPosition += batchSize;
@@ -104,12 +151,39 @@ public class ParquetReader
             ColumnDescriptor descriptor = columnIO.getColumnDescriptor();
             RichColumnDescriptor column = new RichColumnDescriptor(descriptor.getPath(), columnIO.getType().asPrimitiveType(), descriptor.getMaxRepetitionLevel(), descriptor.getMaxDefinitionLevel());
             ParquetColumnReader columnReader = columnReadersMap.get(column);
-            columnReader.prepareNextRead(batchSize);
+            columnReader.prepareNextRead(checkedCast(skippedRows), batchSize);
         }
         return batchSize;
     }
 
+    /**
+     * Whether enough rows of the current row group are pruned to drop their pages up front. Otherwise
+     * the column readers skip the pruned rows, which also drops whole pages without decompressing them.
+     */
+    private boolean isSubstantiallyPruned()
+    {
+        return prunedRows != null && prunedRows.cardinality() >= currentGroupRowCount * MIN_PRUNED_FRACTION;
+    }
+
+    private long getNextSelectedRow(long row)
+    {
+        if (prunedRows == null) {
+            return row;
+        }
+        return min(prunedRows.nextClearBit(checkedCast(row)), currentGroupRowCount);
+    }
+
+    private long getSelectedRangeEnd(long row)
+    {
+        if (prunedRows == null) {
+            return currentGroupRowCount;
+        }
+        int nextPrunedRow = prunedRows.nextSetBit(checkedCast(row));
+        return nextPrunedRow < 0 ? currentGroupRowCount : nextPrunedRow;
+    }
+
     private boolean advanceToNextRowGroup()
+            throws IOException
     {
         if (currentBlock == blocks.size()) {
             return false;
@@ -121,9 +195,40 @@ public class ParquetReader
         currentGroupRowCount = currentBlockMetadata.getRowCount();
         columnReadersMap.clear();
         initializeColumnReaders();
+        predicatePageReaders.clear();
+        prunedRows = pageSkippingSupported ? getPrunedRows() : null;
         return true;
     }
 
+    /**
+     * Evaluates the predicate on the statistics of every data page of the predicate columns, and returns
+     * the rows of the pages which can not match, or null if no page can be skipped. The page readers of
+     * the predicate columns are kept, as their column chunks are read in full.
+     */
+    private BitSet getPrunedRows()
+            throws IOException
+    {
+        BitSet prunedRows = new BitSet();
+        for (ColumnDescriptor columnDescriptor : predicateColumns) {
+            int ordinal = getColumnOrdinal(columnDescriptor);
+            if (ordinal < 0) {
+                continue;
+            }
+            ParquetPageReader pageReader = readColumnChunk(columnDescriptor, currentBlockMetadata.getColumns().get(ordinal));
+            predicatePageReaders.put(columnDescriptor, pageReader);
+
+            long firstRow = 0;
+            for (ParquetDataPage page : pageReader.getCompressedPages()) {
+                Statistics<?> statistics = page.getStatistics();
+                if (statistics != null && !predicate.matches(page.getValueCount(), ImmutableMap.of(ordinal, statistics))) {
+                    prunedRows.set(checkedCast(firstRow), checkedCast(firstRow + page.getValueCount()));
+                }
+                firstRow += page.getValueCount();
+            }
+        }
+        return prunedRows.isEmpty() ? null : prunedRows;
+    }
+
     public Block readStruct(Type type, List<String> path)
             throws IOException
     {
@@ -164,18 +269,55 @@ public class ParquetReader
         ParquetColumnReader columnReader = columnReadersMap.get(columnDescriptor);
         if (columnReader.getPageReader() == null) {
             validateParquet(currentBlockMetadata.getRowCount() > 0, "Row group has 0 rows");
-            ColumnChunkMetaData metadata = getColumnChunkMetaData(columnDescriptor);
-            long startingPosition = metadata.getStartingPos();
-            int totalSize = checkedCast(metadata.getTotalSize());
-            byte[] buffer = new byte[totalSize];
-            dataSource.readFully(startingPosition, buffer);
-            ParquetColumnChunkDescriptor descriptor = new ParquetColumnChunkDescriptor(columnDescriptor, metadata, totalSize);
-            ParquetColumnChunk columnChunk = new ParquetColumnChunk(descriptor, buffer, 0);
-            columnReader.setPageReader(columnChunk.readAllPages());
+            ParquetPageReader pageReader = predicatePageReaders.remove(columnDescriptor);
+            if (pageReader == null) {
+                ColumnChunkMetaData metadata = getColumnChunkMetaData(columnDescriptor);
+                pageReader = isSubstantiallyPruned() ? readSelectedPages(columnDescriptor, metadata) : readColumnChunk(columnDescriptor, metadata);
+            }
+            columnReader.setPageReader(pageReader);
         }
         return columnReader.readPrimitive(type);
     }
 
+    private ParquetPageReader readColumnChunk(ColumnDescriptor columnDescriptor, ColumnChunkMetaData metadata)
+            throws IOException
+    {
+        return readColumnChunkData(columnDescriptor, metadata).readAllPages();
+    }
+
+    /**
+     * Reads the column chunk with a single read, and keeps the dictionary page and the data pages
+     * containing rows which were not pruned. The other data pages are dropped without being decompressed.
+     */
+    private ParquetPageReader readSelectedPages(ColumnDescriptor columnDescriptor, ColumnChunkMetaData metadata)
+            throws IOException
+    {
+        return readColumnChunkData(columnDescriptor, metadata)
+                .readSelectedPages((firstRow, valueCount) -> getNextSelectedRow(firstRow) < firstRow + valueCount);
+    }
+
+    private ParquetColumnChunk readColumnChunkData(ColumnDescriptor columnDescriptor, ColumnChunkMetaData metadata)
+            throws IOException
+    {
+        long startingPosition = metadata.getStartingPos();
+        int totalSize = checkedCast(metadata.getTotalSize());
+        byte[] buffer = new byte[totalSize];
+        dataSource.readFully(startingPosition, buffer);
+        ParquetColumnChunkDescriptor descriptor = new ParquetColumnChunkDescriptor(columnDescriptor, metadata, totalSize);
+        return new ParquetColumnChunk(descriptor, buffer, 0);
+    }
+
+    private int getColumnOrdinal(ColumnDescriptor columnDescriptor)
+    {
+        List<ColumnChunkMetaData> columns = currentBlockMetadata.getColumns();
+        for (int ordinal = 0; ordinal < columns.size(); ordinal++) {
+            if (columns.get(ordinal).getPath().equals(ColumnPath.get(columnDescriptor.getPath()))) {
+                return ordinal;
+            }
+        }
+        return -1;
+    }
+
     private ColumnChunkMetaData getColumnChunkMetaData(ColumnDescriptor columnDescriptor)
             throws IOException
     {
@@ -0,0 +1,170 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.parquet.reader;
+
+import parquet.io.ParquetDecodingException;
+
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+import static java.lang.Math.min;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Decoder for the RLE / bit-packing hybrid encoding used for definition levels,
+ * repetition levels and dictionary ids. Unlike the parquet-mr decoder, a whole
+ * run is decoded at once, so batches of values are copied or filled directly
+ * into the destination array.
+ */
+public class ParquetRleBitPackingHybridDecoder
+{
+    private final int bitWidth;
+    private final int byteWidth;
+    private final long mask;
+    private final byte[] data;
+    private final int end;
+    private int position;
+
+    private boolean rleRun;
+    private int rleValue;
+    private int[] packedValues = new int[0];
+    private int packedOffset;
+    private int remainingInRun;
+
+    public ParquetRleBitPackingHybridDecoder(int bitWidth, byte[] data, int offset, int length)
+    {
+        checkArgument(bitWidth >= 0 && bitWidth <= 32, "bitWidth must be between 0 and 32");
+        this.data = requireNonNull(data, "data is null");
+        checkPositionIndexes(offset, offset + length, data.length);
+        this.bitWidth = bitWidth;
+        this.byteWidth = (bitWidth + 7) / 8;
+        this.mask = (1L << bitWidth) - 1;
+        this.position = offset;
+        this.end = offset + length;
+    }
+
+    public int readInt()
+    {
+        if (remainingInRun == 0) {
+            readNextRun();
+        }
+        remainingInRun--;
+        if (rleRun) {
+            return rleValue;
+        }
+        return packedValues[packedOffset++];
+    }
+
+    public void readInts(int[] values, int offset, int length)
+    {
+        while (length > 0) {
+            if (remainingInRun == 0) {
+                readNextRun();
+            }
+            int count = min(length, remainingInRun);
+            if (rleRun) {
+                Arrays.fill(values, offset, offset + count, rleValue);
+            }
+            else {
+                System.arraycopy(packedValues, packedOffset, values, offset, count);
+                packedOffset += count;
+            }
+            remainingInRun -= count;
+            offset += count;
+            length -= count;
+        }
+    }
+
+    public void skip(int length)
+    {
+        while (length > 0) {
+            if (remainingInRun == 0) {
+                readNextRun();
+            }
+            int count = min(length, remainingInRun);
+            if (!rleRun) {
+                packedOffset += count;
+            }
+            remainingInRun -= count;
+            length -= count;
+        }
+    }
+
+    private void readNextRun()
+    {
+        int header = readUnsignedVarInt();
+        if ((header & 1) == 0) {
+            rleRun = true;
+            remainingInRun = header >>> 1;
+            int value = 0;
+            for (int i = 0; i < byteWidth; i++) {
+                value |= (readByte() & 0xFF) << (i * 8);
+            }
+            rleValue = value;
+        }
+        else {
+            rleRun = false;
+            int valueCount = (header >>> 1) * 8;
+            if (packedValues.length < valueCount) {
+                packedValues = new int[valueCount];
+            }
+            unpack(valueCount);
+            packedOffset = 0;
+            remainingInRun = valueCount;
+        }
+    }
+
+    private void unpack(int valueCount)
+    {
+        // values are packed starting from the least significant bit of every byte, and
+        // some writers do not write the padding of the last group, which then reads as zeros
+        long buffer = 0;
+        int bitsInBuffer = 0;
+        for (int i = 0; i < valueCount; i++) {
+            while (bitsInBuffer < bitWidth) {
+                if (position < end) {
+                    buffer |= (data[position] & 0xFFL) << bitsInBuffer;
+                }
+                position++;
+                bitsInBuffer += 8;
+            }
+            packedValues[i] = (int) (buffer & mask);
+            buffer >>>= bitWidth;
+            bitsInBuffer -= bitWidth;
+        }
+    }
+
+    private int readUnsignedVarInt()
+    {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = readByte();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        }
+        while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private byte readByte()
+    {
+        if (position >= end) {
+            throw new ParquetDecodingException("Unexpected end of RLE / bit-packed data");
+        }
+        return data[position++];
+    }
+}
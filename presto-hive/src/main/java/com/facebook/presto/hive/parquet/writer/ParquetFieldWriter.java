@@ -0,0 +1,138 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.parquet.writer;
+
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import parquet.column.ColumnWriteStore;
+import parquet.schema.GroupType;
+import parquet.schema.MessageType;
+
+import java.util.List;
+
+import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
+import static com.facebook.presto.spi.type.StandardTypes.ARRAY;
+import static com.facebook.presto.spi.type.StandardTypes.MAP;
+import static com.facebook.presto.spi.type.StandardTypes.ROW;
+import static parquet.schema.Type.Repetition.OPTIONAL;
+import static parquet.schema.Type.Repetition.REPEATED;
+
+/**
+ * Writes the values of a field, and of all nested fields, to the column writers of the
+ * primitive columns below the field. Structural values are shredded into repetition and
+ * definition levels as described in the Dremel paper.
+ */
+public abstract class ParquetFieldWriter
+{
+    protected final boolean optional;
+
+    protected ParquetFieldWriter(boolean optional)
+    {
+        this.optional = optional;
+    }
+
+    /**
+     * Writes the value at the position of the block. The definition level is the
+     * level of the parent of this field.
+     */
+    public abstract void write(Block block, int position, int repetitionLevel, int definitionLevel);
+
+    /**
+     * Writes a missing value to all primitive columns below this field.
+     */
+    public abstract void writeNull(int repetitionLevel, int definitionLevel);
+
+    /**
+     * Switches to the column writers of a new row group.
+     */
+    public abstract void setColumnWriteStore(ColumnWriteStore columnWriteStore);
+
+    protected int getValueDefinitionLevel(int definitionLevel)
+    {
+        return optional ? definitionLevel + 1 : definitionLevel;
+    }
+
+    public static ParquetFieldWriter createFieldWriter(MessageType schema, Type type, parquet.schema.Type parquetType, List<String> path, int repetitionLevel)
+    {
+        boolean optional = parquetType.isRepetition(OPTIONAL);
+        if (parquetType.isPrimitive()) {
+            return new ParquetPrimitiveFieldWriter(schema.getColumnDescription(path.toArray(new String[path.size()])), type, optional);
+        }
+
+        GroupType groupType = parquetType.asGroupType();
+        String baseType = type.getTypeSignature().getBase();
+        if (ARRAY.equals(baseType)) {
+            // optional group name (LIST) { repeated group bag { optional type element; } }
+            GroupType repeatedType = getRepeatedGroup(groupType);
+            parquet.schema.Type elementType = repeatedType.getType(0);
+            ParquetFieldWriter elementWriter = createFieldWriter(
+                    schema,
+                    type.getTypeParameters().get(0),
+                    elementType,
+                    append(path, repeatedType.getName(), elementType.getName()),
+                    repetitionLevel + 1);
+            return new ParquetListFieldWriter(optional, repetitionLevel + 1, elementWriter);
+        }
+        if (MAP.equals(baseType)) {
+            // optional group name (MAP) { repeated group map (MAP_KEY_VALUE) { required type key; optional type value; } }
+            GroupType repeatedType = getRepeatedGroup(groupType);
+            parquet.schema.Type keyType = repeatedType.getType(0);
+            parquet.schema.Type valueType = repeatedType.getType(1);
+            ParquetFieldWriter keyWriter = createFieldWriter(
+                    schema,
+                    type.getTypeParameters().get(0),
+                    keyType,
+                    append(path, repeatedType.getName(), keyType.getName()),
+                    repetitionLevel + 1);
+            ParquetFieldWriter valueWriter = createFieldWriter(
+                    schema,
+                    type.getTypeParameters().get(1),
+                    valueType,
+                    append(path, repeatedType.getName(), valueType.getName()),
+                    repetitionLevel + 1);
+            return new ParquetMapFieldWriter(optional, repetitionLevel + 1, keyWriter, valueWriter);
+        }
+        if (ROW.equals(baseType)) {
+            List<Type> fieldTypes = type.getTypeParameters();
+            if (fieldTypes.size() != groupType.getFieldCount()) {
+                throw new PrestoException(NOT_SUPPORTED, "Parquet group does not match type " + type);
+            }
+            ImmutableList.Builder<ParquetFieldWriter> fieldWriters = ImmutableList.builder();
+            for (int field = 0; field < fieldTypes.size(); field++) {
+                parquet.schema.Type fieldType = groupType.getType(field);
+                fieldWriters.add(createFieldWriter(schema, fieldTypes.get(field), fieldType, append(path, fieldType.getName()), repetitionLevel));
+            }
+            return new ParquetStructFieldWriter(optional, fieldWriters.build());
+        }
+        throw new PrestoException(NOT_SUPPORTED, "Unsupported Parquet group for type " + type);
+    }
+
+    private static GroupType getRepeatedGroup(GroupType groupType)
+    {
+        if (groupType.getFieldCount() != 1 || groupType.getType(0).isPrimitive() || !groupType.getType(0).isRepetition(REPEATED)) {
+            throw new PrestoException(NOT_SUPPORTED, "Unsupported Parquet group " + groupType);
+        }
+        return groupType.getType(0).asGroupType();
+    }
+
+    private static List<String> append(List<String> path, String... names)
+    {
+        return ImmutableList.<String>builder()
+                .addAll(path)
+                .add(names)
+                .build();
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.parquet.writer;
+
+import com.facebook.presto.spi.block.Block;
+import parquet.column.ColumnWriteStore;
+
+import static java.util.Objects.requireNonNull;
+
+public class ParquetListFieldWriter
+        extends ParquetFieldWriter
+{
+    private final int elementRepetitionLevel;
+    private final ParquetFieldWriter elementWriter;
+
+    public ParquetListFieldWriter(boolean optional, int elementRepetitionLevel, ParquetFieldWriter elementWriter)
+    {
+        super(optional);
+        this.elementRepetitionLevel = elementRepetitionLevel;
+        this.elementWriter = requireNonNull(elementWriter, "elementWriter is null");
+    }
+
+    @Override
+    public void setColumnWriteStore(ColumnWriteStore columnWriteStore)
+    {
+        elementWriter.setColumnWriteStore(columnWriteStore);
+    }
+
+    @Override
+    public void writeNull(int repetitionLevel, int definitionLevel)
+    {
+        elementWriter.writeNull(repetitionLevel, definitionLevel);
+    }
+
+    @Override
+    public void write(Block block, int position, int repetitionLevel, int definitionLevel)
+    {
+        if (block.isNull(position)) {
+            writeNull(repetitionLevel, definitionLevel);
+            return;
+        }
+
+        Block elements = block.getObject(position, Block.class);
+        int valueDefinitionLevel = getValueDefinitionLevel(definitionLevel);
+        if (elements.getPositionCount() == 0) {
+            // the list is defined, but the repeated group is not
+            elementWriter.writeNull(repetitionLevel, valueDefinitionLevel);
+            return;
+        }
+
+        // the repeated group adds one definition level
+        for (int element = 0; element < elements.getPositionCount(); element++) {
+            int elementRepetitionLevel = element == 0 ? repetitionLevel : this.elementRepetitionLevel;
+            elementWriter.write(elements, element, elementRepetitionLevel, valueDefinitionLevel + 1);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.parquet.writer;
+
+import com.facebook.presto.spi.block.Block;
+import parquet.column.ColumnWriteStore;
+
+import static java.util.Objects.requireNonNull;
+
+public class ParquetMapFieldWriter
+        extends ParquetFieldWriter
+{
+    private final int entryRepetitionLevel;
+    private final ParquetFieldWriter keyWriter;
+    private final ParquetFieldWriter valueWriter;
+
+    public ParquetMapFieldWriter(boolean optional, int entryRepetitionLevel, ParquetFieldWriter keyWriter, ParquetFieldWriter valueWriter)
+    {
+        super(optional);
+        this.entryRepetitionLevel = entryRepetitionLevel;
+        this.keyWriter = requireNonNull(keyWriter, "keyWriter is null");
+        this.valueWriter = requireNonNull(valueWriter, "valueWriter is null");
+    }
+
+    @Override
+    public void setColumnWriteStore(ColumnWriteStore columnWriteStore)
+    {
+        keyWriter.setColumnWriteStore(columnWriteStore);
+        valueWriter.setColumnWriteStore(columnWriteStore);
+    }
+
+    @Override
+    public void writeNull(int repetitionLevel, int definitionLevel)
+    {
+        keyWriter.writeNull(repetitionLevel, definitionLevel);
+        valueWriter.writeNull(repetitionLevel, definitionLevel);
+    }
+
+    @Override
+    public void write(Block block, int position, int repetitionLevel, int definitionLevel)
+    {
+        if (block.isNull(position)) {
+            writeNull(repetitionLevel, definitionLevel);
+            return;
+        }
+
+        // keys and values are interleaved in the map block
+        Block entries = block.getObject(position, Block.class);
+        int valueDefinitionLevel = getValueDefinitionLevel(definitionLevel);
+        if (entries.getPositionCount() == 0) {
+            // the map is defined, but the repeated group is not
+            writeNull(repetitionLevel, valueDefinitionLevel);
+            return;
+        }
+
+        // the repeated group adds one definition level
+        for (int entry = 0; entry < entries.getPositionCount() / 2; entry++) {
+            int entryRepetitionLevel = entry == 0 ? repetitionLevel : this.entryRepetitionLevel;
+            keyWriter.write(entries, entry * 2, entryRepetitionLevel, valueDefinitionLevel + 1);
+            valueWriter.write(entries, entry * 2 + 1, entryRepetitionLevel, valueDefinitionLevel + 1);
+        }
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.parquet.writer;
+
+import parquet.bytes.BytesInput;
+import parquet.column.ColumnDescriptor;
+import parquet.column.Encoding;
+import parquet.column.page.DictionaryPage;
+import parquet.column.page.PageWriteStore;
+import parquet.column.page.PageWriter;
+import parquet.column.statistics.Statistics;
+import parquet.hadoop.ParquetFileWriter;
+import parquet.hadoop.metadata.CompressionCodecName;
+import parquet.schema.MessageType;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.facebook.presto.hive.parquet.ParquetCompressionUtils.compress;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Buffers the compressed pages of all columns of a row group in memory. Once the
+ * row group is complete, the column chunks are written to the file in schema order.
+ */
+public class ParquetPageWriteStore
+        implements PageWriteStore
+{
+    private final MessageType schema;
+    private final CompressionCodecName codec;
+    private final Map<ColumnDescriptor, ColumnChunkPageWriter> writers = new HashMap<>();
+
+    public ParquetPageWriteStore(MessageType schema, CompressionCodecName codec)
+    {
+        this.schema = requireNonNull(schema, "schema is null");
+        this.codec = requireNonNull(codec, "codec is null");
+    }
+
+    @Override
+    public PageWriter getPageWriter(ColumnDescriptor path)
+    {
+        return writers.computeIfAbsent(path, descriptor -> new ColumnChunkPageWriter(descriptor, codec));
+    }
+
+    public long getBufferedBytes()
+    {
+        long bufferedBytes = 0;
+        for (ColumnChunkPageWriter writer : writers.values()) {
+            bufferedBytes += writer.getMemSize();
+        }
+        return bufferedBytes;
+    }
+
+    public void flushToFileWriter(ParquetFileWriter fileWriter)
+            throws IOException
+    {
+        for (ColumnDescriptor descriptor : schema.getColumns()) {
+            ColumnChunkPageWriter writer = writers.get(descriptor);
+            checkState(writer != null, "No pages written for column %s", descriptor);
+            writer.writeToFileWriter(fileWriter);
+        }
+    }
+
+    private static class ColumnChunkPageWriter
+            implements PageWriter
+    {
+        private final ColumnDescriptor descriptor;
+        private final CompressionCodecName codec;
+        private final List<DataPage> pages = new ArrayList<>();
+
+        private DictionaryPage dictionaryPage;
+        private long valueCount;
+        private long bufferedBytes;
+
+        public ColumnChunkPageWriter(ColumnDescriptor descriptor, CompressionCodecName codec)
+        {
+            this.descriptor = requireNonNull(descriptor, "descriptor is null");
+            this.codec = requireNonNull(codec, "codec is null");
+        }
+
+        @Deprecated
+        public void writePage(BytesInput bytes, int valueCount, Encoding rlEncoding, Encoding dlEncoding, Encoding valuesEncoding)
+                throws IOException
+        {
+            writePage(bytes, valueCount, Statistics.getStatsBasedOnType(descriptor.getType()), rlEncoding, dlEncoding, valuesEncoding);
+        }
+
+        @Override
+        public void writePage(BytesInput bytes, int valueCount, Statistics<?> statistics, Encoding rlEncoding, Encoding dlEncoding, Encoding valuesEncoding)
+                throws IOException
+        {
+            // the column writer reuses its buffers once the page is written
+            byte[] uncompressed = bytes.toByteArray();
+            byte[] compressed = compress(codec, uncompressed);
+            pages.add(new DataPage(BytesInput.from(compressed), uncompressed.length, valueCount, statistics, rlEncoding, dlEncoding, valuesEncoding));
+            this.valueCount += valueCount;
+            bufferedBytes += compressed.length;
+        }
+
+        @Override
+        public void writePageV2(int rowCount, int nullCount, int valueCount, BytesInput repetitionLevels, BytesInput definitionLevels, Encoding dataEncoding, BytesInput data, Statistics<?> statistics)
+        {
+            throw new UnsupportedOperationException("Parquet 2.0 data pages are not supported");
+        }
+
+        @Override
+        public long getMemSize()
+        {
+            return bufferedBytes;
+        }
+
+        @Override
+        public long allocatedSize()
+        {
+            return bufferedBytes;
+        }
+
+        @Override
+        public void writeDictionaryPage(DictionaryPage dictionaryPage)
+                throws IOException
+        {
+            checkState(this.dictionaryPage == null, "Dictionary page is already written");
+            byte[] uncompressed = dictionaryPage.getBytes().toByteArray();
+            byte[] compressed = compress(codec, uncompressed);
+            this.dictionaryPage = new DictionaryPage(BytesInput.from(compressed), uncompressed.length, dictionaryPage.getDictionarySize(), dictionaryPage.getEncoding());
+            bufferedBytes += compressed.length;
+        }
+
+        @Override
+        public String memUsageString(String prefix)
+        {
+            return prefix + " ColumnChunkPageWriter " + bufferedBytes + " bytes";
+        }
+
+        public void writeToFileWriter(ParquetFileWriter fileWriter)
+                throws IOException
+        {
+            fileWriter.startColumn(descriptor, valueCount, codec);
+            if (dictionaryPage != null) {
+                fileWriter.writeDictionaryPage(dictionaryPage);
+            }
+            for (DataPage page : pages) {
+                fileWriter.writeDataPage(
+                        page.getValueCount(),
+                        page.getUncompressedSize(),
+                        page.getBytes(),
+                        page.getStatistics(),
+                        page.getRepetitionLevelEncoding(),
+                        page.getDefinitionLevelEncoding(),
+                        page.getValuesEncoding());
+            }
+            fileWriter.endColumn();
+        }
+    }
+
+    private static class DataPage
+    {
+        private final BytesInput bytes;
+        private final int uncompressedSize;
+        private final int valueCount;
+        private final Statistics<?> statistics;
+        private final Encoding repetitionLevelEncoding;
+        private final Encoding definitionLevelEncoding;
+        private final Encoding valuesEncoding;
+
+        public DataPage(
+                BytesInput bytes,
+                int uncompressedSize,
+                int valueCount,
+                Statistics<?> statistics,
+                Encoding repetitionLevelEncoding,
+                Encoding definitionLevelEncoding,
+                Encoding valuesEncoding)
+        {
+            this.bytes = requireNonNull(bytes, "bytes is null");
+            this.uncompressedSize = uncompressedSize;
+            this.valueCount = valueCount;
+            this.statistics = requireNonNull(statistics, "statistics is null");
+            this.repetitionLevelEncoding = requireNonNull(repetitionLevelEncoding, "repetitionLevelEncoding is null");
+            this.definitionLevelEncoding = requireNonNull(definitionLevelEncoding, "definitionLevelEncoding is null");
+            this.valuesEncoding = requireNonNull(valuesEncoding, "valuesEncoding is null");
+        }
+
+        public BytesInput getBytes()
+        {
+            return bytes;
+        }
+
+        public int getUncompressedSize()
+        {
+            return uncompressedSize;
+        }
+
+        public int getValueCount()
+        {
+            return valueCount;
+        }
+
+        public Statistics<?> getStatistics()
+        {
+            return statistics;
+        }
+
+        public Encoding getRepetitionLevelEncoding()
+        {
+            return repetitionLevelEncoding;
+        }
+
+        public Encoding getDefinitionLevelEncoding()
+        {
+            return definitionLevelEncoding;
+        }
+
+        public Encoding getValuesEncoding()
+        {
+            return valuesEncoding;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.parquet.writer;
+
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.DecimalType;
+import com.facebook.presto.spi.type.Type;
+import parquet.column.ColumnDescriptor;
+import parquet.column.ColumnWriteStore;
+import parquet.column.ColumnWriter;
+import parquet.io.api.Binary;
+
+import java.math.BigInteger;
+
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_WRITER_DATA_ERROR;
+import static com.facebook.presto.hive.parquet.ParquetTimestampUtils.getTimestampBinary;
+import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
+import static com.facebook.presto.spi.type.Decimals.decodeUnscaledValue;
+import static java.lang.Float.intBitsToFloat;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+public class ParquetPrimitiveFieldWriter
+        extends ParquetFieldWriter
+{
+    private final ColumnDescriptor descriptor;
+    private final Type type;
+
+    private ColumnWriter columnWriter;
+
+    public ParquetPrimitiveFieldWriter(ColumnDescriptor descriptor, Type type, boolean optional)
+    {
+        super(optional);
+        this.descriptor = requireNonNull(descriptor, "descriptor is null");
+        this.type = requireNonNull(type, "type is null");
+    }
+
+    @Override
+    public void setColumnWriteStore(ColumnWriteStore columnWriteStore)
+    {
+        columnWriter = columnWriteStore.getColumnWriter(descriptor);
+    }
+
+    @Override
+    public void writeNull(int repetitionLevel, int definitionLevel)
+    {
+        columnWriter.writeNull(repetitionLevel, definitionLevel);
+    }
+
+    @Override
+    public void write(Block block, int position, int repetitionLevel, int definitionLevel)
+    {
+        if (block.isNull(position)) {
+            if (!optional) {
+                throw new PrestoException(HIVE_WRITER_DATA_ERROR, "Null value for required Parquet column " + descriptor);
+            }
+            columnWriter.writeNull(repetitionLevel, definitionLevel);
+            return;
+        }
+
+        int valueDefinitionLevel = getValueDefinitionLevel(definitionLevel);
+        switch (descriptor.getType()) {
+            case BOOLEAN:
+                columnWriter.write(type.getBoolean(block, position), repetitionLevel, valueDefinitionLevel);
+                break;
+            case INT32:
+                columnWriter.write(toIntExact(type.getLong(block, position)), repetitionLevel, valueDefinitionLevel);
+                break;
+            case INT64:
+                columnWriter.write(type.getLong(block, position), repetitionLevel, valueDefinitionLevel);
+                break;
+            case FLOAT:
+                columnWriter.write(intBitsToFloat((int) type.getLong(block, position)), repetitionLevel, valueDefinitionLevel);
+                break;
+            case DOUBLE:
+                columnWriter.write(type.getDouble(block, position), repetitionLevel, valueDefinitionLevel);
+                break;
+            case BINARY:
+                columnWriter.write(Binary.fromByteArray(type.getSlice(block, position).getBytes()), repetitionLevel, valueDefinitionLevel);
+                break;
+            case INT96:
+                columnWriter.write(getTimestampBinary(type.getLong(block, position)), repetitionLevel, valueDefinitionLevel);
+                break;
+            case FIXED_LEN_BYTE_ARRAY:
+                columnWriter.write(getDecimalBinary(block, position), repetitionLevel, valueDefinitionLevel);
+                break;
+            default:
+                throw new PrestoException(NOT_SUPPORTED, "Unsupported Parquet column " + descriptor);
+        }
+    }
+
+    private Binary getDecimalBinary(Block block, int position)
+    {
+        if (!(type instanceof DecimalType)) {
+            throw new PrestoException(NOT_SUPPORTED, "Unsupported type for fixed length Parquet column: " + type);
+        }
+
+        BigInteger unscaledValue;
+        if (((DecimalType) type).isShort()) {
+            unscaledValue = BigInteger.valueOf(type.getLong(block, position));
+        }
+        else {
+            unscaledValue = decodeUnscaledValue(type.getSlice(block, position));
+        }
+
+        // big endian two's complement, sign extended to the length of the column
+        byte[] value = unscaledValue.toByteArray();
+        byte[] bytes = new byte[descriptor.getTypeLength()];
+        int padding = bytes.length - value.length;
+        if (padding < 0) {
+            throw new PrestoException(HIVE_WRITER_DATA_ERROR, "Decimal value does not fit in Parquet column " + descriptor);
+        }
+        byte signByte = (byte) (unscaledValue.signum() < 0 ? -1 : 0);
+        for (int i = 0; i < padding; i++) {
+            bytes[i] = signByte;
+        }
+        System.arraycopy(value, 0, bytes, padding, value.length);
+        return Binary.fromByteArray(bytes);
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.parquet.writer;
+
+import com.facebook.presto.spi.block.Block;
+import com.google.common.collect.ImmutableList;
+import parquet.column.ColumnWriteStore;
+
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+public class ParquetStructFieldWriter
+        extends ParquetFieldWriter
+{
+    private final List<ParquetFieldWriter> fieldWriters;
+
+    public ParquetStructFieldWriter(boolean optional, List<ParquetFieldWriter> fieldWriters)
+    {
+        super(optional);
+        this.fieldWriters = ImmutableList.copyOf(requireNonNull(fieldWriters, "fieldWriters is null"));
+    }
+
+    @Override
+    public void setColumnWriteStore(ColumnWriteStore columnWriteStore)
+    {
+        for (ParquetFieldWriter fieldWriter : fieldWriters) {
+            fieldWriter.setColumnWriteStore(columnWriteStore);
+        }
+    }
+
+    @Override
+    public void writeNull(int repetitionLevel, int definitionLevel)
+    {
+        for (ParquetFieldWriter fieldWriter : fieldWriters) {
+            fieldWriter.writeNull(repetitionLevel, definitionLevel);
+        }
+    }
+
+    @Override
+    public void write(Block block, int position, int repetitionLevel, int definitionLevel)
+    {
+        if (block.isNull(position)) {
+            writeNull(repetitionLevel, definitionLevel);
+            return;
+        }
+
+        Block fields = block.getObject(position, Block.class);
+        int valueDefinitionLevel = getValueDefinitionLevel(definitionLevel);
+        for (int field = 0; field < fieldWriters.size(); field++) {
+            fieldWriters.get(field).write(fields, field, repetitionLevel, valueDefinitionLevel);
+        }
+    }
+}
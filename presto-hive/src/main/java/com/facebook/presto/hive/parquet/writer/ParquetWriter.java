@@ -0,0 +1,173 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.parquet.writer;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.DataSize;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import parquet.column.ColumnWriteStore;
+import parquet.column.impl.ColumnWriteStoreV1;
+import parquet.hadoop.ParquetFileWriter;
+import parquet.hadoop.metadata.CompressionCodecName;
+import parquet.schema.MessageType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+import static com.facebook.presto.hive.parquet.writer.ParquetFieldWriter.createFieldWriter;
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+import static parquet.column.ParquetProperties.WriterVersion.PARQUET_1_0;
+
+/**
+ * Writes pages to a Parquet file. The values of every position are shredded into the
+ * column writers of the row group, which encode the values with dictionary or plain
+ * encoding, run length encode the repetition and definition levels and collect the
+ * statistics of every page. A row group is written to the file once the buffered data
+ * reaches the block size.
+ */
+public class ParquetWriter
+        implements Closeable
+{
+    public static final DataSize DEFAULT_BLOCK_SIZE = new DataSize(128, MEGABYTE);
+    public static final DataSize DEFAULT_PAGE_SIZE = new DataSize(1, MEGABYTE);
+
+    private final MessageType schema;
+    private final List<Type> types;
+    private final CompressionCodecName codec;
+    private final long blockSize;
+    private final int pageSize;
+    private final ParquetFileWriter fileWriter;
+    private final List<ParquetFieldWriter> fieldWriters;
+
+    private ParquetPageWriteStore pageWriteStore;
+    private ColumnWriteStore columnWriteStore;
+    private long rowGroupRowCount;
+    private boolean closed;
+
+    public ParquetWriter(
+            Configuration configuration,
+            Path path,
+            MessageType schema,
+            List<Type> types,
+            CompressionCodecName codec,
+            DataSize blockSize,
+            DataSize pageSize)
+            throws IOException
+    {
+        requireNonNull(configuration, "configuration is null");
+        requireNonNull(path, "path is null");
+        this.schema = requireNonNull(schema, "schema is null");
+        this.types = ImmutableList.copyOf(requireNonNull(types, "types is null"));
+        this.codec = requireNonNull(codec, "codec is null");
+        this.blockSize = requireNonNull(blockSize, "blockSize is null").toBytes();
+        this.pageSize = toIntExact(requireNonNull(pageSize, "pageSize is null").toBytes());
+        checkArgument(schema.getFieldCount() == types.size(), "schema and types have different sizes");
+
+        ImmutableList.Builder<ParquetFieldWriter> fieldWriters = ImmutableList.builder();
+        for (int field = 0; field < types.size(); field++) {
+            parquet.schema.Type fieldType = schema.getType(field);
+            fieldWriters.add(createFieldWriter(schema, types.get(field), fieldType, ImmutableList.of(fieldType.getName()), 0));
+        }
+        this.fieldWriters = fieldWriters.build();
+
+        this.fileWriter = new ParquetFileWriter(configuration, schema, path);
+        fileWriter.start();
+        startRowGroup();
+    }
+
+    public void write(Page page)
+            throws IOException
+    {
+        checkState(!closed, "writer is closed");
+        requireNonNull(page, "page is null");
+        checkArgument(page.getChannelCount() == fieldWriters.size(), "page does not have %s channels", fieldWriters.size());
+
+        for (int position = 0; position < page.getPositionCount(); position++) {
+            for (int field = 0; field < fieldWriters.size(); field++) {
+                fieldWriters.get(field).write(page.getBlock(field), position, 0, 0);
+            }
+            columnWriteStore.endRecord();
+            rowGroupRowCount++;
+        }
+
+        if (getBufferedBytes() >= blockSize) {
+            flushRowGroup();
+            startRowGroup();
+        }
+    }
+
+    /**
+     * Size of the data of the current row group, both the encoded values of the open pages and the compressed pages.
+     */
+    public long getBufferedBytes()
+    {
+        return columnWriteStore.getBufferedSize() + pageWriteStore.getBufferedBytes();
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        flushRowGroup();
+        fileWriter.end(ImmutableMap.of());
+    }
+
+    private void startRowGroup()
+    {
+        pageWriteStore = new ParquetPageWriteStore(schema, codec);
+        columnWriteStore = new ColumnWriteStoreV1(pageWriteStore, pageSize, pageSize, true, PARQUET_1_0);
+        for (ParquetFieldWriter fieldWriter : fieldWriters) {
+            fieldWriter.setColumnWriteStore(columnWriteStore);
+        }
+        rowGroupRowCount = 0;
+    }
+
+    private void flushRowGroup()
+            throws IOException
+    {
+        if (rowGroupRowCount == 0) {
+            return;
+        }
+        columnWriteStore.flush();
+        fileWriter.startBlock(rowGroupRowCount);
+        pageWriteStore.flushToFileWriter(fileWriter);
+        fileWriter.endBlock();
+        rowGroupRowCount = 0;
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("schema", schema)
+                .add("types", types)
+                .add("codec", codec)
+                .toString();
+    }
+}
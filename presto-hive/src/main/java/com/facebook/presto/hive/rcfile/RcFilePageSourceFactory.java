@@ -16,6 +16,7 @@ package com.facebook.presto.hive.rcfile;
 import com.facebook.presto.hive.HdfsEnvironment;
 import com.facebook.presto.hive.HiveColumnHandle;
 import com.facebook.presto.hive.HivePageSourceFactory;
+import com.facebook.presto.hive.LocalDataCache;
 import com.facebook.presto.rcfile.AircompressorCodecFactory;
 import com.facebook.presto.rcfile.HadoopCodecFactory;
 import com.facebook.presto.rcfile.RcFileEncoding;
@@ -34,6 +35,7 @@ import io.airlift.units.DataSize;
 import io.airlift.units.DataSize.Unit;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hive.serde2.columnar.ColumnarSerDe;
@@ -52,6 +54,7 @@ import java.util.stream.Collectors;
 
 import static com.facebook.presto.hive.HiveSessionProperties.isRcfileOptimizedReaderEnabled;
 import static com.facebook.presto.hive.HiveUtil.getDeserializerClassName;
+import static com.facebook.presto.hive.LocalDataCache.noLocalDataCache;
 import static com.facebook.presto.rcfile.text.TextRcFileEncoding.DEFAULT_NULL_SEQUENCE;
 import static com.facebook.presto.rcfile.text.TextRcFileEncoding.DEFAULT_SEPARATORS;
 import static java.util.Objects.requireNonNull;
@@ -73,12 +76,19 @@ public class RcFilePageSourceFactory
 
     private final TypeManager typeManager;
     private final HdfsEnvironment hdfsEnvironment;
+    private final LocalDataCache localDataCache;
 
-    @Inject
     public RcFilePageSourceFactory(TypeManager typeManager, HdfsEnvironment hdfsEnvironment)
+    {
+        this(typeManager, hdfsEnvironment, noLocalDataCache());
+    }
+
+    @Inject
+    public RcFilePageSourceFactory(TypeManager typeManager, HdfsEnvironment hdfsEnvironment, LocalDataCache localDataCache)
     {
         this.typeManager = requireNonNull(typeManager, "typeManager is null");
         this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
+        this.localDataCache = requireNonNull(localDataCache, "localDataCache is null");
     }
 
     @Override
@@ -113,8 +123,9 @@ public class RcFilePageSourceFactory
         FSDataInputStream inputStream;
         try {
             FileSystem fileSystem = hdfsEnvironment.getFileSystem(session.getUser(), path, configuration);
-            size = fileSystem.getFileStatus(path).getLen();
-            inputStream = fileSystem.open(path);
+            FileStatus fileStatus = fileSystem.getFileStatus(path);
+            size = fileStatus.getLen();
+            inputStream = localDataCache.wrap(fileStatus, fileSystem.open(path));
         }
         catch (Exception e) {
             throw Throwables.propagate(e);
@@ -18,6 +18,7 @@ import com.facebook.presto.hive.HiveColumnHandle;
 import com.facebook.presto.hive.HivePartitionKey;
 import com.facebook.presto.hive.HiveType;
 import com.facebook.presto.hive.NamenodeStats;
+import com.facebook.presto.hive.metastore.Table;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.predicate.TupleDomain;
 import com.google.common.collect.AbstractIterator;
@@ -30,21 +31,31 @@ import org.apache.hadoop.mapred.InputFormat;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_FILESYSTEM_ERROR;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_FILE_NOT_FOUND;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.base.Throwables.propagateIfPossible;
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
 
 public class HiveFileIterator
         extends AbstractIterator<LocatedFileStatus>
 {
+    private final String user;
     private final FileSystem fileSystem;
     private final DirectoryLister directoryLister;
     private final NamenodeStats namenodeStats;
     private final Path path;
+    private final Table table;
     private final String partitionName;
     private final InputFormat<?, ?> inputFormat;
     private final Properties schema;
@@ -53,9 +64,12 @@ public class HiveFileIterator
     private final Map<Integer, HiveType> columnCoercions;
 
     private RemoteIterator<LocatedFileStatus> remoteIterator;
+    private CompletableFuture<RemoteIterator<LocatedFileStatus>> listingFuture;
 
     public HiveFileIterator(
             Path path,
+            Table table,
+            String user,
             FileSystem fileSystem,
             DirectoryLister directoryLister,
             NamenodeStats namenodeStats,
@@ -72,6 +86,8 @@ public class HiveFileIterator
         this.partitionKeys = requireNonNull(partitionKeys, "partitionKeys is null");
         this.effectivePredicate = requireNonNull(effectivePredicate, "effectivePredicate is null");
         this.path = requireNonNull(path, "path is null");
+        this.table = requireNonNull(table, "table is null");
+        this.user = requireNonNull(user, "user is null");
         this.fileSystem = requireNonNull(fileSystem, "fileSystem is null");
         this.directoryLister = requireNonNull(directoryLister, "directoryLister is null");
         this.namenodeStats = requireNonNull(namenodeStats, "namenodeStats is null");
@@ -83,7 +99,7 @@ public class HiveFileIterator
     {
         try {
             if (remoteIterator == null) {
-                remoteIterator = getLocatedFileStatusRemoteIterator(path);
+                remoteIterator = listingFuture == null ? getLocatedFileStatusRemoteIterator(path) : getListingResult();
             }
 
             while (remoteIterator.hasNext()) {
@@ -106,11 +122,58 @@ public class HiveFileIterator
         }
     }
 
+    /**
+     * Starts listing the directory on the executor, instead of on the first call to {@link #hasNext()},
+     * so directories discovered together are listed in parallel. The returned future is done when the
+     * listing has been started, after which the iterator does not block on the start of the listing.
+     */
+    public CompletableFuture<?> startListing(Executor executor)
+    {
+        checkState(listingFuture == null && remoteIterator == null, "listing already started");
+        listingFuture = supplyAsync(() -> {
+            try {
+                return getLocatedFileStatusRemoteIterator(path);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+        return listingFuture;
+    }
+
+    /**
+     * Returns a future which is done when iterating does not block on the start of the listing.
+     * The future does not fail when the listing fails, the failure is thrown by the iterator instead.
+     */
+    public CompletableFuture<?> getListingFuture()
+    {
+        if (listingFuture == null) {
+            return completedFuture(null);
+        }
+        return listingFuture.handle((iterator, throwable) -> null);
+    }
+
+    private RemoteIterator<LocatedFileStatus> getListingResult()
+            throws IOException
+    {
+        try {
+            return listingFuture.join();
+        }
+        catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            propagateIfPossible(cause);
+            throw new RuntimeException(cause);
+        }
+    }
+
     private RemoteIterator<LocatedFileStatus> getLocatedFileStatusRemoteIterator(Path path)
             throws IOException
     {
         try (TimeStat.BlockTimer ignored = namenodeStats.getListLocatedStatus().time()) {
-            return directoryLister.list(fileSystem, path);
+            return directoryLister.list(user, fileSystem, table, path);
         }
         catch (IOException | RuntimeException e) {
             namenodeStats.getListLocatedStatus().recordException(e);
@@ -130,6 +193,16 @@ public class HiveFileIterator
         }
     }
 
+    public Table getTable()
+    {
+        return table;
+    }
+
+    public String getUser()
+    {
+        return user;
+    }
+
     public FileSystem getFileSystem()
     {
         return fileSystem;
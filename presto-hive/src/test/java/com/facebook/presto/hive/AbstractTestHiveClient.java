@@ -103,6 +103,7 @@ import org.testng.annotations.Test;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -112,6 +113,7 @@ import java.util.TimeZone;
 import java.util.UUID;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.facebook.presto.hive.AbstractTestHiveClient.TransactionDeleteInsertTestTag.COMMIT;
 import static com.facebook.presto.hive.AbstractTestHiveClient.TransactionDeleteInsertTestTag.ROLLBACK_AFTER_APPEND_PAGE;
@@ -176,6 +178,7 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.Iterables.concat;
 import static com.google.common.collect.Iterables.getOnlyElement;
+import static com.google.common.collect.Iterables.transform;
 import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Maps.uniqueIndex;
 import static com.google.common.collect.Sets.difference;
@@ -558,8 +561,9 @@ public abstract class AbstractTestHiveClient
                 hiveClientConfig.getMinPartitionBatchSize(),
                 hiveClientConfig.getMaxPartitionBatchSize(),
                 hiveClientConfig.getMaxInitialSplits(),
-                false
-        );
+                hiveClientConfig.getMaxConcurrentDirectoryListings(),
+                false,
+                Optional.empty());
         pageSinkProvider = new HivePageSinkProvider(hdfsEnvironment, metastoreClient, new GroupByHashPageIndexerFactory(), typeManager, new HiveClientConfig(), locationService, partitionUpdateCodec);
         pageSourceProvider = new HivePageSourceProvider(hiveClientConfig, hdfsEnvironment, getDefaultHiveRecordCursorProvider(hiveClientConfig), getDefaultHiveDataStreamFactories(hiveClientConfig), TYPE_MANAGER);
     }
@@ -746,6 +750,45 @@ public abstract class AbstractTestHiveClient
         }
     }
 
+    @Test
+    public void testGetPartitionsLazily()
+            throws Exception
+    {
+        HivePartitionManager partitionManager = new HivePartitionManager(
+                new HiveConnectorId(clientId),
+                TYPE_MANAGER,
+                new HiveClientConfig().setMaxPartitionsForEagerLoad(0));
+        try (Transaction transaction = newTransaction()) {
+            ConnectorMetadata metadata = transaction.getMetadata();
+            ConnectorTableHandle tableHandle = getTableHandle(metadata, tablePartitionFormat);
+            AtomicInteger evaluatedPartitions = new AtomicInteger();
+            HivePartitionResult result = partitionManager.getPartitions(
+                    transaction.getMetastore(tablePartitionFormat.getSchemaName()),
+                    tableHandle,
+                    new Constraint<>(TupleDomain.all(), bindings -> {
+                        evaluatedPartitions.incrementAndGet();
+                        return true;
+                    }));
+
+            assertFalse(result.isPartitionsLoaded());
+            assertEquals(evaluatedPartitions.get(), 0);
+
+            // partitions are produced one at a time as they are iterated
+            List<HivePartition> expectedPartitions = ((HiveTableLayoutHandle) tableLayout.getHandle()).getPartitions().get();
+            Iterator<HivePartition> partitions = result.getPartitions().iterator();
+            ImmutableSet.Builder<String> partitionIds = ImmutableSet.builder();
+            for (int i = 1; i <= expectedPartitions.size(); i++) {
+                assertTrue(partitions.hasNext());
+                partitionIds.add(partitions.next().getPartitionId());
+                assertEquals(evaluatedPartitions.get(), i);
+            }
+            assertFalse(partitions.hasNext());
+            assertEquals(
+                    partitionIds.build(),
+                    ImmutableSet.copyOf(transform(expectedPartitions, HivePartition::getPartitionId)));
+        }
+    }
+
     @Test
     public void testGetPartitionsWithBindings()
             throws Exception
@@ -28,6 +28,8 @@ import com.google.common.collect.ImmutableSet;
 import java.util.List;
 import java.util.Set;
 
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
+
 public final class HiveTestUtils
 {
     private HiveTestUtils()
@@ -44,9 +46,11 @@ public final class HiveTestUtils
     public static Set<HivePageSourceFactory> getDefaultHiveDataStreamFactories(HiveClientConfig hiveClientConfig)
     {
         HdfsEnvironment testHdfsEnvironment = createTestHdfsEnvironment(hiveClientConfig);
+        FileMetadataCache fileMetadataCache = new FileMetadataCache(hiveClientConfig);
+        LocalDataCache localDataCache = new LocalDataCache(new HiveConnectorId("test"), hiveClientConfig);
         return ImmutableSet.<HivePageSourceFactory>builder()
-                .add(new OrcPageSourceFactory(TYPE_MANAGER, hiveClientConfig, testHdfsEnvironment))
-                .add(new DwrfPageSourceFactory(TYPE_MANAGER, testHdfsEnvironment))
+                .add(new OrcPageSourceFactory(TYPE_MANAGER, hiveClientConfig, testHdfsEnvironment, fileMetadataCache, localDataCache, newDirectExecutorService()))
+                .add(new DwrfPageSourceFactory(TYPE_MANAGER, testHdfsEnvironment, fileMetadataCache, localDataCache, newDirectExecutorService()))
                 .build();
     }
 
@@ -0,0 +1,289 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.hive.metastore.StorageFormat;
+import com.facebook.presto.hive.metastore.Table;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Files;
+import io.airlift.testing.FileUtils;
+import io.airlift.testing.TestingTicker;
+import io.airlift.units.Duration;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.FilterFileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.facebook.presto.hive.HiveStorageFormat.ORC;
+import static java.util.concurrent.TimeUnit.DAYS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestCachingDirectoryLister
+{
+    private File tempDir;
+    private FileSystem fileSystem;
+    private Path path;
+
+    @BeforeMethod
+    public void setUp()
+            throws Exception
+    {
+        tempDir = Files.createTempDir();
+        Files.touch(new File(tempDir, "file1"));
+        Files.touch(new File(tempDir, "file2"));
+        fileSystem = FileSystem.getLocal(new Configuration());
+        path = new Path(tempDir.toURI());
+    }
+
+    @AfterMethod
+    public void tearDown()
+    {
+        FileUtils.deleteRecursively(tempDir);
+    }
+
+    @Test
+    public void testCachedListing()
+            throws Exception
+    {
+        CountingDirectoryLister delegate = new CountingDirectoryLister();
+        NamenodeStats namenodeStats = new NamenodeStats();
+        CachingDirectoryLister lister = new CachingDirectoryLister(delegate, namenodeStats, ImmutableList.of("cached.*"), 1000, new Duration(1, DAYS), true, Ticker.systemTicker());
+
+        assertEquals(list(lister, table("cached", "table"), path).size(), 2);
+        assertEquals(list(lister, table("cached", "table"), path).size(), 2);
+        assertEquals(delegate.getListings(), 1);
+        assertEquals(namenodeStats.getDirectoryCacheHits().getTotalCount(), 1);
+        assertEquals(namenodeStats.getDirectoryCacheMisses().getTotalCount(), 1);
+        assertEquals(namenodeStats.getDirectoryCacheHitRate(), 0.5);
+
+        // tables which do not match a pattern are always listed
+        assertEquals(list(lister, table("other", "table"), path).size(), 2);
+        assertEquals(list(lister, table("other", "table"), path).size(), 2);
+        assertEquals(delegate.getListings(), 3);
+    }
+
+    @Test
+    public void testModifiedDirectory()
+            throws Exception
+    {
+        CountingDirectoryLister delegate = new CountingDirectoryLister();
+        CachingDirectoryLister lister = new CachingDirectoryLister(delegate, new NamenodeStats(), ImmutableList.of("*"), 1000, new Duration(1, DAYS), true, Ticker.systemTicker());
+        Table table = table("schema", "table");
+
+        assertEquals(list(lister, table, path).size(), 2);
+
+        Files.touch(new File(tempDir, "file3"));
+        // the file system may not record the modification time of the directory precisely
+        assertTrue(tempDir.setLastModified(tempDir.lastModified() + 10_000));
+
+        assertEquals(list(lister, table, path).size(), 3);
+        assertEquals(list(lister, table, path).size(), 3);
+        assertEquals(delegate.getListings(), 2);
+    }
+
+    @Test
+    public void testExpiredListing()
+            throws Exception
+    {
+        CountingDirectoryLister delegate = new CountingDirectoryLister();
+        TestingTicker ticker = new TestingTicker();
+        CachingDirectoryLister lister = new CachingDirectoryLister(delegate, new NamenodeStats(), ImmutableList.of("schema.table"), 1000, new Duration(1, MINUTES), true, ticker);
+        Table table = table("schema", "table");
+
+        list(lister, table, path);
+        ticker.increment(59, SECONDS);
+        list(lister, table, path);
+        assertEquals(delegate.getListings(), 1);
+
+        ticker.increment(1, SECONDS);
+        list(lister, table, path);
+        assertEquals(delegate.getListings(), 2);
+    }
+
+    @Test
+    public void testListingCachedPerUser()
+            throws Exception
+    {
+        CountingDirectoryLister delegate = new CountingDirectoryLister();
+        CachingDirectoryLister lister = new CachingDirectoryLister(delegate, new NamenodeStats(), ImmutableList.of("*"), 1000, new Duration(1, DAYS), true, Ticker.systemTicker());
+        Table table = table("schema", "table");
+
+        list(lister, "alice", fileSystem, table, path);
+        list(lister, "bob", fileSystem, table, path);
+        assertEquals(delegate.getListings(), 2);
+
+        list(lister, "alice", fileSystem, table, path);
+        list(lister, "bob", fileSystem, table, path);
+        assertEquals(delegate.getListings(), 2);
+    }
+
+    @Test
+    public void testFileSystemWithoutDirectoryModificationTime()
+            throws Exception
+    {
+        CountingDirectoryLister delegate = new CountingDirectoryLister();
+        TestingTicker ticker = new TestingTicker();
+        CachingDirectoryLister lister = new CachingDirectoryLister(delegate, new NamenodeStats(), ImmutableList.of("*"), 1000, new Duration(1, MINUTES), true, ticker);
+        NoModificationTimeFileSystem fileSystem = new NoModificationTimeFileSystem(this.fileSystem);
+        Table table = table("schema", "table");
+
+        assertEquals(list(lister, "user", fileSystem, table, path).size(), 2);
+        Files.touch(new File(tempDir, "file3"));
+        assertEquals(list(lister, "user", fileSystem, table, path).size(), 2);
+
+        // hits do not read the status of the directory, the listing only expires
+        assertEquals(delegate.getListings(), 1);
+        assertEquals(fileSystem.getFileStatusCalls(), 1);
+
+        ticker.increment(1, MINUTES);
+        assertEquals(list(lister, "user", fileSystem, table, path).size(), 3);
+        assertEquals(delegate.getListings(), 2);
+    }
+
+    @Test
+    public void testValidationDisabled()
+            throws Exception
+    {
+        CountingDirectoryLister delegate = new CountingDirectoryLister();
+        CachingDirectoryLister lister = new CachingDirectoryLister(delegate, new NamenodeStats(), ImmutableList.of("*"), 1000, new Duration(1, DAYS), false, Ticker.systemTicker());
+        Table table = table("schema", "table");
+
+        assertEquals(list(lister, table, path).size(), 2);
+
+        Files.touch(new File(tempDir, "file3"));
+        assertTrue(tempDir.setLastModified(tempDir.lastModified() + 10_000));
+
+        assertEquals(list(lister, table, path).size(), 2);
+        assertEquals(delegate.getListings(), 1);
+    }
+
+    @Test
+    public void testTablePatterns()
+            throws Exception
+    {
+        CountingDirectoryLister delegate = new CountingDirectoryLister();
+        CachingDirectoryLister lister = new CachingDirectoryLister(delegate, new NamenodeStats(), ImmutableList.of("schema.table", "Other.*"), 1000, new Duration(1, DAYS), true, Ticker.systemTicker());
+
+        for (int i = 0; i < 2; i++) {
+            list(lister, table("schema", "table"), path);
+            list(lister, table("other", "table"), path);
+        }
+        assertEquals(delegate.getListings(), 1);
+
+        for (int i = 0; i < 2; i++) {
+            list(lister, table("schema", "other"), path);
+        }
+        assertEquals(delegate.getListings(), 3);
+    }
+
+    private List<LocatedFileStatus> list(DirectoryLister lister, Table table, Path path)
+            throws IOException
+    {
+        return list(lister, "user", fileSystem, table, path);
+    }
+
+    private static List<LocatedFileStatus> list(DirectoryLister lister, String user, FileSystem fileSystem, Table table, Path path)
+            throws IOException
+    {
+        ImmutableList.Builder<LocatedFileStatus> files = ImmutableList.builder();
+        RemoteIterator<LocatedFileStatus> iterator = lister.list(user, fileSystem, table, path);
+        while (iterator.hasNext()) {
+            files.add(iterator.next());
+        }
+        return files.build();
+    }
+
+    private static Table table(String schemaName, String tableName)
+    {
+        Table.Builder table = Table.builder()
+                .setDatabaseName(schemaName)
+                .setTableName(tableName)
+                .setOwner("owner")
+                .setTableType("MANAGED_TABLE")
+                .setDataColumns(ImmutableList.of())
+                .setPartitionColumns(ImmutableList.of())
+                .setParameters(ImmutableMap.of());
+        table.getStorageBuilder()
+                .setLocation("/tmp")
+                .setStorageFormat(StorageFormat.create(ORC.getSerDe(), ORC.getInputFormat(), ORC.getOutputFormat()));
+        return table.build();
+    }
+
+    private static class CountingDirectoryLister
+            implements DirectoryLister
+    {
+        private final DirectoryLister delegate = new HadoopDirectoryLister();
+        private final AtomicInteger listings = new AtomicInteger();
+
+        @Override
+        public RemoteIterator<LocatedFileStatus> list(String user, FileSystem fs, Table table, Path path)
+                throws IOException
+        {
+            listings.incrementAndGet();
+            return delegate.list(user, fs, table, path);
+        }
+
+        public int getListings()
+        {
+            return listings.get();
+        }
+    }
+
+    /**
+     * Reports no modification time for directories, like S3.
+     */
+    private static class NoModificationTimeFileSystem
+            extends FilterFileSystem
+    {
+        private final AtomicInteger fileStatusCalls = new AtomicInteger();
+
+        public NoModificationTimeFileSystem(FileSystem fileSystem)
+        {
+            super(fileSystem);
+        }
+
+        @Override
+        public FileStatus getFileStatus(Path path)
+                throws IOException
+        {
+            fileStatusCalls.incrementAndGet();
+            FileStatus status = super.getFileStatus(path);
+            if (!status.isDirectory()) {
+                return status;
+            }
+            return new FileStatus(0, true, 0, 0, 0, status.getPath());
+        }
+
+        public int getFileStatusCalls()
+        {
+            return fileStatusCalls.get();
+        }
+    }
+}
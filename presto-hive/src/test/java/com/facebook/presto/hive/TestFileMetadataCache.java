@@ -0,0 +1,155 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.orc.OrcFileTail;
+import com.facebook.presto.orc.OrcMetadataCache;
+import com.facebook.presto.orc.metadata.Footer;
+import com.facebook.presto.orc.metadata.Metadata;
+import com.facebook.presto.orc.metadata.StripeFooter;
+import com.facebook.presto.orc.metadata.StripeInformation;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.DataSize;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.Path;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.facebook.presto.hive.FileMetadataCache.getRetainedSize;
+import static com.facebook.presto.hive.FileMetadataCache.noFileMetadataCache;
+import static com.facebook.presto.orc.metadata.CompressionKind.ZLIB;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class TestFileMetadataCache
+{
+    private static final StripeInformation STRIPE = new StripeInformation(100, 3, 100, 1000, 50);
+
+    @Test
+    public void testOrcFileTail()
+            throws Exception
+    {
+        FileMetadataCache cache = new FileMetadataCache(new DataSize(1, MEGABYTE));
+        AtomicInteger loads = new AtomicInteger();
+
+        OrcFileTail first = cache.getOrcMetadataCache(fileStatus("file", 1000, 1)).getFileTail(() -> loadFileTail(loads));
+        OrcFileTail second = cache.getOrcMetadataCache(fileStatus("file", 1000, 1)).getFileTail(() -> loadFileTail(loads));
+        assertSame(second, first);
+        assertEquals(loads.get(), 1);
+        assertEquals(cache.getHitCount(), 1);
+        assertEquals(cache.getMissCount(), 1);
+
+        // a different version of the file is loaded again
+        cache.getOrcMetadataCache(fileStatus("file", 1000, 2)).getFileTail(() -> loadFileTail(loads));
+        cache.getOrcMetadataCache(fileStatus("file", 2000, 1)).getFileTail(() -> loadFileTail(loads));
+        cache.getOrcMetadataCache(fileStatus("other", 1000, 1)).getFileTail(() -> loadFileTail(loads));
+        assertEquals(loads.get(), 4);
+        assertEquals(cache.getSize(), 4);
+    }
+
+    @Test
+    public void testStripeFooter()
+            throws Exception
+    {
+        FileMetadataCache cache = new FileMetadataCache(new DataSize(1, MEGABYTE));
+        AtomicInteger loads = new AtomicInteger();
+        OrcMetadataCache metadataCache = cache.getOrcMetadataCache(fileStatus("file", 1000, 1));
+
+        StripeFooter first = metadataCache.getStripeFooter(STRIPE, () -> loadStripeFooter(loads));
+        StripeFooter second = metadataCache.getStripeFooter(STRIPE, () -> loadStripeFooter(loads));
+        assertSame(second, first);
+
+        metadataCache.getStripeFooter(new StripeInformation(100, 2000, 100, 1000, 50), () -> loadStripeFooter(loads));
+        assertEquals(loads.get(), 2);
+    }
+
+    @Test
+    public void testEviction()
+            throws Exception
+    {
+        FileMetadataCache cache = new FileMetadataCache(new DataSize(1, KILOBYTE));
+        AtomicInteger loads = new AtomicInteger();
+        for (int i = 0; i < 100; i++) {
+            cache.getOrcMetadataCache(fileStatus("file" + i, 1000, 1)).getStripeFooter(STRIPE, () -> loadStripeFooter(loads));
+        }
+        assertEquals(loads.get(), 100);
+        assertEquals(cache.getEvictionCount() + cache.getSize(), 100);
+        assertTrue(cache.getSize() <= 1024 / getRetainedSize(loadStripeFooter(loads)));
+    }
+
+    @Test
+    public void testRetainedSize()
+    {
+        // entries are weighed by the decoded metadata, not by the encoded size in the file
+        OrcFileTail fileTail = loadFileTail(new AtomicInteger());
+        assertTrue(getRetainedSize(fileTail) > fileTail.getTailSize());
+
+        Footer footer = new Footer(100, 10_000, ImmutableList.of(STRIPE, STRIPE), ImmutableList.of(), ImmutableList.of(), ImmutableMap.of());
+        OrcFileTail largerFileTail = new OrcFileTail(ZLIB, 256 * 1024, footer, new Metadata(ImmutableList.of()), 100);
+        assertTrue(getRetainedSize(largerFileTail) > getRetainedSize(fileTail));
+    }
+
+    @Test
+    public void testDisabled()
+            throws Exception
+    {
+        FileMetadataCache cache = noFileMetadataCache();
+        AtomicInteger loads = new AtomicInteger();
+        cache.getOrcMetadataCache(fileStatus("file", 1000, 1)).getFileTail(() -> loadFileTail(loads));
+        cache.getOrcMetadataCache(fileStatus("file", 1000, 1)).getFileTail(() -> loadFileTail(loads));
+        assertEquals(loads.get(), 2);
+        assertEquals(cache.getSize(), 0);
+    }
+
+    @Test
+    public void testLoadFailure()
+    {
+        FileMetadataCache cache = new FileMetadataCache(new DataSize(1, MEGABYTE));
+        try {
+            cache.getOrcMetadataCache(fileStatus("file", 1000, 1)).getFileTail(() -> {
+                throw new IOException("expected");
+            });
+            fail("expected IOException");
+        }
+        catch (IOException e) {
+            assertEquals(e.getMessage(), "expected");
+        }
+        assertEquals(cache.getSize(), 0);
+    }
+
+    private static FileStatus fileStatus(String name, long length, long modificationTime)
+    {
+        return new FileStatus(length, false, 1, 64 * 1024 * 1024, modificationTime, new Path("file:///tmp/" + name));
+    }
+
+    private static OrcFileTail loadFileTail(AtomicInteger loads)
+    {
+        loads.incrementAndGet();
+        Footer footer = new Footer(100, 10_000, ImmutableList.of(STRIPE), ImmutableList.of(), ImmutableList.of(), ImmutableMap.of());
+        return new OrcFileTail(ZLIB, 256 * 1024, footer, new Metadata(ImmutableList.of()), 100);
+    }
+
+    private static StripeFooter loadStripeFooter(AtomicInteger loads)
+    {
+        loads.incrementAndGet();
+        return new StripeFooter(ImmutableList.of(), ImmutableList.of());
+    }
+}
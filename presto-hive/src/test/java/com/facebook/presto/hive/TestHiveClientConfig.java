@@ -39,6 +39,7 @@ public class TestHiveClientConfig
                 .setTimeZone(TimeZone.getDefault().getID())
                 .setMaxSplitSize(new DataSize(64, Unit.MEGABYTE))
                 .setMaxPartitionsPerScan(100_000)
+                .setMaxPartitionsForEagerLoad(10_000)
                 .setMaxOutstandingSplits(1_000)
                 .setMaxSplitIteratorThreads(1_000)
                 .setAllowCorruptWritesForTesting(false)
@@ -56,6 +57,7 @@ public class TestHiveClientConfig
                 .setDomainCompactionThreshold(100)
                 .setForceLocalScheduling(false)
                 .setMaxConcurrentFileRenames(20)
+                .setMaxConcurrentDirectoryListings(20)
                 .setRecursiveDirWalkerEnabled(false)
                 .setDfsTimeout(new Duration(60, TimeUnit.SECONDS))
                 .setIpcPingInterval(new Duration(10, TimeUnit.SECONDS))
@@ -94,8 +96,11 @@ public class TestHiveClientConfig
                 .setS3UserAgentPrefix("")
                 .setParquetPredicatePushdownEnabled(false)
                 .setParquetOptimizedReaderEnabled(false)
+                .setParquetOptimizedWriterEnabled(false)
                 .setAssumeCanonicalPartitionKeys(false)
                 .setOrcBloomFiltersEnabled(false)
+                .setOrcStripePrefetchEnabled(false)
+                .setOrcOptimizedWriterEnabled(false)
                 .setOrcMaxMergeDistance(new DataSize(1, Unit.MEGABYTE))
                 .setOrcMaxBufferSize(new DataSize(8, Unit.MEGABYTE))
                 .setOrcStreamBufferSize(new DataSize(8, Unit.MEGABYTE))
@@ -110,7 +115,17 @@ public class TestHiveClientConfig
                 .setHdfsPrestoKeytab(null)
                 .setSkipDeletionForAlter(false)
                 .setBucketExecutionEnabled(true)
-                .setBucketWritingEnabled(true));
+                .setBucketWritingEnabled(true)
+                .setFileMetadataCacheMaxSize(new DataSize(64, Unit.MEGABYTE))
+                .setLocalDataCacheEnabled(false)
+                .setLocalDataCacheDirectory(new File(StandardSystemProperty.JAVA_IO_TMPDIR.value(), "presto-hive-data-cache"))
+                .setLocalDataCacheMaxSize(new DataSize(10, Unit.GIGABYTE))
+                .setLocalDataCacheChunkSize(new DataSize(1, Unit.MEGABYTE))
+                .setSoftAffinitySchedulingEnabled(false)
+                .setFileStatusCacheTables("")
+                .setFileStatusCacheMaxSize(1_000_000)
+                .setFileStatusCacheExpireTime(new Duration(1, TimeUnit.MINUTES))
+                .setFileStatusCacheValidationEnabled(true));
     }
 
     @Test
@@ -120,6 +135,7 @@ public class TestHiveClientConfig
                 .put("hive.time-zone", nonDefaultTimeZone().getID())
                 .put("hive.max-split-size", "256MB")
                 .put("hive.max-partitions-per-scan", "123")
+                .put("hive.max-partitions-for-eager-load", "45")
                 .put("hive.max-outstanding-splits", "10")
                 .put("hive.max-split-iterator-threads", "10")
                 .put("hive.allow-corrupt-writes-for-testing", "true")
@@ -150,6 +166,7 @@ public class TestHiveClientConfig
                 .put("hive.max-partitions-per-writers", "222")
                 .put("hive.force-local-scheduling", "true")
                 .put("hive.max-concurrent-file-renames", "100")
+                .put("hive.max-concurrent-directory-listings", "50")
                 .put("hive.assume-canonical-partition-keys", "true")
                 .put("hive.parquet.use-column-names", "true")
                 .put("hive.orc.use-column-names", "true")
@@ -176,7 +193,10 @@ public class TestHiveClientConfig
                 .put("hive.s3.user-agent-prefix", "user-agent-prefix")
                 .put("hive.parquet-predicate-pushdown.enabled", "true")
                 .put("hive.parquet-optimized-reader.enabled", "true")
+                .put("hive.parquet.optimized-writer.enabled", "true")
                 .put("hive.orc.bloom-filters.enabled", "true")
+                .put("hive.orc.stripe-prefetch.enabled", "true")
+                .put("hive.orc.optimized-writer.enabled", "true")
                 .put("hive.orc.max-merge-distance", "22kB")
                 .put("hive.orc.max-buffer-size", "44kB")
                 .put("hive.orc.stream-buffer-size", "55kB")
@@ -192,12 +212,23 @@ public class TestHiveClientConfig
                 .put("hive.skip-deletion-for-alter", "true")
                 .put("hive.bucket-execution", "false")
                 .put("hive.bucket-writing", "false")
+                .put("hive.file-metadata-cache.max-size", "17MB")
+                .put("hive.local-data-cache.enabled", "true")
+                .put("hive.local-data-cache.directory", "/data-cache")
+                .put("hive.local-data-cache.max-size", "3GB")
+                .put("hive.local-data-cache.chunk-size", "256kB")
+                .put("hive.soft-affinity-scheduling.enabled", "true")
+                .put("hive.file-status-cache-tables", "tpch.orders, tpcds.*")
+                .put("hive.file-status-cache-size", "1000")
+                .put("hive.file-status-cache-expire-time", "30s")
+                .put("hive.file-status-cache-validation-enabled", "false")
                 .build();
 
         HiveClientConfig expected = new HiveClientConfig()
                 .setTimeZone(nonDefaultTimeZone().toTimeZone().getID())
                 .setMaxSplitSize(new DataSize(256, Unit.MEGABYTE))
                 .setMaxPartitionsPerScan(123)
+                .setMaxPartitionsForEagerLoad(45)
                 .setMaxOutstandingSplits(10)
                 .setMaxSplitIteratorThreads(10)
                 .setAllowCorruptWritesForTesting(true)
@@ -215,6 +246,7 @@ public class TestHiveClientConfig
                 .setDomainCompactionThreshold(42)
                 .setForceLocalScheduling(true)
                 .setMaxConcurrentFileRenames(100)
+                .setMaxConcurrentDirectoryListings(50)
                 .setRecursiveDirWalkerEnabled(true)
                 .setIpcPingInterval(new Duration(34, TimeUnit.SECONDS))
                 .setDfsTimeout(new Duration(33, TimeUnit.SECONDS))
@@ -253,8 +285,11 @@ public class TestHiveClientConfig
                 .setS3UserAgentPrefix("user-agent-prefix")
                 .setParquetPredicatePushdownEnabled(true)
                 .setParquetOptimizedReaderEnabled(true)
+                .setParquetOptimizedWriterEnabled(true)
                 .setAssumeCanonicalPartitionKeys(true)
                 .setOrcBloomFiltersEnabled(true)
+                .setOrcStripePrefetchEnabled(true)
+                .setOrcOptimizedWriterEnabled(true)
                 .setOrcMaxMergeDistance(new DataSize(22, Unit.KILOBYTE))
                 .setOrcMaxBufferSize(new DataSize(44, Unit.KILOBYTE))
                 .setOrcStreamBufferSize(new DataSize(55, Unit.KILOBYTE))
@@ -269,7 +304,17 @@ public class TestHiveClientConfig
                 .setHdfsPrestoKeytab("/tmp/presto.keytab")
                 .setSkipDeletionForAlter(true)
                 .setBucketExecutionEnabled(false)
-                .setBucketWritingEnabled(false);
+                .setBucketWritingEnabled(false)
+                .setFileMetadataCacheMaxSize(new DataSize(17, Unit.MEGABYTE))
+                .setLocalDataCacheEnabled(true)
+                .setLocalDataCacheDirectory(new File("/data-cache"))
+                .setLocalDataCacheMaxSize(new DataSize(3, Unit.GIGABYTE))
+                .setLocalDataCacheChunkSize(new DataSize(256, Unit.KILOBYTE))
+                .setSoftAffinitySchedulingEnabled(true)
+                .setFileStatusCacheTables("tpch.orders,tpcds.*")
+                .setFileStatusCacheMaxSize(1000)
+                .setFileStatusCacheExpireTime(new Duration(30, TimeUnit.SECONDS))
+                .setFileStatusCacheValidationEnabled(false);
 
         ConfigAssertions.assertFullMapping(properties, expected);
     }
@@ -32,11 +32,13 @@ import com.facebook.presto.tests.AbstractTestIntegrationSmokeTest;
 import com.facebook.presto.tests.DistributedQueryRunner;
 import com.facebook.presto.type.TypeRegistry;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.io.Files;
 import org.apache.hadoop.fs.Path;
 import org.intellij.lang.annotations.Language;
 import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
 import org.testng.annotations.Test;
 
 import java.io.File;
@@ -312,6 +314,35 @@ public class TestHiveIntegrationSmokeTest
         assertFalse(queryRunner.tableExists(session, "test_partitioned_table"));
     }
 
+    @Test
+    public void testSelectFromLazilyEnumeratedPartitions()
+            throws Exception
+    {
+        // a catalog over the same metastore that never loads partitions eagerly
+        String lazyCatalog = catalog + "_lazy_partitions";
+        queryRunner.createCatalog(lazyCatalog, HIVE_CATALOG, ImmutableMap.<String, String>builder()
+                .put("hive.metastore.uri", "thrift://localhost:8080")
+                .put("hive.time-zone", DateTimeZone.getDefault().getID())
+                .put("hive.max-partitions-for-eager-load", "0")
+                .build());
+
+        assertUpdate("" +
+                "CREATE TABLE test_lazy_partitions " +
+                "WITH (partitioned_by = ARRAY['order_status']) " +
+                "AS " +
+                "SELECT orderkey AS order_key, shippriority AS ship_priority, orderstatus AS order_status " +
+                "FROM tpch.tiny.orders",
+                "SELECT count(*) FROM orders");
+
+        Session lazySession = Session.builder(getSession())
+                .setCatalog(lazyCatalog)
+                .build();
+        assertQuery(lazySession, "SELECT * FROM test_lazy_partitions", "SELECT orderkey, shippriority, orderstatus FROM orders");
+        assertQuery(lazySession, "SELECT count(*) FROM test_lazy_partitions WHERE order_status = 'F'", "SELECT count(*) FROM orders WHERE orderstatus = 'F'");
+
+        assertUpdate("DROP TABLE test_lazy_partitions");
+    }
+
     @Test
     public void createTableLike()
             throws Exception
@@ -1286,6 +1317,39 @@ public class TestHiveIntegrationSmokeTest
         assertFalse(queryRunner.tableExists(getSession(), "test_metadata_delete"));
     }
 
+    @Test
+    public void testMetadataQueriesUsingStatistics()
+            throws Exception
+    {
+        assertUpdate("" +
+                        "CREATE TABLE test_metadata_statistics " +
+                        "WITH (" +
+                        STORAGE_FORMAT_PROPERTY + " = 'ORC', " +
+                        PARTITIONED_BY_PROPERTY + " = ARRAY[ 'linestatus' ]" +
+                        ") " +
+                        "AS " +
+                        "SELECT orderkey, CASE WHEN linenumber = 1 THEN NULL ELSE partkey END partkey, shipdate, linestatus " +
+                        "FROM tpch.tiny.lineitem",
+                "SELECT count(*) from lineitem");
+
+        Session session = Session.builder(getSession())
+                .setSystemProperty("optimize_metadata_queries_using_statistics", "true")
+                .build();
+
+        @Language("SQL") String query = "SELECT count(*), count(partkey), min(orderkey), max(orderkey), min(shipdate), max(linestatus) " +
+                "FROM test_metadata_statistics WHERE linestatus = 'F'";
+        assertQuery(session, query, "SELECT count(*), count(CASE WHEN linenumber = 1 THEN NULL ELSE partkey END), min(orderkey), max(orderkey), min(shipdate), max(linestatus) " +
+                "FROM lineitem WHERE linestatus = 'F'");
+        assertFalse(((String) computeActual(session, "EXPLAIN " + query).getOnlyValue()).contains("TableScan"));
+
+        // statistics can not be used for a filter on a data column
+        query = "SELECT count(*) FROM test_metadata_statistics WHERE orderkey > 100";
+        assertQuery(session, query, "SELECT count(*) FROM lineitem WHERE orderkey > 100");
+        assertTrue(((String) computeActual(session, "EXPLAIN " + query).getOnlyValue()).contains("TableScan"));
+
+        assertUpdate("DROP TABLE test_metadata_statistics");
+    }
+
     private TableMetadata getTableMetadata(String catalog, String schema, String tableName)
     {
         Session session = getSession();
@@ -42,6 +42,7 @@ import io.airlift.tpch.LineItemGenerator;
 import io.airlift.tpch.TpchColumnType;
 import io.airlift.tpch.TpchColumnTypes;
 import org.apache.hadoop.fs.Path;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import java.io.File;
@@ -54,6 +55,8 @@ import java.util.stream.Stream;
 
 import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.REGULAR;
 import static com.facebook.presto.hive.HiveCompressionCodec.NONE;
+import static com.facebook.presto.hive.HiveStorageFormat.ORC;
+import static com.facebook.presto.hive.HiveStorageFormat.PARQUET;
 import static com.facebook.presto.hive.HiveTestUtils.TYPE_MANAGER;
 import static com.facebook.presto.hive.HiveTestUtils.createTestHdfsEnvironment;
 import static com.facebook.presto.hive.HiveTestUtils.getDefaultHiveDataStreamFactories;
@@ -114,6 +117,40 @@ public class TestHivePageSink
         }
     }
 
+    @DataProvider(name = "optimizedWriters")
+    public Object[][] optimizedWriters()
+    {
+        return new Object[][] {
+                {new HiveClientConfig().setHiveStorageFormat(ORC).setOrcOptimizedWriterEnabled(true)},
+                {new HiveClientConfig().setHiveStorageFormat(PARQUET).setParquetOptimizedWriterEnabled(true)},
+        };
+    }
+
+    @Test(dataProvider = "optimizedWriters")
+    public void testOptimizedWriter(HiveClientConfig config)
+            throws Exception
+    {
+        File tempDir = Files.createTempDir();
+        try {
+            ExtendedHiveMetastore metastore = new BridgingHiveMetastore(new InMemoryHiveMetastore(new File(tempDir, "metastore")));
+            config.setHiveCompressionCodec(NONE);
+            long uncompressedLength = writeTestFile(config, metastore, makeFileName(tempDir, config));
+            assertGreaterThan(uncompressedLength, 0L);
+
+            for (HiveCompressionCodec codec : HiveCompressionCodec.values()) {
+                if (codec == NONE) {
+                    continue;
+                }
+                config.setHiveCompressionCodec(codec);
+                long length = writeTestFile(config, metastore, makeFileName(tempDir, config));
+                assertTrue(uncompressedLength > length, format("%s with %s compressed to %s which is not less than %s", config.getHiveStorageFormat(), codec, length, uncompressedLength));
+            }
+        }
+        finally {
+            FileUtils.deleteRecursively(tempDir);
+        }
+    }
+
     private static String makeFileName(File tempDir, HiveClientConfig config)
     {
         return tempDir.getAbsolutePath() + "/" + config.getHiveStorageFormat().name() + "." + config.getHiveCompressionCodec().name();
@@ -204,7 +241,7 @@ public class TestHivePageSink
         splitProperties.setProperty(SERIALIZATION_LIB, config.getHiveStorageFormat().getSerDe());
         splitProperties.setProperty("columns", Joiner.on(',').join(getColumnHandles().stream().map(HiveColumnHandle::getName).collect(toList())));
         splitProperties.setProperty("columns.types", Joiner.on(',').join(getColumnHandles().stream().map(HiveColumnHandle::getHiveType).map(HiveType::getHiveTypeName).collect(toList())));
-        HiveSplit split = new HiveSplit(CLIENT_ID, SCHEMA_NAME, TABLE_NAME, "", "file:///" + outputFile.getAbsolutePath(), 0, outputFile.length(), splitProperties, ImmutableList.of(), ImmutableList.of(), OptionalInt.empty(), false, TupleDomain.all(), ImmutableMap.of());
+        HiveSplit split = new HiveSplit(CLIENT_ID, SCHEMA_NAME, TABLE_NAME, "", "file:///" + outputFile.getAbsolutePath(), 0, outputFile.length(), splitProperties, ImmutableList.of(), ImmutableList.of(), OptionalInt.empty(), false, false, TupleDomain.all(), ImmutableMap.of());
         HivePageSourceProvider provider = new HivePageSourceProvider(config, createTestHdfsEnvironment(config), getDefaultHiveRecordCursorProvider(config), getDefaultHiveDataStreamFactories(config), TYPE_MANAGER);
         return provider.createPageSource(transaction, getSession(config), split, ImmutableList.copyOf(getColumnHandles()));
     }
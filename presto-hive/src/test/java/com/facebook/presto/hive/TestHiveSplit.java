@@ -52,6 +52,7 @@ public class TestHiveSplit
                 addresses,
                 OptionalInt.empty(),
                 true,
+                false,
                 TupleDomain.<HiveColumnHandle>all(),
                 ImmutableMap.of(1, HIVE_STRING));
 
@@ -70,5 +71,6 @@ public class TestHiveSplit
         assertEquals(actual.getAddresses(), expected.getAddresses());
         assertEquals(actual.getColumnCoercions(), expected.getColumnCoercions());
         assertEquals(actual.isForceLocalScheduling(), expected.isForceLocalScheduling());
+        assertEquals(actual.isSoftAffinity(), expected.isSoftAffinity());
     }
 }
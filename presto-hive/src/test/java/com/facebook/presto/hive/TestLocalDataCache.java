@@ -0,0 +1,204 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.google.common.io.Files;
+import io.airlift.testing.FileUtils;
+import io.airlift.units.DataSize;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Random;
+
+import static com.facebook.presto.hive.LocalDataCache.noLocalDataCache;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class TestLocalDataCache
+{
+    private static final int FILE_SIZE = 10_000;
+
+    private File tempDir;
+    private File cacheDir;
+    private FileSystem fileSystem;
+    private Path path;
+    private byte[] data;
+
+    @BeforeMethod
+    public void setUp()
+            throws Exception
+    {
+        tempDir = Files.createTempDir();
+        cacheDir = new File(tempDir, "cache");
+        File file = new File(tempDir, "data");
+        data = new byte[FILE_SIZE];
+        new Random(42).nextBytes(data);
+        Files.write(data, file);
+
+        fileSystem = FileSystem.getLocal(new Configuration());
+        path = new Path(file.toURI());
+    }
+
+    @AfterMethod
+    public void tearDown()
+    {
+        FileUtils.deleteRecursively(tempDir);
+    }
+
+    @Test
+    public void testReadThrough()
+            throws Exception
+    {
+        LocalDataCache cache = new LocalDataCache(Optional.of(cacheDir.toPath()), new DataSize(1, MEGABYTE), new DataSize(1, KILOBYTE));
+        FileStatus fileStatus = fileSystem.getFileStatus(path);
+
+        try (FSDataInputStream inputStream = cache.wrap(fileStatus, fileSystem.open(path))) {
+            // the read spans three chunks, which are loaded with a single aligned read
+            assertRead(inputStream, 1500, 2000);
+            assertEquals(cache.getRemoteReadBytes(), 3072);
+            assertEquals(cache.getChunkCount(), 3);
+            assertEquals(cache.getCachedBytes(), 3072);
+
+            // cached chunks are read from the local disk
+            assertRead(inputStream, 1024, 2048);
+            assertRead(inputStream, 2100, 10);
+            assertEquals(cache.getRemoteReadBytes(), 3072);
+            assertEquals(cache.getLocalReadBytes(), 2058);
+
+            // the last chunk is shorter than the chunk size
+            assertRead(inputStream, FILE_SIZE - 100, 100);
+            assertEquals(cache.getRemoteReadBytes(), 3072 + FILE_SIZE - 9 * 1024);
+        }
+        assertEquals(cacheDir.listFiles().length, 4);
+
+        // a new stream for the same file uses the cached chunks
+        try (FSDataInputStream inputStream = cache.wrap(fileStatus, fileSystem.open(path))) {
+            assertRead(inputStream, 0, FILE_SIZE);
+            assertRead(inputStream, 0, FILE_SIZE);
+        }
+        assertEquals(cache.getRemoteReadBytes(), FILE_SIZE);
+    }
+
+    @Test
+    public void testSequentialRead()
+            throws Exception
+    {
+        LocalDataCache cache = new LocalDataCache(Optional.of(cacheDir.toPath()), new DataSize(1, MEGABYTE), new DataSize(1, KILOBYTE));
+        try (FSDataInputStream inputStream = cache.wrap(fileSystem.getFileStatus(path), fileSystem.open(path))) {
+            byte[] buffer = new byte[FILE_SIZE];
+            inputStream.seek(100);
+            inputStream.readFully(buffer, 0, FILE_SIZE - 100);
+            assertEquals(Arrays.copyOf(buffer, FILE_SIZE - 100), Arrays.copyOfRange(data, 100, FILE_SIZE));
+            assertEquals(inputStream.getPos(), FILE_SIZE);
+            assertEquals(inputStream.read(), -1);
+        }
+    }
+
+    @Test
+    public void testFileVersions()
+            throws Exception
+    {
+        LocalDataCache cache = new LocalDataCache(Optional.of(cacheDir.toPath()), new DataSize(1, MEGABYTE), new DataSize(1, KILOBYTE));
+        FileStatus fileStatus = fileSystem.getFileStatus(path);
+        try (FSDataInputStream inputStream = cache.wrap(fileStatus, fileSystem.open(path))) {
+            assertRead(inputStream, 0, 1024);
+        }
+
+        // a rewritten file is read again
+        new Random(7).nextBytes(data);
+        Files.write(data, new File(path.toUri()));
+        FileStatus newFileStatus = new FileStatus(FILE_SIZE, false, 1, 1024, fileStatus.getModificationTime() + 1000, path);
+        try (FSDataInputStream inputStream = cache.wrap(newFileStatus, fileSystem.open(path))) {
+            assertRead(inputStream, 0, 1024);
+        }
+        assertEquals(cache.getRemoteReadBytes(), 2048);
+    }
+
+    @Test
+    public void testEviction()
+            throws Exception
+    {
+        LocalDataCache cache = new LocalDataCache(Optional.of(cacheDir.toPath()), new DataSize(4, KILOBYTE), new DataSize(1, KILOBYTE));
+        try (FSDataInputStream inputStream = cache.wrap(fileSystem.getFileStatus(path), fileSystem.open(path))) {
+            for (int i = 0; i < 3; i++) {
+                assertRead(inputStream, 0, FILE_SIZE);
+            }
+        }
+        assertTrue(cache.getEvictionCount() > 0);
+        assertTrue(cache.getCachedBytes() <= 4096);
+        assertEquals(cacheDir.listFiles().length, cache.getChunkCount());
+    }
+
+    @Test
+    public void testRemovedChunkFile()
+            throws Exception
+    {
+        LocalDataCache cache = new LocalDataCache(Optional.of(cacheDir.toPath()), new DataSize(1, MEGABYTE), new DataSize(1, KILOBYTE));
+        try (FSDataInputStream inputStream = cache.wrap(fileSystem.getFileStatus(path), fileSystem.open(path))) {
+            assertRead(inputStream, 0, FILE_SIZE);
+            for (File file : cacheDir.listFiles()) {
+                assertTrue(file.delete());
+            }
+            assertRead(inputStream, 0, FILE_SIZE);
+        }
+        assertEquals(cache.getRemoteReadBytes(), 2 * FILE_SIZE);
+    }
+
+    @Test
+    public void testDirectoryCleanedOnStartup()
+            throws Exception
+    {
+        assertTrue(cacheDir.mkdirs());
+        Files.write(new byte[10], new File(cacheDir, "stale"));
+        new LocalDataCache(Optional.of(cacheDir.toPath()), new DataSize(1, MEGABYTE), new DataSize(1, KILOBYTE));
+        assertEquals(cacheDir.listFiles().length, 0);
+    }
+
+    @Test
+    public void testDisabled()
+            throws Exception
+    {
+        FSDataInputStream inputStream = fileSystem.open(path);
+        assertSame(noLocalDataCache().wrap(fileSystem.getFileStatus(path), inputStream), inputStream);
+
+        // files without a modification time are never cached
+        LocalDataCache cache = new LocalDataCache(Optional.of(cacheDir.toPath()), new DataSize(1, MEGABYTE), new DataSize(1, KILOBYTE));
+        FileStatus fileStatus = new FileStatus(FILE_SIZE, false, 1, 1024, 0, path);
+        assertSame(cache.wrap(fileStatus, inputStream), inputStream);
+        assertNotSame(cache.wrap(fileSystem.getFileStatus(path), inputStream), inputStream);
+        inputStream.close();
+    }
+
+    private void assertRead(FSDataInputStream inputStream, int position, int length)
+            throws IOException
+    {
+        byte[] buffer = new byte[length + 2];
+        inputStream.readFully(position, buffer, 1, length);
+        assertEquals(Arrays.copyOfRange(buffer, 1, length + 1), Arrays.copyOfRange(data, position, position + length));
+    }
+}
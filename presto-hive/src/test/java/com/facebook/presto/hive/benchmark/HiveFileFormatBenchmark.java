@@ -102,6 +102,7 @@ public class HiveFileFormatBenchmark
             "PRESTO_ORC",
             "PRESTO_DWRF",
             "PRESTO_PARQUET",
+            "PRESTO_PARQUET_OPTIMIZED_WRITER",
             "HIVE_RCBINARY",
             "HIVE_RCTEXT",
             "HIVE_ORC",
@@ -0,0 +1,191 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.parquet;
+
+import com.facebook.presto.hive.parquet.ParquetTester.TempFile;
+import com.facebook.presto.hive.parquet.reader.ParquetMetadataReader;
+import com.facebook.presto.hive.parquet.reader.ParquetReader;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.type.TypeRegistry;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.mapred.JobConf;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+import parquet.column.ColumnDescriptor;
+import parquet.hadoop.ParquetOutputFormat;
+import parquet.hadoop.metadata.ParquetMetadata;
+import parquet.schema.MessageType;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static com.facebook.presto.hive.parquet.ParquetTester.writeParquetColumn;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static java.util.stream.Collectors.toList;
+import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaDoubleObjectInspector;
+import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaLongObjectInspector;
+import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+import static parquet.hadoop.metadata.CompressionCodecName.SNAPPY;
+
+/**
+ * Measures decoding a single Parquet column with the Presto Parquet reader, for plain
+ * and dictionary encoded pages.
+ */
+@SuppressWarnings("MethodMayBeStatic")
+@State(Scope.Thread)
+@Fork(2)
+@Warmup(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class BenchmarkParquetReader
+{
+    private static final int ROWS = 1_000_000;
+
+    @Benchmark
+    public Object readColumn(BenchmarkData data)
+            throws Throwable
+    {
+        ParquetReader parquetReader = data.createParquetReader();
+        List<Block> blocks = new ArrayList<>();
+        for (int batchSize = parquetReader.nextBatch(); batchSize >= 0; batchSize = parquetReader.nextBatch()) {
+            blocks.add(parquetReader.readPrimitive(data.columnDescriptor, data.type));
+        }
+        parquetReader.close();
+        return blocks;
+    }
+
+    @State(Scope.Thread)
+    public static class BenchmarkData
+    {
+        @Param({"bigint", "double", "varchar"})
+        private String typeName = "bigint";
+
+        @Param({"true", "false"})
+        private boolean dictionary = true;
+
+        @Param({"false", "true"})
+        private boolean withNulls;
+
+        private TempFile tempFile;
+        private JobConf jobConf;
+        private Type type;
+        private MessageType fileSchema;
+        private ColumnDescriptor columnDescriptor;
+        private ParquetMetadata parquetMetadata;
+
+        @Setup
+        public void setup()
+                throws Exception
+        {
+            tempFile = new TempFile("benchmark", "parquet");
+            jobConf = new JobConf();
+            jobConf.setEnum(ParquetOutputFormat.COMPRESSION, SNAPPY);
+            jobConf.setBoolean(ParquetOutputFormat.ENABLE_DICTIONARY, dictionary);
+
+            Random random = new Random(0);
+            ObjectInspector objectInspector;
+            List<?> values;
+            switch (typeName) {
+                case "bigint":
+                    type = BIGINT;
+                    objectInspector = javaLongObjectInspector;
+                    // a small range of values keeps the column dictionary encoded
+                    values = generateValues(random, () -> (long) random.nextInt(1_000));
+                    break;
+                case "double":
+                    type = DOUBLE;
+                    objectInspector = javaDoubleObjectInspector;
+                    values = generateValues(random, () -> (double) random.nextInt(1_000) / 100);
+                    break;
+                case "varchar":
+                    type = VARCHAR;
+                    objectInspector = javaStringObjectInspector;
+                    values = generateValues(random, () -> "value " + random.nextInt(1_000));
+                    break;
+                default:
+                    throw new UnsupportedOperationException("Unsupported type: " + typeName);
+            }
+            writeParquetColumn(jobConf, tempFile.getFile(), SNAPPY, objectInspector, values.iterator());
+
+            Path path = new Path(tempFile.getFile().toURI());
+            parquetMetadata = ParquetMetadataReader.readFooter(path.getFileSystem(jobConf), path);
+            fileSchema = parquetMetadata.getFileMetaData().getSchema();
+            columnDescriptor = fileSchema.getColumns().get(0);
+        }
+
+        @TearDown
+        public void tearDown()
+        {
+            tempFile.close();
+        }
+
+        private ParquetReader createParquetReader()
+                throws IOException
+        {
+            Path path = new Path(tempFile.getFile().toURI());
+            FileSystem fileSystem = path.getFileSystem(jobConf);
+            long size = fileSystem.getFileStatus(path).getLen();
+            HdfsParquetDataSource dataSource = new HdfsParquetDataSource(path, size, fileSystem.open(path));
+            return new ParquetReader(fileSchema, fileSchema, parquetMetadata.getBlocks(), dataSource, new TypeRegistry());
+        }
+
+        private List<?> generateValues(Random random, Supplier<?> supplier)
+        {
+            return IntStream.range(0, ROWS)
+                    .mapToObj(i -> withNulls && random.nextInt(10) == 0 ? null : supplier.get())
+                    .collect(toList());
+        }
+    }
+
+    public static void main(String[] args)
+            throws Throwable
+    {
+        // assure the benchmarks are valid before running
+        BenchmarkData data = new BenchmarkData();
+        data.setup();
+        new BenchmarkParquetReader().readColumn(data);
+        data.tearDown();
+
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkParquetReader.class.getSimpleName() + ".*")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -198,7 +198,7 @@ public class ParquetTester
         parquetReader.close();
     }
 
-    private static DataSize writeParquetColumn(JobConf jobConf,
+    static DataSize writeParquetColumn(JobConf jobConf,
             File outputFile,
             CompressionCodecName compressionCodecName,
             ObjectInspector columnObjectInspector,
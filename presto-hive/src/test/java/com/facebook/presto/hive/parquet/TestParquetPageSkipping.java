@@ -0,0 +1,199 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.parquet;
+
+import com.facebook.presto.hive.parquet.ParquetTester.TempFile;
+import com.facebook.presto.hive.parquet.predicate.ParquetPredicate;
+import com.facebook.presto.hive.parquet.predicate.TupleDomainParquetPredicate;
+import com.facebook.presto.hive.parquet.predicate.TupleDomainParquetPredicate.ColumnReference;
+import com.facebook.presto.hive.parquet.reader.ParquetMetadataReader;
+import com.facebook.presto.hive.parquet.reader.ParquetReader;
+import com.facebook.presto.hive.parquet.writer.ParquetWriter;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.Range;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.predicate.ValueSet;
+import com.facebook.presto.type.TypeRegistry;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.DataSize;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.testng.annotations.Test;
+import parquet.column.ColumnDescriptor;
+import parquet.hadoop.metadata.ParquetMetadata;
+import parquet.schema.MessageType;
+import parquet.schema.PrimitiveType;
+
+import java.io.IOException;
+import java.util.List;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.stream.Collectors.toList;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static parquet.hadoop.metadata.CompressionCodecName.UNCOMPRESSED;
+import static parquet.schema.PrimitiveType.PrimitiveTypeName.INT64;
+import static parquet.schema.Type.Repetition.OPTIONAL;
+
+public class TestParquetPageSkipping
+{
+    private static final int ROWS = 100_000;
+    private static final long MIN_SELECTED = 50_000;
+    private static final long MAX_SELECTED = 50_100;
+
+    @Test
+    public void testSkipPages()
+            throws Exception
+    {
+        try (TempFile tempFile = new TempFile("test", "parquet")) {
+            Configuration configuration = new Configuration();
+            writeFile(configuration, tempFile);
+
+            ParquetPredicate predicate = new TupleDomainParquetPredicate<>(
+                    TupleDomain.withColumnDomains(ImmutableMap.of("a", Domain.create(ValueSet.ofRanges(Range.range(BIGINT, MIN_SELECTED, true, MAX_SELECTED, true)), false))),
+                    ImmutableList.of(new ColumnReference<>("a", 0, BIGINT)));
+
+            assertRows(configuration, tempFile, ParquetPredicate.TRUE, ImmutableList.of(), ROWS);
+            assertRows(configuration, tempFile, predicate, ImmutableList.of("a"), ROWS / 10);
+        }
+    }
+
+    private static void assertRows(Configuration configuration, TempFile tempFile, ParquetPredicate predicate, List<String> predicateColumnNames, long maxRows)
+            throws IOException
+    {
+        Path path = new Path(tempFile.getFile().toURI());
+        FileSystem fileSystem = path.getFileSystem(configuration);
+        ParquetMetadata parquetMetadata = ParquetMetadataReader.readFooter(fileSystem, path);
+        MessageType fileSchema = parquetMetadata.getFileMetaData().getSchema();
+        ColumnDescriptor columnA = fileSchema.getColumns().get(0);
+        ColumnDescriptor columnB = fileSchema.getColumns().get(1);
+        List<ColumnDescriptor> predicateColumns = fileSchema.getColumns().stream()
+                .filter(column -> predicateColumnNames.contains(column.getPath()[0]))
+                .collect(toList());
+
+        CountingParquetDataSource dataSource = new CountingParquetDataSource(new HdfsParquetDataSource(path, fileSystem.getFileStatus(path).getLen(), fileSystem.open(path)));
+        ParquetReader parquetReader = new ParquetReader(fileSchema, fileSchema, parquetMetadata.getBlocks(), dataSource, new TypeRegistry(), predicate, predicateColumns);
+
+        long rows = 0;
+        long selectedRows = 0;
+        int batch = 0;
+        for (int batchSize = parquetReader.nextBatch(); batchSize >= 0; batchSize = parquetReader.nextBatch()) {
+            Block a = parquetReader.readPrimitive(columnA, BIGINT);
+            // leave every other batch of the second column unread, so its values are skipped
+            Block b = batch++ % 2 == 0 ? parquetReader.readPrimitive(columnB, BIGINT) : null;
+            for (int position = 0; position < batchSize; position++) {
+                long value = BIGINT.getLong(a, position);
+                if (b != null) {
+                    assertEquals(BIGINT.getLong(b, position), -value);
+                }
+                if (value >= MIN_SELECTED && value <= MAX_SELECTED) {
+                    selectedRows++;
+                }
+            }
+            rows += batchSize;
+        }
+        parquetReader.close();
+
+        assertEquals(selectedRows, MAX_SELECTED - MIN_SELECTED + 1);
+        assertTrue(rows <= maxRows, "read " + rows + " rows");
+        // every column chunk is read with a single read, whether pages are skipped or not
+        assertEquals(dataSource.getReads(), parquetMetadata.getBlocks().size() * 2L);
+    }
+
+    private static void writeFile(Configuration configuration, TempFile tempFile)
+            throws IOException
+    {
+        MessageType schema = new MessageType("test", new PrimitiveType(OPTIONAL, INT64, "a"), new PrimitiveType(OPTIONAL, INT64, "b"));
+        ParquetWriter writer = new ParquetWriter(
+                configuration,
+                new Path(tempFile.getFile().toURI()),
+                schema,
+                ImmutableList.of(BIGINT, BIGINT),
+                UNCOMPRESSED,
+                new DataSize(64, MEGABYTE),
+                new DataSize(8, KILOBYTE));
+
+        int pageSize = 1_000;
+        for (int start = 0; start < ROWS; start += pageSize) {
+            BlockBuilder a = BIGINT.createBlockBuilder(new BlockBuilderStatus(), pageSize);
+            BlockBuilder b = BIGINT.createBlockBuilder(new BlockBuilderStatus(), pageSize);
+            for (int row = start; row < start + pageSize; row++) {
+                BIGINT.writeLong(a, row);
+                BIGINT.writeLong(b, -row);
+            }
+            writer.write(new Page(a.build(), b.build()));
+        }
+        writer.close();
+    }
+
+    private static class CountingParquetDataSource
+            implements ParquetDataSource
+    {
+        private final ParquetDataSource delegate;
+        private long reads;
+
+        public CountingParquetDataSource(ParquetDataSource delegate)
+        {
+            this.delegate = delegate;
+        }
+
+        public long getReads()
+        {
+            return reads;
+        }
+
+        @Override
+        public long getReadBytes()
+        {
+            return delegate.getReadBytes();
+        }
+
+        @Override
+        public long getSize()
+        {
+            return delegate.getSize();
+        }
+
+        @Override
+        public void readFully(long position, byte[] buffer)
+                throws IOException
+        {
+            reads++;
+            delegate.readFully(position, buffer);
+        }
+
+        @Override
+        public void readFully(long position, byte[] buffer, int bufferOffset, int bufferLength)
+                throws IOException
+        {
+            reads++;
+            delegate.readFully(position, buffer, bufferOffset, bufferLength);
+        }
+
+        @Override
+        public void close()
+                throws IOException
+        {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.parquet.reader;
+
+import org.testng.annotations.Test;
+import parquet.io.ParquetDecodingException;
+
+import static org.testng.Assert.assertEquals;
+
+public class TestParquetRleBitPackingHybridDecoder
+{
+    // bit width 3: an RLE run of ten 5s, followed by a bit-packed group of the values 0 to 7
+    private static final byte[] DATA = new byte[] {
+            0x14, 0x05,
+            0x03, (byte) 0x88, (byte) 0xC6, (byte) 0xFA};
+
+    private static final int[] EXPECTED = new int[] {5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 0, 1, 2, 3, 4, 5, 6, 7};
+
+    @Test
+    public void testReadInt()
+    {
+        ParquetRleBitPackingHybridDecoder decoder = new ParquetRleBitPackingHybridDecoder(3, DATA, 0, DATA.length);
+        for (int expected : EXPECTED) {
+            assertEquals(decoder.readInt(), expected);
+        }
+    }
+
+    @Test
+    public void testReadInts()
+    {
+        // batches spanning both runs
+        ParquetRleBitPackingHybridDecoder decoder = new ParquetRleBitPackingHybridDecoder(3, DATA, 0, DATA.length);
+        int[] values = new int[EXPECTED.length + 2];
+        decoder.readInts(values, 2, 7);
+        decoder.readInts(values, 9, 5);
+        decoder.readInts(values, 14, 6);
+        for (int i = 0; i < EXPECTED.length; i++) {
+            assertEquals(values[i + 2], EXPECTED[i]);
+        }
+    }
+
+    @Test
+    public void testSkip()
+    {
+        ParquetRleBitPackingHybridDecoder decoder = new ParquetRleBitPackingHybridDecoder(3, DATA, 0, DATA.length);
+        decoder.skip(9);
+        assertEquals(decoder.readInt(), 5);
+        decoder.skip(3);
+        assertEquals(decoder.readInt(), 3);
+    }
+
+    @Test
+    public void testZeroBitWidth()
+    {
+        // an RLE run of 300 zeros, with a two byte header and no value bytes
+        byte[] data = new byte[] {(byte) 0xD8, 0x04};
+        ParquetRleBitPackingHybridDecoder decoder = new ParquetRleBitPackingHybridDecoder(0, data, 0, data.length);
+        int[] values = new int[300];
+        values[299] = -1;
+        decoder.readInts(values, 0, 300);
+        for (int value : values) {
+            assertEquals(value, 0);
+        }
+    }
+
+    @Test(expectedExceptions = ParquetDecodingException.class)
+    public void testReadPastEnd()
+    {
+        ParquetRleBitPackingHybridDecoder decoder = new ParquetRleBitPackingHybridDecoder(3, DATA, 0, DATA.length);
+        decoder.skip(EXPECTED.length);
+        decoder.readInt();
+    }
+}
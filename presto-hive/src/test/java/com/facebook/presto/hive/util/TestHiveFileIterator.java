@@ -0,0 +1,207 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.util;
+
+import com.facebook.presto.hive.DirectoryLister;
+import com.facebook.presto.hive.HadoopDirectoryLister;
+import com.facebook.presto.hive.NamenodeStats;
+import com.facebook.presto.hive.metastore.StorageFormat;
+import com.facebook.presto.hive.metastore.Table;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Files;
+import io.airlift.testing.FileUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.apache.hadoop.mapred.TextInputFormat;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_FILESYSTEM_ERROR;
+import static com.facebook.presto.hive.HiveStorageFormat.ORC;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class TestHiveFileIterator
+{
+    private static final int NESTED_DIRECTORIES = 3;
+
+    private ExecutorService executor;
+    private File tempDir;
+    private FileSystem fileSystem;
+
+    @BeforeClass
+    public void setUpClass()
+    {
+        executor = newCachedThreadPool(daemonThreadsNamed("test-%s"));
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDownClass()
+    {
+        executor.shutdownNow();
+    }
+
+    @BeforeMethod
+    public void setUp()
+            throws Exception
+    {
+        tempDir = Files.createTempDir();
+        for (int i = 0; i < NESTED_DIRECTORIES; i++) {
+            File directory = new File(tempDir, "dir" + i);
+            assertTrue(directory.mkdir());
+            Files.touch(new File(directory, "file"));
+        }
+        fileSystem = FileSystem.getLocal(new Configuration());
+    }
+
+    @AfterMethod
+    public void tearDown()
+    {
+        FileUtils.deleteRecursively(tempDir);
+    }
+
+    @Test
+    public void testNestedDirectoriesListedInParallel()
+            throws Exception
+    {
+        Path root = new Path(tempDir.toURI());
+        // a nested directory is only listed once all of them are being listed
+        DirectoryLister lister = new ParallelDirectoryLister(root, NESTED_DIRECTORIES);
+
+        List<HiveFileIterator> nestedIterators = new ArrayList<>();
+        HiveFileIterator iterator = createIterator(root, lister);
+        while (iterator.hasNext()) {
+            LocatedFileStatus status = iterator.next();
+            assertTrue(status.isDirectory());
+            HiveFileIterator nestedIterator = createIterator(status.getPath(), lister);
+            nestedIterator.startListing(executor);
+            nestedIterators.add(nestedIterator);
+        }
+        assertEquals(nestedIterators.size(), NESTED_DIRECTORIES);
+
+        for (HiveFileIterator nestedIterator : nestedIterators) {
+            nestedIterator.getListingFuture().get(10, SECONDS);
+            assertEquals(ImmutableList.copyOf(nestedIterator).size(), 1);
+        }
+    }
+
+    @Test
+    public void testFailedListing()
+            throws Exception
+    {
+        DirectoryLister lister = (user, fs, table, path) -> {
+            throw new IOException("listing failed");
+        };
+        HiveFileIterator iterator = createIterator(new Path(tempDir.toURI()), lister);
+        iterator.startListing(executor);
+
+        // the failure is reported by the iterator, not by the listing future
+        iterator.getListingFuture().get(10, SECONDS);
+        try {
+            iterator.hasNext();
+            fail("expected exception");
+        }
+        catch (PrestoException e) {
+            assertEquals(e.getErrorCode(), HIVE_FILESYSTEM_ERROR.toErrorCode());
+        }
+    }
+
+    private HiveFileIterator createIterator(Path path, DirectoryLister lister)
+    {
+        return new HiveFileIterator(
+                path,
+                table(),
+                "user",
+                fileSystem,
+                lister,
+                new NamenodeStats(),
+                "partition",
+                new TextInputFormat(),
+                new Properties(),
+                ImmutableList.of(),
+                TupleDomain.all(),
+                ImmutableMap.of());
+    }
+
+    private static Table table()
+    {
+        Table.Builder table = Table.builder()
+                .setDatabaseName("schema")
+                .setTableName("table")
+                .setOwner("owner")
+                .setTableType("MANAGED_TABLE")
+                .setDataColumns(ImmutableList.of())
+                .setPartitionColumns(ImmutableList.of())
+                .setParameters(ImmutableMap.of());
+        table.getStorageBuilder()
+                .setLocation("/tmp")
+                .setStorageFormat(StorageFormat.create(ORC.getSerDe(), ORC.getInputFormat(), ORC.getOutputFormat()));
+        return table.build();
+    }
+
+    private static class ParallelDirectoryLister
+            implements DirectoryLister
+    {
+        private final DirectoryLister delegate = new HadoopDirectoryLister();
+        private final Path root;
+        private final CountDownLatch nestedListings;
+
+        public ParallelDirectoryLister(Path root, int nestedDirectories)
+        {
+            this.root = root;
+            this.nestedListings = new CountDownLatch(nestedDirectories);
+        }
+
+        @Override
+        public RemoteIterator<LocatedFileStatus> list(String user, FileSystem fs, Table table, Path path)
+                throws IOException
+        {
+            if (!path.equals(root)) {
+                nestedListings.countDown();
+                try {
+                    if (!nestedListings.await(10, SECONDS)) {
+                        throw new IOException("nested directories were not listed in parallel");
+                    }
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+            }
+            return delegate.list(user, fs, table, path);
+        }
+    }
+}
@@ -29,7 +29,9 @@ import javax.inject.Inject;
 import java.util.List;
 
 import static com.facebook.presto.spi.session.PropertyMetadata.booleanSessionProperty;
+import static com.facebook.presto.spi.session.PropertyMetadata.doubleSessionProperty;
 import static com.facebook.presto.spi.session.PropertyMetadata.integerSessionProperty;
+import static com.facebook.presto.spi.session.PropertyMetadata.longSessionProperty;
 import static com.facebook.presto.spi.session.PropertyMetadata.stringSessionProperty;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
@@ -60,10 +62,21 @@ public final class SystemSessionProperties
     public static final String INITIAL_SPLITS_PER_NODE = "initial_splits_per_node";
     public static final String SPLIT_CONCURRENCY_ADJUSTMENT_INTERVAL = "split_concurrency_adjustment_interval";
     public static final String OPTIMIZE_METADATA_QUERIES = "optimize_metadata_queries";
+    public static final String OPTIMIZE_METADATA_QUERIES_USING_STATISTICS = "optimize_metadata_queries_using_statistics";
     public static final String QUERY_PRIORITY = "query_priority";
     public static final String SPILL_ENABLED = "spill_enabled";
     public static final String OPERATOR_MEMORY_LIMIT_BEFORE_SPILL = "operator_memory_limit_before_spill";
     public static final String OPTIMIZE_DISTINCT_AGGREGATIONS = "optimize_mixed_distinct_aggregations";
+    public static final String DYNAMIC_FILTERING_ENABLED = "dynamic_filtering_enabled";
+    public static final String REORDER_JOINS = "reorder_joins";
+    public static final String COST_BASED_JOIN_DISTRIBUTION = "cost_based_join_distribution";
+    public static final String JOIN_MAX_BROADCAST_TABLE_SIZE = "join_max_broadcast_table_size";
+    public static final String GROUPED_EXECUTION = "grouped_execution";
+    public static final String CONCURRENT_BUCKETS_PER_NODE = "concurrent_buckets_per_node";
+    public static final String ADAPTIVE_PARTIAL_AGGREGATION = "adaptive_partial_aggregation";
+    public static final String ADAPTIVE_PARTIAL_AGGREGATION_MIN_ROWS = "adaptive_partial_aggregation_min_rows";
+    public static final String ADAPTIVE_PARTIAL_AGGREGATION_UNIQUE_ROWS_RATIO_THRESHOLD = "adaptive_partial_aggregation_unique_rows_ratio_threshold";
+    public static final String HASH_BUILD_CONCURRENCY = "hash_build_concurrency";
 
     private final List<PropertyMetadata<?>> sessionProperties;
 
@@ -220,6 +233,11 @@ public final class SystemSessionProperties
                         "Enable optimization for metadata queries",
                         featuresConfig.isOptimizeMetadataQueries(),
                         false),
+                booleanSessionProperty(
+                        OPTIMIZE_METADATA_QUERIES_USING_STATISTICS,
+                        "Answer count, min and max aggregations from connector statistics, which may be stale",
+                        featuresConfig.isOptimizeMetadataQueriesUsingStatistics(),
+                        false),
                 integerSessionProperty(
                         QUERY_PRIORITY,
                         "The priority of queries. Larger numbers are higher priority",
@@ -253,6 +271,60 @@ public final class SystemSessionProperties
                         OPTIMIZE_DISTINCT_AGGREGATIONS,
                         "Optimize mixed non-distinct and distinct aggregations",
                         featuresConfig.isOptimizeMixedDistinctAggregations(),
+                        false),
+                booleanSessionProperty(
+                        DYNAMIC_FILTERING_ENABLED,
+                        "Experimental: Skip probe side rows of joins using the build side keys",
+                        featuresConfig.isDynamicFilteringEnabled(),
+                        false),
+                booleanSessionProperty(
+                        REORDER_JOINS,
+                        "Experimental: Reorder inner joins using table statistics",
+                        featuresConfig.isJoinReorderingEnabled(),
+                        false),
+                booleanSessionProperty(
+                        COST_BASED_JOIN_DISTRIBUTION,
+                        "Experimental: Choose between broadcast and partitioned joins using table statistics",
+                        featuresConfig.isCostBasedJoinDistributionEnabled(),
+                        false),
+                new PropertyMetadata<>(
+                        JOIN_MAX_BROADCAST_TABLE_SIZE,
+                        "Maximum estimated size of the build side of a join which is broadcast to all nodes",
+                        VARCHAR,
+                        DataSize.class,
+                        featuresConfig.getJoinMaxBroadcastTableSize(),
+                        false,
+                        value -> DataSize.valueOf((String) value),
+                        DataSize::toString),
+                booleanSessionProperty(
+                        GROUPED_EXECUTION,
+                        "Experimental: Run the stages reading bucketed tables one bucket at a time on every node",
+                        featuresConfig.isGroupedExecutionEnabled(),
+                        false),
+                integerSessionProperty(
+                        CONCURRENT_BUCKETS_PER_NODE,
+                        "Number of buckets processed at the same time on a node in grouped execution",
+                        featuresConfig.getConcurrentBucketsPerNode(),
+                        false),
+                booleanSessionProperty(
+                        ADAPTIVE_PARTIAL_AGGREGATION,
+                        "Experimental: Pass the input of partial aggregations through when aggregating does not reduce the number of rows",
+                        featuresConfig.isAdaptivePartialAggregationEnabled(),
+                        false),
+                longSessionProperty(
+                        ADAPTIVE_PARTIAL_AGGREGATION_MIN_ROWS,
+                        "Number of input rows a partial aggregation processes before deciding whether to pass its input through",
+                        featuresConfig.getAdaptivePartialAggregationMinRows(),
+                        false),
+                doubleSessionProperty(
+                        ADAPTIVE_PARTIAL_AGGREGATION_UNIQUE_ROWS_RATIO_THRESHOLD,
+                        "Ratio of groups to input rows above which a partial aggregation passes its input through",
+                        featuresConfig.getAdaptivePartialAggregationUniqueRowsRatioThreshold(),
+                        false),
+                integerSessionProperty(
+                        HASH_BUILD_CONCURRENCY,
+                        "Experimental: Number of threads building the hash table of a large join build side",
+                        featuresConfig.getHashBuildConcurrency(),
                         false));
     }
 
@@ -331,6 +403,11 @@ public final class SystemSessionProperties
         return session.getSystemProperty(OPTIMIZE_METADATA_QUERIES, Boolean.class);
     }
 
+    public static boolean isOptimizeMetadataQueriesUsingStatistics(Session session)
+    {
+        return session.getSystemProperty(OPTIMIZE_METADATA_QUERIES_USING_STATISTICS, Boolean.class);
+    }
+
     public static DataSize getQueryMaxMemory(Session session)
     {
         return session.getSystemProperty(QUERY_MAX_MEMORY, DataSize.class);
@@ -394,4 +471,60 @@ public final class SystemSessionProperties
     {
         return session.getSystemProperty(OPTIMIZE_DISTINCT_AGGREGATIONS, Boolean.class);
     }
+
+    public static boolean isDynamicFilteringEnabled(Session session)
+    {
+        return session.getSystemProperty(DYNAMIC_FILTERING_ENABLED, Boolean.class);
+    }
+
+    public static boolean isJoinReorderingEnabled(Session session)
+    {
+        return session.getSystemProperty(REORDER_JOINS, Boolean.class);
+    }
+
+    public static boolean isCostBasedJoinDistributionEnabled(Session session)
+    {
+        return session.getSystemProperty(COST_BASED_JOIN_DISTRIBUTION, Boolean.class);
+    }
+
+    public static DataSize getJoinMaxBroadcastTableSize(Session session)
+    {
+        return session.getSystemProperty(JOIN_MAX_BROADCAST_TABLE_SIZE, DataSize.class);
+    }
+
+    public static boolean isGroupedExecutionEnabled(Session session)
+    {
+        return session.getSystemProperty(GROUPED_EXECUTION, Boolean.class);
+    }
+
+    public static int getConcurrentBucketsPerNode(Session session)
+    {
+        return session.getSystemProperty(CONCURRENT_BUCKETS_PER_NODE, Integer.class);
+    }
+
+    public static boolean isAdaptivePartialAggregationEnabled(Session session)
+    {
+        return session.getSystemProperty(ADAPTIVE_PARTIAL_AGGREGATION, Boolean.class);
+    }
+
+    public static long getAdaptivePartialAggregationMinRows(Session session)
+    {
+        long minRows = session.getSystemProperty(ADAPTIVE_PARTIAL_AGGREGATION_MIN_ROWS, Long.class);
+        checkArgument(minRows > 0, "%s must be positive", ADAPTIVE_PARTIAL_AGGREGATION_MIN_ROWS);
+        return minRows;
+    }
+
+    public static double getAdaptivePartialAggregationUniqueRowsRatioThreshold(Session session)
+    {
+        double threshold = session.getSystemProperty(ADAPTIVE_PARTIAL_AGGREGATION_UNIQUE_ROWS_RATIO_THRESHOLD, Double.class);
+        checkArgument(threshold > 0 && threshold <= 1, "%s must be between 0 and 1", ADAPTIVE_PARTIAL_AGGREGATION_UNIQUE_ROWS_RATIO_THRESHOLD);
+        return threshold;
+    }
+
+    public static int getHashBuildConcurrency(Session session)
+    {
+        int concurrency = session.getSystemProperty(HASH_BUILD_CONCURRENCY, Integer.class);
+        checkArgument(concurrency > 0, "%s must be positive", HASH_BUILD_CONCURRENCY);
+        return concurrency;
+    }
 }
@@ -0,0 +1,98 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.block;
+
+import io.airlift.compress.Compressor;
+import io.airlift.compress.Decompressor;
+import io.airlift.compress.lz4.Lz4Compressor;
+import io.airlift.compress.lz4.Lz4Decompressor;
+import io.airlift.compress.snappy.SnappyCompressor;
+import io.airlift.compress.snappy.SnappyDecompressor;
+
+import java.util.Optional;
+
+import static java.lang.String.format;
+
+public enum PageCompressionCodec
+{
+    NONE((byte) 0),
+    LZ4((byte) 1),
+    SNAPPY((byte) 2);
+
+    private final byte marker;
+
+    PageCompressionCodec(byte marker)
+    {
+        this.marker = marker;
+    }
+
+    public byte getMarker()
+    {
+        return marker;
+    }
+
+    /**
+     * Compressors are not thread safe, so a new instance must be created for each writer.
+     */
+    public Compressor createCompressor()
+    {
+        switch (this) {
+            case LZ4:
+                return new Lz4Compressor();
+            case SNAPPY:
+                return new SnappyCompressor();
+            default:
+                throw new UnsupportedOperationException(format("Codec %s does not support compression", this));
+        }
+    }
+
+    public Decompressor createDecompressor()
+    {
+        switch (this) {
+            case LZ4:
+                return new Lz4Decompressor();
+            case SNAPPY:
+                return new SnappyDecompressor();
+            default:
+                throw new UnsupportedOperationException(format("Codec %s does not support decompression", this));
+        }
+    }
+
+    /**
+     * Parses the value of the page compression header. Nodes of other versions may send codecs
+     * this node does not know, so unknown and missing values mean the pages are not framed.
+     */
+    public static Optional<PageCompressionCodec> fromHeader(String value)
+    {
+        if (value == null) {
+            return Optional.empty();
+        }
+        for (PageCompressionCodec codec : values()) {
+            if (codec.name().equals(value)) {
+                return Optional.of(codec);
+            }
+        }
+        return Optional.empty();
+    }
+
+    public static PageCompressionCodec fromMarker(byte marker)
+    {
+        for (PageCompressionCodec codec : values()) {
+            if (codec.marker == marker) {
+                return codec;
+            }
+        }
+        throw new IllegalArgumentException(format("Unknown page compression marker %s", marker));
+    }
+}
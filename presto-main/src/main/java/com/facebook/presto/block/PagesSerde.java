@@ -17,13 +17,22 @@ import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockEncodingSerde;
 import com.google.common.collect.AbstractIterator;
+import io.airlift.compress.Compressor;
+import io.airlift.compress.Decompressor;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
 import io.airlift.slice.SliceInput;
 import io.airlift.slice.SliceOutput;
+import io.airlift.slice.Slices;
 
+import java.util.EnumMap;
 import java.util.Iterator;
+import java.util.Map;
 
 import static com.facebook.presto.block.BlockSerdeUtil.readBlock;
 import static com.facebook.presto.block.BlockSerdeUtil.writeBlock;
+import static com.facebook.presto.block.PageCompressionCodec.NONE;
+import static com.google.common.base.Preconditions.checkState;
 import static java.util.Arrays.asList;
 import static java.util.Objects.requireNonNull;
 
@@ -33,8 +42,19 @@ import static java.util.Objects.requireNonNull;
 //   - sequence of:
 //       - block encoding
 //       - block
+//
+// compressed layout is a sequence of:
+//   - codec marker (byte)
+//   - uncompressed size (int)
+//   - payload size (int)
+//   - payload: a single page in the layout above, compressed with the codec unless the marker is NONE
 public final class PagesSerde
 {
+    // pages that do not compress to at least this ratio are sent raw, since decompressing them is wasted work
+    public static final double MINIMUM_COMPRESSION_RATIO = 0.8;
+
+    private static final int PAGE_BUFFER_SIZE = 64 * 1024;
+
     private PagesSerde() {}
 
     public static long writePages(BlockEncodingSerde blockEncodingSerde, SliceOutput sliceOutput, Page... pages)
@@ -64,6 +84,53 @@ public final class PagesSerde
         return new PagesReader(blockEncodingSerde, sliceInput);
     }
 
+    public static long writeCompressedPages(BlockEncodingSerde blockEncodingSerde, SliceOutput sliceOutput, PageCompressionCodec codec, Iterable<Page> pages)
+    {
+        requireNonNull(codec, "codec is null");
+        Compressor compressor = codec == NONE ? null : codec.createCompressor();
+
+        DynamicSliceOutput pageOutput = new DynamicSliceOutput(PAGE_BUFFER_SIZE);
+        PagesWriter pagesWriter = new PagesWriter(blockEncodingSerde, pageOutput);
+        byte[] compressionBuffer = new byte[0];
+
+        long size = 0;
+        for (Page page : pages) {
+            pageOutput.reset();
+            pagesWriter.append(page);
+            Slice serializedPage = pageOutput.slice();
+            int uncompressedSize = serializedPage.length();
+
+            if (compressor != null) {
+                byte[] uncompressed = serializedPage.getBytes();
+                int maxCompressedLength = compressor.maxCompressedLength(uncompressedSize);
+                if (compressionBuffer.length < maxCompressedLength) {
+                    compressionBuffer = new byte[maxCompressedLength];
+                }
+                int compressedSize = compressor.compress(uncompressed, 0, uncompressedSize, compressionBuffer, 0, compressionBuffer.length);
+                if (compressedSize <= uncompressedSize * MINIMUM_COMPRESSION_RATIO) {
+                    sliceOutput.writeByte(codec.getMarker());
+                    sliceOutput.writeInt(uncompressedSize);
+                    sliceOutput.writeInt(compressedSize);
+                    sliceOutput.writeBytes(compressionBuffer, 0, compressedSize);
+                    size += page.getSizeInBytes();
+                    continue;
+                }
+            }
+
+            sliceOutput.writeByte(NONE.getMarker());
+            sliceOutput.writeInt(uncompressedSize);
+            sliceOutput.writeInt(uncompressedSize);
+            sliceOutput.writeBytes(serializedPage);
+            size += page.getSizeInBytes();
+        }
+        return size;
+    }
+
+    public static CompressedPagesReader readCompressedPages(BlockEncodingSerde blockEncodingSerde, SliceInput sliceInput)
+    {
+        return new CompressedPagesReader(blockEncodingSerde, sliceInput);
+    }
+
     private static class PagesWriter
     {
         private final BlockEncodingSerde serde;
@@ -122,4 +189,77 @@ public final class PagesSerde
             return page;
         }
     }
+
+    public static class CompressedPagesReader
+            extends AbstractIterator<Page>
+    {
+        private final BlockEncodingSerde serde;
+        private final SliceInput input;
+        private final Map<PageCompressionCodec, Decompressor> decompressors = new EnumMap<>(PageCompressionCodec.class);
+
+        private long compressedPages;
+        private long compressedBytes;
+        private long uncompressedBytes;
+
+        private CompressedPagesReader(BlockEncodingSerde serde, SliceInput input)
+        {
+            this.serde = requireNonNull(serde, "serde is null");
+            this.input = requireNonNull(input, "input is null");
+        }
+
+        /**
+         * Number of pages read that were compressed on the wire.
+         */
+        public long getCompressedPages()
+        {
+            return compressedPages;
+        }
+
+        /**
+         * Number of bytes saved by compression for the pages read so far.
+         */
+        public long getBytesSaved()
+        {
+            return uncompressedBytes - compressedBytes;
+        }
+
+        @Override
+        protected Page computeNext()
+        {
+            if (!input.isReadable()) {
+                return endOfData();
+            }
+
+            PageCompressionCodec codec = PageCompressionCodec.fromMarker(input.readByte());
+            int uncompressedSize = input.readInt();
+            int payloadSize = input.readInt();
+
+            Slice serializedPage;
+            if (codec == NONE) {
+                serializedPage = input.readSlice(payloadSize);
+            }
+            else {
+                byte[] compressed = new byte[payloadSize];
+                input.readBytes(compressed);
+                byte[] uncompressed = new byte[uncompressedSize];
+                Decompressor decompressor = decompressors.computeIfAbsent(codec, PageCompressionCodec::createDecompressor);
+                int actualSize = decompressor.decompress(compressed, 0, payloadSize, uncompressed, 0, uncompressedSize);
+                checkState(actualSize == uncompressedSize, "Decompressed page size %s does not match expected size %s", actualSize, uncompressedSize);
+                serializedPage = Slices.wrappedBuffer(uncompressed);
+
+                compressedPages++;
+                compressedBytes += payloadSize;
+                uncompressedBytes += uncompressedSize;
+            }
+
+            SliceInput pageInput = serializedPage.getInput();
+            int positions = pageInput.readInt();
+            int numberOfBlocks = pageInput.readInt();
+            Block[] blocks = new Block[numberOfBlocks];
+            for (int i = 0; i < blocks.length; i++) {
+                blocks[i] = readBlock(serde, pageInput);
+            }
+            return new Page(positions, blocks);
+        }
+    }
 }
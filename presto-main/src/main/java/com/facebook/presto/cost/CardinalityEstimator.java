@@ -0,0 +1,449 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.cost;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.metadata.TableLayoutHandle;
+import com.facebook.presto.metadata.TableLayoutResult;
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.Constraint;
+import com.facebook.presto.spi.predicate.DiscreteValues;
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.Range;
+import com.facebook.presto.spi.predicate.Ranges;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.statistics.ColumnStatistics;
+import com.facebook.presto.spi.statistics.Estimate;
+import com.facebook.presto.spi.statistics.TableStatistics;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.planner.DomainTranslator;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.plan.AggregationNode;
+import com.facebook.presto.sql.planner.plan.EnforceSingleRowNode;
+import com.facebook.presto.sql.planner.plan.FilterNode;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.LimitNode;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.PlanVisitor;
+import com.facebook.presto.sql.planner.plan.ProjectNode;
+import com.facebook.presto.sql.planner.plan.SemiJoinNode;
+import com.facebook.presto.sql.planner.plan.TableScanNode;
+import com.facebook.presto.sql.planner.plan.TopNNode;
+import com.facebook.presto.sql.planner.plan.UnionNode;
+import com.facebook.presto.sql.planner.plan.ValuesNode;
+import com.facebook.presto.sql.tree.Expression;
+import com.facebook.presto.sql.tree.SymbolReference;
+import com.google.common.collect.ImmutableBiMap;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.facebook.presto.spi.type.RealType.REAL;
+import static com.facebook.presto.sql.tree.BooleanLiteral.TRUE_LITERAL;
+import static java.lang.Float.intBitsToFloat;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Estimates the number of rows produced by plan nodes, starting from the table and column
+ * statistics provided by the connectors. The estimates assume that the values of different
+ * columns are independent and uniformly distributed between their low and high values.
+ * Estimates are memoized, so an estimator should only be used for a single version of a plan.
+ */
+public class CardinalityEstimator
+{
+    // selectivity of predicates which can not be estimated from the statistics
+    private static final double UNKNOWN_FILTER_COEFFICIENT = 0.9;
+
+    private final Metadata metadata;
+    private final Session session;
+    private final Map<Symbol, Type> types;
+    private final Visitor visitor = new Visitor();
+    private final Map<PlanNode, PlanNodeStatistics> statistics = new IdentityHashMap<>();
+
+    public CardinalityEstimator(Metadata metadata, Session session, Map<Symbol, Type> types)
+    {
+        this.metadata = requireNonNull(metadata, "metadata is null");
+        this.session = requireNonNull(session, "session is null");
+        this.types = requireNonNull(types, "types is null");
+    }
+
+    public PlanNodeStatistics estimate(PlanNode node)
+    {
+        PlanNodeStatistics result = statistics.get(node);
+        if (result == null) {
+            result = node.accept(visitor, null);
+            statistics.put(node, result);
+        }
+        return result;
+    }
+
+    /**
+     * Estimated size in bytes of the output of the node, or NaN if it is unknown.
+     */
+    public double estimateOutputSizeInBytes(PlanNode node)
+    {
+        return estimate(node).getOutputSizeInBytes(node.getOutputSymbols(), types);
+    }
+
+    private class Visitor
+            extends PlanVisitor<Void, PlanNodeStatistics>
+    {
+        @Override
+        protected PlanNodeStatistics visitPlan(PlanNode node, Void context)
+        {
+            // nodes which do not change the number of rows, such as sorts and exchanges
+            if (node.getSources().size() == 1) {
+                PlanNodeStatistics source = estimate(node.getSources().get(0));
+                return new PlanNodeStatistics(source.getOutputRowCount(), source.getSymbolStatistics());
+            }
+            return PlanNodeStatistics.unknown();
+        }
+
+        @Override
+        public PlanNodeStatistics visitTableScan(TableScanNode node, Void context)
+        {
+            return estimateTableScan(node, TupleDomain.all(), TRUE_LITERAL);
+        }
+
+        @Override
+        public PlanNodeStatistics visitFilter(FilterNode node, Void context)
+        {
+            DomainTranslator.ExtractionResult predicate = DomainTranslator.fromPredicate(metadata, session, node.getPredicate(), types);
+            if (node.getSource() instanceof TableScanNode) {
+                // the predicate may allow the connector to skip whole partitions of the table
+                return estimateTableScan((TableScanNode) node.getSource(), predicate.getTupleDomain(), predicate.getRemainingExpression());
+            }
+            return filter(estimate(node.getSource()), predicate.getTupleDomain(), predicate.getRemainingExpression());
+        }
+
+        @Override
+        public PlanNodeStatistics visitProject(ProjectNode node, Void context)
+        {
+            PlanNodeStatistics source = estimate(node.getSource());
+            ImmutableMap.Builder<Symbol, SymbolStatistics> symbolStatistics = ImmutableMap.builder();
+            for (Map.Entry<Symbol, Expression> entry : node.getAssignments().entrySet()) {
+                if (entry.getValue() instanceof SymbolReference) {
+                    symbolStatistics.put(entry.getKey(), source.getSymbolStatistics(Symbol.from(entry.getValue())));
+                }
+            }
+            return new PlanNodeStatistics(source.getOutputRowCount(), symbolStatistics.build());
+        }
+
+        @Override
+        public PlanNodeStatistics visitAggregation(AggregationNode node, Void context)
+        {
+            PlanNodeStatistics source = estimate(node.getSource());
+            if (node.getGroupingKeys().isEmpty()) {
+                return new PlanNodeStatistics(1, ImmutableMap.of());
+            }
+
+            double groups = 1;
+            ImmutableMap.Builder<Symbol, SymbolStatistics> symbolStatistics = ImmutableMap.builder();
+            for (Symbol groupingKey : node.getGroupingKeys()) {
+                SymbolStatistics keyStatistics = source.getSymbolStatistics(groupingKey);
+                groups *= keyStatistics.getDistinctValuesCount();
+                symbolStatistics.put(groupingKey, keyStatistics);
+            }
+            if (Double.isNaN(groups)) {
+                // there can not be more groups than input rows
+                groups = source.getOutputRowCount();
+            }
+            return new PlanNodeStatistics(min(groups, source.getOutputRowCount()), symbolStatistics.build());
+        }
+
+        @Override
+        public PlanNodeStatistics visitJoin(JoinNode node, Void context)
+        {
+            PlanNodeStatistics left = estimate(node.getLeft());
+            PlanNodeStatistics right = estimate(node.getRight());
+            double leftRows = left.getOutputRowCount();
+            double rightRows = right.getOutputRowCount();
+
+            Map<Symbol, SymbolStatistics> symbolStatistics = new HashMap<>();
+            symbolStatistics.putAll(left.getSymbolStatistics());
+            symbolStatistics.putAll(right.getSymbolStatistics());
+
+            double rows;
+            if (node.getCriteria().isEmpty()) {
+                rows = leftRows * rightRows;
+            }
+            else {
+                // every row matches the rows of the other side with the same key, and the clause with
+                // the most distinct keys is the most selective one
+                double distinctKeys = Double.NaN;
+                for (JoinNode.EquiJoinClause clause : node.getCriteria()) {
+                    SymbolStatistics leftKey = left.getSymbolStatistics(clause.getLeft());
+                    SymbolStatistics rightKey = right.getSymbolStatistics(clause.getRight());
+                    double clauseDistinctKeys = maxKnown(leftKey.getDistinctValuesCount(), rightKey.getDistinctValuesCount());
+                    distinctKeys = maxKnown(distinctKeys, clauseDistinctKeys);
+
+                    double matchingKeys = min(leftKey.getDistinctValuesCount(), rightKey.getDistinctValuesCount());
+                    if (!Double.isNaN(matchingKeys)) {
+                        symbolStatistics.put(clause.getLeft(), leftKey.withDistinctValuesCount(matchingKeys));
+                        symbolStatistics.put(clause.getRight(), rightKey.withDistinctValuesCount(matchingKeys));
+                    }
+                }
+                if (Double.isNaN(distinctKeys)) {
+                    rows = max(leftRows, rightRows);
+                }
+                else {
+                    rows = leftRows * rightRows / max(distinctKeys, 1);
+                }
+            }
+            if (node.getFilter().isPresent()) {
+                rows *= UNKNOWN_FILTER_COEFFICIENT;
+            }
+
+            switch (node.getType()) {
+                case LEFT:
+                    rows = max(rows, leftRows);
+                    break;
+                case RIGHT:
+                    rows = max(rows, rightRows);
+                    break;
+                case FULL:
+                    rows = max(rows, max(leftRows, rightRows));
+                    break;
+            }
+            return new PlanNodeStatistics(rows, symbolStatistics);
+        }
+
+        @Override
+        public PlanNodeStatistics visitSemiJoin(SemiJoinNode node, Void context)
+        {
+            return estimate(node.getSource());
+        }
+
+        @Override
+        public PlanNodeStatistics visitLimit(LimitNode node, Void context)
+        {
+            PlanNodeStatistics source = estimate(node.getSource());
+            return new PlanNodeStatistics(minKnown(node.getCount(), source.getOutputRowCount()), source.getSymbolStatistics());
+        }
+
+        @Override
+        public PlanNodeStatistics visitTopN(TopNNode node, Void context)
+        {
+            PlanNodeStatistics source = estimate(node.getSource());
+            return new PlanNodeStatistics(minKnown(node.getCount(), source.getOutputRowCount()), source.getSymbolStatistics());
+        }
+
+        @Override
+        public PlanNodeStatistics visitEnforceSingleRow(EnforceSingleRowNode node, Void context)
+        {
+            return new PlanNodeStatistics(1, estimate(node.getSource()).getSymbolStatistics());
+        }
+
+        @Override
+        public PlanNodeStatistics visitValues(ValuesNode node, Void context)
+        {
+            return new PlanNodeStatistics(node.getRows().size(), ImmutableMap.of());
+        }
+
+        @Override
+        public PlanNodeStatistics visitUnion(UnionNode node, Void context)
+        {
+            double rows = 0;
+            for (PlanNode source : node.getSources()) {
+                rows += estimate(source).getOutputRowCount();
+            }
+            return new PlanNodeStatistics(rows, ImmutableMap.of());
+        }
+    }
+
+    private PlanNodeStatistics estimateTableScan(TableScanNode node, TupleDomain<Symbol> predicate, Expression remainingPredicate)
+    {
+        Map<ColumnHandle, Symbol> columnSymbols = ImmutableBiMap.copyOf(node.getAssignments()).inverse();
+
+        TableLayoutHandle layout;
+        TupleDomain<Symbol> unenforcedPredicate;
+        if (node.getLayout().isPresent()) {
+            layout = node.getLayout().get();
+            unenforcedPredicate = predicate;
+        }
+        else {
+            TupleDomain<ColumnHandle> constraint = predicate.transform(node.getAssignments()::get)
+                    .intersect(node.getCurrentConstraint());
+            List<TableLayoutResult> layouts = metadata.getLayouts(session, node.getTable(), new Constraint<>(constraint, bindings -> true), Optional.empty());
+            if (layouts.isEmpty()) {
+                return new PlanNodeStatistics(0, ImmutableMap.of());
+            }
+            layout = layouts.get(0).getLayout().getHandle();
+            unenforcedPredicate = layouts.get(0).getUnenforcedConstraint().transform(columnSymbols::get);
+        }
+
+        TableStatistics tableStatistics = metadata.getTableStatistics(session, node.getTable(), layout);
+        double rows = toDouble(tableStatistics.getRowCount());
+
+        ImmutableMap.Builder<Symbol, SymbolStatistics> symbolStatistics = ImmutableMap.builder();
+        for (Map.Entry<ColumnHandle, ColumnStatistics> entry : tableStatistics.getColumnStatistics().entrySet()) {
+            Symbol symbol = columnSymbols.get(entry.getKey());
+            if (symbol == null) {
+                continue;
+            }
+            ColumnStatistics columnStatistics = entry.getValue();
+            Type type = types.get(symbol);
+            symbolStatistics.put(symbol, new SymbolStatistics(
+                    toDouble(columnStatistics.getDistinctValuesCount()),
+                    toDouble(columnStatistics.getNullsCount()) / rows,
+                    columnStatistics.getMin().map(value -> toDouble(type, value)).orElse(Double.NaN),
+                    columnStatistics.getMax().map(value -> toDouble(type, value)).orElse(Double.NaN)));
+        }
+        return filter(new PlanNodeStatistics(rows, symbolStatistics.build()), unenforcedPredicate, remainingPredicate);
+    }
+
+    private PlanNodeStatistics filter(PlanNodeStatistics source, TupleDomain<Symbol> predicate, Expression remainingPredicate)
+    {
+        double selectivity = 1;
+        if (predicate.isNone()) {
+            selectivity = 0;
+        }
+        else {
+            for (Map.Entry<Symbol, Domain> entry : predicate.getDomains().get().entrySet()) {
+                selectivity *= selectivity(entry.getValue(), source.getSymbolStatistics(entry.getKey()));
+            }
+        }
+        if (!remainingPredicate.equals(TRUE_LITERAL)) {
+            selectivity *= UNKNOWN_FILTER_COEFFICIENT;
+        }
+
+        double rows = source.getOutputRowCount() * selectivity;
+        ImmutableMap.Builder<Symbol, SymbolStatistics> symbolStatistics = ImmutableMap.builder();
+        for (Map.Entry<Symbol, SymbolStatistics> entry : source.getSymbolStatistics().entrySet()) {
+            SymbolStatistics statistics = entry.getValue();
+            symbolStatistics.put(entry.getKey(), statistics.withDistinctValuesCount(min(statistics.getDistinctValuesCount(), rows)));
+        }
+        return new PlanNodeStatistics(rows, symbolStatistics.build());
+    }
+
+    private static double selectivity(Domain domain, SymbolStatistics statistics)
+    {
+        if (domain.isNone()) {
+            return 0;
+        }
+        if (domain.isAll()) {
+            return 1;
+        }
+
+        double nullsFraction = Double.isNaN(statistics.getNullsFraction()) ? 0 : statistics.getNullsFraction();
+        double valuesSelectivity = domain.getValues().getValuesProcessor().transform(
+                ranges -> rangesSelectivity(ranges, statistics),
+                discreteValues -> discreteValuesSelectivity(discreteValues, statistics),
+                allOrNone -> allOrNone.isAll() ? 1.0 : 0.0);
+
+        double selectivity = valuesSelectivity * (1 - nullsFraction);
+        if (domain.isNullAllowed()) {
+            selectivity += nullsFraction;
+        }
+        return min(max(selectivity, 0), 1);
+    }
+
+    private static double rangesSelectivity(Ranges ranges, SymbolStatistics statistics)
+    {
+        double distinctValues = statistics.getDistinctValuesCount();
+        double low = statistics.getLowValue();
+        double high = statistics.getHighValue();
+
+        double selectivity = 0;
+        for (Range range : ranges.getOrderedRanges()) {
+            if (range.isAll()) {
+                return 1;
+            }
+            if (range.isSingleValue()) {
+                if (Double.isNaN(distinctValues)) {
+                    return UNKNOWN_FILTER_COEFFICIENT;
+                }
+                selectivity += 1 / max(distinctValues, 1);
+                continue;
+            }
+
+            double rangeLow = range.getLow().isLowerUnbounded() ? low : toDouble(range.getType(), range.getLow().getValue());
+            double rangeHigh = range.getHigh().isUpperUnbounded() ? high : toDouble(range.getType(), range.getHigh().getValue());
+            if (Double.isNaN(low) || Double.isNaN(high) || Double.isNaN(rangeLow) || Double.isNaN(rangeHigh)) {
+                return UNKNOWN_FILTER_COEFFICIENT;
+            }
+            if (high == low) {
+                selectivity += (rangeLow <= low && low <= rangeHigh) ? 1 : 0;
+                continue;
+            }
+            double overlap = min(high, rangeHigh) - max(low, rangeLow);
+            selectivity += max(overlap, 0) / (high - low);
+        }
+        return min(selectivity, 1);
+    }
+
+    private static double discreteValuesSelectivity(DiscreteValues discreteValues, SymbolStatistics statistics)
+    {
+        double distinctValues = statistics.getDistinctValuesCount();
+        if (Double.isNaN(distinctValues)) {
+            return UNKNOWN_FILTER_COEFFICIENT;
+        }
+        double selectivity = min(discreteValues.getValues().size() / max(distinctValues, 1), 1);
+        return discreteValues.isWhiteList() ? selectivity : 1 - selectivity;
+    }
+
+    private static double toDouble(Estimate estimate)
+    {
+        return estimate.isValueUnknown() ? Double.NaN : estimate.getValue();
+    }
+
+    /**
+     * Numeric representation of a value, which preserves the ordering of the values of the type.
+     */
+    private static double toDouble(Type type, Object value)
+    {
+        if (value == null) {
+            return Double.NaN;
+        }
+        if (type.equals(REAL)) {
+            return intBitsToFloat((int) (long) value);
+        }
+        if (value instanceof Long) {
+            return (long) value;
+        }
+        if (value instanceof Double) {
+            return (double) value;
+        }
+        return Double.NaN;
+    }
+
+    private static double maxKnown(double first, double second)
+    {
+        if (Double.isNaN(first)) {
+            return second;
+        }
+        if (Double.isNaN(second)) {
+            return first;
+        }
+        return max(first, second);
+    }
+
+    private static double minKnown(double first, double second)
+    {
+        if (Double.isNaN(first)) {
+            return second;
+        }
+        if (Double.isNaN(second)) {
+            return first;
+        }
+        return min(first, second);
+    }
+}
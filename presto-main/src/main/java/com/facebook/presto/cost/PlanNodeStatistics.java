@@ -0,0 +1,118 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.cost;
+
+import com.facebook.presto.spi.type.FixedWidthType;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.planner.Symbol;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Estimated size of the output of a plan node. The row count is NaN when it is unknown.
+ */
+public final class PlanNodeStatistics
+{
+    // assumed average size of a value of a variable width type
+    private static final int DEFAULT_VARIABLE_WIDTH_SIZE = 32;
+
+    private static final PlanNodeStatistics UNKNOWN = new PlanNodeStatistics(Double.NaN, ImmutableMap.of());
+
+    private final double outputRowCount;
+    private final Map<Symbol, SymbolStatistics> symbolStatistics;
+
+    public PlanNodeStatistics(double outputRowCount, Map<Symbol, SymbolStatistics> symbolStatistics)
+    {
+        this.outputRowCount = outputRowCount;
+        this.symbolStatistics = ImmutableMap.copyOf(requireNonNull(symbolStatistics, "symbolStatistics is null"));
+    }
+
+    public static PlanNodeStatistics unknown()
+    {
+        return UNKNOWN;
+    }
+
+    public double getOutputRowCount()
+    {
+        return outputRowCount;
+    }
+
+    public boolean isOutputRowCountUnknown()
+    {
+        return Double.isNaN(outputRowCount);
+    }
+
+    public Map<Symbol, SymbolStatistics> getSymbolStatistics()
+    {
+        return symbolStatistics;
+    }
+
+    public SymbolStatistics getSymbolStatistics(Symbol symbol)
+    {
+        return symbolStatistics.getOrDefault(symbol, SymbolStatistics.unknown());
+    }
+
+    /**
+     * Estimated size in bytes of the given output symbols, or NaN if the row count is unknown.
+     */
+    public double getOutputSizeInBytes(Collection<Symbol> outputSymbols, Map<Symbol, Type> types)
+    {
+        double rowSize = 0;
+        for (Symbol symbol : outputSymbols) {
+            Type type = types.get(symbol);
+            if (type instanceof FixedWidthType) {
+                rowSize += ((FixedWidthType) type).getFixedSize();
+            }
+            else {
+                rowSize += DEFAULT_VARIABLE_WIDTH_SIZE;
+            }
+        }
+        return outputRowCount * rowSize;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        PlanNodeStatistics that = (PlanNodeStatistics) o;
+        return Double.compare(outputRowCount, that.outputRowCount) == 0 &&
+                Objects.equals(symbolStatistics, that.symbolStatistics);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(outputRowCount, symbolStatistics);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("outputRowCount", outputRowCount)
+                .add("symbolStatistics", symbolStatistics)
+                .toString();
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.cost;
+
+import java.util.Objects;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * Estimated statistics of the values of a single symbol. Unknown estimates are NaN,
+ * and the low and high values are only known for types with a numeric representation.
+ */
+public final class SymbolStatistics
+{
+    private static final SymbolStatistics UNKNOWN = new SymbolStatistics(Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+
+    private final double distinctValuesCount;
+    private final double nullsFraction;
+    private final double lowValue;
+    private final double highValue;
+
+    public SymbolStatistics(double distinctValuesCount, double nullsFraction, double lowValue, double highValue)
+    {
+        this.distinctValuesCount = distinctValuesCount;
+        this.nullsFraction = nullsFraction;
+        this.lowValue = lowValue;
+        this.highValue = highValue;
+    }
+
+    public static SymbolStatistics unknown()
+    {
+        return UNKNOWN;
+    }
+
+    public double getDistinctValuesCount()
+    {
+        return distinctValuesCount;
+    }
+
+    public double getNullsFraction()
+    {
+        return nullsFraction;
+    }
+
+    public double getLowValue()
+    {
+        return lowValue;
+    }
+
+    public double getHighValue()
+    {
+        return highValue;
+    }
+
+    public SymbolStatistics withDistinctValuesCount(double distinctValuesCount)
+    {
+        return new SymbolStatistics(distinctValuesCount, nullsFraction, lowValue, highValue);
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        SymbolStatistics that = (SymbolStatistics) o;
+        return Double.compare(distinctValuesCount, that.distinctValuesCount) == 0 &&
+                Double.compare(nullsFraction, that.nullsFraction) == 0 &&
+                Double.compare(lowValue, that.lowValue) == 0 &&
+                Double.compare(highValue, that.highValue) == 0;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(distinctValuesCount, nullsFraction, lowValue, highValue);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("distinctValuesCount", distinctValuesCount)
+                .add("nullsFraction", nullsFraction)
+                .add("lowValue", lowValue)
+                .add("highValue", highValue)
+                .toString();
+    }
+}
@@ -0,0 +1,328 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.facebook.presto.execution.TaskExecutor.PrioritizedSplitRunner;
+import org.weakref.jmx.Managed;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.Collection;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Splits waiting for a runner thread. Splits are assigned to a level based on the thread
+ * time used by their task, and every level has a separate queue ordered by the split priority.
+ * <p>
+ * The levels share the runner threads: the next split is taken from the level which used the
+ * least thread time relative to its target share, where the target share of each level is
+ * {@code levelTimeMultiplier} times smaller than the share of the level before it. Short
+ * queries thus get most of the thread time while competing with long running queries, and
+ * long running queries still make progress.
+ * <p>
+ * Every level is a separate concurrent queue, so runner threads taking splits from different
+ * levels do not contend on a common lock. The selection of the level reads the level times
+ * without locking, so concurrent selections may deviate slightly from the target shares.
+ */
+@ThreadSafe
+public class MultilevelSplitQueue
+{
+    private static final long[] LEVEL_THRESHOLD_SECONDS = {0, 1, 10, 60, 300};
+
+    public static final int LEVEL_COUNT = LEVEL_THRESHOLD_SECONDS.length;
+
+    private final double[] levelWeights = new double[LEVEL_COUNT];
+
+    private final PriorityBlockingQueue<PrioritizedSplitRunner>[] levelWaitingSplits;
+
+    // one permit for every waiting split, runner threads wait for a permit before they select a level
+    private final Semaphore availableSplits = new Semaphore(0);
+
+    private final AtomicLongArray levelScheduledTime = new AtomicLongArray(LEVEL_COUNT);
+    private final AtomicLongArray levelSelectedSplits = new AtomicLongArray(LEVEL_COUNT);
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong waitingRunners = new AtomicLong();
+
+    public MultilevelSplitQueue(double levelTimeMultiplier)
+    {
+        checkArgument(levelTimeMultiplier >= 1, "levelTimeMultiplier must be at least 1");
+
+        //noinspection unchecked
+        this.levelWaitingSplits = (PriorityBlockingQueue<PrioritizedSplitRunner>[]) new PriorityBlockingQueue<?>[LEVEL_COUNT];
+        for (int level = 0; level < LEVEL_COUNT; level++) {
+            levelWaitingSplits[level] = new PriorityBlockingQueue<>();
+            levelWeights[level] = Math.pow(levelTimeMultiplier, level);
+        }
+    }
+
+    public static int computeLevel(long threadUsageNanos)
+    {
+        long seconds = NANOSECONDS.toSeconds(threadUsageNanos);
+        for (int level = 0; level < LEVEL_COUNT - 1; level++) {
+            if (seconds < LEVEL_THRESHOLD_SECONDS[level + 1]) {
+                return level;
+            }
+        }
+        return LEVEL_COUNT - 1;
+    }
+
+    public void offer(PrioritizedSplitRunner split)
+    {
+        requireNonNull(split, "split is null");
+        int level = split.getPriorityLevel();
+        if (levelWaitingSplits[level].isEmpty()) {
+            catchUpLevel(level);
+        }
+        levelWaitingSplits[level].offer(split);
+        size.incrementAndGet();
+        availableSplits.release();
+    }
+
+    /**
+     * Waits for a split to become available, and removes it from the queue.
+     */
+    public PrioritizedSplitRunner take()
+            throws InterruptedException
+    {
+        while (true) {
+            if (!availableSplits.tryAcquire()) {
+                waitingRunners.incrementAndGet();
+                try {
+                    availableSplits.acquire();
+                }
+                finally {
+                    waitingRunners.decrementAndGet();
+                }
+            }
+            // the split of the permit is gone if it was removed while this thread acquired the permit
+            PrioritizedSplitRunner split = pollSplit();
+            if (split != null) {
+                return split;
+            }
+        }
+    }
+
+    public void removeAll(Collection<PrioritizedSplitRunner> splits)
+    {
+        for (PrioritizedSplitRunner split : splits) {
+            for (PriorityBlockingQueue<PrioritizedSplitRunner> waitingSplits : levelWaitingSplits) {
+                if (waitingSplits.remove(split)) {
+                    size.decrementAndGet();
+                    // if a runner thread already holds the permit it does not find the split and waits again
+                    availableSplits.tryAcquire();
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Records the thread time used by a split of the given level.
+     */
+    public void addLevelTime(int level, long nanos)
+    {
+        levelScheduledTime.addAndGet(level, nanos);
+    }
+
+    public int size()
+    {
+        return size.get();
+    }
+
+    private PrioritizedSplitRunner pollSplit()
+    {
+        while (true) {
+            int selectedLevel = -1;
+            double selectedLevelTime = Double.MAX_VALUE;
+            for (int level = 0; level < LEVEL_COUNT; level++) {
+                if (levelWaitingSplits[level].isEmpty()) {
+                    continue;
+                }
+                double levelTime = getNormalizedLevelTime(level);
+                if (levelTime < selectedLevelTime) {
+                    selectedLevel = level;
+                    selectedLevelTime = levelTime;
+                }
+            }
+            if (selectedLevel == -1) {
+                return null;
+            }
+
+            // another runner thread may have taken the last split of the level in the meantime
+            PrioritizedSplitRunner split = levelWaitingSplits[selectedLevel].poll();
+            if (split != null) {
+                levelSelectedSplits.incrementAndGet(selectedLevel);
+                size.decrementAndGet();
+                return split;
+            }
+        }
+    }
+
+    /**
+     * A level which had no waiting splits did not use its share of the thread time. Moves
+     * the thread time of the level forward to the time of the other levels, so the level
+     * can not use the time it did not need to starve the other levels.
+     */
+    private void catchUpLevel(int level)
+    {
+        double minLevelTime = Double.MAX_VALUE;
+        for (int otherLevel = 0; otherLevel < LEVEL_COUNT; otherLevel++) {
+            if (otherLevel != level && !levelWaitingSplits[otherLevel].isEmpty()) {
+                minLevelTime = Math.min(minLevelTime, getNormalizedLevelTime(otherLevel));
+            }
+        }
+        if (minLevelTime == Double.MAX_VALUE) {
+            return;
+        }
+
+        long targetTime = (long) (minLevelTime / levelWeights[level]);
+        long currentTime = levelScheduledTime.get(level);
+        while (currentTime < targetTime && !levelScheduledTime.compareAndSet(level, currentTime, targetTime)) {
+            currentTime = levelScheduledTime.get(level);
+        }
+    }
+
+    private double getNormalizedLevelTime(int level)
+    {
+        return levelScheduledTime.get(level) * levelWeights[level];
+    }
+
+    private int getWaitingSplits(int level)
+    {
+        return levelWaitingSplits[level].size();
+    }
+
+    private long getScheduledTimeSeconds(int level)
+    {
+        return NANOSECONDS.toSeconds(levelScheduledTime.get(level));
+    }
+
+    //
+    // STATS
+    //
+
+    @Managed
+    public long getWaitingRunners()
+    {
+        return waitingRunners.get();
+    }
+
+    @Managed
+    public int getWaitingSplitsLevel0()
+    {
+        return getWaitingSplits(0);
+    }
+
+    @Managed
+    public int getWaitingSplitsLevel1()
+    {
+        return getWaitingSplits(1);
+    }
+
+    @Managed
+    public int getWaitingSplitsLevel2()
+    {
+        return getWaitingSplits(2);
+    }
+
+    @Managed
+    public int getWaitingSplitsLevel3()
+    {
+        return getWaitingSplits(3);
+    }
+
+    @Managed
+    public int getWaitingSplitsLevel4()
+    {
+        return getWaitingSplits(4);
+    }
+
+    @Managed(description = "Thread time used by splits of level 0 in seconds")
+    public long getScheduledTimeLevel0()
+    {
+        return getScheduledTimeSeconds(0);
+    }
+
+    @Managed(description = "Thread time used by splits of level 1 in seconds")
+    public long getScheduledTimeLevel1()
+    {
+        return getScheduledTimeSeconds(1);
+    }
+
+    @Managed(description = "Thread time used by splits of level 2 in seconds")
+    public long getScheduledTimeLevel2()
+    {
+        return getScheduledTimeSeconds(2);
+    }
+
+    @Managed(description = "Thread time used by splits of level 3 in seconds")
+    public long getScheduledTimeLevel3()
+    {
+        return getScheduledTimeSeconds(3);
+    }
+
+    @Managed(description = "Thread time used by splits of level 4 in seconds")
+    public long getScheduledTimeLevel4()
+    {
+        return getScheduledTimeSeconds(4);
+    }
+
+    @Managed
+    public long getSelectedSplitsLevel0()
+    {
+        return levelSelectedSplits.get(0);
+    }
+
+    @Managed
+    public long getSelectedSplitsLevel1()
+    {
+        return levelSelectedSplits.get(1);
+    }
+
+    @Managed
+    public long getSelectedSplitsLevel2()
+    {
+        return levelSelectedSplits.get(2);
+    }
+
+    @Managed
+    public long getSelectedSplitsLevel3()
+    {
+        return levelSelectedSplits.get(3);
+    }
+
+    @Managed
+    public long getSelectedSplitsLevel4()
+    {
+        return levelSelectedSplits.get(4);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("size", size.get())
+                .add("levelScheduledTime", levelScheduledTime)
+                .toString();
+    }
+}
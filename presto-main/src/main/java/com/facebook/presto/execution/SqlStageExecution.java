@@ -278,6 +278,22 @@ public final class SqlStageExecution
         return scheduleTask(node, new TaskId(stateMachine.getStageId(), partition), ImmutableMultimap.of());
     }
 
+    /**
+     * Schedules a task which processes only the given splits, and no further splits of the partitioned sources.
+     */
+    public synchronized RemoteTask scheduleTask(Node node, int partition, Multimap<PlanNodeId, Split> splits)
+    {
+        requireNonNull(node, "node is null");
+        requireNonNull(splits, "splits is null");
+        checkArgument(stateMachine.getFragment().getPartitionedSources().containsAll(splits.keySet()), "Invalid splits");
+
+        RemoteTask task = scheduleTask(node, new TaskId(stateMachine.getStageId(), partition), splits);
+        for (PlanNodeId partitionedSource : stateMachine.getFragment().getPartitionedSources()) {
+            task.noMoreSplits(partitionedSource);
+        }
+        return task;
+    }
+
     public synchronized Set<RemoteTask> scheduleSplits(Node node, Multimap<PlanNodeId, Split> splits)
     {
         requireNonNull(node, "node is null");
@@ -159,6 +159,11 @@ public class SqlTaskManager
         });
     }
 
+    public List<QueryContext> getQueryContexts()
+    {
+        return ImmutableList.copyOf(queryContexts.asMap().values());
+    }
+
     @Override
     public synchronized void updateMemoryPoolAssignments(MemoryPoolAssignmentsRequest assignments)
     {
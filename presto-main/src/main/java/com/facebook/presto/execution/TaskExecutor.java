@@ -36,17 +36,14 @@ import javax.inject.Inject;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
-import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -87,19 +84,20 @@ public class TaskExecutor
 
     private final Ticker ticker;
 
-    @GuardedBy("this")
-    private final List<TaskHandle> tasks;
+    /**
+     * Tasks in round robin order for starting new splits.
+     */
+    private final Queue<TaskHandle> tasks = new ConcurrentLinkedQueue<>();
 
     /**
      * All splits registered with the task executor.
      */
-    @GuardedBy("this")
-    private final Set<PrioritizedSplitRunner> allSplits = new HashSet<>();
+    private final Set<PrioritizedSplitRunner> allSplits = newConcurrentHashSet();
 
     /**
      * Splits waiting for a runner thread.
      */
-    private final PriorityBlockingQueue<PrioritizedSplitRunner> pendingSplits;
+    private final MultilevelSplitQueue pendingSplits;
 
     /**
      * Splits running on a thread.
@@ -111,7 +109,7 @@ public class TaskExecutor
      */
     private final Map<PrioritizedSplitRunner, Future<?>> blockedSplits = new ConcurrentHashMap<>();
 
-    private final AtomicLongArray completedTasksPerLevel = new AtomicLongArray(5);
+    private final AtomicLongArray completedTasksPerLevel = new AtomicLongArray(MultilevelSplitQueue.LEVEL_COUNT);
 
     private final TimeStat queuedTime = new TimeStat(NANOSECONDS);
     private final TimeStat wallTime = new TimeStat(NANOSECONDS);
@@ -121,7 +119,7 @@ public class TaskExecutor
     @Inject
     public TaskExecutor(TaskManagerConfig config)
     {
-        this(requireNonNull(config, "config is null").getMaxWorkerThreads(), config.getMinDrivers());
+        this(requireNonNull(config, "config is null").getMaxWorkerThreads(), config.getMinDrivers(), config.getLevelTimeMultiplier(), Ticker.systemTicker());
     }
 
     public TaskExecutor(int runnerThreads, int minDrivers)
@@ -131,6 +129,12 @@ public class TaskExecutor
 
     @VisibleForTesting
     public TaskExecutor(int runnerThreads, int minDrivers, Ticker ticker)
+    {
+        this(runnerThreads, minDrivers, new TaskManagerConfig().getLevelTimeMultiplier(), ticker);
+    }
+
+    @VisibleForTesting
+    public TaskExecutor(int runnerThreads, int minDrivers, double levelTimeMultiplier, Ticker ticker)
     {
         checkArgument(runnerThreads > 0, "runnerThreads must be at least 1");
 
@@ -142,8 +146,7 @@ public class TaskExecutor
         this.ticker = requireNonNull(ticker, "ticker is null");
 
         this.minimumNumberOfDrivers = minDrivers;
-        this.pendingSplits = new PriorityBlockingQueue<>(Runtime.getRuntime().availableProcessors() * 10);
-        this.tasks = new LinkedList<>();
+        this.pendingSplits = new MultilevelSplitQueue(levelTimeMultiplier);
     }
 
     @PostConstruct
@@ -163,7 +166,7 @@ public class TaskExecutor
     }
 
     @Override
-    public synchronized String toString()
+    public String toString()
     {
         return toStringHelper(this)
                 .add("runnerThreads", runnerThreads)
@@ -183,7 +186,7 @@ public class TaskExecutor
         }
     }
 
-    public synchronized TaskHandle addTask(TaskId taskId, DoubleSupplier utilizationSupplier, int initialSplitConcurrency, Duration splitConcurrencyAdjustFrequency)
+    public TaskHandle addTask(TaskId taskId, DoubleSupplier utilizationSupplier, int initialSplitConcurrency, Duration splitConcurrencyAdjustFrequency)
     {
         requireNonNull(taskId, "taskId is null");
         requireNonNull(utilizationSupplier, "utilizationSupplier is null");
@@ -194,25 +197,21 @@ public class TaskExecutor
 
     public void removeTask(TaskHandle taskHandle)
     {
-        List<PrioritizedSplitRunner> splits;
-        synchronized (this) {
-            tasks.remove(taskHandle);
-            splits = taskHandle.destroy();
+        tasks.remove(taskHandle);
+        List<PrioritizedSplitRunner> splits = taskHandle.destroy();
 
-            // stop tracking splits (especially blocked splits which may never unblock)
-            allSplits.removeAll(splits);
-            blockedSplits.keySet().removeAll(splits);
-            pendingSplits.removeAll(splits);
-        }
+        // stop tracking splits (especially blocked splits which may never unblock)
+        allSplits.removeAll(splits);
+        blockedSplits.keySet().removeAll(splits);
+        pendingSplits.removeAll(splits);
 
-        // call destroy outside of synchronized block as it is expensive and doesn't need a lock on the task executor
         for (PrioritizedSplitRunner split : splits) {
             split.destroy();
         }
 
         // record completed stats
         long threadUsageNanos = taskHandle.getThreadUsageNanos();
-        int priorityLevel = calculatePriorityLevel(threadUsageNanos);
+        int priorityLevel = MultilevelSplitQueue.computeLevel(threadUsageNanos);
         completedTasksPerLevel.incrementAndGet(priorityLevel);
 
         // replace blocked splits that were terminated
@@ -223,31 +222,34 @@ public class TaskExecutor
     {
         List<PrioritizedSplitRunner> splitsToDestroy = new ArrayList<>();
         List<ListenableFuture<?>> finishedFutures = new ArrayList<>(taskSplits.size());
-        synchronized (this) {
-            for (SplitRunner taskSplit : taskSplits) {
-                PrioritizedSplitRunner prioritizedSplitRunner = new PrioritizedSplitRunner(taskHandle, taskSplit, ticker);
+        for (SplitRunner taskSplit : taskSplits) {
+            PrioritizedSplitRunner prioritizedSplitRunner = new PrioritizedSplitRunner(taskHandle, taskSplit, ticker);
 
-                if (taskHandle.isDestroyed()) {
-                    // If the handle is destroyed, we destroy the task splits to complete the future
-                    splitsToDestroy.add(prioritizedSplitRunner);
-                }
-                else if (forceStart) {
+            if (forceStart) {
+                // add the runner to the handle so it can be destroyed if the task is canceled
+                if (taskHandle.recordForcedRunningSplit(prioritizedSplitRunner)) {
                     // Note: we do not record queued time for forced splits
                     startSplit(prioritizedSplitRunner);
-                    // add the runner to the handle so it can be destroyed if the task is canceled
-                    taskHandle.recordForcedRunningSplit(prioritizedSplitRunner);
                 }
                 else {
-                    // add this to the work queue for the task
-                    taskHandle.enqueueSplit(prioritizedSplitRunner);
+                    // If the handle is destroyed, we destroy the task splits to complete the future
+                    splitsToDestroy.add(prioritizedSplitRunner);
+                }
+            }
+            else {
+                // add this to the work queue for the task
+                if (taskHandle.enqueueSplit(prioritizedSplitRunner)) {
                     // if task is under the limit for guaranteed splits, start one
                     scheduleTaskIfNecessary(taskHandle);
                     // if globally we have more resources, start more
                     addNewEntrants();
                 }
-
-                finishedFutures.add(prioritizedSplitRunner.getFinishedFuture());
+                else {
+                    splitsToDestroy.add(prioritizedSplitRunner);
+                }
             }
+
+            finishedFutures.add(prioritizedSplitRunner.getFinishedFuture());
         }
         for (PrioritizedSplitRunner split : splitsToDestroy) {
             split.destroy();
@@ -257,41 +259,37 @@ public class TaskExecutor
 
     private void splitFinished(PrioritizedSplitRunner split)
     {
-        synchronized (this) {
-            allSplits.remove(split);
+        allSplits.remove(split);
 
-            TaskHandle taskHandle = split.getTaskHandle();
-            taskHandle.splitComplete(split);
+        TaskHandle taskHandle = split.getTaskHandle();
+        taskHandle.splitComplete(split);
 
-            wallTime.add(Duration.nanosSince(split.createdNanos));
+        wallTime.add(Duration.nanosSince(split.createdNanos));
 
-            scheduleTaskIfNecessary(taskHandle);
+        scheduleTaskIfNecessary(taskHandle);
+
+        addNewEntrants();
 
-            addNewEntrants();
-        }
-        // call destroy outside of synchronized block as it is expensive and doesn't need a lock on the task executor
         split.destroy();
     }
 
-    private synchronized void scheduleTaskIfNecessary(TaskHandle taskHandle)
+    private void scheduleTaskIfNecessary(TaskHandle taskHandle)
     {
         // if task has less than the minimum guaranteed splits running,
         // immediately schedule a new split for this task.  This assures
         // that a task gets its fair amount of consideration (you have to
         // have splits to be considered for running on a thread).
-        if (taskHandle.getRunningSplits() < GUARANTEED_SPLITS_PER_TASK) {
-            PrioritizedSplitRunner split = taskHandle.pollNextSplit();
-            if (split != null) {
-                startSplit(split);
-                queuedTime.add(Duration.nanosSince(split.createdNanos));
-            }
+        PrioritizedSplitRunner split = taskHandle.pollGuaranteedSplit(GUARANTEED_SPLITS_PER_TASK);
+        if (split != null) {
+            startSplit(split);
+            queuedTime.add(Duration.nanosSince(split.createdNanos));
         }
     }
 
-    private synchronized void addNewEntrants()
+    private void addNewEntrants()
     {
-        int running = allSplits.size();
-        for (int i = 0; i < minimumNumberOfDrivers - running; i++) {
+        // concurrent callers may start a few splits more than the minimum
+        while (allSplits.size() < minimumNumberOfDrivers) {
             PrioritizedSplitRunner split = pollNextSplitWorker();
             if (split == null) {
                 break;
@@ -302,27 +300,29 @@ public class TaskExecutor
         }
     }
 
-    private synchronized void startSplit(PrioritizedSplitRunner split)
+    private void startSplit(PrioritizedSplitRunner split)
     {
         allSplits.add(split);
-        pendingSplits.put(split);
+        pendingSplits.offer(split);
     }
 
-    private synchronized PrioritizedSplitRunner pollNextSplitWorker()
+    private PrioritizedSplitRunner pollNextSplitWorker()
     {
         // todo find a better algorithm for this
         // find the first task that produces a split, then move that task to the
         // end of the task list, so we get round robin
-        for (Iterator<TaskHandle> iterator = tasks.iterator(); iterator.hasNext(); ) {
-            TaskHandle task = iterator.next();
+        for (TaskHandle task : tasks) {
+            if (task.isDestroyed()) {
+                // a task removed while another thread moved it to the end of the list
+                tasks.remove(task);
+                continue;
+            }
             PrioritizedSplitRunner split = task.pollNextSplit();
             if (split != null) {
-                // move task to end of list
-                iterator.remove();
-
-                // CAUTION: we are modifying the list in the loop which would normally
-                // cause a ConcurrentModificationException but we exit immediately
-                tasks.add(task);
+                // move task to end of list, unless another thread already did
+                if (tasks.remove(task)) {
+                    tasks.add(task);
+                }
                 return split;
             }
         }
@@ -356,7 +356,8 @@ public class TaskExecutor
             this.concurrencyController = new SplitConcurrencyController(initialSplitConcurrency, splitConcurrencyAdjustFrequency);
         }
 
-        private synchronized long addThreadUsageNanos(long durationNanos)
+        @VisibleForTesting
+        synchronized long addThreadUsageNanos(long durationNanos)
         {
             concurrencyController.update(durationNanos, utilizationSupplier.getAsDouble(), runningSplits.size());
             taskThreadUsageNanos += durationNanos;
@@ -388,16 +389,24 @@ public class TaskExecutor
             return builder.build();
         }
 
-        private synchronized void enqueueSplit(PrioritizedSplitRunner split)
+        // Returns false if the task handle is destroyed. The caller must destroy the split in that case.
+        private synchronized boolean enqueueSplit(PrioritizedSplitRunner split)
         {
-            checkState(!destroyed, "Can not add split to destroyed task handle");
+            if (destroyed) {
+                return false;
+            }
             queuedSplits.add(split);
+            return true;
         }
 
-        private synchronized void recordForcedRunningSplit(PrioritizedSplitRunner split)
+        // Returns false if the task handle is destroyed. The caller must destroy the split in that case.
+        private synchronized boolean recordForcedRunningSplit(PrioritizedSplitRunner split)
         {
-            checkState(!destroyed, "Can not add split to destroyed task handle");
+            if (destroyed) {
+                return false;
+            }
             forcedRunningSplits.add(split);
+            return true;
         }
 
         @VisibleForTesting
@@ -411,6 +420,14 @@ public class TaskExecutor
             return taskThreadUsageNanos;
         }
 
+        private synchronized PrioritizedSplitRunner pollGuaranteedSplit(int guaranteedSplits)
+        {
+            if (runningSplits.size() >= guaranteedSplits) {
+                return null;
+            }
+            return pollNextSplit();
+        }
+
         private synchronized PrioritizedSplitRunner pollNextSplit()
         {
             if (destroyed) {
@@ -449,7 +466,7 @@ public class TaskExecutor
         }
     }
 
-    private static class PrioritizedSplitRunner
+    static class PrioritizedSplitRunner
             implements Comparable<PrioritizedSplitRunner>
     {
         private final long createdNanos = System.nanoTime();
@@ -474,7 +491,8 @@ public class TaskExecutor
         private final AtomicLong cpuTime = new AtomicLong();
         private final AtomicLong processCalls = new AtomicLong();
 
-        private PrioritizedSplitRunner(TaskHandle taskHandle, SplitRunner split, Ticker ticker)
+        @VisibleForTesting
+        PrioritizedSplitRunner(TaskHandle taskHandle, SplitRunner split, Ticker ticker)
         {
             this.taskHandle = taskHandle;
             this.splitId = taskHandle.getNextSplitId();
@@ -540,7 +558,7 @@ public class TaskExecutor
                 this.splitThreadUsageNanos.addAndGet(durationNanos);
                 long threadUsageNanos = taskHandle.addThreadUsageNanos(durationNanos);
                 this.threadUsageNanos.set(threadUsageNanos);
-                priorityLevel.set(calculatePriorityLevel(threadUsageNanos));
+                priorityLevel.set(MultilevelSplitQueue.computeLevel(threadUsageNanos));
 
                 // record last run for prioritization within a level
                 lastRun.set(ticker.read());
@@ -556,7 +574,7 @@ public class TaskExecutor
 
         public boolean updatePriorityLevel()
         {
-            int newPriority = calculatePriorityLevel(taskHandle.getThreadUsageNanos());
+            int newPriority = MultilevelSplitQueue.computeLevel(taskHandle.getThreadUsageNanos());
             if (newPriority == priorityLevel.getAndSet(newPriority)) {
                 return false;
             }
@@ -566,6 +584,11 @@ public class TaskExecutor
             return true;
         }
 
+        public int getPriorityLevel()
+        {
+            return priorityLevel.get();
+        }
+
         @Override
         public int compareTo(PrioritizedSplitRunner o)
         {
@@ -576,7 +599,7 @@ public class TaskExecutor
                 return result;
             }
 
-            if (level < 4) {
+            if (level < MultilevelSplitQueue.LEVEL_COUNT - 1) {
                 result = Long.compare(threadUsageNanos.get(), o.threadUsageNanos.get());
             }
             else {
@@ -613,29 +636,6 @@ public class TaskExecutor
         }
     }
 
-    private static int calculatePriorityLevel(long threadUsageNanos)
-    {
-        long millis = NANOSECONDS.toMillis(threadUsageNanos);
-
-        int priorityLevel;
-        if (millis < 1000) {
-            priorityLevel = 0;
-        }
-        else if (millis < 10_000) {
-            priorityLevel = 1;
-        }
-        else if (millis < 60_000) {
-            priorityLevel = 2;
-        }
-        else if (millis < 300_000) {
-            priorityLevel = 3;
-        }
-        else {
-            priorityLevel = 4;
-        }
-        return priorityLevel;
-    }
-
     private class Runner
             implements Runnable
     {
@@ -650,9 +650,14 @@ public class TaskExecutor
                     final PrioritizedSplitRunner split;
                     try {
                         split = pendingSplits.take();
+                        if (split.isDestroyed()) {
+                            // the split was started while its task was removed
+                            allSplits.remove(split);
+                            continue;
+                        }
                         if (split.updatePriorityLevel()) {
                             // priority level changed, return split to queue for re-prioritization
-                            pendingSplits.put(split);
+                            pendingSplits.offer(split);
                             continue;
                         }
                     }
@@ -664,6 +669,8 @@ public class TaskExecutor
                     try (SetThreadName splitName = new SetThreadName(split.getTaskHandle().getTaskId() + "-" + split.getSplitId())) {
                         runningSplits.add(split);
 
+                        int level = split.getPriorityLevel();
+                        long threadUsageNanos = split.getSplitThreadUsageNanos();
                         boolean finished;
                         ListenableFuture<?> blocked;
                         try {
@@ -672,6 +679,7 @@ public class TaskExecutor
                         }
                         finally {
                             runningSplits.remove(split);
+                            pendingSplits.addLevelTime(level, split.getSplitThreadUsageNanos() - threadUsageNanos);
                         }
 
                         if (finished) {
@@ -680,7 +688,7 @@ public class TaskExecutor
                         }
                         else {
                             if (blocked.isDone()) {
-                                pendingSplits.put(split);
+                                pendingSplits.offer(split);
                             }
                             else {
                                 blockedSplits.put(split, blocked);
@@ -691,7 +699,7 @@ public class TaskExecutor
                                     {
                                         blockedSplits.remove(split);
                                         split.updatePriorityLevel();
-                                        pendingSplits.put(split);
+                                        pendingSplits.offer(split);
                                     }
                                 }, executor);
                             }
@@ -726,7 +734,7 @@ public class TaskExecutor
     //
 
     @Managed
-    public synchronized int getTasks()
+    public int getTasks()
     {
         return tasks.size();
     }
@@ -744,7 +752,7 @@ public class TaskExecutor
     }
 
     @Managed
-    public synchronized int getTotalSplits()
+    public int getTotalSplits()
     {
         return allSplits.size();
     }
@@ -841,17 +849,24 @@ public class TaskExecutor
         return wallTime;
     }
 
-    private synchronized int calculateRunningTasksForLevel(int level)
+    private int calculateRunningTasksForLevel(int level)
     {
         int count = 0;
         for (TaskHandle task : tasks) {
-            if (calculatePriorityLevel(task.getThreadUsageNanos()) == level) {
+            if (MultilevelSplitQueue.computeLevel(task.getThreadUsageNanos()) == level) {
                 count++;
             }
         }
         return count;
     }
 
+    @Managed(description = "Splits waiting for a runner thread")
+    @Nested
+    public MultilevelSplitQueue getSplitQueue()
+    {
+        return pendingSplits;
+    }
+
     @Managed(description = "Task processor executor")
     @Nested
     public ThreadPoolExecutorMBean getProcessorExecutor()
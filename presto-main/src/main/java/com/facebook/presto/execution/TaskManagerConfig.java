@@ -24,6 +24,7 @@ import io.airlift.units.Duration;
 import io.airlift.units.MaxDuration;
 import io.airlift.units.MinDuration;
 
+import javax.validation.constraints.DecimalMin;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
@@ -44,6 +45,7 @@ public class TaskManagerConfig
     private boolean shareIndexLoading;
     private int maxWorkerThreads = Runtime.getRuntime().availableProcessors() * 2;
     private Integer minDrivers;
+    private double levelTimeMultiplier = 2;
     private Integer initialSplitsPerNode;
     private Duration splitConcurrencyAdjustmentInterval = new Duration(100, TimeUnit.MILLISECONDS);
 
@@ -217,6 +219,20 @@ public class TaskManagerConfig
         return this;
     }
 
+    @DecimalMin("1.0")
+    public double getLevelTimeMultiplier()
+    {
+        return levelTimeMultiplier;
+    }
+
+    @Config("task.level-time-multiplier")
+    @ConfigDescription("Factor by which the target share of thread time of each split queue level is smaller than that of the level before it")
+    public TaskManagerConfig setLevelTimeMultiplier(double levelTimeMultiplier)
+    {
+        this.levelTimeMultiplier = levelTimeMultiplier;
+        return this;
+    }
+
     @NotNull
     public DataSize getSinkMaxBufferSize()
     {
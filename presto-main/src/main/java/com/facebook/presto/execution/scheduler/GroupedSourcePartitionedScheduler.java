@@ -0,0 +1,190 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.scheduler;
+
+import com.facebook.presto.execution.RemoteTask;
+import com.facebook.presto.execution.SqlStageExecution;
+import com.facebook.presto.metadata.Split;
+import com.facebook.presto.spi.Node;
+import com.facebook.presto.split.SplitSource;
+import com.facebook.presto.sql.planner.NodePartitionMap;
+import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Multimap;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+import static com.facebook.presto.execution.scheduler.ScheduleResult.BlockedReason.SPLIT_QUEUES_FULL;
+import static com.facebook.presto.execution.scheduler.ScheduleResult.BlockedReason.WAITING_FOR_SOURCE;
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
+import static io.airlift.concurrent.MoreFutures.unmodifiableFuture;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Schedules a stage whose table scans are all bucketed the same way with one task per
+ * bucket instead of one task per node. At most {@code concurrentBucketsPerNode} bucket
+ * tasks run on a node at a time, and the next bucket of a node is started when one of its
+ * tasks finishes, so the memory used by the joins and aggregations of the stage scales with
+ * the size of a bucket rather than the size of the table.
+ * <p>
+ * A bucket task can only finish once it received all splits of its bucket, so all splits
+ * are enumerated before the first task is scheduled.
+ */
+public class GroupedSourcePartitionedScheduler
+        implements StageScheduler
+{
+    private final SqlStageExecution stage;
+    private final NodePartitionMap partitioning;
+    private final Map<PlanNodeId, SplitSource> splitSources;
+    private final Queue<PlanNodeId> pendingSources;
+    private final int splitBatchSize;
+    private final int concurrentBucketsPerNode;
+
+    @GuardedBy("this")
+    private final Map<Integer, Multimap<PlanNodeId, Split>> bucketSplits = new TreeMap<>();
+    @GuardedBy("this")
+    private final Map<Node, Queue<Integer>> pendingBuckets = new HashMap<>();
+    @GuardedBy("this")
+    private final Map<Node, Set<RemoteTask>> runningTasks = new HashMap<>();
+    @GuardedBy("this")
+    private CompletableFuture<?> taskFinished = new CompletableFuture<>();
+    @GuardedBy("this")
+    private CompletableFuture<List<Split>> batchFuture;
+    @GuardedBy("this")
+    private boolean splitsEnumerated;
+
+    public GroupedSourcePartitionedScheduler(
+            SqlStageExecution stage,
+            Map<PlanNodeId, SplitSource> splitSources,
+            List<PlanNodeId> schedulingOrder,
+            NodePartitionMap partitioning,
+            int splitBatchSize,
+            int concurrentBucketsPerNode)
+    {
+        this.stage = requireNonNull(stage, "stage is null");
+        this.splitSources = requireNonNull(splitSources, "splitSources is null");
+        this.partitioning = requireNonNull(partitioning, "partitioning is null");
+        checkArgument(splitSources.keySet().equals(ImmutableSet.copyOf(schedulingOrder)));
+        checkArgument(splitBatchSize > 0, "splitBatchSize must be at least one");
+        checkArgument(concurrentBucketsPerNode > 0, "concurrentBucketsPerNode must be at least one");
+
+        this.pendingSources = new ArrayDeque<>(schedulingOrder);
+        this.splitBatchSize = splitBatchSize;
+        this.concurrentBucketsPerNode = concurrentBucketsPerNode;
+    }
+
+    @Override
+    public synchronized ScheduleResult schedule()
+    {
+        while (!pendingSources.isEmpty()) {
+            PlanNodeId sourceId = pendingSources.peek();
+            SplitSource splitSource = splitSources.get(sourceId);
+            if (batchFuture == null) {
+                if (splitSource.isFinished()) {
+                    splitSource.close();
+                    pendingSources.remove();
+                    continue;
+                }
+                long start = System.nanoTime();
+                batchFuture = splitSource.getNextBatch(splitBatchSize);
+                batchFuture.thenRun(() -> stage.recordGetSplitTime(start));
+            }
+
+            if (!batchFuture.isDone()) {
+                // wrap batch future in unmodifiable future so cancellation is not propagated
+                return new ScheduleResult(false, ImmutableSet.of(), unmodifiableFuture(batchFuture), WAITING_FOR_SOURCE, 0);
+            }
+            for (Split split : getFutureValue(batchFuture)) {
+                bucketSplits.computeIfAbsent(partitioning.getBucket(split), bucket -> ArrayListMultimap.create()).put(sourceId, split);
+            }
+            batchFuture = null;
+        }
+
+        if (!splitsEnumerated) {
+            splitsEnumerated = true;
+            if (bucketSplits.isEmpty()) {
+                // the stage still needs a task to produce its (empty) output
+                bucketSplits.put(0, ImmutableMultimap.of());
+            }
+            int[] bucketToPartition = partitioning.getBucketToPartition();
+            for (int bucket : bucketSplits.keySet()) {
+                Node node = partitioning.getPartitionToNode().get(bucketToPartition[bucket]);
+                pendingBuckets.computeIfAbsent(node, key -> new ArrayDeque<>()).add(bucket);
+            }
+        }
+
+        ImmutableList.Builder<RemoteTask> newTasks = ImmutableList.builder();
+        int splitsScheduled = 0;
+        boolean finished = true;
+        for (Map.Entry<Node, Queue<Integer>> entry : pendingBuckets.entrySet()) {
+            Node node = entry.getKey();
+            Queue<Integer> buckets = entry.getValue();
+            Set<RemoteTask> nodeTasks = runningTasks.computeIfAbsent(node, key -> new HashSet<>());
+            while (!buckets.isEmpty() && nodeTasks.size() < concurrentBucketsPerNode) {
+                int bucket = buckets.remove();
+                Multimap<PlanNodeId, Split> splits = bucketSplits.remove(bucket);
+                RemoteTask task = stage.scheduleTask(node, bucket, splits);
+                nodeTasks.add(task);
+                task.addStateChangeListener(taskStatus -> {
+                    if (taskStatus.getState().isDone()) {
+                        taskFinished(node, task);
+                    }
+                });
+                newTasks.add(task);
+                splitsScheduled += splits.size();
+            }
+            finished &= buckets.isEmpty();
+        }
+
+        if (finished) {
+            return new ScheduleResult(true, newTasks.build(), splitsScheduled);
+        }
+        return new ScheduleResult(false, newTasks.build(), unmodifiableFuture(taskFinished), SPLIT_QUEUES_FULL, splitsScheduled);
+    }
+
+    private void taskFinished(Node node, RemoteTask task)
+    {
+        CompletableFuture<?> future;
+        synchronized (this) {
+            if (!runningTasks.get(node).remove(task)) {
+                return;
+            }
+            future = taskFinished;
+            taskFinished = new CompletableFuture<>();
+        }
+        future.complete(null);
+    }
+
+    @Override
+    public synchronized void close()
+    {
+        for (SplitSource splitSource : splitSources.values()) {
+            splitSource.close();
+        }
+    }
+}
@@ -40,6 +40,7 @@ import static com.facebook.presto.execution.scheduler.NodeScheduler.selectExactN
 import static com.facebook.presto.execution.scheduler.NodeScheduler.selectNodes;
 import static com.facebook.presto.execution.scheduler.NodeScheduler.toWhenHasSplitQueueSpaceFuture;
 import static com.facebook.presto.spi.StandardErrorCode.NO_NODES_AVAILABLE;
+import static com.facebook.presto.util.ImmutableCollectors.toImmutableList;
 import static java.util.Objects.requireNonNull;
 
 public class SimpleNodeSelector
@@ -116,7 +117,13 @@ public class SimpleNodeSelector
                 candidateNodes = selectExactNodes(nodeMap, split.getAddresses(), includeCoordinator);
             }
             else {
-                candidateNodes = selectNodes(minCandidates, randomCandidates);
+                candidateNodes = ImmutableList.of();
+                if (split.isSoftAffinity()) {
+                    candidateNodes = selectPreferredNodes(nodeMap, split, assignmentStats);
+                }
+                if (candidateNodes.isEmpty()) {
+                    candidateNodes = selectNodes(minCandidates, randomCandidates);
+                }
             }
             if (candidateNodes.isEmpty()) {
                 log.debug("No nodes available to schedule %s. Available nodes %s", split, nodeMap.getNodesByHost().keys());
@@ -168,6 +175,16 @@ public class SimpleNodeSelector
         return new SplitPlacementResult(blocked, assignment);
     }
 
+    /**
+     * Returns the nodes at the addresses of a split which can still take more splits.
+     */
+    private List<Node> selectPreferredNodes(NodeMap nodeMap, Split split, NodeAssignmentStats assignmentStats)
+    {
+        return selectExactNodes(nodeMap, split.getAddresses(), includeCoordinator).stream()
+                .filter(node -> assignmentStats.getTotalSplitCount(node) < maxSplitsPerNode || assignmentStats.getQueuedSplitCountForStage(node) < maxPendingSplitsPerTask)
+                .collect(toImmutableList());
+    }
+
     @Override
     public SplitPlacementResult computeAssignments(Set<Split> splits, List<RemoteTask> existingTasks, NodePartitionMap partitioning)
     {
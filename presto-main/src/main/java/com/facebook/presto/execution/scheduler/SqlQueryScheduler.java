@@ -61,6 +61,8 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
+import static com.facebook.presto.SystemSessionProperties.getConcurrentBucketsPerNode;
+import static com.facebook.presto.SystemSessionProperties.isGroupedExecutionEnabled;
 import static com.facebook.presto.connector.ConnectorId.isInternalSystemConnector;
 import static com.facebook.presto.execution.StageState.ABORTED;
 import static com.facebook.presto.execution.StageState.CANCELED;
@@ -232,7 +234,17 @@ public class SqlQueryScheduler
             NodePartitionMap nodePartitionMap = partitioningCache.apply(plan.getFragment().getPartitioning());
 
             Map<PlanNodeId, SplitSource> splitSources = plan.getSplitSources();
-            if (!splitSources.isEmpty()) {
+            if (!splitSources.isEmpty() && isGroupedExecution(session, plan)) {
+                stageSchedulers.put(stageId, new GroupedSourcePartitionedScheduler(
+                        stage,
+                        splitSources,
+                        plan.getFragment().getPartitionedSources(),
+                        nodePartitionMap,
+                        splitBatchSize,
+                        getConcurrentBucketsPerNode(session)));
+                bucketToPartition = Optional.of(nodePartitionMap.getBucketToPartition());
+            }
+            else if (!splitSources.isEmpty()) {
                 stageSchedulers.put(stageId, new FixedSourcePartitionedScheduler(
                         stage,
                         splitSources,
@@ -284,6 +296,15 @@ public class SqlQueryScheduler
         return stages.build();
     }
 
+    private static boolean isGroupedExecution(Session session, StageExecutionPlan plan)
+    {
+        // a bucket task can not read from other stages, as the other stages would have
+        // to buffer the data of all buckets which are not scheduled yet
+        return isGroupedExecutionEnabled(session) &&
+                plan.getFragment().getPartitioning().getConnectorId().isPresent() &&
+                plan.getFragment().getRemoteSourceNodes().isEmpty();
+    }
+
     public StageInfo getStageInfo()
     {
         Map<StageId, StageInfo> stageInfos = stages.values().stream()
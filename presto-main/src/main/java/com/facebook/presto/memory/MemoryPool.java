@@ -25,7 +25,9 @@ import javax.annotation.Nullable;
 import javax.annotation.concurrent.GuardedBy;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import static com.facebook.presto.operator.Operator.NOT_BLOCKED;
 import static com.google.common.base.MoreObjects.toStringHelper;
@@ -49,6 +51,14 @@ public class MemoryPool
     // TODO: It would be better if we just tracked QueryContexts, but their lifecycle is managed by a weak reference, so we can't do that
     private final Map<QueryId, Long> queryMemoryReservations = new HashMap<>();
 
+    @GuardedBy("this")
+    private final Map<QueryId, Long> queryMemoryRevocableReservations = new HashMap<>();
+
+    @GuardedBy("this")
+    private long reservedRevocableBytes;
+
+    private final List<MemoryPoolListener> listeners = new CopyOnWriteArrayList<>();
+
     public MemoryPool(MemoryPoolId id, DataSize size)
     {
         this.id = requireNonNull(id, "name is null");
@@ -62,6 +72,15 @@ public class MemoryPool
         return id;
     }
 
+    /**
+     * Registers a listener which is notified every time memory is reserved in this pool.
+     * The listener is called while holding the lock of the pool, so it must not block.
+     */
+    public void addListener(MemoryPoolListener listener)
+    {
+        listeners.add(requireNonNull(listener, "listener is null"));
+    }
+
     public synchronized MemoryPoolInfo getInfo()
     {
         return new MemoryPoolInfo(maxBytes, freeBytes, queryMemoryReservations);
@@ -77,6 +96,7 @@ public class MemoryPool
             queryMemoryReservations.merge(queryId, bytes, Long::sum);
         }
         freeBytes -= bytes;
+        onMemoryReserved();
         if (freeBytes <= 0) {
             if (future == null) {
                 future = SettableFuture.create();
@@ -87,6 +107,49 @@ public class MemoryPool
         return NOT_BLOCKED;
     }
 
+    /**
+     * Reserves the given number of revocable bytes. Revocable memory is held by operators which are able to
+     * release it on request (e.g. by spilling to disk), so the reservation never blocks the caller. It counts
+     * against the free bytes of the pool, and it may be revoked when the pool is running out of memory.
+     */
+    public synchronized void reserveRevocable(QueryId queryId, long bytes)
+    {
+        checkArgument(bytes >= 0, "bytes is negative");
+        if (bytes == 0) {
+            return;
+        }
+        queryMemoryRevocableReservations.merge(queryId, bytes, Long::sum);
+        reservedRevocableBytes += bytes;
+        freeBytes -= bytes;
+        onMemoryReserved();
+    }
+
+    public synchronized void freeRevocable(QueryId queryId, long bytes)
+    {
+        checkArgument(bytes >= 0, "bytes is negative");
+        checkArgument(reservedRevocableBytes - bytes >= 0, "tried to free more revocable memory than is reserved");
+        if (bytes == 0) {
+            return;
+        }
+
+        Long queryReservation = queryMemoryRevocableReservations.get(queryId);
+        requireNonNull(queryReservation, "queryReservation is null");
+        checkArgument(queryReservation - bytes >= 0, "tried to free more revocable memory than is reserved by query");
+        queryReservation -= bytes;
+        if (queryReservation == 0) {
+            queryMemoryRevocableReservations.remove(queryId);
+        }
+        else {
+            queryMemoryRevocableReservations.put(queryId, queryReservation);
+        }
+        reservedRevocableBytes -= bytes;
+        freeBytes += bytes;
+        if (freeBytes > 0 && future != null) {
+            future.set(null);
+            future = null;
+        }
+    }
+
     /**
      * Try to reserve the given number of bytes. Return value indicates whether the caller may use the requested memory.
      */
@@ -100,6 +163,7 @@ public class MemoryPool
         if (bytes != 0) {
             queryMemoryReservations.merge(queryId, bytes, Long::sum);
         }
+        onMemoryReserved();
         return true;
     }
 
@@ -144,6 +208,17 @@ public class MemoryPool
         return maxBytes;
     }
 
+    @Managed
+    public synchronized long getReservedRevocableBytes()
+    {
+        return reservedRevocableBytes;
+    }
+
+    private void onMemoryReserved()
+    {
+        listeners.forEach(listener -> listener.onMemoryReserved(this));
+    }
+
     @Override
     public synchronized String toString()
     {
@@ -151,6 +226,7 @@ public class MemoryPool
                 .add("id", id)
                 .add("maxBytes", maxBytes)
                 .add("freeBytes", freeBytes)
+                .add("reservedRevocableBytes", reservedRevocableBytes)
                 .add("future", future)
                 .toString();
     }
@@ -0,0 +1,166 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.memory;
+
+import com.facebook.presto.execution.SqlTaskManager;
+import com.facebook.presto.operator.OperatorContext;
+import com.facebook.presto.sql.analyzer.FeaturesConfig;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import io.airlift.log.Logger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import static com.facebook.presto.memory.LocalMemoryManager.GENERAL_POOL;
+import static com.facebook.presto.memory.LocalMemoryManager.RESERVED_POOL;
+import static com.facebook.presto.util.ImmutableCollectors.toImmutableList;
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static java.util.Comparator.comparingLong;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Asks operators to release their revocable memory when a memory pool of the node is filled
+ * over the revoking threshold. The operators holding the most revocable memory are asked first,
+ * until enough memory is being revoked to bring the pool below the revoking target.
+ */
+public class MemoryRevokingScheduler
+{
+    private static final Logger log = Logger.get(MemoryRevokingScheduler.class);
+
+    private final List<MemoryPool> memoryPools;
+    private final Supplier<List<QueryContext>> queryContexts;
+    private final ScheduledExecutorService executor;
+    private final double memoryRevokingThreshold;
+    private final double memoryRevokingTarget;
+    private final MemoryPoolListener memoryPoolListener = this::onMemoryReserved;
+    private final AtomicBoolean checkPending = new AtomicBoolean();
+
+    @Inject
+    public MemoryRevokingScheduler(LocalMemoryManager localMemoryManager, SqlTaskManager sqlTaskManager, FeaturesConfig config)
+    {
+        this(
+                ImmutableList.of(localMemoryManager.getPool(GENERAL_POOL), localMemoryManager.getPool(RESERVED_POOL)),
+                requireNonNull(sqlTaskManager, "sqlTaskManager is null")::getQueryContexts,
+                newSingleThreadScheduledExecutor(daemonThreadsNamed("memory-revoking-%s")),
+                config.getMemoryRevokingThreshold(),
+                config.getMemoryRevokingTarget());
+    }
+
+    @VisibleForTesting
+    MemoryRevokingScheduler(
+            List<MemoryPool> memoryPools,
+            Supplier<List<QueryContext>> queryContexts,
+            ScheduledExecutorService executor,
+            double memoryRevokingThreshold,
+            double memoryRevokingTarget)
+    {
+        this.memoryPools = ImmutableList.copyOf(requireNonNull(memoryPools, "memoryPools is null"));
+        this.queryContexts = requireNonNull(queryContexts, "queryContexts is null");
+        this.executor = requireNonNull(executor, "executor is null");
+        checkArgument(memoryRevokingThreshold >= 0 && memoryRevokingThreshold <= 1, "memoryRevokingThreshold must be between 0 and 1");
+        checkArgument(memoryRevokingTarget >= 0 && memoryRevokingTarget <= memoryRevokingThreshold, "memoryRevokingTarget must be between 0 and memoryRevokingThreshold");
+        this.memoryRevokingThreshold = memoryRevokingThreshold;
+        this.memoryRevokingTarget = memoryRevokingTarget;
+    }
+
+    @PostConstruct
+    public void start()
+    {
+        memoryPools.forEach(memoryPool -> memoryPool.addListener(memoryPoolListener));
+        // the pools are checked periodically as well, as the revoked memory might not be enough
+        executor.scheduleWithFixedDelay(this::requestMemoryRevokingIfNeeded, 1, 1, SECONDS);
+    }
+
+    @PreDestroy
+    public void stop()
+    {
+        executor.shutdownNow();
+    }
+
+    private void onMemoryReserved(MemoryPool memoryPool)
+    {
+        // called with the lock of the pool held, so the pools are inspected on the executor
+        if (!isMemoryRevokingNeeded(memoryPool) || !checkPending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(this::requestMemoryRevokingIfNeeded);
+        }
+        catch (RejectedExecutionException e) {
+            checkPending.set(false);
+        }
+    }
+
+    @VisibleForTesting
+    void requestMemoryRevokingIfNeeded()
+    {
+        checkPending.set(false);
+        try {
+            for (MemoryPool memoryPool : memoryPools) {
+                if (isMemoryRevokingNeeded(memoryPool)) {
+                    requestMemoryRevoking(memoryPool);
+                }
+            }
+        }
+        catch (Throwable e) {
+            log.error(e, "Error requesting memory revoking");
+        }
+    }
+
+    private boolean isMemoryRevokingNeeded(MemoryPool memoryPool)
+    {
+        return memoryPool.getReservedRevocableBytes() > 0 &&
+                memoryPool.getFreeBytes() <= memoryPool.getMaxBytes() * (1.0 - memoryRevokingThreshold);
+    }
+
+    private void requestMemoryRevoking(MemoryPool memoryPool)
+    {
+        long remainingBytesToRevoke = (long) (memoryPool.getMaxBytes() * (1.0 - memoryRevokingTarget)) - memoryPool.getFreeBytes();
+
+        List<OperatorContext> operatorContexts = queryContexts.get().stream()
+                .filter(queryContext -> queryContext.getMemoryPool() == memoryPool)
+                .flatMap(queryContext -> queryContext.getTaskContexts().stream())
+                .flatMap(taskContext -> taskContext.getPipelineContexts().stream())
+                .flatMap(pipelineContext -> pipelineContext.getDriverContexts().stream())
+                .flatMap(driverContext -> driverContext.getOperatorContexts().stream())
+                .filter(operatorContext -> operatorContext.getRevocableMemoryReservation() > 0)
+                .sorted(comparingLong(OperatorContext::getRevocableMemoryReservation).reversed())
+                .collect(toImmutableList());
+
+        // memory of operators which were asked before is already being revoked
+        for (OperatorContext operatorContext : operatorContexts) {
+            if (operatorContext.isMemoryRevokingRequested()) {
+                remainingBytesToRevoke -= operatorContext.getRevocableMemoryReservation();
+            }
+        }
+
+        for (OperatorContext operatorContext : operatorContexts) {
+            if (remainingBytesToRevoke <= 0) {
+                break;
+            }
+            remainingBytesToRevoke -= operatorContext.requestMemoryRevoking();
+        }
+    }
+}
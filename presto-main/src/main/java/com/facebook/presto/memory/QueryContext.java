@@ -17,6 +17,7 @@ import com.facebook.presto.Session;
 import com.facebook.presto.execution.TaskStateMachine;
 import com.facebook.presto.operator.TaskContext;
 import com.facebook.presto.spi.QueryId;
+import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -55,6 +56,9 @@ public class QueryContext
     @GuardedBy("this")
     private long systemReserved;
 
+    @GuardedBy("this")
+    private long revocableReserved;
+
     public QueryContext(QueryId queryId, DataSize maxMemory, MemoryPool memoryPool, MemoryPool systemMemoryPool, Executor executor)
     {
         this.queryId = requireNonNull(queryId, "queryId is null");
@@ -93,6 +97,17 @@ public class QueryContext
         return future;
     }
 
+    /**
+     * Revocable memory is not limited by the query memory limit, because it is revoked when the pool runs out of memory.
+     */
+    public synchronized void reserveRevocableMemory(long bytes)
+    {
+        checkArgument(bytes >= 0, "bytes is negative");
+
+        memoryPool.reserveRevocable(queryId, bytes);
+        revocableReserved += bytes;
+    }
+
     public synchronized boolean tryReserveMemory(long bytes)
     {
         checkArgument(bytes >= 0, "bytes is negative");
@@ -122,6 +137,24 @@ public class QueryContext
         systemMemoryPool.free(queryId, bytes);
     }
 
+    public synchronized void freeRevocableMemory(long bytes)
+    {
+        checkArgument(bytes >= 0, "bytes is negative");
+        checkArgument(revocableReserved - bytes >= 0, "tried to free more revocable memory than is reserved");
+        revocableReserved -= bytes;
+        memoryPool.freeRevocable(queryId, bytes);
+    }
+
+    public synchronized MemoryPool getMemoryPool()
+    {
+        return memoryPool;
+    }
+
+    public List<TaskContext> getTaskContexts()
+    {
+        return ImmutableList.copyOf(taskContexts);
+    }
+
     public synchronized void setMemoryPool(MemoryPool pool)
     {
         requireNonNull(pool, "pool is null");
@@ -132,6 +165,9 @@ public class QueryContext
         MemoryPool originalPool = memoryPool;
         long originalReserved = reserved;
         memoryPool = pool;
+        // revocable memory is moved right away, as its reservations never block
+        originalPool.freeRevocable(queryId, revocableReserved);
+        pool.reserveRevocable(queryId, revocableReserved);
         ListenableFuture<?> future = pool.reserve(queryId, reserved);
         Futures.addCallback(future, new FutureCallback<Object>() {
             @Override
@@ -25,6 +25,7 @@ import com.facebook.presto.spi.TableIdentity;
 import com.facebook.presto.spi.block.BlockEncodingSerde;
 import com.facebook.presto.spi.predicate.TupleDomain;
 import com.facebook.presto.spi.security.Privilege;
+import com.facebook.presto.spi.statistics.TableStatistics;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.spi.type.TypeManager;
 import com.facebook.presto.spi.type.TypeSignature;
@@ -65,6 +66,16 @@ public interface Metadata
 
     Optional<Object> getInfo(Session session, TableLayoutHandle handle);
 
+    /**
+     * Return statistics of the data of the specified table layout.
+     */
+    TableStatistics getTableStatistics(Session session, TableHandle tableHandle, TableLayoutHandle tableLayoutHandle);
+
+    /**
+     * Return exact statistics of the data of the specified table layout, or empty if the connector does not know them.
+     */
+    Optional<TableStatistics> getExactTableStatistics(Session session, TableHandle tableHandle, TableLayoutHandle tableLayoutHandle, Set<ColumnHandle> columns);
+
     /**
      * Return the metadata for the specified table handle.
      *
@@ -75,6 +75,11 @@ public final class Split
         return connectorSplit.isRemotelyAccessible();
     }
 
+    public boolean isSoftAffinity()
+    {
+        return connectorSplit.isSoftAffinity();
+    }
+
     @Override
     public String toString()
     {
@@ -0,0 +1,377 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.Marker;
+import com.facebook.presto.spi.predicate.Range;
+import com.facebook.presto.spi.predicate.SortedRangeSet;
+import com.facebook.presto.spi.type.BigintType;
+import com.facebook.presto.spi.type.DateType;
+import com.facebook.presto.spi.type.DoubleType;
+import com.facebook.presto.spi.type.IntegerType;
+import com.facebook.presto.spi.type.ShortDecimalType;
+import com.facebook.presto.spi.type.SmallintType;
+import com.facebook.presto.spi.type.TimeType;
+import com.facebook.presto.spi.type.TimestampType;
+import com.facebook.presto.spi.type.TinyintType;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spi.type.VarcharType;
+import io.airlift.slice.Slice;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.facebook.presto.spi.predicate.Marker.Bound.ABOVE;
+import static com.facebook.presto.spi.predicate.Marker.Bound.BELOW;
+import static com.facebook.presto.spi.type.TypeUtils.readNativeValue;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Filters the positions of a block by a domain. The check is built once per domain and reads
+ * the values in the Java representation of the type, so the values are not boxed. Types whose
+ * Java representation is not ordered like the type fall back to the generic check of the domain.
+ */
+public abstract class DomainPositionFilter
+{
+    private final boolean nullAllowed;
+
+    private DomainPositionFilter(boolean nullAllowed)
+    {
+        this.nullAllowed = nullAllowed;
+    }
+
+    public static DomainPositionFilter create(Domain domain)
+    {
+        requireNonNull(domain, "domain is null");
+        Type type = domain.getType();
+        if (!(domain.getValues() instanceof SortedRangeSet)) {
+            return new GenericFilter(domain);
+        }
+        List<Range> ranges = ((SortedRangeSet) domain.getValues()).getOrderedRanges();
+
+        if (isIntegralLongType(type)) {
+            if (ranges.stream().allMatch(Range::isSingleValue)) {
+                LongSet values = new LongOpenHashSet(ranges.size());
+                for (Range range : ranges) {
+                    values.add((long) range.getSingleValue());
+                }
+                return new LongValuesFilter(domain.isNullAllowed(), type, values);
+            }
+            return LongRangesFilter.create(domain.isNullAllowed(), type, ranges);
+        }
+        if (type instanceof DoubleType) {
+            return new DoubleRangesFilter(domain.isNullAllowed(), type, ranges);
+        }
+        if (type instanceof VarcharType) {
+            if (ranges.stream().allMatch(Range::isSingleValue)) {
+                Set<Slice> values = new HashSet<>();
+                for (Range range : ranges) {
+                    values.add((Slice) range.getSingleValue());
+                }
+                return new SliceValuesFilter(domain.isNullAllowed(), type, values);
+            }
+            return new SliceRangesFilter(domain.isNullAllowed(), type, ranges);
+        }
+        return new GenericFilter(domain);
+    }
+
+    /**
+     * Keeps the positions in {@code positions[0..positionCount)} whose values are in the domain,
+     * compacting them to the front of the array.
+     *
+     * @return the number of positions kept
+     */
+    public int filter(Block block, int[] positions, int positionCount)
+    {
+        int kept = 0;
+        for (int i = 0; i < positionCount; i++) {
+            int position = positions[i];
+            if (block.isNull(position) ? nullAllowed : matches(block, position)) {
+                positions[kept] = position;
+                kept++;
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Checks a non null value.
+     */
+    protected abstract boolean matches(Block block, int position);
+
+    private static boolean isIntegralLongType(Type type)
+    {
+        return type instanceof BigintType ||
+                type instanceof IntegerType ||
+                type instanceof SmallintType ||
+                type instanceof TinyintType ||
+                type instanceof DateType ||
+                type instanceof TimeType ||
+                type instanceof TimestampType ||
+                type instanceof ShortDecimalType;
+    }
+
+    private static boolean isLowInclusive(Marker low)
+    {
+        return low.getBound() != ABOVE;
+    }
+
+    private static boolean isHighInclusive(Marker high)
+    {
+        return high.getBound() != BELOW;
+    }
+
+    private static class LongValuesFilter
+            extends DomainPositionFilter
+    {
+        private final Type type;
+        private final LongSet values;
+
+        public LongValuesFilter(boolean nullAllowed, Type type, LongSet values)
+        {
+            super(nullAllowed);
+            this.type = type;
+            this.values = values;
+        }
+
+        @Override
+        protected boolean matches(Block block, int position)
+        {
+            return values.contains(type.getLong(block, position));
+        }
+    }
+
+    private static class LongRangesFilter
+            extends DomainPositionFilter
+    {
+        private final Type type;
+        // inclusive bounds, since the values are integral
+        private final long[] lows;
+        private final long[] highs;
+
+        private LongRangesFilter(boolean nullAllowed, Type type, long[] lows, long[] highs)
+        {
+            super(nullAllowed);
+            this.type = type;
+            this.lows = lows;
+            this.highs = highs;
+        }
+
+        public static LongRangesFilter create(boolean nullAllowed, Type type, List<Range> ranges)
+        {
+            long[] lows = new long[ranges.size()];
+            long[] highs = new long[ranges.size()];
+            int count = 0;
+            for (Range range : ranges) {
+                long low = Long.MIN_VALUE;
+                if (!range.getLow().isLowerUnbounded()) {
+                    low = (long) range.getLow().getValue();
+                    if (!isLowInclusive(range.getLow())) {
+                        if (low == Long.MAX_VALUE) {
+                            continue;
+                        }
+                        low++;
+                    }
+                }
+                long high = Long.MAX_VALUE;
+                if (!range.getHigh().isUpperUnbounded()) {
+                    high = (long) range.getHigh().getValue();
+                    if (!isHighInclusive(range.getHigh())) {
+                        if (high == Long.MIN_VALUE) {
+                            continue;
+                        }
+                        high--;
+                    }
+                }
+                lows[count] = low;
+                highs[count] = high;
+                count++;
+            }
+            return new LongRangesFilter(nullAllowed, type, Arrays.copyOf(lows, count), Arrays.copyOf(highs, count));
+        }
+
+        @Override
+        protected boolean matches(Block block, int position)
+        {
+            long value = type.getLong(block, position);
+            for (int i = 0; i < lows.length; i++) {
+                if (value >= lows[i] && value <= highs[i]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static class DoubleRangesFilter
+            extends DomainPositionFilter
+    {
+        private final Type type;
+        // unbounded ends are marked separately, since NaN sorts above positive infinity
+        private final boolean[] lowsBounded;
+        private final double[] lows;
+        private final boolean[] lowsInclusive;
+        private final boolean[] highsBounded;
+        private final double[] highs;
+        private final boolean[] highsInclusive;
+
+        public DoubleRangesFilter(boolean nullAllowed, Type type, List<Range> ranges)
+        {
+            super(nullAllowed);
+            this.type = type;
+            lowsBounded = new boolean[ranges.size()];
+            lows = new double[ranges.size()];
+            lowsInclusive = new boolean[ranges.size()];
+            highsBounded = new boolean[ranges.size()];
+            highs = new double[ranges.size()];
+            highsInclusive = new boolean[ranges.size()];
+            for (int i = 0; i < ranges.size(); i++) {
+                Marker low = ranges.get(i).getLow();
+                if (!low.isLowerUnbounded()) {
+                    lowsBounded[i] = true;
+                    lows[i] = (double) low.getValue();
+                    lowsInclusive[i] = isLowInclusive(low);
+                }
+                Marker high = ranges.get(i).getHigh();
+                if (!high.isUpperUnbounded()) {
+                    highsBounded[i] = true;
+                    highs[i] = (double) high.getValue();
+                    highsInclusive[i] = isHighInclusive(high);
+                }
+            }
+        }
+
+        @Override
+        protected boolean matches(Block block, int position)
+        {
+            double value = type.getDouble(block, position);
+            for (int i = 0; i < lows.length; i++) {
+                // same ordering as the type, which compares with Double.compare
+                if (lowsBounded[i]) {
+                    int low = Double.compare(value, lows[i]);
+                    if (low < 0 || (low == 0 && !lowsInclusive[i])) {
+                        continue;
+                    }
+                }
+                if (highsBounded[i]) {
+                    int high = Double.compare(value, highs[i]);
+                    if (high > 0 || (high == 0 && !highsInclusive[i])) {
+                        continue;
+                    }
+                }
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private static class SliceValuesFilter
+            extends DomainPositionFilter
+    {
+        private final Type type;
+        private final Set<Slice> values;
+
+        public SliceValuesFilter(boolean nullAllowed, Type type, Set<Slice> values)
+        {
+            super(nullAllowed);
+            this.type = type;
+            this.values = values;
+        }
+
+        @Override
+        protected boolean matches(Block block, int position)
+        {
+            return values.contains(type.getSlice(block, position));
+        }
+    }
+
+    private static class SliceRangesFilter
+            extends DomainPositionFilter
+    {
+        private final Type type;
+        // null for unbounded
+        private final Slice[] lows;
+        private final boolean[] lowsInclusive;
+        private final Slice[] highs;
+        private final boolean[] highsInclusive;
+
+        public SliceRangesFilter(boolean nullAllowed, Type type, List<Range> ranges)
+        {
+            super(nullAllowed);
+            this.type = type;
+            lows = new Slice[ranges.size()];
+            lowsInclusive = new boolean[ranges.size()];
+            highs = new Slice[ranges.size()];
+            highsInclusive = new boolean[ranges.size()];
+            for (int i = 0; i < ranges.size(); i++) {
+                Marker low = ranges.get(i).getLow();
+                if (!low.isLowerUnbounded()) {
+                    lows[i] = (Slice) low.getValue();
+                    lowsInclusive[i] = isLowInclusive(low);
+                }
+                Marker high = ranges.get(i).getHigh();
+                if (!high.isUpperUnbounded()) {
+                    highs[i] = (Slice) high.getValue();
+                    highsInclusive[i] = isHighInclusive(high);
+                }
+            }
+        }
+
+        @Override
+        protected boolean matches(Block block, int position)
+        {
+            Slice value = type.getSlice(block, position);
+            for (int i = 0; i < lows.length; i++) {
+                if (lows[i] != null) {
+                    int low = value.compareTo(lows[i]);
+                    if (low < 0 || (low == 0 && !lowsInclusive[i])) {
+                        continue;
+                    }
+                }
+                if (highs[i] != null) {
+                    int high = value.compareTo(highs[i]);
+                    if (high > 0 || (high == 0 && !highsInclusive[i])) {
+                        continue;
+                    }
+                }
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private static class GenericFilter
+            extends DomainPositionFilter
+    {
+        private final Domain domain;
+
+        public GenericFilter(Domain domain)
+        {
+            super(domain.isNullAllowed());
+            this.domain = domain;
+        }
+
+        @Override
+        protected boolean matches(Block block, int position)
+        {
+            return domain.includesNullableValue(readNativeValue(domain.getType(), block, position));
+        }
+    }
+}
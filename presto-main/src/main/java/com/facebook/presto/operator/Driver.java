@@ -78,6 +78,10 @@ public class Driver
     @GuardedBy("exclusiveLock")
     private final Map<PlanNodeId, TaskSource> currentSources = new ConcurrentHashMap<>();
 
+    // operators which are releasing their revocable memory, and the futures completed once they are done
+    @GuardedBy("exclusiveLock")
+    private final Map<Operator, ListenableFuture<?>> revokingOperators = new HashMap<>();
+
     private enum State
     {
         ALIVE, NEED_DESTRUCTION, DESTROYED
@@ -337,6 +341,8 @@ public class Driver
                 processNewSources();
             }
 
+            handleMemoryRevoke();
+
             // special handling for drivers with a single operator
             if (operators.size() == 1) {
                 if (driverContext.isDone()) {
@@ -409,6 +415,13 @@ public class Driver
                 }
 
                 if (!blockedFutures.isEmpty()) {
+                    // a blocked driver must still wake up when it is asked to release memory
+                    for (Operator operator : operators) {
+                        if (!revokingOperators.containsKey(operator) && operator.getOperatorContext().getRevocableMemoryReservation() > 0) {
+                            blockedFutures.add(operator.getOperatorContext().getMemoryRevokingRequestedFuture());
+                        }
+                    }
+
                     // unblock when the first future is complete
                     ListenableFuture<?> blocked = firstFinishedFuture(blockedFutures);
                     // driver records serial blocked time
@@ -430,6 +443,24 @@ public class Driver
         }
     }
 
+    private void handleMemoryRevoke()
+    {
+        for (Operator operator : operators) {
+            OperatorContext operatorContext = operator.getOperatorContext();
+            ListenableFuture<?> revoking = revokingOperators.get(operator);
+            if (revoking == null) {
+                if (operatorContext.isMemoryRevokingRequested()) {
+                    revokingOperators.put(operator, operator.startMemoryRevoking());
+                }
+            }
+            else if (revoking.isDone()) {
+                revokingOperators.remove(operator);
+                operator.finishMemoryRevoke();
+                operatorContext.resetMemoryRevokingRequested();
+            }
+        }
+    }
+
     private void destroyIfNecessary()
     {
         checkLockHeld("Lock must be held to call destroyIfNecessary");
@@ -462,6 +493,7 @@ public class Driver
                 }
                 try {
                     operator.getOperatorContext().setMemoryReservation(0);
+                    operator.getOperatorContext().setRevocableMemoryReservation(0);
                 }
                 catch (Throwable t) {
                     inFlightException = addSuppressedException(
@@ -506,8 +538,12 @@ public class Driver
         }
     }
 
-    private static ListenableFuture<?> isBlocked(Operator operator)
+    private ListenableFuture<?> isBlocked(Operator operator)
     {
+        ListenableFuture<?> revoking = revokingOperators.get(operator);
+        if (revoking != null && !revoking.isDone()) {
+            return revoking;
+        }
         ListenableFuture<?> blocked = operator.isBlocked();
         if (blocked.isDone()) {
             blocked = operator.getOperatorContext().isWaitingForMemory();
@@ -79,6 +79,7 @@ public class DriverContext
 
     private final AtomicLong memoryReservation = new AtomicLong();
     private final AtomicLong systemMemoryReservation = new AtomicLong();
+    private final AtomicLong revocableMemoryReservation = new AtomicLong();
 
     private final List<OperatorContext> operatorContexts = new CopyOnWriteArrayList<>();
     private final boolean partitioned;
@@ -167,6 +168,7 @@ public class DriverContext
         endNanos.set(System.nanoTime());
 
         freeMemory(memoryReservation.get());
+        freeRevocableMemory(revocableMemoryReservation.get());
 
         pipelineContext.driverFinished(this);
     }
@@ -177,6 +179,7 @@ public class DriverContext
         finished.set(true);
 
         freeMemory(memoryReservation.get());
+        freeRevocableMemory(revocableMemoryReservation.get());
     }
 
     public boolean isDone()
@@ -205,6 +208,13 @@ public class DriverContext
         return future;
     }
 
+    public void reserveRevocableMemory(long bytes)
+    {
+        checkArgument(bytes >= 0, "bytes is negative");
+        pipelineContext.reserveRevocableMemory(bytes);
+        revocableMemoryReservation.getAndAdd(bytes);
+    }
+
     public boolean tryReserveMemory(long bytes)
     {
         if (pipelineContext.tryReserveMemory(bytes)) {
@@ -236,6 +246,17 @@ public class DriverContext
         systemMemoryReservation.getAndAdd(-bytes);
     }
 
+    public void freeRevocableMemory(long bytes)
+    {
+        if (bytes == 0) {
+            return;
+        }
+        checkArgument(bytes >= 0, "bytes is negative");
+        checkArgument(bytes <= revocableMemoryReservation.get(), "tried to free more revocable memory than is reserved");
+        pipelineContext.freeRevocableMemory(bytes);
+        revocableMemoryReservation.getAndAdd(-bytes);
+    }
+
     @VisibleForTesting
     public long getSystemMemoryUsage()
     {
@@ -0,0 +1,103 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Summary of the build side keys of a join, used to skip probe side rows which
+ * can not have a match. The probe side columns are keyed by the index of the
+ * join criteria they are compared with. Every hash build operator of the join
+ * reports a summary of the keys it received, and the filter is complete once
+ * all build partitions have reported.
+ */
+@ThreadSafe
+public class DynamicFilter
+{
+    private final Map<Integer, ColumnHandle> probeColumns;
+    private final SettableFuture<TupleDomain<ColumnHandle>> tupleDomain = SettableFuture.create();
+
+    @GuardedBy("this")
+    private int partitionCount;
+    @GuardedBy("this")
+    private final List<TupleDomain<ColumnHandle>> partitionSummaries = new ArrayList<>();
+
+    public DynamicFilter(Map<Integer, ColumnHandle> probeColumns)
+    {
+        this.probeColumns = ImmutableMap.copyOf(requireNonNull(probeColumns, "probeColumns is null"));
+        checkArgument(!probeColumns.isEmpty(), "probeColumns is empty");
+    }
+
+    public Map<Integer, ColumnHandle> getProbeColumns()
+    {
+        return probeColumns;
+    }
+
+    /**
+     * Sets the number of build partitions which must report their keys before the filter is complete.
+     */
+    public synchronized void setPartitionCount(int partitionCount)
+    {
+        checkArgument(partitionCount > 0, "partitionCount must be positive");
+        checkState(this.partitionCount == 0, "partitionCount is already set");
+        this.partitionCount = partitionCount;
+    }
+
+    public DynamicFilterCollector createCollector(List<Type> buildTypes, List<Integer> buildHashChannels)
+    {
+        return new DynamicFilterCollector(this, buildTypes, buildHashChannels);
+    }
+
+    /**
+     * Future completed with the domain of the probe columns once all build partitions have reported their keys.
+     */
+    public ListenableFuture<TupleDomain<ColumnHandle>> getTupleDomain()
+    {
+        return tupleDomain;
+    }
+
+    void addPartitionSummary(TupleDomain<ColumnHandle> summary)
+    {
+        requireNonNull(summary, "summary is null");
+        TupleDomain<ColumnHandle> result;
+        synchronized (this) {
+            checkState(partitionCount > 0, "partitionCount is not set");
+            checkState(partitionSummaries.size() < partitionCount, "All build partitions have already reported");
+            partitionSummaries.add(summary);
+            if (partitionSummaries.size() < partitionCount) {
+                return;
+            }
+            result = TupleDomain.columnWiseUnion(ImmutableList.copyOf(partitionSummaries));
+        }
+        // complete the future outside of the lock, as it runs the listeners of the probe side
+        tupleDomain.set(result);
+    }
+}
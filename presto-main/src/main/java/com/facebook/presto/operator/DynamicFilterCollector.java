@@ -0,0 +1,188 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.Range;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.predicate.ValueSet;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.RealType.REAL;
+import static com.facebook.presto.spi.type.TypeUtils.readNativeValue;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Collects the join keys received by a single hash build operator. The keys of
+ * every column are summarized as a set of distinct values while the set is small,
+ * and as the range between the minimum and the maximum key otherwise.
+ */
+@NotThreadSafe
+public class DynamicFilterCollector
+{
+    private static final int MAX_DISTINCT_VALUES = 1_000;
+
+    private final DynamicFilter dynamicFilter;
+    private final ColumnHandle[] columns;
+    private final Type[] types;
+    private final int[] channels;
+
+    // distinct non-null keys of each column, or null if there are too many of them
+    private final Set<Object>[] distinctValues;
+    private final Block[] minValues;
+    private final Block[] maxValues;
+
+    private long positionCount;
+    private boolean published;
+
+    DynamicFilterCollector(DynamicFilter dynamicFilter, List<Type> buildTypes, List<Integer> buildHashChannels)
+    {
+        this.dynamicFilter = requireNonNull(dynamicFilter, "dynamicFilter is null");
+        requireNonNull(buildTypes, "buildTypes is null");
+        requireNonNull(buildHashChannels, "buildHashChannels is null");
+
+        Map<Integer, ColumnHandle> probeColumns = dynamicFilter.getProbeColumns();
+        ImmutableList.Builder<ColumnHandle> columns = ImmutableList.builder();
+        ImmutableList.Builder<Integer> channels = ImmutableList.builder();
+        for (Map.Entry<Integer, ColumnHandle> entry : probeColumns.entrySet()) {
+            int channel = buildHashChannels.get(entry.getKey());
+            if (isSupportedType(buildTypes.get(channel))) {
+                columns.add(entry.getValue());
+                channels.add(channel);
+            }
+        }
+        this.columns = columns.build().toArray(new ColumnHandle[0]);
+        this.channels = channels.build().stream().mapToInt(Integer::intValue).toArray();
+        this.types = new Type[this.channels.length];
+        for (int i = 0; i < this.channels.length; i++) {
+            types[i] = buildTypes.get(this.channels[i]);
+        }
+
+        //noinspection unchecked
+        this.distinctValues = (Set<Object>[]) new Set<?>[this.channels.length];
+        for (int i = 0; i < distinctValues.length; i++) {
+            distinctValues[i] = new HashSet<>();
+        }
+        this.minValues = new Block[this.channels.length];
+        this.maxValues = new Block[this.channels.length];
+    }
+
+    public void addPage(Page page)
+    {
+        checkState(!published, "Summary is already published");
+        positionCount += page.getPositionCount();
+        for (int i = 0; i < channels.length; i++) {
+            Block block = page.getBlock(channels[i]);
+            for (int position = 0; position < block.getPositionCount(); position++) {
+                if (block.isNull(position)) {
+                    continue;
+                }
+                addValue(i, block, position);
+            }
+        }
+    }
+
+    /**
+     * Reports the summary of the collected keys to the dynamic filter.
+     */
+    public void publish()
+    {
+        if (published) {
+            return;
+        }
+        published = true;
+        dynamicFilter.addPartitionSummary(getSummary());
+    }
+
+    private TupleDomain<ColumnHandle> getSummary()
+    {
+        if (positionCount == 0) {
+            return TupleDomain.none();
+        }
+
+        // the join never matches null keys, so nulls are never part of the domain
+        ImmutableMap.Builder<ColumnHandle, Domain> domains = ImmutableMap.builder();
+        for (int i = 0; i < channels.length; i++) {
+            Type type = types[i];
+            if (distinctValues[i] != null) {
+                domains.put(columns[i], Domain.create(ValueSet.copyOf(type, distinctValues[i]), false));
+            }
+            else if (type.isOrderable()) {
+                Range range = Range.range(type, readNativeValue(type, minValues[i], 0), true, readNativeValue(type, maxValues[i], 0), true);
+                domains.put(columns[i], Domain.create(ValueSet.ofRanges(range), false));
+            }
+            else {
+                domains.put(columns[i], Domain.notNull(type));
+            }
+        }
+        return TupleDomain.withColumnDomains(domains.build());
+    }
+
+    private void addValue(int column, Block block, int position)
+    {
+        Type type = types[column];
+        if (type.isOrderable()) {
+            if (minValues[column] == null || type.compareTo(block, position, minValues[column], 0) < 0) {
+                minValues[column] = block.getSingleValueBlock(position);
+            }
+            if (maxValues[column] == null || type.compareTo(block, position, maxValues[column], 0) > 0) {
+                maxValues[column] = block.getSingleValueBlock(position);
+            }
+        }
+
+        Set<Object> values = distinctValues[column];
+        if (values == null) {
+            return;
+        }
+        Object value = readNativeValue(type, block, position);
+        if (values.contains(value)) {
+            return;
+        }
+        if (values.size() >= MAX_DISTINCT_VALUES) {
+            distinctValues[column] = null;
+            return;
+        }
+        if (value instanceof Slice) {
+            // do not retain the memory of the whole block
+            value = Slices.copyOf((Slice) value);
+        }
+        values.add(value);
+    }
+
+    private static boolean isSupportedType(Type type)
+    {
+        // NaN keys do not fit in a range of doubles
+        if (type.equals(DOUBLE) || type.equals(REAL)) {
+            return false;
+        }
+        Class<?> javaType = type.getJavaType();
+        return type.isComparable() && (javaType == long.class || javaType == boolean.class || javaType == Slice.class);
+    }
+}
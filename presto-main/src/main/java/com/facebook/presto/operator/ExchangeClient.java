@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.block.PageCompressionCodec;
 import com.facebook.presto.execution.SystemMemoryUsageListener;
 import com.facebook.presto.operator.HttpPageBufferClient.ClientCallback;
 import com.facebook.presto.spi.Page;
@@ -57,6 +58,7 @@ public class ExchangeClient
     private static final Page NO_MORE_PAGES = new Page(0);
 
     private final BlockEncodingSerde blockEncodingSerde;
+    private final PageCompressionCodec compressionCodec;
     private final long maxBufferedBytes;
     private final DataSize maxResponseSize;
     private final int concurrentRequestMultiplier;
@@ -95,6 +97,7 @@ public class ExchangeClient
 
     public ExchangeClient(
             BlockEncodingSerde blockEncodingSerde,
+            PageCompressionCodec compressionCodec,
             DataSize maxBufferedBytes,
             DataSize maxResponseSize,
             int concurrentRequestMultiplier,
@@ -104,6 +107,7 @@ public class ExchangeClient
             SystemMemoryUsageListener systemMemoryUsageListener)
     {
         this.blockEncodingSerde = blockEncodingSerde;
+        this.compressionCodec = requireNonNull(compressionCodec, "compressionCodec is null");
         this.maxBufferedBytes = maxBufferedBytes.toBytes();
         this.maxResponseSize = maxResponseSize;
         this.concurrentRequestMultiplier = concurrentRequestMultiplier;
@@ -120,11 +124,15 @@ public class ExchangeClient
             bufferedPages--;
         }
 
+        long compressedPages = 0;
+        long bytesSavedByCompression = 0;
         ImmutableList.Builder<PageBufferClientStatus> exchangeStatus = ImmutableList.builder();
         for (HttpPageBufferClient client : allClients.values()) {
             exchangeStatus.add(client.getStatus());
+            compressedPages += client.getCompressedPagesReceived();
+            bytesSavedByCompression += client.getBytesSavedByCompression();
         }
-        return new ExchangeClientStatus(bufferBytes, averageBytesPerRequest, bufferedPages, noMoreLocations, exchangeStatus.build());
+        return new ExchangeClientStatus(bufferBytes, averageBytesPerRequest, bufferedPages, compressedPages, bytesSavedByCompression, noMoreLocations, exchangeStatus.build());
     }
 
     public synchronized void addLocation(URI location)
@@ -268,6 +276,7 @@ public class ExchangeClient
                         location,
                         new ExchangeClientCallback(),
                         blockEncodingSerde,
+                        compressionCodec,
                         executor);
                 allClients.put(location, client);
                 queuedClients.add(client);
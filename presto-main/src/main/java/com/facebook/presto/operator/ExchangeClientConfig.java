@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.block.PageCompressionCodec;
 import io.airlift.configuration.Config;
 import io.airlift.http.client.HttpClientConfig;
 import io.airlift.units.DataSize;
@@ -33,6 +34,7 @@ public class ExchangeClientConfig
     private Duration minErrorDuration = new Duration(1, TimeUnit.MINUTES);
     private DataSize maxResponseSize = new HttpClientConfig().getMaxContentLength();
     private int clientThreads = 25;
+    private PageCompressionCodec compressionCodec = PageCompressionCodec.NONE;
 
     @NotNull
     public DataSize getMaxBufferSize()
@@ -100,4 +102,17 @@ public class ExchangeClientConfig
         this.clientThreads = clientThreads;
         return this;
     }
+
+    @NotNull
+    public PageCompressionCodec getCompressionCodec()
+    {
+        return compressionCodec;
+    }
+
+    @Config("exchange.compression-codec")
+    public ExchangeClientConfig setCompressionCodec(PageCompressionCodec compressionCodec)
+    {
+        this.compressionCodec = compressionCodec;
+        return this;
+    }
 }
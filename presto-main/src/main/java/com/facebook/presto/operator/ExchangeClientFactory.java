@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.block.PageCompressionCodec;
 import com.facebook.presto.execution.SystemMemoryUsageListener;
 import com.facebook.presto.spi.block.BlockEncodingSerde;
 import io.airlift.http.client.HttpClient;
@@ -31,6 +32,7 @@ public class ExchangeClientFactory
         implements ExchangeClientSupplier
 {
     private final BlockEncodingSerde blockEncodingSerde;
+    private final PageCompressionCodec compressionCodec;
     private final DataSize maxBufferedBytes;
     private final int concurrentRequestMultiplier;
     private final Duration minErrorDuration;
@@ -45,6 +47,7 @@ public class ExchangeClientFactory
             @ForExchange ScheduledExecutorService executor)
     {
         this(blockEncodingSerde,
+                config.getCompressionCodec(),
                 config.getMaxBufferSize(),
                 config.getMaxResponseSize(),
                 config.getConcurrentRequestMultiplier(),
@@ -55,6 +58,7 @@ public class ExchangeClientFactory
 
     public ExchangeClientFactory(
             BlockEncodingSerde blockEncodingSerde,
+            PageCompressionCodec compressionCodec,
             DataSize maxBufferedBytes,
             DataSize maxResponseSize,
             int concurrentRequestMultiplier,
@@ -63,6 +67,7 @@ public class ExchangeClientFactory
             ScheduledExecutorService executor)
     {
         this.blockEncodingSerde = blockEncodingSerde;
+        this.compressionCodec = requireNonNull(compressionCodec, "compressionCodec is null");
         this.maxBufferedBytes = requireNonNull(maxBufferedBytes, "maxBufferedBytes is null");
         this.concurrentRequestMultiplier = concurrentRequestMultiplier;
         this.minErrorDuration = requireNonNull(minErrorDuration, "minErrorDuration is null");
@@ -86,6 +91,7 @@ public class ExchangeClientFactory
     {
         return new ExchangeClient(
                 blockEncodingSerde,
+                compressionCodec,
                 maxBufferedBytes,
                 maxResponseSize,
                 concurrentRequestMultiplier,
@@ -27,6 +27,8 @@ public class ExchangeClientStatus
     private final long bufferedBytes;
     private final long averageBytesPerRequest;
     private final int bufferedPages;
+    private final long compressedPages;
+    private final long bytesSavedByCompression;
     private final boolean noMoreLocations;
     private final List<PageBufferClientStatus> pageBufferClientStatuses;
 
@@ -35,12 +37,16 @@ public class ExchangeClientStatus
             @JsonProperty("bufferedBytes") long bufferedBytes,
             @JsonProperty("averageBytesPerRequest") long averageBytesPerRequest,
             @JsonProperty("bufferedPages") int bufferedPages,
+            @JsonProperty("compressedPages") long compressedPages,
+            @JsonProperty("bytesSavedByCompression") long bytesSavedByCompression,
             @JsonProperty("noMoreLocations") boolean noMoreLocations,
             @JsonProperty("pageBufferClientStatuses") List<PageBufferClientStatus> pageBufferClientStatuses)
     {
         this.bufferedBytes = bufferedBytes;
         this.averageBytesPerRequest = averageBytesPerRequest;
         this.bufferedPages = bufferedPages;
+        this.compressedPages = compressedPages;
+        this.bytesSavedByCompression = bytesSavedByCompression;
         this.noMoreLocations = noMoreLocations;
         this.pageBufferClientStatuses = ImmutableList.copyOf(requireNonNull(pageBufferClientStatuses, "pageBufferClientStatuses is null"));
     }
@@ -63,6 +69,18 @@ public class ExchangeClientStatus
         return bufferedPages;
     }
 
+    @JsonProperty
+    public long getCompressedPages()
+    {
+        return compressedPages;
+    }
+
+    @JsonProperty
+    public long getBytesSavedByCompression()
+    {
+        return bytesSavedByCompression;
+    }
+
     @JsonProperty
     public boolean isNoMoreLocations()
     {
@@ -83,6 +101,8 @@ public class ExchangeClientStatus
                 .add("bufferBytes", bufferedBytes)
                 .add("averageBytesPerRequest", averageBytesPerRequest)
                 .add("bufferedPages", bufferedPages)
+                .add("compressedPages", compressedPages)
+                .add("bytesSavedByCompression", bytesSavedByCompression)
                 .add("noMoreLocations", noMoreLocations)
                 .add("pageBufferClientStatuses", pageBufferClientStatuses)
                 .toString();
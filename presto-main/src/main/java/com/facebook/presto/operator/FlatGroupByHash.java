@@ -0,0 +1,323 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.array.LongBigArray;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.type.BigintType;
+import com.facebook.presto.spi.type.BooleanType;
+import com.facebook.presto.spi.type.CharType;
+import com.facebook.presto.spi.type.DateType;
+import com.facebook.presto.spi.type.DecimalType;
+import com.facebook.presto.spi.type.IntegerType;
+import com.facebook.presto.spi.type.SmallintType;
+import com.facebook.presto.spi.type.TimestampType;
+import com.facebook.presto.spi.type.TinyintType;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spi.type.VarbinaryType;
+import com.facebook.presto.spi.type.VarcharType;
+import com.facebook.presto.sql.gen.GroupByHashCompiler;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.spi.StandardErrorCode.GENERIC_INSUFFICIENT_RESOURCES;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.slice.SizeOf.sizeOf;
+import static it.unimi.dsi.fastutil.HashCommon.arraySize;
+import static it.unimi.dsi.fastutil.HashCommon.murmurHash3;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Group by hash for multiple keys of types whose values are equal exactly when their
+ * representations are equal. The keys of every group are packed into a row of longs,
+ * variable width keys are copied to a contiguous arena, and the key operations are
+ * generated for the types of the keys.
+ */
+// This implementation assumes arrays used in the hash are always a power of 2
+public class FlatGroupByHash
+        implements GroupByHash
+{
+    private static final GroupByHashCompiler GROUP_BY_HASH_COMPILER = new GroupByHashCompiler();
+
+    private static final float FILL_RATIO = 0.75f;
+    // the null mask of a row has a bit for every key
+    private static final int MAX_KEYS = Long.SIZE;
+
+    private final List<Type> types;
+    private final int[] channels;
+    private final Optional<Integer> inputHashChannel;
+    private final FlatKeyStrategy keyStrategy;
+    private final int rowWidth;
+
+    // the keys of the groups, rowWidth longs per group
+    private final LongBigArray rows = new LongBigArray();
+    private final FlatKeyArena arena = new FlatKeyArena();
+    private final LongBigArray rawHashByGroupId = new LongBigArray();
+
+    private int maxFill;
+    private int mask;
+    private int[] groupIdsByHash;
+    private byte[] rawHashByHashPosition;
+
+    private int nextGroupId;
+
+    public FlatGroupByHash(List<? extends Type> hashTypes, int[] hashChannels, Optional<Integer> inputHashChannel, int expectedSize)
+    {
+        requireNonNull(hashTypes, "hashTypes is null");
+        checkArgument(hashTypes.size() == hashChannels.length, "hashTypes and hashChannels have different sizes");
+        checkArgument(isSupported(hashTypes), "hashTypes are not supported");
+        checkArgument(expectedSize > 0, "expectedSize must be greater than zero");
+
+        this.inputHashChannel = requireNonNull(inputHashChannel, "inputHashChannel is null");
+        this.types = inputHashChannel.isPresent() ? ImmutableList.copyOf(Iterables.concat(hashTypes, ImmutableList.of(BIGINT))) : ImmutableList.copyOf(hashTypes);
+        this.channels = hashChannels.clone();
+        this.keyStrategy = GROUP_BY_HASH_COMPILER.compileFlatKeyStrategy(hashTypes);
+        this.rowWidth = hashChannels.length + 1;
+
+        int hashSize = arraySize(expectedSize, FILL_RATIO);
+        maxFill = calculateMaxFill(hashSize);
+        mask = hashSize - 1;
+        groupIdsByHash = new int[hashSize];
+        Arrays.fill(groupIdsByHash, -1);
+        rawHashByHashPosition = new byte[hashSize];
+
+        rows.ensureCapacity((long) maxFill * rowWidth);
+        rawHashByGroupId.ensureCapacity(maxFill);
+    }
+
+    /**
+     * Returns true if the keys can be stored in a flat group by hash. The values of these
+     * types are equal exactly when their representations are equal.
+     */
+    public static boolean isSupported(List<? extends Type> hashTypes)
+    {
+        if (hashTypes.isEmpty() || hashTypes.size() > MAX_KEYS) {
+            return false;
+        }
+        for (Type type : hashTypes) {
+            if (!(type instanceof BigintType ||
+                    type instanceof IntegerType ||
+                    type instanceof SmallintType ||
+                    type instanceof TinyintType ||
+                    type instanceof BooleanType ||
+                    type instanceof DateType ||
+                    type instanceof TimestampType ||
+                    type instanceof DecimalType ||
+                    type instanceof VarcharType ||
+                    type instanceof CharType ||
+                    type instanceof VarbinaryType)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public long getEstimatedSize()
+    {
+        return rows.sizeOf() +
+                arena.getRetainedSize() +
+                rawHashByGroupId.sizeOf() +
+                sizeOf(groupIdsByHash) +
+                sizeOf(rawHashByHashPosition);
+    }
+
+    @Override
+    public List<Type> getTypes()
+    {
+        return types;
+    }
+
+    @Override
+    public int getGroupCount()
+    {
+        return nextGroupId;
+    }
+
+    @Override
+    public void appendValuesTo(int groupId, PageBuilder pageBuilder, int outputChannelOffset)
+    {
+        keyStrategy.appendRow(rows, (long) groupId * rowWidth, arena, pageBuilder, outputChannelOffset);
+        if (inputHashChannel.isPresent()) {
+            BIGINT.writeLong(pageBuilder.getBlockBuilder(outputChannelOffset + channels.length), rawHashByGroupId.get(groupId));
+        }
+    }
+
+    @Override
+    public void addPage(Page page)
+    {
+        Block[] blocks = getBlocks(page, channels);
+        int positionCount = page.getPositionCount();
+        for (int position = 0; position < positionCount; position++) {
+            putIfAbsent(blocks, position, getRawHash(page, blocks, position));
+        }
+    }
+
+    @Override
+    public GroupByIdBlock getGroupIds(Page page)
+    {
+        int positionCount = page.getPositionCount();
+
+        // we know the exact size required for the block
+        BlockBuilder blockBuilder = BIGINT.createFixedSizeBlockBuilder(positionCount);
+
+        Block[] blocks = getBlocks(page, channels);
+        for (int position = 0; position < positionCount; position++) {
+            int groupId = putIfAbsent(blocks, position, getRawHash(page, blocks, position));
+            BIGINT.writeLong(blockBuilder, groupId);
+        }
+        return new GroupByIdBlock(nextGroupId, blockBuilder.build());
+    }
+
+    @Override
+    public boolean contains(int position, Page page, int[] hashChannels)
+    {
+        Block[] blocks = getBlocks(page, hashChannels);
+        return groupIdsByHash[findHashPosition(blocks, position, keyStrategy.hashRow(blocks, position))] != -1;
+    }
+
+    @Override
+    public int putIfAbsent(int position, Page page)
+    {
+        Block[] blocks = getBlocks(page, channels);
+        return putIfAbsent(blocks, position, getRawHash(page, blocks, position));
+    }
+
+    @Override
+    public long getRawHash(int groupId)
+    {
+        return rawHashByGroupId.get(groupId);
+    }
+
+    private long getRawHash(Page page, Block[] blocks, int position)
+    {
+        if (inputHashChannel.isPresent()) {
+            return BIGINT.getLong(page.getBlock(inputHashChannel.get()), position);
+        }
+        return keyStrategy.hashRow(blocks, position);
+    }
+
+    private int putIfAbsent(Block[] blocks, int position, long rawHash)
+    {
+        int hashPosition = findHashPosition(blocks, position, rawHash);
+        int groupId = groupIdsByHash[hashPosition];
+        if (groupId < 0) {
+            groupId = addNewGroup(hashPosition, blocks, position, rawHash);
+        }
+        return groupId;
+    }
+
+    /**
+     * Returns the slot containing the keys at the position, or the empty slot where they belong.
+     */
+    private int findHashPosition(Block[] blocks, int position, long rawHash)
+    {
+        int hashPosition = (int) getHashPosition(rawHash, mask);
+        while (groupIdsByHash[hashPosition] != -1) {
+            int groupId = groupIdsByHash[hashPosition];
+            if (rawHashByHashPosition[hashPosition] == (byte) rawHash && keyStrategy.rowEquals(rows, (long) groupId * rowWidth, arena, blocks, position)) {
+                return hashPosition;
+            }
+            // increment position and mask to handle wrap around
+            hashPosition = (hashPosition + 1) & mask;
+        }
+        return hashPosition;
+    }
+
+    private int addNewGroup(int hashPosition, Block[] blocks, int position, long rawHash)
+    {
+        int groupId = nextGroupId++;
+
+        keyStrategy.storeRow(rows, (long) groupId * rowWidth, arena, blocks, position);
+        rawHashByGroupId.set(groupId, rawHash);
+
+        groupIdsByHash[hashPosition] = groupId;
+        rawHashByHashPosition[hashPosition] = (byte) rawHash;
+
+        // increase capacity, if necessary
+        if (nextGroupId >= maxFill) {
+            rehash();
+        }
+        return groupId;
+    }
+
+    private void rehash()
+    {
+        long newCapacityLong = groupIdsByHash.length * 2L;
+        if (newCapacityLong > Integer.MAX_VALUE) {
+            throw new PrestoException(GENERIC_INSUFFICIENT_RESOURCES, "Size of hash table cannot exceed 1 billion entries");
+        }
+        int newCapacity = (int) newCapacityLong;
+
+        int newMask = newCapacity - 1;
+        int[] newGroupIds = new int[newCapacity];
+        Arrays.fill(newGroupIds, -1);
+        byte[] newRawHashes = new byte[newCapacity];
+
+        for (int groupId = 0; groupId < nextGroupId; groupId++) {
+            long rawHash = rawHashByGroupId.get(groupId);
+
+            // find an empty slot for the group
+            int hashPosition = (int) getHashPosition(rawHash, newMask);
+            while (newGroupIds[hashPosition] != -1) {
+                hashPosition = (hashPosition + 1) & newMask;
+            }
+
+            newGroupIds[hashPosition] = groupId;
+            newRawHashes[hashPosition] = (byte) rawHash;
+        }
+
+        mask = newMask;
+        maxFill = calculateMaxFill(newCapacity);
+        groupIdsByHash = newGroupIds;
+        rawHashByHashPosition = newRawHashes;
+
+        rows.ensureCapacity((long) maxFill * rowWidth);
+        rawHashByGroupId.ensureCapacity(maxFill);
+    }
+
+    private static Block[] getBlocks(Page page, int[] channels)
+    {
+        Block[] blocks = new Block[channels.length];
+        for (int i = 0; i < channels.length; i++) {
+            blocks[i] = page.getBlock(channels[i]);
+        }
+        return blocks;
+    }
+
+    private static long getHashPosition(long rawHash, int mask)
+    {
+        return murmurHash3(rawHash) & mask;
+    }
+
+    private static int calculateMaxFill(int hashSize)
+    {
+        checkArgument(hashSize > 0, "hashSize must greater than 0");
+        int maxFill = (int) Math.ceil(hashSize * FILL_RATIO);
+        if (maxFill == hashSize) {
+            maxFill--;
+        }
+        checkArgument(hashSize > maxFill, "hashSize must be larger than maxFill");
+        return maxFill;
+    }
+}
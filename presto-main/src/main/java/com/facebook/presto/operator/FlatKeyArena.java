@@ -0,0 +1,83 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.block.Block;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+
+import static com.facebook.presto.spi.StandardErrorCode.GENERIC_INSUFFICIENT_RESOURCES;
+
+/**
+ * Contiguous storage for the variable width keys of a {@link FlatGroupByHash}. A key
+ * is referenced by an address which encodes its offset and its length.
+ */
+public final class FlatKeyArena
+{
+    private static final int INITIAL_SIZE = 1024;
+
+    private Slice data = Slices.allocate(INITIAL_SIZE);
+    private int size;
+
+    /**
+     * Copies the value at the position of the block to the arena, and returns its address.
+     */
+    public long add(Block block, int position)
+    {
+        int length = block.getLength(position);
+        long newSize = (long) size + length;
+        if (newSize > Integer.MAX_VALUE) {
+            throw new PrestoException(GENERIC_INSUFFICIENT_RESOURCES, "Size of variable width group by keys cannot exceed 2GB");
+        }
+        if (newSize > data.length()) {
+            data = Slices.ensureSize(data, (int) newSize);
+        }
+        data.setBytes(size, block.getSlice(position, 0, length));
+        long address = encodeAddress(size, length);
+        size = (int) newSize;
+        return address;
+    }
+
+    public boolean equals(long address, Block block, int position)
+    {
+        int length = decodeLength(address);
+        return block.getLength(position) == length && block.bytesEqual(position, 0, data, decodeOffset(address), length);
+    }
+
+    public Slice get(long address)
+    {
+        return data.slice(decodeOffset(address), decodeLength(address));
+    }
+
+    public long getRetainedSize()
+    {
+        return data.getRetainedSize();
+    }
+
+    private static long encodeAddress(int offset, int length)
+    {
+        return (((long) offset) << 32) | length;
+    }
+
+    private static int decodeOffset(long address)
+    {
+        return (int) (address >>> 32);
+    }
+
+    private static int decodeLength(long address)
+    {
+        return (int) address;
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.array.LongBigArray;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.Block;
+
+/**
+ * Key operations of a {@link FlatGroupByHash}, generated for the types of the keys.
+ * A row of keys is stored as a null mask followed by one long per key, which is the
+ * value of a fixed width key, or the address in the {@link FlatKeyArena} of a variable
+ * width key.
+ */
+public interface FlatKeyStrategy
+{
+    /**
+     * Computes the hash of the keys at the position, in the same way as {@link InterpretedHashGenerator}.
+     */
+    long hashRow(Block[] blocks, int position);
+
+    boolean rowEquals(LongBigArray rows, long rowOffset, FlatKeyArena arena, Block[] blocks, int position);
+
+    void storeRow(LongBigArray rows, long rowOffset, FlatKeyArena arena, Block[] blocks, int position);
+
+    void appendRow(LongBigArray rows, long rowOffset, FlatKeyArena arena, PageBuilder pageBuilder, int outputChannelOffset);
+}
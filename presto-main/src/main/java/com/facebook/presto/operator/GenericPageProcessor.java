@@ -35,6 +35,9 @@ import java.util.Map;
 import java.util.Set;
 import java.util.stream.IntStream;
 
+import static com.facebook.presto.operator.LazyPages.allPositions;
+import static com.facebook.presto.operator.LazyPages.hasSelectiveLazyBlocks;
+import static com.facebook.presto.operator.LazyPages.selectPositions;
 import static com.facebook.presto.spi.block.DictionaryId.randomDictionaryId;
 import static com.google.common.base.Verify.verify;
 import static com.google.common.collect.Iterables.getOnlyElement;
@@ -92,6 +95,12 @@ public class GenericPageProcessor
             return new Page(selectedPositions.length);
         }
 
+        if (selectedPositions.length < page.getPositionCount() && hasSelectiveLazyBlocks(page)) {
+            // only load the rows which passed the filter from the remaining lazy blocks
+            page = selectPositions(page, selectedPositions, selectedPositions.length);
+            selectedPositions = allPositions(selectedPositions.length);
+        }
+
         PageBuilder pageBuilder = new PageBuilder(types);
         Block[] inputBlocks = page.getBlocks();
 
@@ -46,6 +46,9 @@ public interface GroupByHash
         if (hashTypes.size() == 1 && hashTypes.get(0).equals(BIGINT) && hashChannels.length == 1) {
             return new BigintGroupByHash(hashChannels[0], inputHashChannel.isPresent(), expectedSize);
         }
+        if (hashChannels.length > 1 && FlatGroupByHash.isSupported(hashTypes)) {
+            return new FlatGroupByHash(hashTypes, hashChannels, inputHashChannel, expectedSize);
+        }
         return new MultiChannelGroupByHash(hashTypes, hashChannels, inputHashChannel, expectedSize, processDictionary);
     }
 
@@ -17,6 +17,7 @@ import com.facebook.presto.operator.aggregation.Accumulator;
 import com.facebook.presto.operator.aggregation.AccumulatorFactory;
 import com.facebook.presto.operator.aggregation.builder.HashAggregationBuilder;
 import com.facebook.presto.operator.aggregation.builder.InMemoryHashAggregationBuilder;
+import com.facebook.presto.operator.aggregation.builder.PassThroughHashAggregationBuilder;
 import com.facebook.presto.operator.aggregation.builder.SpillableHashAggregationBuilder;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
@@ -37,6 +38,7 @@ import java.util.Optional;
 import java.util.stream.Collectors;
 
 import static com.facebook.presto.operator.aggregation.builder.InMemoryHashAggregationBuilder.toTypes;
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static io.airlift.concurrent.MoreFutures.toListenableFuture;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
@@ -67,6 +69,7 @@ public class HashAggregationOperator
         private final DataSize memoryLimitBeforeSpill;
         private final DataSize memoryLimitForMergeWithMemory;
         private final SpillerFactory spillerFactory;
+        private final Optional<PartialAggregationController> partialAggregationController;
 
         private boolean closed;
 
@@ -127,6 +130,40 @@ public class HashAggregationOperator
                 boolean spillEnabled,
                 DataSize memoryLimitBeforeSpill,
                 SpillerFactory spillerFactory)
+        {
+            this(operatorId,
+                    planNodeId,
+                    groupByTypes,
+                    groupByChannels,
+                    globalAggregationGroupIds,
+                    step,
+                    accumulatorFactories,
+                    hashChannel,
+                    groupIdChannel,
+                    expectedGroups,
+                    maxPartialMemory,
+                    spillEnabled,
+                    memoryLimitBeforeSpill,
+                    spillerFactory,
+                    Optional.empty());
+        }
+
+        public HashAggregationOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<? extends Type> groupByTypes,
+                List<Integer> groupByChannels,
+                List<Integer> globalAggregationGroupIds,
+                Step step,
+                List<AccumulatorFactory> accumulatorFactories,
+                Optional<Integer> hashChannel,
+                Optional<Integer> groupIdChannel,
+                int expectedGroups,
+                DataSize maxPartialMemory,
+                boolean spillEnabled,
+                DataSize memoryLimitBeforeSpill,
+                SpillerFactory spillerFactory,
+                Optional<PartialAggregationController> partialAggregationController)
         {
             this(operatorId,
                     planNodeId,
@@ -142,7 +179,8 @@ public class HashAggregationOperator
                     spillEnabled,
                     memoryLimitBeforeSpill,
                     DataSize.succinctBytes((long) (memoryLimitBeforeSpill.toBytes() * MERGE_WITH_MEMORY_RATIO)),
-                    spillerFactory);
+                    spillerFactory,
+                    partialAggregationController);
         }
 
         @VisibleForTesting
@@ -162,6 +200,42 @@ public class HashAggregationOperator
                 DataSize memoryLimitBeforeSpill,
                 DataSize memoryLimitForMergeWithMemory,
                 SpillerFactory spillerFactory)
+        {
+            this(operatorId,
+                    planNodeId,
+                    groupByTypes,
+                    groupByChannels,
+                    globalAggregationGroupIds,
+                    step,
+                    accumulatorFactories,
+                    hashChannel,
+                    groupIdChannel,
+                    expectedGroups,
+                    maxPartialMemory,
+                    spillEnabled,
+                    memoryLimitBeforeSpill,
+                    memoryLimitForMergeWithMemory,
+                    spillerFactory,
+                    Optional.empty());
+        }
+
+        private HashAggregationOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<? extends Type> groupByTypes,
+                List<Integer> groupByChannels,
+                List<Integer> globalAggregationGroupIds,
+                Step step,
+                List<AccumulatorFactory> accumulatorFactories,
+                Optional<Integer> hashChannel,
+                Optional<Integer> groupIdChannel,
+                int expectedGroups,
+                DataSize maxPartialMemory,
+                boolean spillEnabled,
+                DataSize memoryLimitBeforeSpill,
+                DataSize memoryLimitForMergeWithMemory,
+                SpillerFactory spillerFactory,
+                Optional<PartialAggregationController> partialAggregationController)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -178,6 +252,8 @@ public class HashAggregationOperator
             this.memoryLimitBeforeSpill = requireNonNull(memoryLimitBeforeSpill, "memoryLimitBeforeSpill is null");
             this.memoryLimitForMergeWithMemory = requireNonNull(memoryLimitForMergeWithMemory, "memoryLimitForMergeWithMemory is null");
             this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
+            this.partialAggregationController = requireNonNull(partialAggregationController, "partialAggregationController is null");
+            checkArgument(!partialAggregationController.isPresent() || (step.isInputRaw() && step.isOutputPartial()), "partialAggregationController is only supported for partial aggregations");
 
             this.types = toTypes(groupByTypes, step, accumulatorFactories, hashChannel);
         }
@@ -208,7 +284,8 @@ public class HashAggregationOperator
                     spillEnabled,
                     memoryLimitBeforeSpill,
                     memoryLimitForMergeWithMemory,
-                    spillerFactory);
+                    spillerFactory,
+                    partialAggregationController);
             return hashAggregationOperator;
         }
 
@@ -236,7 +313,8 @@ public class HashAggregationOperator
                     spillEnabled,
                     memoryLimitBeforeSpill,
                     memoryLimitForMergeWithMemory,
-                    spillerFactory);
+                    spillerFactory,
+                    partialAggregationController);
         }
     }
 
@@ -254,10 +332,14 @@ public class HashAggregationOperator
     private final DataSize memoryLimitBeforeSpill;
     private final DataSize memoryLimitForMergeWithMemory;
     private final SpillerFactory spillerFactory;
+    private final Optional<PartialAggregationController> partialAggregationController;
 
     private final List<Type> types;
 
     private HashAggregationBuilder aggregationBuilder;
+    // the aggregation builder is flushed because partial aggregation has been disabled
+    private boolean flushRequested;
+    private boolean windowReported;
     private Iterator<Page> outputIterator;
     private boolean inputProcessed;
     private boolean finishing;
@@ -277,7 +359,8 @@ public class HashAggregationOperator
             boolean spillEnabled,
             DataSize memoryLimitBeforeSpill,
             DataSize memoryLimitForMergeWithMemory,
-            SpillerFactory spillerFactory)
+            SpillerFactory spillerFactory,
+            Optional<PartialAggregationController> partialAggregationController)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
         requireNonNull(step, "step is null");
@@ -298,6 +381,7 @@ public class HashAggregationOperator
         this.memoryLimitBeforeSpill = requireNonNull(memoryLimitBeforeSpill, "memoryLimitBeforeSpill is null");
         this.memoryLimitForMergeWithMemory = requireNonNull(memoryLimitForMergeWithMemory, "memoryLimitForMergeWithMemory is null");
         this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
+        this.partialAggregationController = requireNonNull(partialAggregationController, "partialAggregationController is null");
     }
 
     @Override
@@ -333,13 +417,30 @@ public class HashAggregationOperator
         return NOT_BLOCKED;
     }
 
+    @Override
+    public ListenableFuture<?> startMemoryRevoking()
+    {
+        if (aggregationBuilder instanceof SpillableHashAggregationBuilder) {
+            return toListenableFuture(((SpillableHashAggregationBuilder) aggregationBuilder).startMemoryRevoke());
+        }
+        return NOT_BLOCKED;
+    }
+
+    @Override
+    public void finishMemoryRevoke()
+    {
+        if (aggregationBuilder instanceof SpillableHashAggregationBuilder) {
+            ((SpillableHashAggregationBuilder) aggregationBuilder).finishMemoryRevoke();
+        }
+    }
+
     @Override
     public boolean needsInput()
     {
         if (finishing || outputIterator != null) {
             return false;
         }
-        else if (aggregationBuilder != null && aggregationBuilder.isFull()) {
+        else if (isAggregationBuilderFull()) {
             return false;
         }
         else {
@@ -355,7 +456,14 @@ public class HashAggregationOperator
         inputProcessed = true;
 
         if (aggregationBuilder == null) {
-            if (step.isOutputPartial() || !spillEnabled) {
+            if (isPartialAggregationDisabled()) {
+                aggregationBuilder = new PassThroughHashAggregationBuilder(
+                        accumulatorFactories,
+                        groupByChannels,
+                        hashChannel,
+                        operatorContext);
+            }
+            else if (step.isOutputPartial() || !spillEnabled) {
                 aggregationBuilder = new InMemoryHashAggregationBuilder(
                         accumulatorFactories,
                         step,
@@ -383,10 +491,38 @@ public class HashAggregationOperator
             // assume initial aggregationBuilder is not full
         }
         else {
-            checkState(!aggregationBuilder.isFull(), "Aggregation buffer is full");
+            checkState(!isAggregationBuilderFull(), "Aggregation buffer is full");
         }
         aggregationBuilder.processPage(page);
         aggregationBuilder.updateMemory();
+
+        if (partialAggregationController.isPresent() && aggregationBuilder instanceof InMemoryHashAggregationBuilder) {
+            updatePartialAggregationController((InMemoryHashAggregationBuilder) aggregationBuilder);
+        }
+    }
+
+    private void updatePartialAggregationController(InMemoryHashAggregationBuilder builder)
+    {
+        PartialAggregationController controller = partialAggregationController.get();
+        if (!windowReported && builder.getInputRowCount() >= controller.getMinRows()) {
+            controller.onWindowProcessed(builder.getInputRowCount(), builder.getGroupCount());
+            windowReported = true;
+        }
+
+        // flush the groups aggregated so far, and pass the following input through
+        if (controller.isPartialAggregationDisabled()) {
+            flushRequested = true;
+        }
+    }
+
+    private boolean isPartialAggregationDisabled()
+    {
+        return partialAggregationController.isPresent() && partialAggregationController.get().isPartialAggregationDisabled();
+    }
+
+    private boolean isAggregationBuilderFull()
+    {
+        return aggregationBuilder != null && (flushRequested || aggregationBuilder.isFull());
     }
 
     @Override
@@ -414,7 +550,7 @@ public class HashAggregationOperator
             }
 
             // only flush if we are finishing or the aggregation builder is full
-            if (!finishing && (aggregationBuilder == null || !aggregationBuilder.isFull())) {
+            if (!finishing && !isAggregationBuilderFull()) {
                 return null;
             }
 
@@ -443,6 +579,8 @@ public class HashAggregationOperator
     private void closeAggregationBuilder()
     {
         outputIterator = null;
+        flushRequested = false;
+        windowReported = false;
         if (aggregationBuilder != null) {
             aggregationBuilder.close();
             aggregationBuilder = null;
@@ -15,22 +15,37 @@ package com.facebook.presto.operator;
 
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.Spiller;
+import com.facebook.presto.spiller.SpillerFactory;
 import com.facebook.presto.sql.gen.JoinFilterFunctionCompiler.JoinFilterFunctionFactory;
 import com.facebook.presto.sql.planner.Symbol;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.concurrent.MoreFutures;
+import io.airlift.units.DataSize;
 
 import javax.annotation.concurrent.ThreadSafe;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.function.Supplier;
 
+import static com.facebook.presto.SystemSessionProperties.getHashBuildConcurrency;
+import static com.facebook.presto.spiller.DisabledSpillerFactory.DISABLED_SPILLER_FACTORY;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static io.airlift.concurrent.MoreFutures.firstCompletedFuture;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
+import static io.airlift.concurrent.MoreFutures.toCompletableFuture;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.util.Objects.requireNonNull;
 
 @ThreadSafe
@@ -49,6 +64,13 @@ public class HashBuilderOperator
 
         private final int expectedPositions;
 
+        private final boolean spillEnabled;
+        private final DataSize memoryLimitBeforeSpill;
+        private final SpillerFactory spillerFactory;
+
+        private final Optional<DynamicFilter> dynamicFilter;
+        private final Executor hashBuildExecutor;
+
         private int partitionIndex;
         private boolean closed;
 
@@ -63,6 +85,102 @@ public class HashBuilderOperator
                 Optional<JoinFilterFunctionFactory> filterFunctionFactory,
                 int expectedPositions,
                 int partitionCount)
+        {
+            this(operatorId,
+                    planNodeId,
+                    types,
+                    layout,
+                    hashChannels,
+                    preComputedHashChannel,
+                    outer,
+                    filterFunctionFactory,
+                    expectedPositions,
+                    partitionCount,
+                    false,
+                    new DataSize(0, MEGABYTE),
+                    DISABLED_SPILLER_FACTORY);
+        }
+
+        public HashBuilderOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<Type> types,
+                Map<Symbol, Integer> layout,
+                List<Integer> hashChannels,
+                Optional<Integer> preComputedHashChannel,
+                boolean outer,
+                Optional<JoinFilterFunctionFactory> filterFunctionFactory,
+                int expectedPositions,
+                int partitionCount,
+                boolean spillEnabled,
+                DataSize memoryLimitBeforeSpill,
+                SpillerFactory spillerFactory)
+        {
+            this(operatorId,
+                    planNodeId,
+                    types,
+                    layout,
+                    hashChannels,
+                    preComputedHashChannel,
+                    outer,
+                    filterFunctionFactory,
+                    expectedPositions,
+                    partitionCount,
+                    spillEnabled,
+                    memoryLimitBeforeSpill,
+                    spillerFactory,
+                    Optional.empty());
+        }
+
+        public HashBuilderOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<Type> types,
+                Map<Symbol, Integer> layout,
+                List<Integer> hashChannels,
+                Optional<Integer> preComputedHashChannel,
+                boolean outer,
+                Optional<JoinFilterFunctionFactory> filterFunctionFactory,
+                int expectedPositions,
+                int partitionCount,
+                boolean spillEnabled,
+                DataSize memoryLimitBeforeSpill,
+                SpillerFactory spillerFactory,
+                Optional<DynamicFilter> dynamicFilter)
+        {
+            this(operatorId,
+                    planNodeId,
+                    types,
+                    layout,
+                    hashChannels,
+                    preComputedHashChannel,
+                    outer,
+                    filterFunctionFactory,
+                    expectedPositions,
+                    partitionCount,
+                    spillEnabled,
+                    memoryLimitBeforeSpill,
+                    spillerFactory,
+                    dynamicFilter,
+                    directExecutor());
+        }
+
+        public HashBuilderOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<Type> types,
+                Map<Symbol, Integer> layout,
+                List<Integer> hashChannels,
+                Optional<Integer> preComputedHashChannel,
+                boolean outer,
+                Optional<JoinFilterFunctionFactory> filterFunctionFactory,
+                int expectedPositions,
+                int partitionCount,
+                boolean spillEnabled,
+                DataSize memoryLimitBeforeSpill,
+                SpillerFactory spillerFactory,
+                Optional<DynamicFilter> dynamicFilter,
+                Executor hashBuildExecutor)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -80,6 +198,15 @@ public class HashBuilderOperator
             this.filterFunctionFactory = requireNonNull(filterFunctionFactory, "filterFunctionFactory is null");
 
             this.expectedPositions = expectedPositions;
+
+            // build side rows of outer joins have to be tracked for the whole join, so they are never spilled
+            this.spillEnabled = spillEnabled && !outer;
+            this.memoryLimitBeforeSpill = requireNonNull(memoryLimitBeforeSpill, "memoryLimitBeforeSpill is null");
+            this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
+
+            this.dynamicFilter = requireNonNull(dynamicFilter, "dynamicFilter is null");
+            dynamicFilter.ifPresent(filter -> filter.setPartitionCount(partitionCount));
+            this.hashBuildExecutor = requireNonNull(hashBuildExecutor, "hashBuildExecutor is null");
         }
 
         public LookupSourceFactory getLookupSourceFactory()
@@ -105,7 +232,12 @@ public class HashBuilderOperator
                     hashChannels,
                     preComputedHashChannel,
                     filterFunctionFactory,
-                    expectedPositions);
+                    expectedPositions,
+                    spillEnabled,
+                    memoryLimitBeforeSpill,
+                    spillerFactory,
+                    dynamicFilter.map(filter -> filter.createCollector(lookupSourceFactory.getTypes(), hashChannels)),
+                    hashBuildExecutor);
 
             partitionIndex++;
             return operator;
@@ -124,6 +256,8 @@ public class HashBuilderOperator
         }
     }
 
+    private static final int MIN_POSITIONS_PER_BUILD_THREAD = 256 * 1024;
+
     private final OperatorContext operatorContext;
     private final PartitionedLookupSourceFactory lookupSourceFactory;
     private final int partitionIndex;
@@ -131,8 +265,26 @@ public class HashBuilderOperator
     private final List<Integer> hashChannels;
     private final Optional<Integer> preComputedHashChannel;
     private final Optional<JoinFilterFunctionFactory> filterFunctionFactory;
+    private final int expectedPositions;
+    private final int hashBuildConcurrency;
+    private final Executor hashBuildExecutor;
+
+    private final boolean spillEnabled;
+    private final long memoryLimitBeforeSpill;
+    private final SpillerFactory spillerFactory;
+
+    private final Optional<DynamicFilterCollector> dynamicFilterCollector;
+
+    private PagesIndex index;
+
+    // created when the first spill partition of this operator is spilled
+    private JoinPartitionSpiller spiller;
+    private int spilledPartitionCount;
+    private CompletableFuture<?> spillInProgress = CompletableFuture.completedFuture(null);
 
-    private final PagesIndex index;
+    // spilled partitions of this operator, which are loaded back on request of the probe side
+    private final List<SpilledLookupSourcePartition> spilledPartitions = new ArrayList<>();
+    private long inMemoryPartitionBytes;
 
     private boolean finishing;
 
@@ -143,17 +295,30 @@ public class HashBuilderOperator
             List<Integer> hashChannels,
             Optional<Integer> preComputedHashChannel,
             Optional<JoinFilterFunctionFactory> filterFunctionFactory,
-            int expectedPositions)
+            int expectedPositions,
+            boolean spillEnabled,
+            DataSize memoryLimitBeforeSpill,
+            SpillerFactory spillerFactory,
+            Optional<DynamicFilterCollector> dynamicFilterCollector,
+            Executor hashBuildExecutor)
     {
         this.operatorContext = operatorContext;
         this.partitionIndex = partitionIndex;
         this.filterFunctionFactory = filterFunctionFactory;
+        this.expectedPositions = expectedPositions;
+        this.hashBuildConcurrency = getHashBuildConcurrency(operatorContext.getSession());
+        this.hashBuildExecutor = requireNonNull(hashBuildExecutor, "hashBuildExecutor is null");
 
         this.index = new PagesIndex(lookupSourceFactory.getTypes(), expectedPositions);
         this.lookupSourceFactory = lookupSourceFactory;
 
         this.hashChannels = hashChannels;
         this.preComputedHashChannel = preComputedHashChannel;
+
+        this.spillEnabled = spillEnabled && memoryLimitBeforeSpill.toBytes() > 0;
+        this.memoryLimitBeforeSpill = memoryLimitBeforeSpill.toBytes();
+        this.spillerFactory = spillerFactory;
+        this.dynamicFilterCollector = requireNonNull(dynamicFilterCollector, "dynamicFilterCollector is null");
     }
 
     @Override
@@ -172,14 +337,83 @@ public class HashBuilderOperator
     public void finish()
     {
         if (finishing) {
+            // the driver keeps calling finish while the probe side uses the lookup source
+            updateSpilledPartitions();
             return;
         }
         finishing = true;
 
-        Supplier<LookupSource> partition = index.createLookupSourceSupplier(operatorContext.getSession(), hashChannels, preComputedHashChannel, filterFunctionFactory);
-        lookupSourceFactory.setPartitionLookupSourceSupplier(partitionIndex, partition);
+        dynamicFilterCollector.ifPresent(DynamicFilterCollector::publish);
+
+        if (spiller == null) {
+            Supplier<LookupSource> partition = buildLookupSourceSupplier();
+            lookupSourceFactory.setPartitionLookupSourceSupplier(partitionIndex, partition);
+
+            operatorContext.setMemoryReservation(partition.get().getInMemorySizeInBytes());
+            return;
+        }
+
+        // write the remaining rows of the spilled partitions to disk before handing them over to the probe side
+        getFutureValue(spillInProgress);
+        getFutureValue(spiller.flush());
+
+        ImmutableMap.Builder<Integer, SpilledLookupSourcePartition> spilledPartitions = ImmutableMap.builder();
+        for (Map.Entry<Integer, Spiller> entry : spiller.releaseSpillers().entrySet()) {
+            SpilledLookupSourcePartition spilledPartition = new SpilledLookupSourcePartition(
+                    operatorContext.getSession(),
+                    lookupSourceFactory.getTypes(),
+                    hashChannels,
+                    preComputedHashChannel,
+                    filterFunctionFactory,
+                    expectedPositions,
+                    spillerFactory,
+                    memoryLimitBeforeSpill,
+                    0,
+                    spiller.getSpilledBytes(entry.getKey()),
+                    Optional.of(entry.getValue()));
+            spilledPartitions.put(entry.getKey(), spilledPartition);
+            this.spilledPartitions.add(spilledPartition);
+        }
+        spiller = null;
+
+        Supplier<LookupSource> partition = buildLookupSourceSupplier();
+        lookupSourceFactory.setPartitionLookupSourceSupplier(partitionIndex, partition, spilledPartitions.build());
+
+        inMemoryPartitionBytes = partition.get().getInMemorySizeInBytes();
+        operatorContext.setMemoryReservation(inMemoryPartitionBytes);
+    }
 
-        operatorContext.setMemoryReservation(partition.get().getInMemorySizeInBytes());
+    private void updateSpilledPartitions()
+    {
+        if (spilledPartitions.isEmpty() || lookupSourceFactory.isDestroyed().isDone()) {
+            return;
+        }
+
+        long loadedBytes = 0;
+        for (int i = 0; i < spilledPartitions.size(); i++) {
+            SpilledLookupSourcePartition partition = spilledPartitions.get(i);
+            // sub-partitions are appended to the list and handled in this same loop
+            spilledPartitions.addAll(partition.update());
+            loadedBytes += partition.getLoadedBytes();
+        }
+        operatorContext.setMemoryReservation(inMemoryPartitionBytes + loadedBytes);
+    }
+
+    private Supplier<LookupSource> buildLookupSourceSupplier()
+    {
+        // large hash tables are built by several threads, so that a few big partitions do not hold up the probe side
+        int buildConcurrency = Math.min(hashBuildConcurrency, Math.max(1, index.getPositionCount() / MIN_POSITIONS_PER_BUILD_THREAD));
+
+        long start = System.nanoTime();
+        Supplier<LookupSource> partition = index.createLookupSourceSupplier(
+                operatorContext.getSession(),
+                hashChannels,
+                preComputedHashChannel,
+                filterFunctionFactory,
+                hashBuildExecutor,
+                buildConcurrency);
+        operatorContext.recordHashBuild(System.nanoTime() - start);
+        return partition;
     }
 
     @Override
@@ -191,16 +425,29 @@ public class HashBuilderOperator
     @Override
     public boolean needsInput()
     {
-        return !finishing;
+        return !finishing && spillInProgress.isDone();
     }
 
     @Override
     public ListenableFuture<?> isBlocked()
     {
         if (!finishing) {
+            if (!spillInProgress.isDone()) {
+                return MoreFutures.toListenableFuture(spillInProgress);
+            }
             return NOT_BLOCKED;
         }
-        return MoreFutures.toListenableFuture(lookupSourceFactory.isDestroyed());
+        if (spilledPartitions.isEmpty()) {
+            return MoreFutures.toListenableFuture(lookupSourceFactory.isDestroyed());
+        }
+
+        // wake up when the probe side requests a spilled partition or releases a loaded one
+        ImmutableList.Builder<CompletableFuture<?>> futures = ImmutableList.builder();
+        futures.add(lookupSourceFactory.isDestroyed());
+        for (SpilledLookupSourcePartition partition : spilledPartitions) {
+            futures.add(toCompletableFuture(partition.getRequestsChanged()));
+        }
+        return MoreFutures.toListenableFuture(firstCompletedFuture(futures.build(), true));
     }
 
     @Override
@@ -208,13 +455,27 @@ public class HashBuilderOperator
     {
         requireNonNull(page, "page is null");
         checkState(!isFinished(), "Operator is already finished");
+        checkState(spillInProgress.isDone(), "Previous spill hasn't yet finished");
+        // check for exception from previous spill for early failure
+        getFutureValue(spillInProgress);
 
+        operatorContext.recordGeneratedOutput(page.getSizeInBytes(), page.getPositionCount());
+
+        if (dynamicFilterCollector.isPresent()) {
+            dynamicFilterCollector.get().addPage(page);
+        }
+        if (spiller != null) {
+            page = spiller.partitionPage(page);
+        }
         index.addPage(page);
-        if (!operatorContext.trySetMemoryReservation(index.getEstimatedSize().toBytes())) {
+
+        if (!operatorContext.trySetMemoryReservation(getSizeInMemory())) {
             index.compact();
         }
-        operatorContext.setMemoryReservation(index.getEstimatedSize().toBytes());
-        operatorContext.recordGeneratedOutput(page.getSizeInBytes(), page.getPositionCount());
+        if (spillEnabled && getSizeInMemory() > memoryLimitBeforeSpill) {
+            spillToDisk();
+        }
+        operatorContext.setMemoryReservation(getSizeInMemory());
     }
 
     @Override
@@ -222,4 +483,50 @@ public class HashBuilderOperator
     {
         return null;
     }
+
+    @Override
+    public void close()
+    {
+        if (spiller != null) {
+            spiller.close();
+            spiller = null;
+        }
+        // the lookup source factory closes only the partitions spilled by the build, not their sub-partitions
+        spilledPartitions.forEach(SpilledLookupSourcePartition::close);
+        spilledPartitions.clear();
+    }
+
+    private long getSizeInMemory()
+    {
+        long size = index.getEstimatedSize().toBytes();
+        if (spiller != null) {
+            size += spiller.getBufferedBytes();
+        }
+        return size;
+    }
+
+    private void spillToDisk()
+    {
+        int spillPartitionCount = lookupSourceFactory.getSpillPartitionCount();
+        int partitionCount = lookupSourceFactory.getPartitionCount();
+        if (spiller == null) {
+            spiller = new JoinPartitionSpiller(lookupSourceFactory.getTypes(), hashChannels, preComputedHashChannel, spillPartitionCount, spillerFactory);
+        }
+
+        // spill partitions owned by this operator are the ones which map to its lookup source partition;
+        // they are spilled one at a time, so the rest of the partition stays in memory
+        if (spilledPartitionCount < spillPartitionCount / partitionCount) {
+            spiller.markSpilled(partitionIndex + partitionCount * spilledPartitionCount);
+            spilledPartitionCount++;
+
+            PagesIndex inMemoryIndex = index;
+            index = new PagesIndex(lookupSourceFactory.getTypes(), expectedPositions);
+            Iterator<Page> pages = inMemoryIndex.getPages();
+            while (pages.hasNext()) {
+                index.addPage(spiller.partitionPage(pages.next()));
+            }
+        }
+
+        spillInProgress = spiller.flush();
+    }
 }
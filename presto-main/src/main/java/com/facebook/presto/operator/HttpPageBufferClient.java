@@ -13,6 +13,8 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.block.PageCompressionCodec;
+import com.facebook.presto.block.PagesSerde.CompressedPagesReader;
 import com.facebook.presto.spi.HostAddress;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PrestoException;
@@ -57,9 +59,11 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static com.facebook.presto.PrestoMediaTypes.PRESTO_PAGES_TYPE;
+import static com.facebook.presto.block.PagesSerde.readCompressedPages;
 import static com.facebook.presto.block.PagesSerde.readPages;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_BUFFER_COMPLETE;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_MAX_SIZE;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_COMPRESSION;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_NEXT_TOKEN;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_TOKEN;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_TASK_INSTANCE_ID;
@@ -115,6 +119,7 @@ public final class HttpPageBufferClient
     private final URI location;
     private final ClientCallback clientCallback;
     private final BlockEncodingSerde blockEncodingSerde;
+    private final PageCompressionCodec compressionCodec;
     private final ScheduledExecutorService executor;
 
     @GuardedBy("this")
@@ -143,6 +148,9 @@ public final class HttpPageBufferClient
     private final AtomicLong rowsRejected = new AtomicLong();
     private final AtomicInteger pagesRejected = new AtomicInteger();
 
+    private final AtomicLong compressedPagesReceived = new AtomicLong();
+    private final AtomicLong bytesSavedByCompression = new AtomicLong();
+
     private final AtomicInteger requestsScheduled = new AtomicInteger();
     private final AtomicInteger requestsCompleted = new AtomicInteger();
     private final AtomicInteger requestsFailed = new AtomicInteger();
@@ -154,9 +162,10 @@ public final class HttpPageBufferClient
             URI location,
             ClientCallback clientCallback,
             BlockEncodingSerde blockEncodingSerde,
+            PageCompressionCodec compressionCodec,
             ScheduledExecutorService executor)
     {
-        this(httpClient, maxResponseSize, minErrorDuration, location, clientCallback, blockEncodingSerde, executor, Stopwatch.createUnstarted());
+        this(httpClient, maxResponseSize, minErrorDuration, location, clientCallback, blockEncodingSerde, compressionCodec, executor, Stopwatch.createUnstarted());
     }
 
     public HttpPageBufferClient(
@@ -166,6 +175,7 @@ public final class HttpPageBufferClient
             URI location,
             ClientCallback clientCallback,
             BlockEncodingSerde blockEncodingSerde,
+            PageCompressionCodec compressionCodec,
             ScheduledExecutorService executor,
             Stopwatch errorStopwatch)
     {
@@ -175,6 +185,7 @@ public final class HttpPageBufferClient
         this.location = requireNonNull(location, "location is null");
         this.clientCallback = requireNonNull(clientCallback, "clientCallback is null");
         this.blockEncodingSerde = requireNonNull(blockEncodingSerde, "blockEncodingManager is null");
+        this.compressionCodec = requireNonNull(compressionCodec, "compressionCodec is null");
         this.executor = requireNonNull(executor, "executor is null");
         this.errorStopwatch = requireNonNull(errorStopwatch, "errorStopwatch is null").reset();
     }
@@ -219,6 +230,16 @@ public final class HttpPageBufferClient
                 httpRequestState);
     }
 
+    public long getCompressedPagesReceived()
+    {
+        return compressedPagesReceived.get();
+    }
+
+    public long getBytesSavedByCompression()
+    {
+        return bytesSavedByCompression.get();
+    }
+
     public synchronized boolean isRunning()
     {
         return future != null;
@@ -295,11 +316,13 @@ public final class HttpPageBufferClient
     private synchronized void sendGetResults()
     {
         URI uri = HttpUriBuilder.uriBuilderFrom(location).appendPath(String.valueOf(token)).build();
-        HttpResponseFuture<PagesResponse> resultFuture = httpClient.executeAsync(
-                prepareGet()
-                        .setHeader(PRESTO_MAX_SIZE, maxResponseSize.toString())
-                        .setUri(uri).build(),
-                new PageResponseHandler(blockEncodingSerde));
+        Request.Builder request = prepareGet()
+                .setHeader(PRESTO_MAX_SIZE, maxResponseSize.toString())
+                .setUri(uri);
+        if (compressionCodec != PageCompressionCodec.NONE) {
+            request.setHeader(PRESTO_PAGE_COMPRESSION, compressionCodec.name());
+        }
+        HttpResponseFuture<PagesResponse> resultFuture = httpClient.executeAsync(request.build(), new PageResponseHandler(blockEncodingSerde));
 
         future = resultFuture;
         Futures.addCallback(resultFuture, new FutureCallback<PagesResponse>()
@@ -326,6 +349,8 @@ public final class HttpPageBufferClient
                         if (result.getToken() == token) {
                             pages = result.getPages();
                             token = result.getNextToken();
+                            compressedPagesReceived.addAndGet(result.getCompressedPages());
+                            bytesSavedByCompression.addAndGet(result.getBytesSavedByCompression());
                         }
                         else {
                             pages = ImmutableList.of();
@@ -586,8 +611,15 @@ public final class HttpPageBufferClient
                 boolean complete = getComplete(response);
 
                 try (SliceInput input = new InputStreamSliceInput(response.getInputStream())) {
+                    // pages are framed with a compression header only if the server honored the requested codec;
+                    // a missing or unknown codec, e.g. from a node of another version, means the pages are not framed
+                    if (PageCompressionCodec.fromHeader(response.getHeader(PRESTO_PAGE_COMPRESSION)).isPresent()) {
+                        CompressedPagesReader pagesReader = readCompressedPages(blockEncodingSerde, input);
+                        List<Page> pages = ImmutableList.copyOf(pagesReader);
+                        return createPagesResponse(taskInstanceId, token, nextToken, pages, complete, pagesReader.getCompressedPages(), pagesReader.getBytesSaved());
+                    }
                     List<Page> pages = ImmutableList.copyOf(readPages(blockEncodingSerde, input));
-                    return createPagesResponse(taskInstanceId, token, nextToken, pages, complete);
+                    return createPagesResponse(taskInstanceId, token, nextToken, pages, complete, 0, 0);
                 }
                 catch (IOException e) {
                     throw Throwables.propagate(e);
@@ -647,14 +679,14 @@ public final class HttpPageBufferClient
 
     public static class PagesResponse
     {
-        public static PagesResponse createPagesResponse(String taskInstanceId, long token, long nextToken, Iterable<Page> pages, boolean complete)
+        public static PagesResponse createPagesResponse(String taskInstanceId, long token, long nextToken, Iterable<Page> pages, boolean complete, long compressedPages, long bytesSavedByCompression)
         {
-            return new PagesResponse(taskInstanceId, token, nextToken, pages, complete);
+            return new PagesResponse(taskInstanceId, token, nextToken, pages, complete, compressedPages, bytesSavedByCompression);
         }
 
         public static PagesResponse createEmptyPagesResponse(String taskInstanceId, long token, long nextToken, boolean complete)
         {
-            return new PagesResponse(taskInstanceId, token, nextToken, ImmutableList.<Page>of(), complete);
+            return new PagesResponse(taskInstanceId, token, nextToken, ImmutableList.<Page>of(), complete, 0, 0);
         }
 
         private final String taskInstanceId;
@@ -662,14 +694,18 @@ public final class HttpPageBufferClient
         private final long nextToken;
         private final List<Page> pages;
         private final boolean clientComplete;
+        private final long compressedPages;
+        private final long bytesSavedByCompression;
 
-        private PagesResponse(String taskInstanceId, long token, long nextToken, Iterable<Page> pages, boolean clientComplete)
+        private PagesResponse(String taskInstanceId, long token, long nextToken, Iterable<Page> pages, boolean clientComplete, long compressedPages, long bytesSavedByCompression)
         {
             this.taskInstanceId = taskInstanceId;
             this.token = token;
             this.nextToken = nextToken;
             this.pages = ImmutableList.copyOf(pages);
             this.clientComplete = clientComplete;
+            this.compressedPages = compressedPages;
+            this.bytesSavedByCompression = bytesSavedByCompression;
         }
 
         public long getToken()
@@ -697,6 +733,16 @@ public final class HttpPageBufferClient
             return taskInstanceId;
         }
 
+        public long getCompressedPages()
+        {
+            return compressedPages;
+        }
+
+        public long getBytesSavedByCompression()
+        {
+            return bytesSavedByCompression;
+        }
+
         @Override
         public String toString()
         {
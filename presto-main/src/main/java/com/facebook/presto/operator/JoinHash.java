@@ -78,6 +78,43 @@ public final class JoinHash
         return getNextJoinPositionFrom(addressIndex, position, allChannelsPage);
     }
 
+    @Override
+    public boolean isBatchLookupSupported()
+    {
+        return true;
+    }
+
+    @Override
+    public void getJoinPositions(int[] positions, int positionCount, Page hashChannelsPage, Page allChannelsPage, @Nullable long[] rawHashes, long[] joinPositions)
+    {
+        if (rawHashes == null) {
+            rawHashes = new long[positionCount];
+            for (int i = 0; i < positionCount; i++) {
+                rawHashes[i] = pagesHash.hashRow(positions[i], hashChannelsPage);
+            }
+        }
+
+        int[] addressIndexes = new int[positionCount];
+        pagesHash.getAddressIndexes(positions, positionCount, hashChannelsPage, rawHashes, addressIndexes);
+
+        if (filterFunction == null) {
+            for (int i = 0; i < positionCount; i++) {
+                joinPositions[i] = addressIndexes[i];
+            }
+            return;
+        }
+        for (int i = 0; i < positionCount; i++) {
+            int addressIndex = addressIndexes[i];
+            joinPositions[i] = addressIndex == -1 ? -1 : getNextJoinPositionFrom(addressIndex, positions[i], allChannelsPage);
+        }
+    }
+
+    @Override
+    public boolean hasUniqueJoinKeys()
+    {
+        return pagesHash.hasUniqueKeys();
+    }
+
     @Override
     public final long getNextJoinPosition(long currentJoinPosition, int probePosition, Page allProbeChannelsPage)
     {
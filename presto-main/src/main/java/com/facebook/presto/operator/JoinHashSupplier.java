@@ -20,8 +20,10 @@ import it.unimi.dsi.fastutil.longs.LongArrayList;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 import java.util.function.Supplier;
 
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static java.util.Objects.requireNonNull;
 
 public class JoinHashSupplier
@@ -39,15 +41,28 @@ public class JoinHashSupplier
             LongArrayList addresses,
             List<List<Block>> channels,
             Optional<JoinFilterFunctionFactory> filterFunctionFactory)
+    {
+        this(session, pagesHashStrategy, addresses, channels, filterFunctionFactory, directExecutor(), 1);
+    }
+
+    public JoinHashSupplier(
+            ConnectorSession session,
+            PagesHashStrategy pagesHashStrategy,
+            LongArrayList addresses,
+            List<List<Block>> channels,
+            Optional<JoinFilterFunctionFactory> filterFunctionFactory,
+            Executor buildExecutor,
+            int buildConcurrency)
     {
         requireNonNull(session, "session is null");
         requireNonNull(pagesHashStrategy, "pagesHashStrategy is null");
         requireNonNull(addresses, "addresses is null");
         requireNonNull(channels, "channels is null");
         requireNonNull(filterFunctionFactory, "filterFunctionFactory is null");
+        requireNonNull(buildExecutor, "buildExecutor is null");
 
         this.session = session;
-        this.pagesHash = new PagesHash(addresses, pagesHashStrategy);
+        this.pagesHash = new PagesHash(addresses, pagesHashStrategy, buildExecutor, buildConcurrency);
         this.addresses = addresses;
         this.channels = channels;
         this.filterFunctionFactory = filterFunctionFactory;
@@ -0,0 +1,298 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.operator.exchange.LocalPartitionGenerator;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.Spiller;
+import com.facebook.presto.spiller.SpillerFactory;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterators;
+import com.google.common.primitives.Ints;
+import io.airlift.slice.XxHash64;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static com.facebook.presto.util.ImmutableCollectors.toImmutableList;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Splits join input into spill partitions and writes the rows of the partitions
+ * marked as spilled to disk. Spill partitions are computed with the same hash
+ * mixing as the lookup source partitions, and the spill partition count is a
+ * multiple of the lookup source partition count, so a spill partition always
+ * belongs to exactly one lookup source partition.
+ * <p>
+ * A spill partition which is too large to be loaded back into memory is split
+ * again into sub-partitions at the next level. Sub-partitions are computed from
+ * hash bits which are not used by the lower levels, so the rows of a partition
+ * are spread over all of its sub-partitions.
+ */
+@NotThreadSafe
+public class JoinPartitionSpiller
+        implements AutoCloseable
+{
+    private final List<Type> types;
+    private final LocalPartitionGenerator partitionGenerator;
+    private final int level;
+    private final int partitionBits;
+    private final SpillerFactory spillerFactory;
+
+    private final boolean[] spilled;
+    private final Spiller[] spillers;
+    private final List<Page>[] buffers;
+    private final IntArrayList[] positions;
+    private final long[] spilledBytes;
+    private final IntArrayList inMemoryPositions = new IntArrayList();
+
+    private long bufferedBytes;
+
+    public JoinPartitionSpiller(
+            List<Type> types,
+            List<Integer> hashChannels,
+            Optional<Integer> hashChannel,
+            int partitionCount,
+            SpillerFactory spillerFactory)
+    {
+        this(types, hashChannels, hashChannel, partitionCount, 0, spillerFactory);
+    }
+
+    public JoinPartitionSpiller(
+            List<Type> types,
+            List<Integer> hashChannels,
+            Optional<Integer> hashChannel,
+            int partitionCount,
+            int level,
+            SpillerFactory spillerFactory)
+    {
+        this.types = ImmutableList.copyOf(requireNonNull(types, "types is null"));
+        requireNonNull(hashChannels, "hashChannels is null");
+        requireNonNull(hashChannel, "hashChannel is null");
+        checkArgument(Integer.bitCount(partitionCount) == 1, "partitionCount must be a power of 2");
+        checkArgument(level >= 0, "level is negative");
+        this.level = level;
+        this.partitionBits = Integer.numberOfTrailingZeros(partitionCount);
+        // level 0 partitions by the low 32 bits of the 64 bit mixed hash (see LocalPartitionGenerator),
+        // and deeper levels consume partitionBits each from the top, so they may use the high 32 bits only
+        checkArgument(partitionBits * level <= Long.SIZE - Integer.SIZE, "level is too deep for the partition count");
+        this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
+
+        HashGenerator hashGenerator;
+        if (hashChannel.isPresent()) {
+            hashGenerator = new PrecomputedHashGenerator(hashChannel.get());
+        }
+        else {
+            List<Type> hashChannelTypes = hashChannels.stream()
+                    .map(types::get)
+                    .collect(toImmutableList());
+            hashGenerator = new InterpretedHashGenerator(hashChannelTypes, Ints.toArray(hashChannels));
+        }
+        this.partitionGenerator = new LocalPartitionGenerator(hashGenerator, partitionCount);
+
+        this.spilled = new boolean[partitionCount];
+        this.spillers = new Spiller[partitionCount];
+        //noinspection unchecked
+        this.buffers = (List<Page>[]) new List<?>[partitionCount];
+        this.positions = new IntArrayList[partitionCount];
+        this.spilledBytes = new long[partitionCount];
+    }
+
+    public int getPartitionCount()
+    {
+        return spilled.length;
+    }
+
+    public boolean isSpilled(int partition)
+    {
+        return spilled[partition];
+    }
+
+    public void markSpilled(int partition)
+    {
+        spilled[partition] = true;
+    }
+
+    /**
+     * Size of the spilled rows which are buffered in memory and not yet written to disk.
+     */
+    public long getBufferedBytes()
+    {
+        return bufferedBytes;
+    }
+
+    /**
+     * Buffers the rows belonging to spilled partitions and returns a page with the remaining rows.
+     */
+    public Page partitionPage(Page page)
+    {
+        inMemoryPositions.clear();
+        for (IntArrayList partitionPositions : positions) {
+            if (partitionPositions != null) {
+                partitionPositions.clear();
+            }
+        }
+
+        boolean hasSpilledRows = false;
+        for (int position = 0; position < page.getPositionCount(); position++) {
+            int partition = getPartition(position, page);
+            if (!spilled[partition]) {
+                inMemoryPositions.add(position);
+                continue;
+            }
+            if (positions[partition] == null) {
+                positions[partition] = new IntArrayList();
+            }
+            positions[partition].add(position);
+            hasSpilledRows = true;
+        }
+
+        if (!hasSpilledRows) {
+            return page;
+        }
+
+        for (int partition = 0; partition < positions.length; partition++) {
+            IntArrayList partitionPositions = positions[partition];
+            if (partitionPositions == null || partitionPositions.isEmpty()) {
+                continue;
+            }
+            Page partitionPage = copyPositions(page, partitionPositions);
+            if (buffers[partition] == null) {
+                buffers[partition] = new ArrayList<>();
+            }
+            buffers[partition].add(partitionPage);
+            bufferedBytes += partitionPage.getRetainedSizeInBytes();
+        }
+        return copyPositions(page, inMemoryPositions);
+    }
+
+    /**
+     * Writes all buffered rows to disk. The next flush may only be started once the returned future is done.
+     */
+    public CompletableFuture<?> flush()
+    {
+        List<CompletableFuture<?>> spills = new ArrayList<>();
+        for (int partition = 0; partition < buffers.length; partition++) {
+            List<Page> buffer = buffers[partition];
+            if (buffer == null || buffer.isEmpty()) {
+                continue;
+            }
+            if (spillers[partition] == null) {
+                spillers[partition] = spillerFactory.create(types);
+            }
+            for (Page page : buffer) {
+                spilledBytes[partition] += page.getRetainedSizeInBytes();
+            }
+            spills.add(spillers[partition].spill(ImmutableList.copyOf(buffer).iterator()));
+            buffer.clear();
+        }
+        bufferedBytes = 0;
+        return CompletableFuture.allOf(spills.toArray(new CompletableFuture<?>[spills.size()]));
+    }
+
+    /**
+     * Size of the rows of the partition which were written to disk.
+     */
+    public long getSpilledBytes(int partition)
+    {
+        return spilledBytes[partition];
+    }
+
+    /**
+     * Returns true if any rows of the partition were spilled or buffered.
+     */
+    public boolean hasRows(int partition)
+    {
+        return spillers[partition] != null || (buffers[partition] != null && !buffers[partition].isEmpty());
+    }
+
+    /**
+     * Returns the rows of a partition, both those written to disk and those still buffered in memory.
+     */
+    public Iterator<Page> getPages(int partition)
+    {
+        ImmutableList.Builder<Iterator<Page>> pages = ImmutableList.builder();
+        if (spillers[partition] != null) {
+            pages.addAll(spillers[partition].getSpills());
+        }
+        if (buffers[partition] != null) {
+            pages.add(ImmutableList.copyOf(buffers[partition]).iterator());
+        }
+        return Iterators.concat(pages.build().iterator());
+    }
+
+    /**
+     * Transfers ownership of the spillers to the caller. Must be called after all buffered rows were flushed.
+     */
+    public ImmutableMap<Integer, Spiller> releaseSpillers()
+    {
+        checkState(bufferedBytes == 0, "Spill buffers were not flushed");
+        ImmutableMap.Builder<Integer, Spiller> result = ImmutableMap.builder();
+        for (int partition = 0; partition < spillers.length; partition++) {
+            if (spillers[partition] != null) {
+                result.put(partition, spillers[partition]);
+                spillers[partition] = null;
+            }
+        }
+        return result.build();
+    }
+
+    @Override
+    public void close()
+    {
+        for (int partition = 0; partition < spillers.length; partition++) {
+            if (spillers[partition] != null) {
+                spillers[partition].close();
+                spillers[partition] = null;
+            }
+            buffers[partition] = null;
+        }
+        bufferedBytes = 0;
+    }
+
+    private int getPartition(int position, Page page)
+    {
+        long rawHash = partitionGenerator.getRawHash(position, page);
+        if (level == 0) {
+            return partitionGenerator.getPartition(rawHash);
+        }
+        // the low bits of the mixed hash select the level 0 partition, so they are the same for all rows of the
+        // partition being split; level n uses the n-th group of partitionBits counted from the top of the long
+        long mixedHash = XxHash64.hash(Long.reverse(rawHash));
+        return (int) (mixedHash >>> (Long.SIZE - partitionBits * level)) & (spilled.length - 1);
+    }
+
+    private static Page copyPositions(Page page, IntArrayList positions)
+    {
+        if (positions.size() == page.getPositionCount()) {
+            return page;
+        }
+        Block[] blocks = new Block[page.getChannelCount()];
+        for (int channel = 0; channel < blocks.length; channel++) {
+            blocks[channel] = page.getBlock(channel).copyPositions(positions);
+        }
+        return new Page(positions.size(), blocks);
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.DictionaryBlock;
+import com.facebook.presto.spi.block.LazyBlock;
+import com.facebook.presto.spi.block.RunLengthEncodedBlock;
+import com.facebook.presto.spi.block.SelectiveLazyBlockLoader;
+import io.airlift.slice.Slices;
+
+import java.util.Arrays;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Selects rows of pages without loading the lazy blocks of the page. A lazy block
+ * which is not loaded yet is replaced by a lazy block which only loads the selected
+ * positions, so a connector which supports selective loading never decodes the
+ * values of the rows which were removed by a filter.
+ */
+public final class LazyPages
+{
+    private LazyPages() {}
+
+    /**
+     * Returns true if the page contains a block which is able to load only some of its positions.
+     */
+    public static boolean hasSelectiveLazyBlocks(Page page)
+    {
+        for (Block block : page.getBlocks()) {
+            if (block instanceof LazyBlock && ((LazyBlock) block).isSelectiveLoadSupported()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns a page with the rows at the first {@code positionCount} entries of
+     * {@code positions}, which must be in increasing order. Blocks which are already
+     * loaded are not copied.
+     */
+    public static Page selectPositions(Page page, int[] positions, int positionCount)
+    {
+        requireNonNull(page, "page is null");
+        requireNonNull(positions, "positions is null");
+        if (positionCount == page.getPositionCount()) {
+            return page;
+        }
+
+        // the positions array may be reused by the caller, and the lazy blocks are loaded later
+        int[] selectedPositions = Arrays.copyOf(positions, positionCount);
+        Block[] blocks = new Block[page.getChannelCount()];
+        for (int channel = 0; channel < blocks.length; channel++) {
+            blocks[channel] = selectPositions(page.getBlock(channel), selectedPositions);
+        }
+        return new Page(positionCount, blocks);
+    }
+
+    /**
+     * Returns the positions of all rows of a page with the specified number of rows.
+     */
+    public static int[] allPositions(int positionCount)
+    {
+        int[] positions = new int[positionCount];
+        for (int position = 0; position < positionCount; position++) {
+            positions[position] = position;
+        }
+        return positions;
+    }
+
+    private static Block selectPositions(Block block, int[] positions)
+    {
+        if (block instanceof LazyBlock && !((LazyBlock) block).isLoaded()) {
+            LazyBlock lazyBlock = (LazyBlock) block;
+            if (lazyBlock.isSelectiveLoadSupported()) {
+                return new LazyBlock(positions.length, new SelectedPositionsLoader(lazyBlock, positions));
+            }
+            return new LazyBlock(positions.length, selectedBlock -> selectedBlock.setBlock(lazyBlock.loadPositions(positions, positions.length)));
+        }
+        if (block instanceof LazyBlock) {
+            block = ((LazyBlock) block).getBlock();
+        }
+
+        if (block instanceof RunLengthEncodedBlock) {
+            return new RunLengthEncodedBlock(((RunLengthEncodedBlock) block).getValue(), positions.length);
+        }
+        if (block instanceof DictionaryBlock) {
+            // select the ids instead of creating a dictionary of a dictionary
+            DictionaryBlock dictionaryBlock = (DictionaryBlock) block;
+            int[] ids = new int[positions.length];
+            for (int i = 0; i < positions.length; i++) {
+                ids[i] = dictionaryBlock.getId(positions[i]);
+            }
+            return new DictionaryBlock(positions.length, dictionaryBlock.getDictionary(), Slices.wrappedIntArray(ids), dictionaryBlock.getDictionarySourceId());
+        }
+        return new DictionaryBlock(positions.length, block, Slices.wrappedIntArray(positions));
+    }
+
+    private static class SelectedPositionsLoader
+            implements SelectiveLazyBlockLoader<LazyBlock>
+    {
+        private final LazyBlock sourceBlock;
+        private final int[] sourcePositions;
+
+        public SelectedPositionsLoader(LazyBlock sourceBlock, int[] sourcePositions)
+        {
+            this.sourceBlock = requireNonNull(sourceBlock, "sourceBlock is null");
+            this.sourcePositions = requireNonNull(sourcePositions, "sourcePositions is null");
+        }
+
+        @Override
+        public void load(LazyBlock block)
+        {
+            block.setBlock(sourceBlock.loadPositions(sourcePositions, sourcePositions.length));
+        }
+
+        @Override
+        public Block load(LazyBlock block, int[] positions, int positionCount)
+        {
+            int[] selectedPositions = new int[positionCount];
+            for (int i = 0; i < positionCount; i++) {
+                selectedPositions[i] = sourcePositions[positions[i]];
+            }
+            return sourceBlock.loadPositions(selectedPositions, positionCount);
+        }
+    }
+}
@@ -14,19 +14,35 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.operator.LookupJoinOperators.JoinType;
+import com.facebook.presto.operator.SpilledLookupSourcePartition.UnspilledPartition;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.util.concurrent.ListenableFuture;
 
 import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import static com.facebook.presto.operator.LookupJoinOperators.JoinType.FULL_OUTER;
 import static com.facebook.presto.operator.LookupJoinOperators.JoinType.PROBE_OUTER;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
+import static io.airlift.concurrent.MoreFutures.toListenableFuture;
 import static io.airlift.concurrent.MoreFutures.tryGetFutureValue;
+import static java.util.Collections.emptyIterator;
 import static java.util.Objects.requireNonNull;
 
 public class LookupJoinOperator
@@ -34,6 +50,10 @@ public class LookupJoinOperator
 {
     private final OperatorContext operatorContext;
     private final List<Type> types;
+    private final List<Type> probeTypes;
+    private final List<Integer> probeJoinChannels;
+    private final Optional<Integer> probeHashChannel;
+    private final LookupSourceFactory lookupSourceFactory;
     private final ListenableFuture<? extends LookupSource> lookupSourceFuture;
     private final JoinProbeFactory joinProbeFactory;
     private final Runnable onClose;
@@ -44,26 +64,52 @@ public class LookupJoinOperator
 
     private LookupSource lookupSource;
     private JoinProbe probe;
+    // first join position of every row of the probe page, or null if the lookup source can not look them up in a batch
+    private long[] probeJoinPositions;
+    // every probe row has at most one join position
+    private boolean uniqueJoinKeys;
 
     private boolean closed;
     private boolean finishing;
     private long joinPosition = -1;
 
+    // spilled build partitions, known once the lookup source is available
+    private Map<Integer, SpilledLookupSourcePartition> spilledPartitions;
+    // probe rows of the spilled build partitions, joined once all other probe rows are processed
+    private JoinPartitionSpiller spiller;
+    private CompletableFuture<?> spillInProgress = CompletableFuture.completedFuture(null);
+    // spilled partitions which still have to be joined, in order
+    private Deque<PendingPartition> pendingPartitions;
+    // partition whose lookup source is requested or in use
+    private SpilledLookupSourcePartition acquiredPartition;
+    private ListenableFuture<UnspilledPartition> unspilledPartition;
+    private Iterator<Page> unspilledProbePages = emptyIterator();
+    // probe rows of spilled partitions which were split because they did not fit in memory
+    private final List<JoinPartitionSpiller> subPartitionSpillers = new ArrayList<>();
+
     public LookupJoinOperator(
             OperatorContext operatorContext,
             List<Type> types,
+            List<Type> probeTypes,
+            List<Integer> probeJoinChannels,
+            Optional<Integer> probeHashChannel,
             JoinType joinType,
+            LookupSourceFactory lookupSourceFactory,
             ListenableFuture<LookupSource> lookupSourceFuture,
             JoinProbeFactory joinProbeFactory,
             Runnable onClose)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
         this.types = ImmutableList.copyOf(requireNonNull(types, "types is null"));
+        this.probeTypes = ImmutableList.copyOf(requireNonNull(probeTypes, "probeTypes is null"));
+        this.probeJoinChannels = ImmutableList.copyOf(requireNonNull(probeJoinChannels, "probeJoinChannels is null"));
+        this.probeHashChannel = requireNonNull(probeHashChannel, "probeHashChannel is null");
 
         requireNonNull(joinType, "joinType is null");
         // Cannot use switch case here, because javac will synthesize an inner class and cause IllegalAccessError
         probeOnOuterSide = joinType == PROBE_OUTER || joinType == FULL_OUTER;
 
+        this.lookupSourceFactory = requireNonNull(lookupSourceFactory, "lookupSourceFactory is null");
         this.lookupSourceFuture = requireNonNull(lookupSourceFuture, "lookupSourceFuture is null");
         this.joinProbeFactory = requireNonNull(joinProbeFactory, "joinProbeFactory is null");
         this.onClose = requireNonNull(onClose, "onClose is null");
@@ -92,7 +138,7 @@ public class LookupJoinOperator
     @Override
     public boolean isFinished()
     {
-        boolean finished = finishing && probe == null && pageBuilder.isEmpty();
+        boolean finished = finishing && probe == null && pageBuilder.isEmpty() && isUnspillFinished();
 
         // if finished drop references so memory is freed early
         if (finished) {
@@ -104,6 +150,12 @@ public class LookupJoinOperator
     @Override
     public ListenableFuture<?> isBlocked()
     {
+        if (!spillInProgress.isDone()) {
+            return toListenableFuture(spillInProgress);
+        }
+        if (unspilledPartition != null && !unspilledPartition.isDone()) {
+            return unspilledPartition;
+        }
         return lookupSourceFuture;
     }
 
@@ -116,8 +168,11 @@ public class LookupJoinOperator
 
         if (lookupSource == null) {
             lookupSource = tryGetFutureValue(lookupSourceFuture).orElse(null);
+            if (lookupSource != null) {
+                spilledPartitions = lookupSourceFactory.getSpilledPartitions();
+            }
         }
-        return lookupSource != null && probe == null;
+        return lookupSource != null && probe == null && spillInProgress.isDone();
     }
 
     @Override
@@ -127,12 +182,17 @@ public class LookupJoinOperator
         checkState(!finishing, "Operator is finishing");
         checkState(lookupSource != null, "Lookup source has not been built yet");
         checkState(probe == null, "Current page has not been completely processed yet");
+        // check for exception from previous spill for early failure
+        getFutureValue(spillInProgress);
 
-        // create probe
-        probe = joinProbeFactory.createJoinProbe(lookupSource, page);
+        if (!spilledPartitions.isEmpty()) {
+            page = spillProbeRows(page);
+            if (page.getPositionCount() == 0) {
+                return;
+            }
+        }
 
-        // initialize to invalid join position to force output code to advance the cursors
-        joinPosition = -1;
+        createProbe(page);
     }
 
     @Override
@@ -142,6 +202,14 @@ public class LookupJoinOperator
             return null;
         }
 
+        if (finishing && probe == null && spiller != null) {
+            if (!spillInProgress.isDone()) {
+                return null;
+            }
+            getFutureValue(spillInProgress);
+            unspillNextProbePage();
+        }
+
         // join probe page with the lookup source
         if (probe != null) {
             while (joinCurrentPosition()) {
@@ -155,7 +223,7 @@ public class LookupJoinOperator
         }
 
         // only flush full pages unless we are done
-        if (pageBuilder.isFull() || (finishing && !pageBuilder.isEmpty() && probe == null)) {
+        if (pageBuilder.isFull() || (finishing && !pageBuilder.isEmpty() && probe == null && isUnspillFinished())) {
             Page page = pageBuilder.build();
             pageBuilder.reset();
             return page;
@@ -173,7 +241,20 @@ public class LookupJoinOperator
         }
         closed = true;
         probe = null;
+        probeJoinPositions = null;
         pageBuilder.reset();
+        unspilledProbePages = emptyIterator();
+        if (acquiredPartition != null) {
+            acquiredPartition.release();
+            acquiredPartition = null;
+        }
+        unspilledPartition = null;
+        if (spiller != null) {
+            spiller.close();
+            spiller = null;
+        }
+        subPartitionSpillers.forEach(JoinPartitionSpiller::close);
+        subPartitionSpillers.clear();
         onClose.run();
         // closing lookup source is only here for index join
         if (lookupSource != null) {
@@ -181,6 +262,184 @@ public class LookupJoinOperator
         }
     }
 
+    private Page spillProbeRows(Page page)
+    {
+        if (spiller == null) {
+            SpilledLookupSourcePartition anyPartition = spilledPartitions.values().iterator().next();
+            spiller = new JoinPartitionSpiller(probeTypes, probeJoinChannels, probeHashChannel, lookupSourceFactory.getSpillPartitionCount(), anyPartition.getSpillerFactory());
+            for (int partition : spilledPartitions.keySet()) {
+                spiller.markSpilled(partition);
+            }
+        }
+
+        page = spiller.partitionPage(page);
+        long memoryLimitBeforeSpill = spilledPartitions.values().iterator().next().getMemoryLimitBeforeSpill();
+        if (spiller.getBufferedBytes() > memoryLimitBeforeSpill) {
+            spillInProgress = spiller.flush();
+        }
+        operatorContext.setMemoryReservation(spiller.getBufferedBytes());
+        return page;
+    }
+
+    private boolean isUnspillFinished()
+    {
+        return spiller == null || (pendingPartitions != null && pendingPartitions.isEmpty() && acquiredPartition == null && !unspilledProbePages.hasNext());
+    }
+
+    private void unspillNextProbePage()
+    {
+        if (pendingPartitions == null) {
+            pendingPartitions = new ArrayDeque<>();
+            for (int partition : ImmutableSortedSet.copyOf(spilledPartitions.keySet())) {
+                if (spiller.hasRows(partition)) {
+                    pendingPartitions.add(new PendingPartition(spilledPartitions.get(partition), () -> spiller.getPages(partition)));
+                }
+            }
+        }
+
+        while (!unspilledProbePages.hasNext()) {
+            if (unspilledPartition == null && acquiredPartition != null) {
+                // all probe rows of the partition are joined
+                releaseAcquiredPartition();
+            }
+            if (pendingPartitions.isEmpty()) {
+                operatorContext.setMemoryReservation(0);
+                return;
+            }
+
+            // the build operator owning the partition loads it once for all probe operators
+            PendingPartition pendingPartition = pendingPartitions.peekFirst();
+            if (unspilledPartition == null) {
+                acquiredPartition = pendingPartition.getPartition();
+                unspilledPartition = acquiredPartition.acquire();
+            }
+            if (!unspilledPartition.isDone()) {
+                return;
+            }
+            UnspilledPartition unspilled = getFutureValue(unspilledPartition);
+            unspilledPartition = null;
+            pendingPartitions.removeFirst();
+
+            if (!unspilled.getLookupSourceSupplier().isPresent()) {
+                splitProbeRows(pendingPartition, unspilled.getSubPartitions());
+                releaseAcquiredPartition();
+                continue;
+            }
+
+            // replace the lookup source with the one built from the spilled build rows of the partition
+            lookupSource.close();
+            lookupSource = unspilled.getLookupSourceSupplier().get().get();
+            unspilledProbePages = pendingPartition.getProbePages();
+        }
+
+        createProbe(unspilledProbePages.next());
+    }
+
+    private void releaseAcquiredPartition()
+    {
+        acquiredPartition.release();
+        acquiredPartition = null;
+    }
+
+    /**
+     * Splits the probe rows of a partition which the build side split because it did not fit in memory,
+     * and schedules the sub-partitions to be joined before the remaining partitions.
+     */
+    private void splitProbeRows(PendingPartition partition, List<SpilledLookupSourcePartition> subPartitions)
+    {
+        SpilledLookupSourcePartition anySubPartition = subPartitions.get(0);
+        JoinPartitionSpiller subPartitionSpiller = new JoinPartitionSpiller(
+                probeTypes,
+                probeJoinChannels,
+                probeHashChannel,
+                subPartitions.size(),
+                anySubPartition.getLevel(),
+                anySubPartition.getSpillerFactory());
+        subPartitionSpillers.add(subPartitionSpiller);
+        for (int subPartition = 0; subPartition < subPartitions.size(); subPartition++) {
+            subPartitionSpiller.markSpilled(subPartition);
+        }
+
+        Iterator<Page> pages = partition.getProbePages();
+        while (pages.hasNext()) {
+            subPartitionSpiller.partitionPage(pages.next());
+            if (subPartitionSpiller.getBufferedBytes() > anySubPartition.getMemoryLimitBeforeSpill()) {
+                getFutureValue(subPartitionSpiller.flush());
+            }
+        }
+        getFutureValue(subPartitionSpiller.flush());
+
+        for (int subPartition = subPartitions.size() - 1; subPartition >= 0; subPartition--) {
+            if (subPartitionSpiller.hasRows(subPartition)) {
+                int currentSubPartition = subPartition;
+                pendingPartitions.addFirst(new PendingPartition(subPartitions.get(subPartition), () -> subPartitionSpiller.getPages(currentSubPartition)));
+            }
+        }
+    }
+
+    private void createProbe(Page page)
+    {
+        probe = joinProbeFactory.createJoinProbe(lookupSource, page);
+        probeJoinPositions = lookupSource.isBatchLookupSupported() ? getJoinPositions(page) : null;
+        uniqueJoinKeys = lookupSource.hasUniqueJoinKeys();
+
+        // initialize to invalid join position to force output code to advance the cursors
+        joinPosition = -1;
+    }
+
+    /**
+     * Looks up the first join position of all rows of the page at once, which lets the lookup source
+     * overlap the memory accesses of different rows instead of serving them one row at a time.
+     */
+    private long[] getJoinPositions(Page page)
+    {
+        int positionCount = page.getPositionCount();
+        Block[] joinBlocks = new Block[probeJoinChannels.size()];
+        for (int i = 0; i < joinBlocks.length; i++) {
+            joinBlocks[i] = page.getBlock(probeJoinChannels.get(i));
+        }
+        Page hashChannelsPage = new Page(positionCount, joinBlocks);
+
+        // rows with a null join key never match
+        int[] positions = new int[positionCount];
+        int nonNullPositionCount = 0;
+        for (int position = 0; position < positionCount; position++) {
+            if (!containsNull(joinBlocks, position)) {
+                positions[nonNullPositionCount] = position;
+                nonNullPositionCount++;
+            }
+        }
+
+        long[] rawHashes = null;
+        if (probeHashChannel.isPresent()) {
+            Block hashBlock = page.getBlock(probeHashChannel.get());
+            rawHashes = new long[nonNullPositionCount];
+            for (int i = 0; i < nonNullPositionCount; i++) {
+                rawHashes[i] = BIGINT.getLong(hashBlock, positions[i]);
+            }
+        }
+
+        long[] matches = new long[nonNullPositionCount];
+        lookupSource.getJoinPositions(positions, nonNullPositionCount, hashChannelsPage, page, rawHashes, matches);
+
+        long[] joinPositions = new long[positionCount];
+        Arrays.fill(joinPositions, -1);
+        for (int i = 0; i < nonNullPositionCount; i++) {
+            joinPositions[positions[i]] = matches[i];
+        }
+        return joinPositions;
+    }
+
+    private static boolean containsNull(Block[] blocks, int position)
+    {
+        for (Block block : blocks) {
+            if (block.isNull(position)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private boolean joinCurrentPosition()
     {
         // while we have a position to join against...
@@ -194,7 +453,12 @@ public class LookupJoinOperator
             lookupSource.appendTo(joinPosition, pageBuilder, probe.getChannelCount());
 
             // get next join position for this row
-            joinPosition = lookupSource.getNextJoinPosition(joinPosition, probe.getPosition(), probe.getPage());
+            if (uniqueJoinKeys) {
+                joinPosition = -1;
+            }
+            else {
+                joinPosition = lookupSource.getNextJoinPosition(joinPosition, probe.getPosition(), probe.getPage());
+            }
             if (pageBuilder.isFull()) {
                 return false;
             }
@@ -206,11 +470,17 @@ public class LookupJoinOperator
     {
         if (!probe.advanceNextPosition()) {
             probe = null;
+            probeJoinPositions = null;
             return false;
         }
 
         // update join position
-        joinPosition = probe.getCurrentJoinPosition();
+        if (probeJoinPositions != null) {
+            joinPosition = probeJoinPositions[probe.getPosition()];
+        }
+        else {
+            joinPosition = probe.getCurrentJoinPosition();
+        }
         return true;
     }
 
@@ -233,4 +503,26 @@ public class LookupJoinOperator
         }
         return true;
     }
+
+    private static class PendingPartition
+    {
+        private final SpilledLookupSourcePartition partition;
+        private final Supplier<Iterator<Page>> probePages;
+
+        public PendingPartition(SpilledLookupSourcePartition partition, Supplier<Iterator<Page>> probePages)
+        {
+            this.partition = requireNonNull(partition, "partition is null");
+            this.probePages = requireNonNull(probePages, "probePages is null");
+        }
+
+        public SpilledLookupSourcePartition getPartition()
+        {
+            return partition;
+        }
+
+        public Iterator<Page> getProbePages()
+        {
+            return probePages.get();
+        }
+    }
 }
@@ -39,6 +39,8 @@ public class LookupJoinOperatorFactory
     private final int operatorId;
     private final PlanNodeId planNodeId;
     private final List<Type> probeTypes;
+    private final List<Integer> probeJoinChannels;
+    private final Optional<Integer> probeHashChannel;
     private final List<Type> buildTypes;
     private final JoinType joinType;
     private final LookupSourceFactory lookupSourceFactory;
@@ -51,6 +53,8 @@ public class LookupJoinOperatorFactory
             PlanNodeId planNodeId,
             LookupSourceFactory lookupSourceFactory,
             List<Type> probeTypes,
+            List<Integer> probeJoinChannels,
+            Optional<Integer> probeHashChannel,
             JoinType joinType,
             JoinProbeFactory joinProbeFactory)
     {
@@ -58,6 +62,8 @@ public class LookupJoinOperatorFactory
         this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
         this.lookupSourceFactory = requireNonNull(lookupSourceFactory, "lookupSourceFactory is null");
         this.probeTypes = ImmutableList.copyOf(requireNonNull(probeTypes, "probeTypes is null"));
+        this.probeJoinChannels = ImmutableList.copyOf(requireNonNull(probeJoinChannels, "probeJoinChannels is null"));
+        this.probeHashChannel = requireNonNull(probeHashChannel, "probeHashChannel is null");
         this.buildTypes = ImmutableList.copyOf(lookupSourceFactory.getTypes());
         this.joinType = requireNonNull(joinType, "joinType is null");
         this.joinProbeFactory = requireNonNull(joinProbeFactory, "joinProbeFactory is null");
@@ -94,6 +100,8 @@ public class LookupJoinOperatorFactory
         operatorId = other.operatorId;
         planNodeId = other.planNodeId;
         probeTypes = other.probeTypes;
+        probeJoinChannels = other.probeJoinChannels;
+        probeHashChannel = other.probeHashChannel;
         buildTypes = other.buildTypes;
         joinType = other.joinType;
         lookupSourceFactory = other.lookupSourceFactory;
@@ -130,7 +138,11 @@ public class LookupJoinOperatorFactory
         return new LookupJoinOperator(
                 operatorContext,
                 getTypes(),
+                probeTypes,
+                probeJoinChannels,
+                probeHashChannel,
                 joinType,
+                lookupSourceFactory,
                 lookupSourceFactory.createLookupSource(),
                 joinProbeFactory,
                 referenceCount::release);
@@ -16,6 +16,7 @@ package com.facebook.presto.operator;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
 
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.NotThreadSafe;
 
 import java.io.Closeable;
@@ -36,6 +37,41 @@ public interface LookupSource
 
     long getNextJoinPosition(long currentJoinPosition, int probePosition, Page allProbeChannelsPage);
 
+    /**
+     * Whether the join positions of probe rows can be looked up in a batch with {@link #getJoinPositions},
+     * ahead of the rows being joined. This is not possible for lookup sources which replace their data
+     * while probing, e.g. the index lookup source.
+     */
+    default boolean isBatchLookupSupported()
+    {
+        return false;
+    }
+
+    /**
+     * Looks up the first join position of each of the given probe positions, or -1 if a position does not match.
+     * The join channels of the positions must not be null. If {@code rawHashes} is null, the hashes are computed
+     * from the join channels.
+     */
+    default void getJoinPositions(int[] positions, int positionCount, Page hashChannelsPage, Page allChannelsPage, @Nullable long[] rawHashes, long[] joinPositions)
+    {
+        for (int i = 0; i < positionCount; i++) {
+            if (rawHashes == null) {
+                joinPositions[i] = getJoinPosition(positions[i], hashChannelsPage, allChannelsPage);
+            }
+            else {
+                joinPositions[i] = getJoinPosition(positions[i], hashChannelsPage, allChannelsPage, rawHashes[i]);
+            }
+        }
+    }
+
+    /**
+     * Whether every probe row has at most one join position, so {@link #getNextJoinPosition} never has to be called.
+     */
+    default boolean hasUniqueJoinKeys()
+    {
+        return false;
+    }
+
     void appendTo(long position, PageBuilder pageBuilder, int outputChannelOffset);
 
     default OuterPositionIterator getOuterPositionIterator()
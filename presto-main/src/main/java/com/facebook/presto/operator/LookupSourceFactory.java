@@ -15,6 +15,7 @@ package com.facebook.presto.operator;
 
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.sql.planner.Symbol;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.util.concurrent.ListenableFuture;
 
 import java.util.List;
@@ -31,5 +32,22 @@ public interface LookupSourceFactory
     // this is only here for the index lookup source
     default void setTaskContext(TaskContext taskContext) {}
 
+    /**
+     * Number of partitions used to assign rows to spilled build partitions.
+     */
+    default int getSpillPartitionCount()
+    {
+        return 1;
+    }
+
+    /**
+     * Build partitions which were spilled to disk, keyed by spill partition.
+     * Only valid once the lookup source has been created.
+     */
+    default Map<Integer, SpilledLookupSourcePartition> getSpilledPartitions()
+    {
+        return ImmutableMap.of();
+    }
+
     void destroy();
 }
@@ -0,0 +1,138 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.operator.MergeHashSort.PagePosition;
+import com.facebook.presto.operator.MergeHashSort.SingleChannelPagePositions;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.SortOrder;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+import static com.facebook.presto.util.ImmutableCollectors.toImmutableList;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * This class performs a streaming k-way merge of previously sorted pages streams.
+ * Only the current page of every stream is held in memory.
+ */
+public class MergeSortedPages
+{
+    private MergeSortedPages()
+    {
+    }
+
+    /**
+     * Returns positions of the merged streams in sort order. Positions outside of
+     * their page (i.e. positions of empty pages) are returned first and must be skipped.
+     */
+    public static Iterator<PagePosition> mergeSortedPages(List<Iterator<Page>> sortedStreams, List<Type> types, List<Integer> sortChannels, List<SortOrder> sortOrders)
+    {
+        requireNonNull(sortedStreams, "sortedStreams is null");
+        List<Type> sortTypes = sortChannels.stream()
+                .map(types::get)
+                .collect(toImmutableList());
+
+        List<Iterator<PagePosition>> streams = sortedStreams.stream()
+                .map(SingleChannelPagePositions::new)
+                .collect(toImmutableList());
+
+        return Iterators.mergeSorted(streams, new PagePositionComparator(sortTypes, sortChannels, sortOrders));
+    }
+
+    /**
+     * Builds pages of all channels from the given positions, skipping positions outside of their page.
+     */
+    public static Iterator<Page> buildPages(Iterator<PagePosition> positions, List<Type> types)
+    {
+        requireNonNull(positions, "positions is null");
+        PageBuilder pageBuilder = new PageBuilder(types);
+        return new AbstractIterator<Page>()
+        {
+            @Override
+            protected Page computeNext()
+            {
+                pageBuilder.reset();
+                while (!pageBuilder.isFull() && positions.hasNext()) {
+                    PagePosition position = positions.next();
+                    if (position.isPositionOutOfPage()) {
+                        continue;
+                    }
+
+                    pageBuilder.declarePosition();
+                    for (int channel = 0; channel < types.size(); channel++) {
+                        types.get(channel).appendTo(position.getPage().getBlock(channel), position.getPosition(), pageBuilder.getBlockBuilder(channel));
+                    }
+                }
+
+                if (pageBuilder.isEmpty()) {
+                    return endOfData();
+                }
+                return pageBuilder.build();
+            }
+        };
+    }
+
+    private static class PagePositionComparator
+            implements Comparator<PagePosition>
+    {
+        private final List<Type> sortTypes;
+        private final List<Integer> sortChannels;
+        private final List<SortOrder> sortOrders;
+
+        public PagePositionComparator(List<Type> sortTypes, List<Integer> sortChannels, List<SortOrder> sortOrders)
+        {
+            this.sortTypes = ImmutableList.copyOf(requireNonNull(sortTypes, "sortTypes is null"));
+            this.sortChannels = ImmutableList.copyOf(requireNonNull(sortChannels, "sortChannels is null"));
+            this.sortOrders = ImmutableList.copyOf(requireNonNull(sortOrders, "sortOrders is null"));
+            checkArgument(sortChannels.size() == sortOrders.size(), "sortChannels size (%s) doesn't match sortOrders size (%s)", sortChannels.size(), sortOrders.size());
+        }
+
+        @Override
+        public int compare(PagePosition left, PagePosition right)
+        {
+            if (left.isPositionOutOfPage() && right.isPositionOutOfPage()) {
+                return 0;
+            }
+            if (left.isPositionOutOfPage()) {
+                return -1;
+            }
+            if (right.isPositionOutOfPage()) {
+                return 1;
+            }
+
+            for (int i = 0; i < sortChannels.size(); i++) {
+                int sortChannel = sortChannels.get(i);
+                int compare = sortOrders.get(i).compareBlockValue(
+                        sortTypes.get(i),
+                        left.getPage().getBlock(sortChannel),
+                        left.getPosition(),
+                        right.getPage().getBlock(sortChannel),
+                        right.getPosition());
+                if (compare != 0) {
+                    return compare;
+                }
+            }
+            return 0;
+        }
+    }
+}
@@ -72,6 +72,27 @@ public interface Operator
      */
     Page getOutput();
 
+    /**
+     * Starts releasing the revocable memory of the operator, e.g. by spilling it to disk.
+     * This method is called by the driver after the operator was asked to release its
+     * revocable memory, see {@link OperatorContext#requestMemoryRevoking()}. The operator
+     * is blocked until the returned future is completed, and then
+     * {@link #finishMemoryRevoke()} is called.
+     */
+    default ListenableFuture<?> startMemoryRevoking()
+    {
+        return NOT_BLOCKED;
+    }
+
+    /**
+     * Completes the release of revocable memory started by {@link #startMemoryRevoking()}.
+     * Unlike the work done in the background, this method is called by the driver, so it
+     * may update the operator context.
+     */
+    default void finishMemoryRevoke()
+    {
+    }
+
     /**
      * This method will always be called before releasing the Operator reference.
      */
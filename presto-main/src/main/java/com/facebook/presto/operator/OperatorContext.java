@@ -82,6 +82,10 @@ public class OperatorContext
     private final AtomicLong finishUserNanos = new AtomicLong();
 
     private final AtomicLong memoryReservation = new AtomicLong();
+    private final AtomicLong revocableMemoryReservation = new AtomicLong();
+    private final AtomicReference<SettableFuture<?>> memoryRevokingRequestedFuture = new AtomicReference<>(SettableFuture.create());
+    private final AtomicLong partialAggregationPassThroughPositions = new AtomicLong();
+    private final AtomicLong hashBuildWallNanos = new AtomicLong();
     private final OperatorSystemMemoryContext systemMemoryContext;
 
     private final AtomicReference<Supplier<?>> infoSupplier = new AtomicReference<>();
@@ -324,6 +328,74 @@ public class OperatorContext
         return true;
     }
 
+    /**
+     * Sets the amount of memory held by the operator which it is able to release on request, see {@link #requestMemoryRevoking()}.
+     */
+    public void setRevocableMemoryReservation(long newRevocableMemoryReservation)
+    {
+        checkArgument(newRevocableMemoryReservation >= 0, "newRevocableMemoryReservation is negative");
+
+        long delta = newRevocableMemoryReservation - revocableMemoryReservation.get();
+
+        if (delta > 0) {
+            driverContext.reserveRevocableMemory(delta);
+        }
+        else {
+            driverContext.freeRevocableMemory(-delta);
+        }
+        revocableMemoryReservation.addAndGet(delta);
+    }
+
+    public long getRevocableMemoryReservation()
+    {
+        return revocableMemoryReservation.get();
+    }
+
+    /**
+     * Asks the operator to release its revocable memory. The driver of the operator notices the request
+     * and calls {@link Operator#startMemoryRevoking()}. Returns the number of revocable bytes the operator
+     * is asked to release, which is zero if it holds none or has already been asked to release them.
+     */
+    public long requestMemoryRevoking()
+    {
+        long revocableMemory = revocableMemoryReservation.get();
+        if (revocableMemory == 0) {
+            return 0;
+        }
+        if (!memoryRevokingRequestedFuture.get().set(null)) {
+            return 0;
+        }
+        return revocableMemory;
+    }
+
+    public boolean isMemoryRevokingRequested()
+    {
+        return memoryRevokingRequestedFuture.get().isDone();
+    }
+
+    /**
+     * Future which is completed when the operator is asked to release its revocable memory.
+     */
+    public ListenableFuture<?> getMemoryRevokingRequestedFuture()
+    {
+        return memoryRevokingRequestedFuture.get();
+    }
+
+    public void resetMemoryRevokingRequested()
+    {
+        memoryRevokingRequestedFuture.set(SettableFuture.create());
+    }
+
+    public void recordPartialAggregationPassThrough(long positions)
+    {
+        partialAggregationPassThroughPositions.getAndAdd(positions);
+    }
+
+    public void recordHashBuild(long wallNanos)
+    {
+        hashBuildWallNanos.getAndAdd(wallNanos);
+    }
+
     public void setInfoSupplier(Supplier<?> infoSupplier)
     {
         requireNonNull(infoSupplier, "infoProvider is null");
@@ -387,6 +459,8 @@ public class OperatorContext
                 succinctBytes(memoryReservation.get()),
                 succinctBytes(systemMemoryContext.getReservedBytes()),
                 memoryFuture.get().isDone() ? Optional.empty() : Optional.of(WAITING_FOR_MEMORY),
+                partialAggregationPassThroughPositions.get(),
+                new Duration(hashBuildWallNanos.get(), NANOSECONDS).convertToMostSuccinctTimeUnit(),
                 info);
     }
 
@@ -62,6 +62,9 @@ public class OperatorStats
     private final DataSize systemMemoryReservation;
     private final Optional<BlockedReason> blockedReason;
 
+    private final long partialAggregationPassThroughPositions;
+    private final Duration hashBuildWall;
+
     private final Object info;
 
     @JsonCreator
@@ -95,6 +98,9 @@ public class OperatorStats
             @JsonProperty("systemMemoryReservation") DataSize systemMemoryReservation,
             @JsonProperty("blockedReason") Optional<BlockedReason> blockedReason,
 
+            @JsonProperty("partialAggregationPassThroughPositions") long partialAggregationPassThroughPositions,
+            @JsonProperty("hashBuildWall") Duration hashBuildWall,
+
             @JsonProperty("info") Object info)
     {
         checkArgument(operatorId >= 0, "operatorId is negative");
@@ -129,6 +135,10 @@ public class OperatorStats
         this.systemMemoryReservation = requireNonNull(systemMemoryReservation, "systemMemoryReservation is null");
         this.blockedReason = blockedReason;
 
+        checkArgument(partialAggregationPassThroughPositions >= 0, "partialAggregationPassThroughPositions is negative");
+        this.partialAggregationPassThroughPositions = partialAggregationPassThroughPositions;
+        this.hashBuildWall = requireNonNull(hashBuildWall, "hashBuildWall is null");
+
         this.info = info;
     }
 
@@ -270,6 +280,25 @@ public class OperatorStats
         return blockedReason;
     }
 
+    /**
+     * Number of input rows which a partial aggregation passed through without aggregating,
+     * because aggregating them did not reduce the number of rows enough.
+     */
+    @JsonProperty
+    public long getPartialAggregationPassThroughPositions()
+    {
+        return partialAggregationPassThroughPositions;
+    }
+
+    /**
+     * Time spent building the hash table of a join, which is part of the finish time of the hash build operator.
+     */
+    @JsonProperty
+    public Duration getHashBuildWall()
+    {
+        return hashBuildWall;
+    }
+
     @Nullable
     @JsonProperty
     public Object getInfo()
@@ -309,6 +338,9 @@ public class OperatorStats
         long systemMemoryReservation = this.systemMemoryReservation.toBytes();
         Optional<BlockedReason> blockedReason = this.blockedReason;
 
+        long partialAggregationPassThroughPositions = this.partialAggregationPassThroughPositions;
+        long hashBuildWall = this.hashBuildWall.roundTo(NANOSECONDS);
+
         Mergeable<?> base = null;
         if (info instanceof Mergeable) {
             base = (Mergeable<?>) info;
@@ -343,6 +375,9 @@ public class OperatorStats
                 blockedReason = operator.getBlockedReason();
             }
 
+            partialAggregationPassThroughPositions += operator.getPartialAggregationPassThroughPositions();
+            hashBuildWall += operator.getHashBuildWall().roundTo(NANOSECONDS);
+
             Object info = operator.getInfo();
             if (base != null && info != null && base.getClass() == info.getClass()) {
                 base = mergeInfo(base, info);
@@ -379,6 +414,9 @@ public class OperatorStats
                 succinctBytes(systemMemoryReservation),
                 blockedReason,
 
+                partialAggregationPassThroughPositions,
+                new Duration(hashBuildWall, NANOSECONDS).convertToMostSuccinctTimeUnit(),
+
                 base);
     }
 
@@ -13,22 +13,43 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.operator.MergeHashSort.PagePosition;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.Spiller;
+import com.facebook.presto.spiller.SpillerFactory;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.google.common.collect.ImmutableList;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.units.DataSize;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
+import static com.facebook.presto.operator.MergeSortedPages.buildPages;
+import static com.facebook.presto.operator.MergeSortedPages.mergeSortedPages;
+import static com.facebook.presto.spiller.DisabledSpillerFactory.DISABLED_SPILLER_FACTORY;
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
+import static io.airlift.concurrent.MoreFutures.toListenableFuture;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.util.Objects.requireNonNull;
 
 public class OrderByOperator
         implements Operator
 {
+    // maximum number of sorted runs merged at once, more runs are first merged into fewer runs on disk
+    public static final int DEFAULT_MAX_MERGE_FAN_IN = 64;
+
     public static class OrderByOperatorFactory
             implements OperatorFactory
     {
@@ -40,6 +61,10 @@ public class OrderByOperator
         private final List<Integer> sortChannels;
         private final List<SortOrder> sortOrder;
         private final List<Type> types;
+        private final boolean spillEnabled;
+        private final DataSize memoryLimitBeforeSpill;
+        private final SpillerFactory spillerFactory;
+        private final int maxMergeFanIn;
         private boolean closed;
 
         public OrderByOperatorFactory(
@@ -50,6 +75,56 @@ public class OrderByOperator
                 int expectedPositions,
                 List<Integer> sortChannels,
                 List<SortOrder> sortOrder)
+        {
+            this(operatorId,
+                    planNodeId,
+                    sourceTypes,
+                    outputChannels,
+                    expectedPositions,
+                    sortChannels,
+                    sortOrder,
+                    false,
+                    new DataSize(0, MEGABYTE),
+                    DISABLED_SPILLER_FACTORY);
+        }
+
+        public OrderByOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<? extends Type> sourceTypes,
+                List<Integer> outputChannels,
+                int expectedPositions,
+                List<Integer> sortChannels,
+                List<SortOrder> sortOrder,
+                boolean spillEnabled,
+                DataSize memoryLimitBeforeSpill,
+                SpillerFactory spillerFactory)
+        {
+            this(operatorId,
+                    planNodeId,
+                    sourceTypes,
+                    outputChannels,
+                    expectedPositions,
+                    sortChannels,
+                    sortOrder,
+                    spillEnabled,
+                    memoryLimitBeforeSpill,
+                    spillerFactory,
+                    DEFAULT_MAX_MERGE_FAN_IN);
+        }
+
+        public OrderByOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<? extends Type> sourceTypes,
+                List<Integer> outputChannels,
+                int expectedPositions,
+                List<Integer> sortChannels,
+                List<SortOrder> sortOrder,
+                boolean spillEnabled,
+                DataSize memoryLimitBeforeSpill,
+                SpillerFactory spillerFactory,
+                int maxMergeFanIn)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -60,6 +135,11 @@ public class OrderByOperator
             this.sortOrder = ImmutableList.copyOf(requireNonNull(sortOrder, "sortOrder is null"));
 
             this.types = toTypes(sourceTypes, outputChannels);
+            this.spillEnabled = spillEnabled;
+            this.memoryLimitBeforeSpill = requireNonNull(memoryLimitBeforeSpill, "memoryLimitBeforeSpill is null");
+            this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
+            checkArgument(maxMergeFanIn >= 2, "maxMergeFanIn must be at least 2");
+            this.maxMergeFanIn = maxMergeFanIn;
         }
 
         @Override
@@ -80,7 +160,11 @@ public class OrderByOperator
                     outputChannels,
                     expectedPositions,
                     sortChannels,
-                    sortOrder);
+                    sortOrder,
+                    spillEnabled,
+                    memoryLimitBeforeSpill,
+                    spillerFactory,
+                    maxMergeFanIn);
         }
 
         @Override
@@ -92,7 +176,7 @@ public class OrderByOperator
         @Override
         public OperatorFactory duplicate()
         {
-            return new OrderByOperatorFactory(operatorId, planNodeId, sourceTypes, outputChannels, expectedPositions, sortChannels, sortOrder);
+            return new OrderByOperatorFactory(operatorId, planNodeId, sourceTypes, outputChannels, expectedPositions, sortChannels, sortOrder, spillEnabled, memoryLimitBeforeSpill, spillerFactory, maxMergeFanIn);
         }
     }
 
@@ -104,16 +188,33 @@ public class OrderByOperator
     }
 
     private final OperatorContext operatorContext;
+    private final List<Type> sourceTypes;
     private final List<Integer> sortChannels;
     private final List<SortOrder> sortOrder;
     private final int[] outputChannels;
     private final List<Type> types;
+    private final int expectedPositions;
 
-    private final PagesIndex pageIndex;
+    private final boolean spillEnabled;
+    private final long memoryLimitBeforeSpill;
+    private final SpillerFactory spillerFactory;
+    private final int maxMergeFanIn;
+
+    private PagesIndex pageIndex;
 
     private final PageBuilder pageBuilder;
     private int currentPosition;
 
+    // sorted runs are written to disk when the index exceeds the memory limit
+    private Optional<Spiller> spiller = Optional.empty();
+    private CompletableFuture<?> spillInProgress = CompletableFuture.completedFuture(null);
+    private long spillMemoryUsage;
+    // runs of the spiller not yet merged into the runs of mergeSpiller, while there are too many runs to merge at once
+    private Optional<Spiller> mergeSpiller = Optional.empty();
+    private final Deque<Iterator<Page>> unmergedRuns = new ArrayDeque<>();
+    // merge of the sorted runs and the in memory index, created once all input was received
+    private Iterator<PagePosition> mergedPositions;
+
     private State state = State.NEEDS_INPUT;
 
     public OrderByOperator(
@@ -122,13 +223,25 @@ public class OrderByOperator
             List<Integer> outputChannels,
             int expectedPositions,
             List<Integer> sortChannels,
-            List<SortOrder> sortOrder)
+            List<SortOrder> sortOrder,
+            boolean spillEnabled,
+            DataSize memoryLimitBeforeSpill,
+            SpillerFactory spillerFactory,
+            int maxMergeFanIn)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+        this.sourceTypes = ImmutableList.copyOf(requireNonNull(sourceTypes, "sourceTypes is null"));
         this.outputChannels = Ints.toArray(requireNonNull(outputChannels, "outputChannels is null"));
         this.types = toTypes(sourceTypes, outputChannels);
         this.sortChannels = ImmutableList.copyOf(requireNonNull(sortChannels, "sortChannels is null"));
         this.sortOrder = ImmutableList.copyOf(requireNonNull(sortOrder, "sortOrder is null"));
+        this.expectedPositions = expectedPositions;
+
+        this.spillEnabled = spillEnabled && memoryLimitBeforeSpill.toBytes() > 0;
+        this.memoryLimitBeforeSpill = memoryLimitBeforeSpill.toBytes();
+        this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
+        checkArgument(maxMergeFanIn >= 2, "maxMergeFanIn must be at least 2");
+        this.maxMergeFanIn = maxMergeFanIn;
 
         this.pageIndex = new PagesIndex(sourceTypes, expectedPositions);
 
@@ -164,10 +277,19 @@ public class OrderByOperator
         return state == State.FINISHED;
     }
 
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        if (!spillInProgress.isDone()) {
+            return toListenableFuture(spillInProgress);
+        }
+        return NOT_BLOCKED;
+    }
+
     @Override
     public boolean needsInput()
     {
-        return state == State.NEEDS_INPUT;
+        return state == State.NEEDS_INPUT && spillInProgress.isDone();
     }
 
     @Override
@@ -175,9 +297,16 @@ public class OrderByOperator
     {
         checkState(state == State.NEEDS_INPUT, "Operator is already finishing");
         requireNonNull(page, "page is null");
+        checkState(spillInProgress.isDone(), "Previous spill hasn't yet finished");
+        // check for exception from previous spill for early failure
+        getFutureValue(spillInProgress);
+        spillMemoryUsage = 0;
 
         pageIndex.addPage(page);
-        operatorContext.setMemoryReservation(pageIndex.getEstimatedSize().toBytes());
+        if (spillEnabled && pageIndex.getEstimatedSize().toBytes() > memoryLimitBeforeSpill) {
+            spillToDisk();
+        }
+        operatorContext.setMemoryReservation(pageIndex.getEstimatedSize().toBytes() + spillMemoryUsage);
     }
 
     @Override
@@ -187,6 +316,10 @@ public class OrderByOperator
             return null;
         }
 
+        if (spiller.isPresent()) {
+            return getMergedOutput();
+        }
+
         if (currentPosition >= pageIndex.getPositionCount()) {
             state = State.FINISHED;
             return null;
@@ -206,6 +339,110 @@ public class OrderByOperator
         return page;
     }
 
+    @Override
+    public void close()
+    {
+        pageIndex.clear();
+        mergedPositions = null;
+        unmergedRuns.clear();
+        if (spiller.isPresent()) {
+            spiller.get().close();
+        }
+        if (mergeSpiller.isPresent()) {
+            mergeSpiller.get().close();
+        }
+    }
+
+    private void spillToDisk()
+    {
+        if (!spiller.isPresent()) {
+            spiller = Optional.of(spillerFactory.create(sourceTypes));
+        }
+
+        // write the index as a sorted run and hand its memory over to the spilling thread
+        PagesIndex sortedRun = pageIndex;
+        sortedRun.sort(sortChannels, sortOrder);
+        spillMemoryUsage = sortedRun.getEstimatedSize().toBytes();
+        spillInProgress = spiller.get().spill(sortedRun.getSortedPages());
+
+        pageIndex = new PagesIndex(sourceTypes, expectedPositions);
+    }
+
+    private Page getMergedOutput()
+    {
+        while (mergedPositions == null) {
+            if (!spillInProgress.isDone()) {
+                return null;
+            }
+            getFutureValue(spillInProgress);
+
+            if (!mergeSpilledRuns()) {
+                // the in memory index was sorted in finish, and is merged as one more sorted run
+                List<Iterator<Page>> sortedRuns = ImmutableList.<Iterator<Page>>builder()
+                        .addAll(spiller.get().getSpills())
+                        .add(pageIndex.getSortedPages())
+                        .build();
+                mergedPositions = mergeSortedPages(sortedRuns, sourceTypes, sortChannels, sortOrder);
+                operatorContext.setMemoryReservation(pageIndex.getEstimatedSize().toBytes());
+            }
+        }
+
+        pageBuilder.reset();
+        while (!pageBuilder.isFull() && mergedPositions.hasNext()) {
+            PagePosition position = mergedPositions.next();
+            if (position.isPositionOutOfPage()) {
+                continue;
+            }
+
+            pageBuilder.declarePosition();
+            for (int i = 0; i < outputChannels.length; i++) {
+                int outputChannel = outputChannels[i];
+                Type type = types.get(i);
+                type.appendTo(position.getPage().getBlock(outputChannel), position.getPosition(), pageBuilder.getBlockBuilder(i));
+            }
+        }
+
+        if (pageBuilder.isEmpty()) {
+            state = State.FINISHED;
+            return null;
+        }
+        return pageBuilder.build();
+    }
+
+    /**
+     * Starts spilling the merge of the next group of spilled runs, if there are too many runs to
+     * merge them with the in memory index at once. Every pass merges groups of maxMergeFanIn runs
+     * into the runs of a new spiller, until few enough runs are left.
+     *
+     * @return true if a merge was started, false if the runs can be merged with the index
+     */
+    private boolean mergeSpilledRuns()
+    {
+        if (unmergedRuns.isEmpty()) {
+            if (mergeSpiller.isPresent()) {
+                // the pass is complete, so the merged runs replace the runs of the previous pass
+                spiller.get().close();
+                spiller = mergeSpiller;
+                mergeSpiller = Optional.empty();
+            }
+
+            List<Iterator<Page>> sortedRuns = spiller.get().getSpills();
+            if (sortedRuns.size() < maxMergeFanIn) {
+                return false;
+            }
+            unmergedRuns.addAll(sortedRuns);
+            mergeSpiller = Optional.of(spillerFactory.create(sourceTypes));
+        }
+
+        List<Iterator<Page>> mergedRuns = new ArrayList<>(maxMergeFanIn);
+        while (mergedRuns.size() < maxMergeFanIn && !unmergedRuns.isEmpty()) {
+            mergedRuns.add(unmergedRuns.poll());
+        }
+        Iterator<PagePosition> positions = mergeSortedPages(mergedRuns, sourceTypes, sortChannels, sortOrder);
+        spillInProgress = mergeSpiller.get().spill(buildPages(positions, sourceTypes));
+        return true;
+    }
+
     private static List<Type> toTypes(List<? extends Type> sourceTypes, List<Integer> outputChannels)
     {
         ImmutableList.Builder<Type> types = ImmutableList.builder();
@@ -17,6 +17,7 @@ import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
 import com.google.common.primitives.Ints;
 
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.NotThreadSafe;
 import javax.annotation.concurrent.ThreadSafe;
@@ -81,6 +82,24 @@ public final class OuterLookupSource
         return lookupSource.getNextJoinPosition(currentJoinPosition, probePosition, allProbeChannelsPage);
     }
 
+    @Override
+    public boolean isBatchLookupSupported()
+    {
+        return lookupSource.isBatchLookupSupported();
+    }
+
+    @Override
+    public void getJoinPositions(int[] positions, int positionCount, Page hashChannelsPage, Page allChannelsPage, @Nullable long[] rawHashes, long[] joinPositions)
+    {
+        lookupSource.getJoinPositions(positions, positionCount, hashChannelsPage, allChannelsPage, rawHashes, joinPositions);
+    }
+
+    @Override
+    public boolean hasUniqueJoinKeys()
+    {
+        return lookupSource.hasUniqueJoinKeys();
+    }
+
     @Override
     public void appendTo(long position, PageBuilder pageBuilder, int outputChannelOffset)
     {
@@ -17,12 +17,24 @@ import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
 import io.airlift.units.DataSize;
 import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.longs.LongArrayList;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
 
 import static com.facebook.presto.operator.SyntheticAddress.decodePosition;
 import static com.facebook.presto.operator.SyntheticAddress.decodeSliceIndex;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
 import static io.airlift.slice.SizeOf.sizeOf;
 import static io.airlift.units.DataSize.Unit.KILOBYTE;
 import static java.util.Objects.requireNonNull;
@@ -39,6 +51,8 @@ public final class PagesHash
     private final int[] key;
     private final int[] positionLinks;
     private final long size;
+    // true if no two build rows have the same key, so every key has at most one address
+    private final boolean uniqueKeys;
 
     // Native array of hashes for faster collisions resolution compared
     // to accessing values in blocks. We use bytes to reduce memory foot print
@@ -46,9 +60,21 @@ public final class PagesHash
     private final byte[] positionToHashes;
 
     public PagesHash(LongArrayList addresses, PagesHashStrategy pagesHashStrategy)
+    {
+        this(addresses, pagesHashStrategy, directExecutor(), 1);
+    }
+
+    /**
+     * Builds the hash table with up to {@code buildConcurrency} threads of the executor, one of
+     * which is the calling thread. The pages hash strategy must support concurrent reads when the
+     * build concurrency is greater than one.
+     */
+    public PagesHash(LongArrayList addresses, PagesHashStrategy pagesHashStrategy, Executor executor, int buildConcurrency)
     {
         this.addresses = requireNonNull(addresses, "addresses is null");
         this.pagesHashStrategy = requireNonNull(pagesHashStrategy, "pagesHashStrategy is null");
+        requireNonNull(executor, "executor is null");
+        checkArgument(buildConcurrency > 0, "buildConcurrency must be positive");
         this.channelCount = pagesHashStrategy.getChannelCount();
 
         // reserve memory for the arrays
@@ -63,9 +89,24 @@ public final class PagesHash
 
         positionToHashes = new byte[addresses.size()];
 
+        buildConcurrency = Math.min(buildConcurrency, hashSize);
+        if (buildConcurrency > 1) {
+            this.uniqueKeys = buildInParallel(executor, buildConcurrency);
+        }
+        else {
+            this.uniqueKeys = build();
+        }
+
+        size = sizeOf(addresses.elements()) + pagesHashStrategy.getSizeInBytes() +
+                sizeOf(key) + sizeOf(positionLinks) + sizeOf(positionToHashes);
+    }
+
+    private boolean build()
+    {
         // We will process addresses in batches, to save memory on array of hashes.
         int positionsInStep = Math.min(addresses.size() + 1, (int) CACHE_SIZE.toBytes() / Integer.SIZE);
         long[] positionToFullHashes = new long[positionsInStep];
+        boolean uniqueKeys = true;
 
         for (int step = 0; step * positionsInStep <= addresses.size(); step++) {
             int stepBeginPosition = step * positionsInStep;
@@ -90,29 +131,191 @@ public final class PagesHash
                 }
 
                 long hash = positionToFullHashes[position];
-                int pos = getHashPosition(hash, mask);
-
-                // look for an empty slot or a slot containing this key
-                while (key[pos] != -1) {
-                    int currentKey = key[pos];
-                    if (((byte) hash) == positionToHashes[currentKey] && positionEqualsPositionIgnoreNulls(currentKey, realPosition)) {
-                        // found a slot for this key
-                        // link the new key position to the current key position
-                        positionLinks[realPosition] = currentKey;
-
-                        // key[pos] updated outside of this loop
-                        break;
+                insert(realPosition, getHashPosition(hash, mask), -1);
+                if (positionLinks[realPosition] != -1) {
+                    uniqueKeys = false;
+                }
+            }
+        }
+        return uniqueKeys;
+    }
+
+    /**
+     * The hash table is split into ranges of slots, one per thread, and every thread inserts the
+     * positions whose home slot is in its range. While hashing, the positions are bucketed by the
+     * range of their home slot, so every thread only walks the positions of its range. A thread
+     * never probes past the end of its range, so the threads do not need to synchronize; the few
+     * positions that find no slot in the range of their home slot are inserted by the calling
+     * thread once all ranges are built.
+     */
+    private boolean buildInParallel(Executor executor, int buildConcurrency)
+    {
+        int positionCount = addresses.size();
+        int hashSize = key.length;
+
+        // home slot of every position, or -1 for positions with a null key
+        int[] positionToSlots = new int[positionCount];
+        // positions of every range of positions, bucketed by the range of their home slot
+        IntArrayList[][] slotRangePositions = new IntArrayList[buildConcurrency][];
+        runInParallel(executor, buildConcurrency, thread -> {
+            IntArrayList[] buckets = new IntArrayList[buildConcurrency];
+            for (int range = 0; range < buildConcurrency; range++) {
+                buckets[range] = new IntArrayList();
+            }
+            int endPosition = rangeStart(thread + 1, buildConcurrency, positionCount);
+            for (int position = rangeStart(thread, buildConcurrency, positionCount); position < endPosition; position++) {
+                long hash = readHashPosition(position);
+                positionToHashes[position] = (byte) hash;
+                if (isPositionNull(position)) {
+                    positionToSlots[position] = -1;
+                    continue;
+                }
+                int slot = getHashPosition(hash, mask);
+                positionToSlots[position] = slot;
+                buckets[slotRange(slot, buildConcurrency, hashSize)].add(position);
+            }
+            slotRangePositions[thread] = buckets;
+        });
+
+        boolean[] uniqueKeys = new boolean[buildConcurrency];
+        IntArrayList[] overflowPositions = new IntArrayList[buildConcurrency];
+        runInParallel(executor, buildConcurrency, thread -> {
+            // the range of the last thread ends at the wrap around of the table
+            int endSlot = slotRangeStart(thread + 1, buildConcurrency, hashSize) & mask;
+            IntArrayList overflow = new IntArrayList();
+            boolean unique = true;
+            // the positions are inserted in position order, as in the sequential build
+            for (IntArrayList[] buckets : slotRangePositions) {
+                IntArrayList positions = buckets[thread];
+                for (int i = 0; i < positions.size(); i++) {
+                    int position = positions.getInt(i);
+                    if (!insert(position, positionToSlots[position], endSlot)) {
+                        overflow.add(position);
+                    }
+                    else if (positionLinks[position] != -1) {
+                        unique = false;
                     }
-                    // increment position and mask to handler wrap around
-                    pos = (pos + 1) & mask;
                 }
+            }
+            uniqueKeys[thread] = unique;
+            overflowPositions[thread] = overflow;
+        });
+
+        boolean unique = true;
+        for (int thread = 0; thread < buildConcurrency; thread++) {
+            unique &= uniqueKeys[thread];
+            IntArrayList overflow = overflowPositions[thread];
+            for (int i = 0; i < overflow.size(); i++) {
+                int position = overflow.getInt(i);
+                insert(position, positionToSlots[position], -1);
+                if (positionLinks[position] != -1) {
+                    unique = false;
+                }
+            }
+        }
+        return unique;
+    }
 
-                key[pos] = realPosition;
+    /**
+     * Inserts the position into the first slot, starting from {@code pos}, which is empty or
+     * contains the key of the position. Returns false without modifying the hash table if the
+     * probing reaches {@code endSlot} before finding such a slot.
+     */
+    private boolean insert(int position, int pos, int endSlot)
+    {
+        byte hash = positionToHashes[position];
+
+        // look for an empty slot or a slot containing this key
+        while (key[pos] != -1) {
+            int currentKey = key[pos];
+            if (hash == positionToHashes[currentKey] && positionEqualsPositionIgnoreNulls(currentKey, position)) {
+                // found a slot for this key
+                // link the new key position to the current key position
+                positionLinks[position] = currentKey;
+
+                // key[pos] updated outside of this loop
+                break;
+            }
+            // increment position and mask to handler wrap around
+            pos = (pos + 1) & mask;
+            if (pos == endSlot) {
+                return false;
             }
         }
 
-        size = sizeOf(addresses.elements()) + pagesHashStrategy.getSizeInBytes() +
-                sizeOf(key) + sizeOf(positionLinks) + sizeOf(positionToHashes);
+        key[pos] = position;
+        return true;
+    }
+
+    private static int rangeStart(int range, int rangeCount, int size)
+    {
+        return (int) ((long) size * range / rangeCount);
+    }
+
+    /**
+     * Returns the first slot of the range, which is the smallest slot mapped to the range by {@link #slotRange}.
+     */
+    private static int slotRangeStart(int range, int rangeCount, int hashSize)
+    {
+        return (int) (((long) hashSize * range + rangeCount - 1) / rangeCount);
+    }
+
+    private static int slotRange(int slot, int rangeCount, int hashSize)
+    {
+        return (int) ((long) slot * rangeCount / hashSize);
+    }
+
+    /**
+     * Runs the task for every index from 0 to {@code concurrency - 1}, on up to {@code concurrency}
+     * threads of the executor including the calling thread. The calling thread also runs the tasks
+     * which were not yet started by the executor, so it never waits for a task to be scheduled.
+     */
+    private static void runInParallel(Executor executor, int concurrency, IntConsumer task)
+    {
+        AtomicInteger nextTask = new AtomicInteger();
+        List<CompletableFuture<?>> taskFutures = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            taskFutures.add(new CompletableFuture<>());
+        }
+        Runnable worker = () -> {
+            for (int index = nextTask.getAndIncrement(); index < concurrency; index = nextTask.getAndIncrement()) {
+                try {
+                    task.accept(index);
+                    taskFutures.get(index).complete(null);
+                }
+                catch (RuntimeException | Error e) {
+                    taskFutures.get(index).completeExceptionally(e);
+                    // the hash table is abandoned, so do not start the remaining tasks
+                    for (int remaining = nextTask.getAndSet(concurrency); remaining < concurrency; remaining++) {
+                        taskFutures.get(remaining).cancel(false);
+                    }
+                    return;
+                }
+            }
+        };
+
+        for (int thread = 1; thread < concurrency; thread++) {
+            executor.execute(worker);
+        }
+        worker.run();
+
+        CompletableFuture<?> failedTask = null;
+        for (CompletableFuture<?> future : taskFutures) {
+            try {
+                future.join();
+            }
+            catch (CancellationException e) {
+                // the task was not started, because another task failed
+            }
+            catch (CompletionException e) {
+                if (failedTask == null) {
+                    failedTask = future;
+                }
+            }
+        }
+        if (failedTask != null) {
+            getFutureValue(failedTask);
+        }
     }
 
     public final int getChannelCount()
@@ -130,12 +333,27 @@ public final class PagesHash
         return size;
     }
 
+    public boolean hasUniqueKeys()
+    {
+        return uniqueKeys;
+    }
+
+    public long hashRow(int position, Page hashChannelsPage)
+    {
+        return pagesHashStrategy.hashRow(position, hashChannelsPage);
+    }
+
     public int getAddressIndex(int position, Page hashChannelsPage, Page allChannelsPage)
     {
         return getAddressIndex(position, hashChannelsPage, allChannelsPage, pagesHashStrategy.hashRow(position, hashChannelsPage));
     }
 
     public int getAddressIndex(int rightPosition, Page hashChannelsPage, Page allChannelsPage, long rawHash)
+    {
+        return getAddressIndex(rightPosition, hashChannelsPage, rawHash);
+    }
+
+    private int getAddressIndex(int rightPosition, Page hashChannelsPage, long rawHash)
     {
         int pos = getHashPosition(rawHash, mask);
 
@@ -149,6 +367,27 @@ public final class PagesHash
         return -1;
     }
 
+    /**
+     * Batched version of {@link #getAddressIndex(int, Page, Page, long)}. The keys in the hash table slots
+     * of all positions are read before any of the positions is compared with its key, so the cache misses
+     * of different positions overlap instead of being resolved one after another.
+     */
+    public void getAddressIndexes(int[] positions, int positionCount, Page hashChannelsPage, long[] rawHashes, int[] addressIndexes)
+    {
+        for (int i = 0; i < positionCount; i++) {
+            addressIndexes[i] = key[getHashPosition(rawHashes[i], mask)];
+        }
+
+        for (int i = 0; i < positionCount; i++) {
+            int currentKey = addressIndexes[i];
+            if (currentKey == -1 || positionEqualsCurrentRowIgnoreNulls(currentKey, (byte) rawHashes[i], positions[i], hashChannelsPage)) {
+                continue;
+            }
+            // the first slot holds a different key, continue with the following slots
+            addressIndexes[i] = getAddressIndex(positions[i], hashChannelsPage, rawHashes[i]);
+        }
+    }
+
     public int getNextAddressIndex(int currentAddressIndex)
     {
         return positionLinks[currentAddressIndex];
@@ -18,12 +18,14 @@ import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.LazyBlock;
 import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.sql.gen.JoinCompiler;
 import com.facebook.presto.sql.gen.JoinCompiler.LookupSourceSupplierFactory;
 import com.facebook.presto.sql.gen.JoinFilterFunctionCompiler.JoinFilterFunctionFactory;
 import com.facebook.presto.sql.gen.OrderingCompiler;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
 import io.airlift.log.Logger;
 import io.airlift.slice.Slice;
@@ -32,8 +34,10 @@ import it.unimi.dsi.fastutil.Swapper;
 import it.unimi.dsi.fastutil.longs.LongArrayList;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 import java.util.function.Supplier;
 
 import static com.facebook.presto.operator.SyntheticAddress.decodePosition;
@@ -41,6 +45,7 @@ import static com.facebook.presto.operator.SyntheticAddress.decodeSliceIndex;
 import static com.facebook.presto.operator.SyntheticAddress.encodeSyntheticAddress;
 import static com.facebook.presto.util.ImmutableCollectors.toImmutableList;
 import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static io.airlift.slice.SizeOf.sizeOf;
 import static io.airlift.units.DataSize.Unit.BYTE;
 import static java.util.Objects.requireNonNull;
@@ -174,6 +179,62 @@ public class PagesIndex
         return pagesMemorySize + channelsArraySize + addressesArraySize;
     }
 
+    /**
+     * Returns the pages stored in this index. Positions are returned in insertion order
+     * regardless of any sorting performed on the index.
+     */
+    public Iterator<Page> getPages()
+    {
+        return new AbstractIterator<Page>()
+        {
+            private int pageCounter;
+
+            @Override
+            protected Page computeNext()
+            {
+                if (channels.length == 0 || pageCounter == channels[0].size()) {
+                    return endOfData();
+                }
+
+                Block[] blocks = new Block[channels.length];
+                for (int i = 0; i < channels.length; i++) {
+                    blocks[i] = channels[i].get(pageCounter);
+                }
+                pageCounter++;
+                return new Page(blocks);
+            }
+        };
+    }
+
+    /**
+     * Returns the rows of this index in the current order of value addresses, e.g. after {@link #sort}.
+     */
+    public Iterator<Page> getSortedPages()
+    {
+        int[] outputChannels = new int[types.size()];
+        for (int i = 0; i < outputChannels.length; i++) {
+            outputChannels[i] = i;
+        }
+        PageBuilder pageBuilder = new PageBuilder(types);
+
+        return new AbstractIterator<Page>()
+        {
+            private int currentPosition;
+
+            @Override
+            protected Page computeNext()
+            {
+                if (currentPosition >= positionCount) {
+                    return endOfData();
+                }
+
+                pageBuilder.reset();
+                currentPosition = buildPage(currentPosition, outputChannels, pageBuilder);
+                return pageBuilder.build();
+            }
+        };
+    }
+
     public Type getType(int channel)
     {
         return types.get(channel);
@@ -330,6 +391,32 @@ public class PagesIndex
             Optional<Integer> hashChannel,
             Optional<JoinFilterFunctionFactory> filterFunctionFactory)
     {
+        return createLookupSourceSupplier(session, joinChannels, hashChannel, filterFunctionFactory, directExecutor(), 1);
+    }
+
+    /**
+     * Creates a lookup source supplier whose hash table is built by up to {@code buildConcurrency}
+     * threads of the build executor.
+     */
+    public Supplier<LookupSource> createLookupSourceSupplier(
+            Session session,
+            List<Integer> joinChannels,
+            Optional<Integer> hashChannel,
+            Optional<JoinFilterFunctionFactory> filterFunctionFactory,
+            Executor buildExecutor,
+            int buildConcurrency)
+    {
+        if (buildConcurrency > 1) {
+            // lazy blocks must not be loaded by several build threads at once
+            for (ObjectArrayList<Block> channel : this.channels) {
+                for (Block block : channel) {
+                    if (block instanceof LazyBlock) {
+                        ((LazyBlock) block).assureLoaded();
+                    }
+                }
+            }
+        }
+
         List<List<Block>> channels = ImmutableList.copyOf(this.channels);
         if (!joinChannels.isEmpty()) {
             // todo compiled implementation of lookup join does not support when we are joining with empty join channels.
@@ -343,7 +430,9 @@ public class PagesIndex
                         valueAddresses,
                         channels,
                         hashChannel,
-                        filterFunctionFactory);
+                        filterFunctionFactory,
+                        buildExecutor,
+                        buildConcurrency);
             }
             catch (Exception e) {
                 log.error(e, "Lookup source compile failed for types=%s error=%s", types, e);
@@ -362,7 +451,9 @@ public class PagesIndex
                 hashStrategy,
                 valueAddresses,
                 channels,
-                filterFunctionFactory);
+                filterFunctionFactory,
+                buildExecutor,
+                buildConcurrency);
     }
 
     @Override
@@ -0,0 +1,66 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Decides whether the partial aggregation operators of a plan node are worth running.
+ * A partial aggregation which sees about as many groups as input rows does not reduce
+ * the data sent to the final aggregation, so once an operator reports a window of at
+ * least {@code minRows} input rows whose unique rows ratio is above the threshold, all
+ * operators of the node pass their input through to the final aggregation instead.
+ */
+@ThreadSafe
+public class PartialAggregationController
+{
+    private final long minRows;
+    private final double uniqueRowsRatioThreshold;
+
+    private volatile boolean partialAggregationDisabled;
+
+    public PartialAggregationController(long minRows, double uniqueRowsRatioThreshold)
+    {
+        checkArgument(minRows > 0, "minRows must be positive");
+        checkArgument(uniqueRowsRatioThreshold > 0 && uniqueRowsRatioThreshold <= 1, "uniqueRowsRatioThreshold must be between 0 and 1");
+        this.minRows = minRows;
+        this.uniqueRowsRatioThreshold = uniqueRowsRatioThreshold;
+    }
+
+    /**
+     * Number of input rows an operator must aggregate before the unique rows ratio is evaluated.
+     */
+    public long getMinRows()
+    {
+        return minRows;
+    }
+
+    public boolean isPartialAggregationDisabled()
+    {
+        return partialAggregationDisabled;
+    }
+
+    /**
+     * Records the number of groups found in a window of input rows.
+     */
+    public void onWindowProcessed(long inputRows, long uniqueRows)
+    {
+        checkArgument(inputRows >= minRows, "window is smaller than minRows");
+        if (uniqueRows > inputRows * uniqueRowsRatioThreshold) {
+            partialAggregationDisabled = true;
+        }
+    }
+}
@@ -124,6 +124,68 @@ public class PartitionedLookupSource
         return encodePartitionedJoinPosition(partition, Ints.checkedCast(nextJoinPosition));
     }
 
+    @Override
+    public boolean isBatchLookupSupported()
+    {
+        return Arrays.stream(lookupSources).allMatch(LookupSource::isBatchLookupSupported);
+    }
+
+    @Override
+    public void getJoinPositions(int[] positions, int positionCount, Page hashChannelsPage, Page allChannelsPage, @Nullable long[] rawHashes, long[] joinPositions)
+    {
+        if (rawHashes == null) {
+            rawHashes = new long[positionCount];
+            for (int i = 0; i < positionCount; i++) {
+                rawHashes[i] = partitionGenerator.getRawHash(positions[i], hashChannelsPage);
+            }
+        }
+
+        // group the positions by partition, so the positions of every partition are looked up in a single batch
+        int[] positionPartitions = new int[positionCount];
+        int[] partitionSizes = new int[lookupSources.length];
+        for (int i = 0; i < positionCount; i++) {
+            int partition = partitionGenerator.getPartition(rawHashes[i]);
+            positionPartitions[i] = partition;
+            partitionSizes[partition]++;
+        }
+
+        int[][] partitionIndexes = new int[lookupSources.length][];
+        int[][] partitionPositions = new int[lookupSources.length][];
+        long[][] partitionRawHashes = new long[lookupSources.length][];
+        for (int partition = 0; partition < lookupSources.length; partition++) {
+            partitionIndexes[partition] = new int[partitionSizes[partition]];
+            partitionPositions[partition] = new int[partitionSizes[partition]];
+            partitionRawHashes[partition] = new long[partitionSizes[partition]];
+        }
+        int[] partitionFill = new int[lookupSources.length];
+        for (int i = 0; i < positionCount; i++) {
+            int partition = positionPartitions[i];
+            int index = partitionFill[partition]++;
+            partitionIndexes[partition][index] = i;
+            partitionPositions[partition][index] = positions[i];
+            partitionRawHashes[partition][index] = rawHashes[i];
+        }
+
+        for (int partition = 0; partition < lookupSources.length; partition++) {
+            int size = partitionSizes[partition];
+            if (size == 0) {
+                continue;
+            }
+            long[] partitionJoinPositions = new long[size];
+            lookupSources[partition].getJoinPositions(partitionPositions[partition], size, hashChannelsPage, allChannelsPage, partitionRawHashes[partition], partitionJoinPositions);
+            for (int index = 0; index < size; index++) {
+                long joinPosition = partitionJoinPositions[index];
+                joinPositions[partitionIndexes[partition][index]] = joinPosition < 0 ? joinPosition : encodePartitionedJoinPosition(partition, Ints.checkedCast(joinPosition));
+            }
+        }
+    }
+
+    @Override
+    public boolean hasUniqueJoinKeys()
+    {
+        return Arrays.stream(lookupSources).allMatch(LookupSource::hasUniqueJoinKeys);
+    }
+
     @Override
     public void appendTo(long partitionedJoinPosition, PageBuilder pageBuilder, int outputChannelOffset)
     {
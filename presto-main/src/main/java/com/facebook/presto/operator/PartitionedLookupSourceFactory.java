@@ -25,6 +25,7 @@ import io.airlift.concurrent.MoreFutures;
 import javax.annotation.concurrent.GuardedBy;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
@@ -39,6 +40,9 @@ import static java.util.Objects.requireNonNull;
 public final class PartitionedLookupSourceFactory
         implements LookupSourceFactory
 {
+    // each lookup source partition is split into this many spill partitions, so only a fraction of a partition has to be spilled
+    private static final int SPILL_PARTITIONS_PER_PARTITION = 8;
+
     private final List<Type> types;
     private final Map<Symbol, Integer> layout;
     private final List<Type> hashChannelTypes;
@@ -55,6 +59,9 @@ public final class PartitionedLookupSourceFactory
     @GuardedBy("this")
     private final List<SettableFuture<LookupSource>> lookupSourceFutures = new ArrayList<>();
 
+    @GuardedBy("this")
+    private final Map<Integer, SpilledLookupSourcePartition> spilledPartitions = new HashMap<>();
+
     public PartitionedLookupSourceFactory(List<Type> types, List<Integer> hashChannels, int partitionCount, Map<Symbol, Integer> layout, boolean outer)
     {
         this.types = ImmutableList.copyOf(requireNonNull(types, "types is null"));
@@ -79,6 +86,23 @@ public final class PartitionedLookupSourceFactory
         return layout;
     }
 
+    public int getPartitionCount()
+    {
+        return partitions.length;
+    }
+
+    @Override
+    public int getSpillPartitionCount()
+    {
+        return partitions.length * SPILL_PARTITIONS_PER_PARTITION;
+    }
+
+    @Override
+    public synchronized Map<Integer, SpilledLookupSourcePartition> getSpilledPartitions()
+    {
+        return ImmutableMap.copyOf(spilledPartitions);
+    }
+
     @Override
     public synchronized ListenableFuture<LookupSource> createLookupSource()
     {
@@ -131,10 +155,39 @@ public final class PartitionedLookupSourceFactory
         }
     }
 
+    /**
+     * Sets the in memory part of a partition together with the spill partitions of the partition
+     * which were spilled to disk.
+     */
+    public void setPartitionLookupSourceSupplier(int partitionIndex, Supplier<LookupSource> partitionLookupSource, Map<Integer, SpilledLookupSourcePartition> spilledPartitions)
+    {
+        requireNonNull(spilledPartitions, "spilledPartitions is null");
+
+        boolean destroyed;
+        synchronized (this) {
+            destroyed = this.destroyed.isDone();
+            if (!destroyed) {
+                this.spilledPartitions.putAll(spilledPartitions);
+            }
+        }
+        if (destroyed) {
+            spilledPartitions.values().forEach(SpilledLookupSourcePartition::close);
+            return;
+        }
+
+        setPartitionLookupSourceSupplier(partitionIndex, partitionLookupSource);
+    }
+
     @Override
     public void destroy()
     {
-        destroyed.complete(null);
+        List<SpilledLookupSourcePartition> spilledPartitions;
+        synchronized (this) {
+            destroyed.complete(null);
+            spilledPartitions = ImmutableList.copyOf(this.spilledPartitions.values());
+            this.spilledPartitions.clear();
+        }
+        spilledPartitions.forEach(SpilledLookupSourcePartition::close);
     }
 
     public CompletableFuture<?> isDestroyed()
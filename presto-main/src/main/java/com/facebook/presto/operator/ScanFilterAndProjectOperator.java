@@ -22,6 +22,8 @@ import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.RecordCursor;
 import com.facebook.presto.spi.RecordPageSource;
 import com.facebook.presto.spi.UpdatablePageSource;
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.TupleDomain;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.split.PageSourceProvider;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
@@ -29,10 +31,13 @@ import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
@@ -42,6 +47,7 @@ import static com.facebook.presto.sql.analyzer.FeaturesConfig.ProcessingOptimiza
 import static com.facebook.presto.sql.analyzer.FeaturesConfig.ProcessingOptimization.COLUMNAR_DICTIONARY;
 import static com.facebook.presto.sql.analyzer.FeaturesConfig.ProcessingOptimization.DISABLED;
 import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
 import static io.airlift.concurrent.MoreFutures.toListenableFuture;
 import static java.util.Objects.requireNonNull;
 
@@ -62,6 +68,11 @@ public class ScanFilterAndProjectOperator
     private final LocalMemoryContext pageBuilderMemoryContext;
     private final SettableFuture<?> blocked = SettableFuture.create();
     private final String processingOptimization;
+    private final Optional<DynamicFilter> dynamicFilter;
+
+    // page channels and domains used to filter the rows by the dynamic filter
+    private int[] dynamicFilterChannels = new int[0];
+    private DomainPositionFilter[] dynamicFilterPositionFilters = new DomainPositionFilter[0];
 
     private RecordCursor cursor;
     private ConnectorPageSource pageSource;
@@ -82,7 +93,8 @@ public class ScanFilterAndProjectOperator
             CursorProcessor cursorProcessor,
             PageProcessor pageProcessor,
             Iterable<ColumnHandle> columns,
-            Iterable<Type> types)
+            Iterable<Type> types,
+            Optional<DynamicFilter> dynamicFilter)
     {
         this.cursorProcessor = requireNonNull(cursorProcessor, "cursorProcessor is null");
         this.pageProcessor = requireNonNull(pageProcessor, "pageProcessor is null");
@@ -94,6 +106,7 @@ public class ScanFilterAndProjectOperator
         this.pageSourceMemoryContext = operatorContext.getSystemMemoryContext().newLocalMemoryContext();
         this.pageBuilderMemoryContext = operatorContext.getSystemMemoryContext().newLocalMemoryContext();
         this.processingOptimization = getProcessingOptimization(operatorContext.getSession());
+        this.dynamicFilter = requireNonNull(dynamicFilter, "dynamicFilter is null");
 
         this.pageBuilder = new PageBuilder(getTypes());
     }
@@ -191,6 +204,9 @@ public class ScanFilterAndProjectOperator
         if (!blocked.isDone()) {
             return blocked;
         }
+        if (isWaitingForDynamicFilter()) {
+            return dynamicFilter.get().getTupleDomain();
+        }
         if (pageSource != null) {
             CompletableFuture<?> pageSourceBlocked = pageSource.isBlocked();
             return pageSourceBlocked.isDone() ? NOT_BLOCKED : toListenableFuture(pageSourceBlocked);
@@ -219,8 +235,18 @@ public class ScanFilterAndProjectOperator
 
         if (!finishing) {
             if ((pageSource == null) && (cursor == null)) {
-                ConnectorPageSource source = pageSourceProvider.createPageSource(operatorContext.getSession(), split, columns);
-                if (source instanceof RecordPageSource) {
+                if (isWaitingForDynamicFilter()) {
+                    return null;
+                }
+                TupleDomain<ColumnHandle> dynamicFilterDomain = getDynamicFilterDomain();
+                if (dynamicFilterDomain.isNone()) {
+                    // no row of the split can have a match on the build side of the join
+                    finishing = true;
+                    return null;
+                }
+                ConnectorPageSource source = pageSourceProvider.createPageSource(operatorContext.getSession(), split, columns, dynamicFilterDomain);
+                // the rows of a cursor are read as pages when they have to be filtered by the dynamic filter
+                if (source instanceof RecordPageSource && dynamicFilterChannels.length == 0) {
                     cursor = ((RecordPageSource) source).getCursor();
                 }
                 else {
@@ -254,6 +280,8 @@ public class ScanFilterAndProjectOperator
                         operatorContext.recordGeneratedInput(endCompletedBytes - completedBytes, currentPage.getPositionCount(), endReadTimeNanos - readTimeNanos);
                         completedBytes = endCompletedBytes;
                         readTimeNanos = endReadTimeNanos;
+
+                        currentPage = filterByDynamicFilter(currentPage);
                     }
 
                     currentPosition = 0;
@@ -303,6 +331,67 @@ public class ScanFilterAndProjectOperator
         return page;
     }
 
+    private boolean isWaitingForDynamicFilter()
+    {
+        return split != null && pageSource == null && cursor == null && !finishing && dynamicFilter.isPresent() && !dynamicFilter.get().getTupleDomain().isDone();
+    }
+
+    private TupleDomain<ColumnHandle> getDynamicFilterDomain()
+    {
+        if (!dynamicFilter.isPresent()) {
+            return TupleDomain.all();
+        }
+
+        TupleDomain<ColumnHandle> tupleDomain = getFutureValue(dynamicFilter.get().getTupleDomain());
+        if (tupleDomain.isNone()) {
+            return tupleDomain;
+        }
+
+        Map<ColumnHandle, Domain> domains = tupleDomain.getDomains().get();
+        IntArrayList channels = new IntArrayList();
+        List<DomainPositionFilter> positionFilters = new ArrayList<>();
+        for (int channel = 0; channel < columns.size(); channel++) {
+            Domain domain = domains.get(columns.get(channel));
+            // all domains do not remove any rows, so they are not checked
+            if (domain != null && !domain.isAll()) {
+                channels.add(channel);
+                positionFilters.add(DomainPositionFilter.create(domain));
+            }
+        }
+        dynamicFilterChannels = channels.toIntArray();
+        dynamicFilterPositionFilters = positionFilters.toArray(new DomainPositionFilter[positionFilters.size()]);
+        return tupleDomain;
+    }
+
+    /**
+     * Removes the rows which can not have a match on the build side of the join. The page source
+     * may have already skipped some of them, but it is not required to filter individual rows.
+     * This also applies to record cursors, which are read as pages when there is a dynamic filter.
+     */
+    private Page filterByDynamicFilter(Page page)
+    {
+        if (dynamicFilterChannels.length == 0) {
+            return page;
+        }
+
+        int[] positions = new int[page.getPositionCount()];
+        for (int position = 0; position < positions.length; position++) {
+            positions[position] = position;
+        }
+        int positionCount = positions.length;
+        for (int i = 0; i < dynamicFilterChannels.length && positionCount > 0; i++) {
+            positionCount = dynamicFilterPositionFilters[i].filter(page.getBlock(dynamicFilterChannels[i]), positions, positionCount);
+        }
+
+        if (positionCount == page.getPositionCount()) {
+            return page;
+        }
+        if (positionCount == 0) {
+            return null;
+        }
+        return LazyPages.selectPositions(page, positions, positionCount);
+    }
+
     public static class ScanFilterAndProjectOperatorFactory
             implements SourceOperatorFactory
     {
@@ -314,6 +403,7 @@ public class ScanFilterAndProjectOperator
         private final PageSourceProvider pageSourceProvider;
         private final List<ColumnHandle> columns;
         private final List<Type> types;
+        private final Optional<DynamicFilter> dynamicFilter;
         private boolean closed;
 
         public ScanFilterAndProjectOperatorFactory(
@@ -325,6 +415,20 @@ public class ScanFilterAndProjectOperator
                 Supplier<PageProcessor> pageProcessor,
                 Iterable<ColumnHandle> columns,
                 List<Type> types)
+        {
+            this(operatorId, planNodeId, sourceId, pageSourceProvider, cursorProcessor, pageProcessor, columns, types, Optional.empty());
+        }
+
+        public ScanFilterAndProjectOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                PlanNodeId sourceId,
+                PageSourceProvider pageSourceProvider,
+                Supplier<CursorProcessor> cursorProcessor,
+                Supplier<PageProcessor> pageProcessor,
+                Iterable<ColumnHandle> columns,
+                List<Type> types,
+                Optional<DynamicFilter> dynamicFilter)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -334,6 +438,7 @@ public class ScanFilterAndProjectOperator
             this.pageSourceProvider = requireNonNull(pageSourceProvider, "pageSourceProvider is null");
             this.columns = ImmutableList.copyOf(requireNonNull(columns, "columns is null"));
             this.types = requireNonNull(types, "types is null");
+            this.dynamicFilter = requireNonNull(dynamicFilter, "dynamicFilter is null");
         }
 
         @Override
@@ -360,7 +465,8 @@ public class ScanFilterAndProjectOperator
                     cursorProcessor.get(),
                     pageProcessor.get(),
                     columns,
-                    types);
+                    types,
+                    dynamicFilter);
         }
 
         @Override
@@ -0,0 +1,340 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.Spiller;
+import com.facebook.presto.spiller.SpillerFactory;
+import com.facebook.presto.sql.gen.JoinFilterFunctionCompiler.JoinFilterFunctionFactory;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Build side rows of a single spill partition which were written to disk by a {@link HashBuilderOperator}.
+ * <p>
+ * Probe operators acquire the partition once they have joined all their in-memory rows. The build operator
+ * owning the partition then loads it back into a lookup source which is shared by all probe operators, and
+ * drops it once every probe operator released it. A partition which does not fit in memory is split into
+ * sub-partitions instead, and the probe operators join their rows with each sub-partition separately.
+ */
+@ThreadSafe
+public class SpilledLookupSourcePartition
+        implements AutoCloseable
+{
+    public static final int SUB_PARTITION_COUNT = 4;
+    // partitions still too large at this level are loaded anyway, since the keys of their rows are most likely all the same
+    private static final int MAX_LEVEL = 2;
+
+    private final Session session;
+    private final List<Type> types;
+    private final List<Integer> hashChannels;
+    private final Optional<Integer> preComputedHashChannel;
+    private final Optional<JoinFilterFunctionFactory> filterFunctionFactory;
+    private final int expectedPositions;
+    private final SpillerFactory spillerFactory;
+    private final long memoryLimitBeforeSpill;
+    private final int level;
+    private final long spilledBytes;
+
+    // null if the partition has no rows
+    @GuardedBy("this")
+    private Spiller spiller;
+
+    @GuardedBy("this")
+    private int references;
+
+    // set once a probe operator requested the partition, and done once it is loaded or split
+    @GuardedBy("this")
+    private SettableFuture<UnspilledPartition> unspilled;
+
+    @GuardedBy("this")
+    private SettableFuture<?> requestsChanged = SettableFuture.create();
+
+    @GuardedBy("this")
+    private long loadedBytes;
+
+    // the rows of the partition are in its sub-partitions
+    @GuardedBy("this")
+    private boolean split;
+
+    @GuardedBy("this")
+    private boolean closed;
+
+    public SpilledLookupSourcePartition(
+            Session session,
+            List<Type> types,
+            List<Integer> hashChannels,
+            Optional<Integer> preComputedHashChannel,
+            Optional<JoinFilterFunctionFactory> filterFunctionFactory,
+            int expectedPositions,
+            SpillerFactory spillerFactory,
+            long memoryLimitBeforeSpill,
+            int level,
+            long spilledBytes,
+            Optional<Spiller> spiller)
+    {
+        this.session = requireNonNull(session, "session is null");
+        this.types = ImmutableList.copyOf(requireNonNull(types, "types is null"));
+        this.hashChannels = ImmutableList.copyOf(requireNonNull(hashChannels, "hashChannels is null"));
+        this.preComputedHashChannel = requireNonNull(preComputedHashChannel, "preComputedHashChannel is null");
+        this.filterFunctionFactory = requireNonNull(filterFunctionFactory, "filterFunctionFactory is null");
+        this.expectedPositions = expectedPositions;
+        this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
+        this.memoryLimitBeforeSpill = memoryLimitBeforeSpill;
+        this.level = level;
+        this.spilledBytes = spilledBytes;
+        this.spiller = requireNonNull(spiller, "spiller is null").orElse(null);
+    }
+
+    /**
+     * Spiller factory which should be used by the probe side for the rows of spilled partitions.
+     */
+    public SpillerFactory getSpillerFactory()
+    {
+        return spillerFactory;
+    }
+
+    public long getMemoryLimitBeforeSpill()
+    {
+        return memoryLimitBeforeSpill;
+    }
+
+    /**
+     * Number of times the rows of this partition were split, which is also the level of the probe rows matching it.
+     */
+    public int getLevel()
+    {
+        return level;
+    }
+
+    /**
+     * Called by a probe operator which has rows in this partition. The returned future is done once the owning
+     * build operator loaded or split the partition. Every call must be followed by a call to {@link #release()}.
+     */
+    public synchronized ListenableFuture<UnspilledPartition> acquire()
+    {
+        checkState(!closed, "Partition is closed");
+        references++;
+        if (unspilled == null) {
+            unspilled = SettableFuture.create();
+            notifyRequestsChanged();
+        }
+        return unspilled;
+    }
+
+    public synchronized void release()
+    {
+        checkState(references > 0, "Partition is not acquired");
+        references--;
+        if (references == 0) {
+            notifyRequestsChanged();
+        }
+    }
+
+    /**
+     * Future which is done once the build operator owning the partition has work to do in {@link #update()}.
+     */
+    public synchronized ListenableFuture<?> getRequestsChanged()
+    {
+        return requestsChanged;
+    }
+
+    /**
+     * Size of the lookup source of the partition while it is loaded.
+     */
+    public synchronized long getLoadedBytes()
+    {
+        return loadedBytes;
+    }
+
+    /**
+     * Called by the build operator owning the partition. Loads the partition if a probe operator requested it,
+     * or drops the loaded partition once no probe operator uses it. Returns the sub-partitions the partition
+     * was split into, which are owned by the same build operator from then on.
+     */
+    public List<SpilledLookupSourcePartition> update()
+    {
+        SettableFuture<UnspilledPartition> unspilled;
+        synchronized (this) {
+            if (closed || this.unspilled == null) {
+                return ImmutableList.of();
+            }
+            if (this.unspilled.isDone()) {
+                if (references == 0 && !split) {
+                    // a probe operator which acquires the partition later on loads it again
+                    this.unspilled = null;
+                    loadedBytes = 0;
+                }
+                return ImmutableList.of();
+            }
+            unspilled = this.unspilled;
+        }
+
+        try {
+            if (spilledBytes > memoryLimitBeforeSpill && level < MAX_LEVEL) {
+                List<SpilledLookupSourcePartition> subPartitions = split();
+                Spiller spiller;
+                synchronized (this) {
+                    split = true;
+                    spiller = this.spiller;
+                    this.spiller = null;
+                }
+                if (spiller != null) {
+                    spiller.close();
+                }
+                unspilled.set(new UnspilledPartition(Optional.empty(), subPartitions));
+                return subPartitions;
+            }
+
+            PagesIndex index = loadPages();
+            Supplier<LookupSource> lookupSourceSupplier = index.createLookupSourceSupplier(session, hashChannels, preComputedHashChannel, filterFunctionFactory);
+            synchronized (this) {
+                loadedBytes = index.getEstimatedSize().toBytes() + lookupSourceSupplier.get().getInMemorySizeInBytes();
+            }
+            unspilled.set(new UnspilledPartition(Optional.of(lookupSourceSupplier), ImmutableList.of()));
+            return ImmutableList.of();
+        }
+        catch (RuntimeException | Error e) {
+            unspilled.setException(e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        Spiller spiller;
+        synchronized (this) {
+            closed = true;
+            loadedBytes = 0;
+            spiller = this.spiller;
+            this.spiller = null;
+            if (unspilled != null) {
+                // probe operators waiting for the partition are not left blocked forever
+                unspilled.cancel(true);
+            }
+        }
+        if (spiller != null) {
+            spiller.close();
+        }
+    }
+
+    private List<SpilledLookupSourcePartition> split()
+    {
+        int subLevel = level + 1;
+        JoinPartitionSpiller subPartitionSpiller = new JoinPartitionSpiller(types, hashChannels, preComputedHashChannel, SUB_PARTITION_COUNT, subLevel, spillerFactory);
+        try {
+            for (int subPartition = 0; subPartition < SUB_PARTITION_COUNT; subPartition++) {
+                subPartitionSpiller.markSpilled(subPartition);
+            }
+            for (Iterator<Page> pages : getSpills()) {
+                while (pages.hasNext()) {
+                    subPartitionSpiller.partitionPage(pages.next());
+                    if (subPartitionSpiller.getBufferedBytes() > memoryLimitBeforeSpill) {
+                        getFutureValue(subPartitionSpiller.flush());
+                    }
+                }
+            }
+            getFutureValue(subPartitionSpiller.flush());
+
+            Map<Integer, Spiller> spillers = subPartitionSpiller.releaseSpillers();
+            ImmutableList.Builder<SpilledLookupSourcePartition> subPartitions = ImmutableList.builder();
+            for (int subPartition = 0; subPartition < SUB_PARTITION_COUNT; subPartition++) {
+                subPartitions.add(new SpilledLookupSourcePartition(
+                        session,
+                        types,
+                        hashChannels,
+                        preComputedHashChannel,
+                        filterFunctionFactory,
+                        expectedPositions,
+                        spillerFactory,
+                        memoryLimitBeforeSpill,
+                        subLevel,
+                        subPartitionSpiller.getSpilledBytes(subPartition),
+                        Optional.ofNullable(spillers.get(subPartition))));
+            }
+            return subPartitions.build();
+        }
+        finally {
+            subPartitionSpiller.close();
+        }
+    }
+
+    private PagesIndex loadPages()
+    {
+        PagesIndex index = new PagesIndex(types, expectedPositions);
+        for (Iterator<Page> pages : getSpills()) {
+            pages.forEachRemaining(index::addPage);
+        }
+        return index;
+    }
+
+    private synchronized List<Iterator<Page>> getSpills()
+    {
+        if (spiller == null) {
+            return ImmutableList.of();
+        }
+        return spiller.getSpills();
+    }
+
+    @GuardedBy("this")
+    private void notifyRequestsChanged()
+    {
+        SettableFuture<?> requestsChanged = this.requestsChanged;
+        this.requestsChanged = SettableFuture.create();
+        requestsChanged.set(null);
+    }
+
+    /**
+     * State of a partition once the build operator handled the request of the probe side: either the shared
+     * lookup source of the partition, or the sub-partitions it was split into.
+     */
+    public static class UnspilledPartition
+    {
+        private final Optional<Supplier<LookupSource>> lookupSourceSupplier;
+        private final List<SpilledLookupSourcePartition> subPartitions;
+
+        public UnspilledPartition(Optional<Supplier<LookupSource>> lookupSourceSupplier, List<SpilledLookupSourcePartition> subPartitions)
+        {
+            this.lookupSourceSupplier = requireNonNull(lookupSourceSupplier, "lookupSourceSupplier is null");
+            this.subPartitions = ImmutableList.copyOf(requireNonNull(subPartitions, "subPartitions is null"));
+        }
+
+        public Optional<Supplier<LookupSource>> getLookupSourceSupplier()
+        {
+            return lookupSourceSupplier;
+        }
+
+        public List<SpilledLookupSourcePartition> getSubPartitions()
+        {
+            return subPartitions;
+        }
+    }
+}
@@ -54,6 +54,7 @@ public class TaskContext
 
     private final AtomicLong memoryReservation = new AtomicLong();
     private final AtomicLong systemMemoryReservation = new AtomicLong();
+    private final AtomicLong revocableMemoryReservation = new AtomicLong();
 
     private final long createNanos = System.nanoTime();
 
@@ -164,6 +165,13 @@ public class TaskContext
         return future;
     }
 
+    public synchronized void reserveRevocableMemory(long bytes)
+    {
+        checkArgument(bytes >= 0, "bytes is negative");
+        queryContext.reserveRevocableMemory(bytes);
+        revocableMemoryReservation.getAndAdd(bytes);
+    }
+
     public synchronized boolean tryReserveMemory(long bytes)
     {
         checkArgument(bytes >= 0, "bytes is negative");
@@ -191,6 +199,24 @@ public class TaskContext
         queryContext.freeSystemMemory(bytes);
     }
 
+    public synchronized void freeRevocableMemory(long bytes)
+    {
+        checkArgument(bytes >= 0, "bytes is negative");
+        checkArgument(bytes <= revocableMemoryReservation.get(), "tried to free more revocable memory than is reserved");
+        revocableMemoryReservation.getAndAdd(-bytes);
+        queryContext.freeRevocableMemory(bytes);
+    }
+
+    public long getRevocableMemoryReservation()
+    {
+        return revocableMemoryReservation.get();
+    }
+
+    public List<PipelineContext> getPipelineContexts()
+    {
+        return ImmutableList.copyOf(pipelineContexts);
+    }
+
     public void moreMemoryAvailable()
     {
         pipelineContexts.stream().forEach(PipelineContext::moreMemoryAvailable);
@@ -13,29 +13,46 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.operator.MergeHashSort.PagePosition;
 import com.facebook.presto.operator.window.FramedWindowFunction;
 import com.facebook.presto.operator.window.WindowPartition;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
 import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.Spiller;
+import com.facebook.presto.spiller.SpillerFactory;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.units.DataSize;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Stream;
 
+import static com.facebook.presto.operator.MergeSortedPages.mergeSortedPages;
 import static com.facebook.presto.spi.block.SortOrder.ASC_NULLS_LAST;
+import static com.facebook.presto.spiller.DisabledSpillerFactory.DISABLED_SPILLER_FACTORY;
+import static com.facebook.presto.type.TypeUtils.positionEqualsPosition;
 import static com.facebook.presto.util.ImmutableCollectors.toImmutableList;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkPositionIndex;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.Iterables.concat;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
+import static io.airlift.concurrent.MoreFutures.toListenableFuture;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.util.Collections.nCopies;
 import static java.util.Objects.requireNonNull;
 
@@ -57,6 +74,9 @@ public class WindowOperator
         private final int preSortedChannelPrefix;
         private final int expectedPositions;
         private final List<Type> types;
+        private final boolean spillEnabled;
+        private final DataSize memoryLimitBeforeSpill;
+        private final SpillerFactory spillerFactory;
         private boolean closed;
 
         public WindowOperatorFactory(
@@ -71,6 +91,38 @@ public class WindowOperator
                 List<SortOrder> sortOrder,
                 int preSortedChannelPrefix,
                 int expectedPositions)
+        {
+            this(operatorId,
+                    planNodeId,
+                    sourceTypes,
+                    outputChannels,
+                    windowFunctionDefinitions,
+                    partitionChannels,
+                    preGroupedChannels,
+                    sortChannels,
+                    sortOrder,
+                    preSortedChannelPrefix,
+                    expectedPositions,
+                    false,
+                    new DataSize(0, MEGABYTE),
+                    DISABLED_SPILLER_FACTORY);
+        }
+
+        public WindowOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<? extends Type> sourceTypes,
+                List<Integer> outputChannels,
+                List<WindowFunctionDefinition> windowFunctionDefinitions,
+                List<Integer> partitionChannels,
+                List<Integer> preGroupedChannels,
+                List<Integer> sortChannels,
+                List<SortOrder> sortOrder,
+                int preSortedChannelPrefix,
+                int expectedPositions,
+                boolean spillEnabled,
+                DataSize memoryLimitBeforeSpill,
+                SpillerFactory spillerFactory)
         {
             requireNonNull(sourceTypes, "sourceTypes is null");
             requireNonNull(planNodeId, "planNodeId is null");
@@ -102,6 +154,9 @@ public class WindowOperator
                     windowFunctionDefinitions.stream()
                             .map(WindowFunctionDefinition::getType))
                     .collect(toImmutableList());
+            this.spillEnabled = spillEnabled;
+            this.memoryLimitBeforeSpill = requireNonNull(memoryLimitBeforeSpill, "memoryLimitBeforeSpill is null");
+            this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
         }
 
         @Override
@@ -126,7 +181,10 @@ public class WindowOperator
                     sortChannels,
                     sortOrder,
                     preSortedChannelPrefix,
-                    expectedPositions);
+                    expectedPositions,
+                    spillEnabled,
+                    memoryLimitBeforeSpill,
+                    spillerFactory);
         }
 
         @Override
@@ -149,7 +207,10 @@ public class WindowOperator
                 sortChannels,
                 sortOrder,
                 preSortedChannelPrefix,
-                expectedPositions);
+                expectedPositions,
+                spillEnabled,
+                memoryLimitBeforeSpill,
+                spillerFactory);
         }
     }
 
@@ -162,23 +223,43 @@ public class WindowOperator
     }
 
     private final OperatorContext operatorContext;
+    private final List<Type> sourceTypes;
     private final int[] outputChannels;
     private final List<FramedWindowFunction> windowFunctions;
     private final List<Integer> orderChannels;
     private final List<SortOrder> ordering;
     private final List<Type> types;
+    private final int expectedPositions;
 
+    private final List<Integer> preGroupedChannelsList;
     private final int[] preGroupedChannels;
+    private final List<Integer> unGroupedPartitionChannels;
+    private final List<Integer> preSortedChannels;
+    private final List<Integer> sortChannels;
 
-    private final PagesHashStrategy preGroupedPartitionHashStrategy;
-    private final PagesHashStrategy unGroupedPartitionHashStrategy;
-    private final PagesHashStrategy preSortedPartitionHashStrategy;
-    private final PagesHashStrategy peerGroupHashStrategy;
+    private PagesHashStrategy preGroupedPartitionHashStrategy;
+    private PagesHashStrategy unGroupedPartitionHashStrategy;
+    private PagesHashStrategy preSortedPartitionHashStrategy;
+    private PagesHashStrategy peerGroupHashStrategy;
 
-    private final PagesIndex pagesIndex;
+    private PagesIndex pagesIndex;
 
     private final PageBuilder pageBuilder;
 
+    private final boolean spillEnabled;
+    private final long memoryLimitBeforeSpill;
+    private final SpillerFactory spillerFactory;
+
+    // sorted runs of the current pre-grouped group which were written to disk
+    private Optional<Spiller> spiller = Optional.empty();
+    private CompletableFuture<?> spillInProgress = CompletableFuture.completedFuture(null);
+    private long spillMemoryUsage;
+    // pre-grouped channel values of the spilled group, needed because the index is empty after a spill
+    private Page spilledGroupKey;
+    // rows of the spilled group in window order, loaded into the index one partition at a time
+    private PeekingIterator<PagePosition> mergedRows;
+    private PageBuilder mergedRowsPageBuilder;
+
     private State state = State.NEEDS_INPUT;
 
     private WindowPartition partition;
@@ -195,7 +276,10 @@ public class WindowOperator
             List<Integer> sortChannels,
             List<SortOrder> sortOrder,
             int preSortedChannelPrefix,
-            int expectedPositions)
+            int expectedPositions,
+            boolean spillEnabled,
+            DataSize memoryLimitBeforeSpill,
+            SpillerFactory spillerFactory)
     {
         requireNonNull(operatorContext, "operatorContext is null");
         requireNonNull(outputChannels, "outputChannels is null");
@@ -210,6 +294,7 @@ public class WindowOperator
         checkArgument(preSortedChannelPrefix == 0 || ImmutableSet.copyOf(preGroupedChannels).equals(ImmutableSet.copyOf(partitionChannels)), "preSortedChannelPrefix can only be greater than zero if all partition channels are pre-grouped");
 
         this.operatorContext = operatorContext;
+        this.sourceTypes = ImmutableList.copyOf(sourceTypes);
         this.outputChannels = Ints.toArray(outputChannels);
         this.windowFunctions = windowFunctionDefinitions.stream()
                 .map(functionDefinition -> new FramedWindowFunction(functionDefinition.createWindowFunction(), functionDefinition.getFrameInfo()))
@@ -222,21 +307,25 @@ public class WindowOperator
                         .map(WindowFunctionDefinition::getType))
                 .collect(toImmutableList());
 
-        this.pagesIndex = new PagesIndex(sourceTypes, expectedPositions);
+        this.expectedPositions = expectedPositions;
+        this.preGroupedChannelsList = ImmutableList.copyOf(preGroupedChannels);
         this.preGroupedChannels = Ints.toArray(preGroupedChannels);
-        this.preGroupedPartitionHashStrategy = pagesIndex.createPagesHashStrategy(preGroupedChannels, Optional.<Integer>empty());
-        List<Integer> unGroupedPartitionChannels = partitionChannels.stream()
+        this.unGroupedPartitionChannels = partitionChannels.stream()
                 .filter(channel -> !preGroupedChannels.contains(channel))
                 .collect(toImmutableList());
-        this.unGroupedPartitionHashStrategy = pagesIndex.createPagesHashStrategy(unGroupedPartitionChannels, Optional.empty());
-        List<Integer> preSortedChannels = sortChannels.stream()
+        this.preSortedChannels = sortChannels.stream()
                 .limit(preSortedChannelPrefix)
                 .collect(toImmutableList());
-        this.preSortedPartitionHashStrategy = pagesIndex.createPagesHashStrategy(preSortedChannels, Optional.<Integer>empty());
-        this.peerGroupHashStrategy = pagesIndex.createPagesHashStrategy(sortChannels, Optional.empty());
+        this.sortChannels = ImmutableList.copyOf(sortChannels);
+        createPagesIndex();
 
         this.pageBuilder = new PageBuilder(this.types);
 
+        // rows of pre-sorted groups are sorted within each pre-sorted range only, which a merge of sorted runs can not preserve
+        this.spillEnabled = spillEnabled && preSortedChannelPrefix == 0 && memoryLimitBeforeSpill.toBytes() > 0;
+        this.memoryLimitBeforeSpill = memoryLimitBeforeSpill.toBytes();
+        this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
+
         if (preSortedChannelPrefix > 0) {
             // This already implies that set(preGroupedChannels) == set(partitionChannels) (enforced with checkArgument)
             this.orderChannels = ImmutableList.copyOf(Iterables.skip(sortChannels, preSortedChannelPrefix));
@@ -269,7 +358,13 @@ public class WindowOperator
         }
         if (state == State.NEEDS_INPUT) {
             // Since was waiting for more input, prepare what we have for output since we will not be getting any more input
-            sortPagesIndexIfNecessary();
+            if (spiller.isPresent()) {
+                startMergingSpilledRuns();
+                loadNextSpilledPartition();
+            }
+            else {
+                sortPagesIndexIfNecessary();
+            }
         }
         state = State.FINISHING;
     }
@@ -280,10 +375,19 @@ public class WindowOperator
         return state == State.FINISHED;
     }
 
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        if (!spillInProgress.isDone()) {
+            return toListenableFuture(spillInProgress);
+        }
+        return NOT_BLOCKED;
+    }
+
     @Override
     public boolean needsInput()
     {
-        return state == State.NEEDS_INPUT;
+        return state == State.NEEDS_INPUT && spillInProgress.isDone();
     }
 
     @Override
@@ -292,6 +396,10 @@ public class WindowOperator
         checkState(state == State.NEEDS_INPUT, "Operator can not take input at this time");
         requireNonNull(page, "page is null");
         checkState(pendingInput == null, "Operator already has pending input");
+        checkState(spillInProgress.isDone(), "Previous spill hasn't yet finished");
+        // check for exception from previous spill for early failure
+        getFutureValue(spillInProgress);
+        spillMemoryUsage = 0;
 
         if (page.getPositionCount() == 0) {
             return;
@@ -301,7 +409,7 @@ public class WindowOperator
         if (processPendingInput()) {
             state = State.HAS_OUTPUT;
         }
-        operatorContext.setMemoryReservation(pagesIndex.getEstimatedSize().toBytes());
+        updateMemoryReservation();
     }
 
     /**
@@ -314,12 +422,18 @@ public class WindowOperator
 
         // If we have unused input or are finishing, then we have buffered a full group
         if (pendingInput != null || state == State.FINISHING) {
+            if (spiller.isPresent()) {
+                startMergingSpilledRuns();
+                return loadNextSpilledPartition();
+            }
             sortPagesIndexIfNecessary();
             return true;
         }
-        else {
-            return false;
+
+        if (spillEnabled && pagesIndex.getEstimatedSize().toBytes() > memoryLimitBeforeSpill) {
+            spillToDisk();
         }
+        return false;
     }
 
     /**
@@ -332,7 +446,17 @@ public class WindowOperator
 
         // TODO: Fix pagesHashStrategy to allow specifying channels for comparison, it currently requires us to rearrange the right side blocks in consecutive channel order
         Page preGroupedPage = rearrangePage(page, preGroupedChannels);
-        if (pagesIndex.getPositionCount() == 0 || pagesIndex.positionEqualsRow(preGroupedPartitionHashStrategy, 0, 0, preGroupedPage)) {
+        boolean currentGroup;
+        if (pagesIndex.getPositionCount() > 0) {
+            currentGroup = pagesIndex.positionEqualsRow(preGroupedPartitionHashStrategy, 0, 0, preGroupedPage);
+        }
+        else if (spilledGroupKey != null) {
+            currentGroup = preGroupedPartitionHashStrategy.rowEqualsRow(0, spilledGroupKey, 0, preGroupedPage);
+        }
+        else {
+            currentGroup = true;
+        }
+        if (currentGroup) {
             // Find the position where the pre-grouped columns change
             int groupEnd = findGroupEnd(preGroupedPage, preGroupedPartitionHashStrategy, 0);
 
@@ -371,10 +495,20 @@ public class WindowOperator
         }
 
         Page page = extractOutput();
-        operatorContext.setMemoryReservation(pagesIndex.getEstimatedSize().toBytes());
+        updateMemoryReservation();
         return page;
     }
 
+    @Override
+    public void close()
+    {
+        mergedRows = null;
+        if (spiller.isPresent()) {
+            spiller.get().close();
+            spiller = Optional.empty();
+        }
+    }
+
     private Page extractOutput()
     {
         // INVARIANT: pagesIndex contains the full grouped & sorted data for one or more partitions
@@ -389,8 +523,11 @@ public class WindowOperator
                     partition = null;
                     pagesIndex.clear();
 
-                    // Try to extract more partitions from the pendingInput
-                    if (pendingInput != null && processPendingInput()) {
+                    // Load the next partition of a spilled group, or try to extract more partitions from the pendingInput
+                    if (mergedRows != null && loadNextSpilledPartition()) {
+                        partitionStart = 0;
+                    }
+                    else if (pendingInput != null && processPendingInput()) {
                         partitionStart = 0;
                     }
                     else if (state == State.FINISHING) {
@@ -421,6 +558,117 @@ public class WindowOperator
         return page;
     }
 
+    private void createPagesIndex()
+    {
+        pagesIndex = new PagesIndex(sourceTypes, expectedPositions);
+        preGroupedPartitionHashStrategy = pagesIndex.createPagesHashStrategy(preGroupedChannelsList, Optional.<Integer>empty());
+        unGroupedPartitionHashStrategy = pagesIndex.createPagesHashStrategy(unGroupedPartitionChannels, Optional.empty());
+        preSortedPartitionHashStrategy = pagesIndex.createPagesHashStrategy(preSortedChannels, Optional.<Integer>empty());
+        peerGroupHashStrategy = pagesIndex.createPagesHashStrategy(sortChannels, Optional.empty());
+    }
+
+    private void updateMemoryReservation()
+    {
+        operatorContext.setMemoryReservation(pagesIndex.getEstimatedSize().toBytes() + spillMemoryUsage);
+    }
+
+    private void spillToDisk()
+    {
+        checkState(spillInProgress.isDone(), "Previous spill hasn't yet finished");
+        if (!spiller.isPresent()) {
+            spiller = Optional.of(spillerFactory.create(sourceTypes));
+            spilledGroupKey = extractPreGroupedKey(pagesIndex);
+        }
+
+        // write the index as a sorted run and hand its memory over to the spilling thread
+        PagesIndex sortedRun = pagesIndex;
+        sortedRun.sort(orderChannels, ordering);
+        spillMemoryUsage = sortedRun.getEstimatedSize().toBytes();
+        spillInProgress = spiller.get().spill(sortedRun.getSortedPages());
+
+        createPagesIndex();
+    }
+
+    private void startMergingSpilledRuns()
+    {
+        checkState(spiller.isPresent(), "Nothing was spilled");
+        getFutureValue(spillInProgress);
+
+        // the rows which were not spilled are merged as one more sorted run
+        PagesIndex inMemoryRun = pagesIndex;
+        inMemoryRun.sort(orderChannels, ordering);
+        spillMemoryUsage = inMemoryRun.getEstimatedSize().toBytes();
+        createPagesIndex();
+
+        List<Iterator<Page>> sortedRuns = ImmutableList.<Iterator<Page>>builder()
+                .addAll(spiller.get().getSpills())
+                .add(inMemoryRun.getSortedPages())
+                .build();
+        mergedRows = Iterators.peekingIterator(Iterators.filter(
+                mergeSortedPages(sortedRuns, sourceTypes, orderChannels, ordering),
+                position -> !position.isPositionOutOfPage()));
+        mergedRowsPageBuilder = new PageBuilder(sourceTypes);
+        spilledGroupKey = null;
+    }
+
+    /**
+     * Loads the next window partition of the spilled group into the index.
+     *
+     * @return false if all rows of the spilled group were processed
+     */
+    private boolean loadNextSpilledPartition()
+    {
+        checkState(pagesIndex.getPositionCount() == 0, "Index is not empty");
+        if (!mergedRows.hasNext()) {
+            mergedRows = null;
+            mergedRowsPageBuilder = null;
+            spillMemoryUsage = 0;
+            spiller.get().close();
+            spiller = Optional.empty();
+            return false;
+        }
+
+        // rows are merged in window order, so the loaded partition is already sorted
+        PagePosition partitionStart = mergedRows.peek();
+        mergedRowsPageBuilder.reset();
+        while (mergedRows.hasNext() && isSamePartition(partitionStart, mergedRows.peek())) {
+            PagePosition row = mergedRows.next();
+            mergedRowsPageBuilder.declarePosition();
+            for (int channel = 0; channel < sourceTypes.size(); channel++) {
+                sourceTypes.get(channel).appendTo(row.getPage().getBlock(channel), row.getPosition(), mergedRowsPageBuilder.getBlockBuilder(channel));
+            }
+            if (mergedRowsPageBuilder.isFull()) {
+                pagesIndex.addPage(mergedRowsPageBuilder.build());
+                mergedRowsPageBuilder.reset();
+            }
+        }
+        if (!mergedRowsPageBuilder.isEmpty()) {
+            pagesIndex.addPage(mergedRowsPageBuilder.build());
+        }
+        return true;
+    }
+
+    private boolean isSamePartition(PagePosition left, PagePosition right)
+    {
+        for (int channel : unGroupedPartitionChannels) {
+            if (!positionEqualsPosition(sourceTypes.get(channel), left.getPage().getBlock(channel), left.getPosition(), right.getPage().getBlock(channel), right.getPosition())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Page extractPreGroupedKey(PagesIndex pagesIndex)
+    {
+        Block[] blocks = new Block[preGroupedChannels.length];
+        for (int i = 0; i < preGroupedChannels.length; i++) {
+            BlockBuilder blockBuilder = sourceTypes.get(preGroupedChannels[i]).createBlockBuilder(new BlockBuilderStatus(), 1);
+            pagesIndex.appendTo(preGroupedChannels[i], 0, blockBuilder);
+            blocks[i] = blockBuilder.build();
+        }
+        return new Page(1, blocks);
+    }
+
     private void sortPagesIndexIfNecessary()
     {
         if (pagesIndex.getPositionCount() > 1 && !orderChannels.isEmpty()) {
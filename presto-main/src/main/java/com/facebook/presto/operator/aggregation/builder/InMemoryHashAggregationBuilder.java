@@ -58,6 +58,7 @@ public class InMemoryHashAggregationBuilder
     private final LocalMemoryContext systemMemoryContext;
 
     private boolean full;
+    private long inputRowCount;
 
     public InMemoryHashAggregationBuilder(
             List<AccumulatorFactory> accumulatorFactories,
@@ -119,6 +120,7 @@ public class InMemoryHashAggregationBuilder
     @Override
     public void processPage(Page page)
     {
+        inputRowCount += page.getPositionCount();
         if (aggregators.isEmpty()) {
             groupByHash.addPage(page);
         }
@@ -190,6 +192,11 @@ public class InMemoryHashAggregationBuilder
         return groupByHash.getGroupCount();
     }
 
+    public long getInputRowCount()
+    {
+        return inputRowCount;
+    }
+
     @Override
     public Iterator<Page> buildResult()
     {
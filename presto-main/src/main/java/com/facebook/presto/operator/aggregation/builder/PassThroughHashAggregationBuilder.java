@@ -0,0 +1,146 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.aggregation.builder;
+
+import com.facebook.presto.memory.LocalMemoryContext;
+import com.facebook.presto.operator.GroupByIdBlock;
+import com.facebook.presto.operator.OperatorContext;
+import com.facebook.presto.operator.aggregation.AccumulatorFactory;
+import com.facebook.presto.operator.aggregation.GroupedAccumulator;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
+/**
+ * Partial aggregation which does not aggregate. Every input row becomes a group of its own,
+ * and is emitted with the intermediate state of the aggregations over that single row, so
+ * the output has the same layout as the output of an {@link InMemoryHashAggregationBuilder}
+ * for a partial step. The builder is full as soon as it has processed a page.
+ */
+public class PassThroughHashAggregationBuilder
+        implements HashAggregationBuilder
+{
+    private final List<AccumulatorFactory> accumulatorFactories;
+    private final List<Integer> groupByChannels;
+    private final Optional<Integer> hashChannel;
+    private final OperatorContext operatorContext;
+    private final LocalMemoryContext systemMemoryContext;
+
+    private Page output;
+
+    public PassThroughHashAggregationBuilder(
+            List<AccumulatorFactory> accumulatorFactories,
+            List<Integer> groupByChannels,
+            Optional<Integer> hashChannel,
+            OperatorContext operatorContext)
+    {
+        this.accumulatorFactories = ImmutableList.copyOf(requireNonNull(accumulatorFactories, "accumulatorFactories is null"));
+        this.groupByChannels = ImmutableList.copyOf(requireNonNull(groupByChannels, "groupByChannels is null"));
+        this.hashChannel = requireNonNull(hashChannel, "hashChannel is null");
+        this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+        this.systemMemoryContext = operatorContext.getSystemMemoryContext().newLocalMemoryContext();
+    }
+
+    @Override
+    public void processPage(Page page)
+    {
+        checkState(output == null, "Builder is full");
+        int positionCount = page.getPositionCount();
+
+        Block[] blocks = new Block[groupByChannels.size() + (hashChannel.isPresent() ? 1 : 0) + accumulatorFactories.size()];
+        int channel = 0;
+        for (int groupByChannel : groupByChannels) {
+            blocks[channel++] = page.getBlock(groupByChannel);
+        }
+        if (hashChannel.isPresent()) {
+            blocks[channel++] = page.getBlock(hashChannel.get());
+        }
+
+        if (!accumulatorFactories.isEmpty()) {
+            GroupByIdBlock groupIds = createGroupIds(positionCount);
+            for (AccumulatorFactory accumulatorFactory : accumulatorFactories) {
+                GroupedAccumulator accumulator = accumulatorFactory.createGroupedAccumulator();
+                accumulator.addInput(groupIds, page);
+
+                BlockBuilder blockBuilder = accumulator.getIntermediateType().createBlockBuilder(new BlockBuilderStatus(), positionCount);
+                for (int groupId = 0; groupId < positionCount; groupId++) {
+                    accumulator.evaluateIntermediate(groupId, blockBuilder);
+                }
+                blocks[channel++] = blockBuilder.build();
+            }
+        }
+
+        output = new Page(positionCount, blocks);
+        operatorContext.recordPartialAggregationPassThrough(positionCount);
+    }
+
+    @Override
+    public Iterator<Page> buildResult()
+    {
+        if (output == null) {
+            return Collections.emptyIterator();
+        }
+        Page result = output;
+        output = null;
+        return Iterators.singletonIterator(result);
+    }
+
+    @Override
+    public boolean isFull()
+    {
+        return output != null;
+    }
+
+    @Override
+    public CompletableFuture<?> isBlocked()
+    {
+        return completedFuture(null);
+    }
+
+    @Override
+    public void updateMemory()
+    {
+        systemMemoryContext.setBytes(output == null ? 0 : output.getRetainedSizeInBytes());
+    }
+
+    @Override
+    public void close()
+    {
+        output = null;
+        systemMemoryContext.setBytes(0);
+    }
+
+    private static GroupByIdBlock createGroupIds(int positionCount)
+    {
+        BlockBuilder blockBuilder = BIGINT.createFixedSizeBlockBuilder(positionCount);
+        for (int position = 0; position < positionCount; position++) {
+            BIGINT.writeLong(blockBuilder, position);
+        }
+        return new GroupByIdBlock(positionCount, blockBuilder.build());
+    }
+}
@@ -54,6 +54,8 @@ public class SpillableHashAggregationBuilder
     private Optional<Spiller> spiller = Optional.empty();
     private Optional<MergingHashAggregationBuilder> merger = Optional.empty();
     private CompletableFuture<?> spillInProgress = CompletableFuture.completedFuture(null);
+    // the groups aggregated in memory are held as revocable memory until the result is built
+    private boolean producingOutput;
     private final LocalMemoryContext aggregationMemoryContext;
     private final LocalMemoryContext spillMemoryContext;
 
@@ -102,7 +104,7 @@ public class SpillableHashAggregationBuilder
     @Override
     public void updateMemory()
     {
-        aggregationMemoryContext.setBytes(getSizeInMemory());
+        updateAggregationMemory();
 
         if (spillInProgress.isDone()) {
             spillMemoryContext.setBytes(0L);
@@ -130,6 +132,39 @@ public class SpillableHashAggregationBuilder
         return spillInProgress;
     }
 
+    /**
+     * Spills the groups aggregated so far to release the revocable memory of the operator.
+     * Memory is not revoked once the result is being built.
+     */
+    public CompletableFuture<?> startMemoryRevoke()
+    {
+        if (producingOutput) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (!spillInProgress.isDone()) {
+            return spillInProgress;
+        }
+        if (hashAggregationBuilder.getGroupCount() == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return spillToDisk();
+    }
+
+    public void finishMemoryRevoke()
+    {
+        updateMemory();
+    }
+
+    private void updateAggregationMemory()
+    {
+        if (producingOutput) {
+            aggregationMemoryContext.setBytes(getSizeInMemory());
+        }
+        else {
+            operatorContext.setRevocableMemoryReservation(getSizeInMemory());
+        }
+    }
+
     private boolean hasPreviousSpillCompletedSuccessfully()
     {
         if (isBlocked().isDone()) {
@@ -157,6 +192,11 @@ public class SpillableHashAggregationBuilder
     {
         checkState(hasPreviousSpillCompletedSuccessfully(), "Previous spill hasn't yet finished");
 
+        // the memory used for building the result can not be revoked
+        producingOutput = true;
+        operatorContext.setRevocableMemoryReservation(0);
+        aggregationMemoryContext.setBytes(getSizeInMemory());
+
         if (!spiller.isPresent()) {
             return hashAggregationBuilder.buildResult();
         }
@@ -179,6 +219,7 @@ public class SpillableHashAggregationBuilder
     @Override
     public void close()
     {
+        operatorContext.setRevocableMemoryReservation(0);
         if (merger.isPresent()) {
             merger.get().close();
         }
@@ -204,7 +245,7 @@ public class SpillableHashAggregationBuilder
         rebuildHashAggregationBuilder();
 
         // First decrease memory usage of aggregation context...
-        aggregationMemoryContext.setBytes(getSizeInMemory());
+        updateAggregationMemory();
         // And then transfer this memory to spill context
         // TODO: is there an easy way to do this atomically?
         spillMemoryContext.setBytes(spillMemoryUsage);
@@ -0,0 +1,178 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server;
+
+import com.facebook.presto.client.Column;
+import com.facebook.presto.client.ColumnEncoding;
+import com.facebook.presto.client.ColumnarResults;
+import com.facebook.presto.client.QueryResults;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spi.type.VarcharType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.airlift.json.JsonCodec;
+import io.airlift.json.ObjectMapperProvider;
+import io.airlift.slice.Slice;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import static com.facebook.presto.spi.type.TypeSignature.parseTypeSignature;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Writes {@link QueryResults} in the format described in {@link ColumnarResults}.
+ * Values are read directly from the blocks of the output pages, so that most
+ * types are written without creating a Java object for every value.
+ */
+final class ColumnarResultsWriter
+{
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapperProvider().get();
+
+    private ColumnarResultsWriter() {}
+
+    public static void writeQueryResults(JsonCodec<QueryResults> codec, QueryResults results, OutputStream outputStream)
+            throws IOException
+    {
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(outputStream, BUFFER_SIZE));
+
+        byte[] header = codec.toJson(new QueryResults(
+                results.getId(),
+                results.getInfoUri(),
+                results.getPartialCancelUri(),
+                results.getNextUri(),
+                results.getColumns(),
+                (Iterable<List<Object>>) null,
+                results.getStats(),
+                results.getError(),
+                results.getUpdateType(),
+                results.getUpdateCount())).getBytes(UTF_8);
+        output.writeInt(header.length);
+        output.write(header);
+
+        if (results.getData() == null) {
+            output.writeInt(-1);
+        }
+        else {
+            checkArgument(results.getData() instanceof ResultPages, "Query results must be backed by pages");
+            ResultPages pages = (ResultPages) results.getData();
+            List<Column> columns = results.getColumns();
+            int rowCount = pages.getPositionCount();
+            output.writeInt(rowCount);
+            for (int channel = 0; channel < columns.size(); channel++) {
+                ColumnEncoding encoding = ColumnEncoding.forType(parseTypeSignature(columns.get(channel).getType()));
+                writeColumn(output, encoding, pages.getTypes().get(channel), pages.getSession(), pages.getPages(), channel, rowCount);
+            }
+        }
+        output.flush();
+    }
+
+    private static void writeColumn(DataOutputStream output, ColumnEncoding encoding, Type type, ConnectorSession session, List<Page> pages, int channel, int rowCount)
+            throws IOException
+    {
+        output.writeByte(encoding.getId());
+
+        byte[] nulls = new byte[(rowCount + 7) / 8];
+        int row = 0;
+        for (Page page : pages) {
+            Block block = page.getBlock(channel);
+            for (int position = 0; position < block.getPositionCount(); position++) {
+                if (block.isNull(position)) {
+                    nulls[row >>> 3] |= 1 << (row & 7);
+                }
+                row++;
+            }
+        }
+        output.write(nulls);
+
+        for (Page page : pages) {
+            Block block = page.getBlock(channel);
+            for (int position = 0; position < block.getPositionCount(); position++) {
+                writeValue(output, encoding, type, session, block, position);
+            }
+        }
+    }
+
+    private static void writeValue(DataOutputStream output, ColumnEncoding encoding, Type type, ConnectorSession session, Block block, int position)
+            throws IOException
+    {
+        boolean isNull = block.isNull(position);
+        switch (encoding) {
+            case LONG:
+                output.writeLong(isNull ? 0 : type.getLong(block, position));
+                return;
+            case INT:
+            case FLOAT:
+                // real values are stored as the bits of a float
+                output.writeInt(isNull ? 0 : (int) type.getLong(block, position));
+                return;
+            case SHORT:
+                output.writeShort(isNull ? 0 : (int) type.getLong(block, position));
+                return;
+            case BYTE:
+                output.writeByte(isNull ? 0 : (int) type.getLong(block, position));
+                return;
+            case DOUBLE:
+                output.writeDouble(isNull ? 0 : type.getDouble(block, position));
+                return;
+            case BOOLEAN:
+                output.writeBoolean(!isNull && type.getBoolean(block, position));
+                return;
+        }
+
+        if (isNull) {
+            output.writeInt(0);
+            return;
+        }
+        switch (encoding) {
+            case STRING:
+                if (type instanceof VarcharType) {
+                    writeSlice(output, type.getSlice(block, position));
+                }
+                else {
+                    writeBytes(output, type.getObjectValue(session, block, position).toString().getBytes(UTF_8));
+                }
+                return;
+            case BINARY:
+                writeSlice(output, type.getSlice(block, position));
+                return;
+            case JSON:
+                writeBytes(output, OBJECT_MAPPER.writeValueAsBytes(type.getObjectValue(session, block, position)));
+                return;
+            default:
+                throw new IllegalArgumentException("Unsupported column encoding: " + encoding);
+        }
+    }
+
+    private static void writeSlice(DataOutputStream output, Slice slice)
+            throws IOException
+    {
+        output.writeInt(slice.length());
+        slice.getBytes(0, output, slice.length());
+    }
+
+    private static void writeBytes(DataOutputStream output, byte[] bytes)
+            throws IOException
+    {
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+}
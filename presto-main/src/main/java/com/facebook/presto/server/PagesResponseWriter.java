@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.server;
 
+import com.facebook.presto.block.PageCompressionCodec;
 import com.facebook.presto.block.PagesSerde;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.BlockEncodingSerde;
@@ -36,8 +37,10 @@ import java.io.OutputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
 import java.util.List;
+import java.util.Optional;
 
 import static com.facebook.presto.PrestoMediaTypes.PRESTO_PAGES;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_COMPRESSION;
 
 @Provider
 @Produces(PRESTO_PAGES)
@@ -90,7 +93,14 @@ public class PagesResponseWriter
     {
         try {
             SliceOutput sliceOutput = new OutputStreamSliceOutput(output);
-            PagesSerde.writePages(blockEncodingSerde, sliceOutput, pages);
+            Object compressionHeader = httpHeaders.getFirst(PRESTO_PAGE_COMPRESSION);
+            Optional<PageCompressionCodec> compressionCodec = PageCompressionCodec.fromHeader(compressionHeader == null ? null : compressionHeader.toString());
+            if (compressionCodec.isPresent()) {
+                PagesSerde.writeCompressedPages(blockEncodingSerde, sliceOutput, compressionCodec.get(), pages);
+            }
+            else {
+                PagesSerde.writePages(blockEncodingSerde, sliceOutput, pages);
+            }
             // We use flush instead of close, because the underlying stream would be closed and that is not allowed.
             sliceOutput.flush();
         }
@@ -17,6 +17,7 @@ import com.facebook.presto.OutputBuffers.OutputBufferId;
 import com.facebook.presto.Session;
 import com.facebook.presto.client.ClientTypeSignature;
 import com.facebook.presto.client.Column;
+import com.facebook.presto.client.ColumnarResults;
 import com.facebook.presto.client.FailureInfo;
 import com.facebook.presto.client.QueryError;
 import com.facebook.presto.client.QueryResults;
@@ -35,22 +36,21 @@ import com.facebook.presto.metadata.SessionPropertyManager;
 import com.facebook.presto.operator.ExchangeClient;
 import com.facebook.presto.operator.ExchangeClientSupplier;
 import com.facebook.presto.security.AccessControl;
-import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ErrorCode;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.QueryId;
-import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
 import com.facebook.presto.spi.type.StandardTypes;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.spi.type.TypeSignature;
 import com.facebook.presto.transaction.TransactionId;
 import com.facebook.presto.transaction.TransactionManager;
-import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Ordering;
+import io.airlift.json.JsonCodec;
 import io.airlift.log.Logger;
 import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
@@ -69,15 +69,15 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 
 import java.net.URI;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -100,6 +100,7 @@ import static com.facebook.presto.server.ResourceUtil.assertRequest;
 import static com.facebook.presto.server.ResourceUtil.createSessionForRequest;
 import static com.facebook.presto.server.ResourceUtil.urlEncode;
 import static com.facebook.presto.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
 import static com.facebook.presto.util.Failures.toFailure;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Strings.isNullOrEmpty;
@@ -127,6 +128,7 @@ public class StatementResource
     private final SessionPropertyManager sessionPropertyManager;
     private final ExchangeClientSupplier exchangeClientSupplier;
     private final QueryIdGenerator queryIdGenerator;
+    private final JsonCodec<QueryResults> queryResultsCodec;
 
     private final ConcurrentMap<QueryId, Query> queries = new ConcurrentHashMap<>();
     private final ScheduledExecutorService queryPurger = newSingleThreadScheduledExecutor(threadsNamed("query-purger"));
@@ -138,7 +140,8 @@ public class StatementResource
             AccessControl accessControl,
             SessionPropertyManager sessionPropertyManager,
             ExchangeClientSupplier exchangeClientSupplier,
-            QueryIdGenerator queryIdGenerator)
+            QueryIdGenerator queryIdGenerator,
+            JsonCodec<QueryResults> queryResultsCodec)
     {
         this.queryManager = requireNonNull(queryManager, "queryManager is null");
         this.transactionManager = requireNonNull(transactionManager, "transactionManager is null");
@@ -146,6 +149,7 @@ public class StatementResource
         this.sessionPropertyManager = requireNonNull(sessionPropertyManager, "sessionPropertyManager is null");
         this.exchangeClientSupplier = requireNonNull(exchangeClientSupplier, "exchangeClientSupplier is null");
         this.queryIdGenerator = requireNonNull(queryIdGenerator, "queryIdGenerator is null");
+        this.queryResultsCodec = requireNonNull(queryResultsCodec, "queryResultsCodec is null");
 
         queryPurger.scheduleWithFixedDelay(new PurgeQueriesRunnable(queries, queryManager), 200, 200, MILLISECONDS);
     }
@@ -157,10 +161,11 @@ public class StatementResource
     }
 
     @POST
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, ColumnarResults.MEDIA_TYPE})
     public Response createQuery(
             String statement,
             @Context HttpServletRequest servletRequest,
+            @Context HttpHeaders httpHeaders,
             @Context UriInfo uriInfo)
             throws InterruptedException
     {
@@ -172,16 +177,17 @@ public class StatementResource
         Query query = new Query(session, statement, queryManager, exchangeClient);
         queries.put(query.getQueryId(), query);
 
-        return getQueryResults(query, Optional.empty(), uriInfo, new Duration(1, MILLISECONDS));
+        return getQueryResults(query, Optional.empty(), uriInfo, new Duration(1, MILLISECONDS), isColumnarResultsAccepted(httpHeaders));
     }
 
     @GET
     @Path("{queryId}/{token}")
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, ColumnarResults.MEDIA_TYPE})
     public Response getQueryResults(
             @PathParam("queryId") QueryId queryId,
             @PathParam("token") long token,
             @QueryParam("maxWait") Duration maxWait,
+            @Context HttpHeaders httpHeaders,
             @Context UriInfo uriInfo)
             throws InterruptedException
     {
@@ -191,10 +197,10 @@ public class StatementResource
         }
 
         Duration wait = WAIT_ORDERING.min(MAX_WAIT_TIME, maxWait);
-        return getQueryResults(query, Optional.of(token), uriInfo, wait);
+        return getQueryResults(query, Optional.of(token), uriInfo, wait, isColumnarResultsAccepted(httpHeaders));
     }
 
-    private static Response getQueryResults(Query query, Optional<Long> token, UriInfo uriInfo, Duration wait)
+    private Response getQueryResults(Query query, Optional<Long> token, UriInfo uriInfo, Duration wait, boolean columnarResults)
             throws InterruptedException
     {
         QueryResults queryResults;
@@ -205,7 +211,15 @@ public class StatementResource
             queryResults = query.getNextResults(uriInfo, wait);
         }
 
-        ResponseBuilder response = Response.ok(queryResults);
+        ResponseBuilder response;
+        if (columnarResults) {
+            QueryResults results = queryResults;
+            StreamingOutput output = outputStream -> ColumnarResultsWriter.writeQueryResults(queryResultsCodec, results, outputStream);
+            response = Response.ok(output, ColumnarResults.MEDIA_TYPE);
+        }
+        else {
+            response = Response.ok(queryResults, MediaType.APPLICATION_JSON_TYPE);
+        }
 
         // add set session properties
         query.getSetSessionProperties().entrySet()
@@ -239,6 +253,14 @@ public class StatementResource
         return response.build();
     }
 
+    private static boolean isColumnarResultsAccepted(HttpHeaders httpHeaders)
+    {
+        // the client must explicitly ask for the columnar format, so a wildcard does not match
+        MediaType columnarType = MediaType.valueOf(ColumnarResults.MEDIA_TYPE);
+        return httpHeaders.getAcceptableMediaTypes().stream()
+                .anyMatch(type -> type.getType().equalsIgnoreCase(columnarType.getType()) && type.getSubtype().equalsIgnoreCase(columnarType.getSubtype()));
+    }
+
     @DELETE
     @Path("{queryId}/{token}")
     @Produces(MediaType.APPLICATION_JSON)
@@ -385,7 +407,7 @@ public class StatementResource
         public synchronized QueryResults getNextResults(UriInfo uriInfo, Duration maxWaitTime)
                 throws InterruptedException
         {
-            Iterable<List<Object>> data = getData(maxWaitTime);
+            ResultPages data = getData(maxWaitTime);
 
             // get the query info before returning
             // force update if query manager is closed
@@ -423,7 +445,9 @@ public class StatementResource
 
                     // Return a single value for clients that require a result.
                     columns = ImmutableList.of(new Column("result", "boolean", new ClientTypeSignature(StandardTypes.BOOLEAN, ImmutableList.of())));
-                    data = ImmutableSet.of(ImmutableList.of(true));
+                    BlockBuilder result = BOOLEAN.createBlockBuilder(new BlockBuilderStatus(), 1);
+                    BOOLEAN.writeBoolean(result, true);
+                    data = new ResultPages(session.toConnectorSession(), ImmutableList.of(BOOLEAN), ImmutableList.of(new Page(result.build())));
                 }
             }
 
@@ -469,7 +493,7 @@ public class StatementResource
             return queryResults;
         }
 
-        private synchronized Iterable<List<Object>> getData(Duration maxWait)
+        private synchronized ResultPages getData(Duration maxWait)
                 throws InterruptedException
         {
             // wait for query to start
@@ -494,7 +518,7 @@ public class StatementResource
 
             updateExchangeClient(outputStage);
 
-            ImmutableList.Builder<RowIterable> pages = ImmutableList.builder();
+            ImmutableList.Builder<Page> pages = ImmutableList.builder();
             // wait up to max wait for data to arrive; then try to return at least DESIRED_RESULT_BYTES
             long bytes = 0;
             while (bytes < DESIRED_RESULT_BYTES) {
@@ -503,7 +527,7 @@ public class StatementResource
                     break;
                 }
                 bytes += page.getSizeInBytes();
-                pages.add(new RowIterable(session.toConnectorSession(), types, page));
+                pages.add(page);
 
                 // only wait on first call
                 maxWait = new Duration(0, MILLISECONDS);
@@ -513,7 +537,7 @@ public class StatementResource
                 return null;
             }
 
-            return Iterables.concat(pages.build());
+            return new ResultPages(session.toConnectorSession(), types, pages.build());
         }
 
         private static boolean isQueryStarted(QueryInfo queryInfo)
@@ -721,60 +745,6 @@ public class StatementResource
                     failure.getErrorLocation(),
                     failure);
         }
-
-        private static class RowIterable
-                implements Iterable<List<Object>>
-        {
-            private final ConnectorSession session;
-            private final List<Type> types;
-            private final Page page;
-
-            private RowIterable(ConnectorSession session, List<Type> types, Page page)
-            {
-                this.session = session;
-                this.types = ImmutableList.copyOf(requireNonNull(types, "types is null"));
-                this.page = requireNonNull(page, "page is null");
-            }
-
-            @Override
-            public Iterator<List<Object>> iterator()
-            {
-                return new RowIterator(session, types, page);
-            }
-        }
-
-        private static class RowIterator
-                extends AbstractIterator<List<Object>>
-        {
-            private final ConnectorSession session;
-            private final List<Type> types;
-            private final Page page;
-            private int position = -1;
-
-            private RowIterator(ConnectorSession session, List<Type> types, Page page)
-            {
-                this.session = session;
-                this.types = types;
-                this.page = page;
-            }
-
-            @Override
-            protected List<Object> computeNext()
-            {
-                position++;
-                if (position >= page.getPositionCount()) {
-                    return endOfData();
-                }
-
-                List<Object> values = new ArrayList<>(page.getChannelCount());
-                for (int channel = 0; channel < page.getChannelCount(); channel++) {
-                    Type type = types.get(channel);
-                    Block block = page.getBlock(channel);
-                    values.add(type.getObjectValue(session, block, position));
-                }
-                return Collections.unmodifiableList(values);
-            }
-        }
     }
 
     private static class PurgeQueriesRunnable
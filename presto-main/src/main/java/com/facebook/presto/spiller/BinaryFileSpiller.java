@@ -17,6 +17,7 @@ import com.facebook.presto.block.PagesSerde;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.block.BlockEncodingSerde;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.io.Closer;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import io.airlift.concurrent.MoreFutures;
@@ -112,14 +113,37 @@ public class BinaryFileSpiller
 
     private Iterator<Page> readPages(Path spillPath)
     {
-        try {
-            InputStream input = new BufferedInputStream(new FileInputStream(spillPath.toFile()));
-            closer.register(input);
-            return PagesSerde.readPages(blockEncodingSerde, new InputStreamSliceInput(input));
-        }
-        catch (IOException e) {
-            throw new PrestoException(GENERIC_INTERNAL_ERROR, "Failed to read spilled pages", e);
-        }
+        // the file is only opened once the pages are read and closed once they were all read,
+        // so that merging a subset of many spills holds file handles of that subset only
+        return new AbstractIterator<Page>()
+        {
+            private InputStream input;
+            private Iterator<Page> pages;
+
+            @Override
+            protected Page computeNext()
+            {
+                if (pages == null) {
+                    try {
+                        input = closer.register(new BufferedInputStream(new FileInputStream(spillPath.toFile())));
+                    }
+                    catch (IOException e) {
+                        throw new PrestoException(GENERIC_INTERNAL_ERROR, "Failed to read spilled pages", e);
+                    }
+                    pages = PagesSerde.readPages(blockEncodingSerde, new InputStreamSliceInput(input));
+                }
+                if (pages.hasNext()) {
+                    return pages.next();
+                }
+                try {
+                    input.close();
+                }
+                catch (IOException e) {
+                    throw new PrestoException(GENERIC_INTERNAL_ERROR, "Failed to close spilled pages", e);
+                }
+                return endOfData();
+            }
+        };
     }
 
     @Override
@@ -0,0 +1,41 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spiller;
+
+import com.facebook.presto.spi.type.Type;
+
+import java.util.List;
+
+/**
+ * Spiller factory for operators created with spilling disabled.
+ */
+public final class DisabledSpillerFactory
+        implements SpillerFactory
+{
+    public static final DisabledSpillerFactory DISABLED_SPILLER_FACTORY = new DisabledSpillerFactory();
+
+    private DisabledSpillerFactory() {}
+
+    @Override
+    public Spiller create(List<Type> types)
+    {
+        throw new UnsupportedOperationException("Spilling is disabled");
+    }
+
+    @Override
+    public long getSpilledBytes()
+    {
+        return 0;
+    }
+}
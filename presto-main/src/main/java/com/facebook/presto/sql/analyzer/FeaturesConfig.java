@@ -19,6 +19,8 @@ import io.airlift.configuration.ConfigDescription;
 import io.airlift.configuration.DefunctConfig;
 import io.airlift.units.DataSize;
 
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
 import javax.validation.constraints.Min;
 
 import java.nio.file.Path;
@@ -48,6 +50,7 @@ public class FeaturesConfig
     private boolean colocatedJoinsEnabled;
     private boolean redistributeWrites = true;
     private boolean optimizeMetadataQueries;
+    private boolean optimizeMetadataQueriesUsingStatistics;
     private boolean optimizeHashGeneration = true;
     private boolean optimizeSingleDistinct = true;
     private boolean pushTableWriteThroughUnion = true;
@@ -65,6 +68,19 @@ public class FeaturesConfig
     private DataSize operatorMemoryLimitBeforeSpill = new DataSize(4, DataSize.Unit.MEGABYTE);
     private Path spillerSpillPath = Paths.get(System.getProperty("java.io.tmpdir"), "presto", "spills");
     private int spillerThreads = 4;
+    private double memoryRevokingThreshold = 0.9;
+    private double memoryRevokingTarget = 0.5;
+    private boolean dynamicFilteringEnabled;
+    private boolean joinReorderingEnabled;
+    private boolean costBasedJoinDistributionEnabled;
+    private DataSize joinMaxBroadcastTableSize = new DataSize(100, DataSize.Unit.MEGABYTE);
+    private boolean groupedExecutionEnabled;
+    private int concurrentBucketsPerNode = 1;
+    private boolean adaptivePartialAggregationEnabled;
+    private long adaptivePartialAggregationMinRows = 100_000;
+    private double adaptivePartialAggregationUniqueRowsRatioThreshold = 0.8;
+    private int hashBuildConcurrency = 1;
+    private int hashBuildThreads = 4;
 
     public boolean isResourceGroupsEnabled()
     {
@@ -151,6 +167,19 @@ public class FeaturesConfig
         return this;
     }
 
+    public boolean isOptimizeMetadataQueriesUsingStatistics()
+    {
+        return optimizeMetadataQueriesUsingStatistics;
+    }
+
+    @Config("optimizer.optimize-metadata-queries-using-statistics")
+    @ConfigDescription("Answer count, min and max aggregations from connector statistics, which may be stale")
+    public FeaturesConfig setOptimizeMetadataQueriesUsingStatistics(boolean optimizeMetadataQueriesUsingStatistics)
+    {
+        this.optimizeMetadataQueriesUsingStatistics = optimizeMetadataQueriesUsingStatistics;
+        return this;
+    }
+
     public boolean isOptimizeHashGeneration()
     {
         return optimizeHashGeneration;
@@ -300,6 +329,184 @@ public class FeaturesConfig
         return this;
     }
 
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    public double getMemoryRevokingThreshold()
+    {
+        return memoryRevokingThreshold;
+    }
+
+    @Config("experimental.memory-revoking-threshold")
+    @ConfigDescription("Revoke memory when memory pool is filled over threshold")
+    public FeaturesConfig setMemoryRevokingThreshold(double memoryRevokingThreshold)
+    {
+        this.memoryRevokingThreshold = memoryRevokingThreshold;
+        return this;
+    }
+
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    public double getMemoryRevokingTarget()
+    {
+        return memoryRevokingTarget;
+    }
+
+    @Config("experimental.memory-revoking-target")
+    @ConfigDescription("When revoking memory, try to revoke so much that pool is filled below target at the end")
+    public FeaturesConfig setMemoryRevokingTarget(double memoryRevokingTarget)
+    {
+        this.memoryRevokingTarget = memoryRevokingTarget;
+        return this;
+    }
+
+    public boolean isDynamicFilteringEnabled()
+    {
+        return dynamicFilteringEnabled;
+    }
+
+    @Config("experimental.dynamic-filtering-enabled")
+    public FeaturesConfig setDynamicFilteringEnabled(boolean dynamicFilteringEnabled)
+    {
+        this.dynamicFilteringEnabled = dynamicFilteringEnabled;
+        return this;
+    }
+
+    public boolean isJoinReorderingEnabled()
+    {
+        return joinReorderingEnabled;
+    }
+
+    @Config("optimizer.join-reordering-enabled")
+    @ConfigDescription("Experimental: Reorder inner joins using table statistics")
+    public FeaturesConfig setJoinReorderingEnabled(boolean joinReorderingEnabled)
+    {
+        this.joinReorderingEnabled = joinReorderingEnabled;
+        return this;
+    }
+
+    public boolean isCostBasedJoinDistributionEnabled()
+    {
+        return costBasedJoinDistributionEnabled;
+    }
+
+    @Config("optimizer.cost-based-join-distribution-enabled")
+    @ConfigDescription("Experimental: Choose between broadcast and partitioned joins using table statistics")
+    public FeaturesConfig setCostBasedJoinDistributionEnabled(boolean costBasedJoinDistributionEnabled)
+    {
+        this.costBasedJoinDistributionEnabled = costBasedJoinDistributionEnabled;
+        return this;
+    }
+
+    public DataSize getJoinMaxBroadcastTableSize()
+    {
+        return joinMaxBroadcastTableSize;
+    }
+
+    @Config("optimizer.join-max-broadcast-table-size")
+    @ConfigDescription("Maximum estimated size of the build side of a join which is broadcast to all nodes")
+    public FeaturesConfig setJoinMaxBroadcastTableSize(DataSize joinMaxBroadcastTableSize)
+    {
+        this.joinMaxBroadcastTableSize = joinMaxBroadcastTableSize;
+        return this;
+    }
+
+    public boolean isGroupedExecutionEnabled()
+    {
+        return groupedExecutionEnabled;
+    }
+
+    @Config("experimental.grouped-execution-enabled")
+    @ConfigDescription("Experimental: Run the stages reading bucketed tables one bucket at a time on every node")
+    public FeaturesConfig setGroupedExecutionEnabled(boolean groupedExecutionEnabled)
+    {
+        this.groupedExecutionEnabled = groupedExecutionEnabled;
+        return this;
+    }
+
+    @Min(1)
+    public int getConcurrentBucketsPerNode()
+    {
+        return concurrentBucketsPerNode;
+    }
+
+    @Config("experimental.concurrent-buckets-per-node")
+    @ConfigDescription("Number of buckets processed at the same time on a node in grouped execution")
+    public FeaturesConfig setConcurrentBucketsPerNode(int concurrentBucketsPerNode)
+    {
+        this.concurrentBucketsPerNode = concurrentBucketsPerNode;
+        return this;
+    }
+
+    public boolean isAdaptivePartialAggregationEnabled()
+    {
+        return adaptivePartialAggregationEnabled;
+    }
+
+    @Config("experimental.adaptive-partial-aggregation-enabled")
+    @ConfigDescription("Experimental: Pass the input of partial aggregations through when aggregating does not reduce the number of rows")
+    public FeaturesConfig setAdaptivePartialAggregationEnabled(boolean adaptivePartialAggregationEnabled)
+    {
+        this.adaptivePartialAggregationEnabled = adaptivePartialAggregationEnabled;
+        return this;
+    }
+
+    @Min(1)
+    public long getAdaptivePartialAggregationMinRows()
+    {
+        return adaptivePartialAggregationMinRows;
+    }
+
+    @Config("experimental.adaptive-partial-aggregation-min-rows")
+    @ConfigDescription("Number of input rows a partial aggregation processes before deciding whether to pass its input through")
+    public FeaturesConfig setAdaptivePartialAggregationMinRows(long adaptivePartialAggregationMinRows)
+    {
+        this.adaptivePartialAggregationMinRows = adaptivePartialAggregationMinRows;
+        return this;
+    }
+
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    public double getAdaptivePartialAggregationUniqueRowsRatioThreshold()
+    {
+        return adaptivePartialAggregationUniqueRowsRatioThreshold;
+    }
+
+    @Config("experimental.adaptive-partial-aggregation-unique-rows-ratio-threshold")
+    @ConfigDescription("Ratio of groups to input rows above which a partial aggregation passes its input through")
+    public FeaturesConfig setAdaptivePartialAggregationUniqueRowsRatioThreshold(double adaptivePartialAggregationUniqueRowsRatioThreshold)
+    {
+        this.adaptivePartialAggregationUniqueRowsRatioThreshold = adaptivePartialAggregationUniqueRowsRatioThreshold;
+        return this;
+    }
+
+    @Min(1)
+    public int getHashBuildConcurrency()
+    {
+        return hashBuildConcurrency;
+    }
+
+    @Config("experimental.hash-build-concurrency")
+    @ConfigDescription("Experimental: Number of threads building the hash table of a large join build side")
+    public FeaturesConfig setHashBuildConcurrency(int hashBuildConcurrency)
+    {
+        this.hashBuildConcurrency = hashBuildConcurrency;
+        return this;
+    }
+
+    @Min(1)
+    public int getHashBuildThreads()
+    {
+        return hashBuildThreads;
+    }
+
+    @Config("experimental.hash-build-threads")
+    @ConfigDescription("Experimental: Number of threads shared by all join hash table builds of a worker")
+    public FeaturesConfig setHashBuildThreads(int hashBuildThreads)
+    {
+        this.hashBuildThreads = hashBuildThreads;
+        return this;
+    }
+
     public boolean isOptimizeMixedDistinctAggregations()
     {
         return optimizeMixedDistinctAggregations;
@@ -0,0 +1,279 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.gen;
+
+import com.facebook.presto.array.LongBigArray;
+import com.facebook.presto.bytecode.BytecodeBlock;
+import com.facebook.presto.bytecode.ClassDefinition;
+import com.facebook.presto.bytecode.MethodDefinition;
+import com.facebook.presto.bytecode.Parameter;
+import com.facebook.presto.bytecode.Scope;
+import com.facebook.presto.bytecode.Variable;
+import com.facebook.presto.bytecode.control.IfStatement;
+import com.facebook.presto.bytecode.expression.BytecodeExpression;
+import com.facebook.presto.operator.FlatKeyArena;
+import com.facebook.presto.operator.FlatKeyStrategy;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.airlift.slice.Slice;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import static com.facebook.presto.bytecode.Access.FINAL;
+import static com.facebook.presto.bytecode.Access.PUBLIC;
+import static com.facebook.presto.bytecode.Access.a;
+import static com.facebook.presto.bytecode.CompilerUtils.defineClass;
+import static com.facebook.presto.bytecode.CompilerUtils.makeClassName;
+import static com.facebook.presto.bytecode.Parameter.arg;
+import static com.facebook.presto.bytecode.ParameterizedType.type;
+import static com.facebook.presto.bytecode.expression.BytecodeExpressions.add;
+import static com.facebook.presto.bytecode.expression.BytecodeExpressions.bitwiseAnd;
+import static com.facebook.presto.bytecode.expression.BytecodeExpressions.bitwiseOr;
+import static com.facebook.presto.bytecode.expression.BytecodeExpressions.constantFalse;
+import static com.facebook.presto.bytecode.expression.BytecodeExpressions.constantInt;
+import static com.facebook.presto.bytecode.expression.BytecodeExpressions.constantLong;
+import static com.facebook.presto.bytecode.expression.BytecodeExpressions.constantTrue;
+import static com.facebook.presto.bytecode.expression.BytecodeExpressions.equal;
+import static com.facebook.presto.bytecode.expression.BytecodeExpressions.inlineIf;
+import static com.facebook.presto.bytecode.expression.BytecodeExpressions.multiply;
+import static com.facebook.presto.bytecode.expression.BytecodeExpressions.not;
+import static com.facebook.presto.bytecode.expression.BytecodeExpressions.notEqual;
+import static com.facebook.presto.bytecode.expression.BytecodeExpressions.or;
+import static com.facebook.presto.sql.gen.SqlTypeBytecodeExpression.constantType;
+import static com.facebook.presto.sql.planner.optimizations.HashGenerationOptimizer.INITIAL_HASH_VALUE;
+import static com.facebook.presto.type.TypeUtils.NULL_HASH_CODE;
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Generates the key operations of a {@link com.facebook.presto.operator.FlatGroupByHash}
+ * for the types of the keys, so that the keys are hashed, compared and stored without
+ * loops or virtual calls on the type of every key.
+ */
+public class GroupByHashCompiler
+{
+    private final LoadingCache<List<Type>, FlatKeyStrategy> flatKeyStrategies = CacheBuilder.newBuilder().maximumSize(1000).build(
+            new CacheLoader<List<Type>, FlatKeyStrategy>()
+            {
+                @Override
+                public FlatKeyStrategy load(List<Type> types)
+                        throws Exception
+                {
+                    return internalCompileFlatKeyStrategy(types).newInstance();
+                }
+            });
+
+    public FlatKeyStrategy compileFlatKeyStrategy(List<? extends Type> types)
+    {
+        try {
+            return flatKeyStrategies.get(ImmutableList.copyOf(types));
+        }
+        catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+            throw Throwables.propagate(e.getCause());
+        }
+    }
+
+    private Class<? extends FlatKeyStrategy> internalCompileFlatKeyStrategy(List<Type> types)
+    {
+        CallSiteBinder callSiteBinder = new CallSiteBinder();
+
+        ClassDefinition classDefinition = new ClassDefinition(
+                a(PUBLIC, FINAL),
+                makeClassName("FlatKeyStrategy"),
+                type(Object.class),
+                type(FlatKeyStrategy.class));
+
+        classDefinition.declareDefaultConstructor(a(PUBLIC));
+        generateHashRowMethod(classDefinition, callSiteBinder, types);
+        generateRowEqualsMethod(classDefinition, callSiteBinder, types);
+        generateStoreRowMethod(classDefinition, callSiteBinder, types);
+        generateAppendRowMethod(classDefinition, callSiteBinder, types);
+
+        return defineClass(classDefinition, FlatKeyStrategy.class, callSiteBinder.getBindings(), getClass().getClassLoader());
+    }
+
+    private static void generateHashRowMethod(ClassDefinition classDefinition, CallSiteBinder callSiteBinder, List<Type> types)
+    {
+        Parameter blocks = arg("blocks", Block[].class);
+        Parameter position = arg("position", int.class);
+        MethodDefinition method = classDefinition.declareMethod(a(PUBLIC), "hashRow", type(long.class), blocks, position);
+
+        Variable result = method.getScope().declareVariable(long.class, "result");
+        BytecodeBlock body = method.getBody();
+        body.append(result.set(constantLong(INITIAL_HASH_VALUE)));
+
+        for (int index = 0; index < types.size(); index++) {
+            BytecodeExpression type = constantType(callSiteBinder, types.get(index));
+            BytecodeExpression block = blocks.getElement(index);
+
+            // same as CombineHashFunction.getHash(result, TypeUtils.hashPosition(type, block, position))
+            BytecodeExpression hash = inlineIf(
+                    block.invoke("isNull", boolean.class, position),
+                    constantLong(NULL_HASH_CODE),
+                    type.invoke("hash", long.class, block, position));
+            body.append(result.set(add(multiply(constantLong(31), result), hash)));
+        }
+
+        body.append(result.ret());
+    }
+
+    private static void generateRowEqualsMethod(ClassDefinition classDefinition, CallSiteBinder callSiteBinder, List<Type> types)
+    {
+        Parameter rows = arg("rows", LongBigArray.class);
+        Parameter rowOffset = arg("rowOffset", long.class);
+        Parameter arena = arg("arena", FlatKeyArena.class);
+        Parameter blocks = arg("blocks", Block[].class);
+        Parameter position = arg("position", int.class);
+        MethodDefinition method = classDefinition.declareMethod(a(PUBLIC), "rowEquals", type(boolean.class), rows, rowOffset, arena, blocks, position);
+
+        Scope scope = method.getScope();
+        Variable nullMask = scope.declareVariable(long.class, "nullMask");
+        BytecodeBlock body = method.getBody();
+        body.append(nullMask.set(getRowValue(rows, rowOffset, 0)));
+
+        for (int index = 0; index < types.size(); index++) {
+            Type type = types.get(index);
+            BytecodeExpression block = blocks.getElement(index);
+            BytecodeExpression storedNull = notEqual(bitwiseAnd(nullMask, constantLong(1L << index)), constantLong(0));
+            BytecodeExpression storedValue = getRowValue(rows, rowOffset, index + 1);
+
+            BytecodeExpression valueEquals;
+            Class<?> javaType = type.getJavaType();
+            if (javaType == Slice.class) {
+                valueEquals = arena.invoke("equals", boolean.class, storedValue, block, position);
+            }
+            else {
+                valueEquals = equal(getValue(callSiteBinder, type, block, position), storedValue);
+            }
+
+            body.append(new IfStatement()
+                    .condition(block.invoke("isNull", boolean.class, position))
+                    .ifTrue(new IfStatement()
+                            .condition(not(storedNull))
+                            .ifTrue(constantFalse().ret()))
+                    .ifFalse(new IfStatement()
+                            .condition(or(storedNull, not(valueEquals)))
+                            .ifTrue(constantFalse().ret())));
+        }
+
+        body.append(constantTrue().ret());
+    }
+
+    private static void generateStoreRowMethod(ClassDefinition classDefinition, CallSiteBinder callSiteBinder, List<Type> types)
+    {
+        Parameter rows = arg("rows", LongBigArray.class);
+        Parameter rowOffset = arg("rowOffset", long.class);
+        Parameter arena = arg("arena", FlatKeyArena.class);
+        Parameter blocks = arg("blocks", Block[].class);
+        Parameter position = arg("position", int.class);
+        MethodDefinition method = classDefinition.declareMethod(a(PUBLIC), "storeRow", type(void.class), rows, rowOffset, arena, blocks, position);
+
+        Variable nullMask = method.getScope().declareVariable(long.class, "nullMask");
+        BytecodeBlock body = method.getBody();
+        body.append(nullMask.set(constantLong(0)));
+
+        for (int index = 0; index < types.size(); index++) {
+            Type type = types.get(index);
+            BytecodeExpression block = blocks.getElement(index);
+
+            BytecodeExpression value;
+            if (type.getJavaType() == Slice.class) {
+                value = arena.invoke("add", long.class, block, position);
+            }
+            else {
+                value = getValue(callSiteBinder, type, block, position);
+            }
+
+            body.append(new IfStatement()
+                    .condition(block.invoke("isNull", boolean.class, position))
+                    .ifTrue(nullMask.set(bitwiseOr(nullMask, constantLong(1L << index))))
+                    .ifFalse(setRowValue(rows, rowOffset, index + 1, value)));
+        }
+
+        body.append(setRowValue(rows, rowOffset, 0, nullMask))
+                .ret();
+    }
+
+    private static void generateAppendRowMethod(ClassDefinition classDefinition, CallSiteBinder callSiteBinder, List<Type> types)
+    {
+        Parameter rows = arg("rows", LongBigArray.class);
+        Parameter rowOffset = arg("rowOffset", long.class);
+        Parameter arena = arg("arena", FlatKeyArena.class);
+        Parameter pageBuilder = arg("pageBuilder", PageBuilder.class);
+        Parameter outputChannelOffset = arg("outputChannelOffset", int.class);
+        MethodDefinition method = classDefinition.declareMethod(a(PUBLIC), "appendRow", type(void.class), rows, rowOffset, arena, pageBuilder, outputChannelOffset);
+
+        Scope scope = method.getScope();
+        Variable nullMask = scope.declareVariable(long.class, "nullMask");
+        Variable blockBuilder = scope.declareVariable(BlockBuilder.class, "blockBuilder");
+        BytecodeBlock body = method.getBody();
+        body.append(nullMask.set(getRowValue(rows, rowOffset, 0)));
+
+        for (int index = 0; index < types.size(); index++) {
+            Type type = types.get(index);
+            BytecodeExpression sqlType = constantType(callSiteBinder, type);
+            BytecodeExpression storedValue = getRowValue(rows, rowOffset, index + 1);
+
+            BytecodeExpression writeValue;
+            Class<?> javaType = type.getJavaType();
+            if (javaType == Slice.class) {
+                writeValue = sqlType.invoke("writeSlice", void.class, blockBuilder, arena.invoke("get", Slice.class, storedValue));
+            }
+            else if (javaType == boolean.class) {
+                writeValue = sqlType.invoke("writeBoolean", void.class, blockBuilder, notEqual(storedValue, constantLong(0)));
+            }
+            else {
+                writeValue = sqlType.invoke("writeLong", void.class, blockBuilder, storedValue);
+            }
+
+            body.append(blockBuilder.set(pageBuilder.invoke("getBlockBuilder", BlockBuilder.class, add(outputChannelOffset, constantInt(index)))))
+                    .append(new IfStatement()
+                            .condition(notEqual(bitwiseAnd(nullMask, constantLong(1L << index)), constantLong(0)))
+                            .ifTrue(blockBuilder.invoke("appendNull", BlockBuilder.class).pop())
+                            .ifFalse(writeValue));
+        }
+
+        body.ret();
+    }
+
+    private static BytecodeExpression getValue(CallSiteBinder callSiteBinder, Type type, BytecodeExpression block, BytecodeExpression position)
+    {
+        BytecodeExpression sqlType = constantType(callSiteBinder, type);
+        Class<?> javaType = type.getJavaType();
+        if (javaType == boolean.class) {
+            return inlineIf(sqlType.invoke("getBoolean", boolean.class, block, position), constantLong(1), constantLong(0));
+        }
+        checkArgument(javaType == long.class, "Unsupported type %s", type);
+        return sqlType.invoke("getLong", long.class, block, position);
+    }
+
+    private static BytecodeExpression getRowValue(Parameter rows, Parameter rowOffset, int index)
+    {
+        return rows.invoke("get", long.class, add(rowOffset, constantLong(index)));
+    }
+
+    private static BytecodeExpression setRowValue(Parameter rows, Parameter rowOffset, int index, BytecodeExpression value)
+    {
+        return rows.invoke("set", void.class, add(rowOffset, constantLong(index)), value);
+    }
+}
@@ -54,6 +54,7 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.function.Supplier;
 
 import static com.facebook.presto.bytecode.Access.FINAL;
@@ -71,6 +72,7 @@ import static com.facebook.presto.bytecode.expression.BytecodeExpressions.consta
 import static com.facebook.presto.bytecode.expression.BytecodeExpressions.constantTrue;
 import static com.facebook.presto.bytecode.expression.BytecodeExpressions.notEqual;
 import static com.facebook.presto.sql.gen.SqlTypeBytecodeExpression.constantType;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static java.util.Objects.requireNonNull;
 
 public class JoinCompiler
@@ -680,7 +682,7 @@ public class JoinCompiler
         {
             this.pagesHashStrategyFactory = pagesHashStrategyFactory;
             try {
-                constructor = joinHashSupplierClass.getConstructor(ConnectorSession.class, PagesHashStrategy.class, LongArrayList.class, List.class, Optional.class);
+                constructor = joinHashSupplierClass.getConstructor(ConnectorSession.class, PagesHashStrategy.class, LongArrayList.class, List.class, Optional.class, Executor.class, int.class);
             }
             catch (NoSuchMethodException e) {
                 throw Throwables.propagate(e);
@@ -693,10 +695,22 @@ public class JoinCompiler
                 List<List<Block>> channels,
                 Optional<Integer> hashChannel,
                 Optional<JoinFilterFunctionFactory> filterFunctionFactory)
+        {
+            return createLookupSourceSupplier(session, addresses, channels, hashChannel, filterFunctionFactory, directExecutor(), 1);
+        }
+
+        public Supplier<LookupSource> createLookupSourceSupplier(
+                ConnectorSession session,
+                LongArrayList addresses,
+                List<List<Block>> channels,
+                Optional<Integer> hashChannel,
+                Optional<JoinFilterFunctionFactory> filterFunctionFactory,
+                Executor buildExecutor,
+                int buildConcurrency)
         {
             PagesHashStrategy pagesHashStrategy = pagesHashStrategyFactory.createPagesHashStrategy(channels, hashChannel);
             try {
-                return constructor.newInstance(session, pagesHashStrategy, addresses, channels, filterFunctionFactory);
+                return constructor.newInstance(session, pagesHashStrategy, addresses, channels, filterFunctionFactory, buildExecutor, buildConcurrency);
             }
             catch (Exception e) {
                 throw Throwables.propagate(e);
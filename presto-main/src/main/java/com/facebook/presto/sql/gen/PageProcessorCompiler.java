@@ -26,6 +26,7 @@ import com.facebook.presto.bytecode.control.IfStatement;
 import com.facebook.presto.bytecode.expression.BytecodeExpression;
 import com.facebook.presto.bytecode.instruction.LabelNode;
 import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.operator.LazyPages;
 import com.facebook.presto.operator.PageProcessor;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.Page;
@@ -67,6 +68,7 @@ import static com.facebook.presto.bytecode.Access.a;
 import static com.facebook.presto.bytecode.Parameter.arg;
 import static com.facebook.presto.bytecode.ParameterizedType.type;
 import static com.facebook.presto.bytecode.expression.BytecodeExpressions.add;
+import static com.facebook.presto.bytecode.expression.BytecodeExpressions.and;
 import static com.facebook.presto.bytecode.expression.BytecodeExpressions.constantFalse;
 import static com.facebook.presto.bytecode.expression.BytecodeExpressions.constantInt;
 import static com.facebook.presto.bytecode.expression.BytecodeExpressions.constantNull;
@@ -241,6 +243,15 @@ public class PageProcessorCompiler
             return;
         }
 
+        body.comment("only load the rows which passed the filter from the remaining lazy blocks")
+                .append(new IfStatement()
+                        .condition(and(
+                                lessThan(cardinality, page.invoke("getPositionCount", int.class)),
+                                invokeStatic(LazyPages.class, "hasSelectiveLazyBlocks", boolean.class, page)))
+                        .ifTrue(new BytecodeBlock()
+                                .append(page.set(invokeStatic(LazyPages.class, "selectPositions", Page.class, page, selectedPositions, cardinality)))
+                                .append(selectedPositions.set(invokeStatic(LazyPages.class, "allPositions", int[].class, cardinality)))));
+
         Variable pageBuilder = scope.declareVariable("pageBuilder", body, newInstance(PageBuilder.class, cardinality, types));
         Variable outputBlocks = scope.declareVariable("outputBlocks", body, newArray(type(Block[].class), projections.size()));
 
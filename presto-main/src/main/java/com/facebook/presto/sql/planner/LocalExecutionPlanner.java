@@ -26,6 +26,7 @@ import com.facebook.presto.operator.AssignUniqueIdOperator;
 import com.facebook.presto.operator.CursorProcessor;
 import com.facebook.presto.operator.DeleteOperator.DeleteOperatorFactory;
 import com.facebook.presto.operator.DriverFactory;
+import com.facebook.presto.operator.DynamicFilter;
 import com.facebook.presto.operator.EnforceSingleRowOperator;
 import com.facebook.presto.operator.ExchangeClientSupplier;
 import com.facebook.presto.operator.ExchangeOperator.ExchangeOperatorFactory;
@@ -33,6 +34,7 @@ import com.facebook.presto.operator.ExplainAnalyzeOperator.ExplainAnalyzeOperato
 import com.facebook.presto.operator.FilterAndProjectOperator;
 import com.facebook.presto.operator.FilterFunction;
 import com.facebook.presto.operator.FilterFunctions;
+import com.facebook.presto.operator.ForHashBuild;
 import com.facebook.presto.operator.GenericCursorProcessor;
 import com.facebook.presto.operator.GenericPageProcessor;
 import com.facebook.presto.operator.GroupIdOperator;
@@ -51,6 +53,7 @@ import com.facebook.presto.operator.OperatorFactory;
 import com.facebook.presto.operator.OrderByOperator.OrderByOperatorFactory;
 import com.facebook.presto.operator.OutputFactory;
 import com.facebook.presto.operator.PageProcessor;
+import com.facebook.presto.operator.PartialAggregationController;
 import com.facebook.presto.operator.PartitionFunction;
 import com.facebook.presto.operator.PartitionedOutputOperator.PartitionedOutputFactory;
 import com.facebook.presto.operator.ProjectionFunction;
@@ -170,13 +173,18 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import static com.facebook.presto.SystemSessionProperties.getAdaptivePartialAggregationMinRows;
+import static com.facebook.presto.SystemSessionProperties.getAdaptivePartialAggregationUniqueRowsRatioThreshold;
 import static com.facebook.presto.SystemSessionProperties.getOperatorMemoryLimitBeforeSpill;
 import static com.facebook.presto.SystemSessionProperties.getTaskConcurrency;
 import static com.facebook.presto.SystemSessionProperties.getTaskWriterCount;
+import static com.facebook.presto.SystemSessionProperties.isAdaptivePartialAggregationEnabled;
+import static com.facebook.presto.SystemSessionProperties.isDynamicFilteringEnabled;
 import static com.facebook.presto.SystemSessionProperties.isSpillEnabled;
 import static com.facebook.presto.metadata.FunctionKind.SCALAR;
 import static com.facebook.presto.operator.DistinctLimitOperator.DistinctLimitOperatorFactory;
@@ -238,6 +246,7 @@ public class LocalExecutionPlanner
     private final DataSize maxPartialAggregationMemorySize;
     private final DataSize maxPagePartitioningBufferSize;
     private final SpillerFactory spillerFactory;
+    private final ExecutorService hashBuildExecutor;
 
     @Inject
     public LocalExecutionPlanner(
@@ -254,7 +263,8 @@ public class LocalExecutionPlanner
             IndexJoinLookupStats indexJoinLookupStats,
             CompilerConfig compilerConfig,
             TaskManagerConfig taskManagerConfig,
-            SpillerFactory spillerFactory)
+            SpillerFactory spillerFactory,
+            @ForHashBuild ExecutorService hashBuildExecutor)
     {
         requireNonNull(compilerConfig, "compilerConfig is null");
         this.queryPerformanceFetcher = requireNonNull(queryPerformanceFetcher, "queryPerformanceFetcher is null");
@@ -270,6 +280,7 @@ public class LocalExecutionPlanner
         this.indexJoinLookupStats = requireNonNull(indexJoinLookupStats, "indexJoinLookupStats is null");
         this.maxIndexMemorySize = requireNonNull(taskManagerConfig, "taskManagerConfig is null").getMaxIndexMemoryUsage();
         this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
+        this.hashBuildExecutor = requireNonNull(hashBuildExecutor, "hashBuildExecutor is null");
         this.maxPartialAggregationMemorySize = taskManagerConfig.getMaxPartialAggregationMemoryUsage();
         this.maxPagePartitioningBufferSize = taskManagerConfig.getMaxPagePartitioningBufferSize();
 
@@ -537,6 +548,8 @@ public class LocalExecutionPlanner
             extends PlanVisitor<LocalExecutionPlanContext, PhysicalOperation>
     {
         private final Session session;
+        // dynamic filters of the joins, by the id of the probe side table scan
+        private final Map<PlanNodeId, DynamicFilter> dynamicFilters = new HashMap<>();
 
         private Visitor(Session session)
         {
@@ -740,7 +753,10 @@ public class LocalExecutionPlanner
                     sortChannels,
                     sortOrder,
                     node.getPreSortedOrderPrefix(),
-                    10_000);
+                    10_000,
+                    isSpillEnabled(context.getSession()),
+                    getOperatorMemoryLimitBeforeSpill(context.getSession()),
+                    spillerFactory);
 
             return new PhysicalOperation(operatorFactory, outputMappings.build(), source);
         }
@@ -798,7 +814,10 @@ public class LocalExecutionPlanner
                     outputChannels.build(),
                     10_000,
                     orderByChannels,
-                    sortOrder.build());
+                    sortOrder.build(),
+                    isSpillEnabled(context.getSession()),
+                    getOperatorMemoryLimitBeforeSpill(context.getSession()),
+                    spillerFactory);
 
             return new PhysicalOperation(operator, source.getLayout(), source);
         }
@@ -892,7 +911,14 @@ public class LocalExecutionPlanner
             boolean spillEnabled = isSpillEnabled(context.getSession());
             DataSize memoryLimitBeforeSpill = getOperatorMemoryLimitBeforeSpill(context.getSession());
 
-            return planGroupByAggregation(node, source, context.getNextOperatorId(), spillEnabled, memoryLimitBeforeSpill);
+            Optional<PartialAggregationController> partialAggregationController = Optional.empty();
+            if (node.getStep() == AggregationNode.Step.PARTIAL && isAdaptivePartialAggregationEnabled(context.getSession())) {
+                partialAggregationController = Optional.of(new PartialAggregationController(
+                        getAdaptivePartialAggregationMinRows(context.getSession()),
+                        getAdaptivePartialAggregationUniqueRowsRatioThreshold(context.getSession())));
+            }
+
+            return planGroupByAggregation(node, source, context.getNextOperatorId(), spillEnabled, memoryLimitBeforeSpill, partialAggregationController);
         }
 
         @Override
@@ -1036,7 +1062,8 @@ public class LocalExecutionPlanner
                             cursorProcessor,
                             pageProcessor,
                             columns,
-                            Lists.transform(rewrittenProjections, forMap(expressionTypes)));
+                            Lists.transform(rewrittenProjections, forMap(expressionTypes)),
+                            Optional.ofNullable(dynamicFilters.get(sourceNode.getId())));
 
                     return new PhysicalOperation(operatorFactory, outputMappings);
                 }
@@ -1100,7 +1127,8 @@ public class LocalExecutionPlanner
                         () -> new GenericCursorProcessor(filterFunction, projectionFunctions),
                         () -> new GenericPageProcessor(filterFunction, projectionFunctions),
                         columns,
-                        toTypes(projectionFunctions));
+                        toTypes(projectionFunctions),
+                        Optional.ofNullable(dynamicFilters.get(sourceNode.getId())));
 
                 return new PhysicalOperation(operatorFactory, outputMappings);
             }
@@ -1132,6 +1160,13 @@ public class LocalExecutionPlanner
         @Override
         public PhysicalOperation visitTableScan(TableScanNode node, LocalExecutionPlanContext context)
         {
+            if (dynamicFilters.containsKey(node.getId())) {
+                // rows are filtered by the dynamic filter, so plan the scan as a scan with a filter
+                Map<Symbol, Expression> projectionExpressions = node.getOutputSymbols().stream()
+                        .collect(Collectors.toMap(x -> x, Symbol::toSymbolReference));
+                return visitScanFilterAndProject(context, node.getId(), node, BooleanLiteral.TRUE_LITERAL, projectionExpressions, node.getOutputSymbols());
+            }
+
             List<ColumnHandle> columns = new ArrayList<>();
             for (Symbol symbol : node.getOutputSymbols()) {
                 columns.add(node.getAssignments().get(symbol));
@@ -1480,11 +1515,14 @@ public class LocalExecutionPlanner
                 Optional<Symbol> buildHashSymbol,
                 LocalExecutionPlanContext context)
         {
+            // Register the dynamic filter before planning the probe, so the probe side table scan can pick it up
+            Optional<DynamicFilter> dynamicFilter = createDynamicFilter(node, probeNode, probeSymbols, context);
+
             // Plan probe
             PhysicalOperation probeSource = probeNode.accept(this, context);
 
             // Plan build
-            LookupSourceFactory lookupSourceFactory = createLookupSourceFactory(node, buildNode, buildSymbols, buildHashSymbol, probeSource.getLayout(), context);
+            LookupSourceFactory lookupSourceFactory = createLookupSourceFactory(node, buildNode, buildSymbols, buildHashSymbol, probeSource.getLayout(), dynamicFilter, context);
 
             OperatorFactory operator = createLookupJoin(node, probeSource, probeSymbols, probeHashSymbol, lookupSourceFactory, context);
 
@@ -1504,6 +1542,7 @@ public class LocalExecutionPlanner
                 List<Symbol> buildSymbols,
                 Optional<Symbol> buildHashSymbol,
                 Map<Symbol, Integer> probeLayout,
+                Optional<DynamicFilter> dynamicFilter,
                 LocalExecutionPlanContext context)
         {
             LocalExecutionPlanContext buildContext = context.createSubContext();
@@ -1524,7 +1563,12 @@ public class LocalExecutionPlanner
                     node.getType() == RIGHT || node.getType() == FULL,
                     filterFunctionFactory,
                     10_000,
-                    buildContext.getDriverInstanceCount().orElse(1));
+                    buildContext.getDriverInstanceCount().orElse(1),
+                    isSpillEnabled(context.getSession()),
+                    getOperatorMemoryLimitBeforeSpill(context.getSession()),
+                    spillerFactory,
+                    dynamicFilter,
+                    hashBuildExecutor);
 
             context.addDriverFactory(new DriverFactory(
                     buildContext.isInputDriver(),
@@ -1538,6 +1582,54 @@ public class LocalExecutionPlanner
             return hashBuilderOperatorFactory.getLookupSourceFactory();
         }
 
+        private Optional<DynamicFilter> createDynamicFilter(JoinNode node, PlanNode probeNode, List<Symbol> probeSymbols, LocalExecutionPlanContext context)
+        {
+            // probe rows without a match are part of the output of left and full joins
+            if (!isDynamicFilteringEnabled(context.getSession()) || (node.getType() != INNER && node.getType() != RIGHT)) {
+                return Optional.empty();
+            }
+
+            // follow the probe symbols through filters and identity projections down to the table scan
+            List<Optional<Symbol>> symbols = probeSymbols.stream()
+                    .map(Optional::of)
+                    .collect(toImmutableList());
+            PlanNode current = probeNode;
+            while (!(current instanceof TableScanNode)) {
+                if (current instanceof FilterNode) {
+                    current = ((FilterNode) current).getSource();
+                }
+                else if (current instanceof ProjectNode) {
+                    Map<Symbol, Expression> assignments = ((ProjectNode) current).getAssignments();
+                    symbols = symbols.stream()
+                            .map(symbol -> symbol
+                                    .map(assignments::get)
+                                    .filter(SymbolReference.class::isInstance)
+                                    .map(Symbol::from))
+                            .collect(toImmutableList());
+                    current = ((ProjectNode) current).getSource();
+                }
+                else {
+                    return Optional.empty();
+                }
+            }
+
+            TableScanNode tableScan = (TableScanNode) current;
+            ImmutableMap.Builder<Integer, ColumnHandle> probeColumns = ImmutableMap.builder();
+            for (int i = 0; i < symbols.size(); i++) {
+                if (symbols.get(i).isPresent()) {
+                    probeColumns.put(i, tableScan.getAssignments().get(symbols.get(i).get()));
+                }
+            }
+            Map<Integer, ColumnHandle> columns = probeColumns.build();
+            if (columns.isEmpty() || dynamicFilters.containsKey(tableScan.getId())) {
+                return Optional.empty();
+            }
+
+            DynamicFilter dynamicFilter = new DynamicFilter(columns);
+            dynamicFilters.put(tableScan.getId(), dynamicFilter);
+            return Optional.of(dynamicFilter);
+        }
+
         private JoinFilterFunctionFactory compileJoinFilterFunction(
                 Expression filterExpression,
                 Map<Symbol, Integer> probeLayout,
@@ -1857,7 +1949,8 @@ public class LocalExecutionPlanner
                 PhysicalOperation source,
                 int operatorId,
                 boolean spillEnabled,
-                DataSize memoryLimitBeforeSpill)
+                DataSize memoryLimitBeforeSpill,
+                Optional<PartialAggregationController> partialAggregationController)
         {
             List<Symbol> groupBySymbols = node.getGroupingKeys();
 
@@ -1922,7 +2015,8 @@ public class LocalExecutionPlanner
                     maxPartialAggregationMemorySize,
                     spillEnabled,
                     memoryLimitBeforeSpill,
-                    spillerFactory);
+                    spillerFactory,
+                    partialAggregationController);
 
             return new PhysicalOperation(operatorFactory, mappings, source);
         }
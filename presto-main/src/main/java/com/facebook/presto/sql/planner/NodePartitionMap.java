@@ -54,9 +54,14 @@ public class NodePartitionMap
         return bucketToPartition;
     }
 
+    public int getBucket(Split split)
+    {
+        return splitToBucket.applyAsInt(split);
+    }
+
     public Node getNode(Split split)
     {
-        int bucket = splitToBucket.applyAsInt(split);
+        int bucket = getBucket(split);
         int partition = bucketToPartition[bucket];
         return requireNonNull(partitionToNode.get(partition));
     }
@@ -208,6 +208,8 @@ public class PlanPrinter
         Map<PlanNodeId, Long> outputPositions = new HashMap<>();
         Map<PlanNodeId, Long> outputBytes = new HashMap<>();
         Map<PlanNodeId, Long> wallMillis = new HashMap<>();
+        Map<PlanNodeId, Long> passThroughPositions = new HashMap<>();
+        Map<PlanNodeId, Long> hashBuildMillis = new HashMap<>();
 
         for (PipelineStats pipelineStats : taskStats.getPipelines()) {
             Map<PlanNodeId, Long> pipelineOutputPositions = new HashMap<>();
@@ -219,6 +221,8 @@ public class PlanPrinter
                 PlanNodeId planNodeId = operatorStats.getPlanNodeId();
                 long wall = operatorStats.getAddInputWall().toMillis() + operatorStats.getGetOutputWall().toMillis() + operatorStats.getFinishWall().toMillis();
                 wallMillis.merge(planNodeId, wall, Long::sum);
+                passThroughPositions.merge(planNodeId, operatorStats.getPartialAggregationPassThroughPositions(), Long::sum);
+                hashBuildMillis.merge(planNodeId, operatorStats.getHashBuildWall().toMillis(), Long::sum);
 
                 // An "internal" pipeline like a hash build, links to another pipeline which is the actual output for this plan node
                 if (i == operatorSummaries.size() - 1 && !pipelineStats.isOutputPipeline()) {
@@ -241,7 +245,13 @@ public class PlanPrinter
         List<PlanNodeStats> stats = new ArrayList<>();
         for (Map.Entry<PlanNodeId, Long> entry : wallMillis.entrySet()) {
             if (outputPositions.containsKey(entry.getKey())) {
-                stats.add(new PlanNodeStats(entry.getKey(), new Duration(entry.getValue(), MILLISECONDS), outputPositions.get(entry.getKey()), succinctDataSize(outputBytes.get(entry.getKey()), BYTE)));
+                stats.add(new PlanNodeStats(
+                        entry.getKey(),
+                        new Duration(entry.getValue(), MILLISECONDS),
+                        outputPositions.get(entry.getKey()),
+                        succinctDataSize(outputBytes.get(entry.getKey()), BYTE),
+                        passThroughPositions.get(entry.getKey()),
+                        new Duration(hashBuildMillis.get(entry.getKey()), MILLISECONDS)));
             }
             else {
                 // It's possible there will be no output stats because all the pipelines that we observed were non-output.
@@ -385,6 +395,16 @@ public class PlanPrinter
         }
         output.append(indentString(indent))
                 .append(format("Cost: %s, Output: %s\n", fractionString, outputString));
+
+        if (stats.getPartialAggregationPassThroughPositions() > 0) {
+            output.append(indentString(indent))
+                    .append(format("Partial aggregation disabled, passed through: %s rows\n", stats.getPartialAggregationPassThroughPositions()));
+        }
+
+        if (stats.getHashBuildTime().toMillis() > 0) {
+            output.append(indentString(indent))
+                    .append(format("Hash build: %s\n", stats.getHashBuildTime().convertToMostSuccinctTimeUnit()));
+        }
     }
 
     private static String indentString(int indent)
@@ -1061,23 +1081,27 @@ public class PlanPrinter
         private final Duration wallTime;
         private final Optional<Long> outputPositions;
         private final Optional<DataSize> outputDataSize;
+        private final long partialAggregationPassThroughPositions;
+        private final Duration hashBuildTime;
 
         public PlanNodeStats(PlanNodeId planNodeId, Duration wallTime)
         {
-            this(planNodeId, wallTime, Optional.empty(), Optional.empty());
+            this(planNodeId, wallTime, Optional.empty(), Optional.empty(), 0, new Duration(0, MILLISECONDS));
         }
 
-        public PlanNodeStats(PlanNodeId planNodeId, Duration wallTime, long outputPositions, DataSize outputDataSize)
+        public PlanNodeStats(PlanNodeId planNodeId, Duration wallTime, long outputPositions, DataSize outputDataSize, long partialAggregationPassThroughPositions, Duration hashBuildTime)
         {
-            this(planNodeId, wallTime, Optional.of(outputPositions), Optional.of(outputDataSize));
+            this(planNodeId, wallTime, Optional.of(outputPositions), Optional.of(outputDataSize), partialAggregationPassThroughPositions, hashBuildTime);
         }
 
-        private PlanNodeStats(PlanNodeId planNodeId, Duration wallTime, Optional<Long> outputPositions, Optional<DataSize> outputDataSize)
+        private PlanNodeStats(PlanNodeId planNodeId, Duration wallTime, Optional<Long> outputPositions, Optional<DataSize> outputDataSize, long partialAggregationPassThroughPositions, Duration hashBuildTime)
         {
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
             this.wallTime = requireNonNull(wallTime, "wallTime is null");
             this.outputPositions = outputPositions;
             this.outputDataSize = outputDataSize;
+            this.partialAggregationPassThroughPositions = partialAggregationPassThroughPositions;
+            this.hashBuildTime = requireNonNull(hashBuildTime, "hashBuildTime is null");
         }
 
         public PlanNodeId getPlanNodeId()
@@ -1100,6 +1124,16 @@ public class PlanPrinter
             return outputDataSize;
         }
 
+        public long getPartialAggregationPassThroughPositions()
+        {
+            return partialAggregationPassThroughPositions;
+        }
+
+        public Duration getHashBuildTime()
+        {
+            return hashBuildTime;
+        }
+
         public static PlanNodeStats merge(PlanNodeStats planNodeStats1, PlanNodeStats planNodeStats2)
         {
             checkArgument(planNodeStats1.getPlanNodeId().equals(planNodeStats2.getPlanNodeId()), "planNodeIds do not match. %s != %s", planNodeStats1.getPlanNodeId(), planNodeStats2.getPlanNodeId());
@@ -1127,7 +1161,9 @@ public class PlanPrinter
                     planNodeStats1.getPlanNodeId(),
                     new Duration(planNodeStats1.getWallTime().toMillis() + planNodeStats2.getWallTime().toMillis(), MILLISECONDS),
                     outputPositions,
-                    outputDataSize);
+                    outputDataSize,
+                    planNodeStats1.getPartialAggregationPassThroughPositions() + planNodeStats2.getPartialAggregationPassThroughPositions(),
+                    new Duration(planNodeStats1.getHashBuildTime().toMillis() + planNodeStats2.getHashBuildTime().toMillis(), MILLISECONDS));
         }
     }
 }
@@ -291,6 +291,7 @@ class RelationPlanner
                 equiClauses.build(),
                 Optional.empty(),
                 Optional.empty(),
+                Optional.empty(),
                 Optional.empty());
 
         if (node.getType() != INNER) {
@@ -323,6 +324,7 @@ class RelationPlanner
                     equiClauses.build(),
                     Optional.of(rewritenFilterCondition),
                     Optional.empty(),
+                    Optional.empty(),
                     Optional.empty());
         }
 
@@ -116,6 +116,7 @@ import static com.facebook.presto.sql.planner.plan.ExchangeNode.Type.GATHER;
 import static com.facebook.presto.sql.planner.plan.ExchangeNode.gatheringExchange;
 import static com.facebook.presto.sql.planner.plan.ExchangeNode.partitionedExchange;
 import static com.facebook.presto.sql.planner.plan.ExchangeNode.replicatedExchange;
+import static com.facebook.presto.sql.planner.plan.JoinNode.DistributionType.PARTITIONED;
 import static com.facebook.presto.sql.planner.plan.JoinNode.Type.FULL;
 import static com.facebook.presto.sql.planner.plan.JoinNode.Type.INNER;
 import static com.facebook.presto.sql.planner.plan.JoinNode.Type.RIGHT;
@@ -759,7 +760,15 @@ public class AddExchanges
             PlanWithProperties right;
 
             boolean isCrossJoin = type == INNER && leftSymbols.isEmpty();
-            if ((distributedJoins && !isCrossJoin && !isScalar(node.getRight())) || (type == FULL) || (type == RIGHT)) {
+            boolean partitioned;
+            if (node.getDistributionType().isPresent() && !isCrossJoin) {
+                // distribution selected by the cost based optimizer
+                partitioned = node.getDistributionType().get() == PARTITIONED;
+            }
+            else {
+                partitioned = distributedJoins && !isCrossJoin && !isScalar(node.getRight());
+            }
+            if (partitioned || (type == FULL) || (type == RIGHT)) {
                 // The implementation of full outer join only works if the data is hash partitioned. See LookupJoinOperators#buildSideOuterJoinUnvisitedPositions
 
                 SetMultimap<Symbol, Symbol> rightToLeft = createMapping(rightSymbols, leftSymbols);
@@ -833,7 +842,8 @@ public class AddExchanges
                     node.getCriteria(),
                     node.getFilter(),
                     node.getLeftHashSymbol(),
-                    node.getRightHashSymbol());
+                    node.getRightHashSymbol(),
+                    node.getDistributionType());
 
             return new PlanWithProperties(result, deriveProperties(result, ImmutableList.of(left.getProperties(), right.getProperties())));
         }
@@ -0,0 +1,279 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.optimizations;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.cost.CardinalityEstimator;
+import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.planner.PlanNodeIdAllocator;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.SymbolAllocator;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.JoinNode.DistributionType;
+import com.facebook.presto.sql.planner.plan.JoinNode.EquiJoinClause;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.ProjectNode;
+import com.facebook.presto.sql.planner.plan.SimplePlanRewriter;
+import com.facebook.presto.sql.tree.Expression;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.facebook.presto.SystemSessionProperties.getJoinMaxBroadcastTableSize;
+import static com.facebook.presto.SystemSessionProperties.isCostBasedJoinDistributionEnabled;
+import static com.facebook.presto.SystemSessionProperties.isJoinReorderingEnabled;
+import static com.facebook.presto.sql.planner.plan.JoinNode.DistributionType.PARTITIONED;
+import static com.facebook.presto.sql.planner.plan.JoinNode.DistributionType.REPLICATED;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.INNER;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.LEFT;
+import static com.facebook.presto.util.ImmutableCollectors.toImmutableList;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Uses the estimated cardinalities of the join inputs to reorder trees of inner joins and
+ * to choose between replicating the build side of a join to all nodes and partitioning
+ * both sides on the join keys.
+ * <p>
+ * Inner joins are reordered greedily: the largest input becomes the probe side of the bottom
+ * join, and every following join adds the connected input which gives the smallest estimated
+ * result, with the smaller side of each join used as the build side. Join trees with inputs
+ * of unknown size or without join criteria between some of their inputs are left unchanged.
+ */
+public class CostBasedJoinOptimizer
+        implements PlanOptimizer
+{
+    private final Metadata metadata;
+
+    public CostBasedJoinOptimizer(Metadata metadata)
+    {
+        this.metadata = requireNonNull(metadata, "metadata is null");
+    }
+
+    @Override
+    public PlanNode optimize(PlanNode plan, Session session, Map<Symbol, Type> types, SymbolAllocator symbolAllocator, PlanNodeIdAllocator idAllocator)
+    {
+        requireNonNull(plan, "plan is null");
+        requireNonNull(session, "session is null");
+        requireNonNull(types, "types is null");
+        requireNonNull(symbolAllocator, "symbolAllocator is null");
+        requireNonNull(idAllocator, "idAllocator is null");
+
+        if (!isJoinReorderingEnabled(session) && !isCostBasedJoinDistributionEnabled(session)) {
+            return plan;
+        }
+        CardinalityEstimator estimator = new CardinalityEstimator(metadata, session, types);
+        return SimplePlanRewriter.rewriteWith(new Rewriter(session, estimator, idAllocator), plan);
+    }
+
+    private static class Rewriter
+            extends SimplePlanRewriter<Void>
+    {
+        private final boolean reorderJoins;
+        private final boolean selectDistribution;
+        private final double maxBroadcastTableSize;
+        private final CardinalityEstimator estimator;
+        private final PlanNodeIdAllocator idAllocator;
+
+        private Rewriter(Session session, CardinalityEstimator estimator, PlanNodeIdAllocator idAllocator)
+        {
+            this.reorderJoins = isJoinReorderingEnabled(session);
+            this.selectDistribution = isCostBasedJoinDistributionEnabled(session);
+            this.maxBroadcastTableSize = getJoinMaxBroadcastTableSize(session).toBytes();
+            this.estimator = requireNonNull(estimator, "estimator is null");
+            this.idAllocator = requireNonNull(idAllocator, "idAllocator is null");
+        }
+
+        @Override
+        public PlanNode visitJoin(JoinNode node, RewriteContext<Void> context)
+        {
+            if (reorderJoins && isReorderable(node)) {
+                List<PlanNode> sources = new ArrayList<>();
+                List<EquiJoinClause> criteria = new ArrayList<>();
+                flatten(node, sources, criteria);
+                if (sources.stream().noneMatch(source -> estimator.estimate(source).isOutputRowCountUnknown()) && isConnected(sources, criteria)) {
+                    List<PlanNode> rewrittenSources = sources.stream()
+                            .map(context::rewrite)
+                            .collect(toImmutableList());
+                    return reorder(rewrittenSources, criteria, node.getOutputSymbols());
+                }
+            }
+
+            PlanNode left = context.rewrite(node.getLeft());
+            PlanNode right = context.rewrite(node.getRight());
+            return new JoinNode(
+                    node.getId(),
+                    node.getType(),
+                    left,
+                    right,
+                    node.getCriteria(),
+                    node.getFilter(),
+                    node.getLeftHashSymbol(),
+                    node.getRightHashSymbol(),
+                    selectDistribution(node.getType(), right, node.getCriteria(), node.getDistributionType()));
+        }
+
+        private PlanNode reorder(List<PlanNode> sources, List<EquiJoinClause> criteria, List<Symbol> outputSymbols)
+        {
+            List<PlanNode> remaining = new ArrayList<>(sources);
+            PlanNode result = remaining.get(0);
+            for (PlanNode source : remaining) {
+                if (getRowCount(source) > getRowCount(result)) {
+                    result = source;
+                }
+            }
+            remaining.remove(result);
+
+            while (!remaining.isEmpty()) {
+                PlanNode bestSource = null;
+                JoinNode bestJoin = null;
+                for (PlanNode source : remaining) {
+                    List<EquiJoinClause> clauses = getClauses(result, source, criteria);
+                    if (clauses.isEmpty()) {
+                        continue;
+                    }
+                    JoinNode join = createJoin(result, source, clauses);
+                    if (bestJoin == null || getRowCount(join) < getRowCount(bestJoin)) {
+                        bestSource = source;
+                        bestJoin = join;
+                    }
+                }
+                checkState(bestJoin != null, "Join inputs are not connected");
+                remaining.remove(bestSource);
+                result = bestJoin;
+            }
+
+            if (result.getOutputSymbols().equals(outputSymbols)) {
+                return result;
+            }
+            // restore the order of the output symbols of the original join
+            ImmutableMap.Builder<Symbol, Expression> assignments = ImmutableMap.builder();
+            for (Symbol symbol : outputSymbols) {
+                assignments.put(symbol, symbol.toSymbolReference());
+            }
+            return new ProjectNode(idAllocator.getNextId(), result, assignments.build());
+        }
+
+        private JoinNode createJoin(PlanNode probe, PlanNode build, List<EquiJoinClause> criteria)
+        {
+            if (getRowCount(probe) < getRowCount(build)) {
+                return createJoin(build, probe, criteria.stream()
+                        .map(clause -> new EquiJoinClause(clause.getRight(), clause.getLeft()))
+                        .collect(toImmutableList()));
+            }
+            return new JoinNode(
+                    idAllocator.getNextId(),
+                    INNER,
+                    probe,
+                    build,
+                    criteria,
+                    Optional.empty(),
+                    Optional.empty(),
+                    Optional.empty(),
+                    selectDistribution(INNER, build, criteria, Optional.empty()));
+        }
+
+        private Optional<DistributionType> selectDistribution(JoinNode.Type type, PlanNode build, List<EquiJoinClause> criteria, Optional<DistributionType> distributionType)
+        {
+            if (!selectDistribution || distributionType.isPresent() || criteria.isEmpty() || (type != INNER && type != LEFT)) {
+                return distributionType;
+            }
+            double buildSize = estimator.estimateOutputSizeInBytes(build);
+            if (Double.isNaN(buildSize)) {
+                return Optional.empty();
+            }
+            return Optional.of(buildSize <= maxBroadcastTableSize ? REPLICATED : PARTITIONED);
+        }
+
+        private double getRowCount(PlanNode node)
+        {
+            return estimator.estimate(node).getOutputRowCount();
+        }
+
+        private static boolean isReorderable(JoinNode node)
+        {
+            return node.getType() == INNER &&
+                    !node.getCriteria().isEmpty() &&
+                    !node.getFilter().isPresent() &&
+                    !node.getLeftHashSymbol().isPresent() &&
+                    !node.getRightHashSymbol().isPresent() &&
+                    !node.getDistributionType().isPresent();
+        }
+
+        private static void flatten(JoinNode node, List<PlanNode> sources, List<EquiJoinClause> criteria)
+        {
+            for (PlanNode source : ImmutableList.of(node.getLeft(), node.getRight())) {
+                if (source instanceof JoinNode && isReorderable((JoinNode) source)) {
+                    flatten((JoinNode) source, sources, criteria);
+                }
+                else {
+                    sources.add(source);
+                }
+            }
+            criteria.addAll(node.getCriteria());
+        }
+
+        private static boolean isConnected(List<PlanNode> sources, List<EquiJoinClause> criteria)
+        {
+            Set<Symbol> connectedSymbols = ImmutableSet.copyOf(sources.get(0).getOutputSymbols());
+            List<PlanNode> remaining = new ArrayList<>(sources.subList(1, sources.size()));
+            boolean progress = true;
+            while (!remaining.isEmpty() && progress) {
+                progress = false;
+                for (PlanNode source : remaining) {
+                    if (!getClauses(connectedSymbols, source.getOutputSymbols(), criteria).isEmpty()) {
+                        connectedSymbols = ImmutableSet.<Symbol>builder()
+                                .addAll(connectedSymbols)
+                                .addAll(source.getOutputSymbols())
+                                .build();
+                        remaining.remove(source);
+                        progress = true;
+                        break;
+                    }
+                }
+            }
+            return remaining.isEmpty();
+        }
+
+        private static List<EquiJoinClause> getClauses(PlanNode left, PlanNode right, List<EquiJoinClause> criteria)
+        {
+            return getClauses(ImmutableSet.copyOf(left.getOutputSymbols()), right.getOutputSymbols(), criteria);
+        }
+
+        /**
+         * Returns the clauses which compare the left symbols with the right symbols, with the left symbols on the left side.
+         */
+        private static List<EquiJoinClause> getClauses(Set<Symbol> leftSymbols, List<Symbol> rightSymbols, List<EquiJoinClause> criteria)
+        {
+            Set<Symbol> rightSymbolSet = ImmutableSet.copyOf(rightSymbols);
+            ImmutableList.Builder<EquiJoinClause> clauses = ImmutableList.builder();
+            for (EquiJoinClause clause : criteria) {
+                if (leftSymbols.contains(clause.getLeft()) && rightSymbolSet.contains(clause.getRight())) {
+                    clauses.add(clause);
+                }
+                else if (leftSymbols.contains(clause.getRight()) && rightSymbolSet.contains(clause.getLeft())) {
+                    clauses.add(new EquiJoinClause(clause.getRight(), clause.getLeft()));
+                }
+            }
+            return clauses.build();
+        }
+    }
+}
@@ -17,6 +17,7 @@ import com.facebook.presto.Session;
 import com.facebook.presto.SystemSessionProperties;
 import com.facebook.presto.metadata.Metadata;
 import com.facebook.presto.metadata.TableLayout;
+import com.facebook.presto.metadata.TableLayoutHandle;
 import com.facebook.presto.metadata.TableLayoutResult;
 import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ColumnMetadata;
@@ -24,8 +25,11 @@ import com.facebook.presto.spi.Constraint;
 import com.facebook.presto.spi.DiscretePredicates;
 import com.facebook.presto.spi.predicate.NullableValue;
 import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.statistics.ColumnStatistics;
+import com.facebook.presto.spi.statistics.TableStatistics;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.sql.planner.DeterminismEvaluator;
+import com.facebook.presto.sql.planner.DomainTranslator;
 import com.facebook.presto.sql.planner.LiteralInterpreter;
 import com.facebook.presto.sql.planner.PlanNodeIdAllocator;
 import com.facebook.presto.sql.planner.Symbol;
@@ -41,13 +45,16 @@ import com.facebook.presto.sql.planner.plan.SortNode;
 import com.facebook.presto.sql.planner.plan.TableScanNode;
 import com.facebook.presto.sql.planner.plan.TopNNode;
 import com.facebook.presto.sql.planner.plan.ValuesNode;
+import com.facebook.presto.sql.tree.BooleanLiteral;
 import com.facebook.presto.sql.tree.Expression;
 import com.facebook.presto.sql.tree.FunctionCall;
+import com.facebook.presto.sql.tree.SymbolReference;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -57,12 +64,14 @@ import static java.util.Objects.requireNonNull;
 
 /**
  * Converts cardinality-insensitive aggregations (max, min, "distinct") over partition keys
- * into simple metadata queries
+ * into simple metadata queries. When enabled, global count, min and max aggregations over
+ * whole partitions are also answered from the exact statistics of the connector.
  */
 public class MetadataQueryOptimizer
         implements PlanOptimizer
 {
     private static final Set<String> ALLOWED_FUNCTIONS = ImmutableSet.of("max", "min", "approx_distinct");
+    private static final Set<String> STATISTICS_FUNCTIONS = ImmutableSet.of("count", "max", "min");
 
     private final Metadata metadata;
 
@@ -76,10 +85,10 @@ public class MetadataQueryOptimizer
     @Override
     public PlanNode optimize(PlanNode plan, Session session, Map<Symbol, Type> types, SymbolAllocator symbolAllocator, PlanNodeIdAllocator idAllocator)
     {
-        if (!SystemSessionProperties.isOptimizeMetadataQueries(session)) {
+        if (!SystemSessionProperties.isOptimizeMetadataQueries(session) && !SystemSessionProperties.isOptimizeMetadataQueriesUsingStatistics(session)) {
             return plan;
         }
-        return SimplePlanRewriter.rewriteWith(new Optimizer(session, metadata, idAllocator), plan, null);
+        return SimplePlanRewriter.rewriteWith(new Optimizer(session, metadata, types, idAllocator), plan, null);
     }
 
     private static class Optimizer
@@ -88,17 +97,30 @@ public class MetadataQueryOptimizer
         private final PlanNodeIdAllocator idAllocator;
         private final Session session;
         private final Metadata metadata;
+        private final Map<Symbol, Type> types;
 
-        private Optimizer(Session session, Metadata metadata, PlanNodeIdAllocator idAllocator)
+        private Optimizer(Session session, Metadata metadata, Map<Symbol, Type> types, PlanNodeIdAllocator idAllocator)
         {
             this.session = session;
             this.metadata = metadata;
+            this.types = types;
             this.idAllocator = idAllocator;
         }
 
         @Override
         public PlanNode visitAggregation(AggregationNode node, RewriteContext<Void> context)
         {
+            if (SystemSessionProperties.isOptimizeMetadataQueriesUsingStatistics(session)) {
+                Optional<PlanNode> result = rewriteUsingStatistics(node);
+                if (result.isPresent()) {
+                    return result.get();
+                }
+            }
+
+            if (!SystemSessionProperties.isOptimizeMetadataQueries(session)) {
+                return context.defaultRewrite(node);
+            }
+
             // supported functions are only MIN/MAX/APPROX_DISTINCT or distinct aggregates
             for (FunctionCall call : node.getAggregations().values()) {
                 if (!ALLOWED_FUNCTIONS.contains(call.getName().toString()) && !call.isDistinct()) {
@@ -180,6 +202,134 @@ public class MetadataQueryOptimizer
             return SimplePlanRewriter.rewriteWith(new Replacer(valuesNode), node);
         }
 
+        /**
+         * Replaces a global count, min or max aggregation, over a table scan which is only filtered
+         * on columns fully enforced by the table layout, with the values derived from the exact
+         * statistics of the layout.
+         */
+        private Optional<PlanNode> rewriteUsingStatistics(AggregationNode node)
+        {
+            if (node.getStep() != AggregationNode.Step.SINGLE || !node.getGroupingKeys().isEmpty() || node.getGroupingSets().size() != 1 || !node.getMasks().isEmpty()) {
+                return Optional.empty();
+            }
+
+            // follow the arguments of the aggregations through renaming projections down to the table scan
+            Map<Symbol, Symbol> mappings = new HashMap<>();
+            for (FunctionCall call : node.getAggregations().values()) {
+                if (!STATISTICS_FUNCTIONS.contains(call.getName().toString()) || call.isDistinct() || call.getWindow().isPresent() || call.getFilter().isPresent()) {
+                    return Optional.empty();
+                }
+                if (call.getArguments().size() > 1 || (call.getArguments().isEmpty() && !call.getName().toString().equals("count"))) {
+                    return Optional.empty();
+                }
+                for (Expression argument : call.getArguments()) {
+                    if (!(argument instanceof SymbolReference)) {
+                        return Optional.empty();
+                    }
+                    Symbol symbol = Symbol.from(argument);
+                    mappings.put(symbol, symbol);
+                }
+            }
+
+            PlanNode source = node.getSource();
+            while (source instanceof ProjectNode) {
+                ProjectNode project = (ProjectNode) source;
+                for (Map.Entry<Symbol, Symbol> entry : mappings.entrySet()) {
+                    Expression expression = project.getAssignments().get(entry.getValue());
+                    if (!(expression instanceof SymbolReference)) {
+                        return Optional.empty();
+                    }
+                    entry.setValue(Symbol.from(expression));
+                }
+                source = project.getSource();
+            }
+
+            Expression predicate = BooleanLiteral.TRUE_LITERAL;
+            if (source instanceof FilterNode) {
+                predicate = ((FilterNode) source).getPredicate();
+                source = ((FilterNode) source).getSource();
+            }
+            if (!(source instanceof TableScanNode)) {
+                return Optional.empty();
+            }
+            TableScanNode tableScan = (TableScanNode) source;
+
+            TableLayoutHandle layout;
+            if (tableScan.getLayout().isPresent()) {
+                if (!predicate.equals(BooleanLiteral.TRUE_LITERAL)) {
+                    return Optional.empty();
+                }
+                layout = tableScan.getLayout().get();
+            }
+            else {
+                // the filter must be fully enforced by the layout, as the statistics cover whole partitions
+                DomainTranslator.ExtractionResult decomposedPredicate = DomainTranslator.fromPredicate(metadata, session, predicate, types);
+                if (!decomposedPredicate.getRemainingExpression().equals(BooleanLiteral.TRUE_LITERAL)) {
+                    return Optional.empty();
+                }
+                TupleDomain<ColumnHandle> constraint = decomposedPredicate.getTupleDomain()
+                        .transform(tableScan.getAssignments()::get)
+                        .intersect(tableScan.getCurrentConstraint());
+                List<TableLayoutResult> layouts = metadata.getLayouts(session, tableScan.getTable(), new Constraint<>(constraint, bindings -> true), Optional.empty());
+                if (layouts.size() != 1 || !layouts.get(0).getUnenforcedConstraint().isAll()) {
+                    return Optional.empty();
+                }
+                layout = layouts.get(0).getLayout().getHandle();
+            }
+
+            Map<Symbol, ColumnHandle> columns = new HashMap<>();
+            for (Map.Entry<Symbol, Symbol> entry : mappings.entrySet()) {
+                ColumnHandle column = tableScan.getAssignments().get(entry.getValue());
+                if (column == null) {
+                    return Optional.empty();
+                }
+                columns.put(entry.getKey(), column);
+            }
+
+            Optional<TableStatistics> result = metadata.getExactTableStatistics(session, tableScan.getTable(), layout, ImmutableSet.copyOf(columns.values()));
+            if (!result.isPresent()) {
+                return Optional.empty();
+            }
+            TableStatistics statistics = result.get();
+            if (statistics.getRowCount().isValueUnknown()) {
+                return Optional.empty();
+            }
+            long rowCount = (long) statistics.getRowCount().getValue();
+
+            ImmutableList.Builder<Expression> row = ImmutableList.builder();
+            for (Symbol output : node.getOutputSymbols()) {
+                FunctionCall call = node.getAggregations().get(output);
+                Type type = types.get(output);
+                if (call.getArguments().isEmpty()) {
+                    row.add(LiteralInterpreter.toExpression(rowCount, type));
+                    continue;
+                }
+
+                ColumnStatistics columnStatistics = statistics.getColumnStatistics().get(columns.get(Symbol.from(call.getArguments().get(0))));
+                if (columnStatistics == null || columnStatistics.getNullsCount().isValueUnknown()) {
+                    return Optional.empty();
+                }
+                long nonNullCount = rowCount - (long) columnStatistics.getNullsCount().getValue();
+                if (call.getName().toString().equals("count")) {
+                    row.add(LiteralInterpreter.toExpression(nonNullCount, type));
+                    continue;
+                }
+
+                Optional<Object> value = call.getName().toString().equals("min") ? columnStatistics.getMin() : columnStatistics.getMax();
+                if (nonNullCount == 0) {
+                    row.add(LiteralInterpreter.toExpression(null, type));
+                }
+                else if (value.isPresent()) {
+                    row.add(LiteralInterpreter.toExpression(value.get(), type));
+                }
+                else {
+                    return Optional.empty();
+                }
+            }
+
+            return Optional.of(new ValuesNode(idAllocator.getNextId(), node.getOutputSymbols(), ImmutableList.of(row.build())));
+        }
+
         private static Optional<TableScanNode> findTableScan(PlanNode source)
         {
             while (true) {
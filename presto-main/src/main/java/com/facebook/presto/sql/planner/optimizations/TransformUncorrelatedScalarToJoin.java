@@ -62,6 +62,7 @@ public class TransformUncorrelatedScalarToJoin
                         ImmutableList.of(),
                         Optional.empty(),
                         Optional.empty(),
+                        Optional.empty(),
                         Optional.empty());
             }
             return rewrittenNode;
@@ -25,6 +25,7 @@ import javax.annotation.concurrent.Immutable;
 import java.util.List;
 import java.util.Optional;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.requireNonNull;
 
 @Immutable
@@ -38,6 +39,7 @@ public class JoinNode
     private final Optional<Expression> filter;
     private final Optional<Symbol> leftHashSymbol;
     private final Optional<Symbol> rightHashSymbol;
+    private final Optional<DistributionType> distributionType;
 
     @JsonCreator
     public JoinNode(@JsonProperty("id") PlanNodeId id,
@@ -47,7 +49,8 @@ public class JoinNode
             @JsonProperty("criteria") List<EquiJoinClause> criteria,
             @JsonProperty("filter") Optional<Expression> filter,
             @JsonProperty("leftHashSymbol") Optional<Symbol> leftHashSymbol,
-            @JsonProperty("rightHashSymbol") Optional<Symbol> rightHashSymbol)
+            @JsonProperty("rightHashSymbol") Optional<Symbol> rightHashSymbol,
+            @JsonProperty("distributionType") Optional<DistributionType> distributionType)
     {
         super(id);
         requireNonNull(type, "type is null");
@@ -57,6 +60,9 @@ public class JoinNode
         requireNonNull(filter, "filter is null");
         requireNonNull(leftHashSymbol, "leftHashSymbol is null");
         requireNonNull(rightHashSymbol, "rightHashSymbol is null");
+        requireNonNull(distributionType, "distributionType is null");
+        checkArgument(!(distributionType.isPresent() && distributionType.get() == DistributionType.REPLICATED && (type == Type.RIGHT || type == Type.FULL)),
+                "%s join does not support replicated distribution", type);
 
         this.type = type;
         this.left = left;
@@ -65,6 +71,17 @@ public class JoinNode
         this.filter = filter;
         this.leftHashSymbol = leftHashSymbol;
         this.rightHashSymbol = rightHashSymbol;
+        this.distributionType = distributionType;
+    }
+
+    /**
+     * Distribution of the build side. Joins without a distribution type use the
+     * distribution selected by the distributed_join session property.
+     */
+    public enum DistributionType
+    {
+        PARTITIONED,
+        REPLICATED
     }
 
     public enum Type
@@ -148,6 +165,12 @@ public class JoinNode
         return rightHashSymbol;
     }
 
+    @JsonProperty("distributionType")
+    public Optional<DistributionType> getDistributionType()
+    {
+        return distributionType;
+    }
+
     @Override
     public List<PlanNode> getSources()
     {
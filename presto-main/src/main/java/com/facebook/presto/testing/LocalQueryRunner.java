@@ -398,6 +398,11 @@ public class LocalQueryRunner
         return executor;
     }
 
+    public SpillerFactory getSpillerFactory()
+    {
+        return spillerFactory;
+    }
+
     @Override
     public Session getDefaultSession()
     {
@@ -561,7 +566,8 @@ public class LocalQueryRunner
                 new IndexJoinLookupStats(),
                 new CompilerConfig().setInterpreterEnabled(false), // make sure tests fail if compiler breaks
                 new TaskManagerConfig().setTaskConcurrency(4),
-                spillerFactory);
+                spillerFactory,
+                executor);
 
         // plan query
         LocalExecutionPlan localExecutionPlan = executionPlanner.plan(
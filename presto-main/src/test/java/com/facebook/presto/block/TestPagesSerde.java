@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.block;
 
+import com.facebook.presto.block.PagesSerde.CompressedPagesReader;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
@@ -27,13 +28,16 @@ import org.testng.annotations.Test;
 import java.util.Iterator;
 import java.util.List;
 
+import static com.facebook.presto.block.PagesSerde.readCompressedPages;
 import static com.facebook.presto.block.PagesSerde.readPages;
+import static com.facebook.presto.block.PagesSerde.writeCompressedPages;
 import static com.facebook.presto.block.PagesSerde.writePages;
 import static com.facebook.presto.operator.PageAssertions.assertPageEquals;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 public class TestPagesSerde
 {
@@ -62,6 +66,55 @@ public class TestPagesSerde
         assertFalse(pageIterator.hasNext());
     }
 
+    @Test
+    public void testCompressedRoundTrip()
+    {
+        BlockBuilder blockBuilder = VARCHAR.createBlockBuilder(new BlockBuilderStatus(), 1000);
+        for (int i = 0; i < 1000; i++) {
+            VARCHAR.writeString(blockBuilder, "value " + (i % 10));
+        }
+        Page expectedPage = new Page(blockBuilder.build());
+        List<Type> types = ImmutableList.<Type>of(VARCHAR);
+
+        for (PageCompressionCodec codec : PageCompressionCodec.values()) {
+            DynamicSliceOutput sliceOutput = new DynamicSliceOutput(1024);
+            writeCompressedPages(blockEncodingManager, sliceOutput, codec, ImmutableList.of(expectedPage, expectedPage));
+
+            CompressedPagesReader pagesReader = readCompressedPages(blockEncodingManager, sliceOutput.slice().getInput());
+            assertPageEquals(types, pagesReader.next(), expectedPage);
+            assertPageEquals(types, pagesReader.next(), expectedPage);
+            assertFalse(pagesReader.hasNext());
+
+            if (codec == PageCompressionCodec.NONE) {
+                assertEquals(pagesReader.getCompressedPages(), 0);
+                assertEquals(pagesReader.getBytesSaved(), 0);
+            }
+            else {
+                assertEquals(pagesReader.getCompressedPages(), 2);
+                assertTrue(pagesReader.getBytesSaved() > 0);
+            }
+        }
+    }
+
+    @Test
+    public void testIncompressiblePageSentRaw()
+    {
+        BlockBuilder blockBuilder = BIGINT.createBlockBuilder(new BlockBuilderStatus(), 1);
+        BIGINT.writeLong(blockBuilder, 42);
+        Page expectedPage = new Page(blockBuilder.build());
+
+        DynamicSliceOutput sliceOutput = new DynamicSliceOutput(1024);
+        writeCompressedPages(blockEncodingManager, sliceOutput, PageCompressionCodec.LZ4, ImmutableList.of(expectedPage));
+
+        // tiny pages do not reach the minimum compression ratio and are written raw
+        assertEquals(sliceOutput.slice().getByte(0), PageCompressionCodec.NONE.getMarker());
+
+        CompressedPagesReader pagesReader = readCompressedPages(blockEncodingManager, sliceOutput.slice().getInput());
+        assertPageEquals(ImmutableList.of(BIGINT), pagesReader.next(), expectedPage);
+        assertFalse(pagesReader.hasNext());
+        assertEquals(pagesReader.getCompressedPages(), 0);
+    }
+
     @Test
     public void testBigintSerializedSize()
     {
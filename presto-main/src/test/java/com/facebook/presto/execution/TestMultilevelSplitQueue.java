@@ -0,0 +1,217 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.facebook.presto.execution.TaskExecutor.PrioritizedSplitRunner;
+import com.facebook.presto.execution.TaskExecutor.TaskHandle;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.units.Duration;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class TestMultilevelSplitQueue
+{
+    private TaskExecutor taskExecutor;
+    private ExecutorService executor;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        // only used to create task handles, the executor is not started
+        taskExecutor = new TaskExecutor(1, 1);
+        executor = newSingleThreadExecutor(daemonThreadsNamed("test-%s"));
+    }
+
+    @AfterMethod
+    public void tearDown()
+    {
+        taskExecutor.stop();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testComputeLevel()
+    {
+        assertEquals(MultilevelSplitQueue.computeLevel(0), 0);
+        assertEquals(MultilevelSplitQueue.computeLevel(MILLISECONDS.toNanos(999)), 0);
+        assertEquals(MultilevelSplitQueue.computeLevel(SECONDS.toNanos(1)), 1);
+        assertEquals(MultilevelSplitQueue.computeLevel(SECONDS.toNanos(10)), 2);
+        assertEquals(MultilevelSplitQueue.computeLevel(SECONDS.toNanos(60)), 3);
+        assertEquals(MultilevelSplitQueue.computeLevel(SECONDS.toNanos(300)), 4);
+        assertEquals(MultilevelSplitQueue.computeLevel(MINUTES.toNanos(60)), 4);
+    }
+
+    @Test
+    public void testLevelPromotion()
+            throws Exception
+    {
+        MultilevelSplitQueue queue = new MultilevelSplitQueue(2);
+        TaskHandle task = addTask("task");
+        PrioritizedSplitRunner split = createSplit(task);
+        assertEquals(split.getPriorityLevel(), 0);
+        assertFalse(split.updatePriorityLevel());
+
+        // the level follows the thread time accumulated by all splits of the task
+        task.addThreadUsageNanos(SECONDS.toNanos(2));
+        assertTrue(split.updatePriorityLevel());
+        assertEquals(split.getPriorityLevel(), 1);
+        assertFalse(split.updatePriorityLevel());
+
+        queue.offer(split);
+        assertEquals(queue.getWaitingSplitsLevel0(), 0);
+        assertEquals(queue.getWaitingSplitsLevel1(), 1);
+
+        task.addThreadUsageNanos(SECONDS.toNanos(10));
+        assertTrue(split.updatePriorityLevel());
+        assertEquals(split.getPriorityLevel(), 2);
+
+        assertSame(queue.take(), split);
+        assertEquals(queue.size(), 0);
+    }
+
+    @Test
+    public void testLevelShareSelection()
+            throws Exception
+    {
+        MultilevelSplitQueue queue = new MultilevelSplitQueue(2);
+        TaskHandle shortTask = addTask("short");
+        TaskHandle longTask = addTask("long");
+        longTask.addThreadUsageNanos(SECONDS.toNanos(2));
+
+        for (int i = 0; i < 2; i++) {
+            queue.offer(createSplit(shortTask));
+            PrioritizedSplitRunner longSplit = createSplit(longTask);
+            longSplit.updatePriorityLevel();
+            queue.offer(longSplit);
+        }
+        assertEquals(queue.getWaitingSplitsLevel0(), 2);
+        assertEquals(queue.getWaitingSplitsLevel1(), 2);
+
+        // level 1 has half the share of level 0, so 1 second of level 1 counts as 2 seconds of level 0
+        queue.addLevelTime(0, SECONDS.toNanos(10));
+        queue.addLevelTime(1, SECONDS.toNanos(1));
+        assertEquals(queue.take().getPriorityLevel(), 1);
+
+        queue.addLevelTime(1, SECONDS.toNanos(5));
+        assertEquals(queue.take().getPriorityLevel(), 0);
+
+        queue.addLevelTime(0, SECONDS.toNanos(10));
+        assertEquals(queue.take().getPriorityLevel(), 1);
+        assertEquals(queue.take().getPriorityLevel(), 0);
+
+        assertEquals(queue.getSelectedSplitsLevel0(), 2);
+        assertEquals(queue.getSelectedSplitsLevel1(), 2);
+    }
+
+    @Test
+    public void testIdleLevelCatchesUp()
+    {
+        MultilevelSplitQueue queue = new MultilevelSplitQueue(2);
+        TaskHandle shortTask = addTask("short");
+        TaskHandle longTask = addTask("long");
+        longTask.addThreadUsageNanos(SECONDS.toNanos(2));
+
+        queue.offer(createSplit(shortTask));
+        queue.addLevelTime(0, SECONDS.toNanos(10));
+
+        // level 1 had no splits, so it does not get the time it did not use
+        PrioritizedSplitRunner longSplit = createSplit(longTask);
+        longSplit.updatePriorityLevel();
+        queue.offer(longSplit);
+        assertEquals(queue.getScheduledTimeLevel1(), 5);
+    }
+
+    @Test
+    public void testRemoveAll()
+            throws Exception
+    {
+        MultilevelSplitQueue queue = new MultilevelSplitQueue(2);
+        TaskHandle task = addTask("task");
+        PrioritizedSplitRunner removed = createSplit(task);
+        PrioritizedSplitRunner remaining = createSplit(task);
+        queue.offer(removed);
+        queue.offer(remaining);
+
+        queue.removeAll(ImmutableList.of(removed));
+        assertEquals(queue.size(), 1);
+        assertSame(queue.take(), remaining);
+        assertEquals(queue.size(), 0);
+    }
+
+    @Test
+    public void testTakeWaitsForSplit()
+            throws Exception
+    {
+        MultilevelSplitQueue queue = new MultilevelSplitQueue(2);
+        Future<PrioritizedSplitRunner> taken = executor.submit(queue::take);
+
+        PrioritizedSplitRunner split = createSplit(addTask("task"));
+        queue.offer(split);
+        assertSame(taken.get(10, SECONDS), split);
+    }
+
+    private TaskHandle addTask(String queryId)
+    {
+        return taskExecutor.addTask(new TaskId(queryId, 0, 0), () -> 0, 1, new Duration(1, MILLISECONDS));
+    }
+
+    private static PrioritizedSplitRunner createSplit(TaskHandle taskHandle)
+    {
+        return new PrioritizedSplitRunner(taskHandle, new TestingSplitRunner(), Ticker.systemTicker());
+    }
+
+    private static class TestingSplitRunner
+            implements SplitRunner
+    {
+        @Override
+        public boolean isFinished()
+        {
+            return false;
+        }
+
+        @Override
+        public ListenableFuture<?> processFor(Duration duration)
+        {
+            return Futures.immediateFuture(null);
+        }
+
+        @Override
+        public String getInfo()
+        {
+            return "testing-split";
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    }
+}
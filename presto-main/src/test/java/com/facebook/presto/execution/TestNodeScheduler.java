@@ -271,6 +271,29 @@ public class TestNodeScheduler
         assertEquals(assignments.size(), 1);
     }
 
+    @Test
+    public void testScheduleSoftAffinity()
+            throws Exception
+    {
+        HostAddress preferredHost = HostAddress.fromString("127.0.0.1:12");
+        Set<Split> splits = new HashSet<>();
+        for (int i = 0; i < 25; i++) {
+            splits.add(new Split(CONNECTOR_ID, TestingTransactionHandle.create(), new TestSplitSoftAffinity(preferredHost)));
+        }
+        Multimap<Node, Split> assignments = nodeSelector.computeAssignments(splits, ImmutableList.copyOf(taskMap.values())).getAssignments();
+        assertEquals(assignments.size(), 25);
+
+        // the preferred node takes splits until it is full, and the remaining splits go to the other nodes
+        for (Node node : assignments.keySet()) {
+            if (node.getHostAndPort().equals(preferredHost)) {
+                assertEquals(assignments.get(node).size(), 20);
+            }
+            else {
+                assertTrue(assignments.get(node).size() <= 5);
+            }
+        }
+    }
+
     @Test
     public void testBasicAssignment()
             throws Exception
@@ -484,6 +507,21 @@ public class TestNodeScheduler
         }
     }
 
+    private static class TestSplitSoftAffinity
+            extends TestSplitRemote
+    {
+        public TestSplitSoftAffinity(HostAddress host)
+        {
+            super(host);
+        }
+
+        @Override
+        public boolean isSoftAffinity()
+        {
+            return true;
+        }
+    }
+
     private static class TestNetworkTopology
             implements NetworkTopology
     {
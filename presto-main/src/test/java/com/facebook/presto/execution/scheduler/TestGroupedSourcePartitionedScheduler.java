@@ -0,0 +1,240 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.scheduler;
+
+import com.facebook.presto.client.NodeVersion;
+import com.facebook.presto.connector.ConnectorId;
+import com.facebook.presto.execution.LocationFactory;
+import com.facebook.presto.execution.MockRemoteTaskFactory;
+import com.facebook.presto.execution.NodeTaskMap;
+import com.facebook.presto.execution.RemoteTask;
+import com.facebook.presto.execution.SqlStageExecution;
+import com.facebook.presto.execution.StageId;
+import com.facebook.presto.execution.TestSqlTaskManager.MockLocationFactory;
+import com.facebook.presto.metadata.PrestoNode;
+import com.facebook.presto.metadata.TableHandle;
+import com.facebook.presto.spi.ConnectorSplit;
+import com.facebook.presto.spi.FixedSplitSource;
+import com.facebook.presto.spi.Node;
+import com.facebook.presto.spi.QueryId;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.split.ConnectorAwareSplitSource;
+import com.facebook.presto.sql.planner.NodePartitionMap;
+import com.facebook.presto.sql.planner.Partitioning;
+import com.facebook.presto.sql.planner.PartitioningScheme;
+import com.facebook.presto.sql.planner.PlanFragment;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.TestingColumnHandle;
+import com.facebook.presto.sql.planner.TestingTableHandle;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.PlanFragmentId;
+import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.facebook.presto.sql.planner.plan.RemoteSourceNode;
+import com.facebook.presto.sql.planner.plan.TableScanNode;
+import com.facebook.presto.testing.TestingSplit;
+import com.facebook.presto.testing.TestingTransactionHandle;
+import com.facebook.presto.util.FinalizerService;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+
+import static com.facebook.presto.OutputBuffers.BufferType.PARTITIONED;
+import static com.facebook.presto.OutputBuffers.createInitialEmptyOutputBuffers;
+import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.execution.scheduler.TestSourcePartitionedScheduler.OUT;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.facebook.presto.sql.planner.SystemPartitioningHandle.SINGLE_DISTRIBUTION;
+import static com.facebook.presto.sql.planner.SystemPartitioningHandle.SOURCE_DISTRIBUTION;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.INNER;
+import static com.facebook.presto.util.ImmutableCollectors.toImmutableList;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestGroupedSourcePartitionedScheduler
+{
+    private static final ConnectorId CONNECTOR_ID = new ConnectorId("connector_id");
+    private static final PlanNodeId TABLE_SCAN_NODE_ID = new PlanNodeId("plan_id");
+    private static final PlanNodeId REMOTE_SOURCE_NODE_ID = new PlanNodeId("remote_id");
+
+    private final ExecutorService executor = newCachedThreadPool(daemonThreadsNamed("stageExecutor-%s"));
+    private final LocationFactory locationFactory = new MockLocationFactory();
+    private final FinalizerService finalizerService = new FinalizerService();
+    private final List<Node> nodes = ImmutableList.of(
+            new PrestoNode("other1", URI.create("http://127.0.0.1:11"), NodeVersion.UNKNOWN, false),
+            new PrestoNode("other2", URI.create("http://127.0.0.1:12"), NodeVersion.UNKNOWN, false),
+            new PrestoNode("other3", URI.create("http://127.0.0.1:13"), NodeVersion.UNKNOWN, false));
+
+    @BeforeClass
+    public void setUp()
+    {
+        finalizerService.start();
+    }
+
+    @AfterClass
+    public void destroyExecutor()
+    {
+        executor.shutdownNow();
+        finalizerService.destroy();
+    }
+
+    @Test
+    public void testScheduleBucketsOneAtATime()
+            throws Exception
+    {
+        // six buckets with two splits each, placed round robin on three nodes
+        Map<ConnectorSplit, Integer> splitBuckets = new IdentityHashMap<>();
+        ImmutableList.Builder<ConnectorSplit> splits = ImmutableList.builder();
+        for (int i = 0; i < 12; i++) {
+            ConnectorSplit split = TestingSplit.createRemoteSplit();
+            splitBuckets.put(split, i % 6);
+            splits.add(split);
+        }
+        NodePartitionMap partitioning = new NodePartitionMap(
+                ImmutableMap.of(0, nodes.get(0), 1, nodes.get(1), 2, nodes.get(2)),
+                new int[] {0, 1, 2, 0, 1, 2},
+                split -> splitBuckets.get(split.getConnectorSplit()));
+
+        SqlStageExecution stage = createSqlStageExecution();
+        GroupedSourcePartitionedScheduler scheduler = new GroupedSourcePartitionedScheduler(
+                stage,
+                ImmutableMap.of(TABLE_SCAN_NODE_ID, new ConnectorAwareSplitSource(CONNECTOR_ID, TestingTransactionHandle.create(), new FixedSplitSource(splits.build()))),
+                ImmutableList.of(TABLE_SCAN_NODE_ID),
+                partitioning,
+                100,
+                1);
+
+        // the first bucket of every node is scheduled
+        ScheduleResult scheduleResult = scheduler.schedule();
+        assertFalse(scheduleResult.isFinished());
+        assertFalse(scheduleResult.getBlocked().isDone());
+        assertEquals(scheduleResult.getNewTasks().size(), 3);
+        assertEquals(scheduleResult.getSplitsScheduled(), 6);
+        assertEquals(taskIds(stage), ImmutableList.of(0, 1, 2));
+        for (RemoteTask task : stage.getAllTasks()) {
+            assertEquals(task.getPartitionedSplitCount(), 2);
+        }
+
+        // finishing the task of a bucket schedules the next bucket of the node
+        RemoteTask firstTask = stage.getAllTasks().stream()
+                .filter(task -> task.getTaskId().getId() == 1)
+                .findFirst()
+                .get();
+        firstTask.noMoreSplits(REMOTE_SOURCE_NODE_ID);
+        scheduleResult.getBlocked().get(10, SECONDS);
+
+        scheduleResult = scheduler.schedule();
+        assertFalse(scheduleResult.isFinished());
+        assertEquals(scheduleResult.getNewTasks().size(), 1);
+        assertEquals(scheduleResult.getNewTasks().iterator().next().getNodeId(), nodes.get(1).getNodeIdentifier());
+        assertEquals(taskIds(stage), ImmutableList.of(0, 1, 2, 4));
+
+        // once the remaining buckets are scheduled, the scheduler is finished
+        for (RemoteTask task : stage.getAllTasks()) {
+            task.noMoreSplits(REMOTE_SOURCE_NODE_ID);
+        }
+        while (!scheduleResult.isFinished()) {
+            scheduleResult.getBlocked().get(10, SECONDS);
+            scheduleResult = scheduler.schedule();
+        }
+        assertEquals(taskIds(stage), ImmutableList.of(0, 1, 2, 3, 4, 5));
+
+        stage.abort();
+    }
+
+    @Test
+    public void testScheduleNoSplits()
+            throws Exception
+    {
+        NodePartitionMap partitioning = new NodePartitionMap(ImmutableMap.of(0, nodes.get(0)), split -> 0);
+        SqlStageExecution stage = createSqlStageExecution();
+        GroupedSourcePartitionedScheduler scheduler = new GroupedSourcePartitionedScheduler(
+                stage,
+                ImmutableMap.of(TABLE_SCAN_NODE_ID, new ConnectorAwareSplitSource(CONNECTOR_ID, TestingTransactionHandle.create(), new FixedSplitSource(ImmutableList.of()))),
+                ImmutableList.of(TABLE_SCAN_NODE_ID),
+                partitioning,
+                100,
+                1);
+
+        // a single task is scheduled to produce the empty output of the stage
+        ScheduleResult scheduleResult = scheduler.schedule();
+        assertTrue(scheduleResult.isFinished());
+        assertEquals(scheduleResult.getNewTasks().size(), 1);
+
+        stage.abort();
+    }
+
+    private static List<Integer> taskIds(SqlStageExecution stage)
+    {
+        return stage.getAllTasks().stream()
+                .map(task -> task.getTaskId().getId())
+                .sorted()
+                .collect(toImmutableList());
+    }
+
+    private SqlStageExecution createSqlStageExecution()
+    {
+        Symbol symbol = new Symbol("column");
+        PlanFragment fragment = new PlanFragment(
+                new PlanFragmentId("plan_id"),
+                new JoinNode(new PlanNodeId("join_id"),
+                        INNER,
+                        new TableScanNode(
+                                TABLE_SCAN_NODE_ID,
+                                new TableHandle(CONNECTOR_ID, new TestingTableHandle()),
+                                ImmutableList.of(symbol),
+                                ImmutableMap.of(symbol, new TestingColumnHandle("column")),
+                                Optional.empty(),
+                                TupleDomain.all(),
+                                null),
+                        // keeps the mock tasks running until the test finishes them
+                        new RemoteSourceNode(REMOTE_SOURCE_NODE_ID, new PlanFragmentId("plan_fragment_id"), ImmutableList.of()),
+                        ImmutableList.of(),
+                        Optional.empty(),
+                        Optional.<Symbol>empty(),
+                        Optional.<Symbol>empty(),
+                        Optional.empty()),
+                ImmutableMap.<Symbol, Type>of(symbol, VARCHAR),
+                SOURCE_DISTRIBUTION,
+                ImmutableList.of(TABLE_SCAN_NODE_ID),
+                new PartitioningScheme(Partitioning.create(SINGLE_DISTRIBUTION, ImmutableList.of()), ImmutableList.of(symbol)));
+
+        StageId stageId = new StageId(new QueryId("query"), 0);
+        SqlStageExecution stage = new SqlStageExecution(stageId,
+                locationFactory.createStageLocation(stageId),
+                fragment,
+                new MockRemoteTaskFactory(executor),
+                TEST_SESSION,
+                true,
+                new NodeTaskMap(finalizerService),
+                executor);
+        stage.setOutputBuffers(createInitialEmptyOutputBuffers(PARTITIONED)
+                .withBuffer(OUT, 0)
+                .withNoMoreBufferIds());
+        return stage;
+    }
+}
@@ -197,7 +197,8 @@ public class TestPhasedExecutionSchedule
                 ImmutableList.of(),
                 Optional.<Expression>empty(),
                 Optional.<Symbol>empty(),
-                Optional.<Symbol>empty());
+                Optional.<Symbol>empty(),
+                Optional.empty());
 
         return createFragment(join);
     }
@@ -212,7 +213,8 @@ public class TestPhasedExecutionSchedule
                 ImmutableList.of(),
                 Optional.empty(),
                 Optional.<Symbol>empty(),
-                Optional.<Symbol>empty());
+                Optional.<Symbol>empty(),
+                Optional.empty());
 
         return createFragment(planNode);
     }
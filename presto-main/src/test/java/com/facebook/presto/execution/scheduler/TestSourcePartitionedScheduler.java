@@ -442,7 +442,8 @@ public class TestSourcePartitionedScheduler
                         ImmutableList.of(),
                         Optional.empty(),
                         Optional.<Symbol>empty(),
-                        Optional.<Symbol>empty()),
+                        Optional.<Symbol>empty(),
+                        Optional.empty()),
                 ImmutableMap.<Symbol, Type>of(symbol, VARCHAR),
                 SOURCE_DISTRIBUTION,
                 ImmutableList.of(tableScanNodeId),
@@ -0,0 +1,130 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.memory;
+
+import com.facebook.presto.operator.DriverContext;
+import com.facebook.presto.operator.OperatorContext;
+import com.facebook.presto.operator.TaskContext;
+import com.facebook.presto.spi.QueryId;
+import com.facebook.presto.spi.memory.MemoryPoolId;
+import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.google.common.collect.ImmutableList;
+import io.airlift.units.DataSize;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.testing.TestingTaskContext.createTaskContext;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestMemoryRevokingScheduler
+{
+    private static final long ONE_MEGABYTE = new DataSize(1, MEGABYTE).toBytes();
+
+    private ExecutorService executor;
+    private ScheduledExecutorService scheduledExecutor;
+    private MemoryPool memoryPool;
+    private QueryContext queryContext;
+    private MemoryRevokingScheduler scheduler;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        executor = newCachedThreadPool(daemonThreadsNamed("test-%s"));
+        scheduledExecutor = newSingleThreadScheduledExecutor(daemonThreadsNamed("test-scheduler-%s"));
+        memoryPool = new MemoryPool(new MemoryPoolId("test"), new DataSize(10, MEGABYTE));
+        MemoryPool systemMemoryPool = new MemoryPool(new MemoryPoolId("testSystem"), new DataSize(10, MEGABYTE));
+        queryContext = new QueryContext(new QueryId("query"), new DataSize(10, MEGABYTE), memoryPool, systemMemoryPool, executor);
+        scheduler = new MemoryRevokingScheduler(ImmutableList.of(memoryPool), () -> ImmutableList.of(queryContext), scheduledExecutor, 0.8, 0.5);
+    }
+
+    @AfterMethod
+    public void tearDown()
+    {
+        executor.shutdownNow();
+        scheduledExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testRevokesLargestOperatorsFirst()
+    {
+        TaskContext taskContext = createTaskContext(queryContext, executor, TEST_SESSION);
+        DriverContext driverContext = taskContext.addPipelineContext(true, true).addDriverContext();
+        OperatorContext small = driverContext.addOperatorContext(0, new PlanNodeId("small"), "test");
+        OperatorContext large = driverContext.addOperatorContext(1, new PlanNodeId("large"), "test");
+        OperatorContext medium = driverContext.addOperatorContext(2, new PlanNodeId("medium"), "test");
+
+        small.setRevocableMemoryReservation(ONE_MEGABYTE);
+        large.setRevocableMemoryReservation(5 * ONE_MEGABYTE);
+        medium.setRevocableMemoryReservation(3 * ONE_MEGABYTE);
+        assertEquals(memoryPool.getReservedRevocableBytes(), 9 * ONE_MEGABYTE);
+        assertEquals(memoryPool.getFreeBytes(), ONE_MEGABYTE);
+
+        // revoking the largest operator brings the pool below the target
+        scheduler.requestMemoryRevokingIfNeeded();
+        assertTrue(large.isMemoryRevokingRequested());
+        assertTrue(large.getMemoryRevokingRequestedFuture().isDone());
+        assertFalse(medium.isMemoryRevokingRequested());
+        assertFalse(small.isMemoryRevokingRequested());
+
+        // the pending request is taken into account
+        scheduler.requestMemoryRevokingIfNeeded();
+        assertFalse(medium.isMemoryRevokingRequested());
+
+        // the operator released its memory, so nothing more is revoked
+        large.setRevocableMemoryReservation(0);
+        large.resetMemoryRevokingRequested();
+        scheduler.requestMemoryRevokingIfNeeded();
+        assertFalse(large.isMemoryRevokingRequested());
+        assertFalse(medium.isMemoryRevokingRequested());
+        assertFalse(small.isMemoryRevokingRequested());
+
+        medium.setRevocableMemoryReservation(0);
+        small.setRevocableMemoryReservation(0);
+        assertEquals(memoryPool.getReservedRevocableBytes(), 0);
+        assertEquals(memoryPool.getFreeBytes(), 10 * ONE_MEGABYTE);
+    }
+
+    @Test
+    public void testRevocableMemoryNotLimitedByQueryMemory()
+    {
+        TaskContext taskContext = createTaskContext(queryContext, executor, TEST_SESSION);
+        DriverContext driverContext = taskContext.addPipelineContext(true, true).addDriverContext();
+        OperatorContext operatorContext = driverContext.addOperatorContext(0, new PlanNodeId("test"), "test");
+
+        // revocable memory is reserved even when the pool is full, and it is revoked instead
+        operatorContext.setRevocableMemoryReservation(12 * ONE_MEGABYTE);
+        assertEquals(memoryPool.getFreeBytes(), -2 * ONE_MEGABYTE);
+        assertEquals(taskContext.getRevocableMemoryReservation(), 12 * ONE_MEGABYTE);
+
+        scheduler.requestMemoryRevokingIfNeeded();
+        assertTrue(operatorContext.isMemoryRevokingRequested());
+        assertEquals(operatorContext.requestMemoryRevoking(), 0);
+
+        driverContext.finished();
+        assertEquals(memoryPool.getReservedRevocableBytes(), 0);
+        assertEquals(memoryPool.getFreeBytes(), 10 * ONE_MEGABYTE);
+    }
+}
@@ -207,13 +207,24 @@ public final class OperatorAssertion
             MaterializedResult expected,
             boolean hashEnabled,
             Optional<Integer> hashChannel)
+    {
+        assertOperatorEqualsIgnoreOrder(operatorFactory, driverContext, input, expected, hashEnabled, hashChannel.map(ImmutableList::of).orElse(ImmutableList.of()));
+    }
+
+    public static void assertOperatorEqualsIgnoreOrder(
+            OperatorFactory operatorFactory,
+            DriverContext driverContext,
+            List<Page> input,
+            MaterializedResult expected,
+            boolean hashEnabled,
+            List<Integer> hashChannels)
     {
         List<Page> pages = toPages(operatorFactory, driverContext, input);
         MaterializedResult actual;
-        if (hashEnabled && hashChannel.isPresent()) {
+        if (hashEnabled && !hashChannels.isEmpty()) {
             // Drop the hashChannel for all pages
-            List<Page> actualPages = dropChannel(pages, ImmutableList.of(hashChannel.get()));
-            List<Type> expectedTypes = without(operatorFactory.getTypes(), ImmutableList.of(hashChannel.get()));
+            List<Page> actualPages = dropChannel(pages, hashChannels);
+            List<Type> expectedTypes = without(operatorFactory.getTypes(), hashChannels);
             actual = toMaterializedResult(driverContext.getSession(), expectedTypes, actualPages);
         }
         else {
@@ -0,0 +1,114 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.Range;
+import com.facebook.presto.spi.predicate.ValueSet;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+
+import static com.facebook.presto.block.BlockAssertions.createBooleansBlock;
+import static com.facebook.presto.block.BlockAssertions.createDoublesBlock;
+import static com.facebook.presto.block.BlockAssertions.createLongsBlock;
+import static com.facebook.presto.block.BlockAssertions.createStringsBlock;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.TypeUtils.readNativeValue;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.slice.Slices.utf8Slice;
+import static org.testng.Assert.assertEquals;
+
+public class TestDomainPositionFilter
+{
+    @Test
+    public void testLongValues()
+    {
+        Block block = createLongsBlock(1L, 2L, null, 3L, 5L, 8L, -1L);
+        assertFilter(block, Domain.create(ValueSet.of(BIGINT, 1L, 5L, 8L), false));
+        assertFilter(block, Domain.create(ValueSet.of(BIGINT, 2L), true));
+        assertFilter(block, Domain.onlyNull(BIGINT));
+        assertFilter(block, Domain.notNull(BIGINT));
+    }
+
+    @Test
+    public void testLongRanges()
+    {
+        Block block = createLongsBlock(Long.MIN_VALUE, -5L, 0L, null, 1L, 2L, 9L, 10L, 11L, Long.MAX_VALUE);
+        assertFilter(block, Domain.create(ValueSet.ofRanges(Range.range(BIGINT, 0L, false, 10L, false)), false));
+        assertFilter(block, Domain.create(ValueSet.ofRanges(Range.range(BIGINT, 0L, true, 10L, true)), true));
+        assertFilter(block, Domain.create(ValueSet.ofRanges(Range.lessThan(BIGINT, 0L), Range.greaterThanOrEqual(BIGINT, 10L)), false));
+        assertFilter(block, Domain.create(ValueSet.ofRanges(Range.greaterThan(BIGINT, Long.MAX_VALUE - 1), Range.equal(BIGINT, 2L)), false));
+        assertFilter(block, Domain.create(ValueSet.ofRanges(Range.lessThan(BIGINT, Long.MIN_VALUE + 1)), false));
+    }
+
+    @Test
+    public void testDoubleRanges()
+    {
+        Block block = createDoublesBlock(-1.5, 0.0, null, 0.5, 1.0, 2.5, Double.NaN, Double.POSITIVE_INFINITY);
+        assertFilter(block, Domain.create(ValueSet.of(DOUBLE, 0.5, 2.5), false));
+        assertFilter(block, Domain.create(ValueSet.ofRanges(Range.range(DOUBLE, 0.0, false, 1.0, true)), true));
+        assertFilter(block, Domain.create(ValueSet.ofRanges(Range.lessThanOrEqual(DOUBLE, 0.0), Range.greaterThan(DOUBLE, 2.0)), false));
+    }
+
+    @Test
+    public void testVarchar()
+    {
+        Block block = createStringsBlock(Arrays.asList("apple", "banana", null, "cherry", "", "date"));
+        assertFilter(block, Domain.create(ValueSet.of(VARCHAR, utf8Slice("banana"), utf8Slice("")), false));
+        assertFilter(block, Domain.create(ValueSet.ofRanges(Range.range(VARCHAR, utf8Slice("apple"), false, utf8Slice("cherry"), true)), true));
+        assertFilter(block, Domain.create(ValueSet.ofRanges(Range.lessThan(VARCHAR, utf8Slice("b")), Range.greaterThanOrEqual(VARCHAR, utf8Slice("d"))), false));
+    }
+
+    @Test
+    public void testGenericType()
+    {
+        Block block = createBooleansBlock(true, false, null, true);
+        assertFilter(block, Domain.create(ValueSet.of(BOOLEAN, true), false));
+        assertFilter(block, Domain.create(ValueSet.of(BOOLEAN, false), true));
+    }
+
+    @Test
+    public void testFilterSubsetOfPositions()
+    {
+        Block block = createLongsBlock(1L, 2L, 3L, 4L, 5L);
+        DomainPositionFilter filter = DomainPositionFilter.create(Domain.create(ValueSet.of(BIGINT, 2L, 3L, 5L), false));
+        int[] positions = {0, 2, 4};
+        int positionCount = filter.filter(block, positions, positions.length);
+        assertEquals(positionCount, 2);
+        assertEquals(positions[0], 2);
+        assertEquals(positions[1], 4);
+    }
+
+    private static void assertFilter(Block block, Domain domain)
+    {
+        int[] positions = new int[block.getPositionCount()];
+        for (int position = 0; position < positions.length; position++) {
+            positions[position] = position;
+        }
+        int positionCount = DomainPositionFilter.create(domain).filter(block, positions, positions.length);
+
+        int expectedCount = 0;
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            if (domain.includesNullableValue(readNativeValue(domain.getType(), block, position))) {
+                assertEquals(positions[expectedCount], position, "position of match " + expectedCount);
+                expectedCount++;
+            }
+        }
+        assertEquals(positionCount, expectedCount);
+    }
+}
@@ -55,6 +55,7 @@ import java.util.concurrent.TimeUnit;
 import static com.facebook.presto.PrestoMediaTypes.PRESTO_PAGES;
 import static com.facebook.presto.SequencePageBuilder.createSequencePage;
 import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.block.PageCompressionCodec.NONE;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_BUFFER_COMPLETE;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_NEXT_TOKEN;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_TOKEN;
@@ -107,6 +108,7 @@ public class TestExchangeOperator
 
         exchangeClientSupplier = (systemMemoryUsageListener) -> new ExchangeClient(
                 blockEncodingSerde,
+                NONE,
                 new DataSize(32, MEGABYTE),
                 new DataSize(10, MEGABYTE),
                 3,
@@ -231,4 +231,57 @@ public class TestGroupByHash
             assertTrue(groupByHash.contains(i, new Page(valuesBlock, hashBlock), CONTAINS_CHANNELS));
         }
     }
+    @Test
+    public void testMultipleKeysAppendTo()
+            throws Exception
+    {
+        Block longsBlock = BlockAssertions.createLongsBlock(1L, 1L, null, 2L, null, 1L, 2L);
+        Block stringsBlock = BlockAssertions.createStringsBlock("a", "b", "a", null, null, "a", null);
+        Block hashBlock = TypeUtils.getHashBlock(ImmutableList.of(BIGINT, VARCHAR), longsBlock, stringsBlock);
+        GroupByHash groupByHash = createGroupByHash(TEST_SESSION, ImmutableList.of(BIGINT, VARCHAR), new int[] { 0, 1 }, Optional.of(2), 100);
+        assertTrue(groupByHash instanceof FlatGroupByHash);
+
+        GroupByIdBlock groupIds = groupByHash.getGroupIds(new Page(longsBlock, stringsBlock, hashBlock));
+        assertEquals(groupByHash.getGroupCount(), 5);
+        long[] expectedGroupIds = { 0, 1, 2, 3, 4, 0, 3 };
+        for (int i = 0; i < expectedGroupIds.length; i++) {
+            assertEquals(groupIds.getGroupId(i), expectedGroupIds[i]);
+        }
+
+        PageBuilder pageBuilder = new PageBuilder(groupByHash.getTypes());
+        for (int i = 0; i < groupByHash.getGroupCount(); i++) {
+            pageBuilder.declarePosition();
+            groupByHash.appendValuesTo(i, pageBuilder, 0);
+        }
+        Page page = pageBuilder.build();
+        assertEquals(page.getPositionCount(), 5);
+        BlockAssertions.assertBlockEquals(BIGINT, page.getBlock(0), BlockAssertions.createLongsBlock(1L, 1L, null, 2L, null));
+        BlockAssertions.assertBlockEquals(VARCHAR, page.getBlock(1), BlockAssertions.createStringsBlock("a", "b", "a", null, null));
+        BlockAssertions.assertBlockEquals(BIGINT, page.getBlock(2), TypeUtils.getHashBlock(ImmutableList.of(BIGINT, VARCHAR), page.getBlock(0), page.getBlock(1)));
+    }
+
+    @Test
+    public void testMultipleKeysForceRehash()
+            throws Exception
+    {
+        Block longsBlock = BlockAssertions.createLongSequenceBlock(0, 1000);
+        Block stringsBlock = BlockAssertions.createStringSequenceBlock(0, 1000);
+        int[] hashChannels = { 0, 1 };
+
+        // Create group by hash without a precomputed hash and with extremely small size
+        GroupByHash groupByHash = createGroupByHash(TEST_SESSION, ImmutableList.of(BIGINT, VARCHAR), hashChannels, Optional.empty(), 4);
+        groupByHash.addPage(new Page(longsBlock, stringsBlock));
+        assertEquals(groupByHash.getGroupCount(), 1000);
+
+        // Ensure that all groups are present in group by hash
+        Page page = new Page(longsBlock, stringsBlock);
+        for (int i = 0; i < page.getPositionCount(); i++) {
+            assertTrue(groupByHash.contains(i, page, hashChannels));
+            assertEquals(groupByHash.putIfAbsent(i, page), i);
+        }
+
+        Block testLongsBlock = BlockAssertions.createLongsBlock(3L);
+        Block testStringsBlock = BlockAssertions.createStringsBlock("4");
+        assertFalse(groupByHash.contains(0, new Page(testLongsBlock, testStringsBlock), hashChannels));
+    }
 }
@@ -66,6 +66,7 @@ import static com.facebook.presto.spi.type.TypeSignature.parseTypeSignature;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static com.facebook.presto.testing.MaterializedResult.resultBuilder;
 import static com.facebook.presto.testing.TestingTaskContext.createTaskContext;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
 import static io.airlift.concurrent.MoreFutures.toCompletableFuture;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static io.airlift.slice.SizeOf.SIZE_OF_DOUBLE;
@@ -494,6 +495,62 @@ public class TestHashAggregationOperator
         assertOperatorEqualsIgnoreOrder(operatorFactory, driverContext, input, resultBuilder.build(), false, Optional.of(hashChannels.size()));
     }
 
+    @Test
+    public void testMemoryRevoking()
+            throws Exception
+    {
+        List<Integer> hashChannels = Ints.asList(0);
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(BIGINT);
+        List<Page> input = rowPagesBuilder
+                .addSequencePage(10, 0)
+                .addSequencePage(10, 0)
+                .build();
+
+        HashAggregationOperatorFactory operatorFactory = new HashAggregationOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                ImmutableList.of(BIGINT),
+                hashChannels,
+                ImmutableList.of(),
+                Step.SINGLE,
+                ImmutableList.of(LONG_SUM.bind(ImmutableList.of(0), Optional.empty())),
+                rowPagesBuilder.getHashChannel(),
+                Optional.empty(),
+                1,
+                new DataSize(16, MEGABYTE),
+                true,
+                new DataSize(16, MEGABYTE),
+                succinctBytes(Integer.MAX_VALUE),
+                spillerFactory);
+
+        DriverContext driverContext = createTaskContext(executor, TEST_SESSION)
+                .addPipelineContext(true, true)
+                .addDriverContext();
+        Operator operator = operatorFactory.createOperator(driverContext);
+        OperatorContext operatorContext = operator.getOperatorContext();
+
+        operator.addInput(input.get(0));
+        long revocableMemory = operatorContext.getRevocableMemoryReservation();
+        assertTrue(revocableMemory > 0);
+
+        // the aggregated groups are spilled when the memory is revoked
+        assertEquals(operatorContext.requestMemoryRevoking(), revocableMemory);
+        getFutureValue(operator.startMemoryRevoking());
+        operator.finishMemoryRevoke();
+        operatorContext.resetMemoryRevokingRequested();
+        assertTrue(operatorContext.getRevocableMemoryReservation() < revocableMemory);
+
+        List<Page> pages = toPages(operator, input.subList(1, 2).iterator());
+        assertEquals(operatorContext.getRevocableMemoryReservation(), 0);
+
+        MaterializedResult.Builder expected = resultBuilder(driverContext.getSession(), BIGINT, BIGINT);
+        for (long i = 0; i < 10; i++) {
+            expected.row(i, 2 * i);
+        }
+        MaterializedResult actual = toMaterializedResult(driverContext.getSession(), ImmutableList.of(BIGINT, BIGINT), pages);
+        assertEqualsIgnoreOrder(actual.getMaterializedRows(), expected.build().getMaterializedRows());
+    }
+
     @Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ".* Failed to spill")
     public void testSpillerFailure()
     {
@@ -536,35 +593,55 @@ public class TestHashAggregationOperator
         toPages(operatorFactory, driverContext, input);
     }
 
-    private static class DummySpillerFactory
-            extends SpillerFactoryWithStats
+    @Test(dataProvider = "hashEnabled")
+    public void testAdaptivePartialAggregation(boolean hashEnabled)
+            throws Exception
     {
-        @Override
-        public Spiller create(List<Type> types)
-        {
-            return new Spiller()
-            {
-                private final List<Iterator<Page>> spills = new ArrayList<>();
-
-                @Override
-                public CompletableFuture<?> spill(Iterator<Page> pageIterator)
-                {
-                    spills.add(pageIterator);
-                    return CompletableFuture.completedFuture(null);
-                }
+        List<Integer> hashChannels = Ints.asList(0);
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(hashEnabled, hashChannels, BIGINT);
+        List<Page> input = rowPagesBuilder
+                // every row of the first window is a group of its own, so partial aggregation is disabled
+                .addSequencePage(8, 0)
+                .row(0L)
+                .row(0L)
+                .row(1L)
+                .row(1L)
+                .build();
 
-                @Override
-                public List<Iterator<Page>> getSpills()
-                {
-                    return spills;
-                }
+        HashAggregationOperatorFactory operatorFactory = new HashAggregationOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                ImmutableList.of(BIGINT),
+                hashChannels,
+                ImmutableList.of(),
+                Step.PARTIAL,
+                ImmutableList.of(LONG_SUM.bind(ImmutableList.of(0), Optional.empty())),
+                rowPagesBuilder.getHashChannel(),
+                Optional.empty(),
+                100_000,
+                new DataSize(16, MEGABYTE),
+                false,
+                new DataSize(0, MEGABYTE),
+                spillerFactory,
+                Optional.of(new PartialAggregationController(8, 0.8)));
+
+        MaterializedResult expected = resultBuilder(driverContext.getSession(), BIGINT, BIGINT)
+                .row(0L, 0L)
+                .row(1L, 1L)
+                .row(2L, 2L)
+                .row(3L, 3L)
+                .row(4L, 4L)
+                .row(5L, 5L)
+                .row(6L, 6L)
+                .row(7L, 7L)
+                .row(0L, 0L)
+                .row(0L, 0L)
+                .row(1L, 1L)
+                .row(1L, 1L)
+                .build();
 
-                @Override
-                public void close()
-                {
-                }
-            };
-        }
+        assertOperatorEqualsIgnoreOrder(operatorFactory, driverContext, input, expected, hashEnabled, Optional.of(hashChannels.size()));
+        assertEquals(driverContext.getOperatorContexts().get(0).getOperatorStats().getPartialAggregationPassThroughPositions(), 4);
     }
 
     private static class FailingSpillerFactory
@@ -16,6 +16,7 @@ package com.facebook.presto.operator;
 import com.facebook.presto.ExceededMemoryLimitException;
 import com.facebook.presto.RowPagesBuilder;
 import com.facebook.presto.operator.HashBuilderOperator.HashBuilderOperatorFactory;
+import com.facebook.presto.operator.SpilledLookupSourcePartition.UnspilledPartition;
 import com.facebook.presto.operator.ValuesOperator.ValuesOperatorFactory;
 import com.facebook.presto.operator.exchange.LocalExchange;
 import com.facebook.presto.operator.exchange.LocalExchange.LocalExchangeSinkFactory;
@@ -32,12 +33,14 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.units.DataSize;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
@@ -46,13 +49,24 @@ import java.util.function.Function;
 import static com.facebook.presto.RowPagesBuilder.rowPagesBuilder;
 import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
 import static com.facebook.presto.operator.OperatorAssertion.assertOperatorEquals;
+import static com.facebook.presto.operator.OperatorAssertion.assertOperatorEqualsIgnoreOrder;
+import static com.facebook.presto.operator.OperatorAssertion.dropChannel;
+import static com.facebook.presto.operator.OperatorAssertion.toMaterializedResult;
+import static com.facebook.presto.operator.OperatorAssertion.without;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static com.facebook.presto.sql.planner.SystemPartitioningHandle.FIXED_HASH_DISTRIBUTION;
 import static com.google.common.collect.Iterables.concat;
+import static com.google.common.collect.Iterables.getOnlyElement;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.testing.Assertions.assertEqualsIgnoreOrder;
 import static io.airlift.units.DataSize.Unit.BYTE;
 import static java.util.concurrent.Executors.newCachedThreadPool;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
 
 @Test(singleThreaded = true)
 public class TestHashJoinOperator
@@ -644,6 +658,384 @@ public class TestHashJoinOperator
         assertOperatorEquals(joinOperatorFactory, taskContext.addPipelineContext(true, true).addDriverContext(), probeInput, expected, true, getHashChannels(probePages, buildPages));
     }
 
+    @Test(dataProvider = "hashEnabledValues")
+    public void testInnerJoinWithFilterFunctionAndDuplicateBuildKeys(boolean parallelBuild, boolean probeHashEnabled, boolean buildHashEnabled)
+            throws Exception
+    {
+        TaskContext taskContext = createTaskContext();
+
+        // the filter rejects some of the rows of every key, so the batch lookup has to skip ahead in the position chains
+        InternalJoinFilterFunction filterFunction = new TestInternalJoinFilterFunction((
+                (leftPosition, leftBlocks, rightPosition, rightBlocks) -> BIGINT.getLong(rightBlocks[1], rightPosition) % 2 == 1));
+
+        // build
+        List<Type> buildTypes = ImmutableList.<Type>of(VARCHAR, BIGINT);
+        RowPagesBuilder buildPages = rowPagesBuilder(buildHashEnabled, Ints.asList(0), buildTypes)
+                .row("a", 2L)
+                .row("a", 1L)
+                .row("a", 3L)
+                .row("b", 4L)
+                .row("c", 6L)
+                .row("c", 5L);
+        LookupSourceFactory lookupSourceFactory = buildHash(parallelBuild, taskContext, Ints.asList(0), buildPages, Optional.of(filterFunction));
+        assertFalse(getFutureValue(lookupSourceFactory.createLookupSource()).hasUniqueJoinKeys());
+
+        // probe
+        List<Type> probeTypes = ImmutableList.<Type>of(VARCHAR);
+        RowPagesBuilder probePages = rowPagesBuilder(probeHashEnabled, Ints.asList(0), probeTypes);
+        List<Page> probeInput = probePages
+                .row("a")
+                .row("b")
+                .row((String) null)
+                .row("c")
+                .row("d")
+                .row("a")
+                .build();
+        OperatorFactory joinOperatorFactory = LookupJoinOperators.innerJoin(
+                0,
+                new PlanNodeId("test"),
+                lookupSourceFactory,
+                probePages.getTypes(),
+                Ints.asList(0),
+                probePages.getHashChannel(),
+                true);
+
+        // expected
+        MaterializedResult expected = MaterializedResult.resultBuilder(taskContext.getSession(), concat(probeTypes, buildTypes))
+                .row("a", "a", 1L)
+                .row("a", "a", 3L)
+                .row("c", "c", 5L)
+                .row("a", "a", 1L)
+                .row("a", "a", 3L)
+                .build();
+
+        assertOperatorEqualsIgnoreOrder(joinOperatorFactory, taskContext.addPipelineContext(true, true).addDriverContext(), probeInput, expected, true, getHashChannels(probePages, buildPages));
+    }
+
+    @Test(dataProvider = "hashEnabledValues")
+    public void testInnerJoinWithUniqueBuildKeys(boolean parallelBuild, boolean probeHashEnabled, boolean buildHashEnabled)
+            throws Exception
+    {
+        TaskContext taskContext = createTaskContext();
+
+        // build
+        List<Type> buildTypes = ImmutableList.<Type>of(VARCHAR, BIGINT);
+        RowPagesBuilder buildPages = rowPagesBuilder(buildHashEnabled, Ints.asList(0), buildTypes)
+                .row("a", 1L)
+                .row("b", 2L)
+                .row("c", 3L)
+                .row((String) null, 4L)
+                .row((String) null, 5L);
+        LookupSourceFactory lookupSourceFactory = buildHash(parallelBuild, taskContext, Ints.asList(0), buildPages, Optional.empty());
+        // null keys never match, so they do not make the keys duplicate
+        assertTrue(getFutureValue(lookupSourceFactory.createLookupSource()).hasUniqueJoinKeys());
+
+        // probe
+        List<Type> probeTypes = ImmutableList.<Type>of(VARCHAR);
+        RowPagesBuilder probePages = rowPagesBuilder(probeHashEnabled, Ints.asList(0), probeTypes);
+        List<Page> probeInput = probePages
+                .row("a")
+                .row("a")
+                .row("b")
+                .row((String) null)
+                .row("d")
+                .row("c")
+                .build();
+        OperatorFactory joinOperatorFactory = LookupJoinOperators.innerJoin(
+                0,
+                new PlanNodeId("test"),
+                lookupSourceFactory,
+                probePages.getTypes(),
+                Ints.asList(0),
+                probePages.getHashChannel(),
+                false);
+
+        // expected
+        MaterializedResult expected = MaterializedResult.resultBuilder(taskContext.getSession(), concat(probeTypes, buildTypes))
+                .row("a", "a", 1L)
+                .row("a", "a", 1L)
+                .row("b", "b", 2L)
+                .row("c", "c", 3L)
+                .build();
+
+        assertOperatorEquals(joinOperatorFactory, taskContext.addPipelineContext(true, true).addDriverContext(), probeInput, expected, true, getHashChannels(probePages, buildPages));
+    }
+
+    @Test(dataProvider = "hashEnabledValues")
+    public void testInnerJoinWithDuplicateBuildKeys(boolean parallelBuild, boolean probeHashEnabled, boolean buildHashEnabled)
+            throws Exception
+    {
+        TaskContext taskContext = createTaskContext();
+
+        // build
+        List<Type> buildTypes = ImmutableList.<Type>of(VARCHAR, BIGINT);
+        RowPagesBuilder buildPages = rowPagesBuilder(buildHashEnabled, Ints.asList(0), buildTypes)
+                .row("a", 1L)
+                .row("a", 2L)
+                .row("b", 3L)
+                .row("a", 4L);
+        LookupSourceFactory lookupSourceFactory = buildHash(parallelBuild, taskContext, Ints.asList(0), buildPages, Optional.empty());
+        assertFalse(getFutureValue(lookupSourceFactory.createLookupSource()).hasUniqueJoinKeys());
+
+        // probe
+        List<Type> probeTypes = ImmutableList.<Type>of(VARCHAR);
+        RowPagesBuilder probePages = rowPagesBuilder(probeHashEnabled, Ints.asList(0), probeTypes);
+        List<Page> probeInput = probePages
+                .row("b")
+                .row("a")
+                .row("c")
+                .build();
+        OperatorFactory joinOperatorFactory = LookupJoinOperators.innerJoin(
+                0,
+                new PlanNodeId("test"),
+                lookupSourceFactory,
+                probePages.getTypes(),
+                Ints.asList(0),
+                probePages.getHashChannel(),
+                false);
+
+        // expected
+        MaterializedResult expected = MaterializedResult.resultBuilder(taskContext.getSession(), concat(probeTypes, buildTypes))
+                .row("b", "b", 3L)
+                .row("a", "a", 1L)
+                .row("a", "a", 2L)
+                .row("a", "a", 4L)
+                .build();
+
+        assertOperatorEqualsIgnoreOrder(joinOperatorFactory, taskContext.addPipelineContext(true, true).addDriverContext(), probeInput, expected, true, getHashChannels(probePages, buildPages));
+    }
+
+    @Test(dataProvider = "hashEnabledValues")
+    public void testInnerJoinWithNullProbeKeyColumns(boolean parallelBuild, boolean probeHashEnabled, boolean buildHashEnabled)
+            throws Exception
+    {
+        TaskContext taskContext = createTaskContext();
+
+        // build
+        List<Type> buildTypes = ImmutableList.<Type>of(VARCHAR, BIGINT);
+        RowPagesBuilder buildPages = rowPagesBuilder(buildHashEnabled, Ints.asList(0, 1), buildTypes)
+                .row("a", 1L)
+                .row("a", 2L)
+                .row("b", 1L);
+        LookupSourceFactory lookupSourceFactory = buildHash(parallelBuild, taskContext, Ints.asList(0, 1), buildPages, Optional.empty());
+
+        // probe, the rows with a null in any of the join columns are skipped by the batch lookup
+        List<Type> probeTypes = ImmutableList.<Type>of(VARCHAR, BIGINT);
+        RowPagesBuilder probePages = rowPagesBuilder(probeHashEnabled, Ints.asList(0, 1), probeTypes);
+        List<Page> probeInput = probePages
+                .row("a", 1L)
+                .row("a", null)
+                .row(null, 1L)
+                .row("b", 1L)
+                .row(null, null)
+                .row("a", 2L)
+                .build();
+        OperatorFactory joinOperatorFactory = LookupJoinOperators.innerJoin(
+                0,
+                new PlanNodeId("test"),
+                lookupSourceFactory,
+                probePages.getTypes(),
+                Ints.asList(0, 1),
+                probePages.getHashChannel(),
+                false);
+
+        // expected
+        MaterializedResult expected = MaterializedResult.resultBuilder(taskContext.getSession(), concat(probeTypes, buildTypes))
+                .row("a", 1L, "a", 1L)
+                .row("b", 1L, "b", 1L)
+                .row("a", 2L, "a", 2L)
+                .build();
+
+        assertOperatorEquals(joinOperatorFactory, taskContext.addPipelineContext(true, true).addDriverContext(), probeInput, expected, true, getHashChannels(probePages, buildPages));
+    }
+
+    @Test
+    public void testPartitionedLookupSourceBatchLookup()
+            throws Exception
+    {
+        TaskContext taskContext = createTaskContext();
+
+        // build, every key is present twice and spread over all partitions
+        RowPagesBuilder buildPages = rowPagesBuilder(false, Ints.asList(0), ImmutableList.of(BIGINT))
+                .addSequencePage(500, 0)
+                .addSequencePage(500, 0);
+        LookupSourceFactory lookupSourceFactory = buildHash(true, taskContext, Ints.asList(0), buildPages, Optional.empty());
+        LookupSource lookupSource = getFutureValue(lookupSourceFactory.createLookupSource());
+        assertTrue(lookupSource instanceof PartitionedLookupSource);
+        assertTrue(lookupSource.isBatchLookupSupported());
+
+        // probe, half of the keys match
+        Page probe = getOnlyElement(rowPagesBuilder(true, Ints.asList(0), ImmutableList.of(BIGINT))
+                .addSequencePage(1000, 0)
+                .build());
+        Page hashChannelsPage = new Page(probe.getBlock(0));
+
+        // look up every other position, so the positions of every partition are not contiguous
+        int positionCount = probe.getPositionCount() / 2;
+        int[] positions = new int[positionCount];
+        long[] rawHashes = new long[positionCount];
+        for (int i = 0; i < positionCount; i++) {
+            positions[i] = i * 2;
+            rawHashes[i] = BIGINT.getLong(probe.getBlock(1), positions[i]);
+        }
+
+        long[] joinPositions = new long[positionCount];
+        lookupSource.getJoinPositions(positions, positionCount, hashChannelsPage, probe, null, joinPositions);
+        long[] joinPositionsWithHashes = new long[positionCount];
+        lookupSource.getJoinPositions(positions, positionCount, hashChannelsPage, probe, rawHashes, joinPositionsWithHashes);
+
+        int matches = 0;
+        for (int i = 0; i < positionCount; i++) {
+            long expected = lookupSource.getJoinPosition(positions[i], hashChannelsPage, probe);
+            assertEquals(joinPositions[i], expected);
+            assertEquals(joinPositionsWithHashes[i], expected);
+            if (expected >= 0) {
+                matches++;
+                // the chain of the first position leads to the other build row with the same key
+                long next = lookupSource.getNextJoinPosition(expected, positions[i], probe);
+                assertTrue(next >= 0);
+                assertTrue(lookupSource.getNextJoinPosition(next, positions[i], probe) < 0);
+            }
+        }
+        assertEquals(matches, 250);
+    }
+
+    @Test(dataProvider = "hashEnabledValues")
+    public void testInnerJoinWithSpill(boolean parallelBuild, boolean probeHashEnabled, boolean buildHashEnabled)
+            throws Exception
+    {
+        TaskContext taskContext = createTaskContext();
+
+        // build
+        RowPagesBuilder buildPages = rowPagesBuilder(buildHashEnabled, Ints.asList(0), ImmutableList.of(VARCHAR, BIGINT, BIGINT))
+                .addSequencePage(10, 20, 30, 40)
+                .addSequencePage(10, 30, 40, 50)
+                .addSequencePage(10, 40, 50, 60);
+        BuildSide buildSide = buildHash(parallelBuild, taskContext, Ints.asList(0), buildPages, Optional.empty(), true);
+        LookupSourceFactory lookupSourceFactory = buildSide.getLookupSourceFactory();
+        assertFalse(lookupSourceFactory.getSpilledPartitions().isEmpty());
+
+        // probe
+        RowPagesBuilder probePages = rowPagesBuilder(probeHashEnabled, Ints.asList(0), ImmutableList.<Type>of(VARCHAR, BIGINT, BIGINT));
+        List<Page> probeInput = probePages
+                .addSequencePage(1000, 0, 1000, 2000)
+                .build();
+        OperatorFactory joinOperatorFactory = LookupJoinOperators.innerJoin(
+                0,
+                new PlanNodeId("test"),
+                lookupSourceFactory,
+                probePages.getTypes(),
+                Ints.asList(0),
+                probePages.getHashChannel(),
+                false
+        );
+
+        // expected
+        MaterializedResult.Builder expected = MaterializedResult.resultBuilder(taskContext.getSession(), concat(probePages.getTypes(), buildPages.getTypes()));
+        for (int i = 20; i < 50; i++) {
+            expected.row(String.valueOf(i), 1000L + i, 2000L + i, String.valueOf(i), 10L + i, 20L + i);
+        }
+
+        List<Page> output = probeWithSpill(joinOperatorFactory, taskContext.addPipelineContext(true, true).addDriverContext(), probeInput, buildSide);
+        assertJoinResultEqualsIgnoreOrder(taskContext, joinOperatorFactory, output, expected.build(), getHashChannels(probePages, buildPages));
+    }
+
+    @Test(dataProvider = "hashEnabledValues")
+    public void testOuterJoinWithSpill(boolean parallelBuild, boolean probeHashEnabled, boolean buildHashEnabled)
+            throws Exception
+    {
+        TaskContext taskContext = createTaskContext();
+
+        // build
+        RowPagesBuilder buildPages = rowPagesBuilder(buildHashEnabled, Ints.asList(0), ImmutableList.of(VARCHAR, BIGINT, BIGINT))
+                .addSequencePage(10, 20, 30, 40)
+                .addSequencePage(10, 30, 40, 50)
+                .addSequencePage(10, 40, 50, 60);
+        BuildSide buildSide = buildHash(parallelBuild, taskContext, Ints.asList(0), buildPages, Optional.empty(), true);
+        LookupSourceFactory lookupSourceFactory = buildSide.getLookupSourceFactory();
+        assertFalse(lookupSourceFactory.getSpilledPartitions().isEmpty());
+
+        // probe
+        RowPagesBuilder probePages = rowPagesBuilder(probeHashEnabled, Ints.asList(0), ImmutableList.<Type>of(VARCHAR, BIGINT, BIGINT));
+        List<Page> probeInput = probePages
+                .addSequencePage(60, 0, 1000, 2000)
+                .build();
+        OperatorFactory joinOperatorFactory = LookupJoinOperators.probeOuterJoin(
+                0,
+                new PlanNodeId("test"),
+                lookupSourceFactory,
+                probePages.getTypes(),
+                Ints.asList(0),
+                probePages.getHashChannel(),
+                false
+        );
+
+        // expected
+        MaterializedResult.Builder expected = MaterializedResult.resultBuilder(taskContext.getSession(), concat(probePages.getTypes(), buildPages.getTypes()));
+        for (int i = 0; i < 60; i++) {
+            if (i >= 20 && i < 50) {
+                expected.row(String.valueOf(i), 1000L + i, 2000L + i, String.valueOf(i), 10L + i, 20L + i);
+            }
+            else {
+                expected.row(String.valueOf(i), 1000L + i, 2000L + i, null, null, null);
+            }
+        }
+
+        List<Page> output = probeWithSpill(joinOperatorFactory, taskContext.addPipelineContext(true, true).addDriverContext(), probeInput, buildSide);
+        assertJoinResultEqualsIgnoreOrder(taskContext, joinOperatorFactory, output, expected.build(), getHashChannels(probePages, buildPages));
+    }
+
+    @Test(dataProvider = "hashEnabledValues")
+    public void testSpilledPartitionIsUnspilledOnceForAllProbes(boolean parallelBuild, boolean probeHashEnabled, boolean buildHashEnabled)
+            throws Exception
+    {
+        TaskContext taskContext = createTaskContext();
+
+        RowPagesBuilder buildPages = rowPagesBuilder(buildHashEnabled, Ints.asList(0), ImmutableList.of(VARCHAR, BIGINT, BIGINT))
+                .addSequencePage(10, 20, 30, 40)
+                .addSequencePage(10, 30, 40, 50);
+        BuildSide buildSide = buildHash(parallelBuild, taskContext, Ints.asList(0), buildPages, Optional.empty(), true);
+        SpilledLookupSourcePartition partition = buildSide.getLookupSourceFactory().getSpilledPartitions().values().iterator().next();
+
+        // partitions larger than the memory limit are split, descend to one that is loaded
+        while (true) {
+            ListenableFuture<UnspilledPartition> unspilled = partition.acquire();
+            while (!unspilled.isDone()) {
+                buildSide.processDrivers();
+            }
+            partition.release();
+            if (getFutureValue(unspilled).getLookupSourceSupplier().isPresent()) {
+                break;
+            }
+            partition = getFutureValue(unspilled).getSubPartitions().get(0);
+        }
+        buildSide.processDrivers();
+        assertEquals(partition.getLoadedBytes(), 0);
+
+        // two probe operators request the same partition
+        ListenableFuture<UnspilledPartition> first = partition.acquire();
+        ListenableFuture<UnspilledPartition> second = partition.acquire();
+        assertSame(first, second);
+        assertFalse(first.isDone());
+
+        while (!first.isDone()) {
+            buildSide.processDrivers();
+        }
+        assertSame(getFutureValue(first), getFutureValue(second));
+        assertTrue(partition.getLoadedBytes() > 0);
+
+        // a partition that is still in use is not unloaded
+        partition.release();
+        buildSide.processDrivers();
+        assertSame(partition.acquire(), first);
+        partition.release();
+
+        // once the last probe releases it, the memory is given back
+        partition.release();
+        buildSide.processDrivers();
+        assertEquals(partition.getLoadedBytes(), 0);
+    }
+
     @Test(expectedExceptions = ExceededMemoryLimitException.class, expectedExceptionsMessageRegExp = "Query exceeded local memory limit of.*", dataProvider = "hashEnabledValues")
     public void testMemoryLimit(boolean parallelBuild, boolean probeHashEnabled, boolean buildHashEnabled)
             throws Exception
@@ -655,6 +1047,45 @@ public class TestHashJoinOperator
         buildHash(parallelBuild, taskContext, Ints.asList(0), buildPages, Optional.empty());
     }
 
+    /**
+     * Runs the probe operator, processing the build drivers in between so they can unspill
+     * the partitions the probe operator waits for.
+     */
+    private static List<Page> probeWithSpill(OperatorFactory joinOperatorFactory, DriverContext driverContext, List<Page> probeInput, BuildSide buildSide)
+            throws Exception
+    {
+        ImmutableList.Builder<Page> outputPages = ImmutableList.builder();
+        try (Operator operator = joinOperatorFactory.createOperator(driverContext)) {
+            Iterator<Page> input = probeInput.iterator();
+            for (int loops = 0; !operator.isFinished() && loops < 10_000; loops++) {
+                buildSide.processDrivers();
+                if (!operator.isBlocked().isDone()) {
+                    continue;
+                }
+                if (operator.needsInput()) {
+                    if (input.hasNext()) {
+                        operator.addInput(input.next());
+                    }
+                    else {
+                        operator.finish();
+                    }
+                }
+                Page outputPage = operator.getOutput();
+                if (outputPage != null) {
+                    outputPages.add(outputPage);
+                }
+            }
+            assertTrue(operator.isFinished(), "Operator did not finish");
+        }
+        return outputPages.build();
+    }
+
+    private static void assertJoinResultEqualsIgnoreOrder(TaskContext taskContext, OperatorFactory joinOperatorFactory, List<Page> output, MaterializedResult expected, List<Integer> hashChannels)
+    {
+        MaterializedResult actual = toMaterializedResult(taskContext.getSession(), without(joinOperatorFactory.getTypes(), hashChannels), dropChannel(output, hashChannels));
+        assertEqualsIgnoreOrder(actual.getMaterializedRows(), expected.getMaterializedRows());
+    }
+
     private TaskContext createTaskContext()
     {
         return TestingTaskContext.createTaskContext(executor, TEST_SESSION);
@@ -673,6 +1104,11 @@ public class TestHashJoinOperator
     }
 
     private static LookupSourceFactory buildHash(boolean parallelBuild, TaskContext taskContext, List<Integer> hashChannels, RowPagesBuilder buildPages, Optional<InternalJoinFilterFunction> filterFunction)
+    {
+        return buildHash(parallelBuild, taskContext, hashChannels, buildPages, filterFunction, false).getLookupSourceFactory();
+    }
+
+    private static BuildSide buildHash(boolean parallelBuild, TaskContext taskContext, List<Integer> hashChannels, RowPagesBuilder buildPages, Optional<InternalJoinFilterFunction> filterFunction, boolean spillEnabled)
     {
         Optional<JoinFilterFunctionFactory> filterFunctionFactory = filterFunction
                 .map(function -> ((session, addresses, channels) -> new StandardJoinFilterFunction(function, addresses, channels)));
@@ -708,7 +1144,10 @@ public class TestHashJoinOperator
                 false,
                 filterFunctionFactory,
                 100,
-                partitionCount);
+                partitionCount,
+                spillEnabled,
+                new DataSize(1, BYTE),
+                new DummySpillerFactory());
         PipelineContext buildPipeline = taskContext.addPipelineContext(true, true);
 
         Driver[] buildDrivers = new Driver[partitionCount];
@@ -726,7 +1165,33 @@ public class TestHashJoinOperator
             }
         }
 
-        return buildOperatorFactory.getLookupSourceFactory();
+        return new BuildSide(buildOperatorFactory.getLookupSourceFactory(), buildDrivers);
+    }
+
+    private static class BuildSide
+    {
+        private final LookupSourceFactory lookupSourceFactory;
+        private final Driver[] buildDrivers;
+
+        private BuildSide(LookupSourceFactory lookupSourceFactory, Driver[] buildDrivers)
+        {
+            this.lookupSourceFactory = lookupSourceFactory;
+            this.buildDrivers = buildDrivers;
+        }
+
+        public LookupSourceFactory getLookupSourceFactory()
+        {
+            return lookupSourceFactory;
+        }
+
+        public void processDrivers()
+        {
+            for (Driver buildDriver : buildDrivers) {
+                if (!buildDriver.isFinished()) {
+                    buildDriver.process();
+                }
+            }
+        }
     }
 
     private static class TestInternalJoinFilterFunction
@@ -14,11 +14,14 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.block.BlockEncodingManager;
+import com.facebook.presto.block.PageCompressionCodec;
 import com.facebook.presto.operator.HttpPageBufferClient.ClientCallback;
+import com.facebook.presto.server.PagesResponseWriter;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.type.TypeRegistry;
 import com.google.common.base.Stopwatch;
 import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableListMultimap;
 import io.airlift.http.client.HttpStatus;
 import io.airlift.http.client.Request;
@@ -33,10 +36,17 @@ import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.annotation.Annotation;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.BrokenBarrierException;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.ScheduledExecutorService;
@@ -46,6 +56,14 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static com.facebook.presto.PrestoMediaTypes.PRESTO_PAGES;
+import static com.facebook.presto.block.BlockAssertions.createLongRepeatBlock;
+import static com.facebook.presto.block.PageCompressionCodec.LZ4;
+import static com.facebook.presto.block.PageCompressionCodec.NONE;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_BUFFER_COMPLETE;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_COMPRESSION;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_NEXT_TOKEN;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_TOKEN;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_TASK_INSTANCE_ID;
 import static com.facebook.presto.spi.StandardErrorCode.PAGE_TOO_LARGE;
 import static com.facebook.presto.spi.StandardErrorCode.PAGE_TRANSPORT_ERROR;
 import static com.facebook.presto.spi.StandardErrorCode.PAGE_TRANSPORT_TIMEOUT;
@@ -56,6 +74,7 @@ import static io.airlift.testing.Assertions.assertContains;
 import static io.airlift.testing.Assertions.assertInstanceOf;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 
 public class TestHttpPageBufferClient
 {
@@ -98,6 +117,7 @@ public class TestHttpPageBufferClient
                 location,
                 callback,
                 blockEncodingManager,
+                NONE,
                 executor,
                 Stopwatch.createUnstarted());
 
@@ -183,6 +203,7 @@ public class TestHttpPageBufferClient
                 location,
                 callback,
                 blockEncodingManager,
+                NONE,
                 executor,
                 Stopwatch.createUnstarted());
 
@@ -223,6 +244,7 @@ public class TestHttpPageBufferClient
                 location,
                 callback,
                 blockEncodingManager,
+                NONE,
                 executor,
                 Stopwatch.createUnstarted());
 
@@ -272,6 +294,57 @@ public class TestHttpPageBufferClient
         assertStatus(client, location, "closed", 0, 3, 4, 3, "not scheduled");
     }
 
+    @Test
+    public void testCompressionNegotiated()
+            throws Exception
+    {
+        // the server knows the requested codec, so it frames and compresses the pages
+        assertCompressionNegotiation(new PageCompressionRequestProcessor(true, Optional.empty()), 1);
+    }
+
+    @Test
+    public void testCompressionFallback()
+            throws Exception
+    {
+        // a server of an older version ignores the requested codec and sends the pages unframed
+        assertCompressionNegotiation(new PageCompressionRequestProcessor(false, Optional.empty()), 0);
+
+        // a codec this node does not know is treated as no compression
+        assertCompressionNegotiation(new PageCompressionRequestProcessor(false, Optional.of("UNKNOWN_CODEC")), 0);
+        assertFalse(PageCompressionCodec.fromHeader("UNKNOWN_CODEC").isPresent());
+        assertFalse(PageCompressionCodec.fromHeader(null).isPresent());
+    }
+
+    private void assertCompressionNegotiation(PageCompressionRequestProcessor processor, int expectedCompressedPages)
+            throws Exception
+    {
+        CyclicBarrier requestComplete = new CyclicBarrier(2);
+        TestingClientCallback callback = new TestingClientCallback(requestComplete);
+
+        URI location = URI.create("http://localhost:8080");
+        HttpPageBufferClient client = new HttpPageBufferClient(new TestingHttpClient(processor, executor),
+                new DataSize(10, Unit.MEGABYTE),
+                new Duration(1, TimeUnit.MINUTES),
+                location,
+                callback,
+                blockEncodingManager,
+                LZ4,
+                executor,
+                Stopwatch.createUnstarted());
+
+        client.scheduleRequest();
+        requestComplete.await(10, TimeUnit.SECONDS);
+
+        assertEquals(processor.getRequestedCodec(), LZ4.name());
+        assertEquals(callback.getFailedBuffers(), 0);
+        assertEquals(callback.getPages().size(), 1);
+        assertPageEquals(PageCompressionRequestProcessor.PAGE, callback.getPages().get(0));
+        assertEquals(client.getCompressedPagesReceived(), expectedCompressedPages);
+
+        client.close();
+        requestComplete.await(10, TimeUnit.SECONDS);
+    }
+
     @Test
     public void testCloseDuringPendingRequest()
             throws Exception
@@ -291,6 +364,7 @@ public class TestHttpPageBufferClient
                 location,
                 callback,
                 blockEncodingManager,
+                NONE,
                 executor,
                 Stopwatch.createUnstarted());
 
@@ -345,6 +419,7 @@ public class TestHttpPageBufferClient
                 location,
                 callback,
                 blockEncodingManager,
+                NONE,
                 executor,
                 Stopwatch.createUnstarted(ticker));
 
@@ -514,6 +589,58 @@ public class TestHttpPageBufferClient
         }
     }
 
+    /**
+     * Negotiates the page compression like TaskResource and serializes the pages with PagesResponseWriter.
+     */
+    private static class PageCompressionRequestProcessor
+            implements TestingHttpClient.Processor
+    {
+        private static final Page PAGE = new Page(createLongRepeatBlock(42, 10_000));
+
+        private final boolean supportsCompression;
+        private final Optional<String> unframedResponseCodec;
+        private final AtomicReference<String> requestedCodec = new AtomicReference<>();
+
+        private PageCompressionRequestProcessor(boolean supportsCompression, Optional<String> unframedResponseCodec)
+        {
+            this.supportsCompression = supportsCompression;
+            this.unframedResponseCodec = unframedResponseCodec;
+        }
+
+        public String getRequestedCodec()
+        {
+            return requestedCodec.get();
+        }
+
+        @Override
+        public Response handle(Request request)
+                throws Exception
+        {
+            if (request.getMethod().equals("DELETE")) {
+                return new TestingResponse(HttpStatus.NO_CONTENT, ImmutableListMultimap.of(), new byte[0]);
+            }
+            requestedCodec.set(request.getHeader(PRESTO_PAGE_COMPRESSION));
+
+            ImmutableListMultimap.Builder<String, String> headers = ImmutableListMultimap.<String, String>builder()
+                    .put(CONTENT_TYPE, PRESTO_PAGES)
+                    .put(PRESTO_TASK_INSTANCE_ID, "task-instance-id")
+                    .put(PRESTO_PAGE_TOKEN, "0")
+                    .put(PRESTO_PAGE_NEXT_TOKEN, "1")
+                    .put(PRESTO_BUFFER_COMPLETE, "false");
+            MultivaluedMap<String, Object> writerHeaders = new MultivaluedHashMap<>();
+            Optional<PageCompressionCodec> codec = PageCompressionCodec.fromHeader(request.getHeader(PRESTO_PAGE_COMPRESSION));
+            if (supportsCompression && codec.isPresent()) {
+                headers.put(PRESTO_PAGE_COMPRESSION, codec.get().name());
+                writerHeaders.putSingle(PRESTO_PAGE_COMPRESSION, codec.get().name());
+            }
+            unframedResponseCodec.ifPresent(value -> headers.put(PRESTO_PAGE_COMPRESSION, value));
+
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            new PagesResponseWriter(blockEncodingManager).writeTo(ImmutableList.of(PAGE), List.class, List.class, new Annotation[0], MediaType.valueOf(PRESTO_PAGES), writerHeaders, output);
+            return new TestingResponse(HttpStatus.OK, headers.build(), output.toByteArray());
+        }
+    }
+
     private static class StaticRequestProcessor
             implements TestingHttpClient.Processor
     {
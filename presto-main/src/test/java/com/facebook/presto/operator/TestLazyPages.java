@@ -0,0 +1,131 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.LazyBlock;
+import com.facebook.presto.spi.block.SelectiveLazyBlockLoader;
+import com.google.common.primitives.Ints;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+
+import static com.facebook.presto.block.BlockAssertions.createLongSequenceBlock;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class TestLazyPages
+{
+    @Test
+    public void testSelectPositions()
+    {
+        TestingSelectiveLoader loader = new TestingSelectiveLoader(createLongSequenceBlock(0, 10));
+        LazyBlock lazyBlock = new LazyBlock(10, loader);
+        Page page = new Page(createLongSequenceBlock(100, 110), lazyBlock);
+        assertTrue(LazyPages.hasSelectiveLazyBlocks(page));
+
+        Page selected = LazyPages.selectPositions(page, new int[] {1, 4, 8, 9}, 3);
+        assertEquals(selected.getPositionCount(), 3);
+        assertBlockEquals(selected.getBlock(0), 101, 104, 108);
+
+        // the lazy block is not loaded until it is accessed
+        assertNull(loader.getLoadedPositions());
+        assertBlockEquals(selected.getBlock(1), 1, 4, 8);
+        assertEquals(Ints.asList(loader.getLoadedPositions()), Ints.asList(1, 4, 8));
+
+        // other positions of the source block can not be loaded anymore
+        try {
+            lazyBlock.assureLoaded();
+            fail("expected IllegalStateException");
+        }
+        catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void testSelectPositionsTwice()
+    {
+        TestingSelectiveLoader loader = new TestingSelectiveLoader(createLongSequenceBlock(0, 10));
+        Page page = new Page(new LazyBlock(10, loader));
+
+        Page selected = LazyPages.selectPositions(page, new int[] {2, 3, 5, 7, 9}, 5);
+        assertTrue(LazyPages.hasSelectiveLazyBlocks(selected));
+        selected = LazyPages.selectPositions(selected, new int[] {0, 3, 4}, 3);
+
+        assertBlockEquals(selected.getBlock(0), 2, 7, 9);
+        assertEquals(Ints.asList(loader.getLoadedPositions()), Ints.asList(2, 7, 9));
+    }
+
+    @Test
+    public void testSelectAllPositions()
+    {
+        Page page = new Page(new LazyBlock(3, new TestingSelectiveLoader(createLongSequenceBlock(0, 3))));
+        assertSame(LazyPages.selectPositions(page, LazyPages.allPositions(3), 3), page);
+    }
+
+    @Test
+    public void testNonSelectiveLazyBlock()
+    {
+        Block source = createLongSequenceBlock(0, 5);
+        Page page = new Page(new LazyBlock(5, lazyBlock -> lazyBlock.setBlock(source)));
+        assertFalse(LazyPages.hasSelectiveLazyBlocks(page));
+
+        Page selected = LazyPages.selectPositions(page, new int[] {0, 4}, 2);
+        assertBlockEquals(selected.getBlock(0), 0, 4);
+    }
+
+    private static void assertBlockEquals(Block block, long... expectedValues)
+    {
+        assertEquals(block.getPositionCount(), expectedValues.length);
+        for (int position = 0; position < expectedValues.length; position++) {
+            assertEquals(BIGINT.getLong(block, position), expectedValues[position]);
+        }
+    }
+
+    private static class TestingSelectiveLoader
+            implements SelectiveLazyBlockLoader<LazyBlock>
+    {
+        private final Block block;
+        private int[] loadedPositions;
+
+        public TestingSelectiveLoader(Block block)
+        {
+            this.block = block;
+        }
+
+        public int[] getLoadedPositions()
+        {
+            return loadedPositions;
+        }
+
+        @Override
+        public void load(LazyBlock lazyBlock)
+        {
+            lazyBlock.setBlock(block);
+        }
+
+        @Override
+        public Block load(LazyBlock lazyBlock, int[] positions, int positionCount)
+        {
+            loadedPositions = Arrays.copyOf(positions, positionCount);
+            return block.copyPositions(Ints.asList(loadedPositions));
+        }
+    }
+}
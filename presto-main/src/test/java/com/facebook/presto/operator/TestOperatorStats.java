@@ -58,6 +58,8 @@ public class TestOperatorStats
             new DataSize(18, BYTE),
             new DataSize(19, BYTE),
             Optional.empty(),
+            21,
+            new Duration(22, NANOSECONDS),
             "20");
 
     public static final OperatorStats MERGEABLE = new OperatorStats(
@@ -89,6 +91,8 @@ public class TestOperatorStats
             new DataSize(18, BYTE),
             new DataSize(19, BYTE),
             Optional.empty(),
+            21,
+            new Duration(22, NANOSECONDS),
             new LongMergeable(20));
 
     @Test
@@ -130,6 +134,8 @@ public class TestOperatorStats
 
         assertEquals(actual.getMemoryReservation(), new DataSize(18, BYTE));
         assertEquals(actual.getSystemMemoryReservation(), new DataSize(19, BYTE));
+        assertEquals(actual.getPartialAggregationPassThroughPositions(), 21);
+        assertEquals(actual.getHashBuildWall(), new Duration(22, NANOSECONDS));
         assertEquals(actual.getInfo(), "20");
     }
 
@@ -163,6 +169,8 @@ public class TestOperatorStats
         assertEquals(actual.getFinishUser(), new Duration(3 * 17, NANOSECONDS));
         assertEquals(actual.getMemoryReservation(), new DataSize(3 * 18, BYTE));
         assertEquals(actual.getSystemMemoryReservation(), new DataSize(3 * 19, BYTE));
+        assertEquals(actual.getPartialAggregationPassThroughPositions(), 3 * 21);
+        assertEquals(actual.getHashBuildWall(), new Duration(3 * 22, NANOSECONDS));
         assertEquals(actual.getInfo(), null);
     }
 
@@ -196,6 +204,8 @@ public class TestOperatorStats
         assertEquals(actual.getFinishUser(), new Duration(3 * 17, NANOSECONDS));
         assertEquals(actual.getMemoryReservation(), new DataSize(3 * 18, BYTE));
         assertEquals(actual.getSystemMemoryReservation(), new DataSize(3 * 19, BYTE));
+        assertEquals(actual.getPartialAggregationPassThroughPositions(), 3 * 21);
+        assertEquals(actual.getHashBuildWall(), new Duration(3 * 22, NANOSECONDS));
         assertEquals(actual.getInfo(), new LongMergeable(20 * 3));
     }
 
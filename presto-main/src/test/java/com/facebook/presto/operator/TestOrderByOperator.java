@@ -14,8 +14,11 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.ExceededMemoryLimitException;
+import com.facebook.presto.RowPagesBuilder;
 import com.facebook.presto.operator.OrderByOperator.OrderByOperatorFactory;
 import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.Spiller;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.facebook.presto.testing.MaterializedResult;
 import com.google.common.collect.ImmutableList;
@@ -27,6 +30,7 @@ import org.testng.annotations.Test;
 
 import java.util.List;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.facebook.presto.RowPagesBuilder.rowPagesBuilder;
 import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
@@ -41,6 +45,7 @@ import static com.facebook.presto.testing.MaterializedResult.resultBuilder;
 import static com.facebook.presto.testing.TestingTaskContext.createTaskContext;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static java.util.concurrent.Executors.newCachedThreadPool;
+import static org.testng.Assert.assertEquals;
 
 @Test(singleThreaded = true)
 public class TestOrderByOperator
@@ -156,6 +161,89 @@ public class TestOrderByOperator
         assertOperatorEquals(operatorFactory, driverContext, input, expected);
     }
 
+    @Test
+    public void testSpill()
+            throws Exception
+    {
+        List<Page> input = rowPagesBuilder(VARCHAR, BIGINT)
+                .row("a", 1L)
+                .row("b", 2L)
+                .pageBreak()
+                .row("b", 3L)
+                .row("a", 4L)
+                .pageBreak()
+                .row("c", 5L)
+                .row("a", 6L)
+                .pageBreak()
+                .row("b", 7L)
+                .build();
+
+        OrderByOperatorFactory operatorFactory = new OrderByOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                ImmutableList.of(VARCHAR, BIGINT),
+                ImmutableList.of(0, 1),
+                10,
+                ImmutableList.of(0, 1),
+                ImmutableList.of(ASC_NULLS_LAST, DESC_NULLS_LAST),
+                true,
+                new DataSize(1, Unit.BYTE),
+                new DummySpillerFactory());
+
+        MaterializedResult expected = MaterializedResult.resultBuilder(driverContext.getSession(), VARCHAR, BIGINT)
+                .row("a", 6L)
+                .row("a", 4L)
+                .row("a", 1L)
+                .row("b", 7L)
+                .row("b", 3L)
+                .row("b", 2L)
+                .row("c", 5L)
+                .build();
+
+        assertOperatorEquals(operatorFactory, driverContext, input, expected);
+    }
+
+    @Test
+    public void testSpillWithMultipleMergePasses()
+            throws Exception
+    {
+        RowPagesBuilder inputBuilder = rowPagesBuilder(BIGINT);
+        MaterializedResult.Builder expectedBuilder = MaterializedResult.resultBuilder(driverContext.getSession(), BIGINT);
+        for (long value = 0; value < 20; value++) {
+            // every page is spilled as one run, and the runs overlap
+            inputBuilder.row((value * 7) % 20).pageBreak();
+            expectedBuilder.row(value);
+        }
+
+        AtomicInteger createdSpillers = new AtomicInteger();
+        DummySpillerFactory spillerFactory = new DummySpillerFactory()
+        {
+            @Override
+            public Spiller create(List<Type> types)
+            {
+                createdSpillers.incrementAndGet();
+                return super.create(types);
+            }
+        };
+
+        OrderByOperatorFactory operatorFactory = new OrderByOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                ImmutableList.of(BIGINT),
+                ImmutableList.of(0),
+                10,
+                ImmutableList.of(0),
+                ImmutableList.of(ASC_NULLS_LAST),
+                true,
+                new DataSize(1, Unit.BYTE),
+                spillerFactory,
+                3);
+
+        assertOperatorEquals(operatorFactory, driverContext, inputBuilder.build(), expectedBuilder.build());
+        // the 20 runs are merged into 7, 3 and then 1 run before the final merge
+        assertEquals(createdSpillers.get(), 4);
+    }
+
     @Test(expectedExceptions = ExceededMemoryLimitException.class, expectedExceptionsMessageRegExp = "Query exceeded local memory limit of 10B")
     public void testMemoryLimit()
             throws Exception
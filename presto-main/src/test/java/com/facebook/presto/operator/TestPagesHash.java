@@ -0,0 +1,144 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+
+import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.block.BlockAssertions.createLongsBlock;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static org.testng.Assert.assertEquals;
+
+public class TestPagesHash
+{
+    private static final List<Type> TYPES = ImmutableList.of(BIGINT);
+
+    private ExecutorService executor;
+
+    @BeforeClass
+    public void setUp()
+    {
+        executor = newCachedThreadPool(daemonThreadsNamed("test-%s"));
+    }
+
+    @AfterClass
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testParallelBuild()
+    {
+        // duplicate and null keys, spread over several pages
+        PagesIndex index = createPagesIndex(10_000, 3_000);
+        assertSameJoinPositions(index, 3_500);
+    }
+
+    @Test
+    public void testParallelBuildWithUniqueKeys()
+    {
+        PagesIndex index = createPagesIndex(10_000, 10_000);
+        assertSameJoinPositions(index, 10_500);
+    }
+
+    @Test(timeOut = 30_000)
+    public void testParallelBuildWithBusyExecutor()
+            throws Exception
+    {
+        // the only thread of the executor is busy, so the calling thread has to build all slot ranges
+        ExecutorService busyExecutor = newSingleThreadExecutor(daemonThreadsNamed("test-busy-%s"));
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            busyExecutor.execute(() -> {
+                try {
+                    release.await();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            PagesIndex index = createPagesIndex(10_000, 3_000);
+            assertSameJoinPositions(index, 3_500, busyExecutor);
+        }
+        finally {
+            release.countDown();
+            busyExecutor.shutdownNow();
+        }
+    }
+
+    private void assertSameJoinPositions(PagesIndex index, int maxKey)
+    {
+        assertSameJoinPositions(index, maxKey, executor);
+    }
+
+    private static void assertSameJoinPositions(PagesIndex index, int maxKey, ExecutorService executor)
+    {
+        LookupSource expected = index.createLookupSourceSupplier(TEST_SESSION, ImmutableList.of(0)).get();
+        for (int buildConcurrency : new int[] {2, 3, 4, 8}) {
+            LookupSource actual = index.createLookupSourceSupplier(TEST_SESSION, ImmutableList.of(0), Optional.empty(), Optional.empty(), executor, buildConcurrency).get();
+            assertEquals(actual.hasUniqueJoinKeys(), expected.hasUniqueJoinKeys());
+
+            List<Long> keys = new ArrayList<>();
+            for (long key = 0; key < maxKey; key++) {
+                keys.add(key);
+            }
+            Page probe = new Page(createLongsBlock(keys));
+            for (int position = 0; position < probe.getPositionCount(); position++) {
+                assertEquals(getJoinPositions(actual, position, probe), getJoinPositions(expected, position, probe));
+            }
+        }
+    }
+
+    private static List<Long> getJoinPositions(LookupSource lookupSource, int position, Page probe)
+    {
+        List<Long> joinPositions = new ArrayList<>();
+        for (long joinPosition = lookupSource.getJoinPosition(position, probe, probe); joinPosition >= 0; joinPosition = lookupSource.getNextJoinPosition(joinPosition, position, probe)) {
+            joinPositions.add(joinPosition);
+        }
+        // positions with the same key may be linked in a different order
+        Collections.sort(joinPositions);
+        return joinPositions;
+    }
+
+    private static PagesIndex createPagesIndex(int positionCount, int distinctKeys)
+    {
+        PagesIndex index = new PagesIndex(TYPES, positionCount);
+        List<Long> keys = new ArrayList<>();
+        for (int position = 0; position < positionCount; position++) {
+            keys.add(position % 97 == 0 ? null : (long) (position % distinctKeys));
+            if (keys.size() == 1024) {
+                index.addPage(new Page(createLongsBlock(keys)));
+                keys.clear();
+            }
+        }
+        index.addPage(new Page(createLongsBlock(keys)));
+        return index;
+    }
+}
@@ -23,26 +23,38 @@ import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.FixedPageSource;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.RecordPageSource;
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.predicate.ValueSet;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.split.PageSourceProvider;
+import com.facebook.presto.sql.planner.TestingColumnHandle;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.facebook.presto.testing.MaterializedResult;
 import com.facebook.presto.testing.TestingSplit;
 import com.facebook.presto.testing.TestingTransactionHandle;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import org.testng.annotations.Test;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
 
+import static com.facebook.presto.RowPagesBuilder.rowPagesBuilder;
 import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
 import static com.facebook.presto.operator.OperatorAssertion.toMaterializedResult;
 import static com.facebook.presto.operator.ProjectionFunctions.singleColumn;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.facebook.presto.testing.MaterializedResult.resultBuilder;
 import static com.facebook.presto.testing.TestingTaskContext.createTaskContext;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 
 public class TestScanFilterAndProjectOperator
@@ -122,6 +134,150 @@ public class TestScanFilterAndProjectOperator
         assertEquals(actual, expected);
     }
 
+    @Test
+    public void testPageSourceWithDynamicFilter()
+            throws Exception
+    {
+        Page input = SequencePageBuilder.createSequencePage(ImmutableList.of(BIGINT), 100, 0);
+        DriverContext driverContext = newDriverContext();
+
+        ColumnHandle column = new TestingColumnHandle("column");
+        DynamicFilter dynamicFilter = new DynamicFilter(ImmutableMap.of(0, column));
+        dynamicFilter.setPartitionCount(1);
+
+        AtomicReference<TupleDomain<ColumnHandle>> pageSourceFilter = new AtomicReference<>();
+        ScanFilterAndProjectOperator.ScanFilterAndProjectOperatorFactory factory = new ScanFilterAndProjectOperator.ScanFilterAndProjectOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                new PlanNodeId("0"),
+                new PageSourceProvider() {
+                    @Override
+                    public ConnectorPageSource createPageSource(Session session, Split split, List<ColumnHandle> columns)
+                    {
+                        throw new UnsupportedOperationException();
+                    }
+
+                    @Override
+                    public ConnectorPageSource createPageSource(Session session, Split split, List<ColumnHandle> columns, TupleDomain<ColumnHandle> dynamicFilter)
+                    {
+                        pageSourceFilter.set(dynamicFilter);
+                        return new FixedPageSource(ImmutableList.of(input));
+                    }
+                },
+                () -> new GenericCursorProcessor(FilterFunctions.TRUE_FUNCTION, ImmutableList.of(singleColumn(BIGINT, 0))),
+                () -> new GenericPageProcessor(FilterFunctions.TRUE_FUNCTION, ImmutableList.of(singleColumn(BIGINT, 0))),
+                ImmutableList.of(column),
+                ImmutableList.<Type>of(BIGINT),
+                Optional.of(dynamicFilter));
+
+        SourceOperator operator = factory.createOperator(driverContext);
+        operator.addSplit(new Split(new ConnectorId("test"), TestingTransactionHandle.create(), TestingSplit.createLocalSplit()));
+        operator.noMoreSplits();
+
+        // the scan waits for the build side keys
+        assertFalse(operator.isBlocked().isDone());
+        assertNull(operator.getOutput());
+
+        DynamicFilterCollector collector = dynamicFilter.createCollector(ImmutableList.of(BIGINT), ImmutableList.of(0));
+        collector.addPage(rowPagesBuilder(BIGINT).row(3L).row(5L).row(1_000L).row((Object) null).build().get(0));
+        collector.publish();
+        assertTrue(operator.isBlocked().isDone());
+
+        MaterializedResult expected = resultBuilder(driverContext.getSession(), BIGINT)
+                .row(3L)
+                .row(5L)
+                .build();
+        MaterializedResult actual = toMaterializedResult(driverContext.getSession(), ImmutableList.<Type>of(BIGINT), toPages(operator));
+        assertEquals(actual, expected);
+        assertEquals(pageSourceFilter.get(), TupleDomain.withColumnDomains(ImmutableMap.of(column, Domain.create(ValueSet.of(BIGINT, 3L, 5L, 1_000L), false))));
+    }
+
+    @Test
+    public void testRecordCursorSourceWithDynamicFilter()
+            throws Exception
+    {
+        Page input = SequencePageBuilder.createSequencePage(ImmutableList.of(BIGINT), 100, 0);
+        DriverContext driverContext = newDriverContext();
+
+        ColumnHandle column = new TestingColumnHandle("column");
+        DynamicFilter dynamicFilter = new DynamicFilter(ImmutableMap.of(0, column));
+        dynamicFilter.setPartitionCount(1);
+
+        // the cursor ignores the dynamic filter, so the engine has to filter its rows
+        ScanFilterAndProjectOperator.ScanFilterAndProjectOperatorFactory factory = new ScanFilterAndProjectOperator.ScanFilterAndProjectOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                new PlanNodeId("0"),
+                new PageSourceProvider() {
+                    @Override
+                    public ConnectorPageSource createPageSource(Session session, Split split, List<ColumnHandle> columns)
+                    {
+                        return new RecordPageSource(new PageRecordSet(ImmutableList.<Type>of(BIGINT), input));
+                    }
+                },
+                () -> new GenericCursorProcessor(FilterFunctions.TRUE_FUNCTION, ImmutableList.of(singleColumn(BIGINT, 0))),
+                () -> new GenericPageProcessor(FilterFunctions.TRUE_FUNCTION, ImmutableList.of(singleColumn(BIGINT, 0))),
+                ImmutableList.of(column),
+                ImmutableList.<Type>of(BIGINT),
+                Optional.of(dynamicFilter));
+
+        SourceOperator operator = factory.createOperator(driverContext);
+        operator.addSplit(new Split(new ConnectorId("test"), TestingTransactionHandle.create(), TestingSplit.createLocalSplit()));
+        operator.noMoreSplits();
+
+        DynamicFilterCollector collector = dynamicFilter.createCollector(ImmutableList.of(BIGINT), ImmutableList.of(0));
+        collector.addPage(rowPagesBuilder(BIGINT).row(3L).row(5L).row(1_000L).build().get(0));
+        collector.publish();
+
+        MaterializedResult expected = resultBuilder(driverContext.getSession(), BIGINT)
+                .row(3L)
+                .row(5L)
+                .build();
+        MaterializedResult actual = toMaterializedResult(driverContext.getSession(), ImmutableList.<Type>of(BIGINT), toPages(operator));
+        assertEquals(actual, expected);
+    }
+
+    @Test
+    public void testEmptyDynamicFilter()
+            throws Exception
+    {
+        DriverContext driverContext = newDriverContext();
+
+        ColumnHandle column = new TestingColumnHandle("column");
+        DynamicFilter dynamicFilter = new DynamicFilter(ImmutableMap.of(0, column));
+        dynamicFilter.setPartitionCount(2);
+
+        ScanFilterAndProjectOperator.ScanFilterAndProjectOperatorFactory factory = new ScanFilterAndProjectOperator.ScanFilterAndProjectOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                new PlanNodeId("0"),
+                new PageSourceProvider() {
+                    @Override
+                    public ConnectorPageSource createPageSource(Session session, Split split, List<ColumnHandle> columns)
+                    {
+                        throw new UnsupportedOperationException();
+                    }
+                },
+                () -> new GenericCursorProcessor(FilterFunctions.TRUE_FUNCTION, ImmutableList.of(singleColumn(BIGINT, 0))),
+                () -> new GenericPageProcessor(FilterFunctions.TRUE_FUNCTION, ImmutableList.of(singleColumn(BIGINT, 0))),
+                ImmutableList.of(column),
+                ImmutableList.<Type>of(BIGINT),
+                Optional.of(dynamicFilter));
+
+        SourceOperator operator = factory.createOperator(driverContext);
+        operator.addSplit(new Split(new ConnectorId("test"), TestingTransactionHandle.create(), TestingSplit.createLocalSplit()));
+        operator.noMoreSplits();
+
+        // the filter is complete once both build partitions reported their keys
+        dynamicFilter.createCollector(ImmutableList.of(BIGINT), ImmutableList.of(0)).publish();
+        assertFalse(operator.isBlocked().isDone());
+        dynamicFilter.createCollector(ImmutableList.of(BIGINT), ImmutableList.of(0)).publish();
+        assertTrue(operator.isBlocked().isDone());
+
+        // the build side is empty, so the split is never read
+        assertTrue(toPages(operator).isEmpty());
+    }
+
     public static List<Page> toPages(Operator operator)
     {
         ImmutableList.Builder<Page> outputPages = ImmutableList.builder();
@@ -508,6 +508,84 @@ public class TestWindowOperator
         assertOperatorEqualsIgnoreOrder(operatorFactory, driverContext, input, expected);
     }
 
+    @Test
+    public void testRowNumberPartitionWithSpill()
+            throws Exception
+    {
+        List<Page> input = rowPagesBuilder(VARCHAR, BIGINT, DOUBLE, BOOLEAN)
+                .row("b", -1L, -0.1, true)
+                .row("a", 2L, 0.3, false)
+                .row("a", 4L, 0.2, true)
+                .pageBreak()
+                .row("b", 5L, 0.4, false)
+                .row("a", 6L, 0.1, true)
+                .build();
+
+        WindowOperatorFactory operatorFactory = createFactoryUnbounded(
+                ImmutableList.of(VARCHAR, BIGINT, DOUBLE, BOOLEAN),
+                Ints.asList(0, 1, 2, 3),
+                ROW_NUMBER,
+                Ints.asList(0),
+                ImmutableList.of(),
+                Ints.asList(1),
+                ImmutableList.copyOf(new SortOrder[] {SortOrder.ASC_NULLS_LAST}),
+                0,
+                true);
+
+        MaterializedResult expected = resultBuilder(driverContext.getSession(), VARCHAR, BIGINT, DOUBLE, BOOLEAN, BIGINT)
+                .row("a", 2L, 0.3, false, 1L)
+                .row("a", 4L, 0.2, true, 2L)
+                .row("a", 6L, 0.1, true, 3L)
+                .row("b", -1L, -0.1, true, 1L)
+                .row("b", 5L, 0.4, false, 2L)
+                .build();
+
+        assertOperatorEquals(operatorFactory, driverContext, input, expected);
+    }
+
+    @Test
+    public void testPartiallyPreGroupedPartitionWithSpill()
+            throws Exception
+    {
+        List<Page> input = rowPagesBuilder(BIGINT, VARCHAR, BIGINT)
+                .row(1L, "b", 2L)
+                .row(1L, "a", 3L)
+                .row(1L, "b", 1L)
+                .pageBreak()
+                .row(1L, "a", 1L)
+                .row(2L, "b", 5L)
+                .pageBreak()
+                .row(2L, "a", 4L)
+                .row(2L, "b", 3L)
+                .pageBreak()
+                .row(3L, "a", 1L)
+                .build();
+
+        WindowOperatorFactory operatorFactory = createFactoryUnbounded(
+                ImmutableList.of(BIGINT, VARCHAR, BIGINT),
+                Ints.asList(0, 1, 2),
+                ROW_NUMBER,
+                Ints.asList(0, 1),
+                Ints.asList(0),
+                Ints.asList(2),
+                ImmutableList.of(SortOrder.ASC_NULLS_LAST),
+                0,
+                true);
+
+        MaterializedResult expected = resultBuilder(driverContext.getSession(), BIGINT, VARCHAR, BIGINT, BIGINT)
+                .row(1L, "a", 1L, 1L)
+                .row(1L, "a", 3L, 2L)
+                .row(1L, "b", 1L, 1L)
+                .row(1L, "b", 2L, 2L)
+                .row(2L, "a", 4L, 1L)
+                .row(2L, "b", 3L, 1L)
+                .row(2L, "b", 5L, 2L)
+                .row(3L, "a", 1L, 1L)
+                .build();
+
+        assertOperatorEquals(operatorFactory, driverContext, input, expected);
+    }
+
     @Test
     public void testFullyPreGroupedAndPartiallySortedPartition()
             throws Exception
@@ -623,6 +701,29 @@ public class TestWindowOperator
             List<Integer> sortChannels,
             List<SortOrder> sortOrder,
             int preSortedChannelPrefix)
+    {
+        return createFactoryUnbounded(
+                sourceTypes,
+                outputChannels,
+                functions,
+                partitionChannels,
+                preGroupedChannels,
+                sortChannels,
+                sortOrder,
+                preSortedChannelPrefix,
+                false);
+    }
+
+    private static WindowOperatorFactory createFactoryUnbounded(
+            List<? extends Type> sourceTypes,
+            List<Integer> outputChannels,
+            List<WindowFunctionDefinition> functions,
+            List<Integer> partitionChannels,
+            List<Integer> preGroupedChannels,
+            List<Integer> sortChannels,
+            List<SortOrder> sortOrder,
+            int preSortedChannelPrefix,
+            boolean spillEnabled)
     {
         return new WindowOperatorFactory(
                 0,
@@ -635,6 +736,9 @@ public class TestWindowOperator
                 sortChannels,
                 sortOrder,
                 preSortedChannelPrefix,
-                10);
+                10,
+                spillEnabled,
+                new DataSize(1, Unit.BYTE),
+                new DummySpillerFactory());
     }
 }
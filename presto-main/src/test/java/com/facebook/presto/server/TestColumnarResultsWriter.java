@@ -0,0 +1,152 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server;
+
+import com.facebook.presto.client.ClientTypeSignature;
+import com.facebook.presto.client.Column;
+import com.facebook.presto.client.ColumnarResults;
+import com.facebook.presto.client.QueryResults;
+import com.facebook.presto.client.StatementStats;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.type.SqlDecimal;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.type.ArrayType;
+import com.google.common.collect.ImmutableList;
+import io.airlift.json.JsonCodec;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.facebook.presto.RowPageBuilder.rowPageBuilder;
+import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DateType.DATE;
+import static com.facebook.presto.spi.type.DecimalType.createDecimalType;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.IntegerType.INTEGER;
+import static com.facebook.presto.spi.type.RealType.REAL;
+import static com.facebook.presto.spi.type.SmallintType.SMALLINT;
+import static com.facebook.presto.spi.type.TinyintType.TINYINT;
+import static com.facebook.presto.spi.type.VarbinaryType.VARBINARY;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.facebook.presto.util.ImmutableCollectors.toImmutableList;
+import static io.airlift.json.JsonCodec.jsonCodec;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class TestColumnarResultsWriter
+{
+    private static final JsonCodec<QueryResults> CODEC = jsonCodec(QueryResults.class);
+
+    @Test
+    public void testMatchesJsonResults()
+            throws Exception
+    {
+        List<Type> types = ImmutableList.of(BIGINT, INTEGER, SMALLINT, TINYINT, DOUBLE, REAL, BOOLEAN, VARCHAR, createDecimalType(10, 2), DATE, new ArrayType(BIGINT));
+        Page page = rowPageBuilder(types)
+                .row(1L, 2L, 3L, 4L, 5.5, 6.5f, true, "abc", new SqlDecimal(BigInteger.valueOf(12345), 10, 2), 10L, ImmutableList.of(1L, 2L))
+                .row(null, null, null, null, null, null, null, null, null, null, null)
+                .row(-1L, -2L, -3L, -4L, -5.5, -6.5f, false, "", new SqlDecimal(BigInteger.valueOf(-1), 10, 2), -10L, ImmutableList.of())
+                .build();
+        QueryResults results = createResults(types, ImmutableList.of(page, page));
+
+        QueryResults expected = CODEC.fromJson(CODEC.toJson(results));
+        QueryResults actual = roundTrip(results);
+
+        assertEquals(actual.getId(), expected.getId());
+        assertEquals(actual.getNextUri(), expected.getNextUri());
+        assertEquals(actual.getColumns().size(), types.size());
+        assertEquals(ImmutableList.copyOf(actual.getData()), ImmutableList.copyOf(expected.getData()));
+    }
+
+    @Test
+    public void testVarbinary()
+            throws Exception
+    {
+        Page page = rowPageBuilder(VARBINARY)
+                .row("hello".getBytes(UTF_8))
+                .row((Object) null)
+                .build();
+
+        List<List<Object>> rows = ImmutableList.copyOf(roundTrip(createResults(ImmutableList.of(VARBINARY), ImmutableList.of(page))).getData());
+
+        assertEquals(rows.size(), 2);
+        assertTrue(Arrays.equals((byte[]) rows.get(0).get(0), "hello".getBytes(UTF_8)));
+        assertNull(rows.get(1).get(0));
+    }
+
+    @Test
+    public void testNoData()
+            throws Exception
+    {
+        QueryResults results = new QueryResults(
+                "query",
+                URI.create("http://localhost/query.html?query"),
+                null,
+                URI.create("http://localhost/v1/statement/query/1"),
+                null,
+                (Iterable<List<Object>>) null,
+                createStats(),
+                null,
+                null,
+                null);
+
+        QueryResults actual = roundTrip(results);
+
+        assertEquals(actual.getId(), "query");
+        assertNull(actual.getColumns());
+        assertNull(actual.getData());
+    }
+
+    private static QueryResults roundTrip(QueryResults results)
+            throws IOException
+    {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ColumnarResultsWriter.writeQueryResults(CODEC, results, output);
+        return ColumnarResults.readQueryResults(CODEC, new ByteArrayInputStream(output.toByteArray()));
+    }
+
+    private static QueryResults createResults(List<Type> types, List<Page> pages)
+    {
+        List<Column> columns = types.stream()
+                .map(type -> new Column("column", type.getTypeSignature().toString(), new ClientTypeSignature(type.getTypeSignature())))
+                .collect(toImmutableList());
+
+        return new QueryResults(
+                "query",
+                URI.create("http://localhost/query.html?query"),
+                null,
+                null,
+                columns,
+                new ResultPages(TEST_SESSION.toConnectorSession(), types, pages),
+                createStats(),
+                null,
+                null,
+                null);
+    }
+
+    private static StatementStats createStats()
+    {
+        return new StatementStats("FINISHED", false, true, 1, 1, 0, 0, 1, 0, 0, 0, 1, 1, null);
+    }
+}
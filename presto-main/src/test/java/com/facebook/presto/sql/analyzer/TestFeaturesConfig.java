@@ -41,6 +41,7 @@ public class TestFeaturesConfig
                 .setColocatedJoinsEnabled(false)
                 .setRedistributeWrites(true)
                 .setOptimizeMetadataQueries(false)
+                .setOptimizeMetadataQueriesUsingStatistics(false)
                 .setOptimizeHashGeneration(true)
                 .setOptimizeSingleDistinct(true)
                 .setPushTableWriteThroughUnion(true)
@@ -54,7 +55,20 @@ public class TestFeaturesConfig
                 .setOperatorMemoryLimitBeforeSpill(DataSize.valueOf("4MB"))
                 .setSpillerSpillPath(Paths.get(System.getProperty("java.io.tmpdir"), "presto", "spills").toString())
                 .setSpillerThreads(4)
-                .setOptimizeMixedDistinctAggregations(false));
+                .setMemoryRevokingThreshold(0.9)
+                .setMemoryRevokingTarget(0.5)
+                .setOptimizeMixedDistinctAggregations(false)
+                .setDynamicFilteringEnabled(false)
+                .setJoinReorderingEnabled(false)
+                .setCostBasedJoinDistributionEnabled(false)
+                .setJoinMaxBroadcastTableSize(DataSize.valueOf("100MB"))
+                .setGroupedExecutionEnabled(false)
+                .setConcurrentBucketsPerNode(1)
+                .setAdaptivePartialAggregationEnabled(false)
+                .setAdaptivePartialAggregationMinRows(100_000)
+                .setAdaptivePartialAggregationUniqueRowsRatioThreshold(0.8)
+                .setHashBuildConcurrency(1)
+                .setHashBuildThreads(4));
     }
 
     @Test
@@ -68,6 +82,7 @@ public class TestFeaturesConfig
                 .put("colocated-joins-enabled", "true")
                 .put("redistribute-writes", "false")
                 .put("optimizer.optimize-metadata-queries", "true")
+                .put("optimizer.optimize-metadata-queries-using-statistics", "true")
                 .put("optimizer.optimize-hash-generation", "false")
                 .put("optimizer.optimize-single-distinct", "false")
                 .put("optimizer.optimize-mixed-distinct-aggregations", "true")
@@ -81,6 +96,19 @@ public class TestFeaturesConfig
                 .put("experimental.operator-memory-limit-before-spill", "100MB")
                 .put("experimental.spiller-spill-path", "/tmp/custom/spill/path")
                 .put("experimental.spiller-threads", "42")
+                .put("experimental.memory-revoking-threshold", "0.2")
+                .put("experimental.memory-revoking-target", "0.8")
+                .put("experimental.dynamic-filtering-enabled", "true")
+                .put("optimizer.join-reordering-enabled", "true")
+                .put("optimizer.cost-based-join-distribution-enabled", "true")
+                .put("optimizer.join-max-broadcast-table-size", "42MB")
+                .put("experimental.grouped-execution-enabled", "true")
+                .put("experimental.concurrent-buckets-per-node", "3")
+                .put("experimental.adaptive-partial-aggregation-enabled", "true")
+                .put("experimental.adaptive-partial-aggregation-min-rows", "1000")
+                .put("experimental.adaptive-partial-aggregation-unique-rows-ratio-threshold", "0.5")
+                .put("experimental.hash-build-concurrency", "4")
+                .put("experimental.hash-build-threads", "8")
                 .build();
         Map<String, String> properties = new ImmutableMap.Builder<String, String>()
                 .put("experimental.resource-groups-enabled", "true")
@@ -90,6 +118,7 @@ public class TestFeaturesConfig
                 .put("colocated-joins-enabled", "true")
                 .put("redistribute-writes", "false")
                 .put("optimizer.optimize-metadata-queries", "true")
+                .put("optimizer.optimize-metadata-queries-using-statistics", "true")
                 .put("optimizer.optimize-hash-generation", "false")
                 .put("optimizer.optimize-single-distinct", "false")
                 .put("optimizer.optimize-mixed-distinct-aggregations", "true")
@@ -103,6 +132,19 @@ public class TestFeaturesConfig
                 .put("experimental.operator-memory-limit-before-spill", "100MB")
                 .put("experimental.spiller-spill-path", "/tmp/custom/spill/path")
                 .put("experimental.spiller-threads", "42")
+                .put("experimental.memory-revoking-threshold", "0.2")
+                .put("experimental.memory-revoking-target", "0.8")
+                .put("experimental.dynamic-filtering-enabled", "true")
+                .put("optimizer.join-reordering-enabled", "true")
+                .put("optimizer.cost-based-join-distribution-enabled", "true")
+                .put("optimizer.join-max-broadcast-table-size", "42MB")
+                .put("experimental.grouped-execution-enabled", "true")
+                .put("experimental.concurrent-buckets-per-node", "3")
+                .put("experimental.adaptive-partial-aggregation-enabled", "true")
+                .put("experimental.adaptive-partial-aggregation-min-rows", "1000")
+                .put("experimental.adaptive-partial-aggregation-unique-rows-ratio-threshold", "0.5")
+                .put("experimental.hash-build-concurrency", "4")
+                .put("experimental.hash-build-threads", "8")
                 .build();
 
         FeaturesConfig expected = new FeaturesConfig()
@@ -112,6 +154,7 @@ public class TestFeaturesConfig
                 .setColocatedJoinsEnabled(true)
                 .setRedistributeWrites(false)
                 .setOptimizeMetadataQueries(true)
+                .setOptimizeMetadataQueriesUsingStatistics(true)
                 .setOptimizeHashGeneration(false)
                 .setOptimizeSingleDistinct(false)
                 .setOptimizeMixedDistinctAggregations(true)
@@ -125,7 +168,20 @@ public class TestFeaturesConfig
                 .setSpillEnabled(true)
                 .setOperatorMemoryLimitBeforeSpill(DataSize.valueOf("100MB"))
                 .setSpillerSpillPath("/tmp/custom/spill/path")
-                .setSpillerThreads(42);
+                .setSpillerThreads(42)
+                .setMemoryRevokingThreshold(0.2)
+                .setMemoryRevokingTarget(0.8)
+                .setDynamicFilteringEnabled(true)
+                .setJoinReorderingEnabled(true)
+                .setCostBasedJoinDistributionEnabled(true)
+                .setJoinMaxBroadcastTableSize(DataSize.valueOf("42MB"))
+                .setGroupedExecutionEnabled(true)
+                .setConcurrentBucketsPerNode(3)
+                .setAdaptivePartialAggregationEnabled(true)
+                .setAdaptivePartialAggregationMinRows(1000)
+                .setAdaptivePartialAggregationUniqueRowsRatioThreshold(0.5)
+                .setHashBuildConcurrency(4)
+                .setHashBuildThreads(8);
 
         assertFullMapping(properties, expected);
         assertDeprecatedEquivalence(FeaturesConfig.class, properties, propertiesLegacy);
@@ -0,0 +1,132 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.optimizations;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.metadata.MetadataManager;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.planner.PlanNodeIdAllocator;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.SymbolAllocator;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.JoinNode.EquiJoinClause;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.ProjectNode;
+import com.facebook.presto.sql.planner.plan.ValuesNode;
+import com.facebook.presto.sql.tree.Expression;
+import com.facebook.presto.sql.tree.LongLiteral;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.facebook.presto.SystemSessionProperties.COST_BASED_JOIN_DISTRIBUTION;
+import static com.facebook.presto.SystemSessionProperties.JOIN_MAX_BROADCAST_TABLE_SIZE;
+import static com.facebook.presto.SystemSessionProperties.REORDER_JOINS;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.sql.planner.plan.JoinNode.DistributionType.PARTITIONED;
+import static com.facebook.presto.sql.planner.plan.JoinNode.DistributionType.REPLICATED;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.INNER;
+import static com.facebook.presto.testing.TestingSession.testSessionBuilder;
+import static java.util.Collections.nCopies;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class TestCostBasedJoinOptimizer
+{
+    private static final MetadataManager METADATA = MetadataManager.createTestMetadataManager();
+
+    private final PlanNodeIdAllocator idAllocator = new PlanNodeIdAllocator();
+
+    @Test
+    public void testReorderJoins()
+    {
+        ValuesNode small = values("a", 1);
+        ValuesNode large = values("b", 5);
+        ValuesNode medium = values("c", 3);
+        JoinNode plan = join(join(small, large, "a", "b"), medium, "b", "c");
+
+        Session session = testSessionBuilder()
+                .setSystemProperty(REORDER_JOINS, "true")
+                .build();
+        PlanNode result = optimize(plan, session);
+
+        // the largest input is the probe side of the bottom join
+        assertTrue(result instanceof ProjectNode);
+        assertEquals(result.getOutputSymbols(), plan.getOutputSymbols());
+        JoinNode top = (JoinNode) ((ProjectNode) result).getSource();
+        JoinNode bottom = (JoinNode) top.getLeft();
+        assertSame(bottom.getLeft(), large);
+        assertSame(bottom.getRight(), small);
+        assertSame(top.getRight(), medium);
+        assertEquals(bottom.getCriteria(), ImmutableList.of(new EquiJoinClause(new Symbol("b"), new Symbol("a"))));
+        assertEquals(top.getCriteria(), ImmutableList.of(new EquiJoinClause(new Symbol("b"), new Symbol("c"))));
+        assertFalse(bottom.getDistributionType().isPresent());
+    }
+
+    @Test
+    public void testJoinDistribution()
+    {
+        JoinNode plan = join(values("a", 10), values("b", 2), "a", "b");
+
+        Session session = testSessionBuilder()
+                .setSystemProperty(COST_BASED_JOIN_DISTRIBUTION, "true")
+                .build();
+        assertEquals(((JoinNode) optimize(plan, session)).getDistributionType(), Optional.of(REPLICATED));
+
+        session = testSessionBuilder()
+                .setSystemProperty(COST_BASED_JOIN_DISTRIBUTION, "true")
+                .setSystemProperty(JOIN_MAX_BROADCAST_TABLE_SIZE, "8B")
+                .build();
+        assertEquals(((JoinNode) optimize(plan, session)).getDistributionType(), Optional.of(PARTITIONED));
+    }
+
+    @Test
+    public void testDisabled()
+    {
+        JoinNode plan = join(values("a", 1), values("b", 5), "a", "b");
+        assertSame(optimize(plan, testSessionBuilder().build()), plan);
+    }
+
+    private PlanNode optimize(PlanNode plan, Session session)
+    {
+        Map<Symbol, Type> types = ImmutableMap.of(new Symbol("a"), BIGINT, new Symbol("b"), BIGINT, new Symbol("c"), BIGINT);
+        return new CostBasedJoinOptimizer(METADATA).optimize(plan, session, types, new SymbolAllocator(), idAllocator);
+    }
+
+    private ValuesNode values(String symbol, int rows)
+    {
+        List<Expression> row = ImmutableList.of(new LongLiteral("1"));
+        return new ValuesNode(idAllocator.getNextId(), ImmutableList.of(new Symbol(symbol)), nCopies(rows, row));
+    }
+
+    private JoinNode join(PlanNode left, PlanNode right, String leftSymbol, String rightSymbol)
+    {
+        return new JoinNode(
+                idAllocator.getNextId(),
+                INNER,
+                left,
+                right,
+                ImmutableList.of(new EquiJoinClause(new Symbol(leftSymbol), new Symbol(rightSymbol))),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty());
+    }
+}
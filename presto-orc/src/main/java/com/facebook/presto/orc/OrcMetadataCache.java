@@ -0,0 +1,56 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc;
+
+import com.facebook.presto.orc.metadata.StripeFooter;
+import com.facebook.presto.orc.metadata.StripeInformation;
+
+import java.io.IOException;
+
+/**
+ * Source of the parsed metadata of a single ORC file. Implementations may share
+ * the metadata between all readers of the same version of the file, so the
+ * returned objects must not be modified.
+ */
+public interface OrcMetadataCache
+{
+    OrcMetadataCache NO_CACHE = new OrcMetadataCache()
+    {
+        @Override
+        public OrcFileTail getFileTail(MetadataLoader<OrcFileTail> loader)
+                throws IOException
+        {
+            return loader.load();
+        }
+
+        @Override
+        public StripeFooter getStripeFooter(StripeInformation stripe, MetadataLoader<StripeFooter> loader)
+                throws IOException
+        {
+            return loader.load();
+        }
+    };
+
+    OrcFileTail getFileTail(MetadataLoader<OrcFileTail> loader)
+            throws IOException;
+
+    StripeFooter getStripeFooter(StripeInformation stripe, MetadataLoader<StripeFooter> loader)
+            throws IOException;
+
+    interface MetadataLoader<T>
+    {
+        T load()
+                throws IOException;
+    }
+}
@@ -34,6 +34,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executor;
 
 import static io.airlift.slice.SizeOf.SIZE_OF_BYTE;
 import static java.lang.Math.min;
@@ -54,21 +56,39 @@ public class OrcReader
     private final MetadataReader metadataReader;
     private final DataSize maxMergeDistance;
     private final DataSize maxReadSize;
+    private final OrcMetadataCache metadataCache;
     private final CompressionKind compressionKind;
     private final int bufferSize;
     private final Footer footer;
     private final Metadata metadata;
 
-    // This is based on the Apache Hive ORC code
     public OrcReader(OrcDataSource orcDataSource, MetadataReader metadataReader, DataSize maxMergeDistance, DataSize maxReadSize)
             throws IOException
+    {
+        this(orcDataSource, metadataReader, maxMergeDistance, maxReadSize, OrcMetadataCache.NO_CACHE);
+    }
+
+    public OrcReader(OrcDataSource orcDataSource, MetadataReader metadataReader, DataSize maxMergeDistance, DataSize maxReadSize, OrcMetadataCache metadataCache)
+            throws IOException
     {
         orcDataSource = wrapWithCacheIfTiny(requireNonNull(orcDataSource, "orcDataSource is null"), maxMergeDistance);
         this.orcDataSource = orcDataSource;
         this.metadataReader = requireNonNull(metadataReader, "metadataReader is null");
         this.maxMergeDistance = requireNonNull(maxMergeDistance, "maxMergeDistance is null");
         this.maxReadSize = requireNonNull(maxReadSize, "maxReadSize is null");
+        this.metadataCache = requireNonNull(metadataCache, "metadataCache is null");
+
+        OrcFileTail fileTail = metadataCache.getFileTail(() -> readFileTail(this.orcDataSource, metadataReader));
+        this.compressionKind = fileTail.getCompressionKind();
+        this.bufferSize = fileTail.getBufferSize();
+        this.footer = fileTail.getFooter();
+        this.metadata = fileTail.getMetadata();
+    }
 
+    // This is based on the Apache Hive ORC code
+    private static OrcFileTail readFileTail(OrcDataSource orcDataSource, MetadataReader metadataReader)
+            throws IOException
+    {
         //
         // Read the file tail:
         //
@@ -102,9 +122,9 @@ public class OrcReader
         checkOrcVersion(orcDataSource, postScript.getVersion());
 
         // check compression codec is supported
-        this.compressionKind = postScript.getCompression();
+        CompressionKind compressionKind = postScript.getCompression();
 
-        this.bufferSize = Ints.checkedCast(postScript.getCompressionBlockSize());
+        int bufferSize = Ints.checkedCast(postScript.getCompressionBlockSize());
 
         int footerSize = Ints.checkedCast(postScript.getFooterLength());
         int metadataSize = Ints.checkedCast(postScript.getMetadataLength());
@@ -129,16 +149,20 @@ public class OrcReader
         }
 
         // read metadata
+        Metadata metadata;
         Slice metadataSlice = completeFooterSlice.slice(0, metadataSize);
         try (InputStream metadataInputStream = new OrcInputStream(orcDataSource.toString(), metadataSlice.getInput(), compressionKind, bufferSize, new AggregatedMemoryContext())) {
-            this.metadata = metadataReader.readMetadata(metadataInputStream);
+            metadata = metadataReader.readMetadata(metadataInputStream);
         }
 
         // read footer
+        Footer footer;
         Slice footerSlice = completeFooterSlice.slice(metadataSize, footerSize);
         try (InputStream footerInputStream = new OrcInputStream(orcDataSource.toString(), footerSlice.getInput(), compressionKind, bufferSize, new AggregatedMemoryContext())) {
-            this.footer = metadataReader.readFooter(footerInputStream);
+            footer = metadataReader.readFooter(footerInputStream);
         }
+
+        return new OrcFileTail(compressionKind, bufferSize, footer, metadata, completeFooterSize);
     }
 
     public List<String> getColumnNames()
@@ -180,6 +204,22 @@ public class OrcReader
             DateTimeZone hiveStorageTimeZone,
             AbstractAggregatedMemoryContext systemMemoryUsage)
             throws IOException
+    {
+        return createRecordReader(includedColumns, predicate, offset, length, hiveStorageTimeZone, systemMemoryUsage, Optional.empty());
+    }
+
+    /**
+     * Creates a reader which reads the next stripe on the prefetch executor while the current stripe is decoded.
+     */
+    public OrcRecordReader createRecordReader(
+            Map<Integer, Type> includedColumns,
+            OrcPredicate predicate,
+            long offset,
+            long length,
+            DateTimeZone hiveStorageTimeZone,
+            AbstractAggregatedMemoryContext systemMemoryUsage,
+            Optional<Executor> stripePrefetchExecutor)
+            throws IOException
     {
         return new OrcRecordReader(
                 requireNonNull(includedColumns, "includedColumns is null"),
@@ -200,7 +240,9 @@ public class OrcReader
                 maxMergeDistance,
                 maxReadSize,
                 footer.getUserMetadata(),
-                systemMemoryUsage);
+                metadataCache,
+                systemMemoryUsage,
+                requireNonNull(stripePrefetchExecutor, "stripePrefetchExecutor is null"));
     }
 
     private static OrcDataSource wrapWithCacheIfTiny(OrcDataSource dataSource, DataSize maxCacheSize)
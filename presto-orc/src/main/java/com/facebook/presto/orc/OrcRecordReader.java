@@ -15,6 +15,7 @@ package com.facebook.presto.orc;
 
 import com.facebook.presto.orc.memory.AbstractAggregatedMemoryContext;
 import com.facebook.presto.orc.memory.AggregatedMemoryContext;
+import com.facebook.presto.orc.memory.LocalMemoryContext;
 import com.facebook.presto.orc.metadata.ColumnEncoding;
 import com.facebook.presto.orc.metadata.ColumnStatistics;
 import com.facebook.presto.orc.metadata.CompressionKind;
@@ -40,6 +41,8 @@ import io.airlift.units.DataSize;
 import org.joda.time.DateTimeZone;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
@@ -47,16 +50,23 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 import static com.facebook.presto.orc.OrcDataSourceUtils.mergeAdjacentDiskRanges;
 import static com.facebook.presto.orc.OrcRecordReader.LinearProbeRangeFinder.createTinyStripesRangeFinder;
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.base.Throwables.propagateIfPossible;
 import static java.util.Comparator.comparingLong;
 import static java.util.Objects.requireNonNull;
 
 public class OrcRecordReader
 {
+    private static final CompletableFuture<?> NOT_BLOCKED = CompletableFuture.completedFuture(null);
+
     private final OrcDataSource orcDataSource;
 
     private final StreamReader[] streamReaders;
@@ -85,6 +95,15 @@ public class OrcRecordReader
 
     private final AbstractAggregatedMemoryContext systemMemoryUsage;
 
+    // the regions of the next stripe are read on the prefetch executor while the current stripe is decoded
+    private final Optional<Executor> stripePrefetchExecutor;
+    private final PrefetchingOrcDataSource prefetchingDataSource;
+    private final StripeReader prefetchStripeReader;
+    private final LocalMemoryContext prefetchMemoryContext;
+    private CompletableFuture<Map<DiskRange, byte[]>> prefetchFuture;
+    private int prefetchStripe = -1;
+    private boolean closed;
+
     public OrcRecordReader(
             Map<Integer, Type> includedColumns,
             OrcPredicate predicate,
@@ -104,7 +123,9 @@ public class OrcRecordReader
             DataSize maxMergeDistance,
             DataSize maxReadSize,
             Map<String, Slice> userMetadata,
-            AbstractAggregatedMemoryContext systemMemoryUsage)
+            OrcMetadataCache metadataCache,
+            AbstractAggregatedMemoryContext systemMemoryUsage,
+            Optional<Executor> stripePrefetchExecutor)
             throws IOException
     {
         requireNonNull(includedColumns, "includedColumns is null");
@@ -116,6 +137,7 @@ public class OrcRecordReader
         requireNonNull(compressionKind, "compressionKind is null");
         requireNonNull(hiveStorageTimeZone, "hiveStorageTimeZone is null");
         requireNonNull(userMetadata, "userMetadata is null");
+        requireNonNull(stripePrefetchExecutor, "stripePrefetchExecutor is null");
 
         // reduce the included columns to the set that is also present
         ImmutableSet.Builder<Integer> presentColumns = ImmutableSet.builder();
@@ -167,6 +189,28 @@ public class OrcRecordReader
         this.stripeFilePositions = stripeFilePositions.build();
 
         orcDataSource = wrapWithCacheIfTinyStripes(orcDataSource, this.stripes, maxMergeDistance, maxReadSize);
+
+        // tiny stripes are already read with a single request, so there is nothing to prefetch
+        if (stripePrefetchExecutor.isPresent() && !(orcDataSource instanceof CachingOrcDataSource)) {
+            this.stripePrefetchExecutor = stripePrefetchExecutor;
+            this.prefetchingDataSource = new PrefetchingOrcDataSource(orcDataSource, maxMergeDistance, maxReadSize);
+            this.prefetchStripeReader = new StripeReader(
+                    orcDataSource,
+                    compressionKind,
+                    types,
+                    bufferSize,
+                    this.presentColumns,
+                    rowsInRowGroup,
+                    predicate,
+                    metadataReader,
+                    metadataCache);
+            orcDataSource = prefetchingDataSource;
+        }
+        else {
+            this.stripePrefetchExecutor = Optional.empty();
+            this.prefetchingDataSource = null;
+            this.prefetchStripeReader = null;
+        }
         this.orcDataSource = orcDataSource;
         this.splitLength = splitLength;
 
@@ -179,6 +223,7 @@ public class OrcRecordReader
 
         this.systemMemoryUsage = requireNonNull(systemMemoryUsage, "systemMemoryUsage is null").newAggregatedMemoryContext();
         this.currentStripeSystemMemoryContext = systemMemoryUsage.newAggregatedMemoryContext();
+        this.prefetchMemoryContext = this.systemMemoryUsage.newLocalMemoryContext();
 
         stripeReader = new StripeReader(
                 orcDataSource,
@@ -188,7 +233,8 @@ public class OrcRecordReader
                 this.presentColumns,
                 rowsInRowGroup,
                 predicate,
-                metadataReader);
+                metadataReader,
+                metadataCache);
 
         streamReaders = createStreamReaders(orcDataSource, types, hiveStorageTimeZone, presentColumnsAndTypes.build());
     }
@@ -278,9 +324,39 @@ public class OrcRecordReader
     public void close()
             throws IOException
     {
+        closed = true;
+
+        // the prefetch may be reading from the data source, so wait for it before closing
+        if (prefetchFuture != null) {
+            try {
+                getPrefetchedRanges();
+            }
+            catch (IOException ignored) {
+            }
+            prefetchFuture = null;
+            prefetchMemoryContext.setBytes(0);
+        }
         orcDataSource.close();
     }
 
+    /**
+     * Returns a future which is not done while the next batch can not be read
+     * without waiting for the prefetch of the next stripe to finish.
+     */
+    public CompletableFuture<?> isBlocked()
+    {
+        if (!stripePrefetchExecutor.isPresent() || nextRowInGroup < currentGroupRowCount || rowGroups.hasNext()) {
+            return NOT_BLOCKED;
+        }
+        if (prefetchFuture == null) {
+            startStripePrefetch(currentStripe + 1);
+        }
+        if (prefetchFuture == null || prefetchFuture.isDone()) {
+            return NOT_BLOCKED;
+        }
+        return prefetchFuture.handle((ranges, throwable) -> null);
+    }
+
     public boolean isColumnPresent(int hiveColumnIndex)
     {
         return presentColumns.contains(hiveColumnIndex);
@@ -320,6 +396,16 @@ public class OrcRecordReader
         return streamReaders[columnIndex].readBlock(type);
     }
 
+    /**
+     * Reads only the rows of the current batch at the first {@code positionCount} entries
+     * of {@code positions}, which must be in increasing order.
+     */
+    public Block readBlock(Type type, int columnIndex, int[] positions, int positionCount)
+            throws IOException
+    {
+        return streamReaders[columnIndex].readBlock(type, positions, positionCount);
+    }
+
     public StreamReader getStreamReader(int index)
     {
         checkArgument(index < streamReaders.length, "index does not exist");
@@ -380,7 +466,26 @@ public class OrcRecordReader
 
         StripeInformation stripeInformation = stripes.get(currentStripe);
 
-        Stripe stripe = stripeReader.readStripe(stripeInformation, currentStripeSystemMemoryContext);
+        Stripe stripe;
+        if (stripePrefetchExecutor.isPresent()) {
+            if (prefetchFuture == null) {
+                startStripePrefetch(currentStripe);
+            }
+            checkState(prefetchStripe == currentStripe, "Prefetched stripe %s, but expected stripe %s", prefetchStripe, currentStripe);
+            prefetchingDataSource.setPrefetchedRanges(getPrefetchedRanges());
+            prefetchFuture = null;
+            prefetchMemoryContext.setBytes(0);
+            try {
+                stripe = stripeReader.readStripe(stripeInformation, currentStripeSystemMemoryContext);
+            }
+            finally {
+                prefetchingDataSource.clearPrefetchedRanges();
+            }
+            startStripePrefetch(currentStripe + 1);
+        }
+        else {
+            stripe = stripeReader.readStripe(stripeInformation, currentStripeSystemMemoryContext);
+        }
         if (stripe != null) {
             // Give readers access to dictionary streams
             StreamSources dictionaryStreamSources = stripe.getDictionaryStreamSources();
@@ -395,6 +500,47 @@ public class OrcRecordReader
         }
     }
 
+    private void startStripePrefetch(int stripeIndex)
+    {
+        if (closed || stripeIndex >= stripes.size()) {
+            return;
+        }
+        StripeInformation stripe = stripes.get(stripeIndex);
+
+        // reserve the whole stripe, as only the footer tells which part of it is read
+        prefetchMemoryContext.setBytes(stripe.getTotalLength());
+        prefetchStripe = stripeIndex;
+        prefetchFuture = CompletableFuture.supplyAsync(() -> {
+            try {
+                List<DiskRange> diskRanges = prefetchStripeReader.getStripeDiskRanges(stripe, new AggregatedMemoryContext());
+                return prefetchingDataSource.prefetch(diskRanges);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, stripePrefetchExecutor.get());
+    }
+
+    private Map<DiskRange, byte[]> getPrefetchedRanges()
+            throws IOException
+    {
+        try {
+            return prefetchFuture.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for stripe prefetch of " + orcDataSource);
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            propagateIfPossible(cause, IOException.class);
+            throw new IOException(cause);
+        }
+    }
+
     private static StreamReader[] createStreamReaders(OrcDataSource orcDataSource,
             List<OrcType> types,
             DateTimeZone hiveStorageTimeZone,
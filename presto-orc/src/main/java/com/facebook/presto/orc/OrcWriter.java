@@ -0,0 +1,367 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc;
+
+import com.facebook.presto.orc.metadata.ColumnEncoding;
+import com.facebook.presto.orc.metadata.ColumnStatistics;
+import com.facebook.presto.orc.metadata.CompressedMetadataWriter;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.Footer;
+import com.facebook.presto.orc.metadata.Metadata;
+import com.facebook.presto.orc.metadata.OrcMetadataWriter;
+import com.facebook.presto.orc.metadata.OrcType;
+import com.facebook.presto.orc.metadata.RowGroupIndex;
+import com.facebook.presto.orc.metadata.Stream;
+import com.facebook.presto.orc.metadata.StripeFooter;
+import com.facebook.presto.orc.metadata.StripeInformation;
+import com.facebook.presto.orc.metadata.StripeStatistics;
+import com.facebook.presto.orc.stream.StreamDataOutput;
+import com.facebook.presto.orc.writer.ColumnWriter;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.slice.OutputStreamSliceOutput;
+import io.airlift.slice.Slice;
+import io.airlift.slice.SliceOutput;
+import io.airlift.slice.Slices;
+import io.airlift.units.DataSize;
+import org.joda.time.DateTimeZone;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import static com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind.DIRECT;
+import static com.facebook.presto.orc.metadata.ColumnStatistics.mergeColumnStatistics;
+import static com.facebook.presto.orc.metadata.OrcType.OrcTypeKind.STRUCT;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.ROW_INDEX;
+import static com.facebook.presto.orc.writer.ColumnWriters.createColumnWriter;
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.lang.Math.min;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Writes pages to an ORC file. Every column is written directly from the blocks
+ * of the pages, without converting the values to Hive objects. The values of a
+ * stripe are buffered in memory until the stripe reaches its maximum size.
+ */
+public class OrcWriter
+        implements Closeable
+{
+    public static final DataSize DEFAULT_STRIPE_MAX_SIZE = new DataSize(64, MEGABYTE);
+    public static final int DEFAULT_STRIPE_MAX_ROW_COUNT = 10_000_000;
+    public static final int DEFAULT_ROW_GROUP_MAX_ROW_COUNT = 10_000;
+    public static final DataSize DEFAULT_DICTIONARY_MAX_MEMORY = new DataSize(16, MEGABYTE);
+
+    private static final Slice MAGIC = Slices.utf8Slice("ORC");
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private final SliceOutput output;
+    private final List<Type> types;
+    private final List<OrcType> orcTypes;
+    private final long stripeMaxBytes;
+    private final int stripeMaxRowCount;
+    private final int rowGroupMaxRowCount;
+    private final Map<String, Slice> userMetadata;
+    private final CompressedMetadataWriter metadataWriter;
+    private final List<ColumnWriter> columnWriters;
+
+    private final List<StripeInformation> closedStripes = new ArrayList<>();
+    private final List<StripeStatistics> closedStripeStatistics = new ArrayList<>();
+    // statistics of the root struct column, which are the row counts of the row groups
+    private final List<ColumnStatistics> rowGroupStatistics = new ArrayList<>();
+
+    private long fileLength;
+    private long fileRowCount;
+    private int stripeRowCount;
+    private int rowGroupRowCount;
+    private boolean closed;
+
+    /**
+     * @param orcTypes the flattened ORC type tree, starting with the root struct
+     * whose fields are the columns of the file
+     */
+    public OrcWriter(
+            OutputStream outputStream,
+            List<Type> types,
+            List<OrcType> orcTypes,
+            CompressionKind compression,
+            DataSize stripeMaxSize,
+            int stripeMaxRowCount,
+            int rowGroupMaxRowCount,
+            DataSize dictionaryMaxMemory,
+            Map<String, String> userMetadata,
+            DateTimeZone hiveStorageTimeZone)
+    {
+        requireNonNull(outputStream, "outputStream is null");
+        this.types = ImmutableList.copyOf(requireNonNull(types, "types is null"));
+        this.orcTypes = ImmutableList.copyOf(requireNonNull(orcTypes, "orcTypes is null"));
+        requireNonNull(compression, "compression is null");
+        this.stripeMaxBytes = requireNonNull(stripeMaxSize, "stripeMaxSize is null").toBytes();
+        checkArgument(stripeMaxRowCount > 0, "stripeMaxRowCount must be positive");
+        this.stripeMaxRowCount = stripeMaxRowCount;
+        checkArgument(rowGroupMaxRowCount > 0, "rowGroupMaxRowCount must be positive");
+        this.rowGroupMaxRowCount = rowGroupMaxRowCount;
+        requireNonNull(dictionaryMaxMemory, "dictionaryMaxMemory is null");
+        requireNonNull(hiveStorageTimeZone, "hiveStorageTimeZone is null");
+
+        ImmutableMap.Builder<String, Slice> metadata = ImmutableMap.builder();
+        for (Entry<String, String> entry : requireNonNull(userMetadata, "userMetadata is null").entrySet()) {
+            metadata.put(entry.getKey(), Slices.utf8Slice(entry.getValue()));
+        }
+        this.userMetadata = metadata.build();
+
+        this.metadataWriter = new CompressedMetadataWriter(new OrcMetadataWriter(), compression, BUFFER_SIZE);
+
+        OrcType rootType = this.orcTypes.get(0);
+        checkArgument(rootType.getOrcTypeKind() == STRUCT, "root ORC type must be a struct");
+        checkArgument(rootType.getFieldCount() == this.types.size(), "root ORC type does not match the number of columns");
+        ImmutableList.Builder<ColumnWriter> columnWriters = ImmutableList.builder();
+        for (int field = 0; field < this.types.size(); field++) {
+            columnWriters.add(createColumnWriter(
+                    rootType.getFieldTypeIndex(field),
+                    this.orcTypes,
+                    this.types.get(field),
+                    compression,
+                    BUFFER_SIZE,
+                    hiveStorageTimeZone,
+                    dictionaryMaxMemory.toBytes()));
+        }
+        this.columnWriters = columnWriters.build();
+
+        this.output = new OutputStreamSliceOutput(outputStream);
+        output.writeBytes(MAGIC);
+        fileLength = MAGIC.length();
+    }
+
+    /**
+     * Memory retained by the buffers of the writer.
+     */
+    public long getRetainedBytes()
+    {
+        long retainedBytes = 0;
+        for (ColumnWriter columnWriter : columnWriters) {
+            retainedBytes += columnWriter.getRetainedBytes();
+        }
+        return retainedBytes;
+    }
+
+    /**
+     * Number of bytes written to the output so far, not including the buffered stripe.
+     */
+    public long getWrittenBytes()
+    {
+        return fileLength;
+    }
+
+    public void write(Page page)
+            throws IOException
+    {
+        checkState(!closed, "Writer is closed");
+        checkArgument(page.getChannelCount() == types.size(), "page does not match the number of columns");
+
+        // split the page at the row group boundaries, as the row groups must have exactly the row group size
+        int offset = 0;
+        while (offset < page.getPositionCount()) {
+            int length = min(page.getPositionCount() - offset, min(rowGroupMaxRowCount - rowGroupRowCount, stripeMaxRowCount - stripeRowCount));
+            writeChunk(page.getRegion(offset, length));
+            offset += length;
+        }
+    }
+
+    private void writeChunk(Page chunk)
+            throws IOException
+    {
+        if (rowGroupRowCount == 0) {
+            columnWriters.forEach(ColumnWriter::beginRowGroup);
+        }
+
+        for (int channel = 0; channel < chunk.getChannelCount(); channel++) {
+            columnWriters.get(channel).writeBlock(chunk.getBlock(channel));
+        }
+        rowGroupRowCount += chunk.getPositionCount();
+        stripeRowCount += chunk.getPositionCount();
+
+        if (rowGroupRowCount == rowGroupMaxRowCount) {
+            finishRowGroup();
+        }
+
+        if (stripeRowCount == stripeMaxRowCount || getBufferedBytes() > stripeMaxBytes) {
+            flushStripe();
+        }
+    }
+
+    private long getBufferedBytes()
+    {
+        long bufferedBytes = 0;
+        for (ColumnWriter columnWriter : columnWriters) {
+            bufferedBytes += columnWriter.getBufferedBytes();
+        }
+        return bufferedBytes;
+    }
+
+    private void finishRowGroup()
+    {
+        // the statistics of the row groups are kept by the column writers
+        columnWriters.forEach(ColumnWriter::finishRowGroup);
+        rowGroupStatistics.add(new ColumnStatistics((long) rowGroupRowCount, null, null, null, null, null, null, null));
+        rowGroupRowCount = 0;
+    }
+
+    private void flushStripe()
+            throws IOException
+    {
+        if (rowGroupRowCount > 0) {
+            finishRowGroup();
+        }
+        if (stripeRowCount == 0) {
+            return;
+        }
+
+        columnWriters.forEach(ColumnWriter::close);
+
+        // index streams come first, followed by the data streams, and the stripe footer
+        List<StreamDataOutput> indexStreams = new ArrayList<>();
+        indexStreams.add(createRootRowIndexStream());
+        for (ColumnWriter columnWriter : columnWriters) {
+            indexStreams.addAll(columnWriter.getIndexStreams(metadataWriter));
+        }
+
+        List<StreamDataOutput> dataStreams = new ArrayList<>();
+        for (ColumnWriter columnWriter : columnWriters) {
+            dataStreams.addAll(columnWriter.getDataStreams());
+        }
+
+        Map<Integer, ColumnEncoding> columnEncodings = new HashMap<>();
+        columnEncodings.put(0, new ColumnEncoding(DIRECT, 0));
+        Map<Integer, ColumnStatistics> columnStatistics = new HashMap<>();
+        columnStatistics.put(0, mergeColumnStatistics(rowGroupStatistics));
+        for (ColumnWriter columnWriter : columnWriters) {
+            columnEncodings.putAll(columnWriter.getColumnEncodings());
+            columnStatistics.putAll(columnWriter.getColumnStripeStatistics());
+        }
+
+        ImmutableList.Builder<Stream> streams = ImmutableList.builder();
+        long indexLength = 0;
+        for (StreamDataOutput indexStream : indexStreams) {
+            streams.add(indexStream.getStream());
+            indexLength += indexStream.size();
+        }
+        long dataLength = 0;
+        for (StreamDataOutput dataStream : dataStreams) {
+            streams.add(dataStream.getStream());
+            dataLength += dataStream.size();
+        }
+
+        ImmutableList.Builder<ColumnEncoding> encodings = ImmutableList.builder();
+        ImmutableList.Builder<ColumnStatistics> statistics = ImmutableList.builder();
+        for (int column = 0; column < orcTypes.size(); column++) {
+            encodings.add(requireNonNull(columnEncodings.get(column), "column encoding is missing"));
+            statistics.add(requireNonNull(columnStatistics.get(column), "column statistics are missing"));
+        }
+        Slice footer = metadataWriter.writeStripeFooter(new StripeFooter(streams.build(), encodings.build()));
+
+        long stripeOffset = fileLength;
+        for (StreamDataOutput indexStream : indexStreams) {
+            indexStream.writeData(output);
+        }
+        for (StreamDataOutput dataStream : dataStreams) {
+            dataStream.writeData(output);
+        }
+        output.writeBytes(footer);
+        fileLength += indexLength + dataLength + footer.length();
+
+        closedStripes.add(new StripeInformation(stripeRowCount, stripeOffset, indexLength, dataLength, footer.length()));
+        closedStripeStatistics.add(new StripeStatistics(statistics.build()));
+        fileRowCount += stripeRowCount;
+
+        columnWriters.forEach(ColumnWriter::reset);
+        rowGroupStatistics.clear();
+        stripeRowCount = 0;
+    }
+
+    private StreamDataOutput createRootRowIndexStream()
+            throws IOException
+    {
+        ImmutableList.Builder<RowGroupIndex> rowGroupIndexes = ImmutableList.builder();
+        for (ColumnStatistics statistics : rowGroupStatistics) {
+            rowGroupIndexes.add(new RowGroupIndex(ImmutableList.of(), statistics));
+        }
+        Slice slice = metadataWriter.writeRowIndexes(rowGroupIndexes.build());
+        return new StreamDataOutput(slice, new Stream(0, ROW_INDEX, slice.length(), false));
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            flushStripe();
+
+            //
+            // Write the file tail:
+            //
+            // variable: Metadata
+            // variable: Footer
+            // variable: PostScript - contains length of footer and metadata
+            // 1 byte: postScriptSize
+            Slice metadata = metadataWriter.writeMetadata(new Metadata(closedStripeStatistics));
+
+            ImmutableList.Builder<ColumnStatistics> fileStatistics = ImmutableList.builder();
+            for (int column = 0; column < orcTypes.size(); column++) {
+                List<ColumnStatistics> stripeStatistics = new ArrayList<>();
+                for (StripeStatistics closedStripe : closedStripeStatistics) {
+                    stripeStatistics.add(closedStripe.getColumnStatistics().get(column));
+                }
+                fileStatistics.add(mergeColumnStatistics(stripeStatistics));
+            }
+            Footer footer = new Footer(fileRowCount, rowGroupMaxRowCount, closedStripes, orcTypes, fileStatistics.build(), userMetadata);
+            Slice footerSlice = metadataWriter.writeFooter(footer);
+
+            Slice postscript = metadataWriter.writePostscript(footerSlice.length(), metadata.length());
+
+            output.writeBytes(metadata);
+            output.writeBytes(footerSlice);
+            output.writeBytes(postscript);
+            output.writeByte(postscript.length());
+            fileLength += metadata.length() + footerSlice.length() + postscript.length() + 1;
+        }
+        finally {
+            output.close();
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("stripes", closedStripes.size())
+                .add("rows", fileRowCount + stripeRowCount)
+                .toString();
+    }
+}
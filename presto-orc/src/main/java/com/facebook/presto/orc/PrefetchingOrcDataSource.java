@@ -0,0 +1,161 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc;
+
+import com.google.common.collect.ImmutableMap;
+import io.airlift.slice.FixedLengthSliceInput;
+import io.airlift.units.DataSize;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import static com.facebook.presto.orc.OrcDataSourceUtils.getDiskRangeSlice;
+import static com.facebook.presto.orc.OrcDataSourceUtils.mergeAdjacentDiskRanges;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Data source which serves reads from regions of the file which were prefetched
+ * on another thread, and reads all other regions from the underlying data source.
+ * The prefetched regions are read completely into memory, so the underlying data
+ * source is not accessed lazily after the prefetched regions are replaced.
+ */
+class PrefetchingOrcDataSource
+        implements OrcDataSource
+{
+    private final OrcDataSource dataSource;
+    private final DataSize maxMergeDistance;
+    private final DataSize maxReadSize;
+
+    private Map<DiskRange, byte[]> prefetchedRanges = ImmutableMap.of();
+
+    public PrefetchingOrcDataSource(OrcDataSource dataSource, DataSize maxMergeDistance, DataSize maxReadSize)
+    {
+        this.dataSource = requireNonNull(dataSource, "dataSource is null");
+        this.maxMergeDistance = requireNonNull(maxMergeDistance, "maxMergeDistance is null");
+        this.maxReadSize = requireNonNull(maxReadSize, "maxReadSize is null");
+    }
+
+    /**
+     * Reads the regions from the underlying data source. This may be called on another thread,
+     * as long as the underlying data source is not used concurrently.
+     */
+    public Map<DiskRange, byte[]> prefetch(List<DiskRange> diskRanges)
+            throws IOException
+    {
+        if (diskRanges.isEmpty()) {
+            return ImmutableMap.of();
+        }
+
+        ImmutableMap.Builder<DiskRange, byte[]> buffers = ImmutableMap.builder();
+        for (DiskRange mergedRange : mergeAdjacentDiskRanges(diskRanges, maxMergeDistance, maxReadSize)) {
+            byte[] buffer = new byte[mergedRange.getLength()];
+            dataSource.readFully(mergedRange.getOffset(), buffer);
+            buffers.put(mergedRange, buffer);
+        }
+        return buffers.build();
+    }
+
+    public void setPrefetchedRanges(Map<DiskRange, byte[]> prefetchedRanges)
+    {
+        this.prefetchedRanges = ImmutableMap.copyOf(requireNonNull(prefetchedRanges, "prefetchedRanges is null"));
+    }
+
+    public void clearPrefetchedRanges()
+    {
+        prefetchedRanges = ImmutableMap.of();
+    }
+
+    @Override
+    public long getReadBytes()
+    {
+        return dataSource.getReadBytes();
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        return dataSource.getReadTimeNanos();
+    }
+
+    @Override
+    public long getSize()
+    {
+        return dataSource.getSize();
+    }
+
+    @Override
+    public void readFully(long position, byte[] buffer)
+            throws IOException
+    {
+        readFully(position, buffer, 0, buffer.length);
+    }
+
+    @Override
+    public void readFully(long position, byte[] buffer, int bufferOffset, int bufferLength)
+            throws IOException
+    {
+        DiskRange diskRange = new DiskRange(position, bufferLength);
+        if (isPrefetched(diskRange)) {
+            getDiskRangeSlice(diskRange, prefetchedRanges).getBytes(0, buffer, bufferOffset, bufferLength);
+            return;
+        }
+        dataSource.readFully(position, buffer, bufferOffset, bufferLength);
+    }
+
+    @Override
+    public <K> Map<K, FixedLengthSliceInput> readFully(Map<K, DiskRange> diskRanges)
+            throws IOException
+    {
+        ImmutableMap.Builder<K, FixedLengthSliceInput> slices = ImmutableMap.builder();
+        Map<K, DiskRange> remainingRanges = new LinkedHashMap<>();
+        for (Entry<K, DiskRange> entry : diskRanges.entrySet()) {
+            if (isPrefetched(entry.getValue())) {
+                slices.put(entry.getKey(), getDiskRangeSlice(entry.getValue(), prefetchedRanges).getInput());
+            }
+            else {
+                remainingRanges.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (!remainingRanges.isEmpty()) {
+            slices.putAll(dataSource.readFully(remainingRanges));
+        }
+        return slices.build();
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        dataSource.close();
+    }
+
+    @Override
+    public String toString()
+    {
+        return dataSource.toString();
+    }
+
+    private boolean isPrefetched(DiskRange diskRange)
+    {
+        for (DiskRange prefetchedRange : prefetchedRanges.keySet()) {
+            if (prefetchedRange.contains(diskRange)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
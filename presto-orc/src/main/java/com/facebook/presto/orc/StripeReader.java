@@ -77,6 +77,7 @@ public class StripeReader
     private final int rowsInRowGroup;
     private final OrcPredicate predicate;
     private final MetadataReader metadataReader;
+    private final OrcMetadataCache metadataCache;
 
     public StripeReader(OrcDataSource orcDataSource,
             CompressionKind compressionKind,
@@ -85,7 +86,8 @@ public class StripeReader
             Set<Integer> includedColumns,
             int rowsInRowGroup,
             OrcPredicate predicate,
-            MetadataReader metadataReader)
+            MetadataReader metadataReader,
+            OrcMetadataCache metadataCache)
     {
         this.orcDataSource = requireNonNull(orcDataSource, "orcDataSource is null");
         this.compressionKind = requireNonNull(compressionKind, "compressionKind is null");
@@ -95,6 +97,7 @@ public class StripeReader
         this.rowsInRowGroup = rowsInRowGroup;
         this.predicate = requireNonNull(predicate, "predicate is null");
         this.metadataReader = requireNonNull(metadataReader, "metadataReader is null");
+        this.metadataCache = requireNonNull(metadataCache, "metadataCache is null");
     }
 
     public Stripe readStripe(StripeInformation stripe, AggregatedMemoryContext systemMemoryUsage)
@@ -200,6 +203,26 @@ public class StripeReader
         return new Stripe(stripe.getNumberOfRows(), columnEncodings, ImmutableList.of(rowGroup), dictionaryStreamSources);
     }
 
+    /**
+     * Returns the regions of the file read by {@link #readStripe} for the stripe: the stripe footer,
+     * and the streams of all included columns, as absolute positions in the file.
+     */
+    public List<DiskRange> getStripeDiskRanges(StripeInformation stripe, AbstractAggregatedMemoryContext systemMemoryUsage)
+            throws IOException
+    {
+        ImmutableList.Builder<DiskRange> diskRanges = ImmutableList.builder();
+        diskRanges.add(new DiskRange(stripe.getOffset() + stripe.getIndexLength() + stripe.getDataLength(), Ints.checkedCast(stripe.getFooterLength())));
+
+        StripeFooter stripeFooter = readStripeFooter(stripe, systemMemoryUsage);
+        for (Entry<StreamId, DiskRange> entry : getDiskRanges(stripeFooter.getStreams()).entrySet()) {
+            if (includedOrcColumns.contains(entry.getKey().getColumn())) {
+                DiskRange diskRange = entry.getValue();
+                diskRanges.add(new DiskRange(stripe.getOffset() + diskRange.getOffset(), diskRange.getLength()));
+            }
+        }
+        return diskRanges.build();
+    }
+
     public Map<StreamId, OrcInputStream> readDiskRanges(long stripeOffset, Map<StreamId, DiskRange> diskRanges, AbstractAggregatedMemoryContext systemMemoryUsage)
             throws IOException
     {
@@ -319,6 +342,12 @@ public class StripeReader
 
     public StripeFooter readStripeFooter(StripeInformation stripe, AbstractAggregatedMemoryContext systemMemoryUsage)
             throws IOException
+    {
+        return metadataCache.getStripeFooter(stripe, () -> readStripeFooterFromFile(stripe, systemMemoryUsage));
+    }
+
+    private StripeFooter readStripeFooterFromFile(StripeInformation stripe, AbstractAggregatedMemoryContext systemMemoryUsage)
+            throws IOException
     {
         long offset = stripe.getOffset() + stripe.getIndexLength() + stripe.getDataLength();
         int tailLength = Ints.checkedCast(stripe.getFooterLength());
@@ -13,6 +13,11 @@
  */
 package com.facebook.presto.orc.metadata;
 
+import io.airlift.slice.Slice;
+
+import java.math.BigDecimal;
+import java.util.List;
+
 public class ColumnStatistics
 {
     private final Long numberOfValues;
@@ -101,4 +106,104 @@ public class ColumnStatistics
                 decimalStatistics,
                 bloomFilter);
     }
+
+    /**
+     * Combines the statistics of row groups or stripes of a single column. A typed statistic
+     * is only retained if it is present in all of the merged statistics which contain values.
+     */
+    public static ColumnStatistics mergeColumnStatistics(List<ColumnStatistics> stats)
+    {
+        long numberOfValues = 0;
+        long trueValueCount = 0;
+        boolean hasBooleanStatistics = true;
+
+        Long integerMin = null;
+        Long integerMax = null;
+        boolean hasIntegerStatistics = true;
+
+        Double doubleMin = null;
+        Double doubleMax = null;
+        boolean hasDoubleStatistics = true;
+
+        Slice stringMin = null;
+        Slice stringMax = null;
+        boolean hasStringStatistics = true;
+
+        Integer dateMin = null;
+        Integer dateMax = null;
+        boolean hasDateStatistics = true;
+
+        BigDecimal decimalMin = null;
+        BigDecimal decimalMax = null;
+        boolean hasDecimalStatistics = true;
+
+        for (ColumnStatistics statistics : stats) {
+            numberOfValues += statistics.getNumberOfValues();
+            if (statistics.getNumberOfValues() == 0) {
+                continue;
+            }
+
+            if (statistics.getBooleanStatistics() != null) {
+                trueValueCount += statistics.getBooleanStatistics().getTrueValueCount();
+            }
+            else {
+                hasBooleanStatistics = false;
+            }
+
+            IntegerStatistics integerStatistics = statistics.getIntegerStatistics();
+            if (integerStatistics != null && integerStatistics.getMin() != null && integerStatistics.getMax() != null) {
+                integerMin = integerMin == null ? integerStatistics.getMin() : Math.min(integerMin, integerStatistics.getMin());
+                integerMax = integerMax == null ? integerStatistics.getMax() : Math.max(integerMax, integerStatistics.getMax());
+            }
+            else {
+                hasIntegerStatistics = false;
+            }
+
+            DoubleStatistics doubleStatistics = statistics.getDoubleStatistics();
+            if (doubleStatistics != null && doubleStatistics.getMin() != null && doubleStatistics.getMax() != null) {
+                doubleMin = doubleMin == null ? doubleStatistics.getMin() : Math.min(doubleMin, doubleStatistics.getMin());
+                doubleMax = doubleMax == null ? doubleStatistics.getMax() : Math.max(doubleMax, doubleStatistics.getMax());
+            }
+            else {
+                hasDoubleStatistics = false;
+            }
+
+            StringStatistics stringStatistics = statistics.getStringStatistics();
+            if (stringStatistics != null && stringStatistics.getMin() != null && stringStatistics.getMax() != null) {
+                stringMin = stringMin == null || stringStatistics.getMin().compareTo(stringMin) < 0 ? stringStatistics.getMin() : stringMin;
+                stringMax = stringMax == null || stringStatistics.getMax().compareTo(stringMax) > 0 ? stringStatistics.getMax() : stringMax;
+            }
+            else {
+                hasStringStatistics = false;
+            }
+
+            DateStatistics dateStatistics = statistics.getDateStatistics();
+            if (dateStatistics != null && dateStatistics.getMin() != null && dateStatistics.getMax() != null) {
+                dateMin = dateMin == null ? dateStatistics.getMin() : Math.min(dateMin, dateStatistics.getMin());
+                dateMax = dateMax == null ? dateStatistics.getMax() : Math.max(dateMax, dateStatistics.getMax());
+            }
+            else {
+                hasDateStatistics = false;
+            }
+
+            DecimalStatistics decimalStatistics = statistics.getDecimalStatistics();
+            if (decimalStatistics != null && decimalStatistics.getMin() != null && decimalStatistics.getMax() != null) {
+                decimalMin = decimalMin == null ? decimalStatistics.getMin() : decimalMin.min(decimalStatistics.getMin());
+                decimalMax = decimalMax == null ? decimalStatistics.getMax() : decimalMax.max(decimalStatistics.getMax());
+            }
+            else {
+                hasDecimalStatistics = false;
+            }
+        }
+
+        return new ColumnStatistics(
+                numberOfValues,
+                hasBooleanStatistics && numberOfValues > 0 ? new BooleanStatistics(trueValueCount) : null,
+                hasIntegerStatistics && integerMin != null ? new IntegerStatistics(integerMin, integerMax) : null,
+                hasDoubleStatistics && doubleMin != null ? new DoubleStatistics(doubleMin, doubleMax) : null,
+                hasStringStatistics && stringMin != null ? new StringStatistics(stringMin, stringMax) : null,
+                hasDateStatistics && dateMin != null ? new DateStatistics(dateMin, dateMax) : null,
+                hasDecimalStatistics && decimalMin != null ? new DecimalStatistics(decimalMin, decimalMax) : null,
+                null);
+    }
 }
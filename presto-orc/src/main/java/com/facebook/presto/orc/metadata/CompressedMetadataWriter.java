@@ -0,0 +1,96 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.metadata;
+
+import com.facebook.presto.orc.stream.OrcOutputBuffer;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+
+import java.io.IOException;
+import java.util.List;
+
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Serializes the metadata sections of an ORC file and compresses them in the same
+ * way as the stream data. Only the postscript is never compressed.
+ */
+public class CompressedMetadataWriter
+{
+    private final MetadataWriter metadataWriter;
+    private final CompressionKind compression;
+    private final int bufferSize;
+
+    public CompressedMetadataWriter(MetadataWriter metadataWriter, CompressionKind compression, int bufferSize)
+    {
+        this.metadataWriter = requireNonNull(metadataWriter, "metadataWriter is null");
+        this.compression = requireNonNull(compression, "compression is null");
+        this.bufferSize = bufferSize;
+    }
+
+    public List<Integer> getOrcMetadataVersion()
+    {
+        return metadataWriter.getOrcMetadataVersion();
+    }
+
+    public Slice writePostscript(int footerLength, int metadataLength)
+            throws IOException
+    {
+        DynamicSliceOutput output = new DynamicSliceOutput(64);
+        metadataWriter.writePostscript(output, footerLength, metadataLength, compression, bufferSize);
+        return output.slice();
+    }
+
+    public Slice writeMetadata(Metadata metadata)
+            throws IOException
+    {
+        OrcOutputBuffer buffer = new OrcOutputBuffer(compression, bufferSize);
+        metadataWriter.writeMetadata(buffer, metadata);
+        return toSlice(buffer);
+    }
+
+    public Slice writeFooter(Footer footer)
+            throws IOException
+    {
+        OrcOutputBuffer buffer = new OrcOutputBuffer(compression, bufferSize);
+        metadataWriter.writeFooter(buffer, footer);
+        return toSlice(buffer);
+    }
+
+    public Slice writeStripeFooter(StripeFooter footer)
+            throws IOException
+    {
+        OrcOutputBuffer buffer = new OrcOutputBuffer(compression, bufferSize);
+        metadataWriter.writeStripeFooter(buffer, footer);
+        return toSlice(buffer);
+    }
+
+    public Slice writeRowIndexes(List<RowGroupIndex> rowGroupIndexes)
+            throws IOException
+    {
+        OrcOutputBuffer buffer = new OrcOutputBuffer(compression, bufferSize);
+        metadataWriter.writeRowIndexes(buffer, rowGroupIndexes);
+        return toSlice(buffer);
+    }
+
+    private static Slice toSlice(OrcOutputBuffer buffer)
+    {
+        buffer.close();
+        Slice slice = Slices.allocate(toIntExact(buffer.getOutputDataSize()));
+        buffer.writeDataTo(slice.getOutput());
+        return slice;
+    }
+}
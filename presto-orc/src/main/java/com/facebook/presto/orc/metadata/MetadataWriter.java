@@ -0,0 +1,38 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.metadata;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+public interface MetadataWriter
+{
+    List<Integer> getOrcMetadataVersion();
+
+    void writePostscript(OutputStream output, int footerLength, int metadataLength, CompressionKind compression, int compressionBlockSize)
+            throws IOException;
+
+    void writeMetadata(OutputStream output, Metadata metadata)
+            throws IOException;
+
+    void writeFooter(OutputStream output, Footer footer)
+            throws IOException;
+
+    void writeStripeFooter(OutputStream output, StripeFooter footer)
+            throws IOException;
+
+    void writeRowIndexes(OutputStream output, List<RowGroupIndex> rowGroupIndexes)
+            throws IOException;
+}
@@ -368,13 +368,17 @@ public class OrcMetadataReader
 
     private static OrcType toType(OrcProto.Type type)
     {
+        Optional<Integer> length = Optional.empty();
+        if (type.getKind() == OrcProto.Type.Kind.VARCHAR || type.getKind() == OrcProto.Type.Kind.CHAR) {
+            length = Optional.of(type.getMaximumLength());
+        }
         Optional<Integer> precision = Optional.empty();
         Optional<Integer> scale = Optional.empty();
         if (type.getKind() == OrcProto.Type.Kind.DECIMAL) {
             precision = Optional.of(type.getPrecision());
             scale = Optional.of(type.getScale());
         }
-        return new OrcType(toTypeKind(type.getKind()), type.getSubtypesList(), type.getFieldNamesList(), precision, scale);
+        return new OrcType(toTypeKind(type.getKind()), type.getSubtypesList(), type.getFieldNamesList(), length, precision, scale);
     }
 
     private static List<OrcType> toType(List<OrcProto.Type> types)
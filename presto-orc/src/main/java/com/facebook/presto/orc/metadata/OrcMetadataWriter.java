@@ -0,0 +1,353 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.metadata;
+
+import com.facebook.presto.hive.protobuf.ByteString;
+import com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind;
+import com.facebook.presto.orc.metadata.OrcType.OrcTypeKind;
+import com.facebook.presto.orc.metadata.Stream.StreamKind;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.Slice;
+import org.apache.hadoop.hive.ql.io.orc.OrcProto;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map.Entry;
+
+import static com.google.common.collect.Iterables.getLast;
+
+/**
+ * Writes the metadata of ORC files, the inverse of {@link OrcMetadataReader}.
+ */
+public class OrcMetadataWriter
+        implements MetadataWriter
+{
+    // version 0.12 of the file format
+    private static final List<Integer> ORC_METADATA_VERSION = ImmutableList.of(0, 12);
+
+    // writer version 1 includes the fixes for HIVE-8732
+    private static final int ORC_WRITER_VERSION = 1;
+
+    private static final String MAGIC = "ORC";
+    private static final int HEADER_LENGTH = MAGIC.length();
+
+    @Override
+    public List<Integer> getOrcMetadataVersion()
+    {
+        return ORC_METADATA_VERSION;
+    }
+
+    @Override
+    public void writePostscript(OutputStream output, int footerLength, int metadataLength, CompressionKind compression, int compressionBlockSize)
+            throws IOException
+    {
+        OrcProto.PostScript postScript = OrcProto.PostScript.newBuilder()
+                .addAllVersion(ORC_METADATA_VERSION)
+                .setFooterLength(footerLength)
+                .setMetadataLength(metadataLength)
+                .setCompression(toCompression(compression))
+                .setCompressionBlockSize(compressionBlockSize)
+                .setWriterVersion(ORC_WRITER_VERSION)
+                .setMagic(MAGIC)
+                .build();
+
+        postScript.writeTo(output);
+    }
+
+    @Override
+    public void writeMetadata(OutputStream output, Metadata metadata)
+            throws IOException
+    {
+        OrcProto.Metadata.Builder builder = OrcProto.Metadata.newBuilder();
+        for (StripeStatistics stripeStatistics : metadata.getStripeStatsList()) {
+            builder.addStripeStats(OrcProto.StripeStatistics.newBuilder()
+                    .addAllColStats(toColumnStatistics(stripeStatistics.getColumnStatistics())));
+        }
+        builder.build().writeTo(output);
+    }
+
+    @Override
+    public void writeFooter(OutputStream output, Footer footer)
+            throws IOException
+    {
+        long contentLength = HEADER_LENGTH;
+        if (!footer.getStripes().isEmpty()) {
+            StripeInformation lastStripe = getLast(footer.getStripes());
+            contentLength = lastStripe.getOffset() + lastStripe.getTotalLength();
+        }
+
+        OrcProto.Footer.Builder builder = OrcProto.Footer.newBuilder()
+                .setHeaderLength(HEADER_LENGTH)
+                .setContentLength(contentLength)
+                .setNumberOfRows(footer.getNumberOfRows())
+                .setRowIndexStride(footer.getRowsInRowGroup())
+                .addAllStatistics(toColumnStatistics(footer.getFileStats()));
+
+        for (StripeInformation stripe : footer.getStripes()) {
+            builder.addStripes(OrcProto.StripeInformation.newBuilder()
+                    .setNumberOfRows(stripe.getNumberOfRows())
+                    .setOffset(stripe.getOffset())
+                    .setIndexLength(stripe.getIndexLength())
+                    .setDataLength(stripe.getDataLength())
+                    .setFooterLength(stripe.getFooterLength()));
+        }
+        for (OrcType type : footer.getTypes()) {
+            builder.addTypes(toType(type));
+        }
+        for (Entry<String, Slice> entry : footer.getUserMetadata().entrySet()) {
+            builder.addMetadata(OrcProto.UserMetadataItem.newBuilder()
+                    .setName(entry.getKey())
+                    .setValue(ByteString.copyFrom(entry.getValue().getBytes())));
+        }
+
+        builder.build().writeTo(output);
+    }
+
+    @Override
+    public void writeStripeFooter(OutputStream output, StripeFooter footer)
+            throws IOException
+    {
+        OrcProto.StripeFooter.Builder builder = OrcProto.StripeFooter.newBuilder();
+        for (Stream stream : footer.getStreams()) {
+            builder.addStreams(OrcProto.Stream.newBuilder()
+                    .setColumn(stream.getColumn())
+                    .setKind(toStreamKind(stream.getStreamKind()))
+                    .setLength(stream.getLength()));
+        }
+        for (ColumnEncoding encoding : footer.getColumnEncodings()) {
+            builder.addColumns(OrcProto.ColumnEncoding.newBuilder()
+                    .setKind(toColumnEncoding(encoding.getColumnEncodingKind()))
+                    .setDictionarySize(encoding.getDictionarySize()));
+        }
+        builder.build().writeTo(output);
+    }
+
+    @Override
+    public void writeRowIndexes(OutputStream output, List<RowGroupIndex> rowGroupIndexes)
+            throws IOException
+    {
+        OrcProto.RowIndex.Builder builder = OrcProto.RowIndex.newBuilder();
+        for (RowGroupIndex rowGroupIndex : rowGroupIndexes) {
+            OrcProto.RowIndexEntry.Builder entry = OrcProto.RowIndexEntry.newBuilder()
+                    .setStatistics(toColumnStatistics(rowGroupIndex.getColumnStatistics()));
+            for (int position : rowGroupIndex.getPositions()) {
+                entry.addPositions(position);
+            }
+            builder.addEntry(entry);
+        }
+        builder.build().writeTo(output);
+    }
+
+    private static List<OrcProto.ColumnStatistics> toColumnStatistics(List<ColumnStatistics> columnStatistics)
+    {
+        ImmutableList.Builder<OrcProto.ColumnStatistics> list = ImmutableList.builder();
+        for (ColumnStatistics statistics : columnStatistics) {
+            list.add(toColumnStatistics(statistics));
+        }
+        return list.build();
+    }
+
+    private static OrcProto.ColumnStatistics toColumnStatistics(ColumnStatistics columnStatistics)
+    {
+        OrcProto.ColumnStatistics.Builder builder = OrcProto.ColumnStatistics.newBuilder();
+
+        if (columnStatistics.hasNumberOfValues()) {
+            builder.setNumberOfValues(columnStatistics.getNumberOfValues());
+        }
+
+        if (columnStatistics.getBooleanStatistics() != null) {
+            builder.setBucketStatistics(OrcProto.BucketStatistics.newBuilder()
+                    .addCount(columnStatistics.getBooleanStatistics().getTrueValueCount()));
+        }
+
+        IntegerStatistics integerStatistics = columnStatistics.getIntegerStatistics();
+        if (integerStatistics != null) {
+            OrcProto.IntegerStatistics.Builder integerBuilder = OrcProto.IntegerStatistics.newBuilder();
+            if (integerStatistics.getMin() != null) {
+                integerBuilder.setMinimum(integerStatistics.getMin());
+            }
+            if (integerStatistics.getMax() != null) {
+                integerBuilder.setMaximum(integerStatistics.getMax());
+            }
+            builder.setIntStatistics(integerBuilder);
+        }
+
+        DoubleStatistics doubleStatistics = columnStatistics.getDoubleStatistics();
+        if (doubleStatistics != null) {
+            OrcProto.DoubleStatistics.Builder doubleBuilder = OrcProto.DoubleStatistics.newBuilder();
+            if (doubleStatistics.getMin() != null) {
+                doubleBuilder.setMinimum(doubleStatistics.getMin());
+            }
+            if (doubleStatistics.getMax() != null) {
+                doubleBuilder.setMaximum(doubleStatistics.getMax());
+            }
+            builder.setDoubleStatistics(doubleBuilder);
+        }
+
+        StringStatistics stringStatistics = columnStatistics.getStringStatistics();
+        if (stringStatistics != null) {
+            OrcProto.StringStatistics.Builder stringBuilder = OrcProto.StringStatistics.newBuilder();
+            if (stringStatistics.getMin() != null) {
+                stringBuilder.setMinimum(stringStatistics.getMin().toStringUtf8());
+            }
+            if (stringStatistics.getMax() != null) {
+                stringBuilder.setMaximum(stringStatistics.getMax().toStringUtf8());
+            }
+            builder.setStringStatistics(stringBuilder);
+        }
+
+        DateStatistics dateStatistics = columnStatistics.getDateStatistics();
+        if (dateStatistics != null) {
+            OrcProto.DateStatistics.Builder dateBuilder = OrcProto.DateStatistics.newBuilder();
+            if (dateStatistics.getMin() != null) {
+                dateBuilder.setMinimum(dateStatistics.getMin());
+            }
+            if (dateStatistics.getMax() != null) {
+                dateBuilder.setMaximum(dateStatistics.getMax());
+            }
+            builder.setDateStatistics(dateBuilder);
+        }
+
+        DecimalStatistics decimalStatistics = columnStatistics.getDecimalStatistics();
+        if (decimalStatistics != null) {
+            OrcProto.DecimalStatistics.Builder decimalBuilder = OrcProto.DecimalStatistics.newBuilder();
+            if (decimalStatistics.getMin() != null) {
+                decimalBuilder.setMinimum(decimalStatistics.getMin().toString());
+            }
+            if (decimalStatistics.getMax() != null) {
+                decimalBuilder.setMaximum(decimalStatistics.getMax().toString());
+            }
+            builder.setDecimalStatistics(decimalBuilder);
+        }
+
+        return builder.build();
+    }
+
+    private static OrcProto.Type toType(OrcType type)
+    {
+        OrcProto.Type.Builder builder = OrcProto.Type.newBuilder()
+                .setKind(toTypeKind(type.getOrcTypeKind()));
+        for (int field = 0; field < type.getFieldCount(); field++) {
+            builder.addSubtypes(type.getFieldTypeIndex(field));
+        }
+        if (type.getFieldNames() != null) {
+            builder.addAllFieldNames(type.getFieldNames());
+        }
+        if (type.getLength().isPresent()) {
+            builder.setMaximumLength(type.getLength().get());
+        }
+        if (type.getPrecision().isPresent()) {
+            builder.setPrecision(type.getPrecision().get());
+        }
+        if (type.getScale().isPresent()) {
+            builder.setScale(type.getScale().get());
+        }
+        return builder.build();
+    }
+
+    private static OrcProto.Type.Kind toTypeKind(OrcTypeKind typeKind)
+    {
+        switch (typeKind) {
+            case BOOLEAN:
+                return OrcProto.Type.Kind.BOOLEAN;
+            case BYTE:
+                return OrcProto.Type.Kind.BYTE;
+            case SHORT:
+                return OrcProto.Type.Kind.SHORT;
+            case INT:
+                return OrcProto.Type.Kind.INT;
+            case LONG:
+                return OrcProto.Type.Kind.LONG;
+            case DECIMAL:
+                return OrcProto.Type.Kind.DECIMAL;
+            case FLOAT:
+                return OrcProto.Type.Kind.FLOAT;
+            case DOUBLE:
+                return OrcProto.Type.Kind.DOUBLE;
+            case STRING:
+                return OrcProto.Type.Kind.STRING;
+            case VARCHAR:
+                return OrcProto.Type.Kind.VARCHAR;
+            case CHAR:
+                return OrcProto.Type.Kind.CHAR;
+            case BINARY:
+                return OrcProto.Type.Kind.BINARY;
+            case DATE:
+                return OrcProto.Type.Kind.DATE;
+            case TIMESTAMP:
+                return OrcProto.Type.Kind.TIMESTAMP;
+            case LIST:
+                return OrcProto.Type.Kind.LIST;
+            case MAP:
+                return OrcProto.Type.Kind.MAP;
+            case STRUCT:
+                return OrcProto.Type.Kind.STRUCT;
+            case UNION:
+                return OrcProto.Type.Kind.UNION;
+        }
+        throw new IllegalArgumentException("Unsupported type: " + typeKind);
+    }
+
+    private static OrcProto.Stream.Kind toStreamKind(StreamKind streamKind)
+    {
+        switch (streamKind) {
+            case PRESENT:
+                return OrcProto.Stream.Kind.PRESENT;
+            case DATA:
+                return OrcProto.Stream.Kind.DATA;
+            case LENGTH:
+                return OrcProto.Stream.Kind.LENGTH;
+            case DICTIONARY_DATA:
+                return OrcProto.Stream.Kind.DICTIONARY_DATA;
+            case DICTIONARY_COUNT:
+                return OrcProto.Stream.Kind.DICTIONARY_COUNT;
+            case SECONDARY:
+                return OrcProto.Stream.Kind.SECONDARY;
+            case ROW_INDEX:
+                return OrcProto.Stream.Kind.ROW_INDEX;
+            case BLOOM_FILTER:
+                return OrcProto.Stream.Kind.BLOOM_FILTER;
+        }
+        throw new IllegalArgumentException("Unsupported stream kind: " + streamKind);
+    }
+
+    private static OrcProto.ColumnEncoding.Kind toColumnEncoding(ColumnEncodingKind columnEncodingKind)
+    {
+        switch (columnEncodingKind) {
+            case DIRECT:
+                return OrcProto.ColumnEncoding.Kind.DIRECT;
+            case DICTIONARY:
+                return OrcProto.ColumnEncoding.Kind.DICTIONARY;
+            case DIRECT_V2:
+                return OrcProto.ColumnEncoding.Kind.DIRECT_V2;
+            case DICTIONARY_V2:
+                return OrcProto.ColumnEncoding.Kind.DICTIONARY_V2;
+        }
+        throw new IllegalArgumentException("Unsupported column encoding kind: " + columnEncodingKind);
+    }
+
+    private static OrcProto.CompressionKind toCompression(CompressionKind compressionKind)
+    {
+        switch (compressionKind) {
+            case UNCOMPRESSED:
+                return OrcProto.CompressionKind.NONE;
+            case ZLIB:
+                return OrcProto.CompressionKind.ZLIB;
+            case SNAPPY:
+                return OrcProto.CompressionKind.SNAPPY;
+        }
+        throw new IllegalArgumentException("Unsupported compression kind: " + compressionKind);
+    }
+}
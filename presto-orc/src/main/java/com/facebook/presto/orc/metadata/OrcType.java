@@ -13,11 +13,28 @@
  */
 package com.facebook.presto.orc.metadata;
 
+import com.facebook.presto.spi.type.CharType;
+import com.facebook.presto.spi.type.DecimalType;
+import com.facebook.presto.spi.type.StandardTypes;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spi.type.TypeSignatureParameter;
+import com.facebook.presto.spi.type.VarcharType;
 import com.google.common.collect.ImmutableList;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DateType.DATE;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.IntegerType.INTEGER;
+import static com.facebook.presto.spi.type.RealType.REAL;
+import static com.facebook.presto.spi.type.SmallintType.SMALLINT;
+import static com.facebook.presto.spi.type.TimestampType.TIMESTAMP;
+import static com.facebook.presto.spi.type.TinyintType.TINYINT;
+import static com.facebook.presto.spi.type.VarbinaryType.VARBINARY;
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.requireNonNull;
@@ -55,10 +72,21 @@ public class OrcType
     private final OrcTypeKind orcTypeKind;
     private final List<Integer> fieldTypeIndexes;
     private final List<String> fieldNames;
+    private final Optional<Integer> length;
     private final Optional<Integer> precision;
     private final Optional<Integer> scale;
 
+    public OrcType(OrcTypeKind orcTypeKind)
+    {
+        this(orcTypeKind, ImmutableList.of(), ImmutableList.of(), Optional.empty(), Optional.empty(), Optional.empty());
+    }
+
     public OrcType(OrcTypeKind orcTypeKind, List<Integer> fieldTypeIndexes, List<String> fieldNames, Optional<Integer> precision, Optional<Integer> scale)
+    {
+        this(orcTypeKind, fieldTypeIndexes, fieldNames, Optional.empty(), precision, scale);
+    }
+
+    public OrcType(OrcTypeKind orcTypeKind, List<Integer> fieldTypeIndexes, List<String> fieldNames, Optional<Integer> length, Optional<Integer> precision, Optional<Integer> scale)
     {
         this.orcTypeKind = requireNonNull(orcTypeKind, "typeKind is null");
         this.fieldTypeIndexes = ImmutableList.copyOf(requireNonNull(fieldTypeIndexes, "fieldTypeIndexes is null"));
@@ -69,6 +97,7 @@ public class OrcType
             this.fieldNames = ImmutableList.copyOf(requireNonNull(fieldNames, "fieldNames is null"));
             checkArgument(fieldNames.size() == fieldTypeIndexes.size(), "fieldNames and fieldTypeIndexes have different sizes");
         }
+        this.length = requireNonNull(length, "length is null");
         this.precision = requireNonNull(precision, "precision is null");
         this.scale = requireNonNull(scale, "scale can not be null");
     }
@@ -98,6 +127,11 @@ public class OrcType
         return fieldNames;
     }
 
+    public Optional<Integer> getLength()
+    {
+        return length;
+    }
+
     public Optional<Integer> getPrecision()
     {
         return precision;
@@ -117,4 +151,117 @@ public class OrcType
                 .add("fieldNames", fieldNames)
                 .toString();
     }
+
+    /**
+     * Creates the flattened ORC type tree of a row with the specified fields, with the root
+     * struct type first. The type indexes start with {@code nextFieldTypeIndex}.
+     */
+    public static List<OrcType> createOrcRowType(int nextFieldTypeIndex, List<String> fieldNames, List<Type> fieldTypes)
+    {
+        checkArgument(fieldNames.size() == fieldTypes.size(), "fieldNames and fieldTypes have different sizes");
+        nextFieldTypeIndex++;
+        List<Integer> fieldTypeIndexes = new ArrayList<>();
+        List<List<OrcType>> fieldTypesList = new ArrayList<>();
+        for (Type fieldType : fieldTypes) {
+            fieldTypeIndexes.add(nextFieldTypeIndex);
+            List<OrcType> fieldOrcTypes = toOrcType(nextFieldTypeIndex, fieldType);
+            fieldTypesList.add(fieldOrcTypes);
+            nextFieldTypeIndex += fieldOrcTypes.size();
+        }
+
+        ImmutableList.Builder<OrcType> orcTypes = ImmutableList.builder();
+        orcTypes.add(new OrcType(OrcTypeKind.STRUCT, fieldTypeIndexes, fieldNames, Optional.empty(), Optional.empty()));
+        fieldTypesList.forEach(orcTypes::addAll);
+        return orcTypes.build();
+    }
+
+    private static List<OrcType> toOrcType(int nextFieldTypeIndex, Type type)
+    {
+        if (BOOLEAN.equals(type)) {
+            return ImmutableList.of(new OrcType(OrcTypeKind.BOOLEAN));
+        }
+        if (TINYINT.equals(type)) {
+            return ImmutableList.of(new OrcType(OrcTypeKind.BYTE));
+        }
+        if (SMALLINT.equals(type)) {
+            return ImmutableList.of(new OrcType(OrcTypeKind.SHORT));
+        }
+        if (INTEGER.equals(type)) {
+            return ImmutableList.of(new OrcType(OrcTypeKind.INT));
+        }
+        if (BIGINT.equals(type)) {
+            return ImmutableList.of(new OrcType(OrcTypeKind.LONG));
+        }
+        if (DOUBLE.equals(type)) {
+            return ImmutableList.of(new OrcType(OrcTypeKind.DOUBLE));
+        }
+        if (REAL.equals(type)) {
+            return ImmutableList.of(new OrcType(OrcTypeKind.FLOAT));
+        }
+        if (type instanceof VarcharType) {
+            VarcharType varcharType = (VarcharType) type;
+            if (varcharType.getLength() == VarcharType.MAX_LENGTH) {
+                return ImmutableList.of(new OrcType(OrcTypeKind.STRING));
+            }
+            return ImmutableList.of(new OrcType(OrcTypeKind.VARCHAR, ImmutableList.of(), ImmutableList.of(), Optional.of(varcharType.getLength()), Optional.empty(), Optional.empty()));
+        }
+        if (type instanceof CharType) {
+            int length = ((CharType) type).getLength();
+            return ImmutableList.of(new OrcType(OrcTypeKind.CHAR, ImmutableList.of(), ImmutableList.of(), Optional.of(length), Optional.empty(), Optional.empty()));
+        }
+        if (VARBINARY.equals(type)) {
+            return ImmutableList.of(new OrcType(OrcTypeKind.BINARY));
+        }
+        if (DATE.equals(type)) {
+            return ImmutableList.of(new OrcType(OrcTypeKind.DATE));
+        }
+        if (TIMESTAMP.equals(type)) {
+            return ImmutableList.of(new OrcType(OrcTypeKind.TIMESTAMP));
+        }
+        if (type instanceof DecimalType) {
+            DecimalType decimalType = (DecimalType) type;
+            return ImmutableList.of(new OrcType(OrcTypeKind.DECIMAL, ImmutableList.of(), ImmutableList.of(), Optional.of(decimalType.getPrecision()), Optional.of(decimalType.getScale())));
+        }
+        String baseType = type.getTypeSignature().getBase();
+        if (baseType.equals(StandardTypes.ARRAY)) {
+            return createOrcArrayType(nextFieldTypeIndex, type.getTypeParameters().get(0));
+        }
+        if (baseType.equals(StandardTypes.MAP)) {
+            return createOrcMapType(nextFieldTypeIndex, type.getTypeParameters().get(0), type.getTypeParameters().get(1));
+        }
+        if (baseType.equals(StandardTypes.ROW)) {
+            List<String> fieldNames = new ArrayList<>();
+            List<TypeSignatureParameter> parameters = type.getTypeSignature().getParameters();
+            for (int i = 0; i < parameters.size(); i++) {
+                TypeSignatureParameter parameter = parameters.get(i);
+                fieldNames.add(parameter.isNamedTypeSignature() ? parameter.getNamedTypeSignature().getName() : "field" + i);
+            }
+            return createOrcRowType(nextFieldTypeIndex, fieldNames, type.getTypeParameters());
+        }
+        throw new IllegalArgumentException("Unsupported type: " + type);
+    }
+
+    private static List<OrcType> createOrcArrayType(int nextFieldTypeIndex, Type elementType)
+    {
+        nextFieldTypeIndex++;
+        List<OrcType> elementTypes = toOrcType(nextFieldTypeIndex, elementType);
+
+        ImmutableList.Builder<OrcType> orcTypes = ImmutableList.builder();
+        orcTypes.add(new OrcType(OrcTypeKind.LIST, ImmutableList.of(nextFieldTypeIndex), ImmutableList.of(), Optional.empty(), Optional.empty()));
+        orcTypes.addAll(elementTypes);
+        return orcTypes.build();
+    }
+
+    private static List<OrcType> createOrcMapType(int nextFieldTypeIndex, Type keyType, Type valueType)
+    {
+        nextFieldTypeIndex++;
+        List<OrcType> keyTypes = toOrcType(nextFieldTypeIndex, keyType);
+        List<OrcType> valueTypes = toOrcType(nextFieldTypeIndex + keyTypes.size(), valueType);
+
+        ImmutableList.Builder<OrcType> orcTypes = ImmutableList.builder();
+        orcTypes.add(new OrcType(OrcTypeKind.MAP, ImmutableList.of(nextFieldTypeIndex, nextFieldTypeIndex + keyTypes.size()), ImmutableList.of(), Optional.empty(), Optional.empty()));
+        orcTypes.addAll(keyTypes);
+        orcTypes.addAll(valueTypes);
+        return orcTypes.build();
+    }
 }
@@ -33,6 +33,7 @@ import java.util.List;
 
 import static com.facebook.presto.orc.metadata.Stream.StreamKind.DATA;
 import static com.facebook.presto.orc.metadata.Stream.StreamKind.PRESENT;
+import static com.facebook.presto.orc.reader.ReaderUtils.countNonNull;
 import static com.facebook.presto.orc.stream.MissingStreamSource.missingStreamSource;
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static java.util.Objects.requireNonNull;
@@ -74,30 +75,62 @@ public class LongDirectStreamReader
     public Block readBlock(Type type)
             throws IOException
     {
-        if (!rowGroupOpen) {
-            openRowGroup();
-        }
+        seekToReadOffset();
 
-        if (readOffset > 0) {
-            if (presentStream != null) {
-                // skip ahead the present bit reader, but count the set bits
-                // and use this as the skip size for the data reader
-                readOffset = presentStream.countBitsSet(readOffset);
+        BlockBuilder builder = type.createBlockBuilder(new BlockBuilderStatus(), nextBatchSize);
+        if (presentStream == null) {
+            if (dataStream == null) {
+                throw new OrcCorruptionException("Value is not null but data stream is not present");
             }
-            if (readOffset > 0) {
+            dataStream.nextLongVector(type, nextBatchSize, builder);
+        }
+        else {
+            if (nullVector.length < nextBatchSize) {
+                nullVector = new boolean[nextBatchSize];
+            }
+            int nullValues = presentStream.getUnsetBits(nextBatchSize, nullVector);
+            if (nullValues != nextBatchSize) {
                 if (dataStream == null) {
                     throw new OrcCorruptionException("Value is not null but data stream is not present");
                 }
-                dataStream.skip(readOffset);
+                dataStream.nextLongVector(type, nextBatchSize, builder, nullVector);
+            }
+            else {
+                for (int i = 0; i < nextBatchSize; i++) {
+                    builder.appendNull();
+                }
             }
         }
 
-        BlockBuilder builder = type.createBlockBuilder(new BlockBuilderStatus(), nextBatchSize);
+        readOffset = 0;
+        nextBatchSize = 0;
+
+        return builder.build();
+    }
+
+    @Override
+    public Block readBlock(Type type, int[] positions, int positionCount)
+            throws IOException
+    {
+        seekToReadOffset();
+
+        BlockBuilder builder = type.createBlockBuilder(new BlockBuilderStatus(), positionCount);
         if (presentStream == null) {
             if (dataStream == null) {
                 throw new OrcCorruptionException("Value is not null but data stream is not present");
             }
-            dataStream.nextLongVector(type, nextBatchSize, builder);
+            int nextPosition = 0;
+            for (int i = 0; i < positionCount; i++) {
+                int position = positions[i];
+                if (position > nextPosition) {
+                    dataStream.skip(position - nextPosition);
+                }
+                type.writeLong(builder, dataStream.next());
+                nextPosition = position + 1;
+            }
+            if (nextBatchSize > nextPosition) {
+                dataStream.skip(nextBatchSize - nextPosition);
+            }
         }
         else {
             if (nullVector.length < nextBatchSize) {
@@ -108,10 +141,28 @@ public class LongDirectStreamReader
                 if (dataStream == null) {
                     throw new OrcCorruptionException("Value is not null but data stream is not present");
                 }
-                dataStream.nextLongVector(type, nextBatchSize, builder, nullVector);
+                int nextPosition = 0;
+                for (int i = 0; i < positionCount; i++) {
+                    int position = positions[i];
+                    int skipSize = countNonNull(nullVector, nextPosition, position);
+                    if (skipSize > 0) {
+                        dataStream.skip(skipSize);
+                    }
+                    if (nullVector[position]) {
+                        builder.appendNull();
+                    }
+                    else {
+                        type.writeLong(builder, dataStream.next());
+                    }
+                    nextPosition = position + 1;
+                }
+                int skipSize = countNonNull(nullVector, nextPosition, nextBatchSize);
+                if (skipSize > 0) {
+                    dataStream.skip(skipSize);
+                }
             }
             else {
-                for (int i = 0; i < nextBatchSize; i++) {
+                for (int i = 0; i < positionCount; i++) {
                     builder.appendNull();
                 }
             }
@@ -123,6 +174,28 @@ public class LongDirectStreamReader
         return builder.build();
     }
 
+    private void seekToReadOffset()
+            throws IOException
+    {
+        if (!rowGroupOpen) {
+            openRowGroup();
+        }
+
+        if (readOffset > 0) {
+            if (presentStream != null) {
+                // skip ahead the present bit reader, but count the set bits
+                // and use this as the skip size for the data reader
+                readOffset = presentStream.countBitsSet(readOffset);
+            }
+            if (readOffset > 0) {
+                if (dataStream == null) {
+                    throw new OrcCorruptionException("Value is not null but data stream is not present");
+                }
+                dataStream.skip(readOffset);
+            }
+        }
+    }
+
     private void openRowGroup()
             throws IOException
     {
@@ -58,6 +58,13 @@ public class LongStreamReader
         return currentReader.readBlock(type);
     }
 
+    @Override
+    public Block readBlock(Type type, int[] positions, int positionCount)
+            throws IOException
+    {
+        return currentReader.readBlock(type, positions, positionCount);
+    }
+
     @Override
     public void startStripe(StreamSources dictionaryStreamSources, List<ColumnEncoding> encoding)
             throws IOException
@@ -0,0 +1,35 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.reader;
+
+final class ReaderUtils
+{
+    private ReaderUtils()
+    {
+    }
+
+    /**
+     * Returns the number of non-null values between {@code start} (inclusive) and {@code end} (exclusive).
+     */
+    public static int countNonNull(boolean[] isNull, int start, int end)
+    {
+        int count = 0;
+        for (int position = start; position < end; position++) {
+            if (!isNull[position]) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -117,6 +117,38 @@ public class SliceDictionaryStreamReader
     @Override
     public Block readBlock(Type type)
             throws IOException
+    {
+        readDictionaryIds(type);
+
+        // copy ids into a private array for this block since data vector is reused
+        Slice ids = Slices.wrappedIntArray(Arrays.copyOfRange(dataVector, 0, nextBatchSize));
+        Block block = new DictionaryBlock(nextBatchSize, dictionaryBlock, ids);
+
+        readOffset = 0;
+        nextBatchSize = 0;
+        return block;
+    }
+
+    @Override
+    public Block readBlock(Type type, int[] positions, int positionCount)
+            throws IOException
+    {
+        readDictionaryIds(type);
+
+        // the values are already decoded in the dictionary, so only the ids of the selected positions are kept
+        int[] ids = new int[positionCount];
+        for (int i = 0; i < positionCount; i++) {
+            ids[i] = dataVector[positions[i]];
+        }
+        Block block = new DictionaryBlock(positionCount, dictionaryBlock, Slices.wrappedIntArray(ids));
+
+        readOffset = 0;
+        nextBatchSize = 0;
+        return block;
+    }
+
+    private void readDictionaryIds(Type type)
+            throws IOException
     {
         if (!rowGroupOpen) {
             openRowGroup(type);
@@ -186,14 +218,6 @@ public class SliceDictionaryStreamReader
                 dataVector[i] += stripeDictionarySize;
             }
         }
-
-        // copy ids into a private array for this block since data vector is reused
-        Slice ids = Slices.wrappedIntArray(Arrays.copyOfRange(dataVector, 0, nextBatchSize));
-        Block block = new DictionaryBlock(nextBatchSize, dictionaryBlock, ids);
-
-        readOffset = 0;
-        nextBatchSize = 0;
-        return block;
     }
 
     private void setDictionaryBlockData(Slice[] dictionary)
@@ -89,6 +89,102 @@ public class SliceDirectStreamReader
     @Override
     public Block readBlock(Type type)
             throws IOException
+    {
+        seekToReadOffset();
+        readLengths();
+
+        int totalLength = 0;
+        for (int i = 0; i < nextBatchSize; i++) {
+            if (!isNullVector[i]) {
+                totalLength += lengthVector[i];
+            }
+        }
+
+        byte[] data = EMPTY_BYTE_ARRAY;
+        if (totalLength > 0) {
+            if (dataStream == null) {
+                throw new OrcCorruptionException("Value is not null but data stream is not present");
+            }
+            data = dataStream.next(totalLength);
+        }
+
+        Slice[] sliceVector = new Slice[nextBatchSize];
+
+        int offset = 0;
+        for (int i = 0; i < nextBatchSize; i++) {
+            if (!isNullVector[i]) {
+                int length = lengthVector[i];
+                Slice value = Slices.wrappedBuffer(data, offset, length);
+                if (isVarcharType(type)) {
+                    value = truncateToLength(value, type);
+                }
+                if (isCharType(type)) {
+                    value = trimSpacesAndTruncateToLength(value, type);
+                }
+                sliceVector[i] = value;
+                offset += length;
+            }
+        }
+
+        readOffset = 0;
+        nextBatchSize = 0;
+
+        return new SliceArrayBlock(sliceVector.length, sliceVector);
+    }
+
+    @Override
+    public Block readBlock(Type type, int[] positions, int positionCount)
+            throws IOException
+    {
+        seekToReadOffset();
+        readLengths();
+
+        int totalLength = 0;
+        for (int i = 0; i < positionCount; i++) {
+            int position = positions[i];
+            if (!isNullVector[position]) {
+                totalLength += lengthVector[position];
+            }
+        }
+
+        byte[] data = totalLength == 0 ? EMPTY_BYTE_ARRAY : new byte[totalLength];
+        Slice[] sliceVector = new Slice[positionCount];
+
+        int offset = 0;
+        int nextPosition = 0;
+        for (int i = 0; i < positionCount; i++) {
+            int position = positions[i];
+            skipData(nextPosition, position);
+            if (!isNullVector[position]) {
+                int length = lengthVector[position];
+                if (length > 0) {
+                    if (dataStream == null) {
+                        throw new OrcCorruptionException("Value is not null but data stream is not present");
+                    }
+                    dataStream.next(data, offset, length);
+                }
+                Slice value = Slices.wrappedBuffer(data, offset, length);
+                if (isVarcharType(type)) {
+                    value = truncateToLength(value, type);
+                }
+                if (isCharType(type)) {
+                    value = trimSpacesAndTruncateToLength(value, type);
+                }
+                sliceVector[i] = value;
+                offset += length;
+            }
+            nextPosition = position + 1;
+        }
+        skipData(nextPosition, nextBatchSize);
+
+        readOffset = 0;
+        nextBatchSize = 0;
+
+        return new SliceArrayBlock(sliceVector.length, sliceVector);
+    }
+
+    private void seekToReadOffset()
+            throws IOException
     {
         if (!rowGroupOpen) {
             openRowGroup();
@@ -113,7 +209,11 @@ public class SliceDirectStreamReader
                 }
             }
         }
+    }
 
+    private void readLengths()
+            throws IOException
+    {
         if (isNullVector.length < nextBatchSize) {
             isNullVector = new boolean[nextBatchSize];
         }
@@ -136,44 +236,23 @@ public class SliceDirectStreamReader
                 lengthStream.nextIntVector(nextBatchSize, lengthVector, isNullVector);
             }
         }
+    }
 
-        int totalLength = 0;
-        for (int i = 0; i < nextBatchSize; i++) {
-            if (!isNullVector[i]) {
-                totalLength += lengthVector[i];
+    private void skipData(int start, int end)
+            throws IOException
+    {
+        long skipSize = 0;
+        for (int position = start; position < end; position++) {
+            if (!isNullVector[position]) {
+                skipSize += lengthVector[position];
             }
         }
-
-        byte[] data = EMPTY_BYTE_ARRAY;
-        if (totalLength > 0) {
+        if (skipSize > 0) {
             if (dataStream == null) {
                 throw new OrcCorruptionException("Value is not null but data stream is not present");
             }
-            data = dataStream.next(totalLength);
+            dataStream.skip(skipSize);
         }
-
-        Slice[] sliceVector = new Slice[nextBatchSize];
-
-        int offset = 0;
-        for (int i = 0; i < nextBatchSize; i++) {
-            if (!isNullVector[i]) {
-                int length = lengthVector[i];
-                Slice value = Slices.wrappedBuffer(data, offset, length);
-                if (isVarcharType(type)) {
-                    value = truncateToLength(value, type);
-                }
-                if (isCharType(type)) {
-                    value = trimSpacesAndTruncateToLength(value, type);
-                }
-                sliceVector[i] = value;
-                offset += length;
-            }
-        }
-
-        readOffset = 0;
-        nextBatchSize = 0;
-
-        return new SliceArrayBlock(sliceVector.length, sliceVector);
     }
 
     private void openRowGroup()
@@ -16,9 +16,12 @@ package com.facebook.presto.orc.reader;
 import com.facebook.presto.orc.metadata.ColumnEncoding;
 import com.facebook.presto.orc.stream.StreamSources;
 import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.DictionaryBlock;
 import com.facebook.presto.spi.type.Type;
+import io.airlift.slice.Slices;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 
 public interface StreamReader
@@ -26,6 +29,18 @@ public interface StreamReader
     Block readBlock(Type type)
             throws IOException;
 
+    /**
+     * Reads the values of the next batch at the first {@code positionCount} entries of
+     * {@code positions}, which are in increasing order. Readers which are able to skip
+     * the values of the other positions without decoding them should override this.
+     */
+    default Block readBlock(Type type, int[] positions, int positionCount)
+            throws IOException
+    {
+        Block block = readBlock(type);
+        return new DictionaryBlock(positionCount, block, Slices.wrappedIntArray(Arrays.copyOf(positions, positionCount)));
+    }
+
     void prepareNextRead(int batchSize);
 
     void startStripe(StreamSources dictionaryStreamSources, List<ColumnEncoding> encoding)
@@ -0,0 +1,119 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.stream;
+
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.Stream.StreamKind;
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Bit packed booleans stored in a run length encoded byte stream, the output side of {@link BooleanStream}.
+ */
+public class BooleanOutputStream
+        implements ValueOutputStream
+{
+    private final ByteOutputStream byteOutputStream;
+    private final List<List<Integer>> checkpoints = new ArrayList<>();
+
+    private int data;
+    private int bitsInData;
+
+    private boolean closed;
+
+    public BooleanOutputStream(CompressionKind compression, int bufferSize, StreamKind streamKind)
+    {
+        this.byteOutputStream = new ByteOutputStream(compression, bufferSize, streamKind);
+    }
+
+    public void writeBoolean(boolean value)
+    {
+        checkState(!closed, "Stream is closed");
+
+        // the first value is stored in the high bit
+        if (value) {
+            data |= 0x80 >>> bitsInData;
+        }
+        bitsInData++;
+        if (bitsInData == 8) {
+            flushData();
+        }
+    }
+
+    private void flushData()
+    {
+        byteOutputStream.writeByte((byte) data);
+        data = 0;
+        bitsInData = 0;
+    }
+
+    @Override
+    public void recordCheckpoint()
+    {
+        checkState(!closed, "Stream is closed");
+        checkpoints.add(ImmutableList.<Integer>builder()
+                .addAll(byteOutputStream.getCheckpoint())
+                .add(bitsInData)
+                .build());
+    }
+
+    @Override
+    public List<List<Integer>> getCheckpoints()
+    {
+        checkState(closed, "Stream is not closed");
+        return ImmutableList.copyOf(checkpoints);
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+        if (bitsInData > 0) {
+            flushData();
+        }
+        byteOutputStream.close();
+    }
+
+    @Override
+    public StreamDataOutput getStreamDataOutput(int column)
+    {
+        return byteOutputStream.getStreamDataOutput(column);
+    }
+
+    @Override
+    public long getBufferedBytes()
+    {
+        return byteOutputStream.getBufferedBytes();
+    }
+
+    @Override
+    public long getRetainedBytes()
+    {
+        return byteOutputStream.getRetainedBytes();
+    }
+
+    @Override
+    public void reset()
+    {
+        closed = false;
+        byteOutputStream.reset();
+        checkpoints.clear();
+        data = 0;
+        bitsInData = 0;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.stream;
+
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.Stream;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Ints;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.DATA;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Unscaled decimal values as zig zag encoded variable length integers of unbounded size,
+ * the output side of {@link DecimalStream}.
+ */
+public class DecimalOutputStream
+        implements ValueOutputStream
+{
+    private final OrcOutputBuffer buffer;
+    private final List<List<Integer>> checkpoints = new ArrayList<>();
+
+    private boolean closed;
+
+    public DecimalOutputStream(CompressionKind compression, int bufferSize)
+    {
+        this.buffer = new OrcOutputBuffer(compression, bufferSize);
+    }
+
+    public void writeUnscaledValue(long value)
+    {
+        checkState(!closed, "Stream is closed");
+        LongOutputStreamV1.writeUnsignedVLong(buffer, (value << 1) ^ (value >> 63));
+    }
+
+    // This is based on the Apache Hive ORC code (see org.apache.hadoop.hive.ql.io.orc.SerializationUtils.java)
+    public void writeUnscaledValue(BigInteger value)
+    {
+        checkState(!closed, "Stream is closed");
+
+        // zig zag encode the value
+        value = value.shiftLeft(1);
+        if (value.signum() < 0) {
+            value = value.negate().subtract(BigInteger.ONE);
+        }
+
+        while (true) {
+            int lowBits = value.intValue() & 0x7F;
+            value = value.shiftRight(7);
+            if (value.signum() == 0) {
+                buffer.write(lowBits);
+                return;
+            }
+            buffer.write(lowBits | 0x80);
+        }
+    }
+
+    @Override
+    public void recordCheckpoint()
+    {
+        checkState(!closed, "Stream is closed");
+        checkpoints.add(buffer.getCheckpoint());
+    }
+
+    @Override
+    public List<List<Integer>> getCheckpoints()
+    {
+        checkState(closed, "Stream is not closed");
+        return ImmutableList.copyOf(checkpoints);
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+        buffer.close();
+    }
+
+    @Override
+    public StreamDataOutput getStreamDataOutput(int column)
+    {
+        return new StreamDataOutput(buffer::writeDataTo, new Stream(column, DATA, Ints.checkedCast(buffer.getOutputDataSize()), false));
+    }
+
+    @Override
+    public long getBufferedBytes()
+    {
+        return buffer.getOutputDataSize();
+    }
+
+    @Override
+    public long getRetainedBytes()
+    {
+        return buffer.getRetainedSize();
+    }
+
+    @Override
+    public void reset()
+    {
+        closed = false;
+        buffer.reset();
+        checkpoints.clear();
+    }
+}
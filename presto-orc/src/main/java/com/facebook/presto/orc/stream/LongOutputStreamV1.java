@@ -0,0 +1,219 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.stream;
+
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.Stream;
+import com.facebook.presto.orc.metadata.Stream.StreamKind;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Ints;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Version 1 run length encoded integers, the output side of {@link LongStreamV1}.
+ */
+public class LongOutputStreamV1
+        implements ValueOutputStream
+{
+    private static final int MIN_REPEAT_SIZE = 3;
+    private static final long MIN_DELTA = -128;
+    private static final long MAX_DELTA = 127;
+    private static final int MAX_LITERAL_SIZE = 128;
+    private static final int MAX_REPEAT_SIZE = 127 + MIN_REPEAT_SIZE;
+
+    private final OrcOutputBuffer buffer;
+    private final boolean signed;
+    private final StreamKind streamKind;
+    private final List<List<Integer>> checkpoints = new ArrayList<>();
+
+    private final long[] literals = new long[MAX_LITERAL_SIZE];
+    private int numLiterals;
+    private long delta;
+    private boolean repeat;
+    private int tailRunLength;
+
+    private boolean closed;
+
+    public LongOutputStreamV1(CompressionKind compression, int bufferSize, boolean signed, StreamKind streamKind)
+    {
+        this.buffer = new OrcOutputBuffer(compression, bufferSize);
+        this.signed = signed;
+        this.streamKind = requireNonNull(streamKind, "streamKind is null");
+    }
+
+    // This comes from the Apache Hive ORC code
+    public void writeLong(long value)
+    {
+        checkState(!closed, "Stream is closed");
+
+        if (numLiterals == 0) {
+            literals[numLiterals++] = value;
+            tailRunLength = 1;
+        }
+        else if (repeat) {
+            if (value == literals[0] + delta * numLiterals) {
+                numLiterals++;
+                if (numLiterals == MAX_REPEAT_SIZE) {
+                    writeValues();
+                }
+            }
+            else {
+                writeValues();
+                literals[numLiterals++] = value;
+                tailRunLength = 1;
+            }
+        }
+        else {
+            if (tailRunLength == 1) {
+                delta = value - literals[numLiterals - 1];
+                tailRunLength = isValidDelta(delta) ? 2 : 1;
+            }
+            else if (value == literals[numLiterals - 1] + delta) {
+                tailRunLength++;
+            }
+            else {
+                delta = value - literals[numLiterals - 1];
+                tailRunLength = isValidDelta(delta) ? 2 : 1;
+            }
+
+            if (tailRunLength == MIN_REPEAT_SIZE) {
+                if (numLiterals + 1 == MIN_REPEAT_SIZE) {
+                    repeat = true;
+                    numLiterals++;
+                }
+                else {
+                    // flush the literals preceding the run
+                    numLiterals -= MIN_REPEAT_SIZE - 1;
+                    long base = literals[numLiterals];
+                    writeValues();
+                    literals[0] = base;
+                    repeat = true;
+                    numLiterals = MIN_REPEAT_SIZE;
+                }
+            }
+            else {
+                literals[numLiterals++] = value;
+                if (numLiterals == MAX_LITERAL_SIZE) {
+                    writeValues();
+                }
+            }
+        }
+    }
+
+    private static boolean isValidDelta(long delta)
+    {
+        return delta >= MIN_DELTA && delta <= MAX_DELTA;
+    }
+
+    private void writeValues()
+    {
+        if (numLiterals == 0) {
+            return;
+        }
+
+        if (repeat) {
+            buffer.write(numLiterals - MIN_REPEAT_SIZE);
+            buffer.write((byte) delta);
+            writeVLong(literals[0]);
+        }
+        else {
+            buffer.write(-numLiterals);
+            for (int i = 0; i < numLiterals; i++) {
+                writeVLong(literals[i]);
+            }
+        }
+
+        repeat = false;
+        numLiterals = 0;
+        tailRunLength = 0;
+    }
+
+    private void writeVLong(long value)
+    {
+        if (signed) {
+            // zig zag encode the value
+            value = (value << 1) ^ (value >> 63);
+        }
+        writeUnsignedVLong(buffer, value);
+    }
+
+    static void writeUnsignedVLong(OrcOutputBuffer buffer, long value)
+    {
+        while ((value & ~0x7FL) != 0) {
+            buffer.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.write((int) value);
+    }
+
+    @Override
+    public void recordCheckpoint()
+    {
+        checkState(!closed, "Stream is closed");
+        checkpoints.add(ImmutableList.<Integer>builder()
+                .addAll(buffer.getCheckpoint())
+                .add(numLiterals)
+                .build());
+    }
+
+    @Override
+    public List<List<Integer>> getCheckpoints()
+    {
+        checkState(closed, "Stream is not closed");
+        return ImmutableList.copyOf(checkpoints);
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+        writeValues();
+        buffer.close();
+    }
+
+    @Override
+    public StreamDataOutput getStreamDataOutput(int column)
+    {
+        return new StreamDataOutput(buffer::writeDataTo, new Stream(column, streamKind, Ints.checkedCast(buffer.getOutputDataSize()), false));
+    }
+
+    @Override
+    public long getBufferedBytes()
+    {
+        return buffer.getOutputDataSize() + (long) numLiterals * Long.BYTES;
+    }
+
+    @Override
+    public long getRetainedBytes()
+    {
+        return buffer.getRetainedSize() + (long) literals.length * Long.BYTES;
+    }
+
+    @Override
+    public void reset()
+    {
+        closed = false;
+        buffer.reset();
+        checkpoints.clear();
+        numLiterals = 0;
+        delta = 0;
+        repeat = false;
+        tailRunLength = 0;
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.stream;
+
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
+import io.airlift.slice.SliceOutput;
+import org.iq80.snappy.Snappy;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.zip.Deflater;
+
+import static com.facebook.presto.orc.metadata.CompressionKind.SNAPPY;
+import static com.facebook.presto.orc.metadata.CompressionKind.UNCOMPRESSED;
+import static com.facebook.presto.orc.metadata.CompressionKind.ZLIB;
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.Math.min;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Output side of {@link OrcInputStream}. Data is split into chunks of at most
+ * {@code maxBufferSize} bytes, and every chunk is compressed and prefixed with
+ * the three byte ORC chunk header. A chunk which does not get smaller when
+ * compressed is stored in its original form.
+ */
+public class OrcOutputBuffer
+        extends OutputStream
+{
+    private static final int INITIAL_BUFFER_SIZE = 256;
+    private static final int MAX_CHUNK_LENGTH = (1 << 23) - 1;
+
+    private final CompressionKind compressionKind;
+    private final int maxBufferSize;
+
+    private final DynamicSliceOutput compressedOutputStream;
+
+    private byte[] buffer = new byte[0];
+    private int bufferPosition;
+
+    private byte[] compressionBuffer = new byte[0];
+
+    public OrcOutputBuffer(CompressionKind compressionKind, int maxBufferSize)
+    {
+        this.compressionKind = requireNonNull(compressionKind, "compressionKind is null");
+        checkArgument(maxBufferSize > 0 && maxBufferSize <= MAX_CHUNK_LENGTH, "maxBufferSize must be between 1 and %s", MAX_CHUNK_LENGTH);
+        this.maxBufferSize = maxBufferSize;
+        this.compressedOutputStream = new DynamicSliceOutput(INITIAL_BUFFER_SIZE);
+    }
+
+    /**
+     * Returns the position of the next byte written to this buffer, in the form expected by the
+     * row group index: the offset of the current chunk followed by the offset in the uncompressed
+     * chunk for compressed streams, and the byte offset for uncompressed streams.
+     */
+    public List<Integer> getCheckpoint()
+    {
+        if (compressionKind == UNCOMPRESSED) {
+            return ImmutableList.of(compressedOutputStream.size());
+        }
+        return ImmutableList.of(compressedOutputStream.size(), bufferPosition);
+    }
+
+    /**
+     * Size of the data in this buffer, which is the final size of the stream once the buffer is closed.
+     */
+    public long getOutputDataSize()
+    {
+        return compressedOutputStream.size() + bufferPosition;
+    }
+
+    public long getRetainedSize()
+    {
+        return compressedOutputStream.getRetainedSize() + buffer.length + compressionBuffer.length;
+    }
+
+    @Override
+    public void write(int value)
+    {
+        if (compressionKind == UNCOMPRESSED) {
+            compressedOutputStream.writeByte(value);
+            return;
+        }
+        ensureWritableBytes(1);
+        buffer[bufferPosition++] = (byte) value;
+        flushBufferIfFull();
+    }
+
+    @Override
+    public void write(byte[] source, int sourceIndex, int length)
+    {
+        if (compressionKind == UNCOMPRESSED) {
+            compressedOutputStream.writeBytes(source, sourceIndex, length);
+            return;
+        }
+        while (length > 0) {
+            int chunkLength = ensureWritableBytes(length);
+            System.arraycopy(source, sourceIndex, buffer, bufferPosition, chunkLength);
+            bufferPosition += chunkLength;
+            sourceIndex += chunkLength;
+            length -= chunkLength;
+            flushBufferIfFull();
+        }
+    }
+
+    public void writeBytes(Slice source, int sourceIndex, int length)
+    {
+        if (compressionKind == UNCOMPRESSED) {
+            compressedOutputStream.writeBytes(source, sourceIndex, length);
+            return;
+        }
+        while (length > 0) {
+            int chunkLength = ensureWritableBytes(length);
+            source.getBytes(sourceIndex, buffer, bufferPosition, chunkLength);
+            bufferPosition += chunkLength;
+            sourceIndex += chunkLength;
+            length -= chunkLength;
+            flushBufferIfFull();
+        }
+    }
+
+    public void writeIntLittleEndian(int value)
+    {
+        write(value);
+        write(value >>> 8);
+        write(value >>> 16);
+        write(value >>> 24);
+    }
+
+    public void writeLongLittleEndian(long value)
+    {
+        writeIntLittleEndian((int) value);
+        writeIntLittleEndian((int) (value >>> 32));
+    }
+
+    /**
+     * Compresses all buffered data. No data may be written until the buffer is reset.
+     */
+    @Override
+    public void close()
+    {
+        flushBuffer();
+    }
+
+    public void writeDataTo(SliceOutput output)
+    {
+        output.writeBytes(compressedOutputStream.slice());
+    }
+
+    public void reset()
+    {
+        compressedOutputStream.reset();
+        bufferPosition = 0;
+    }
+
+    /**
+     * Grows the buffer to fit up to {@code length} more bytes, and returns the number of bytes which fit.
+     */
+    private int ensureWritableBytes(int length)
+    {
+        int writableBytes = min(length, maxBufferSize - bufferPosition);
+        if (bufferPosition + writableBytes > buffer.length) {
+            int newSize = min(maxBufferSize, Math.max(buffer.length * 2, Math.max(INITIAL_BUFFER_SIZE, bufferPosition + writableBytes)));
+            byte[] newBuffer = new byte[newSize];
+            System.arraycopy(buffer, 0, newBuffer, 0, bufferPosition);
+            buffer = newBuffer;
+        }
+        return writableBytes;
+    }
+
+    private void flushBufferIfFull()
+    {
+        if (bufferPosition == maxBufferSize) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer()
+    {
+        if (bufferPosition == 0) {
+            return;
+        }
+
+        int compressedLength = compress(buffer, bufferPosition);
+        if (compressedLength >= 0 && compressedLength < bufferPosition) {
+            writeChunkHeader(compressedLength, false);
+            compressedOutputStream.writeBytes(compressionBuffer, 0, compressedLength);
+        }
+        else {
+            writeChunkHeader(bufferPosition, true);
+            compressedOutputStream.writeBytes(buffer, 0, bufferPosition);
+        }
+        bufferPosition = 0;
+    }
+
+    private void writeChunkHeader(int length, boolean isOriginal)
+    {
+        int header = (length << 1) | (isOriginal ? 1 : 0);
+        compressedOutputStream.writeByte(header);
+        compressedOutputStream.writeByte(header >>> 8);
+        compressedOutputStream.writeByte(header >>> 16);
+    }
+
+    /**
+     * Compresses the chunk into the compression buffer, and returns the compressed size,
+     * or -1 if the compressed chunk would not be smaller than the original.
+     */
+    private int compress(byte[] chunk, int length)
+    {
+        if (compressionKind == SNAPPY) {
+            int maxCompressedLength = Snappy.maxCompressedLength(length);
+            if (compressionBuffer.length < maxCompressedLength) {
+                compressionBuffer = new byte[maxCompressedLength];
+            }
+            return Snappy.compress(chunk, 0, length, compressionBuffer, 0);
+        }
+
+        if (compressionKind == ZLIB) {
+            if (compressionBuffer.length < length) {
+                compressionBuffer = new byte[length];
+            }
+            // This is based on the Apache Hive ORC code
+            Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            try {
+                deflater.setInput(chunk, 0, length);
+                deflater.finish();
+                int compressedLength = 0;
+                while (!deflater.finished()) {
+                    if (compressedLength >= length) {
+                        return -1;
+                    }
+                    compressedLength += deflater.deflate(compressionBuffer, compressedLength, length - compressedLength);
+                }
+                return compressedLength;
+            }
+            finally {
+                deflater.end();
+            }
+        }
+
+        throw new IllegalStateException("Unsupported compression " + compressionKind);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("outputDataSize", getOutputDataSize())
+                .add("compression", compressionKind)
+                .toString();
+    }
+}
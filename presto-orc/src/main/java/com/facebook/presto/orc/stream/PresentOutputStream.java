@@ -0,0 +1,142 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.stream;
+
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.google.common.collect.ImmutableList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.PRESENT;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * PRESENT stream of a column. The stream is only created once the first null is written,
+ * as a stripe without nulls does not store the stream and its row group positions at all.
+ */
+public class PresentOutputStream
+{
+    private final CompressionKind compression;
+    private final int bufferSize;
+
+    // number of values written in each row group, until the boolean stream is created
+    private final IntArrayList groupValueCounts = new IntArrayList();
+
+    private BooleanOutputStream booleanOutputStream;
+
+    private boolean closed;
+
+    public PresentOutputStream(CompressionKind compression, int bufferSize)
+    {
+        this.compression = requireNonNull(compression, "compression is null");
+        this.bufferSize = bufferSize;
+    }
+
+    public void writeBoolean(boolean value)
+    {
+        checkState(!closed, "Stream is closed");
+        if (!value && booleanOutputStream == null) {
+            createBooleanOutputStream();
+        }
+
+        if (booleanOutputStream != null) {
+            booleanOutputStream.writeBoolean(value);
+        }
+        else {
+            int lastGroup = groupValueCounts.size() - 1;
+            checkState(lastGroup >= 0, "No checkpoint was recorded");
+            groupValueCounts.set(lastGroup, groupValueCounts.getInt(lastGroup) + 1);
+        }
+    }
+
+    private void createBooleanOutputStream()
+    {
+        booleanOutputStream = new BooleanOutputStream(compression, bufferSize, PRESENT);
+        for (int group = 0; group < groupValueCounts.size(); group++) {
+            booleanOutputStream.recordCheckpoint();
+            for (int i = 0; i < groupValueCounts.getInt(group); i++) {
+                booleanOutputStream.writeBoolean(true);
+            }
+        }
+        groupValueCounts.clear();
+    }
+
+    public void recordCheckpoint()
+    {
+        checkState(!closed, "Stream is closed");
+        if (booleanOutputStream != null) {
+            booleanOutputStream.recordCheckpoint();
+        }
+        else {
+            groupValueCounts.add(0);
+        }
+    }
+
+    public void close()
+    {
+        closed = true;
+        if (booleanOutputStream != null) {
+            booleanOutputStream.close();
+        }
+    }
+
+    /**
+     * Row group positions of the stream, or empty if the stripe does not contain nulls.
+     */
+    public Optional<List<List<Integer>>> getCheckpoints()
+    {
+        checkState(closed, "Stream is not closed");
+        if (booleanOutputStream == null) {
+            return Optional.empty();
+        }
+        return Optional.of(ImmutableList.copyOf(booleanOutputStream.getCheckpoints()));
+    }
+
+    public Optional<StreamDataOutput> getStreamDataOutput(int column)
+    {
+        checkState(closed, "Stream is not closed");
+        if (booleanOutputStream == null) {
+            return Optional.empty();
+        }
+        return Optional.of(booleanOutputStream.getStreamDataOutput(column));
+    }
+
+    public long getBufferedBytes()
+    {
+        if (booleanOutputStream == null) {
+            return 0;
+        }
+        return booleanOutputStream.getBufferedBytes();
+    }
+
+    public long getRetainedBytes()
+    {
+        // the boolean stream is not reused across stripes, as most stripes do not need it
+        long retainedBytes = groupValueCounts.elements().length * (long) Integer.BYTES;
+        if (booleanOutputStream != null) {
+            retainedBytes += booleanOutputStream.getRetainedBytes();
+        }
+        return retainedBytes;
+    }
+
+    public void reset()
+    {
+        closed = false;
+        booleanOutputStream = null;
+        groupValueCounts.clear();
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.stream;
+
+import java.util.List;
+
+public interface ValueOutputStream
+{
+    /**
+     * Records the position of the next value written to the stream, which is the first value of a row group.
+     */
+    void recordCheckpoint();
+
+    /**
+     * Positions of the recorded checkpoints, in the format read by the matching {@link ValueStream}.
+     */
+    List<List<Integer>> getCheckpoints();
+
+    /**
+     * Writes out all pending values. No values may be written until the stream is reset.
+     */
+    void close();
+
+    StreamDataOutput getStreamDataOutput(int column);
+
+    /**
+     * Size of the data written to the stream so far.
+     */
+    long getBufferedBytes();
+
+    long getRetainedBytes();
+
+    void reset();
+}
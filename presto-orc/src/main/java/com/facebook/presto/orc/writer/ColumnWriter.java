@@ -0,0 +1,66 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.writer;
+
+import com.facebook.presto.orc.metadata.ColumnEncoding;
+import com.facebook.presto.orc.metadata.ColumnStatistics;
+import com.facebook.presto.orc.metadata.CompressedMetadataWriter;
+import com.facebook.presto.orc.stream.StreamDataOutput;
+import com.facebook.presto.spi.block.Block;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the values of a column, and of all columns nested in it, to the streams of a stripe.
+ * The maps returned by the writer are keyed by ORC column index.
+ */
+public interface ColumnWriter
+{
+    Map<Integer, ColumnEncoding> getColumnEncodings();
+
+    void beginRowGroup();
+
+    void writeBlock(Block block);
+
+    /**
+     * Returns the statistics of the values written since the row group began.
+     */
+    Map<Integer, ColumnStatistics> finishRowGroup();
+
+    /**
+     * Writes out all pending values of the stripe.
+     */
+    void close();
+
+    Map<Integer, ColumnStatistics> getColumnStripeStatistics();
+
+    List<StreamDataOutput> getIndexStreams(CompressedMetadataWriter metadataWriter)
+            throws IOException;
+
+    List<StreamDataOutput> getDataStreams();
+
+    /**
+     * Size of the data buffered for the current stripe.
+     */
+    long getBufferedBytes();
+
+    long getRetainedBytes();
+
+    /**
+     * Prepares the writer for the next stripe.
+     */
+    void reset();
+}
@@ -0,0 +1,139 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.writer;
+
+import com.facebook.presto.orc.metadata.ColumnStatistics;
+import com.facebook.presto.orc.metadata.CompressedMetadataWriter;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.OrcType;
+import com.facebook.presto.orc.metadata.RowGroupIndex;
+import com.facebook.presto.orc.metadata.Stream;
+import com.facebook.presto.orc.stream.StreamDataOutput;
+import com.facebook.presto.spi.type.DecimalType;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.Slice;
+import org.joda.time.DateTimeZone;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.ROW_INDEX;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+public final class ColumnWriters
+{
+    private ColumnWriters() {}
+
+    /**
+     * Creates the writer of an ORC column. The values are read from blocks of the specified type,
+     * and are stored in the encoding of the ORC type.
+     */
+    public static ColumnWriter createColumnWriter(
+            int columnIndex,
+            List<OrcType> orcTypes,
+            Type type,
+            CompressionKind compression,
+            int bufferSize,
+            DateTimeZone hiveStorageTimeZone,
+            long dictionaryMaxMemoryBytes)
+    {
+        requireNonNull(type, "type is null");
+        OrcType orcType = orcTypes.get(columnIndex);
+        switch (orcType.getOrcTypeKind()) {
+            case BOOLEAN:
+                return new BooleanColumnWriter(columnIndex, type, compression, bufferSize);
+            case BYTE:
+                return new ByteColumnWriter(columnIndex, type, compression, bufferSize);
+            case SHORT:
+            case INT:
+            case LONG:
+                return new LongColumnWriter(columnIndex, type, compression, bufferSize, false);
+            case DATE:
+                return new LongColumnWriter(columnIndex, type, compression, bufferSize, true);
+            case FLOAT:
+                return new FloatColumnWriter(columnIndex, type, compression, bufferSize);
+            case DOUBLE:
+                return new DoubleColumnWriter(columnIndex, type, compression, bufferSize);
+            case STRING:
+            case VARCHAR:
+            case CHAR:
+                return new SliceColumnWriter(columnIndex, type, compression, bufferSize, true, dictionaryMaxMemoryBytes);
+            case BINARY:
+                return new SliceColumnWriter(columnIndex, type, compression, bufferSize, false, dictionaryMaxMemoryBytes);
+            case TIMESTAMP:
+                return new TimestampColumnWriter(columnIndex, type, compression, bufferSize, hiveStorageTimeZone);
+            case DECIMAL:
+                checkArgument(type instanceof DecimalType, "Type %s can not be written as ORC %s", type, orcType.getOrcTypeKind());
+                return new DecimalColumnWriter(columnIndex, (DecimalType) type, compression, bufferSize);
+            case LIST: {
+                Type elementType = type.getTypeParameters().get(0);
+                ColumnWriter elementWriter = createColumnWriter(orcType.getFieldTypeIndex(0), orcTypes, elementType, compression, bufferSize, hiveStorageTimeZone, dictionaryMaxMemoryBytes);
+                return new ListColumnWriter(columnIndex, compression, bufferSize, elementWriter);
+            }
+            case MAP: {
+                Type keyType = type.getTypeParameters().get(0);
+                Type valueType = type.getTypeParameters().get(1);
+                ColumnWriter keyWriter = createColumnWriter(orcType.getFieldTypeIndex(0), orcTypes, keyType, compression, bufferSize, hiveStorageTimeZone, dictionaryMaxMemoryBytes);
+                ColumnWriter valueWriter = createColumnWriter(orcType.getFieldTypeIndex(1), orcTypes, valueType, compression, bufferSize, hiveStorageTimeZone, dictionaryMaxMemoryBytes);
+                return new MapColumnWriter(columnIndex, compression, bufferSize, keyWriter, valueWriter);
+            }
+            case STRUCT: {
+                ImmutableList.Builder<ColumnWriter> fieldWriters = ImmutableList.builder();
+                for (int field = 0; field < orcType.getFieldCount(); field++) {
+                    Type fieldType = type.getTypeParameters().get(field);
+                    fieldWriters.add(createColumnWriter(orcType.getFieldTypeIndex(field), orcTypes, fieldType, compression, bufferSize, hiveStorageTimeZone, dictionaryMaxMemoryBytes));
+                }
+                return new StructColumnWriter(columnIndex, compression, bufferSize, fieldWriters.build());
+            }
+        }
+        throw new IllegalArgumentException("Unsupported type: " + orcType.getOrcTypeKind());
+    }
+
+    /**
+     * Concatenates the positions of the streams of a column in a row group, in the order expected by the reader.
+     */
+    @SafeVarargs
+    static List<Integer> createRowGroupPositions(Optional<List<List<Integer>>> presentCheckpoints, int rowGroup, List<List<Integer>>... valueCheckpoints)
+    {
+        ImmutableList.Builder<Integer> positions = ImmutableList.builder();
+        presentCheckpoints.ifPresent(checkpoints -> positions.addAll(checkpoints.get(rowGroup)));
+        for (List<List<Integer>> checkpoints : valueCheckpoints) {
+            positions.addAll(checkpoints.get(rowGroup));
+        }
+        return positions.build();
+    }
+
+    @SafeVarargs
+    static List<StreamDataOutput> createRowIndexStream(
+            CompressedMetadataWriter metadataWriter,
+            int column,
+            List<ColumnStatistics> rowGroupColumnStatistics,
+            Optional<List<List<Integer>>> presentCheckpoints,
+            List<List<Integer>>... valueCheckpoints)
+            throws IOException
+    {
+        ImmutableList.Builder<RowGroupIndex> rowGroupIndexes = ImmutableList.builder();
+        for (int rowGroup = 0; rowGroup < rowGroupColumnStatistics.size(); rowGroup++) {
+            List<Integer> positions = createRowGroupPositions(presentCheckpoints, rowGroup, valueCheckpoints);
+            rowGroupIndexes.add(new RowGroupIndex(positions, rowGroupColumnStatistics.get(rowGroup)));
+        }
+
+        Slice slice = metadataWriter.writeRowIndexes(rowGroupIndexes.build());
+        Stream stream = new Stream(column, ROW_INDEX, slice.length(), false);
+        return ImmutableList.of(new StreamDataOutput(slice, stream));
+    }
+}
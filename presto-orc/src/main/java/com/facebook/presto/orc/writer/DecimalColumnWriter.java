@@ -0,0 +1,205 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.writer;
+
+import com.facebook.presto.orc.metadata.ColumnEncoding;
+import com.facebook.presto.orc.metadata.ColumnStatistics;
+import com.facebook.presto.orc.metadata.CompressedMetadataWriter;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.DecimalStatistics;
+import com.facebook.presto.orc.stream.DecimalOutputStream;
+import com.facebook.presto.orc.stream.LongOutputStreamV1;
+import com.facebook.presto.orc.stream.PresentOutputStream;
+import com.facebook.presto.orc.stream.StreamDataOutput;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.DecimalType;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind.DIRECT;
+import static com.facebook.presto.orc.metadata.ColumnStatistics.mergeColumnStatistics;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.SECONDARY;
+import static com.facebook.presto.orc.writer.ColumnWriters.createRowIndexStream;
+import static com.facebook.presto.spi.type.Decimals.decodeUnscaledValue;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+public class DecimalColumnWriter
+        implements ColumnWriter
+{
+    private final int column;
+    private final DecimalType type;
+    private final DecimalOutputStream dataStream;
+    private final LongOutputStreamV1 scaleStream;
+    private final PresentOutputStream presentStream;
+
+    private final List<ColumnStatistics> rowGroupColumnStatistics = new ArrayList<>();
+    private long nonNullValueCount;
+    private BigDecimal minimum;
+    private BigDecimal maximum;
+
+    private boolean closed;
+
+    public DecimalColumnWriter(int column, DecimalType type, CompressionKind compression, int bufferSize)
+    {
+        checkArgument(column >= 0, "column is negative");
+        this.column = column;
+        this.type = requireNonNull(type, "type is null");
+        this.dataStream = new DecimalOutputStream(compression, bufferSize);
+        this.scaleStream = new LongOutputStreamV1(compression, bufferSize, true, SECONDARY);
+        this.presentStream = new PresentOutputStream(compression, bufferSize);
+    }
+
+    @Override
+    public Map<Integer, ColumnEncoding> getColumnEncodings()
+    {
+        return ImmutableMap.of(column, new ColumnEncoding(DIRECT, 0));
+    }
+
+    @Override
+    public void beginRowGroup()
+    {
+        presentStream.recordCheckpoint();
+        dataStream.recordCheckpoint();
+        scaleStream.recordCheckpoint();
+    }
+
+    @Override
+    public void writeBlock(Block block)
+    {
+        checkState(!closed, "Writer is closed");
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            if (block.isNull(position)) {
+                presentStream.writeBoolean(false);
+                continue;
+            }
+            presentStream.writeBoolean(true);
+            BigInteger unscaledValue;
+            if (type.isShort()) {
+                long value = type.getLong(block, position);
+                dataStream.writeUnscaledValue(value);
+                unscaledValue = BigInteger.valueOf(value);
+            }
+            else {
+                unscaledValue = decodeUnscaledValue(type.getSlice(block, position));
+                dataStream.writeUnscaledValue(unscaledValue);
+            }
+            // the scale is stored with every value, even though it is the same for the whole column
+            scaleStream.writeLong(type.getScale());
+            nonNullValueCount++;
+
+            BigDecimal value = new BigDecimal(unscaledValue, type.getScale());
+            if (minimum == null || value.compareTo(minimum) < 0) {
+                minimum = value;
+            }
+            if (maximum == null || value.compareTo(maximum) > 0) {
+                maximum = value;
+            }
+        }
+    }
+
+    @Override
+    public Map<Integer, ColumnStatistics> finishRowGroup()
+    {
+        checkState(!closed, "Writer is closed");
+        ColumnStatistics statistics = new ColumnStatistics(
+                nonNullValueCount,
+                null,
+                null,
+                null,
+                null,
+                null,
+                minimum != null ? new DecimalStatistics(minimum, maximum) : null,
+                null);
+        rowGroupColumnStatistics.add(statistics);
+        nonNullValueCount = 0;
+        minimum = null;
+        maximum = null;
+        return ImmutableMap.of(column, statistics);
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+        dataStream.close();
+        scaleStream.close();
+        presentStream.close();
+    }
+
+    @Override
+    public Map<Integer, ColumnStatistics> getColumnStripeStatistics()
+    {
+        checkState(closed, "Writer is not closed");
+        return ImmutableMap.of(column, mergeColumnStatistics(rowGroupColumnStatistics));
+    }
+
+    @Override
+    public List<StreamDataOutput> getIndexStreams(CompressedMetadataWriter metadataWriter)
+            throws IOException
+    {
+        checkState(closed, "Writer is not closed");
+        return createRowIndexStream(
+                metadataWriter,
+                column,
+                rowGroupColumnStatistics,
+                presentStream.getCheckpoints(),
+                dataStream.getCheckpoints(),
+                scaleStream.getCheckpoints());
+    }
+
+    @Override
+    public List<StreamDataOutput> getDataStreams()
+    {
+        checkState(closed, "Writer is not closed");
+        ImmutableList.Builder<StreamDataOutput> outputDataStreams = ImmutableList.builder();
+        presentStream.getStreamDataOutput(column).ifPresent(outputDataStreams::add);
+        outputDataStreams.add(dataStream.getStreamDataOutput(column));
+        outputDataStreams.add(scaleStream.getStreamDataOutput(column));
+        return outputDataStreams.build();
+    }
+
+    @Override
+    public long getBufferedBytes()
+    {
+        return dataStream.getBufferedBytes() + scaleStream.getBufferedBytes() + presentStream.getBufferedBytes();
+    }
+
+    @Override
+    public long getRetainedBytes()
+    {
+        return dataStream.getRetainedBytes() + scaleStream.getRetainedBytes() + presentStream.getRetainedBytes();
+    }
+
+    @Override
+    public void reset()
+    {
+        closed = false;
+        dataStream.reset();
+        scaleStream.reset();
+        presentStream.reset();
+        rowGroupColumnStatistics.clear();
+        nonNullValueCount = 0;
+        minimum = null;
+        maximum = null;
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.writer;
+
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
+import io.airlift.slice.XxHash64;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.slice.SizeOf.sizeOf;
+
+/**
+ * Distinct values of a string column, stored in a single buffer. Entries are
+ * identified by the order in which they were added.
+ */
+class DictionaryBuilder
+{
+    private static final float FILL_RATIO = 0.75f;
+    private static final int EMPTY_SLOT = -1;
+
+    private final DynamicSliceOutput entries;
+    private final IntArrayList offsets = new IntArrayList();
+
+    private int[] hashTable;
+    private int mask;
+    private int maxFill;
+
+    public DictionaryBuilder(int expectedEntries)
+    {
+        checkArgument(expectedEntries > 0, "expectedEntries must be positive");
+        this.entries = new DynamicSliceOutput(expectedEntries * 16);
+        offsets.add(0);
+        createHashTable(expectedEntries);
+    }
+
+    public int getEntryCount()
+    {
+        return offsets.size() - 1;
+    }
+
+    public Slice getRawSlice()
+    {
+        return entries.getUnderlyingSlice();
+    }
+
+    public int getOffset(int entry)
+    {
+        return offsets.getInt(entry);
+    }
+
+    public int getLength(int entry)
+    {
+        return offsets.getInt(entry + 1) - offsets.getInt(entry);
+    }
+
+    public long getSizeInBytes()
+    {
+        return entries.size() + (long) offsets.size() * Integer.BYTES;
+    }
+
+    public long getRetainedSizeInBytes()
+    {
+        return entries.getRetainedSize() + sizeOf(offsets.elements()) + sizeOf(hashTable);
+    }
+
+    /**
+     * Adds the value if it is not in the dictionary yet, and returns the entry of the value.
+     */
+    public int putIfAbsent(Slice value, int offset, int length)
+    {
+        int slot = (int) XxHash64.hash(value, offset, length) & mask;
+        while (hashTable[slot] != EMPTY_SLOT) {
+            int entry = hashTable[slot];
+            if (getRawSlice().equals(getOffset(entry), getLength(entry), value, offset, length)) {
+                return entry;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        int entry = getEntryCount();
+        entries.writeBytes(value, offset, length);
+        offsets.add(entries.size());
+        hashTable[slot] = entry;
+
+        if (getEntryCount() >= maxFill) {
+            rehash();
+        }
+        return entry;
+    }
+
+    public void clear()
+    {
+        entries.reset();
+        offsets.clear();
+        offsets.add(0);
+        Arrays.fill(hashTable, EMPTY_SLOT);
+    }
+
+    private void rehash()
+    {
+        createHashTable(hashTable.length);
+        for (int entry = 0; entry < getEntryCount(); entry++) {
+            int slot = (int) XxHash64.hash(getRawSlice(), getOffset(entry), getLength(entry)) & mask;
+            while (hashTable[slot] != EMPTY_SLOT) {
+                slot = (slot + 1) & mask;
+            }
+            hashTable[slot] = entry;
+        }
+    }
+
+    // creates a table which holds at least the specified number of entries before it is rehashed
+    private void createHashTable(int entryCount)
+    {
+        int size = Integer.highestOneBit((int) (entryCount * 2 / FILL_RATIO));
+        hashTable = new int[size];
+        Arrays.fill(hashTable, EMPTY_SLOT);
+        mask = size - 1;
+        maxFill = (int) (size * FILL_RATIO);
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.writer;
+
+import com.facebook.presto.orc.metadata.ColumnEncoding;
+import com.facebook.presto.orc.metadata.ColumnStatistics;
+import com.facebook.presto.orc.metadata.CompressedMetadataWriter;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.stream.LongOutputStreamV1;
+import com.facebook.presto.orc.stream.PresentOutputStream;
+import com.facebook.presto.orc.stream.StreamDataOutput;
+import com.facebook.presto.spi.block.Block;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind.DIRECT;
+import static com.facebook.presto.orc.metadata.ColumnStatistics.mergeColumnStatistics;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.LENGTH;
+import static com.facebook.presto.orc.writer.ColumnWriters.createRowIndexStream;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+public class ListColumnWriter
+        implements ColumnWriter
+{
+    private final int column;
+    private final ColumnWriter elementWriter;
+    private final LongOutputStreamV1 lengthStream;
+    private final PresentOutputStream presentStream;
+
+    private final List<ColumnStatistics> rowGroupColumnStatistics = new ArrayList<>();
+    private long nonNullValueCount;
+
+    private boolean closed;
+
+    public ListColumnWriter(int column, CompressionKind compression, int bufferSize, ColumnWriter elementWriter)
+    {
+        checkArgument(column >= 0, "column is negative");
+        this.column = column;
+        this.elementWriter = requireNonNull(elementWriter, "elementWriter is null");
+        this.lengthStream = new LongOutputStreamV1(compression, bufferSize, false, LENGTH);
+        this.presentStream = new PresentOutputStream(compression, bufferSize);
+    }
+
+    @Override
+    public Map<Integer, ColumnEncoding> getColumnEncodings()
+    {
+        return ImmutableMap.<Integer, ColumnEncoding>builder()
+                .put(column, new ColumnEncoding(DIRECT, 0))
+                .putAll(elementWriter.getColumnEncodings())
+                .build();
+    }
+
+    @Override
+    public void beginRowGroup()
+    {
+        presentStream.recordCheckpoint();
+        lengthStream.recordCheckpoint();
+        elementWriter.beginRowGroup();
+    }
+
+    @Override
+    public void writeBlock(Block block)
+    {
+        checkState(!closed, "Writer is closed");
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            if (block.isNull(position)) {
+                presentStream.writeBoolean(false);
+                continue;
+            }
+            presentStream.writeBoolean(true);
+            Block elements = block.getObject(position, Block.class);
+            lengthStream.writeLong(elements.getPositionCount());
+            if (elements.getPositionCount() > 0) {
+                elementWriter.writeBlock(elements);
+            }
+            nonNullValueCount++;
+        }
+    }
+
+    @Override
+    public Map<Integer, ColumnStatistics> finishRowGroup()
+    {
+        checkState(!closed, "Writer is closed");
+        ColumnStatistics statistics = new ColumnStatistics(nonNullValueCount, null, null, null, null, null, null, null);
+        rowGroupColumnStatistics.add(statistics);
+        nonNullValueCount = 0;
+        return ImmutableMap.<Integer, ColumnStatistics>builder()
+                .put(column, statistics)
+                .putAll(elementWriter.finishRowGroup())
+                .build();
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+        elementWriter.close();
+        lengthStream.close();
+        presentStream.close();
+    }
+
+    @Override
+    public Map<Integer, ColumnStatistics> getColumnStripeStatistics()
+    {
+        checkState(closed, "Writer is not closed");
+        return ImmutableMap.<Integer, ColumnStatistics>builder()
+                .put(column, mergeColumnStatistics(rowGroupColumnStatistics))
+                .putAll(elementWriter.getColumnStripeStatistics())
+                .build();
+    }
+
+    @Override
+    public List<StreamDataOutput> getIndexStreams(CompressedMetadataWriter metadataWriter)
+            throws IOException
+    {
+        checkState(closed, "Writer is not closed");
+        return ImmutableList.<StreamDataOutput>builder()
+                .addAll(createRowIndexStream(metadataWriter, column, rowGroupColumnStatistics, presentStream.getCheckpoints(), lengthStream.getCheckpoints()))
+                .addAll(elementWriter.getIndexStreams(metadataWriter))
+                .build();
+    }
+
+    @Override
+    public List<StreamDataOutput> getDataStreams()
+    {
+        checkState(closed, "Writer is not closed");
+        ImmutableList.Builder<StreamDataOutput> outputDataStreams = ImmutableList.builder();
+        presentStream.getStreamDataOutput(column).ifPresent(outputDataStreams::add);
+        outputDataStreams.add(lengthStream.getStreamDataOutput(column));
+        outputDataStreams.addAll(elementWriter.getDataStreams());
+        return outputDataStreams.build();
+    }
+
+    @Override
+    public long getBufferedBytes()
+    {
+        return lengthStream.getBufferedBytes() + presentStream.getBufferedBytes() + elementWriter.getBufferedBytes();
+    }
+
+    @Override
+    public long getRetainedBytes()
+    {
+        return lengthStream.getRetainedBytes() + presentStream.getRetainedBytes() + elementWriter.getRetainedBytes();
+    }
+
+    @Override
+    public void reset()
+    {
+        closed = false;
+        lengthStream.reset();
+        presentStream.reset();
+        elementWriter.reset();
+        rowGroupColumnStatistics.clear();
+        nonNullValueCount = 0;
+    }
+}
@@ -0,0 +1,382 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.writer;
+
+import com.facebook.presto.orc.metadata.ColumnEncoding;
+import com.facebook.presto.orc.metadata.ColumnStatistics;
+import com.facebook.presto.orc.metadata.CompressedMetadataWriter;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.StringStatistics;
+import com.facebook.presto.orc.stream.ByteArrayOutputStream;
+import com.facebook.presto.orc.stream.LongOutputStreamV1;
+import com.facebook.presto.orc.stream.PresentOutputStream;
+import com.facebook.presto.orc.stream.StreamDataOutput;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import it.unimi.dsi.fastutil.ints.AbstractIntComparator;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind.DICTIONARY;
+import static com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind.DIRECT;
+import static com.facebook.presto.orc.metadata.ColumnStatistics.mergeColumnStatistics;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.DATA;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.DICTIONARY_DATA;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.LENGTH;
+import static com.facebook.presto.orc.writer.ColumnWriters.createRowIndexStream;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.slice.SizeOf.sizeOf;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Writer of string and binary columns. The values of a stripe are collected in a dictionary,
+ * and the encoding of the stripe is chosen once it is complete: the dictionary is written if
+ * the column has enough repeated values, and the values are written directly otherwise. When
+ * the dictionary exceeds its memory limit, the stripe is converted to the direct encoding
+ * right away.
+ */
+public class SliceColumnWriter
+        implements ColumnWriter
+{
+    // same threshold as the Apache Hive ORC writer
+    private static final double DICTIONARY_KEY_SIZE_THRESHOLD = 0.8;
+    private static final int EXPECTED_DICTIONARY_ENTRIES = 10_000;
+
+    private final int column;
+    private final Type type;
+    private final boolean stringStatisticsEnabled;
+    private final long dictionaryMaxMemoryBytes;
+
+    private final PresentOutputStream presentStream;
+
+    private final ByteArrayOutputStream directDataStream;
+    private final LongOutputStreamV1 directLengthStream;
+
+    private final LongOutputStreamV1 dictionaryDataStream;
+    private final ByteArrayOutputStream dictionaryBytesStream;
+    private final LongOutputStreamV1 dictionaryLengthStream;
+
+    private final DictionaryBuilder dictionary = new DictionaryBuilder(EXPECTED_DICTIONARY_ENTRIES);
+    // dictionary entry of every non-null value of the stripe
+    private final IntArrayList values = new IntArrayList();
+    // number of non-null values in every row group of the stripe
+    private final IntArrayList rowGroupValueCounts = new IntArrayList();
+
+    private final List<ColumnStatistics> rowGroupColumnStatistics = new ArrayList<>();
+    private long nonNullValueCount;
+    private Slice minimum;
+    private Slice maximum;
+
+    private boolean directEncoded;
+    private boolean closed;
+
+    public SliceColumnWriter(int column, Type type, CompressionKind compression, int bufferSize, boolean stringStatisticsEnabled, long dictionaryMaxMemoryBytes)
+    {
+        checkArgument(column >= 0, "column is negative");
+        this.column = column;
+        this.type = requireNonNull(type, "type is null");
+        this.stringStatisticsEnabled = stringStatisticsEnabled;
+        this.dictionaryMaxMemoryBytes = dictionaryMaxMemoryBytes;
+
+        this.presentStream = new PresentOutputStream(compression, bufferSize);
+
+        this.directDataStream = new ByteArrayOutputStream(compression, bufferSize, DATA);
+        this.directLengthStream = new LongOutputStreamV1(compression, bufferSize, false, LENGTH);
+
+        this.dictionaryDataStream = new LongOutputStreamV1(compression, bufferSize, false, DATA);
+        this.dictionaryBytesStream = new ByteArrayOutputStream(compression, bufferSize, DICTIONARY_DATA);
+        this.dictionaryLengthStream = new LongOutputStreamV1(compression, bufferSize, false, LENGTH);
+    }
+
+    @Override
+    public Map<Integer, ColumnEncoding> getColumnEncodings()
+    {
+        checkState(closed, "Writer is not closed");
+        if (directEncoded) {
+            return ImmutableMap.of(column, new ColumnEncoding(DIRECT, 0));
+        }
+        return ImmutableMap.of(column, new ColumnEncoding(DICTIONARY, dictionary.getEntryCount()));
+    }
+
+    @Override
+    public void beginRowGroup()
+    {
+        presentStream.recordCheckpoint();
+        if (directEncoded) {
+            directDataStream.recordCheckpoint();
+            directLengthStream.recordCheckpoint();
+        }
+        else {
+            rowGroupValueCounts.add(0);
+        }
+    }
+
+    @Override
+    public void writeBlock(Block block)
+    {
+        checkState(!closed, "Writer is closed");
+        int rowGroupValueCount = 0;
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            if (block.isNull(position)) {
+                presentStream.writeBoolean(false);
+                continue;
+            }
+            presentStream.writeBoolean(true);
+            Slice value = type.getSlice(block, position);
+            if (directEncoded) {
+                directDataStream.writeSlice(value, 0, value.length());
+                directLengthStream.writeLong(value.length());
+            }
+            else {
+                values.add(dictionary.putIfAbsent(value, 0, value.length()));
+                rowGroupValueCount++;
+            }
+            nonNullValueCount++;
+
+            if (stringStatisticsEnabled) {
+                if (minimum == null || value.compareTo(minimum) < 0) {
+                    minimum = Slices.copyOf(value);
+                }
+                if (maximum == null || value.compareTo(maximum) > 0) {
+                    maximum = Slices.copyOf(value);
+                }
+            }
+        }
+
+        if (!directEncoded) {
+            int lastRowGroup = rowGroupValueCounts.size() - 1;
+            rowGroupValueCounts.set(lastRowGroup, rowGroupValueCounts.getInt(lastRowGroup) + rowGroupValueCount);
+            if (dictionary.getRetainedSizeInBytes() > dictionaryMaxMemoryBytes) {
+                convertToDirect();
+            }
+        }
+    }
+
+    /**
+     * Writes all values collected in the dictionary to the direct streams. The values of the
+     * row group in progress are written as well, so new values can be written directly.
+     */
+    private void convertToDirect()
+    {
+        checkState(!directEncoded, "Writer is already direct encoded");
+        directEncoded = true;
+
+        Slice rawSlice = dictionary.getRawSlice();
+        int valueIndex = 0;
+        for (int rowGroup = 0; rowGroup < rowGroupValueCounts.size(); rowGroup++) {
+            directDataStream.recordCheckpoint();
+            directLengthStream.recordCheckpoint();
+            int rowGroupValueCount = rowGroupValueCounts.getInt(rowGroup);
+            for (int i = 0; i < rowGroupValueCount; i++) {
+                int entry = values.getInt(valueIndex);
+                int length = dictionary.getLength(entry);
+                directDataStream.writeSlice(rawSlice, dictionary.getOffset(entry), length);
+                directLengthStream.writeLong(length);
+                valueIndex++;
+            }
+        }
+
+        dictionary.clear();
+        values.clear();
+        rowGroupValueCounts.clear();
+    }
+
+    private void writeDictionary()
+    {
+        Slice rawSlice = dictionary.getRawSlice();
+        int entryCount = dictionary.getEntryCount();
+
+        // the dictionary is sorted, as readers expect the entries to be in order
+        int[] sortedEntries = new int[entryCount];
+        for (int entry = 0; entry < entryCount; entry++) {
+            sortedEntries[entry] = entry;
+        }
+        IntArrays.quickSort(sortedEntries, new AbstractIntComparator()
+        {
+            @Override
+            public int compare(int left, int right)
+            {
+                return rawSlice.compareTo(
+                        dictionary.getOffset(left),
+                        dictionary.getLength(left),
+                        rawSlice,
+                        dictionary.getOffset(right),
+                        dictionary.getLength(right));
+            }
+        });
+
+        int[] sortedIndexes = new int[entryCount];
+        for (int sortedIndex = 0; sortedIndex < entryCount; sortedIndex++) {
+            int entry = sortedEntries[sortedIndex];
+            sortedIndexes[entry] = sortedIndex;
+            int length = dictionary.getLength(entry);
+            dictionaryBytesStream.writeSlice(rawSlice, dictionary.getOffset(entry), length);
+            dictionaryLengthStream.writeLong(length);
+        }
+
+        int valueIndex = 0;
+        for (int rowGroup = 0; rowGroup < rowGroupValueCounts.size(); rowGroup++) {
+            dictionaryDataStream.recordCheckpoint();
+            int rowGroupValueCount = rowGroupValueCounts.getInt(rowGroup);
+            for (int i = 0; i < rowGroupValueCount; i++) {
+                dictionaryDataStream.writeLong(sortedIndexes[values.getInt(valueIndex)]);
+                valueIndex++;
+            }
+        }
+    }
+
+    @Override
+    public Map<Integer, ColumnStatistics> finishRowGroup()
+    {
+        checkState(!closed, "Writer is closed");
+        ColumnStatistics statistics = new ColumnStatistics(
+                nonNullValueCount,
+                null,
+                null,
+                null,
+                minimum != null ? new StringStatistics(minimum, maximum) : null,
+                null,
+                null,
+                null);
+        rowGroupColumnStatistics.add(statistics);
+        nonNullValueCount = 0;
+        minimum = null;
+        maximum = null;
+        return ImmutableMap.of(column, statistics);
+    }
+
+    @Override
+    public void close()
+    {
+        checkState(!closed, "Writer is closed");
+        if (!directEncoded) {
+            if (dictionary.getEntryCount() > values.size() * DICTIONARY_KEY_SIZE_THRESHOLD) {
+                convertToDirect();
+            }
+            else {
+                writeDictionary();
+            }
+        }
+        closed = true;
+
+        presentStream.close();
+        directDataStream.close();
+        directLengthStream.close();
+        dictionaryDataStream.close();
+        dictionaryBytesStream.close();
+        dictionaryLengthStream.close();
+    }
+
+    @Override
+    public Map<Integer, ColumnStatistics> getColumnStripeStatistics()
+    {
+        checkState(closed, "Writer is not closed");
+        return ImmutableMap.of(column, mergeColumnStatistics(rowGroupColumnStatistics));
+    }
+
+    @Override
+    public List<StreamDataOutput> getIndexStreams(CompressedMetadataWriter metadataWriter)
+            throws IOException
+    {
+        checkState(closed, "Writer is not closed");
+        if (directEncoded) {
+            return createRowIndexStream(
+                    metadataWriter,
+                    column,
+                    rowGroupColumnStatistics,
+                    presentStream.getCheckpoints(),
+                    directDataStream.getCheckpoints(),
+                    directLengthStream.getCheckpoints());
+        }
+        return createRowIndexStream(metadataWriter, column, rowGroupColumnStatistics, presentStream.getCheckpoints(), dictionaryDataStream.getCheckpoints());
+    }
+
+    @Override
+    public List<StreamDataOutput> getDataStreams()
+    {
+        checkState(closed, "Writer is not closed");
+        ImmutableList.Builder<StreamDataOutput> outputDataStreams = ImmutableList.builder();
+        presentStream.getStreamDataOutput(column).ifPresent(outputDataStreams::add);
+        if (directEncoded) {
+            outputDataStreams.add(directDataStream.getStreamDataOutput(column));
+            outputDataStreams.add(directLengthStream.getStreamDataOutput(column));
+        }
+        else {
+            outputDataStreams.add(dictionaryDataStream.getStreamDataOutput(column));
+            outputDataStreams.add(dictionaryBytesStream.getStreamDataOutput(column));
+            outputDataStreams.add(dictionaryLengthStream.getStreamDataOutput(column));
+        }
+        return outputDataStreams.build();
+    }
+
+    @Override
+    public long getBufferedBytes()
+    {
+        long bufferedBytes = presentStream.getBufferedBytes() +
+                directDataStream.getBufferedBytes() +
+                directLengthStream.getBufferedBytes() +
+                dictionaryDataStream.getBufferedBytes() +
+                dictionaryBytesStream.getBufferedBytes() +
+                dictionaryLengthStream.getBufferedBytes();
+        if (!closed && !directEncoded) {
+            // estimate of the size of the dictionary streams
+            bufferedBytes += dictionary.getSizeInBytes() + (long) values.size() * Integer.BYTES;
+        }
+        return bufferedBytes;
+    }
+
+    @Override
+    public long getRetainedBytes()
+    {
+        return presentStream.getRetainedBytes() +
+                directDataStream.getRetainedBytes() +
+                directLengthStream.getRetainedBytes() +
+                dictionaryDataStream.getRetainedBytes() +
+                dictionaryBytesStream.getRetainedBytes() +
+                dictionaryLengthStream.getRetainedBytes() +
+                dictionary.getRetainedSizeInBytes() +
+                sizeOf(values.elements()) +
+                sizeOf(rowGroupValueCounts.elements());
+    }
+
+    @Override
+    public void reset()
+    {
+        closed = false;
+        directEncoded = false;
+        presentStream.reset();
+        directDataStream.reset();
+        directLengthStream.reset();
+        dictionaryDataStream.reset();
+        dictionaryBytesStream.reset();
+        dictionaryLengthStream.reset();
+        dictionary.clear();
+        values.clear();
+        rowGroupValueCounts.clear();
+        rowGroupColumnStatistics.clear();
+        nonNullValueCount = 0;
+        minimum = null;
+        maximum = null;
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.writer;
+
+import com.facebook.presto.orc.metadata.ColumnEncoding;
+import com.facebook.presto.orc.metadata.ColumnStatistics;
+import com.facebook.presto.orc.metadata.CompressedMetadataWriter;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.stream.PresentOutputStream;
+import com.facebook.presto.orc.stream.StreamDataOutput;
+import com.facebook.presto.spi.block.Block;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind.DIRECT;
+import static com.facebook.presto.orc.metadata.ColumnStatistics.mergeColumnStatistics;
+import static com.facebook.presto.orc.writer.ColumnWriters.createRowIndexStream;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+public class StructColumnWriter
+        implements ColumnWriter
+{
+    private final int column;
+    private final List<ColumnWriter> fieldWriters;
+    private final PresentOutputStream presentStream;
+
+    private final List<ColumnStatistics> rowGroupColumnStatistics = new ArrayList<>();
+    private long nonNullValueCount;
+
+    private boolean closed;
+
+    public StructColumnWriter(int column, CompressionKind compression, int bufferSize, List<ColumnWriter> fieldWriters)
+    {
+        checkArgument(column >= 0, "column is negative");
+        this.column = column;
+        this.fieldWriters = ImmutableList.copyOf(requireNonNull(fieldWriters, "fieldWriters is null"));
+        this.presentStream = new PresentOutputStream(compression, bufferSize);
+    }
+
+    @Override
+    public Map<Integer, ColumnEncoding> getColumnEncodings()
+    {
+        ImmutableMap.Builder<Integer, ColumnEncoding> encodings = ImmutableMap.builder();
+        encodings.put(column, new ColumnEncoding(DIRECT, 0));
+        fieldWriters.forEach(fieldWriter -> encodings.putAll(fieldWriter.getColumnEncodings()));
+        return encodings.build();
+    }
+
+    @Override
+    public void beginRowGroup()
+    {
+        presentStream.recordCheckpoint();
+        fieldWriters.forEach(ColumnWriter::beginRowGroup);
+    }
+
+    @Override
+    public void writeBlock(Block block)
+    {
+        checkState(!closed, "Writer is closed");
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            if (block.isNull(position)) {
+                presentStream.writeBoolean(false);
+                continue;
+            }
+            presentStream.writeBoolean(true);
+            // the fields of a row are stored as the positions of a single block
+            Block fields = block.getObject(position, Block.class);
+            for (int field = 0; field < fieldWriters.size(); field++) {
+                fieldWriters.get(field).writeBlock(fields.getRegion(field, 1));
+            }
+            nonNullValueCount++;
+        }
+    }
+
+    @Override
+    public Map<Integer, ColumnStatistics> finishRowGroup()
+    {
+        checkState(!closed, "Writer is closed");
+        ColumnStatistics statistics = new ColumnStatistics(nonNullValueCount, null, null, null, null, null, null, null);
+        rowGroupColumnStatistics.add(statistics);
+        nonNullValueCount = 0;
+
+        ImmutableMap.Builder<Integer, ColumnStatistics> columnStatistics = ImmutableMap.builder();
+        columnStatistics.put(column, statistics);
+        fieldWriters.forEach(fieldWriter -> columnStatistics.putAll(fieldWriter.finishRowGroup()));
+        return columnStatistics.build();
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+        fieldWriters.forEach(ColumnWriter::close);
+        presentStream.close();
+    }
+
+    @Override
+    public Map<Integer, ColumnStatistics> getColumnStripeStatistics()
+    {
+        checkState(closed, "Writer is not closed");
+        ImmutableMap.Builder<Integer, ColumnStatistics> columnStatistics = ImmutableMap.builder();
+        columnStatistics.put(column, mergeColumnStatistics(rowGroupColumnStatistics));
+        fieldWriters.forEach(fieldWriter -> columnStatistics.putAll(fieldWriter.getColumnStripeStatistics()));
+        return columnStatistics.build();
+    }
+
+    @Override
+    public List<StreamDataOutput> getIndexStreams(CompressedMetadataWriter metadataWriter)
+            throws IOException
+    {
+        checkState(closed, "Writer is not closed");
+        ImmutableList.Builder<StreamDataOutput> indexStreams = ImmutableList.builder();
+        indexStreams.addAll(createRowIndexStream(metadataWriter, column, rowGroupColumnStatistics, presentStream.getCheckpoints()));
+        for (ColumnWriter fieldWriter : fieldWriters) {
+            indexStreams.addAll(fieldWriter.getIndexStreams(metadataWriter));
+        }
+        return indexStreams.build();
+    }
+
+    @Override
+    public List<StreamDataOutput> getDataStreams()
+    {
+        checkState(closed, "Writer is not closed");
+        ImmutableList.Builder<StreamDataOutput> outputDataStreams = ImmutableList.builder();
+        presentStream.getStreamDataOutput(column).ifPresent(outputDataStreams::add);
+        fieldWriters.forEach(fieldWriter -> outputDataStreams.addAll(fieldWriter.getDataStreams()));
+        return outputDataStreams.build();
+    }
+
+    @Override
+    public long getBufferedBytes()
+    {
+        long bufferedBytes = presentStream.getBufferedBytes();
+        for (ColumnWriter fieldWriter : fieldWriters) {
+            bufferedBytes += fieldWriter.getBufferedBytes();
+        }
+        return bufferedBytes;
+    }
+
+    @Override
+    public long getRetainedBytes()
+    {
+        long retainedBytes = presentStream.getRetainedBytes();
+        for (ColumnWriter fieldWriter : fieldWriters) {
+            retainedBytes += fieldWriter.getRetainedBytes();
+        }
+        return retainedBytes;
+    }
+
+    @Override
+    public void reset()
+    {
+        closed = false;
+        presentStream.reset();
+        fieldWriters.forEach(ColumnWriter::reset);
+        rowGroupColumnStatistics.clear();
+        nonNullValueCount = 0;
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc;
+
+import com.facebook.presto.orc.OrcTester.TempFile;
+import com.facebook.presto.orc.metadata.OrcMetadataReader;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static com.facebook.presto.orc.OrcTester.Compression.ZLIB;
+import static com.facebook.presto.orc.OrcTester.createCustomOrcRecordReader;
+import static com.facebook.presto.orc.OrcTester.writeOrcColumnPresto;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Compares reading all rows of an ORC column with reading only the rows selected by a
+ * filter on another column, for columns shaped like the TPC-H lineitem columns.
+ */
+@SuppressWarnings("MethodMayBeStatic")
+@State(Scope.Thread)
+@Fork(2)
+@Warmup(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class BenchmarkSelectiveOrcReader
+{
+    private static final int ROWS = 1_000_000;
+    private static final List<String> SHIP_MODES = ImmutableList.of("AIR", "FOB", "MAIL", "RAIL", "REG AIR", "SHIP", "TRUCK");
+
+    @Benchmark
+    public Object readAllPositions(BenchmarkData data)
+            throws Throwable
+    {
+        OrcRecordReader recordReader = data.createRecordReader();
+        List<Block> blocks = new ArrayList<>();
+        for (int batchSize = recordReader.nextBatch(); batchSize > 0; batchSize = recordReader.nextBatch()) {
+            blocks.add(recordReader.readBlock(data.type, 0));
+        }
+        recordReader.close();
+        return blocks;
+    }
+
+    @Benchmark
+    public Object readSelectedPositions(BenchmarkData data)
+            throws Throwable
+    {
+        OrcRecordReader recordReader = data.createRecordReader();
+        List<Block> blocks = new ArrayList<>();
+        for (int batchSize = recordReader.nextBatch(); batchSize > 0; batchSize = recordReader.nextBatch()) {
+            int positionCount = data.getPositionCount(batchSize);
+            blocks.add(recordReader.readBlock(data.type, 0, data.positions, positionCount));
+        }
+        recordReader.close();
+        return blocks;
+    }
+
+    @SuppressWarnings("FieldMayBeFinal")
+    @State(Scope.Thread)
+    public static class BenchmarkData
+    {
+        @Param({"l_quantity", "l_extendedprice", "l_shipmode", "l_comment"})
+        private String column = "l_quantity";
+
+        @Param({"0.01", "0.1", "0.5"})
+        private double selectivity = 0.1;
+
+        private TempFile tempFile;
+        private Type type;
+        private int[] positions;
+
+        @Setup
+        public void setup()
+                throws Exception
+        {
+            Random random = new Random(42);
+            List<?> values;
+            switch (column) {
+                case "l_quantity":
+                    type = BIGINT;
+                    values = IntStream.range(0, ROWS).mapToObj(i -> (long) (random.nextInt(50) + 1)).collect(toList());
+                    break;
+                case "l_extendedprice":
+                    type = DOUBLE;
+                    values = IntStream.range(0, ROWS).mapToObj(i -> random.nextInt(10_000_000) / 100.0).collect(toList());
+                    break;
+                case "l_shipmode":
+                    type = VARCHAR;
+                    values = IntStream.range(0, ROWS).mapToObj(i -> SHIP_MODES.get(random.nextInt(SHIP_MODES.size()))).collect(toList());
+                    break;
+                case "l_comment":
+                    type = VARCHAR;
+                    values = IntStream.range(0, ROWS).mapToObj(i -> randomComment(random)).collect(toList());
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown column " + column);
+            }
+
+            tempFile = new TempFile();
+            writeOrcColumnPresto(tempFile.getFile(), ZLIB, type, values.iterator());
+
+            // positions which pass a filter with the specified selectivity on another column of the same rows
+            positions = IntStream.range(0, OrcReader.MAX_BATCH_SIZE)
+                    .filter(position -> random.nextDouble() < selectivity)
+                    .toArray();
+        }
+
+        @TearDown
+        public void tearDown()
+        {
+            tempFile.close();
+        }
+
+        private OrcRecordReader createRecordReader()
+                throws Exception
+        {
+            return createCustomOrcRecordReader(tempFile, new OrcMetadataReader(), OrcPredicate.TRUE, type);
+        }
+
+        private int getPositionCount(int batchSize)
+        {
+            int positionCount = 0;
+            while (positionCount < positions.length && positions[positionCount] < batchSize) {
+                positionCount++;
+            }
+            return positionCount;
+        }
+
+        private static String randomComment(Random random)
+        {
+            char[] comment = new char[10 + random.nextInt(34)];
+            for (int i = 0; i < comment.length; i++) {
+                comment[i] = (char) ('a' + random.nextInt(26));
+            }
+            return new String(comment);
+        }
+    }
+
+    public static void main(String[] args)
+            throws Throwable
+    {
+        // assure the benchmarks are valid before running
+        BenchmarkData data = new BenchmarkData();
+        data.setup();
+        new BenchmarkSelectiveOrcReader().readSelectedPositions(data);
+        data.tearDown();
+
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkSelectiveOrcReader.class.getSimpleName() + ".*")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -15,11 +15,17 @@ package com.facebook.presto.orc;
 
 import com.facebook.hive.orc.OrcConf;
 import com.facebook.presto.orc.memory.AggregatedMemoryContext;
+import com.facebook.presto.orc.metadata.CompressionKind;
 import com.facebook.presto.orc.metadata.DwrfMetadataReader;
 import com.facebook.presto.orc.metadata.MetadataReader;
 import com.facebook.presto.orc.metadata.OrcMetadataReader;
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.type.DecimalType;
+import com.facebook.presto.spi.type.Decimals;
 import com.facebook.presto.spi.type.NamedTypeSignature;
 import com.facebook.presto.spi.type.SqlDate;
 import com.facebook.presto.spi.type.SqlDecimal;
@@ -37,6 +43,8 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.primitives.Ints;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
 import io.airlift.units.DataSize;
 import io.airlift.units.DataSize.Unit;
 import org.apache.hadoop.fs.Path;
@@ -71,8 +79,10 @@ import org.joda.time.DateTimeZone;
 
 import java.io.Closeable;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.lang.reflect.Field;
+import java.math.BigInteger;
 import java.sql.Date;
 import java.sql.Timestamp;
 import java.time.LocalDate;
@@ -88,25 +98,36 @@ import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Properties;
 import java.util.Set;
+import java.util.stream.IntStream;
 
 import static com.facebook.presto.orc.OrcTester.Compression.NONE;
 import static com.facebook.presto.orc.OrcTester.Compression.ZLIB;
 import static com.facebook.presto.orc.OrcTester.Format.DWRF;
 import static com.facebook.presto.orc.OrcTester.Format.ORC_12;
 import static com.facebook.presto.orc.TestingOrcPredicate.createOrcPredicate;
+import static com.facebook.presto.orc.metadata.OrcType.createOrcRowType;
 import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.Chars.isCharType;
+import static com.facebook.presto.spi.type.Chars.trimSpaces;
+import static com.facebook.presto.spi.type.DateType.DATE;
 import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.RealType.REAL;
 import static com.facebook.presto.spi.type.StandardTypes.ARRAY;
 import static com.facebook.presto.spi.type.StandardTypes.MAP;
 import static com.facebook.presto.spi.type.StandardTypes.ROW;
+import static com.facebook.presto.spi.type.TimestampType.TIMESTAMP;
+import static com.facebook.presto.spi.type.VarbinaryType.VARBINARY;
 import static com.facebook.presto.testing.TestingConnectorSession.SESSION;
 import static com.google.common.base.Functions.constant;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.collect.Iterables.transform;
 import static com.google.common.collect.Iterators.advance;
 import static com.google.common.io.Files.createTempDir;
+import static io.airlift.slice.Slices.utf8Slice;
 import static io.airlift.testing.FileUtils.deleteRecursively;
 import static io.airlift.units.DataSize.succinctBytes;
+import static java.lang.Float.floatToRawIntBits;
 import static java.lang.String.format;
 import static java.util.Arrays.asList;
 import static org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory.getStandardListObjectInspector;
@@ -333,26 +354,41 @@ public class OrcTester
             for (Compression compression : compressions) {
                 try (TempFile tempFile = new TempFile()) {
                     writeOrcColumn(tempFile.getFile(), formatVersion, compression, objectInspector, readValues.iterator());
+                    assertFileContents(objectInspector, tempFile, readValues, metadataReader, type);
+                }
 
-                    assertFileContents(objectInspector, tempFile, readValues, false, false, metadataReader, type);
-
-                    if (skipBatchTestsEnabled) {
-                        assertFileContents(objectInspector, tempFile, readValues, true, false, metadataReader, type);
-                    }
-
-                    if (skipStripeTestsEnabled) {
-                        assertFileContents(objectInspector, tempFile, readValues, false, true, metadataReader, type);
+                // files written by the Presto writer must be readable in the same way as the files written by Hive
+                if (ORC_12 == formatVersion) {
+                    try (TempFile tempFile = new TempFile()) {
+                        writeOrcColumnPresto(tempFile.getFile(), compression, type, readValues.iterator());
+                        assertFileContents(objectInspector, tempFile, readValues, metadataReader, type);
                     }
                 }
             }
         }
     }
 
+    private void assertFileContents(ObjectInspector objectInspector, TempFile tempFile, Iterable<?> expectedValues, MetadataReader metadataReader, Type type)
+            throws IOException
+    {
+        assertFileContents(objectInspector, tempFile, expectedValues, false, false, false, metadataReader, type);
+        assertFileContents(objectInspector, tempFile, expectedValues, false, false, true, metadataReader, type);
+
+        if (skipBatchTestsEnabled) {
+            assertFileContents(objectInspector, tempFile, expectedValues, true, false, false, metadataReader, type);
+        }
+
+        if (skipStripeTestsEnabled) {
+            assertFileContents(objectInspector, tempFile, expectedValues, false, true, false, metadataReader, type);
+        }
+    }
+
     private static void assertFileContents(ObjectInspector objectInspector,
             TempFile tempFile,
             Iterable<?> expectedValues,
             boolean skipFirstBatch,
             boolean skipStripe,
+            boolean selectPositions,
             MetadataReader metadataReader,
             Type type)
             throws IOException
@@ -372,6 +408,22 @@ public class OrcTester
                 assertEquals(advance(iterator, batchSize), batchSize);
                 isFirst = false;
             }
+            else if (selectPositions) {
+                // read every third value of the batch
+                int[] positions = IntStream.range(0, batchSize).filter(position -> position % 3 == 1).toArray();
+                Block block = recordReader.readBlock(type, 0, positions, positions.length);
+                assertEquals(block.getPositionCount(), positions.length);
+
+                int selected = 0;
+                for (int i = 0; i < batchSize; i++) {
+                    assertTrue(iterator.hasNext());
+                    Object expected = iterator.next();
+                    if (selected < positions.length && positions[selected] == i) {
+                        assertColumnValueEquals(type, type.getObjectValue(SESSION, block, selected), expected);
+                        selected++;
+                    }
+                }
+            }
             else {
                 Block block = recordReader.readBlock(type, 0);
 
@@ -496,6 +548,126 @@ public class OrcTester
         return writeOrcFileColumnOld(outputFile, format, recordWriter, columnObjectInspector, values);
     }
 
+    public static DataSize writeOrcColumnPresto(File outputFile, Compression compression, Type type, Iterator<?> values)
+            throws Exception
+    {
+        List<Type> types = ImmutableList.of(type);
+        OrcWriter writer = new OrcWriter(
+                new FileOutputStream(outputFile),
+                types,
+                createOrcRowType(0, ImmutableList.of("test"), types),
+                toCompressionKind(compression),
+                OrcWriter.DEFAULT_STRIPE_MAX_SIZE,
+                OrcWriter.DEFAULT_STRIPE_MAX_ROW_COUNT,
+                OrcWriter.DEFAULT_ROW_GROUP_MAX_ROW_COUNT,
+                OrcWriter.DEFAULT_DICTIONARY_MAX_MEMORY,
+                ImmutableMap.of(),
+                HIVE_STORAGE_TIME_ZONE);
+        try {
+            BlockBuilder blockBuilder = type.createBlockBuilder(new BlockBuilderStatus(), 1024);
+            while (values.hasNext()) {
+                writeValue(type, blockBuilder, values.next());
+                if (blockBuilder.getPositionCount() == 1024) {
+                    writer.write(new Page(blockBuilder.build()));
+                    blockBuilder = type.createBlockBuilder(new BlockBuilderStatus(), 1024);
+                }
+            }
+            if (blockBuilder.getPositionCount() > 0) {
+                writer.write(new Page(blockBuilder.build()));
+            }
+        }
+        finally {
+            writer.close();
+        }
+        return succinctBytes(outputFile.length());
+    }
+
+    private static CompressionKind toCompressionKind(Compression compression)
+    {
+        switch (compression) {
+            case ZLIB:
+                return CompressionKind.ZLIB;
+            case SNAPPY:
+                return CompressionKind.SNAPPY;
+            case NONE:
+                return CompressionKind.UNCOMPRESSED;
+        }
+        throw new IllegalArgumentException("Unsupported compression " + compression);
+    }
+
+    private static void writeValue(Type type, BlockBuilder blockBuilder, Object value)
+    {
+        if (value == null) {
+            blockBuilder.appendNull();
+            return;
+        }
+
+        String baseType = type.getTypeSignature().getBase();
+        if (ARRAY.equals(baseType)) {
+            Type elementType = type.getTypeParameters().get(0);
+            BlockBuilder elementBuilder = blockBuilder.beginBlockEntry();
+            for (Object element : (List<?>) value) {
+                writeValue(elementType, elementBuilder, element);
+            }
+            blockBuilder.closeEntry();
+        }
+        else if (MAP.equals(baseType)) {
+            Type keyType = type.getTypeParameters().get(0);
+            Type valueType = type.getTypeParameters().get(1);
+            BlockBuilder entryBuilder = blockBuilder.beginBlockEntry();
+            for (Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                writeValue(keyType, entryBuilder, entry.getKey());
+                writeValue(valueType, entryBuilder, entry.getValue());
+            }
+            blockBuilder.closeEntry();
+        }
+        else if (ROW.equals(baseType)) {
+            List<Type> fieldTypes = type.getTypeParameters();
+            List<?> fields = (List<?>) value;
+            BlockBuilder fieldBuilder = blockBuilder.beginBlockEntry();
+            for (int field = 0; field < fieldTypes.size(); field++) {
+                writeValue(fieldTypes.get(field), fieldBuilder, fields.get(field));
+            }
+            blockBuilder.closeEntry();
+        }
+        else if (type.equals(BOOLEAN)) {
+            type.writeBoolean(blockBuilder, (Boolean) value);
+        }
+        else if (type.equals(REAL)) {
+            type.writeLong(blockBuilder, floatToRawIntBits(((Number) value).floatValue()));
+        }
+        else if (type.equals(DOUBLE)) {
+            type.writeDouble(blockBuilder, ((Number) value).doubleValue());
+        }
+        else if (type.equals(DATE)) {
+            type.writeLong(blockBuilder, ((SqlDate) value).getDays());
+        }
+        else if (type.equals(TIMESTAMP)) {
+            type.writeLong(blockBuilder, ((SqlTimestamp) value).getMillisUtc());
+        }
+        else if (type instanceof DecimalType) {
+            BigInteger unscaledValue = ((SqlDecimal) value).getUnscaledValue();
+            if (((DecimalType) type).isShort()) {
+                type.writeLong(blockBuilder, unscaledValue.longValueExact());
+            }
+            else {
+                type.writeSlice(blockBuilder, Decimals.encodeUnscaledValue(unscaledValue));
+            }
+        }
+        else if (type.equals(VARBINARY)) {
+            type.writeSlice(blockBuilder, Slices.wrappedBuffer(((SqlVarbinary) value).getBytes()));
+        }
+        else if (isCharType(type)) {
+            type.writeSlice(blockBuilder, trimSpaces(utf8Slice((String) value)));
+        }
+        else if (type.getJavaType() == Slice.class) {
+            type.writeSlice(blockBuilder, utf8Slice((String) value));
+        }
+        else {
+            type.writeLong(blockBuilder, ((Number) value).longValue());
+        }
+    }
+
     public static DataSize writeOrcFileColumnOld(File outputFile, Format format, RecordWriter recordWriter, ObjectInspector columnObjectInspector, Iterator<?> values)
             throws Exception
     {
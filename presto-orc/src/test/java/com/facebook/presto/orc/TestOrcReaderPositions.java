@@ -14,6 +14,7 @@
 package com.facebook.presto.orc;
 
 import com.facebook.presto.orc.OrcTester.TempFile;
+import com.facebook.presto.orc.memory.AggregatedMemoryContext;
 import com.facebook.presto.orc.metadata.Footer;
 import com.facebook.presto.orc.metadata.IntegerStatistics;
 import com.facebook.presto.orc.metadata.OrcMetadataReader;
@@ -42,17 +43,24 @@ import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import static com.facebook.presto.orc.OrcTester.Format.ORC_12;
+import static com.facebook.presto.orc.OrcTester.HIVE_STORAGE_TIME_ZONE;
 import static com.facebook.presto.orc.OrcTester.createCustomOrcRecordReader;
 import static com.facebook.presto.orc.OrcTester.createOrcRecordWriter;
 import static com.facebook.presto.orc.OrcTester.createSettableStructObjectInspector;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static io.airlift.units.DataSize.Unit.BYTE;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.apache.hadoop.hive.ql.io.orc.CompressionKind.SNAPPY;
 import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaLongObjectInspector;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 public class TestOrcReaderPositions
 {
@@ -125,6 +133,50 @@ public class TestOrcReaderPositions
         }
     }
 
+    @Test
+    public void testStripePrefetch()
+            throws Exception
+    {
+        try (TempFile tempFile = new TempFile()) {
+            createMultiStripeFile(tempFile.getFile());
+
+            // use tiny reads, so the stripes are not cached by the data source
+            DataSize readSize = new DataSize(1, BYTE);
+            OrcDataSource orcDataSource = new FileOrcDataSource(tempFile.getFile(), readSize, readSize, readSize);
+            OrcReader orcReader = new OrcReader(orcDataSource, new OrcMetadataReader(), readSize, readSize);
+
+            List<Runnable> prefetchTasks = new ArrayList<>();
+            AggregatedMemoryContext systemMemoryUsage = new AggregatedMemoryContext();
+            OrcRecordReader reader = orcReader.createRecordReader(
+                    ImmutableMap.of(0, BIGINT),
+                    OrcPredicate.TRUE,
+                    0,
+                    orcDataSource.getSize(),
+                    HIVE_STORAGE_TIME_ZONE,
+                    systemMemoryUsage,
+                    Optional.of(prefetchTasks::add));
+
+            for (int i = 0; i < 5; i++) {
+                // the reader is blocked until the stripe is read, and the stripe is reserved meanwhile
+                assertFalse(reader.isBlocked().isDone());
+                assertEquals(prefetchTasks.size(), 1);
+                assertTrue(systemMemoryUsage.getBytes() > 0);
+                prefetchTasks.remove(0).run();
+                assertTrue(reader.isBlocked().isDone());
+
+                assertEquals(reader.nextBatch(), 20);
+                assertEquals(reader.getReaderPosition(), i * 20L);
+                assertCurrentBatch(reader, i);
+            }
+
+            assertTrue(reader.isBlocked().isDone());
+            assertTrue(prefetchTasks.isEmpty());
+            assertEquals(reader.nextBatch(), -1);
+            assertEquals(reader.getReaderPosition(), 100);
+            reader.close();
+        }
+    }
+
     @Test
     public void testRowGroupSkipping()
             throws Exception
@@ -14,11 +14,13 @@
 package com.facebook.presto.raptor;
 
 import com.facebook.presto.raptor.metadata.ColumnInfo;
+import com.facebook.presto.raptor.metadata.ColumnStats;
 import com.facebook.presto.raptor.metadata.Distribution;
 import com.facebook.presto.raptor.metadata.MetadataDao;
 import com.facebook.presto.raptor.metadata.ShardDelta;
 import com.facebook.presto.raptor.metadata.ShardInfo;
 import com.facebook.presto.raptor.metadata.ShardManager;
+import com.facebook.presto.raptor.metadata.ShardRangeStats;
 import com.facebook.presto.raptor.metadata.Table;
 import com.facebook.presto.raptor.metadata.TableColumn;
 import com.facebook.presto.raptor.metadata.ViewResult;
@@ -45,6 +47,9 @@ import com.facebook.presto.spi.ViewNotFoundException;
 import com.facebook.presto.spi.connector.ConnectorMetadata;
 import com.facebook.presto.spi.connector.ConnectorPartitioningHandle;
 import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.statistics.ColumnStatistics;
+import com.facebook.presto.spi.statistics.Estimate;
+import com.facebook.presto.spi.statistics.TableStatistics;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableListMultimap;
@@ -114,8 +119,10 @@ import static com.google.common.collect.Iterables.getOnlyElement;
 import static java.lang.String.format;
 import static java.util.Collections.nCopies;
 import static java.util.Objects.requireNonNull;
+import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.toCollection;
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
 
 public class RaptorMetadata
         implements ConnectorMetadata
@@ -290,6 +297,38 @@ public class RaptorMetadata
         return getTableLayout(session, raptorHandle.getTable(), raptorHandle.getConstraint());
     }
 
+    @Override
+    public TableStatistics getTableStatistics(ConnectorSession session, ConnectorTableHandle tableHandle, ConnectorTableLayoutHandle tableLayoutHandle)
+    {
+        RaptorTableLayoutHandle handle = checkType(tableLayoutHandle, RaptorTableLayoutHandle.class, "tableLayoutHandle");
+        RaptorTableHandle table = handle.getTable();
+
+        Map<Long, RaptorColumnHandle> columns = dao.listTableColumns(table.getTableId()).stream()
+                .map(this::getRaptorColumnHandle)
+                .collect(toMap(RaptorColumnHandle::getColumnId, identity()));
+        List<ColumnInfo> columnInfos = columns.values().stream()
+                .map(ColumnInfo::fromHandle)
+                .collect(toList());
+        TupleDomain<RaptorColumnHandle> predicate = handle.getConstraint()
+                .transform(column -> checkType(column, RaptorColumnHandle.class, "column"));
+
+        // the shard index has the row count and the range of the values of every shard
+        ShardRangeStats stats = shardManager.getShardRangeStats(table.getTableId(), table.getBucketCount().isPresent(), columnInfos, predicate);
+
+        ImmutableMap.Builder<ColumnHandle, ColumnStatistics> columnStatistics = ImmutableMap.builder();
+        for (ColumnStats columnStats : stats.getColumnStats()) {
+            ColumnStatistics.Builder builder = ColumnStatistics.builder();
+            if (columnStats.getMin() != null) {
+                builder.setMin(columnStats.getMin());
+            }
+            if (columnStats.getMax() != null) {
+                builder.setMax(columnStats.getMax());
+            }
+            columnStatistics.put(columns.get(columnStats.getColumnId()), builder.build());
+        }
+        return new TableStatistics(Estimate.of(stats.getRowCount()), columnStatistics.build());
+    }
+
     private ConnectorTableLayout getTableLayout(ConnectorSession session, RaptorTableHandle handle, TupleDomain<ColumnHandle> constraint)
     {
         if (!handle.getDistributionId().isPresent()) {
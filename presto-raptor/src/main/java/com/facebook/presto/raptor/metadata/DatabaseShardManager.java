@@ -94,6 +94,7 @@ import static java.util.Collections.nCopies;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 import static java.util.stream.Collectors.toSet;
 
@@ -541,6 +542,51 @@ public class DatabaseShardManager
         return new ShardIterator(tableId, merged, Optional.of(bucketToNode), effectivePredicate, dbi);
     }
 
+    @Override
+    public ShardRangeStats getShardRangeStats(long tableId, boolean bucketed, List<ColumnInfo> columns, TupleDomain<RaptorColumnHandle> effectivePredicate)
+    {
+        // the index only has ranges of the prefixes of binary values
+        List<ColumnInfo> rangeColumns = columns.stream()
+                .filter(column -> jdbcType(column.getType()) != null && jdbcType(column.getType()) != JDBCType.VARBINARY)
+                .collect(toList());
+
+        StringJoiner selectList = new StringJoiner(", ");
+        selectList.add("count(*) shard_count");
+        selectList.add("sum(s.row_count) row_count");
+        for (ColumnInfo column : rangeColumns) {
+            selectList.add(format("min(x.%1$s) %1$s", minColumn(column.getColumnId())));
+            selectList.add(format("max(x.%1$s) %1$s", maxColumn(column.getColumnId())));
+        }
+
+        ShardPredicate predicate = ShardPredicate.create(effectivePredicate, bucketed);
+        String sql = format("" +
+                        "SELECT %s\n" +
+                        "FROM (SELECT * FROM %s WHERE %s) x\n" +
+                        "JOIN shards s ON (s.shard_id = x.shard_id)",
+                selectList, shardIndexTable(tableId), predicate.getPredicate());
+
+        try (Handle handle = dbi.open();
+                PreparedStatement statement = handle.getConnection().prepareStatement(sql)) {
+            predicate.bind(statement);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (!rs.next()) {
+                    return new ShardRangeStats(0, 0, ImmutableList.of());
+                }
+                ImmutableList.Builder<ColumnStats> columnStats = ImmutableList.builder();
+                for (ColumnInfo column : rangeColumns) {
+                    columnStats.add(new ColumnStats(
+                            column.getColumnId(),
+                            getRangeValue(rs, minColumn(column.getColumnId()), column.getType()),
+                            getRangeValue(rs, maxColumn(column.getColumnId()), column.getType())));
+                }
+                return new ShardRangeStats(rs.getLong("shard_count"), rs.getLong("row_count"), columnStats.build());
+            }
+        }
+        catch (SQLException | DBIException e) {
+            throw metadataError(e);
+        }
+    }
+
     @Override
     public void assignShard(long tableId, UUID shardUuid, String nodeIdentifier, boolean gracePeriod)
     {
@@ -827,6 +873,29 @@ public class DatabaseShardManager
         return format("c%s_max", columnId);
     }
 
+    private static Object getRangeValue(ResultSet rs, String column, Type type)
+            throws SQLException
+    {
+        Object value;
+        switch (jdbcType(type)) {
+            case BOOLEAN:
+                value = rs.getBoolean(column);
+                break;
+            case BIGINT:
+                value = rs.getLong(column);
+                break;
+            case INTEGER:
+                value = (long) rs.getInt(column);
+                break;
+            case DOUBLE:
+                value = rs.getDouble(column);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported range column type: " + type);
+        }
+        return rs.wasNull() ? null : value;
+    }
+
     private static String sqlColumnType(Type type)
     {
         JDBCType jdbcType = jdbcType(type);
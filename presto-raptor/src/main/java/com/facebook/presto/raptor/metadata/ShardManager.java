@@ -72,6 +72,11 @@ public interface ShardManager
      */
     ResultIterator<BucketShards> getShardNodesBucketed(long tableId, boolean merged, Map<Integer, String> bucketToNode, TupleDomain<RaptorColumnHandle> effectivePredicate);
 
+    /**
+     * Return the row count of the shards matching the predicate, and the range of the values of the given columns in those shards.
+     */
+    ShardRangeStats getShardRangeStats(long tableId, boolean bucketed, List<ColumnInfo> columns, TupleDomain<RaptorColumnHandle> effectivePredicate);
+
     /**
      * Assign a shard to a node.
      */
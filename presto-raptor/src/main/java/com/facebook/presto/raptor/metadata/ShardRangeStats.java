@@ -0,0 +1,60 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.raptor.metadata;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static java.util.Objects.requireNonNull;
+
+public class ShardRangeStats
+{
+    private final long shardCount;
+    private final long rowCount;
+    private final List<ColumnStats> columnStats;
+
+    public ShardRangeStats(long shardCount, long rowCount, List<ColumnStats> columnStats)
+    {
+        this.shardCount = shardCount;
+        this.rowCount = rowCount;
+        this.columnStats = ImmutableList.copyOf(requireNonNull(columnStats, "columnStats is null"));
+    }
+
+    public long getShardCount()
+    {
+        return shardCount;
+    }
+
+    public long getRowCount()
+    {
+        return rowCount;
+    }
+
+    public List<ColumnStats> getColumnStats()
+    {
+        return columnStats;
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("shardCount", shardCount)
+                .add("rowCount", rowCount)
+                .add("columnStats", columnStats)
+                .toString();
+    }
+}
@@ -13,90 +13,60 @@
  */
 package com.facebook.presto.raptor.storage;
 
-import com.facebook.presto.raptor.util.SyncingFileSystem;
+import com.facebook.presto.orc.OrcWriter;
+import com.facebook.presto.orc.metadata.OrcType;
+import com.facebook.presto.orc.metadata.OrcType.OrcTypeKind;
 import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.PrestoException;
-import com.facebook.presto.spi.classloader.ThreadContextClassLoader;
+import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.type.DecimalType;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.spi.type.TypeSignature;
 import com.facebook.presto.spi.type.VarbinaryType;
 import com.facebook.presto.spi.type.VarcharType;
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.base.Joiner;
-import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import io.airlift.json.JsonCodec;
 import io.airlift.slice.Slice;
-import org.apache.hadoop.conf.Configuration;
-import org.apache.hadoop.fs.FileSystem;
-import org.apache.hadoop.fs.Path;
-import org.apache.hadoop.hive.ql.io.orc.NullMemoryManager;
-import org.apache.hadoop.hive.ql.io.orc.OrcFile;
-import org.apache.hadoop.hive.ql.io.orc.OrcOutputFormat;
-import org.apache.hadoop.hive.ql.io.orc.OrcSerde;
-import org.apache.hadoop.hive.ql.io.orc.OrcWriterOptions;
-import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
-import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector.Category;
-import org.apache.hadoop.hive.serde2.objectinspector.SettableStructObjectInspector;
-import org.apache.hadoop.hive.serde2.objectinspector.StructField;
-import org.apache.hadoop.hive.serde2.typeinfo.ListTypeInfo;
-import org.apache.hadoop.hive.serde2.typeinfo.MapTypeInfo;
-import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
-import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoUtils;
 
 import java.io.Closeable;
 import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.lang.reflect.Constructor;
-import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Properties;
-
+import java.util.Map;
+import java.util.Optional;
+
+import static com.facebook.presto.orc.OrcWriter.DEFAULT_DICTIONARY_MAX_MEMORY;
+import static com.facebook.presto.orc.OrcWriter.DEFAULT_ROW_GROUP_MAX_ROW_COUNT;
+import static com.facebook.presto.orc.OrcWriter.DEFAULT_STRIPE_MAX_ROW_COUNT;
+import static com.facebook.presto.orc.OrcWriter.DEFAULT_STRIPE_MAX_SIZE;
+import static com.facebook.presto.orc.metadata.CompressionKind.SNAPPY;
 import static com.facebook.presto.raptor.RaptorErrorCode.RAPTOR_ERROR;
-import static com.facebook.presto.raptor.storage.Row.extractRow;
-import static com.facebook.presto.raptor.storage.StorageType.arrayOf;
-import static com.facebook.presto.raptor.storage.StorageType.mapOf;
 import static com.facebook.presto.raptor.util.Types.isArrayType;
 import static com.facebook.presto.raptor.util.Types.isMapType;
-import static com.facebook.presto.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
 import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
-import static com.google.common.base.Functions.toStringFunction;
 import static com.google.common.base.Preconditions.checkArgument;
-import static com.google.common.collect.Iterables.transform;
 import static io.airlift.json.JsonCodec.jsonCodec;
+import static io.airlift.slice.SizeOf.SIZE_OF_BYTE;
+import static io.airlift.slice.SizeOf.SIZE_OF_DOUBLE;
+import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
 import static java.util.Objects.requireNonNull;
-import static java.util.stream.Collectors.toList;
-import static org.apache.hadoop.hive.metastore.api.hive_metastoreConstants.META_TABLE_COLUMNS;
-import static org.apache.hadoop.hive.metastore.api.hive_metastoreConstants.META_TABLE_COLUMN_TYPES;
-import static org.apache.hadoop.hive.ql.exec.FileSinkOperator.RecordWriter;
-import static org.apache.hadoop.hive.ql.io.orc.CompressionKind.SNAPPY;
-import static org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector.Category.LIST;
-import static org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector.Category.MAP;
-import static org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector.Category.PRIMITIVE;
-import static org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory.getStandardListObjectInspector;
-import static org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory.getStandardMapObjectInspector;
-import static org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory.getStandardStructObjectInspector;
-import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.getPrimitiveJavaObjectInspector;
-import static org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory.getPrimitiveTypeInfo;
+import static org.joda.time.DateTimeZone.UTC;
 
 public class OrcFileWriter
         implements Closeable
 {
-    private static final Configuration CONFIGURATION = new Configuration();
-    private static final Constructor<? extends RecordWriter> WRITER_CONSTRUCTOR = getOrcWriterConstructor();
     private static final JsonCodec<OrcFileMetadata> METADATA_CODEC = jsonCodec(OrcFileMetadata.class);
 
     private final List<Type> columnTypes;
-
-    private final OrcSerde serializer;
-    private final RecordWriter recordWriter;
-    private final SettableStructObjectInspector tableInspector;
-    private final List<StructField> structFields;
-    private final Object orcRow;
+    private final OrcWriter orcWriter;
 
     private boolean closed;
     private long rowCount;
@@ -114,55 +84,79 @@ public class OrcFileWriter
         checkArgument(columnIds.size() == columnTypes.size(), "ids and types mismatch");
         checkArgument(isUnique(columnIds), "ids must be unique");
 
-        List<StorageType> storageTypes = ImmutableList.copyOf(toStorageTypes(columnTypes));
-        Iterable<String> hiveTypeNames = storageTypes.stream().map(StorageType::getHiveTypeName).collect(toList());
-        List<String> columnNames = ImmutableList.copyOf(transform(columnIds, toStringFunction()));
-
-        Properties properties = new Properties();
-        properties.setProperty(META_TABLE_COLUMNS, Joiner.on(',').join(columnNames));
-        properties.setProperty(META_TABLE_COLUMN_TYPES, Joiner.on(':').join(hiveTypeNames));
+        List<String> columnNames = new ArrayList<>();
+        for (long columnId : columnIds) {
+            columnNames.add(String.valueOf(columnId));
+        }
+        List<OrcType> orcTypes = toOrcTypes(columnNames, columnTypes);
 
-        serializer = createSerializer(properties);
-        recordWriter = createRecordWriter(new Path(target.toURI()), columnIds, columnTypes, writeMetadata);
+        Map<String, String> userMetadata = ImmutableMap.of();
+        if (writeMetadata) {
+            ImmutableMap.Builder<Long, TypeSignature> columnTypesMap = ImmutableMap.builder();
+            for (int i = 0; i < columnIds.size(); i++) {
+                columnTypesMap.put(columnIds.get(i), columnTypes.get(i).getTypeSignature());
+            }
+            userMetadata = ImmutableMap.of(OrcFileMetadata.KEY, METADATA_CODEC.toJson(new OrcFileMetadata(columnTypesMap.build())));
+        }
 
-        tableInspector = getStandardStructObjectInspector(columnNames, getJavaObjectInspectors(storageTypes));
-        structFields = ImmutableList.copyOf(tableInspector.getAllStructFieldRefs());
-        orcRow = tableInspector.create();
+        try {
+            orcWriter = new OrcWriter(
+                    new SyncingFileOutputStream(target),
+                    columnTypes,
+                    orcTypes,
+                    SNAPPY,
+                    DEFAULT_STRIPE_MAX_SIZE,
+                    DEFAULT_STRIPE_MAX_ROW_COUNT,
+                    DEFAULT_ROW_GROUP_MAX_ROW_COUNT,
+                    DEFAULT_DICTIONARY_MAX_MEMORY,
+                    userMetadata,
+                    UTC);
+        }
+        catch (IOException e) {
+            throw new PrestoException(RAPTOR_ERROR, "Failed to create writer", e);
+        }
     }
 
     public void appendPages(List<Page> pages)
     {
         for (Page page : pages) {
-            for (int position = 0; position < page.getPositionCount(); position++) {
-                appendRow(extractRow(page, position, columnTypes));
-            }
+            appendPage(page);
         }
     }
 
     public void appendPages(List<Page> inputPages, int[] pageIndexes, int[] positionIndexes)
     {
         checkArgument(pageIndexes.length == positionIndexes.length, "pageIndexes and positionIndexes do not match");
+        PageBuilder pageBuilder = new PageBuilder(columnTypes);
         for (int i = 0; i < pageIndexes.length; i++) {
             Page page = inputPages.get(pageIndexes[i]);
-            appendRow(extractRow(page, positionIndexes[i], columnTypes));
+            pageBuilder.declarePosition();
+            for (int channel = 0; channel < columnTypes.size(); channel++) {
+                columnTypes.get(channel).appendTo(page.getBlock(channel), positionIndexes[i], pageBuilder.getBlockBuilder(channel));
+            }
+            if (pageBuilder.isFull()) {
+                appendPage(pageBuilder.build());
+                pageBuilder.reset();
+            }
+        }
+        if (!pageBuilder.isEmpty()) {
+            appendPage(pageBuilder.build());
         }
     }
 
-    public void appendRow(Row row)
+    private void appendPage(Page page)
     {
-        List<Object> columns = row.getColumns();
-        checkArgument(columns.size() == columnTypes.size());
-        for (int channel = 0; channel < columns.size(); channel++) {
-            tableInspector.setStructFieldData(orcRow, structFields.get(channel), columns.get(channel));
-        }
+        checkArgument(page.getChannelCount() == columnTypes.size(), "channelCount does not match");
         try {
-            recordWriter.write(serializer.serialize(orcRow, tableInspector));
+            orcWriter.write(page);
         }
         catch (IOException e) {
-            throw new PrestoException(RAPTOR_ERROR, "Failed to write record", e);
+            throw new PrestoException(RAPTOR_ERROR, "Failed to write data", e);
+        }
+        rowCount += page.getPositionCount();
+        for (int channel = 0; channel < columnTypes.size(); channel++) {
+            uncompressedSize += getUncompressedSize(columnTypes.get(channel), page.getBlock(channel));
         }
-        rowCount++;
-        uncompressedSize += row.getSizeInBytes();
     }
 
     @Override
@@ -174,7 +168,7 @@ public class OrcFileWriter
         closed = true;
 
         try {
-            recordWriter.close(false);
+            orcWriter.close();
         }
         catch (IOException e) {
             throw new PrestoException(RAPTOR_ERROR, "Failed to close writer", e);
@@ -191,97 +185,33 @@ public class OrcFileWriter
         return uncompressedSize;
     }
 
-    private static OrcSerde createSerializer(Properties properties)
+    private static long getUncompressedSize(Type type, Block block)
     {
-        OrcSerde serde = new OrcSerde();
-        serde.initialize(CONFIGURATION, properties);
-        return serde;
-    }
-
-    private static RecordWriter createRecordWriter(Path target, List<Long> columnIds, List<Type> columnTypes, boolean writeMetadata)
-    {
-        try (ThreadContextClassLoader ignored = new ThreadContextClassLoader(FileSystem.class.getClassLoader());
-                FileSystem fileSystem = new SyncingFileSystem(CONFIGURATION)) {
-            OrcFile.WriterOptions options = new OrcWriterOptions(CONFIGURATION)
-                    .memory(new NullMemoryManager(CONFIGURATION))
-                    .fileSystem(fileSystem)
-                    .compress(SNAPPY);
-
-            if (writeMetadata) {
-                options.callback(createFileMetadataCallback(columnIds, columnTypes));
+        long size = 0;
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            if (block.isNull(position)) {
+                size += SIZE_OF_BYTE;
             }
-
-            return WRITER_CONSTRUCTOR.newInstance(target, options);
-        }
-        catch (ReflectiveOperationException | IOException e) {
-            throw new PrestoException(RAPTOR_ERROR, "Failed to create writer", e);
-        }
-    }
-
-    private static OrcFile.WriterCallback createFileMetadataCallback(List<Long> columnIds, List<Type> columnTypes)
-    {
-        return new OrcFile.WriterCallback()
-        {
-            @Override
-            public void preStripeWrite(OrcFile.WriterContext context)
-                    throws IOException
-            {}
-
-            @Override
-            public void preFooterWrite(OrcFile.WriterContext context)
-                    throws IOException
-            {
-                ImmutableMap.Builder<Long, TypeSignature> columnTypesMap = ImmutableMap.builder();
-                for (int i = 0; i < columnIds.size(); i++) {
-                    columnTypesMap.put(columnIds.get(i), columnTypes.get(i).getTypeSignature());
-                }
-                byte[] bytes = METADATA_CODEC.toJsonBytes(new OrcFileMetadata(columnTypesMap.build()));
-                context.getWriter().addUserMetadata(OrcFileMetadata.KEY, ByteBuffer.wrap(bytes));
+            else if (type.getJavaType() == boolean.class) {
+                size += SIZE_OF_BYTE;
+            }
+            else if (type.getJavaType() == long.class) {
+                size += SIZE_OF_LONG;
+            }
+            else if (type.getJavaType() == double.class) {
+                size += SIZE_OF_DOUBLE;
+            }
+            else if (type.getJavaType() == Slice.class) {
+                size += block.getSliceLength(position);
+            }
+            else if (type.getJavaType() == Block.class) {
+                size += block.getObject(position, Block.class).getSizeInBytes();
+            }
+            else {
+                throw new AssertionError("Unimplemented type: " + type);
             }
-        };
-    }
-
-    private static Constructor<? extends RecordWriter> getOrcWriterConstructor()
-    {
-        try {
-            String writerClassName = OrcOutputFormat.class.getName() + "$OrcRecordWriter";
-            Constructor<? extends RecordWriter> constructor = OrcOutputFormat.class.getClassLoader()
-                    .loadClass(writerClassName).asSubclass(RecordWriter.class)
-                    .getDeclaredConstructor(Path.class, OrcFile.WriterOptions.class);
-            constructor.setAccessible(true);
-            return constructor;
-        }
-        catch (ReflectiveOperationException e) {
-            throw Throwables.propagate(e);
-        }
-    }
-
-    private static List<ObjectInspector> getJavaObjectInspectors(List<StorageType> types)
-    {
-        return types.stream()
-                .map(StorageType::getHiveTypeName)
-                .map(TypeInfoUtils::getTypeInfoFromTypeString)
-                .map(OrcFileWriter::getJavaObjectInspector)
-                .collect(toList());
-    }
-
-    private static ObjectInspector getJavaObjectInspector(TypeInfo typeInfo)
-    {
-        Category category = typeInfo.getCategory();
-        if (category == PRIMITIVE) {
-            return getPrimitiveJavaObjectInspector(getPrimitiveTypeInfo(typeInfo.getTypeName()));
-        }
-        if (category == LIST) {
-            ListTypeInfo listTypeInfo = (ListTypeInfo) typeInfo;
-            return getStandardListObjectInspector(getJavaObjectInspector(listTypeInfo.getListElementTypeInfo()));
-        }
-        if (category == MAP) {
-            MapTypeInfo mapTypeInfo = (MapTypeInfo) typeInfo;
-            return getStandardMapObjectInspector(
-                    getJavaObjectInspector(mapTypeInfo.getMapKeyTypeInfo()),
-                    getJavaObjectInspector(mapTypeInfo.getMapValueTypeInfo()));
         }
-        throw new PrestoException(GENERIC_INTERNAL_ERROR, "Unhandled storage type: " + category);
+        return size;
     }
 
     private static <T> boolean isUnique(Collection<T> items)
@@ -289,41 +219,83 @@ public class OrcFileWriter
         return new HashSet<>(items).size() == items.size();
     }
 
-    private static List<StorageType> toStorageTypes(List<Type> columnTypes)
+    private static List<OrcType> toOrcTypes(List<String> columnNames, List<Type> columnTypes)
     {
-        return columnTypes.stream().map(OrcFileWriter::toStorageType).collect(toList());
+        List<OrcType> orcTypes = new ArrayList<>();
+        List<Integer> fieldTypeIndexes = new ArrayList<>();
+        // the root struct is added once the indexes of its fields are known
+        orcTypes.add(null);
+        for (Type type : columnTypes) {
+            fieldTypeIndexes.add(addOrcType(orcTypes, type));
+        }
+        orcTypes.set(0, new OrcType(OrcTypeKind.STRUCT, fieldTypeIndexes, columnNames, Optional.empty(), Optional.empty()));
+        return orcTypes;
     }
 
-    private static StorageType toStorageType(Type type)
+    // the storage types are the same as the types of the files written by the Hive ORC writer
+    private static int addOrcType(List<OrcType> orcTypes, Type type)
     {
+        int index = orcTypes.size();
         if (type instanceof DecimalType) {
             DecimalType decimalType = (DecimalType) type;
-            return StorageType.decimal(decimalType.getPrecision(), decimalType.getScale());
+            orcTypes.add(new OrcType(OrcTypeKind.DECIMAL, ImmutableList.of(), ImmutableList.of(), Optional.of(decimalType.getPrecision()), Optional.of(decimalType.getScale())));
+            return index;
         }
         Class<?> javaType = type.getJavaType();
         if (javaType == boolean.class) {
-            return StorageType.BOOLEAN;
+            orcTypes.add(new OrcType(OrcTypeKind.BOOLEAN));
+            return index;
         }
         if (javaType == long.class) {
-            return StorageType.LONG;
+            orcTypes.add(new OrcType(OrcTypeKind.LONG));
+            return index;
         }
         if (javaType == double.class) {
-            return StorageType.DOUBLE;
+            orcTypes.add(new OrcType(OrcTypeKind.DOUBLE));
+            return index;
         }
         if (javaType == Slice.class) {
             if (type instanceof VarcharType) {
-                return StorageType.STRING;
+                orcTypes.add(new OrcType(OrcTypeKind.STRING));
+                return index;
             }
             if (type.equals(VarbinaryType.VARBINARY)) {
-                return StorageType.BYTES;
+                orcTypes.add(new OrcType(OrcTypeKind.BINARY));
+                return index;
             }
         }
         if (isArrayType(type)) {
-            return arrayOf(toStorageType(type.getTypeParameters().get(0)));
+            orcTypes.add(null);
+            int elementIndex = addOrcType(orcTypes, type.getTypeParameters().get(0));
+            orcTypes.set(index, new OrcType(OrcTypeKind.LIST, ImmutableList.of(elementIndex), ImmutableList.of(), Optional.empty(), Optional.empty()));
+            return index;
         }
         if (isMapType(type)) {
-            return mapOf(toStorageType(type.getTypeParameters().get(0)), toStorageType(type.getTypeParameters().get(1)));
+            orcTypes.add(null);
+            int keyIndex = addOrcType(orcTypes, type.getTypeParameters().get(0));
+            int valueIndex = addOrcType(orcTypes, type.getTypeParameters().get(1));
+            orcTypes.set(index, new OrcType(OrcTypeKind.MAP, ImmutableList.of(keyIndex, valueIndex), ImmutableList.of(), Optional.empty(), Optional.empty()));
+            return index;
         }
         throw new PrestoException(NOT_SUPPORTED, "No storage type for type: " + type);
     }
+
+    private static class SyncingFileOutputStream
+            extends FileOutputStream
+    {
+        public SyncingFileOutputStream(File file)
+                throws FileNotFoundException
+        {
+            super(file);
+        }
+
+        @Override
+        public void close()
+                throws IOException
+        {
+            flush();
+            getFD().sync();
+            super.close();
+        }
+    }
 }
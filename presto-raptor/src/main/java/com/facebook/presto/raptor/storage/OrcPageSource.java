@@ -22,8 +22,8 @@ import com.facebook.presto.spi.UpdatablePageSource;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.block.LazyBlock;
-import com.facebook.presto.spi.block.LazyBlockLoader;
 import com.facebook.presto.spi.block.RunLengthEncodedBlock;
+import com.facebook.presto.spi.block.SelectiveLazyBlockLoader;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.collect.ImmutableList;
 import com.google.common.primitives.Ints;
@@ -256,7 +256,7 @@ public class OrcPageSource
     }
 
     private final class OrcBlockLoader
-            implements LazyBlockLoader<LazyBlock>
+            implements SelectiveLazyBlockLoader<LazyBlock>
     {
         private final int expectedBatchId = batchId;
         private final int columnIndex;
@@ -288,5 +288,23 @@ public class OrcPageSource
 
             loaded = true;
         }
+
+        @Override
+        public final Block load(LazyBlock lazyBlock, int[] positions, int positionCount)
+        {
+            checkState(!loaded, "Block is already loaded");
+            checkState(batchId == expectedBatchId);
+
+            Block block;
+            try {
+                block = recordReader.readBlock(type, columnIndex, positions, positionCount);
+            }
+            catch (IOException e) {
+                throw new PrestoException(RAPTOR_ERROR, e);
+            }
+
+            loaded = true;
+            return block;
+        }
     }
 }
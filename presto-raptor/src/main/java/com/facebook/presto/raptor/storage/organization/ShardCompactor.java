@@ -16,11 +16,11 @@ package com.facebook.presto.raptor.storage.organization;
 import com.facebook.presto.raptor.metadata.ColumnInfo;
 import com.facebook.presto.raptor.metadata.ShardInfo;
 import com.facebook.presto.raptor.storage.ReaderAttributes;
-import com.facebook.presto.raptor.storage.Row;
 import com.facebook.presto.raptor.storage.StorageManager;
 import com.facebook.presto.raptor.storage.StoragePageSink;
 import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.predicate.TupleDomain;
@@ -34,7 +34,6 @@ import org.weakref.jmx.Nested;
 
 import java.io.Closeable;
 import java.io.IOException;
-import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.OptionalInt;
@@ -43,7 +42,6 @@ import java.util.Queue;
 import java.util.Set;
 import java.util.UUID;
 
-import static com.facebook.presto.raptor.storage.Row.extractRow;
 import static com.google.common.base.Preconditions.checkArgument;
 import static io.airlift.concurrent.MoreFutures.getFutureValue;
 import static io.airlift.units.Duration.nanosSince;
@@ -128,6 +126,7 @@ public final class ShardCompactor
                 .collect(toList());
 
         Queue<SortedRowSource> rowSources = new PriorityQueue<>();
+        PageBuilder pageBuilder = new PageBuilder(columnTypes);
         StoragePageSink outputPageSink = storageManager.createStoragePageSink(transactionId, bucketNumber, columnIds, columnTypes, false);
         try {
             for (UUID uuid : uuids) {
@@ -143,14 +142,21 @@ public final class ShardCompactor
                     continue;
                 }
 
-                outputPageSink.appendRow(rowSource.next());
+                rowSource.appendTo(pageBuilder);
 
-                if (outputPageSink.isFull()) {
-                    outputPageSink.flush();
+                if (pageBuilder.isFull()) {
+                    outputPageSink.appendPages(ImmutableList.of(pageBuilder.build()));
+                    pageBuilder.reset();
+                    if (outputPageSink.isFull()) {
+                        outputPageSink.flush();
+                    }
                 }
 
                 rowSources.add(rowSource);
             }
+            if (!pageBuilder.isEmpty()) {
+                outputPageSink.appendPages(ImmutableList.of(pageBuilder.build()));
+            }
             outputPageSink.flush();
             List<ShardInfo> shardInfos = getFutureValue(outputPageSink.commit());
 
@@ -168,7 +174,7 @@ public final class ShardCompactor
     }
 
     private static class SortedRowSource
-            implements Iterator<Row>, Comparable<SortedRowSource>, Closeable
+            implements Comparable<SortedRowSource>, Closeable
     {
         private final ConnectorPageSource pageSource;
         private final List<Type> columnTypes;
@@ -189,7 +195,6 @@ public final class ShardCompactor
             currentPosition = 0;
         }
 
-        @Override
         public boolean hasNext()
         {
             if (hasMorePositions(currentPage, currentPosition)) {
@@ -218,16 +223,20 @@ public final class ShardCompactor
             return page;
         }
 
-        @Override
-        public Row next()
+        /**
+         * Appends the current row to the page builder, and advances to the next row.
+         */
+        public void appendTo(PageBuilder pageBuilder)
         {
             if (!hasNext()) {
                 throw new NoSuchElementException();
             }
 
-            Row row = extractRow(currentPage, currentPosition, columnTypes);
+            pageBuilder.declarePosition();
+            for (int channel = 0; channel < columnTypes.size(); channel++) {
+                columnTypes.get(channel).appendTo(currentPage.getBlock(channel), currentPosition, pageBuilder.getBlockBuilder(channel));
+            }
             currentPosition++;
-            return row;
         }
 
         @Override
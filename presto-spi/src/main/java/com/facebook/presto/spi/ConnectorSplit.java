@@ -21,5 +21,15 @@ public interface ConnectorSplit
 
     List<HostAddress> getAddresses();
 
+    /**
+     * Returns true if a remotely accessible split should preferably be scheduled on
+     * one of its addresses, for example because those nodes cache the data of the split.
+     * The split is scheduled on any other node when the preferred nodes are busy.
+     */
+    default boolean isSoftAffinity()
+    {
+        return false;
+    }
+
     Object getInfo();
 }
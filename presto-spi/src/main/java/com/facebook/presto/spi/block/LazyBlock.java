@@ -14,8 +14,10 @@
 package com.facebook.presto.spi.block;
 
 import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
 import org.openjdk.jol.info.ClassLayout;
 
+import java.util.Arrays;
 import java.util.List;
 
 import static java.util.Objects.requireNonNull;
@@ -29,6 +31,7 @@ public class LazyBlock
     private LazyBlockLoader<LazyBlock> loader;
 
     private Block block;
+    private boolean selectivelyLoaded;
 
     public LazyBlock(int positionCount, LazyBlockLoader<LazyBlock> loader)
     {
@@ -226,12 +229,52 @@ public class LazyBlock
         this.block = requireNonNull(block, "block is null");
     }
 
+    public boolean isLoaded()
+    {
+        return block != null;
+    }
+
+    public boolean isSelectiveLoadSupported()
+    {
+        return block == null && loader instanceof SelectiveLazyBlockLoader;
+    }
+
+    /**
+     * Returns a block with the values at the first {@code positionCount} entries of
+     * {@code positions}, which must be in increasing order. If the block is not loaded
+     * yet and the loader supports it, only the requested positions are loaded, after
+     * which this block can no longer be accessed.
+     */
+    public Block loadPositions(int[] positions, int positionCount)
+    {
+        requireNonNull(positions, "positions is null");
+        if (positionCount < 0 || positionCount > positions.length) {
+            throw new IllegalArgumentException("Invalid positionCount " + positionCount);
+        }
+
+        if (isSelectiveLoadSupported() && positionCount < this.positionCount) {
+            Block result = ((SelectiveLazyBlockLoader<LazyBlock>) loader).load(this, positions, positionCount);
+            if (result == null || result.getPositionCount() != positionCount) {
+                throw new IllegalArgumentException("Lazy block loader did not load the requested positions");
+            }
+            selectivelyLoaded = true;
+            loader = null;
+            return result;
+        }
+
+        assureLoaded();
+        return new DictionaryBlock(positionCount, block, Slices.wrappedIntArray(Arrays.copyOf(positions, positionCount)));
+    }
+
     @Override
     public void assureLoaded()
     {
         if (block != null) {
             return;
         }
+        if (selectivelyLoaded) {
+            throw new IllegalStateException("Only some positions of the lazy block were loaded");
+        }
         loader.load(this);
 
         if (block == null) {
@@ -0,0 +1,29 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi.block;
+
+/**
+ * Loader which is able to load only some positions of a lazy block. This allows a
+ * connector to skip decoding the values of rows which were removed by a filter.
+ */
+public interface SelectiveLazyBlockLoader<T extends Block>
+        extends LazyBlockLoader<T>
+{
+    /**
+     * Returns a block with the values at the first {@code positionCount} entries of
+     * {@code positions}, which are in increasing order. Other positions of the lazy
+     * block can not be loaded afterwards.
+     */
+    Block load(T block, int[] positions, int positionCount);
+}
@@ -34,6 +34,7 @@ import com.facebook.presto.spi.SchemaTablePrefix;
 import com.facebook.presto.spi.TableIdentity;
 import com.facebook.presto.spi.predicate.TupleDomain;
 import com.facebook.presto.spi.security.Privilege;
+import com.facebook.presto.spi.statistics.TableStatistics;
 import io.airlift.slice.Slice;
 
 import java.util.Collection;
@@ -101,6 +102,27 @@ public interface ConnectorMetadata
         return Optional.empty();
     }
 
+    /**
+     * Get statistics of the data of the specified table layout. The statistics are used by the
+     * optimizer to estimate the cost of a plan, and may be approximate.
+     */
+    default TableStatistics getTableStatistics(ConnectorSession session, ConnectorTableHandle tableHandle, ConnectorTableLayoutHandle tableLayoutHandle)
+    {
+        return TableStatistics.empty();
+    }
+
+    /**
+     * Get exact statistics of the data of the specified table layout, which are used to answer
+     * aggregation queries without reading the data. The statistics must contain the row count and
+     * the nulls count of all the requested columns, and the minimum and maximum of a column must
+     * either be exact or absent. If the row count or any nulls count is not known exactly, an empty
+     * result must be returned.
+     */
+    default Optional<TableStatistics> getExactTableStatistics(ConnectorSession session, ConnectorTableHandle tableHandle, ConnectorTableLayoutHandle tableLayoutHandle, Set<ColumnHandle> columns)
+    {
+        return Optional.empty();
+    }
+
     /**
      * List table names, possibly filtered by schema. An empty list is returned if none match.
      */
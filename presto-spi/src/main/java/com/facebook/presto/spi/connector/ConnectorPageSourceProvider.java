@@ -17,10 +17,23 @@ import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ConnectorSplit;
+import com.facebook.presto.spi.predicate.TupleDomain;
 
 import java.util.List;
 
 public interface ConnectorPageSourceProvider
 {
     ConnectorPageSource createPageSource(ConnectorTransactionHandle transactionHandle, ConnectorSession session, ConnectorSplit split, List<ColumnHandle> columns);
+
+    /**
+     * Creates a page source which may skip the data not matching the dynamic filter.
+     * The dynamic filter is collected while the query runs from the build side of a
+     * join, and only references the requested columns. The engine filters the returned
+     * rows again, both of page sources and of record cursors, so the page source is free
+     * to ignore the filter or to apply it only partially.
+     */
+    default ConnectorPageSource createPageSource(ConnectorTransactionHandle transactionHandle, ConnectorSession session, ConnectorSplit split, List<ColumnHandle> columns, TupleDomain<ColumnHandle> dynamicFilter)
+    {
+        return createPageSource(transactionHandle, session, split, columns);
+    }
 }
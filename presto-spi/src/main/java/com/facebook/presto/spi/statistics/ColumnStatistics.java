@@ -0,0 +1,146 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi.statistics;
+
+import java.util.Objects;
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Statistics of a single column. The minimum and maximum values are in the native
+ * representation of the column type, and are absent if they are not known.
+ */
+public final class ColumnStatistics
+{
+    private static final ColumnStatistics EMPTY = builder().build();
+
+    private final Estimate nullsCount;
+    private final Estimate distinctValuesCount;
+    private final Optional<Object> min;
+    private final Optional<Object> max;
+
+    public ColumnStatistics(Estimate nullsCount, Estimate distinctValuesCount, Optional<Object> min, Optional<Object> max)
+    {
+        this.nullsCount = requireNonNull(nullsCount, "nullsCount is null");
+        this.distinctValuesCount = requireNonNull(distinctValuesCount, "distinctValuesCount is null");
+        this.min = requireNonNull(min, "min is null");
+        this.max = requireNonNull(max, "max is null");
+    }
+
+    public static ColumnStatistics empty()
+    {
+        return EMPTY;
+    }
+
+    public Estimate getNullsCount()
+    {
+        return nullsCount;
+    }
+
+    /**
+     * Number of distinct non-null values.
+     */
+    public Estimate getDistinctValuesCount()
+    {
+        return distinctValuesCount;
+    }
+
+    public Optional<Object> getMin()
+    {
+        return min;
+    }
+
+    public Optional<Object> getMax()
+    {
+        return max;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ColumnStatistics other = (ColumnStatistics) o;
+        return Objects.equals(nullsCount, other.nullsCount) &&
+                Objects.equals(distinctValuesCount, other.distinctValuesCount) &&
+                Objects.equals(min, other.min) &&
+                Objects.equals(max, other.max);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(nullsCount, distinctValuesCount, min, max);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ColumnStatistics{" +
+                "nullsCount=" + nullsCount +
+                ", distinctValuesCount=" + distinctValuesCount +
+                ", min=" + min +
+                ", max=" + max +
+                "}";
+    }
+
+    public static Builder builder()
+    {
+        return new Builder();
+    }
+
+    public static class Builder
+    {
+        private Estimate nullsCount = Estimate.unknownValue();
+        private Estimate distinctValuesCount = Estimate.unknownValue();
+        private Optional<Object> min = Optional.empty();
+        private Optional<Object> max = Optional.empty();
+
+        private Builder() {}
+
+        public Builder setNullsCount(Estimate nullsCount)
+        {
+            this.nullsCount = requireNonNull(nullsCount, "nullsCount is null");
+            return this;
+        }
+
+        public Builder setDistinctValuesCount(Estimate distinctValuesCount)
+        {
+            this.distinctValuesCount = requireNonNull(distinctValuesCount, "distinctValuesCount is null");
+            return this;
+        }
+
+        public Builder setMin(Object min)
+        {
+            this.min = Optional.of(requireNonNull(min, "min is null"));
+            return this;
+        }
+
+        public Builder setMax(Object max)
+        {
+            this.max = Optional.of(requireNonNull(max, "max is null"));
+            return this;
+        }
+
+        public ColumnStatistics build()
+        {
+            return new ColumnStatistics(nullsCount, distinctValuesCount, min, max);
+        }
+    }
+}
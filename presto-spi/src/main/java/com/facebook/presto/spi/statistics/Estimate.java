@@ -0,0 +1,85 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi.statistics;
+
+import java.util.Objects;
+
+/**
+ * An estimated statistic value, which may be unknown.
+ */
+public final class Estimate
+{
+    private static final Estimate UNKNOWN = new Estimate(Double.NaN);
+
+    private final double value;
+
+    public static Estimate unknownValue()
+    {
+        return UNKNOWN;
+    }
+
+    public static Estimate of(double value)
+    {
+        if (Double.isNaN(value)) {
+            throw new IllegalArgumentException("value is NaN");
+        }
+        if (value < 0) {
+            throw new IllegalArgumentException("value is negative");
+        }
+        return new Estimate(value);
+    }
+
+    private Estimate(double value)
+    {
+        this.value = value;
+    }
+
+    public boolean isValueUnknown()
+    {
+        return Double.isNaN(value);
+    }
+
+    /**
+     * Returns the estimated value, or NaN if the value is unknown.
+     */
+    public double getValue()
+    {
+        return value;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        Estimate other = (Estimate) o;
+        return Double.compare(value, other.value) == 0;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(value);
+    }
+
+    @Override
+    public String toString()
+    {
+        return isValueUnknown() ? "unknown" : String.valueOf(value);
+    }
+}
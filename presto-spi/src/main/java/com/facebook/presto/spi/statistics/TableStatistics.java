@@ -0,0 +1,87 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi.statistics;
+
+import com.facebook.presto.spi.ColumnHandle;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.unmodifiableMap;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Statistics of the data of a table layout, as reported by the connector.
+ * Columns without statistics are not present in the column map.
+ */
+public final class TableStatistics
+{
+    private static final TableStatistics EMPTY = new TableStatistics(Estimate.unknownValue(), emptyMap());
+
+    private final Estimate rowCount;
+    private final Map<ColumnHandle, ColumnStatistics> columnStatistics;
+
+    public TableStatistics(Estimate rowCount, Map<ColumnHandle, ColumnStatistics> columnStatistics)
+    {
+        this.rowCount = requireNonNull(rowCount, "rowCount is null");
+        requireNonNull(columnStatistics, "columnStatistics is null");
+        this.columnStatistics = unmodifiableMap(new HashMap<>(columnStatistics));
+    }
+
+    public static TableStatistics empty()
+    {
+        return EMPTY;
+    }
+
+    public Estimate getRowCount()
+    {
+        return rowCount;
+    }
+
+    public Map<ColumnHandle, ColumnStatistics> getColumnStatistics()
+    {
+        return columnStatistics;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        TableStatistics other = (TableStatistics) o;
+        return Objects.equals(rowCount, other.rowCount) &&
+                Objects.equals(columnStatistics, other.columnStatistics);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(rowCount, columnStatistics);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "TableStatistics{" +
+                "rowCount=" + rowCount +
+                ", columnStatistics=" + columnStatistics +
+                "}";
+    }
+}